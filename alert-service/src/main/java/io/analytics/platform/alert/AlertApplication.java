@@ -0,0 +1,15 @@
+package io.analytics.platform.alert;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+/** Entry point of the alert service: evaluates rules against processed events. */
+@SpringBootApplication
+@ConfigurationPropertiesScan
+public class AlertApplication {
+
+  public static void main(String[] args) {
+    SpringApplication.run(AlertApplication.class, args);
+  }
+}
@@ -0,0 +1,116 @@
+package io.analytics.platform.alert.config;
+
+import io.analytics.platform.alert.evaluate.AlertEvaluator;
+import io.analytics.platform.alert.evaluate.AlertMetrics;
+import io.analytics.platform.alert.evaluate.ConditionTicker;
+import io.analytics.platform.alert.notify.ConsoleNotifier;
+import io.analytics.platform.alert.notify.NotificationDispatcher;
+import io.analytics.platform.alert.notify.Notifier;
+import io.analytics.platform.alert.notify.WebhookNotifier;
+import io.analytics.platform.alert.rule.RuleRegistry;
+import io.analytics.platform.alert.state.AlertSuppressor;
+import io.analytics.platform.alert.state.ConditionTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Wires the rule registry, the evaluator, the state of stateful rules, the suppression and
+ * notification of alerts, and the producer of alerts.
+ *
+ * <p>The listener consumes {@code byte[]} values in batches ({@code spring.kafka.listener.type:
+ * batch}); events are decoded by the {@link AlertEvaluator}, which reads either wire format.
+ */
+@Configuration(proxyBeanMethods = false)
+public class AlertConfig {
+
+  @Bean
+  public KafkaTemplate<String, byte[]> alertKafkaTemplate(
+      KafkaProperties kafkaProperties, ObjectProvider<SslBundles> sslBundles) {
+    Map<String, Object> config =
+        new HashMap<>(kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable()));
+    config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+    config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+    config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+    config.put(ProducerConfig.ACKS_CONFIG, "all");
+    return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(config));
+  }
+
+  @Bean
+  public RuleRegistry ruleRegistry(AlertProperties properties) {
+    return new RuleRegistry(properties.rules());
+  }
+
+  @Bean
+  public ConditionTracker conditionTracker(AlertProperties properties) {
+    AlertProperties.State state = properties.state();
+    return new ConditionTracker(state.tick(), state.maxKeysPerRule(), System.currentTimeMillis());
+  }
+
+  @Bean
+  public AlertSuppressor alertSuppressor(AlertProperties properties) {
+    AlertProperties.Suppression suppression = properties.suppression();
+    return new AlertSuppressor(
+        suppression.cooldown(), suppression.groupBy(), suppression.maxKeys());
+  }
+
+  @Bean
+  public NotificationDispatcher notificationDispatcher(
+      AlertProperties properties, MeterRegistry registry) {
+    AlertProperties.Notifications settings = properties.notifications();
+    List<Notifier> notifiers = new ArrayList<>();
+    if (settings.console()) {
+      notifiers.add(new ConsoleNotifier());
+    }
+    if (settings.webhookUrl() != null) {
+      notifiers.add(new WebhookNotifier(settings.webhookUrl(), settings.timeout()));
+    }
+    return new NotificationDispatcher(notifiers, settings, registry);
+  }
+
+  @Bean
+  public AlertEvaluator alertEvaluator(
+      RuleRegistry ruleRegistry,
+      KafkaTemplate<String, byte[]> alertKafkaTemplate,
+      AlertProperties properties,
+      ConditionTracker conditionTracker,
+      AlertSuppressor alertSuppressor,
+      NotificationDispatcher notificationDispatcher,
+      MeterRegistry registry) {
+    AlertMetrics metrics =
+        new AlertMetrics(
+            registry,
+            () -> ruleRegistry.current().index().rules().size(),
+            conditionTracker,
+            alertSuppressor);
+    return new AlertEvaluator(
+        ruleRegistry,
+        alertKafkaTemplate,
+        properties.outputTopic(),
+        properties.sendTimeout(),
+        metrics,
+        conditionTracker,
+        alertSuppressor,
+        notificationDispatcher,
+        Clock.systemUTC());
+  }
+
+  @Bean
+  public ConditionTicker conditionTicker(
+      AlertEvaluator alertEvaluator, AlertProperties properties) {
+    return new ConditionTicker(alertEvaluator, properties.state().tick());
+  }
+}
@@ -0,0 +1,138 @@
+package io.analytics.platform.alert.config;
+
+import io.analytics.platform.alert.rule.RuleDefinition;
+import io.analytics.platform.common.constants.TopicNames;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the alert service, bound from the {@code alert.*} namespace.
+ *
+ * @param inputTopic topic of the processed events the rules are evaluated against
+ * @param outputTopic topic receiving the triggered alerts
+ * @param sendTimeout how long a batch waits for its alerts to be acknowledged
+ * @param rules the rules evaluated from startup, replaced at runtime with {@code PUT /rules}
+ * @param state settings of the state kept by stateful rules
+ * @param suppression settings of the suppression of repeated alerts
+ * @param notifications settings of the delivery of alerts to notifiers
+ */
+@ConfigurationProperties(prefix = "alert")
+public record AlertProperties(
+    @DefaultValue(TopicNames.PROCESSED_EVENTS) String inputTopic,
+    @DefaultValue(TopicNames.ALERTS) String outputTopic,
+    @DefaultValue("30s") Duration sendTimeout,
+    List<RuleDefinition> rules,
+    @DefaultValue State state,
+    @DefaultValue Suppression suppression,
+    @DefaultValue Notifications notifications) {
+
+  /** Validates the settings and defaults the rules to none. */
+  public AlertProperties {
+    if (!sendTimeout.isPositive()) {
+      throw new IllegalArgumentException("alert.send-timeout must be positive");
+    }
+    rules = rules != null ? List.copyOf(rules) : List.of();
+  }
+
+  /**
+   * Settings of the state kept by stateful rules, bound from {@code alert.state.*}.
+   *
+   * @param tick how often timers are checked, the resolution of condition windows
+   * @param maxKeysPerRule the groups tracked per rule at most; events of further groups are
+   *     ignored
+   */
+  public record State(
+      @DefaultValue("1s") Duration tick, @DefaultValue("10000") int maxKeysPerRule) {
+
+    /** Validates the settings. */
+    public State {
+      if (!tick.isPositive()) {
+        throw new IllegalArgumentException("alert.state.tick must be positive");
+      }
+      if (maxKeysPerRule <= 0) {
+        throw new IllegalArgumentException("alert.state.max-keys-per-rule must be positive");
+      }
+    }
+  }
+
+  /**
+   * Settings of the suppression of repeated alerts, bound from {@code alert.suppression.*}.
+   *
+   * @param cooldown how long repeats of a rule and group are held back, zero to publish all
+   * @param groupBy {@code source} or tag keys whose values tell the groups of stateless rules
+   *     apart, none by default
+   * @param maxKeys the rule and group windows open at most; alerts of further ones are published
+   */
+  public record Suppression(
+      @DefaultValue("1m") Duration cooldown,
+      List<String> groupBy,
+      @DefaultValue("100000") int maxKeys) {
+
+    /** Validates the settings and defaults the group to none. */
+    public Suppression {
+      if (cooldown.isNegative()) {
+        throw new IllegalArgumentException("alert.suppression.cooldown must not be negative");
+      }
+      if (maxKeys <= 0) {
+        throw new IllegalArgumentException("alert.suppression.max-keys must be positive");
+      }
+      groupBy = groupBy != null ? List.copyOf(groupBy) : List.of();
+      if (groupBy.stream().anyMatch(String::isBlank)) {
+        throw new IllegalArgumentException("alert.suppression.group-by keys must not be blank");
+      }
+    }
+  }
+
+  /**
+   * Settings of the delivery of alerts to notifiers, bound from {@code alert.notifications.*}.
+   * Buffers, retries and breakers apply to each notifier separately.
+   *
+   * @param console whether alerts are written to the log
+   * @param webhookUrl the webhook alerts are posted to, none by default
+   * @param timeout how long a webhook post may take
+   * @param queueCapacity the alerts waiting for delivery at most; further ones are dropped
+   * @param batchSize the alerts delivered per call at most
+   * @param maxAttempts the calls made for a batch at most, the first included
+   * @param backoff the pause before the first retry, doubled for each further one and jittered
+   * @param maxBackoff the longest pause between retries
+   * @param failureThreshold failed or slow calls in a row that open the circuit breaker
+   * @param slowCall calls taking longer count as failed for the breaker
+   * @param openDuration how long an open breaker refuses batches before trying again
+   */
+  public record Notifications(
+      @DefaultValue("true") boolean console,
+      URI webhookUrl,
+      @DefaultValue("5s") Duration timeout,
+      @DefaultValue("10000") int queueCapacity,
+      @DefaultValue("100") int batchSize,
+      @DefaultValue("3") int maxAttempts,
+      @DefaultValue("200ms") Duration backoff,
+      @DefaultValue("5s") Duration maxBackoff,
+      @DefaultValue("5") int failureThreshold,
+      @DefaultValue("2s") Duration slowCall,
+      @DefaultValue("30s") Duration openDuration) {
+
+    /** Validates the settings and treats an empty webhook as none. */
+    public Notifications {
+      if (webhookUrl != null && webhookUrl.toString().isEmpty()) {
+        webhookUrl = null;
+      }
+      if (!timeout.isPositive() || !slowCall.isPositive() || !openDuration.isPositive()) {
+        throw new IllegalArgumentException(
+            "alert.notifications.timeout, slow-call and open-duration must be positive");
+      }
+      if (queueCapacity <= 0 || batchSize <= 0 || maxAttempts <= 0 || failureThreshold <= 0) {
+        throw new IllegalArgumentException(
+            "alert.notifications.queue-capacity, batch-size, max-attempts and failure-threshold"
+                + " must be positive");
+      }
+      if (backoff.isNegative() || maxBackoff.compareTo(backoff) < 0) {
+        throw new IllegalArgumentException(
+            "alert.notifications.backoff must not be negative nor exceed max-backoff");
+      }
+    }
+  }
+}
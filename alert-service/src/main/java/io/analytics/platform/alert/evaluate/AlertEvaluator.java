@@ -0,0 +1,230 @@
+package io.analytics.platform.alert.evaluate;
+
+import io.analytics.platform.alert.notify.NotificationDispatcher;
+import io.analytics.platform.alert.rule.Rule;
+import io.analytics.platform.alert.rule.RuleIndex;
+import io.analytics.platform.alert.rule.RuleRegistry;
+import io.analytics.platform.alert.rule.RuleSet;
+import io.analytics.platform.alert.state.AlertSuppressor;
+import io.analytics.platform.alert.state.ConditionTracker;
+import io.analytics.platform.alert.state.Rollback;
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.kafka.EventDeserializer;
+import io.analytics.platform.common.logging.Logging;
+import io.analytics.platform.common.util.JsonCodec;
+import io.analytics.platform.common.util.WireFormat;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.Logger;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Evaluates the current rules against batches of processed event records and publishes the
+ * alerts they raise.
+ *
+ * <p>Each event is matched through the {@link RuleIndex} of the current rules, read once per
+ * batch, so its cost grows with the rules it may fire rather than with all rules. Alerts are sent
+ * as JSON keyed by rule ID, and the batch waits for their acknowledgements once at the end.
+ * Records that do not hold a decodable event are logged and skipped.
+ *
+ * <p>Matches of stateful rules are fed to the {@link ConditionTracker} instead, stamped with the
+ * clock read once per batch, and alert only when their condition over time is met. Absence
+ * alerts, raised by {@link #tick()} rather than by an event, are sent without being awaited.
+ *
+ * <p>Alerts raised by events then pass through the {@link AlertSuppressor}, which holds back
+ * repeats of a rule and group within its cooldown and later publishes their count; absence
+ * alerts, at most one per group and window already, are not suppressed. Every alert is handed to
+ * the {@link NotificationDispatcher}, which never blocks, once the broker acknowledged it, so no
+ * notification goes out for an alert missing from the topic.
+ *
+ * <p>A failed send fails the batch, which is redelivered. The changes the batch made to the
+ * condition and suppression state are recorded in a {@link Rollback} and undone first, so the
+ * redelivery counts its events once and raises the same alerts again rather than holding them
+ * back as repeats; alerts of the batch whose sends succeeded are then published, and notified,
+ * more than once.
+ */
+public final class AlertEvaluator {
+
+  private static final Logger log = Logging.getLogger(AlertEvaluator.class);
+
+  private static final Header CONTENT_TYPE =
+      new RecordHeader(WireFormat.CONTENT_TYPE_HEADER, WireFormat.JSON.contentTypeBytes());
+
+  private final RuleRegistry rules;
+  private final KafkaTemplate<String, byte[]> template;
+  private final String outputTopic;
+  private final Duration sendTimeout;
+  private final AlertMetrics metrics;
+  private final ConditionTracker conditions;
+  private final AlertSuppressor suppressor;
+  private final NotificationDispatcher notifications;
+  private final Clock clock;
+  private final EventDeserializer<ProcessedEvent> deserializer =
+      new EventDeserializer<>(ProcessedEvent.class);
+
+  /**
+   * Creates an evaluator.
+   *
+   * @param rules holder of the rules to evaluate
+   * @param template producer of the alerts
+   * @param outputTopic topic receiving the alerts
+   * @param sendTimeout how long a batch waits for its alerts to be acknowledged
+   * @param metrics the alert meters
+   * @param conditions state of the stateful rules
+   * @param suppressor the suppression of repeated alerts
+   * @param notifications delivery of the alerts to the notifiers
+   * @param clock source of the time of stateful conditions and suppression
+   */
+  public AlertEvaluator(
+      RuleRegistry rules,
+      KafkaTemplate<String, byte[]> template,
+      String outputTopic,
+      Duration sendTimeout,
+      AlertMetrics metrics,
+      ConditionTracker conditions,
+      AlertSuppressor suppressor,
+      NotificationDispatcher notifications,
+      Clock clock) {
+    this.rules = rules;
+    this.template = template;
+    this.outputTopic = outputTopic;
+    this.sendTimeout = sendTimeout;
+    this.metrics = metrics;
+    this.conditions = conditions;
+    this.suppressor = suppressor;
+    this.notifications = notifications;
+    this.clock = clock;
+  }
+
+  /**
+   * Evaluates a batch and publishes its alerts.
+   *
+   * @param records processed event records
+   * @throws Exception if an alert could not be published; the batch should be retried
+   */
+  public void evaluate(List<ConsumerRecord<String, byte[]>> records) throws Exception {
+    long begin = System.nanoTime();
+    RuleSet ruleSet = rules.current();
+    RuleIndex index = ruleSet.index();
+    conditions.sync(ruleSet);
+    long now = clock.millis();
+    List<Rule> matches = new ArrayList<>();
+    List<AlertEvent> raised = new ArrayList<>();
+    List<AlertEvent> alerts = new ArrayList<>();
+    List<CompletableFuture<?>> sends = new ArrayList<>();
+    Rollback rollback = new Rollback();
+    int evaluated = 0;
+    try {
+      for (ConsumerRecord<String, byte[]> record : records) {
+        ProcessedEvent event = decode(record);
+        if (event == null) {
+          continue;
+        }
+        evaluated++;
+        matches.clear();
+        index.match(event, matches);
+        for (Rule rule : matches) {
+          if (rule.condition() != null) {
+            conditions.observe(rule, event, now, raised, rollback);
+          } else {
+            raised.add(rule.alert(event));
+          }
+          for (AlertEvent alert : raised) {
+            suppressor.offer(rule, event, alert, now, alerts, rollback);
+          }
+          raised.clear();
+        }
+        for (AlertEvent alert : alerts) {
+          sends.add(publish(alert));
+        }
+        alerts.clear();
+      }
+      await(sends);
+    } catch (Exception e) {
+      rollback.run();
+      throw e;
+    } finally {
+      metrics.evaluated(evaluated);
+    }
+    metrics.batch(System.nanoTime() - begin);
+  }
+
+  /**
+   * Expires the state of stateful rules and suppression windows up to now, and sends the absence
+   * alerts and suppression summaries raised.
+   *
+   * @return the number of alerts sent
+   */
+  public int tick() {
+    conditions.sync(rules.current());
+    long now = clock.millis();
+    List<AlertEvent> alerts = new ArrayList<>();
+    conditions.advance(now, alerts);
+    suppressor.expire(now, alerts);
+    for (AlertEvent alert : alerts) {
+      publish(alert)
+          .whenComplete(
+              (result, e) -> {
+                if (e != null) {
+                  Logging.error(log, "Failed to publish alert of rule " + alert.ruleId(), e);
+                }
+              });
+    }
+    return alerts.size();
+  }
+
+  private CompletableFuture<?> publish(AlertEvent alert) {
+    metrics.triggered(AlertEvent.Severity.valueOf(alert.severity()));
+    return template.send(output(alert)).thenRun(() -> notifications.submit(alert));
+  }
+
+  private ProcessedEvent decode(ConsumerRecord<String, byte[]> record) {
+    ProcessedEvent event;
+    try {
+      event = deserializer.deserialize(record.topic(), record.headers(), record.value());
+    } catch (SerializationException e) {
+      Logging.error(
+          log, "Skipping undecodable record at " + record.topic() + "-" + record.partition(), e);
+      metrics.undecodable();
+      return null;
+    }
+    if (event == null || event.valueTransformed() == null || event.tags() == null) {
+      Logging.info(
+          log, "Skipping record without an event at {}-{}", record.topic(), record.partition());
+      metrics.undecodable();
+      return null;
+    }
+    return event;
+  }
+
+  private ProducerRecord<String, byte[]> output(AlertEvent alert) {
+    RecordHeaders headers = new RecordHeaders(new Header[] {CONTENT_TYPE});
+    return new ProducerRecord<>(
+        outputTopic, null, alert.ruleId(), JsonCodec.ALERT_EVENT.encode(alert), headers);
+  }
+
+  /** Waits for every send of the batch; the first failure fails the batch. */
+  private void await(List<CompletableFuture<?>> sends) throws Exception {
+    if (sends.isEmpty()) {
+      return;
+    }
+    try {
+      CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+          .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof Exception cause ? cause : e;
+    }
+  }
+}
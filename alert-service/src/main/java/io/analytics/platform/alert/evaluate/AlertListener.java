@@ -0,0 +1,27 @@
+package io.analytics.platform.alert.evaluate;
+
+import java.util.List;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds batches of processed event records to the {@link AlertEvaluator}.
+ *
+ * <p>A batch whose alerts could not be published throws, and the container's error handler
+ * redelivers it; offsets are committed once a batch has returned.
+ */
+@Component
+public class AlertListener {
+
+  private final AlertEvaluator evaluator;
+
+  public AlertListener(AlertEvaluator evaluator) {
+    this.evaluator = evaluator;
+  }
+
+  @KafkaListener(topics = "${alert.input-topic}", batch = "true")
+  public void onEvents(List<ConsumerRecord<String, byte[]>> records) throws Exception {
+    evaluator.evaluate(records);
+  }
+}
@@ -0,0 +1,114 @@
+package io.analytics.platform.alert.evaluate;
+
+import io.analytics.platform.alert.state.AlertSuppressor;
+import io.analytics.platform.alert.state.ConditionTracker;
+import io.analytics.platform.common.dto.AlertEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instruments of the {@link AlertEvaluator}.
+ *
+ * <ul>
+ *   <li>{@code alert.events{outcome}}: events evaluated, and records skipped as undecodable
+ *   <li>{@code alert.triggered{severity}}: alerts raised
+ *   <li>{@code alert.rules}: rules currently evaluated
+ *   <li>{@code alert.batch.duration}: evaluation of a batch, alert acknowledgements included
+ *   <li>{@code alert.state.groups}: groups tracked by stateful rules
+ *   <li>{@code alert.state.timers}: timers scheduled for those groups
+ *   <li>{@code alert.state.rejected}: events ignored because their rule tracked too many groups
+ *   <li>{@code alert.suppressed}: alerts held back within the cooldown of their rule and group
+ *   <li>{@code alert.suppression.keys}: open suppression windows
+ *   <li>{@code alert.suppression.untracked}: alerts published unsuppressed over the window cap
+ * </ul>
+ */
+public final class AlertMetrics {
+
+  private static final AlertEvent.Severity[] SEVERITIES = AlertEvent.Severity.values();
+
+  private final Counter evaluated;
+  private final Counter undecodable;
+  private final Counter[] triggered = new Counter[SEVERITIES.length];
+  private final Timer batch;
+
+  /**
+   * Registers the alert meters.
+   *
+   * @param registry the registry to publish to
+   * @param rules source of the number of rules
+   * @param conditions state of the stateful rules
+   * @param suppressor the suppression of repeated alerts
+   */
+  public AlertMetrics(
+      MeterRegistry registry,
+      Supplier<Number> rules,
+      ConditionTracker conditions,
+      AlertSuppressor suppressor) {
+    evaluated = events(registry, "evaluated");
+    undecodable = events(registry, "undecodable");
+    for (AlertEvent.Severity severity : SEVERITIES) {
+      triggered[severity.ordinal()] =
+          Counter.builder("alert.triggered")
+              .description("Alerts raised, by severity")
+              .tag("severity", severity.name())
+              .register(registry);
+    }
+    Gauge.builder("alert.rules", rules)
+        .description("Rules currently evaluated")
+        .register(registry);
+    batch =
+        Timer.builder("alert.batch.duration")
+            .description("Evaluation of a batch of events")
+            .register(registry);
+    Gauge.builder("alert.state.groups", conditions, ConditionTracker::groups)
+        .description("Groups tracked by stateful rules")
+        .register(registry);
+    Gauge.builder("alert.state.timers", conditions, ConditionTracker::timers)
+        .description("Timers scheduled for the groups of stateful rules")
+        .register(registry);
+    FunctionCounter.builder("alert.state.rejected", conditions, ConditionTracker::rejected)
+        .description("Events ignored because their rule tracked too many groups")
+        .register(registry);
+    FunctionCounter.builder("alert.suppressed", suppressor, AlertSuppressor::suppressed)
+        .description("Alerts held back within the cooldown of their rule and group")
+        .register(registry);
+    Gauge.builder("alert.suppression.keys", suppressor, AlertSuppressor::keys)
+        .description("Open suppression windows")
+        .register(registry);
+    FunctionCounter.builder("alert.suppression.untracked", suppressor, AlertSuppressor::untracked)
+        .description("Alerts published unsuppressed because too many windows were open")
+        .register(registry);
+  }
+
+  private static Counter events(MeterRegistry registry, String outcome) {
+    return Counter.builder("alert.events")
+        .description("Processed event records consumed, by outcome")
+        .tag("outcome", outcome)
+        .register(registry);
+  }
+
+  /** Records events evaluated against the rules. */
+  void evaluated(int count) {
+    evaluated.increment(count);
+  }
+
+  /** Records a record skipped because it holds no decodable event. */
+  void undecodable() {
+    undecodable.increment();
+  }
+
+  /** Records an alert raised. */
+  void triggered(AlertEvent.Severity severity) {
+    triggered[severity.ordinal()].increment();
+  }
+
+  /** Records the evaluation of a batch. */
+  void batch(long nanos) {
+    batch.record(nanos, TimeUnit.NANOSECONDS);
+  }
+}
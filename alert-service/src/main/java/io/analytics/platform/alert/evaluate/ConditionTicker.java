@@ -0,0 +1,73 @@
+package io.analytics.platform.alert.evaluate;
+
+import io.analytics.platform.common.logging.Logging;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Drives the timers of stateful rules and the eviction of suppression windows: every {@code tick}
+ * a single thread calls {@link AlertEvaluator#tick()}, whatever the number of rules and groups.
+ */
+public final class ConditionTicker implements SmartLifecycle {
+
+  private static final Logger log = Logging.getLogger(ConditionTicker.class);
+
+  private final AlertEvaluator evaluator;
+  private final Duration tick;
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * Creates a ticker; timers fire once it is {@link #start() started}.
+   *
+   * @param evaluator the evaluator to tick
+   * @param tick the interval between ticks
+   */
+  public ConditionTicker(AlertEvaluator evaluator, Duration tick) {
+    this.evaluator = evaluator;
+    this.tick = tick;
+  }
+
+  @Override
+  public synchronized void start() {
+    if (scheduler != null) {
+      return;
+    }
+    long interval = tick.toMillis();
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("alert-condition-ticker").factory());
+    scheduler.scheduleWithFixedDelay(this::tickSafely, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (scheduler == null) {
+      return;
+    }
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(tick.toMillis() + 5000, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    scheduler = null;
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return scheduler != null;
+  }
+
+  private void tickSafely() {
+    try {
+      evaluator.tick();
+    } catch (RuntimeException e) {
+      // Thrown out of the scheduled task it would cancel every later tick
+      Logging.error(log, "Stateful condition tick failed", e);
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package io.analytics.platform.alert.expression;
+
+import io.analytics.platform.alert.expression.Node.Binary;
+import io.analytics.platform.alert.expression.Node.Field;
+import io.analytics.platform.alert.expression.Node.FieldKind;
+import io.analytics.platform.alert.expression.Node.Literal;
+import io.analytics.platform.alert.expression.Node.Operator;
+import io.analytics.platform.alert.expression.Node.Type;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * A parsed and type-checked rule expression over the fields of a {@link ProcessedEvent}.
+ *
+ * <p>The language:
+ *
+ * <ul>
+ *   <li>fields: {@code value} (or {@code valueTransformed}), {@code source}, {@code id}, {@code
+ *       tags.key} and {@code meta.key}, or {@code tags['any key']}
+ *   <li>constants: numbers, {@code 'text'} or {@code "text"}, {@code true} and {@code false}
+ *   <li>operators: {@code + - * / %}, {@code == != < <= > >=}, {@code x in (1, 2)}, {@code
+ *       && and}, {@code || or}, {@code ! not}, and parentheses
+ *   <li>functions: {@code abs(n)}, {@code min(a, b)}, {@code max(a, b)}, {@code lower(s)},
+ *       {@code startsWith(s, prefix)}, {@code endsWith(s, suffix)}, {@code contains(s, part)}
+ *       and {@code exists(tags.key)}
+ * </ul>
+ *
+ * <p>Tag and metadata values take the type their use requires: {@code tags.load > 0.8} reads the
+ * tag as a number, {@code tags.region == 'eu'} as text. A missing or unconvertible value is NaN
+ * as a number, so every comparison with it is false except {@code !=}. Text compares with {@code
+ * String#compareTo}.
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+public final class Expression {
+
+  private final String text;
+  private final Node root;
+
+  private Expression(String text, Node root) {
+    this.text = text;
+    this.root = root;
+  }
+
+  /**
+   * Parses a condition.
+   *
+   * @param text the expression
+   * @return the expression
+   * @throws ExpressionException if the text is malformed or not a condition; the message names
+   *     the column at fault
+   */
+  public static Expression parse(String text) {
+    return new Expression(text, ExpressionParser.parse(text));
+  }
+
+  /** Returns the text the expression was parsed from. */
+  public String text() {
+    return text;
+  }
+
+  /**
+   * Compiles the expression into nested specialized lambdas (see {@link ExpressionCompiler}).
+   *
+   * @return the condition, thread-safe
+   */
+  public Predicate<ProcessedEvent> compile() {
+    return ExpressionCompiler.condition(root);
+  }
+
+  /**
+   * Evaluates the expression by walking its tree, the reference the compiled form is checked and
+   * benchmarked against.
+   *
+   * @param event the event
+   * @return whether the condition holds
+   */
+  public boolean interpret(ProcessedEvent event) {
+    return Values.bool(Interpreter.eval(root, event));
+  }
+
+  /**
+   * Splits the top-level {@code &&} conditions into those a rule index resolves and the rest.
+   *
+   * <p>Indexed are the first {@code source == 'text'}, the first {@code tags.key == 'text'} of
+   * each key, and every comparison of {@code value} with a constant other than {@code !=},
+   * intersected into one closed range. Constants may be on either side.
+   *
+   * @return the split, whose conditions all hold exactly when the expression holds
+   */
+  public Split split() {
+    List<Node> conjuncts = new ArrayList<>();
+    flatten(root, conjuncts);
+    String source = null;
+    Map<String, String> tags = new TreeMap<>();
+    double low = Double.NEGATIVE_INFINITY;
+    double high = Double.POSITIVE_INFINITY;
+    Node residual = null;
+    for (Node conjunct : conjuncts) {
+      if (conjunct instanceof Binary binary && binary.op().isComparison()) {
+        Operator op = binary.op();
+        Node left = binary.left();
+        Node right = binary.right();
+        if (left instanceof Literal) {
+          op = op.flip();
+          left = binary.right();
+          right = binary.left();
+        }
+        if (left instanceof Field field && right instanceof Literal literal) {
+          if (binary.domain() == Type.NUMBER
+              && field.kind() == FieldKind.VALUE
+              && op != Operator.NE) {
+            double bound = (Double) literal.value();
+            if (op == Operator.GT || op == Operator.GE || op == Operator.EQ) {
+              low = Math.max(low, op == Operator.GT ? Math.nextUp(bound) : bound);
+            }
+            if (op == Operator.LT || op == Operator.LE || op == Operator.EQ) {
+              high = Math.min(high, op == Operator.LT ? Math.nextDown(bound) : bound);
+            }
+            continue;
+          }
+          if (binary.domain() == Type.TEXT
+              && op == Operator.EQ
+              && literal.value() instanceof String expected) {
+            if (field.kind() == FieldKind.SOURCE && source == null) {
+              source = expected;
+              continue;
+            }
+            if (field.kind() == FieldKind.TAG && !tags.containsKey(field.key())) {
+              tags.put(field.key(), expected);
+              continue;
+            }
+          }
+        }
+      }
+      residual = residual == null ? conjunct : and(residual, conjunct);
+    }
+    Expression rest = residual != null ? new Expression(text, residual) : null;
+    return new Split(source, Map.copyOf(tags), low, high, rest);
+  }
+
+  private static Node and(Node left, Node right) {
+    return new Binary(Operator.AND, left, right, Type.BOOLEAN, Type.BOOLEAN, left.position());
+  }
+
+  private static void flatten(Node node, List<Node> conjuncts) {
+    if (node instanceof Binary binary && binary.op() == Operator.AND) {
+      flatten(binary.left(), conjuncts);
+      flatten(binary.right(), conjuncts);
+    } else {
+      conjuncts.add(node);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return text;
+  }
+
+  /**
+   * An expression split by {@link #split()}.
+   *
+   * @param source the required event source, null for any
+   * @param tags the required tag values, compared as text
+   * @param low the inclusive lower bound of the value, negative infinity for none
+   * @param high the inclusive upper bound of the value, positive infinity for none
+   * @param residual the remaining conditions, null if none
+   */
+  public record Split(
+      String source, Map<String, String> tags, double low, double high, Expression residual) {
+
+    /** Returns whether the value is bounded at all. */
+    public boolean hasRange() {
+      return low != Double.NEGATIVE_INFINITY || high != Double.POSITIVE_INFINITY;
+    }
+  }
+}
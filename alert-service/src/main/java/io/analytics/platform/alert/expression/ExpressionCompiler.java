@@ -0,0 +1,302 @@
+package io.analytics.platform.alert.expression;
+
+import io.analytics.platform.alert.expression.Node.Binary;
+import io.analytics.platform.alert.expression.Node.Call;
+import io.analytics.platform.alert.expression.Node.Field;
+import io.analytics.platform.alert.expression.Node.FieldKind;
+import io.analytics.platform.alert.expression.Node.In;
+import io.analytics.platform.alert.expression.Node.Literal;
+import io.analytics.platform.alert.expression.Node.Operator;
+import io.analytics.platform.alert.expression.Node.Type;
+import io.analytics.platform.alert.expression.Node.Unary;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Compiles a typed expression tree into nested lambdas.
+ *
+ * <p>Each node becomes a lambda of its result type, {@link Predicate} for conditions, {@link
+ * ToDoubleFunction} for numbers and {@link Function} for text, so numbers and booleans are never
+ * boxed. Subtrees that read no field are folded into constants, and the common shapes are
+ * specialized: a comparison with a constant captures it instead of calling a lambda for it, and
+ * {@code value} and {@code tags.key == 'text'} read the event directly, so a threshold such as
+ * {@code value > 90} is a single small lambda the JIT inlines.
+ *
+ * <p>Results agree with the {@link Interpreter} on every event.
+ */
+final class ExpressionCompiler {
+
+  private ExpressionCompiler() {
+    // Prevent instantiation
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  /**
+   * Compiles a condition.
+   *
+   * @param node a node of type {@link Type#BOOLEAN}, or a tag or metadata field
+   * @return the condition
+   */
+  static Predicate<ProcessedEvent> condition(Node node) {
+    if (isConstant(node)) {
+      boolean constant = Values.bool(Interpreter.eval(node, null));
+      return constant ? event -> true : event -> false;
+    }
+    return switch (node) {
+      case Field field -> {
+        Function<ProcessedEvent, Object> raw = raw(field);
+        yield event -> Values.bool(raw.apply(event));
+      }
+      case Unary unary -> {
+        Predicate<ProcessedEvent> operand = condition(unary.operand());
+        yield event -> !operand.test(event);
+      }
+      case Binary binary when binary.op() == Operator.AND -> {
+        Predicate<ProcessedEvent> left = condition(binary.left());
+        Predicate<ProcessedEvent> right = condition(binary.right());
+        yield event -> left.test(event) && right.test(event);
+      }
+      case Binary binary when binary.op() == Operator.OR -> {
+        Predicate<ProcessedEvent> left = condition(binary.left());
+        Predicate<ProcessedEvent> right = condition(binary.right());
+        yield event -> left.test(event) || right.test(event);
+      }
+      case Binary binary -> comparison(binary);
+      case In in -> in(in);
+      case Call call -> call(call);
+      case Literal literal -> throw new IllegalStateException("Unfolded constant " + literal);
+    };
+  }
+
+  private static Predicate<ProcessedEvent> comparison(Binary binary) {
+    Operator op = binary.op();
+    Node left = binary.left();
+    Node right = binary.right();
+    if (isConstant(left)) {
+      op = op.flip();
+      left = binary.right();
+      right = binary.left();
+    }
+    return switch (binary.domain()) {
+      case NUMBER -> numberComparison(op, left, right);
+      case TEXT -> textComparison(op, left, right);
+      default -> {
+        Predicate<ProcessedEvent> first = condition(left);
+        Predicate<ProcessedEvent> second = condition(right);
+        yield op == Operator.EQ
+            ? event -> first.test(event) == second.test(event)
+            : event -> first.test(event) != second.test(event);
+      }
+    };
+  }
+
+  private static Predicate<ProcessedEvent> numberComparison(Operator op, Node left, Node right) {
+    if (isConstant(right)) {
+      double c = Values.number(Interpreter.eval(right, null));
+      if (left instanceof Field field && field.kind() == FieldKind.VALUE) {
+        return switch (op) {
+          case EQ -> event -> value(event) == c;
+          case NE -> event -> value(event) != c;
+          case LT -> event -> value(event) < c;
+          case LE -> event -> value(event) <= c;
+          case GT -> event -> value(event) > c;
+          default -> event -> value(event) >= c;
+        };
+      }
+      ToDoubleFunction<ProcessedEvent> number = number(left);
+      return switch (op) {
+        case EQ -> event -> number.applyAsDouble(event) == c;
+        case NE -> event -> number.applyAsDouble(event) != c;
+        case LT -> event -> number.applyAsDouble(event) < c;
+        case LE -> event -> number.applyAsDouble(event) <= c;
+        case GT -> event -> number.applyAsDouble(event) > c;
+        default -> event -> number.applyAsDouble(event) >= c;
+      };
+    }
+    ToDoubleFunction<ProcessedEvent> first = number(left);
+    ToDoubleFunction<ProcessedEvent> second = number(right);
+    return switch (op) {
+      case EQ -> event -> first.applyAsDouble(event) == second.applyAsDouble(event);
+      case NE -> event -> first.applyAsDouble(event) != second.applyAsDouble(event);
+      case LT -> event -> first.applyAsDouble(event) < second.applyAsDouble(event);
+      case LE -> event -> first.applyAsDouble(event) <= second.applyAsDouble(event);
+      case GT -> event -> first.applyAsDouble(event) > second.applyAsDouble(event);
+      default -> event -> first.applyAsDouble(event) >= second.applyAsDouble(event);
+    };
+  }
+
+  private static Predicate<ProcessedEvent> textComparison(Operator op, Node left, Node right) {
+    if (isConstant(right) && (op == Operator.EQ || op == Operator.NE)) {
+      String c = Values.text(Interpreter.eval(right, null));
+      boolean equal = op == Operator.EQ;
+      if (left instanceof Field field && field.kind() == FieldKind.TAG) {
+        String key = field.key();
+        return event -> tagEquals(event.tags(), key, c) == equal;
+      }
+      Function<ProcessedEvent, String> text = text(left);
+      return equal
+          ? event -> c.equals(text.apply(event))
+          : event -> !c.equals(text.apply(event));
+    }
+    Function<ProcessedEvent, String> first = text(left);
+    Function<ProcessedEvent, String> second = text(right);
+    return event -> Values.compare(op, first.apply(event), second.apply(event));
+  }
+
+  private static Predicate<ProcessedEvent> in(In in) {
+    if (in.domain() == Type.NUMBER) {
+      ToDoubleFunction<ProcessedEvent> number = number(in.subject());
+      double[] options = in.options().stream().mapToDouble(option -> (Double) option).toArray();
+      return event -> {
+        double value = number.applyAsDouble(event);
+        for (double option : options) {
+          if (value == option) {
+            return true;
+          }
+        }
+        return false;
+      };
+    }
+    Function<ProcessedEvent, String> text = text(in.subject());
+    Set<Object> options = Set.copyOf(in.options());
+    return event -> {
+      String value = text.apply(event);
+      return value != null && options.contains(value);
+    };
+  }
+
+  private static Predicate<ProcessedEvent> call(Call call) {
+    if (call.function() == Node.Function.EXISTS) {
+      Function<ProcessedEvent, Object> raw = raw((Field) call.arguments().get(0));
+      return event -> raw.apply(event) != null;
+    }
+    Function<ProcessedEvent, String> text = text(call.arguments().get(0));
+    Node second = call.arguments().get(1);
+    if (isConstant(second)) {
+      String part = Values.text(Interpreter.eval(second, null));
+      return switch (call.function()) {
+        case STARTS_WITH -> event -> startsWith(text.apply(event), part);
+        case ENDS_WITH -> event -> endsWith(text.apply(event), part);
+        default -> event -> contains(text.apply(event), part);
+      };
+    }
+    Node.Function function = call.function();
+    Function<ProcessedEvent, String> part = text(second);
+    return event -> Values.textTest(function, text.apply(event), part.apply(event));
+  }
+
+  private static ToDoubleFunction<ProcessedEvent> number(Node node) {
+    if (isConstant(node)) {
+      double constant = Values.number(Interpreter.eval(node, null));
+      return event -> constant;
+    }
+    return switch (node) {
+      case Field field when field.kind() == FieldKind.VALUE -> ExpressionCompiler::value;
+      case Field field -> {
+        Function<ProcessedEvent, Object> raw = raw(field);
+        yield event -> Values.number(raw.apply(event));
+      }
+      case Unary unary -> {
+        ToDoubleFunction<ProcessedEvent> operand = number(unary.operand());
+        yield event -> -operand.applyAsDouble(event);
+      }
+      case Binary binary -> arithmetic(binary);
+      case Call call -> {
+        ToDoubleFunction<ProcessedEvent> first = number(call.arguments().get(0));
+        if (call.function() == Node.Function.ABS) {
+          yield event -> Math.abs(first.applyAsDouble(event));
+        }
+        ToDoubleFunction<ProcessedEvent> second = number(call.arguments().get(1));
+        yield call.function() == Node.Function.MIN
+            ? event -> Math.min(first.applyAsDouble(event), second.applyAsDouble(event))
+            : event -> Math.max(first.applyAsDouble(event), second.applyAsDouble(event));
+      }
+      default -> throw new IllegalStateException("Not a number: " + node);
+    };
+  }
+
+  private static ToDoubleFunction<ProcessedEvent> arithmetic(Binary binary) {
+    ToDoubleFunction<ProcessedEvent> left = number(binary.left());
+    ToDoubleFunction<ProcessedEvent> right = number(binary.right());
+    return switch (binary.op()) {
+      case ADD -> event -> left.applyAsDouble(event) + right.applyAsDouble(event);
+      case SUB -> event -> left.applyAsDouble(event) - right.applyAsDouble(event);
+      case MUL -> event -> left.applyAsDouble(event) * right.applyAsDouble(event);
+      case DIV -> event -> left.applyAsDouble(event) / right.applyAsDouble(event);
+      default -> event -> left.applyAsDouble(event) % right.applyAsDouble(event);
+    };
+  }
+
+  private static Function<ProcessedEvent, String> text(Node node) {
+    if (isConstant(node)) {
+      String constant = Values.text(Interpreter.eval(node, null));
+      return event -> constant;
+    }
+    return switch (node) {
+      case Field field when field.kind() == FieldKind.SOURCE -> ProcessedEvent::source;
+      case Field field when field.kind() == FieldKind.ID -> ProcessedEvent::id;
+      case Field field -> {
+        Function<ProcessedEvent, Object> raw = raw(field);
+        yield event -> Values.text(raw.apply(event));
+      }
+      case Call call -> {
+        Function<ProcessedEvent, String> operand = text(call.arguments().get(0));
+        yield event -> Values.lower(operand.apply(event));
+      }
+      default -> throw new IllegalStateException("Not text: " + node);
+    };
+  }
+
+  /** Reads a tag or metadata field as stored. */
+  private static Function<ProcessedEvent, Object> raw(Field field) {
+    String key = field.key();
+    return field.kind() == FieldKind.TAG
+        ? event -> get(event.tags(), key)
+        : event -> get(event.meta(), key);
+  }
+
+  private static Object get(Map<String, Object> map, String key) {
+    return map != null ? map.get(key) : null;
+  }
+
+  private static double value(ProcessedEvent event) {
+    Double value = event.valueTransformed();
+    return value != null ? value : Double.NaN;
+  }
+
+  private static boolean tagEquals(Map<String, Object> tags, String key, String expected) {
+    Object tag = tags != null ? tags.get(key) : null;
+    if (tag instanceof String text) {
+      return text.equals(expected);
+    }
+    return tag != null && tag.toString().equals(expected);
+  }
+
+  private static boolean startsWith(String text, String prefix) {
+    return text != null && text.startsWith(prefix);
+  }
+
+  private static boolean endsWith(String text, String suffix) {
+    return text != null && text.endsWith(suffix);
+  }
+
+  private static boolean contains(String text, String part) {
+    return text != null && text.contains(part);
+  }
+
+  /** Returns whether a node reads no field, so that it can be evaluated once. */
+  static boolean isConstant(Node node) {
+    return switch (node) {
+      case Literal literal -> true;
+      case Field field -> false;
+      case Unary unary -> isConstant(unary.operand());
+      case Binary binary -> isConstant(binary.left()) && isConstant(binary.right());
+      case In in -> isConstant(in.subject());
+      case Call call -> call.arguments().stream().allMatch(ExpressionCompiler::isConstant);
+    };
+  }
+}
@@ -0,0 +1,23 @@
+package io.analytics.platform.alert.expression;
+
+/** Thrown when a rule expression does not parse or is not well typed. */
+public class ExpressionException extends RuntimeException {
+
+  private final int position;
+
+  /**
+   * Creates an exception.
+   *
+   * @param reason what is wrong with the expression
+   * @param position the column of the offending text, from 1
+   */
+  public ExpressionException(String reason, int position) {
+    super(reason + " at column " + position);
+    this.position = position;
+  }
+
+  /** Returns the column of the offending text, from 1. */
+  public int position() {
+    return position;
+  }
+}
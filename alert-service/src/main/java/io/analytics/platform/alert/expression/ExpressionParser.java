@@ -0,0 +1,529 @@
+package io.analytics.platform.alert.expression;
+
+import io.analytics.platform.alert.expression.Node.Binary;
+import io.analytics.platform.alert.expression.Node.Call;
+import io.analytics.platform.alert.expression.Node.Field;
+import io.analytics.platform.alert.expression.Node.FieldKind;
+import io.analytics.platform.alert.expression.Node.In;
+import io.analytics.platform.alert.expression.Node.Literal;
+import io.analytics.platform.alert.expression.Node.Operator;
+import io.analytics.platform.alert.expression.Node.Type;
+import io.analytics.platform.alert.expression.Node.Unary;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses and type-checks rule expressions, by recursive descent.
+ *
+ * <p>Operators, from the loosest binding:
+ *
+ * <ol>
+ *   <li>{@code ||}, {@code or}
+ *   <li>{@code &&}, {@code and}
+ *   <li>{@code not}
+ *   <li>{@code ==}, {@code !=}, {@code <}, {@code <=}, {@code >}, {@code >=}, {@code in (...)}
+ *   <li>{@code +}, {@code -}
+ *   <li>{@code *}, {@code /}, {@code %}
+ *   <li>unary {@code -} and {@code !}
+ * </ol>
+ *
+ * <p>Types are checked while the tree is built, so every error carries the column of the text
+ * at fault.
+ */
+final class ExpressionParser {
+
+  private static final int MAX_LENGTH = 4096;
+  private static final int MAX_DEPTH = 100;
+  private static final String[] SYMBOLS = {
+    "==", "!=", "<=", ">=", "&&", "||", "(", ")", "[", "]", ",", ".", "<", ">", "!", "+", "-", "*",
+    "/", "%"
+  };
+
+  private final String text;
+  private int offset;
+  private int depth;
+  private Token token;
+
+  private ExpressionParser(String text) {
+    this.text = text;
+  }
+
+  /**
+   * Parses an expression that must be a condition.
+   *
+   * @param text the expression
+   * @return the root of the typed tree
+   * @throws ExpressionException if the expression is malformed or not a condition
+   */
+  static Node parse(String text) {
+    if (text == null || text.isBlank()) {
+      throw new ExpressionException("expression is empty", 1);
+    }
+    if (text.length() > MAX_LENGTH) {
+      throw new ExpressionException(
+          "expression exceeds " + MAX_LENGTH + " characters", MAX_LENGTH + 1);
+    }
+    ExpressionParser parser = new ExpressionParser(text);
+    parser.advance();
+    Node root = parser.or();
+    if (parser.token.kind != Kind.END) {
+      throw parser.unexpected();
+    }
+    return require(root, Type.BOOLEAN);
+  }
+
+  private Node or() {
+    Node left = and();
+    while (true) {
+      if (!accept("||") && !acceptWord("or")) {
+        return left;
+      }
+      left = logical(Operator.OR, left, and());
+    }
+  }
+
+  private Node and() {
+    Node left = not();
+    while (true) {
+      if (!accept("&&") && !acceptWord("and")) {
+        return left;
+      }
+      left = logical(Operator.AND, left, not());
+    }
+  }
+
+  private Node not() {
+    int position = token.position;
+    if (!acceptWord("not")) {
+      return comparison();
+    }
+    enter(position);
+    Node operand = not();
+    depth--;
+    return new Unary(Operator.NOT, require(operand, Type.BOOLEAN), Type.BOOLEAN, position);
+  }
+
+  private Node comparison() {
+    Node left = additive();
+    int position = token.position;
+    Operator op = comparisonOperator();
+    if (op != null) {
+      return compare(op, left, additive(), position);
+    }
+    if (acceptWord("in")) {
+      return in(left, position);
+    }
+    return left;
+  }
+
+  private Operator comparisonOperator() {
+    if (token.kind != Kind.SYMBOL) {
+      return null;
+    }
+    Operator op =
+        switch (token.text) {
+          case "==" -> Operator.EQ;
+          case "!=" -> Operator.NE;
+          case "<" -> Operator.LT;
+          case "<=" -> Operator.LE;
+          case ">" -> Operator.GT;
+          case ">=" -> Operator.GE;
+          default -> null;
+        };
+    if (op != null) {
+      advance();
+    }
+    return op;
+  }
+
+  private Node in(Node subject, int position) {
+    expect("(", "'(' after in");
+    List<Object> options = new ArrayList<>();
+    Type domain = null;
+    do {
+      Literal option = constant();
+      if (domain != null && option.type() != domain) {
+        throw new ExpressionException("in lists cannot mix numbers and text", option.position());
+      }
+      domain = option.type();
+      options.add(option.value());
+    } while (accept(","));
+    expect(")", "',' or ')'");
+    if (subject.type() != domain && subject.type() != Type.ANY) {
+      throw new ExpressionException(
+          "cannot compare " + subject.type().description() + " with " + domain.description(),
+          position);
+    }
+    return new In(subject, domain, List.copyOf(options), subject.position());
+  }
+
+  /** Reads a number or text constant of an {@code in} list. */
+  private Literal constant() {
+    Token start = token;
+    boolean negative = accept("-");
+    if (token.kind == Kind.NUMBER) {
+      double value = (Double) token.value;
+      advance();
+      return new Literal(negative ? -value : value, Type.NUMBER, start.position);
+    }
+    if (token.kind == Kind.TEXT && !negative) {
+      advance();
+      return new Literal(start.value, Type.TEXT, start.position);
+    }
+    throw new ExpressionException(
+        "expected a number or text constant but found " + describe(token), token.position);
+  }
+
+  private Node additive() {
+    Node left = multiplicative();
+    while (true) {
+      Operator op = accept("+") ? Operator.ADD : accept("-") ? Operator.SUB : null;
+      if (op == null) {
+        return left;
+      }
+      left = arithmetic(op, left, multiplicative());
+    }
+  }
+
+  private Node multiplicative() {
+    Node left = unary();
+    while (true) {
+      Operator op =
+          accept("*")
+              ? Operator.MUL
+              : accept("/") ? Operator.DIV : accept("%") ? Operator.MOD : null;
+      if (op == null) {
+        return left;
+      }
+      left = arithmetic(op, left, unary());
+    }
+  }
+
+  private Node unary() {
+    int position = token.position;
+    Operator op = accept("-") ? Operator.NEG : accept("!") ? Operator.NOT : null;
+    if (op == null) {
+      return primary();
+    }
+    enter(position);
+    Node operand = unary();
+    depth--;
+    Type type = op == Operator.NEG ? Type.NUMBER : Type.BOOLEAN;
+    return new Unary(op, require(operand, type), type, position);
+  }
+
+  private Node primary() {
+    Token start = token;
+    switch (start.kind) {
+      case NUMBER -> {
+        advance();
+        return new Literal(start.value, Type.NUMBER, start.position);
+      }
+      case TEXT -> {
+        advance();
+        return new Literal(start.value, Type.TEXT, start.position);
+      }
+      case NAME -> {
+        advance();
+        return name(start);
+      }
+      default -> {
+        if (!accept("(")) {
+          throw unexpected();
+        }
+        enter(start.position);
+        Node inner = or();
+        depth--;
+        expect(")", "')'");
+        return inner;
+      }
+    }
+  }
+
+  private Node name(Token name) {
+    int position = name.position;
+    return switch (name.text) {
+      case "true", "false" -> new Literal(Boolean.valueOf(name.text), Type.BOOLEAN, position);
+      case "value", "valueTransformed" -> new Field(FieldKind.VALUE, null, position);
+      case "source" -> new Field(FieldKind.SOURCE, null, position);
+      case "id" -> new Field(FieldKind.ID, null, position);
+      case "tags" -> new Field(FieldKind.TAG, key(name), position);
+      case "meta" -> new Field(FieldKind.META, key(name), position);
+      default -> {
+        if (isSymbol("(")) {
+          yield call(name);
+        }
+        throw new ExpressionException("unknown field '" + name.text + "'", position);
+      }
+    };
+  }
+
+  /** Reads the key of {@code tags.key} or {@code tags['key']}. */
+  private String key(Token map) {
+    String key;
+    if (accept(".")) {
+      if (token.kind != Kind.NAME) {
+        throw new ExpressionException(
+            "expected a key after '" + map.text + ".' but found " + describe(token),
+            token.position);
+      }
+      key = token.text;
+      advance();
+    } else if (accept("[")) {
+      if (token.kind != Kind.TEXT || ((String) token.value).isEmpty()) {
+        throw new ExpressionException(
+            "expected a quoted key but found " + describe(token), token.position);
+      }
+      key = (String) token.value;
+      advance();
+      expect("]", "']'");
+    } else {
+      throw new ExpressionException(
+          "expected '.' or '[' after " + map.text + " but found " + describe(token),
+          token.position);
+    }
+    return key;
+  }
+
+  private Node call(Token name) {
+    Node.Function function = null;
+    for (Node.Function candidate : Node.Function.values()) {
+      if (candidate.functionName().equals(name.text)) {
+        function = candidate;
+      }
+    }
+    if (function == null) {
+      throw new ExpressionException("unknown function '" + name.text + "'", name.position);
+    }
+    expect("(", "'('");
+    List<Node> arguments = new ArrayList<>();
+    if (!accept(")")) {
+      enter(name.position);
+      do {
+        arguments.add(or());
+      } while (accept(","));
+      depth--;
+      expect(")", "',' or ')'");
+    }
+    List<Type> parameters = function.parameters();
+    if (arguments.size() != parameters.size()) {
+      throw new ExpressionException(
+          name.text
+              + " takes "
+              + parameters.size()
+              + (parameters.size() == 1 ? " argument" : " arguments")
+              + " but was given "
+              + arguments.size(),
+          name.position);
+    }
+    for (int i = 0; i < arguments.size(); i++) {
+      Node argument = arguments.get(i);
+      if (parameters.get(i) == Type.ANY) {
+        if (!(argument instanceof Field field) || field.type() != Type.ANY) {
+          throw new ExpressionException(
+              name.text + " takes a tags or meta field", argument.position());
+        }
+      } else {
+        require(argument, parameters.get(i));
+      }
+    }
+    return new Call(function, List.copyOf(arguments), name.position);
+  }
+
+  private static Node logical(Operator op, Node left, Node right) {
+    require(left, Type.BOOLEAN);
+    require(right, Type.BOOLEAN);
+    return new Binary(op, left, right, Type.BOOLEAN, Type.BOOLEAN, left.position());
+  }
+
+  private static Node arithmetic(Operator op, Node left, Node right) {
+    require(left, Type.NUMBER);
+    require(right, Type.NUMBER);
+    return new Binary(op, left, right, Type.NUMBER, Type.NUMBER, left.position());
+  }
+
+  /**
+   * Types a comparison. Tag and metadata values take the type of the other side, and are
+   * compared as text with each other.
+   */
+  private static Node compare(Operator op, Node left, Node right, int position) {
+    Type domain;
+    if (left.type() == Type.ANY) {
+      domain = right.type() == Type.ANY ? Type.TEXT : right.type();
+    } else if (right.type() == Type.ANY || right.type() == left.type()) {
+      domain = left.type();
+    } else {
+      throw new ExpressionException(
+          "cannot compare " + left.type().description() + " with " + right.type().description(),
+          position);
+    }
+    if (domain == Type.BOOLEAN && op != Operator.EQ && op != Operator.NE) {
+      throw new ExpressionException("conditions can only be compared with == and !=", position);
+    }
+    return new Binary(op, left, right, domain, Type.BOOLEAN, left.position());
+  }
+
+  /** Checks that a node can be used as the given type; tag and metadata values always can. */
+  private static Node require(Node node, Type type) {
+    if (node.type() != type && node.type() != Type.ANY) {
+      throw new ExpressionException(
+          "expected " + type.description() + " but found " + node.type().description(),
+          node.position());
+    }
+    return node;
+  }
+
+  /** Guards the recursion against deeply nested input. */
+  private void enter(int position) {
+    if (++depth > MAX_DEPTH) {
+      throw new ExpressionException("expression nests deeper than " + MAX_DEPTH, position);
+    }
+  }
+
+  private boolean isSymbol(String symbol) {
+    return token.kind == Kind.SYMBOL && token.text.equals(symbol);
+  }
+
+  private boolean accept(String symbol) {
+    if (!isSymbol(symbol)) {
+      return false;
+    }
+    advance();
+    return true;
+  }
+
+  private boolean acceptWord(String word) {
+    if (token.kind != Kind.NAME || !token.text.equals(word)) {
+      return false;
+    }
+    advance();
+    return true;
+  }
+
+  private void expect(String symbol, String what) {
+    if (!accept(symbol)) {
+      throw new ExpressionException(
+          "expected " + what + " but found " + describe(token), token.position);
+    }
+  }
+
+  private ExpressionException unexpected() {
+    return new ExpressionException("unexpected " + describe(token), token.position);
+  }
+
+  private static String describe(Token token) {
+    return token.kind == Kind.END ? "end of expression" : "'" + token.text + "'";
+  }
+
+  /** Reads the next token. */
+  private void advance() {
+    int length = text.length();
+    while (offset < length && Character.isWhitespace(text.charAt(offset))) {
+      offset++;
+    }
+    int start = offset;
+    if (start == length) {
+      token = new Token(Kind.END, "", null, start + 1);
+      return;
+    }
+    char c = text.charAt(start);
+    if (isDigit(c) || (c == '.' && start + 1 < length && isDigit(text.charAt(start + 1)))) {
+      token = number(start);
+    } else if (c == '\'' || c == '"') {
+      token = quoted(start, c);
+    } else if (Character.isLetter(c) || c == '_') {
+      while (offset < length
+          && (Character.isLetterOrDigit(text.charAt(offset)) || text.charAt(offset) == '_')) {
+        offset++;
+      }
+      token = new Token(Kind.NAME, text.substring(start, offset), null, start + 1);
+    } else {
+      for (String symbol : SYMBOLS) {
+        if (text.startsWith(symbol, start)) {
+          offset += symbol.length();
+          token = new Token(Kind.SYMBOL, symbol, null, start + 1);
+          return;
+        }
+      }
+      String reason =
+          c == '=' ? "use '==' to compare" : c == '&' || c == '|' ? "use '" + c + c + "'" : null;
+      throw new ExpressionException(
+          reason != null ? reason : "unexpected character '" + c + "'", start + 1);
+    }
+  }
+
+  private Token number(int start) {
+    int length = text.length();
+    while (offset < length && isDigit(text.charAt(offset))) {
+      offset++;
+    }
+    if (offset < length && text.charAt(offset) == '.') {
+      offset++;
+      while (offset < length && isDigit(text.charAt(offset))) {
+        offset++;
+      }
+    }
+    if (offset < length && (text.charAt(offset) == 'e' || text.charAt(offset) == 'E')) {
+      int exponent = offset + 1;
+      if (exponent < length && (text.charAt(exponent) == '+' || text.charAt(exponent) == '-')) {
+        exponent++;
+      }
+      if (exponent < length && isDigit(text.charAt(exponent))) {
+        offset = exponent;
+        while (offset < length && isDigit(text.charAt(offset))) {
+          offset++;
+        }
+      }
+    }
+    String literal = text.substring(start, offset);
+    double value = Double.parseDouble(literal);
+    if (!Double.isFinite(value)) {
+      throw new ExpressionException("number " + literal + " is out of range", start + 1);
+    }
+    return new Token(Kind.NUMBER, literal, value, start + 1);
+  }
+
+  private Token quoted(int start, char quote) {
+    StringBuilder value = new StringBuilder();
+    offset++;
+    while (offset < text.length()) {
+      char c = text.charAt(offset++);
+      if (c == quote) {
+        return new Token(Kind.TEXT, text.substring(start, offset), value.toString(), start + 1);
+      }
+      if (c == '\\' && offset < text.length()) {
+        char escaped = text.charAt(offset++);
+        value.append(
+            switch (escaped) {
+              case 'n' -> '\n';
+              case 't' -> '\t';
+              default -> escaped;
+            });
+      } else {
+        value.append(c);
+      }
+    }
+    throw new ExpressionException("unterminated text", start + 1);
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private enum Kind {
+    NUMBER,
+    TEXT,
+    NAME,
+    SYMBOL,
+    END
+  }
+
+  /**
+   * A lexical token.
+   *
+   * @param text the token as written
+   * @param value the {@link Double} of a number, the unescaped {@link String} of text
+   * @param position the column of its first character, from 1
+   */
+  private record Token(Kind kind, String text, Object value, int position) {}
+}
@@ -0,0 +1,100 @@
+package io.analytics.platform.alert.expression;
+
+import io.analytics.platform.alert.expression.Node.Binary;
+import io.analytics.platform.alert.expression.Node.Call;
+import io.analytics.platform.alert.expression.Node.In;
+import io.analytics.platform.alert.expression.Node.Operator;
+import io.analytics.platform.alert.expression.Node.Type;
+import io.analytics.platform.alert.expression.Node.Unary;
+import io.analytics.platform.common.dto.ProcessedEvent;
+
+/**
+ * Evaluates an expression tree by walking it, boxing every intermediate result.
+ *
+ * <p>This is the reference semantics of the language: {@link ExpressionCompiler} must agree with
+ * it on every event, and folds constant subtrees with it. It is not used to evaluate rules.
+ */
+final class Interpreter {
+
+  private Interpreter() {
+    // Prevent instantiation
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  /**
+   * Evaluates a node.
+   *
+   * @param node the node
+   * @param event the event; may be null if the node reads no field
+   * @return a {@link Double}, {@link String} or {@link Boolean}, or the raw value of a tag or
+   *     metadata field, null if it is missing
+   */
+  static Object eval(Node node, ProcessedEvent event) {
+    return switch (node) {
+      case Node.Literal literal -> literal.value();
+      case Node.Field field -> field.read(event);
+      case Unary unary -> unary(unary, event);
+      case Binary binary -> binary(binary, event);
+      case In in -> in(in, event);
+      case Call call -> call(call, event);
+    };
+  }
+
+  private static Object unary(Unary unary, ProcessedEvent event) {
+    Object operand = eval(unary.operand(), event);
+    return unary.op() == Operator.NOT ? !Values.bool(operand) : -Values.number(operand);
+  }
+
+  private static Object binary(Binary binary, ProcessedEvent event) {
+    Operator op = binary.op();
+    if (op == Operator.AND) {
+      return Values.bool(eval(binary.left(), event)) && Values.bool(eval(binary.right(), event));
+    }
+    if (op == Operator.OR) {
+      return Values.bool(eval(binary.left(), event)) || Values.bool(eval(binary.right(), event));
+    }
+    Object left = eval(binary.left(), event);
+    Object right = eval(binary.right(), event);
+    if (!op.isComparison()) {
+      return Values.arithmetic(op, Values.number(left), Values.number(right));
+    }
+    return switch (binary.domain()) {
+      case NUMBER -> Values.compare(op, Values.number(left), Values.number(right));
+      case TEXT -> Values.compare(op, Values.text(left), Values.text(right));
+      default -> (Values.bool(left) == Values.bool(right)) == (op == Operator.EQ);
+    };
+  }
+
+  private static Object in(In in, ProcessedEvent event) {
+    Object subject = eval(in.subject(), event);
+    if (in.domain() == Type.NUMBER) {
+      double number = Values.number(subject);
+      for (Object option : in.options()) {
+        if (number == (Double) option) {
+          return true;
+        }
+      }
+      return false;
+    }
+    String text = Values.text(subject);
+    return text != null && in.options().contains(text);
+  }
+
+  private static Object call(Call call, ProcessedEvent event) {
+    Object first = eval(call.arguments().get(0), event);
+    return switch (call.function()) {
+      case ABS -> Math.abs(Values.number(first));
+      case MIN ->
+          Math.min(Values.number(first), Values.number(eval(call.arguments().get(1), event)));
+      case MAX ->
+          Math.max(Values.number(first), Values.number(eval(call.arguments().get(1), event)));
+      case LOWER -> Values.lower(Values.text(first));
+      case EXISTS -> first != null;
+      default ->
+          Values.textTest(
+              call.function(),
+              Values.text(first),
+              Values.text(eval(call.arguments().get(1), event)));
+    };
+  }
+}
@@ -0,0 +1,192 @@
+package io.analytics.platform.alert.expression;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.util.List;
+
+/**
+ * A node of a type-checked rule expression, built by the {@link ExpressionParser}.
+ *
+ * <p>Every node knows the type of its result. Tag and metadata fields are of type {@link
+ * Type#ANY}: their values are converted to the type their operator expects, which the parser
+ * records as the {@code domain} of comparisons and {@code in} lists.
+ */
+sealed interface Node
+    permits Node.Literal, Node.Field, Node.Unary, Node.Binary, Node.In, Node.Call {
+
+  /** Returns the type of the result. */
+  Type type();
+
+  /** Returns the column of the node in the expression text, from 1. */
+  int position();
+
+  /** Types of expression results. */
+  enum Type {
+    NUMBER("a number"),
+    TEXT("text"),
+    BOOLEAN("a condition"),
+    ANY("a tag value");
+
+    private final String description;
+
+    Type(String description) {
+      this.description = description;
+    }
+
+    /** Returns how errors name the type. */
+    String description() {
+      return description;
+    }
+  }
+
+  /** Unary and binary operators. */
+  enum Operator {
+    OR,
+    AND,
+    NOT,
+    EQ,
+    NE,
+    LT,
+    LE,
+    GT,
+    GE,
+    ADD,
+    SUB,
+    MUL,
+    DIV,
+    MOD,
+    NEG;
+
+    /** Returns whether the operator compares its operands. */
+    boolean isComparison() {
+      return ordinal() >= EQ.ordinal() && ordinal() <= GE.ordinal();
+    }
+
+    /** Returns the comparison with its operands swapped, e.g. {@code LT} for {@code GT}. */
+    Operator flip() {
+      return switch (this) {
+        case LT -> GT;
+        case LE -> GE;
+        case GT -> LT;
+        case GE -> LE;
+        default -> this;
+      };
+    }
+  }
+
+  /** Built-in functions, with the types of their arguments. */
+  enum Function {
+    ABS("abs", Type.NUMBER, Type.NUMBER),
+    MIN("min", Type.NUMBER, Type.NUMBER, Type.NUMBER),
+    MAX("max", Type.NUMBER, Type.NUMBER, Type.NUMBER),
+    LOWER("lower", Type.TEXT, Type.TEXT),
+    STARTS_WITH("startsWith", Type.BOOLEAN, Type.TEXT, Type.TEXT),
+    ENDS_WITH("endsWith", Type.BOOLEAN, Type.TEXT, Type.TEXT),
+    CONTAINS("contains", Type.BOOLEAN, Type.TEXT, Type.TEXT),
+    EXISTS("exists", Type.BOOLEAN, Type.ANY);
+
+    private final String name;
+    private final Type result;
+    private final List<Type> parameters;
+
+    Function(String name, Type result, Type... parameters) {
+      this.name = name;
+      this.result = result;
+      this.parameters = List.of(parameters);
+    }
+
+    String functionName() {
+      return name;
+    }
+
+    Type result() {
+      return result;
+    }
+
+    List<Type> parameters() {
+      return parameters;
+    }
+  }
+
+  /** Event fields an expression can read. */
+  enum FieldKind {
+    VALUE,
+    SOURCE,
+    ID,
+    TAG,
+    META;
+
+    /** Returns the type of the field. */
+    Type type() {
+      return switch (this) {
+        case VALUE -> Type.NUMBER;
+        case SOURCE, ID -> Type.TEXT;
+        case TAG, META -> Type.ANY;
+      };
+    }
+  }
+
+  /**
+   * A constant.
+   *
+   * @param value a {@link Double}, {@link String} or {@link Boolean}
+   */
+  record Literal(Object value, Type type, int position) implements Node {}
+
+  /**
+   * A field of the event.
+   *
+   * @param key the tag or metadata key, null for the other fields
+   */
+  record Field(FieldKind kind, String key, int position) implements Node {
+
+    @Override
+    public Type type() {
+      return kind.type();
+    }
+
+    /** Reads the field, a tag or metadata value as it is stored. */
+    Object read(ProcessedEvent event) {
+      return switch (kind) {
+        case VALUE -> event.valueTransformed();
+        case SOURCE -> event.source();
+        case ID -> event.id();
+        case TAG -> event.tags() != null ? event.tags().get(key) : null;
+        case META -> event.meta() != null ? event.meta().get(key) : null;
+      };
+    }
+  }
+
+  /** {@code NOT} or {@code NEG} applied to an operand. */
+  record Unary(Operator op, Node operand, Type type, int position) implements Node {}
+
+  /**
+   * A logical, comparison or arithmetic operator.
+   *
+   * @param domain the type both operands are converted to
+   */
+  record Binary(Operator op, Node left, Node right, Type domain, Type type, int position)
+      implements Node {}
+
+  /**
+   * Membership of a value in a list of constants.
+   *
+   * @param domain the type of the constants, which the subject is converted to
+   * @param options the constants, {@link Double} or {@link String}
+   */
+  record In(Node subject, Type domain, List<Object> options, int position) implements Node {
+
+    @Override
+    public Type type() {
+      return Type.BOOLEAN;
+    }
+  }
+
+  /** A call of a built-in function. */
+  record Call(Function function, List<Node> arguments, int position) implements Node {
+
+    @Override
+    public Type type() {
+      return function.result();
+    }
+  }
+}
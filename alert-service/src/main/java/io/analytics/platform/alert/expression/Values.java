@@ -0,0 +1,107 @@
+package io.analytics.platform.alert.expression;
+
+import java.util.Locale;
+
+/**
+ * Conversions of field values to the type an operator expects, shared by the compiled and the
+ * interpreted forms so that both agree.
+ *
+ * <p>A missing value is NaN as a number, null as text and false as a condition. Text that does
+ * not parse as a number is NaN, so comparing it with a number is false except with {@code !=}.
+ */
+final class Values {
+
+  private Values() {
+    // Prevent instantiation
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  static double number(Object value) {
+    if (value instanceof Number number) {
+      return number.doubleValue();
+    }
+    if (value instanceof String text) {
+      try {
+        return Double.parseDouble(text.trim());
+      } catch (NumberFormatException e) {
+        return Double.NaN;
+      }
+    }
+    return Double.NaN;
+  }
+
+  static String text(Object value) {
+    if (value == null || value instanceof String) {
+      return (String) value;
+    }
+    return value.toString();
+  }
+
+  static boolean bool(Object value) {
+    if (value instanceof Boolean bool) {
+      return bool;
+    }
+    return value instanceof String text && text.equalsIgnoreCase("true");
+  }
+
+  static String lower(String text) {
+    return text != null ? text.toLowerCase(Locale.ROOT) : null;
+  }
+
+  /** Compares numbers; NaN is unequal to, and neither less nor greater than, anything. */
+  static boolean compare(Node.Operator op, double left, double right) {
+    return switch (op) {
+      case EQ -> left == right;
+      case NE -> left != right;
+      case LT -> left < right;
+      case LE -> left <= right;
+      case GT -> left > right;
+      case GE -> left >= right;
+      default -> throw new IllegalArgumentException("Not a comparison: " + op);
+    };
+  }
+
+  /** Compares text; missing text equals only missing text and is not ordered. */
+  static boolean compare(Node.Operator op, String left, String right) {
+    return switch (op) {
+      case EQ -> left != null ? left.equals(right) : right == null;
+      case NE -> left != null ? !left.equals(right) : right != null;
+      default -> {
+        if (left == null || right == null) {
+          yield false;
+        }
+        int order = left.compareTo(right);
+        yield switch (op) {
+          case LT -> order < 0;
+          case LE -> order <= 0;
+          case GT -> order > 0;
+          case GE -> order >= 0;
+          default -> throw new IllegalArgumentException("Not a comparison: " + op);
+        };
+      }
+    };
+  }
+
+  static double arithmetic(Node.Operator op, double left, double right) {
+    return switch (op) {
+      case ADD -> left + right;
+      case SUB -> left - right;
+      case MUL -> left * right;
+      case DIV -> left / right;
+      case MOD -> left % right;
+      default -> throw new IllegalArgumentException("Not arithmetic: " + op);
+    };
+  }
+
+  static boolean textTest(Node.Function function, String text, String part) {
+    if (text == null || part == null) {
+      return false;
+    }
+    return switch (function) {
+      case STARTS_WITH -> text.startsWith(part);
+      case ENDS_WITH -> text.endsWith(part);
+      case CONTAINS -> text.contains(part);
+      default -> throw new IllegalArgumentException("Not a text test: " + function);
+    };
+  }
+}
@@ -0,0 +1,81 @@
+package io.analytics.platform.alert.notify;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calls to a destination that keeps failing or answering slowly.
+ *
+ * <p>Closed, every call is allowed; {@code failureThreshold} failed or slow calls in a row open
+ * the breaker. Open, calls are refused for {@code openDuration}; the breaker then half-opens and
+ * allows calls again, but closes only on a fast success: any failure or slow call reopens it at
+ * once.
+ *
+ * <p>Thread-safe.
+ */
+final class CircuitBreaker {
+
+  /** States of a breaker, in order of their gauge value. */
+  enum State {
+    CLOSED,
+    HALF_OPEN,
+    OPEN
+  }
+
+  private final int failureThreshold;
+  private final long slowCallNanos;
+  private final long openNanos;
+  private final LongSupplier nanoTime;
+  private State state = State.CLOSED;
+  private int failures;
+  private long openedAt;
+
+  /**
+   * Creates a closed breaker.
+   *
+   * @param failureThreshold failed or slow calls in a row that open the breaker
+   * @param slowCall calls taking longer count as failed
+   * @param openDuration how long calls are refused once open
+   * @param nanoTime source of the monotonic time in nanoseconds
+   */
+  CircuitBreaker(
+      int failureThreshold, Duration slowCall, Duration openDuration, LongSupplier nanoTime) {
+    this.failureThreshold = failureThreshold;
+    this.slowCallNanos = slowCall.toNanos();
+    this.openNanos = openDuration.toNanos();
+    this.nanoTime = nanoTime;
+  }
+
+  /** Returns whether a call may be made now, half-opening the breaker once its delay is over. */
+  synchronized boolean allow() {
+    if (state == State.OPEN && nanoTime.getAsLong() - openedAt >= openNanos) {
+      state = State.HALF_OPEN;
+    }
+    return state != State.OPEN;
+  }
+
+  /**
+   * Records the outcome of a call.
+   *
+   * @param success whether the call succeeded
+   * @param durationNanos how long it took
+   */
+  synchronized void record(boolean success, long durationNanos) {
+    if (success && durationNanos <= slowCallNanos) {
+      failures = 0;
+      state = State.CLOSED;
+      return;
+    }
+    failures++;
+    if (state == State.HALF_OPEN || failures >= failureThreshold) {
+      state = State.OPEN;
+      openedAt = nanoTime.getAsLong();
+      failures = 0;
+    }
+  }
+
+  /** Returns the current state, without half-opening the breaker. */
+  synchronized State state() {
+    return state;
+  }
+}
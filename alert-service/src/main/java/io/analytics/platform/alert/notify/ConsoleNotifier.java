@@ -0,0 +1,24 @@
+package io.analytics.platform.alert.notify;
+
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.logging.Logging;
+import java.util.List;
+import org.slf4j.Logger;
+
+/** Writes each alert to the service log. */
+public final class ConsoleNotifier implements Notifier {
+
+  private static final Logger log = Logging.getLogger(ConsoleNotifier.class);
+
+  @Override
+  public String name() {
+    return "console";
+  }
+
+  @Override
+  public void deliver(List<AlertEvent> alerts) {
+    for (AlertEvent alert : alerts) {
+      Logging.info(log, "ALERT [{}] {}: {}", alert.severity(), alert.ruleId(), alert.message());
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package io.analytics.platform.alert.notify;
+
+import io.analytics.platform.alert.config.AlertProperties;
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.logging.Logging;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+
+/**
+ * One notifier with its buffer, breaker and delivery loop, run by a thread of its own so that a
+ * slow destination delays only its own alerts.
+ *
+ * <p>The buffer is a bounded array ring; {@link #offer} never blocks and drops the alert when it
+ * is full. The loop takes what is buffered, up to {@code batchSize} alerts, into one call of the
+ * notifier. A failed call is retried up to {@code maxAttempts} times in all, after a pause drawn
+ * uniformly below {@code backoff * 2^retry}, capped at {@code maxBackoff}, so that destinations
+ * recovering from an outage are not hit by every dispatcher at once. Batches refused by the open
+ * {@link CircuitBreaker} are discarded without a call.
+ */
+final class Destination {
+
+  private static final Logger log = Logging.getLogger(Destination.class);
+
+  private final Notifier notifier;
+  private final BlockingQueue<AlertEvent> buffer;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final long backoffMillis;
+  private final long maxBackoffMillis;
+  private final CircuitBreaker breaker;
+  private final NotificationMetrics metrics;
+  private final LongSupplier nanoTime;
+
+  Destination(Notifier notifier, AlertProperties.Notifications settings, MeterRegistry registry) {
+    this(notifier, settings, registry, System::nanoTime);
+  }
+
+  /**
+   * Creates a destination.
+   *
+   * @param nanoTime monotonic clock timing the calls and the open breaker, in nanoseconds
+   */
+  Destination(
+      Notifier notifier,
+      AlertProperties.Notifications settings,
+      MeterRegistry registry,
+      LongSupplier nanoTime) {
+    this.notifier = notifier;
+    this.nanoTime = nanoTime;
+    this.buffer = new ArrayBlockingQueue<>(settings.queueCapacity());
+    this.batchSize = settings.batchSize();
+    this.maxAttempts = settings.maxAttempts();
+    this.backoffMillis = settings.backoff().toMillis();
+    this.maxBackoffMillis = settings.maxBackoff().toMillis();
+    this.breaker =
+        new CircuitBreaker(
+            settings.failureThreshold(),
+            settings.slowCall(),
+            settings.openDuration(),
+            nanoTime);
+    this.metrics =
+        new NotificationMetrics(
+            registry, notifier.name(), buffer::size, () -> breaker.state().ordinal());
+  }
+
+  /** Buffers an alert, returning false if the buffer is full. */
+  boolean offer(AlertEvent alert) {
+    if (buffer.offer(alert)) {
+      return true;
+    }
+    metrics.dropped();
+    return false;
+  }
+
+  /** Delivers buffered alerts until interrupted; what is still buffered then is discarded. */
+  void run() {
+    List<AlertEvent> batch = new ArrayList<>(batchSize);
+    try {
+      while (true) {
+        batch.add(buffer.take());
+        buffer.drainTo(batch, batchSize - 1);
+        deliver(batch);
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void deliver(List<AlertEvent> batch) throws InterruptedException {
+    for (int attempt = 1; ; attempt++) {
+      if (!breaker.allow()) {
+        metrics.rejected(batch.size());
+        return;
+      }
+      Exception failure = null;
+      long begin = nanoTime.getAsLong();
+      try {
+        notifier.deliver(batch);
+      } catch (InterruptedException e) {
+        throw e;
+      } catch (Exception e) {
+        failure = e;
+      }
+      breaker.record(failure == null, nanoTime.getAsLong() - begin);
+      if (failure == null) {
+        metrics.delivered(batch.size());
+        return;
+      }
+      if (attempt >= maxAttempts) {
+        metrics.failed(batch.size());
+        Logging.error(
+            log, "Failed to deliver " + batch.size() + " alerts to " + notifier.name(), failure);
+        return;
+      }
+      metrics.retried();
+      Thread.sleep(backoff(attempt));
+    }
+  }
+
+  /** Returns the pause before a retry, with full jitter. */
+  long backoff(int retry) {
+    long ceiling = Math.min(maxBackoffMillis, backoffMillis << Math.min(retry - 1, 30));
+    return ThreadLocalRandom.current().nextLong(ceiling + 1);
+  }
+}
@@ -0,0 +1,100 @@
+package io.analytics.platform.alert.notify;
+
+import io.analytics.platform.alert.config.AlertProperties;
+import io.analytics.platform.common.dto.AlertEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Delivers published alerts to the {@link Notifier}s off the evaluation thread.
+ *
+ * <p>{@link #submit} only offers the alert to the bounded buffer of each destination, so a slow
+ * or failing destination never stalls evaluation; when a buffer is full the alert is dropped for
+ * that destination, and it is still on the alerts topic. Each destination has its own thread,
+ * which batches, retries and circuit-breaks its deliveries (see {@link Destination}). Alerts
+ * still buffered at shutdown are discarded.
+ */
+public final class NotificationDispatcher implements SmartLifecycle {
+
+  private final List<Destination> destinations = new ArrayList<>();
+  private ExecutorService workers;
+
+  /**
+   * Creates a dispatcher; alerts are delivered once it is {@link #start() started}.
+   *
+   * @param notifiers the destinations
+   * @param settings buffer, batch, retry and breaker settings, applied to each destination
+   * @param registry the registry to publish meters to
+   */
+  public NotificationDispatcher(
+      List<Notifier> notifiers, AlertProperties.Notifications settings, MeterRegistry registry) {
+    this(notifiers, settings, registry, System::nanoTime);
+  }
+
+  /**
+   * Creates a dispatcher whose destinations time their calls with the given clock.
+   *
+   * @param nanoTime monotonic clock in nanoseconds, shared by the destinations
+   */
+  NotificationDispatcher(
+      List<Notifier> notifiers,
+      AlertProperties.Notifications settings,
+      MeterRegistry registry,
+      LongSupplier nanoTime) {
+    for (Notifier notifier : notifiers) {
+      destinations.add(new Destination(notifier, settings, registry, nanoTime));
+    }
+  }
+
+  /**
+   * Buffers an alert for delivery to every destination.
+   *
+   * @param alert the alert
+   * @return whether every destination buffered it, false if one was full or there is none
+   */
+  public boolean submit(AlertEvent alert) {
+    boolean buffered = !destinations.isEmpty();
+    for (Destination destination : destinations) {
+      buffered &= destination.offer(alert);
+    }
+    return buffered;
+  }
+
+  @Override
+  public synchronized void start() {
+    if (workers != null || destinations.isEmpty()) {
+      return;
+    }
+    workers =
+        Executors.newFixedThreadPool(
+            destinations.size(), Thread.ofPlatform().name("alert-notifier-", 0).factory());
+    for (Destination destination : destinations) {
+      workers.execute(destination::run);
+    }
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (workers == null) {
+      return;
+    }
+    workers.shutdownNow();
+    try {
+      workers.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    workers = null;
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return workers != null;
+  }
+}
@@ -0,0 +1,88 @@
+package io.analytics.platform.alert.notify;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instruments of one destination of the {@link NotificationDispatcher}.
+ *
+ * <ul>
+ *   <li>{@code alert.notifications{notifier,outcome}}: alerts delivered, failed after every
+ *       attempt, dropped on a full buffer, and rejected by the open circuit breaker
+ *   <li>{@code alert.notifications.retries{notifier}}: delivery attempts after the first
+ *   <li>{@code alert.notifications.queued{notifier}}: alerts waiting for delivery
+ *   <li>{@code alert.notifications.circuit{notifier}}: breaker state, 0 closed, 1 half-open, 2 open
+ * </ul>
+ */
+public final class NotificationMetrics {
+
+  private final Counter delivered;
+  private final Counter failed;
+  private final Counter dropped;
+  private final Counter rejected;
+  private final Counter retries;
+
+  /**
+   * Registers the meters of a destination.
+   *
+   * @param registry the registry to publish to
+   * @param notifier the name of the destination
+   * @param queued source of the number of queued alerts
+   * @param circuit source of the breaker state
+   */
+  public NotificationMetrics(
+      MeterRegistry registry, String notifier, Supplier<Number> queued, Supplier<Number> circuit) {
+    delivered = notifications(registry, notifier, "delivered");
+    failed = notifications(registry, notifier, "failed");
+    dropped = notifications(registry, notifier, "dropped");
+    rejected = notifications(registry, notifier, "rejected");
+    retries =
+        Counter.builder("alert.notifications.retries")
+            .description("Delivery attempts after the first")
+            .tag("notifier", notifier)
+            .register(registry);
+    Gauge.builder("alert.notifications.queued", queued)
+        .description("Alerts waiting for delivery")
+        .tag("notifier", notifier)
+        .register(registry);
+    Gauge.builder("alert.notifications.circuit", circuit)
+        .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+        .tag("notifier", notifier)
+        .register(registry);
+  }
+
+  private static Counter notifications(MeterRegistry registry, String notifier, String outcome) {
+    return Counter.builder("alert.notifications")
+        .description("Alerts handed to notifiers, by outcome")
+        .tag("notifier", notifier)
+        .tag("outcome", outcome)
+        .register(registry);
+  }
+
+  /** Records alerts delivered. */
+  void delivered(int count) {
+    delivered.increment(count);
+  }
+
+  /** Records alerts that failed every attempt. */
+  void failed(int count) {
+    failed.increment(count);
+  }
+
+  /** Records an alert dropped on a full buffer. */
+  void dropped() {
+    dropped.increment();
+  }
+
+  /** Records alerts refused by the open breaker. */
+  void rejected(int count) {
+    rejected.increment(count);
+  }
+
+  /** Records a retried delivery. */
+  void retried() {
+    retries.increment();
+  }
+}
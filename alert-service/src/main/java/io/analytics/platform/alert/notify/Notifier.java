@@ -0,0 +1,19 @@
+package io.analytics.platform.alert.notify;
+
+import io.analytics.platform.common.dto.AlertEvent;
+import java.util.List;
+
+/** A destination alerts are delivered to, called by the {@link NotificationDispatcher}. */
+public interface Notifier {
+
+  /** Returns the name of the destination, used in logs and meters. */
+  String name();
+
+  /**
+   * Delivers a batch of alerts.
+   *
+   * @param alerts the alerts, in publication order
+   * @throws Exception if the batch could not be delivered
+   */
+  void deliver(List<AlertEvent> alerts) throws Exception;
+}
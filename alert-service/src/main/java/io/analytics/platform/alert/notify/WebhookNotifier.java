@@ -0,0 +1,67 @@
+package io.analytics.platform.alert.notify;
+
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.util.JsonCodec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Posts each batch of alerts to a webhook as one JSON array of {@link AlertEvent}s, as accepted
+ * by Slack-style incoming webhooks behind a relay. Any status other than 2xx fails the batch.
+ */
+public final class WebhookNotifier implements Notifier {
+
+  private final URI url;
+  private final Duration timeout;
+  private final HttpClient client;
+
+  /**
+   * Creates a notifier.
+   *
+   * @param url the webhook
+   * @param timeout how long a post may take, connection included
+   */
+  public WebhookNotifier(URI url, Duration timeout) {
+    this.url = url;
+    this.timeout = timeout;
+    this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+  }
+
+  @Override
+  public String name() {
+    return "webhook";
+  }
+
+  @Override
+  public void deliver(List<AlertEvent> alerts) throws IOException, InterruptedException {
+    HttpRequest request =
+        HttpRequest.newBuilder(url)
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(encode(alerts)))
+            .build();
+    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+    if (response.statusCode() / 100 != 2) {
+      throw new IOException("Webhook " + url + " responded " + response.statusCode());
+    }
+  }
+
+  static byte[] encode(List<AlertEvent> alerts) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(256 * alerts.size() + 2);
+    out.write('[');
+    for (int i = 0; i < alerts.size(); i++) {
+      if (i > 0) {
+        out.write(',');
+      }
+      out.writeBytes(JsonCodec.ALERT_EVENT.encode(alerts.get(i)));
+    }
+    out.write(']');
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,37 @@
+package io.analytics.platform.alert.rule;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.util.List;
+
+/** Identifies the group of an event from the values of a few of its attributes. */
+public final class GroupKey {
+
+  /** Event attribute that a group-by list reads instead of a tag. */
+  public static final String SOURCE = "source";
+
+  private GroupKey() {
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  /**
+   * Returns the group of an event.
+   *
+   * @param groupBy {@code source} or tag keys whose values identify a group
+   * @param event the event
+   * @return the values as {@code key=value} pairs separated by commas, empty for no attributes
+   */
+  public static String of(List<String> groupBy, ProcessedEvent event) {
+    if (groupBy.isEmpty()) {
+      return "";
+    }
+    StringBuilder key = new StringBuilder();
+    for (String name : groupBy) {
+      Object value = name.equals(SOURCE) ? event.source() : event.tags().get(name);
+      if (!key.isEmpty()) {
+        key.append(',');
+      }
+      key.append(name).append('=').append(value != null ? value : "");
+    }
+    return key.toString();
+  }
+}
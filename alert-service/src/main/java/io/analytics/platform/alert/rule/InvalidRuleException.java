@@ -0,0 +1,14 @@
+package io.analytics.platform.alert.rule;
+
+/** Thrown when a rule definition cannot be compiled; the running rules are unchanged. */
+public class InvalidRuleException extends RuntimeException {
+
+  /**
+   * Creates an exception.
+   *
+   * @param message what is wrong with the definition, naming the rule
+   */
+  public InvalidRuleException(String message) {
+    super(message);
+  }
+}
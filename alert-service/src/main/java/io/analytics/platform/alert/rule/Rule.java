@@ -0,0 +1,209 @@
+package io.analytics.platform.alert.rule;
+
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * An alert rule compiled by {@link RuleCompiler}.
+ *
+ * <p>The value condition is normalized to one or two closed ranges: {@code gt 10} becomes {@code
+ * [nextUp(10), +inf]} and {@code ne 10} the two ranges either side of 10, so the {@link RuleIndex}
+ * only ever tests {@code low <= value <= high}. Conditions of an expression rule that the index
+ * cannot resolve form its residual condition, tested on the rules the index found. {@link
+ * #matches} checks the rule on its own, as a reference for the index.
+ *
+ * <p>A stateful rule, one with a {@link #condition()}, is indexed by its source and tags only:
+ * the index finds the events it watches, and its value and residual conditions move into the
+ * condition, which the state tracker checks.
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+public final class Rule {
+
+  private final String id;
+  private final String description;
+  private final AlertEvent.Severity severity;
+  private final String source;
+  private final Map<String, String> tags;
+  private final double[] ranges;
+  private final Predicate<ProcessedEvent> residual;
+  private final StatefulCondition condition;
+
+  /**
+   * Creates a rule.
+   *
+   * @param ranges pairs of inclusive low and high bounds of the value, empty for any value
+   * @param residual the conditions besides source, tags and value, null if none
+   * @param condition the condition over time, null for a rule firing on single events
+   */
+  Rule(
+      String id,
+      String description,
+      AlertEvent.Severity severity,
+      String source,
+      Map<String, String> tags,
+      double[] ranges,
+      Predicate<ProcessedEvent> residual,
+      StatefulCondition condition) {
+    this.id = id;
+    this.description = description;
+    this.severity = severity;
+    this.source = source;
+    this.tags = tags;
+    this.ranges = ranges;
+    this.residual = residual;
+    this.condition = condition;
+  }
+
+  public String id() {
+    return id;
+  }
+
+  public String description() {
+    return description;
+  }
+
+  public AlertEvent.Severity severity() {
+    return severity;
+  }
+
+  /**
+   * Returns the required event source.
+   *
+   * @return the source, or null for any
+   */
+  public String source() {
+    return source;
+  }
+
+  /**
+   * Returns the required tag values.
+   *
+   * @return the tags, empty for none
+   */
+  public Map<String, String> tags() {
+    return tags;
+  }
+
+  /**
+   * Returns the condition over time of a stateful rule.
+   *
+   * @return the condition, or null if the rule fires on single events
+   */
+  public StatefulCondition condition() {
+    return condition;
+  }
+
+  /** Returns the number of value ranges, 0 if the rule holds for any value. */
+  int rangeCount() {
+    return ranges.length / 2;
+  }
+
+  double low(int range) {
+    return ranges[2 * range];
+  }
+
+  double high(int range) {
+    return ranges[2 * range + 1];
+  }
+
+  boolean hasResidual() {
+    return residual != null;
+  }
+
+  /** Tests the residual condition, for a rule whose other conditions hold. */
+  boolean residualMatches(ProcessedEvent event) {
+    return residual == null || residual.test(event);
+  }
+
+  /**
+   * Evaluates the rule against an event without any index.
+   *
+   * @param event the event
+   * @return whether the rule fires, or for a stateful rule whether it watches the event
+   */
+  public boolean matches(ProcessedEvent event) {
+    if (source != null && !source.equals(event.source())) {
+      return false;
+    }
+    for (Map.Entry<String, String> tag : tags.entrySet()) {
+      if (!tagEquals(event.tags().get(tag.getKey()), tag.getValue())) {
+        return false;
+      }
+    }
+    if (ranges.length > 0 && !inRanges(ranges, event.valueTransformed())) {
+      return false;
+    }
+    return residualMatches(event);
+  }
+
+  /**
+   * Tests a value against ranges.
+   *
+   * @param ranges pairs of inclusive low and high bounds, empty for any value
+   * @param value the value
+   * @return whether the value is in one of the ranges
+   */
+  static boolean inRanges(double[] ranges, double value) {
+    if (ranges.length == 0) {
+      return true;
+    }
+    for (int i = 0; i < ranges.length; i += 2) {
+      if (ranges[i] <= value && value <= ranges[i + 1]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Creates the alert of an event that fired the rule.
+   *
+   * @param event the event
+   * @return the alert, carrying the rule ID, description and severity
+   */
+  public AlertEvent alert(ProcessedEvent event) {
+    return alert(
+        "value "
+            + event.valueTransformed()
+            + ", source "
+            + event.source()
+            + ", event "
+            + event.id());
+  }
+
+  /**
+   * Creates an alert of the rule.
+   *
+   * @param detail what fired the rule, appended to the description in parentheses
+   * @return the alert, carrying the rule ID, description and severity
+   */
+  public AlertEvent alert(String detail) {
+    String message = description + " (" + detail + ")";
+    if (message.length() > RuleCompiler.MAX_MESSAGE_LENGTH) {
+      message = message.substring(0, RuleCompiler.MAX_MESSAGE_LENGTH);
+    }
+    return new AlertEvent(id, message, severity.name());
+  }
+
+  /**
+   * Compares a tag of an event with a required value as text.
+   *
+   * @param actual the tag value of the event, null if absent
+   * @param expected the required value
+   * @return whether they are equal
+   */
+  static boolean tagEquals(Object actual, String expected) {
+    if (actual instanceof String text) {
+      return text.equals(expected);
+    }
+    return actual != null && String.valueOf(actual).equals(expected);
+  }
+
+  @Override
+  public String toString() {
+    return "Rule[" + id + "]";
+  }
+}
@@ -0,0 +1,219 @@
+package io.analytics.platform.alert.rule;
+
+import io.analytics.platform.alert.expression.Expression;
+import io.analytics.platform.alert.expression.ExpressionException;
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Compiles declared {@link RuleDefinition rules} into an indexed {@link RuleSet}.
+ *
+ * <p>Every rule is validated up front, its severity resolved and its value condition normalized
+ * to closed ranges (see {@link Rule}), then all rules are handed to a {@link RuleIndex}. An
+ * expression is parsed and split: its source, tag and value conditions are indexed like those of
+ * a predicate, and the rest is compiled into the residual condition of the rule. A rule with a
+ * condition over time keeps its source and tags for the index and moves its value and residual
+ * conditions into its {@link StatefulCondition}.
+ */
+public final class RuleCompiler {
+
+  /** Longest alert message, the limit of {@link AlertEvent#message()}. */
+  static final int MAX_MESSAGE_LENGTH = 1000;
+
+  private static final int MAX_ID_LENGTH = 100;
+  private static final int MAX_DESCRIPTION_LENGTH = 500;
+  private static final int MAX_RATE_COUNT = 1000;
+  private static final int MAX_GROUP_BY = 10;
+  private static final Duration MAX_CONDITION_WINDOW = Duration.ofDays(1);
+  private static final double[] ANY_VALUE = new double[0];
+
+  private RuleCompiler() {
+    // Prevent instantiation
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  /**
+   * Compiles a rule definition.
+   *
+   * @param definitions the rules; empty raises no alerts
+   * @param version the version of the rule set
+   * @return the compiled rules
+   * @throws InvalidRuleException if a rule is malformed or two share an ID
+   */
+  public static RuleSet compile(List<RuleDefinition> definitions, long version) {
+    List<Rule> rules = new ArrayList<>(definitions.size());
+    Set<String> ids = new HashSet<>();
+    for (int i = 0; i < definitions.size(); i++) {
+      Rule rule = compile(i, definitions.get(i));
+      if (!ids.add(rule.id())) {
+        throw invalid(i, "duplicate rule ID '" + rule.id() + "'");
+      }
+      rules.add(rule);
+    }
+    return new RuleSet(version, List.copyOf(definitions), RuleIndex.of(rules));
+  }
+
+  private static Rule compile(int index, RuleDefinition definition) {
+    if (definition == null) {
+      throw invalid(index, "rule is null");
+    }
+    String id = definition.ruleId();
+    if (id == null || id.isBlank() || id.length() > MAX_ID_LENGTH) {
+      throw invalid(index, "ruleId is required, at most " + MAX_ID_LENGTH + " characters");
+    }
+    String description = definition.description() != null ? definition.description() : id;
+    if (description.length() > MAX_DESCRIPTION_LENGTH) {
+      throw invalid(index, "description exceeds " + MAX_DESCRIPTION_LENGTH + " characters");
+    }
+    AlertEvent.Severity severity =
+        definition.severity() != null ? AlertEvent.Severity.lookup(definition.severity()) : null;
+    if (severity == null) {
+      throw invalid(index, "unknown severity '" + definition.severity() + "'");
+    }
+    RuleDefinition.Predicate predicate = definition.predicate();
+    if ((predicate == null) == (definition.expression() == null)) {
+      throw invalid(index, "exactly one of predicate and expression is required");
+    }
+    String source;
+    Map<String, String> tags;
+    double[] ranges;
+    Predicate<ProcessedEvent> residual = null;
+    if (predicate != null) {
+      if (predicate.source() != null && predicate.source().isBlank()) {
+        throw invalid(index, "source must not be blank");
+      }
+      source = predicate.source();
+      tags = tags(index, predicate.tags());
+      ranges = ranges(index, predicate);
+    } else {
+      Expression.Split split;
+      try {
+        split = Expression.parse(definition.expression()).split();
+      } catch (ExpressionException e) {
+        throw invalid(index, "expression: " + e.getMessage());
+      }
+      source = split.source();
+      tags = split.tags();
+      ranges = split.hasRange() ? new double[] {split.low(), split.high()} : ANY_VALUE;
+      residual = split.residual() != null ? split.residual().compile() : null;
+    }
+    if (definition.condition() == null) {
+      return new Rule(id, description, severity, source, tags, ranges, residual, null);
+    }
+    StatefulCondition condition =
+        condition(index, definition.condition(), matcher(ranges, residual));
+    return new Rule(id, description, severity, source, tags, ANY_VALUE, null, condition);
+  }
+
+  private static StatefulCondition condition(
+      int index, RuleDefinition.Condition condition, Predicate<ProcessedEvent> test) {
+    StatefulCondition.Type type = null;
+    for (StatefulCondition.Type candidate : StatefulCondition.Type.values()) {
+      if (candidate.name().equalsIgnoreCase(String.valueOf(condition.type()))) {
+        type = candidate;
+      }
+    }
+    if (type == null) {
+      throw invalid(
+          index, "unknown condition type '" + condition.type() + "' (rate, sustained or absence)");
+    }
+    Duration window = condition.window();
+    if (window == null
+        || window.toMillis() <= 0
+        || window.compareTo(MAX_CONDITION_WINDOW) > 0) {
+      throw invalid(index, "condition window must be positive, at most " + MAX_CONDITION_WINDOW);
+    }
+    int count = 0;
+    if (type == StatefulCondition.Type.RATE) {
+      if (condition.count() == null
+          || condition.count() < 1
+          || condition.count() > MAX_RATE_COUNT) {
+        throw invalid(index, "rate count must be between 1 and " + MAX_RATE_COUNT);
+      }
+      count = condition.count();
+    } else if (condition.count() != null) {
+      throw invalid(index, "count is only used by rate conditions");
+    }
+    List<String> groupBy = condition.groupBy() != null ? condition.groupBy() : List.of();
+    if (groupBy.size() > MAX_GROUP_BY
+        || groupBy.stream().anyMatch(name -> name == null || name.isBlank())
+        || new HashSet<>(groupBy).size() < groupBy.size()) {
+      throw invalid(
+          index, "groupBy takes at most " + MAX_GROUP_BY + " distinct tag keys or source");
+    }
+    return new StatefulCondition(type, window.toMillis(), count, List.copyOf(groupBy), test);
+  }
+
+  /** Combines value ranges and a residual condition into one test of an event. */
+  private static Predicate<ProcessedEvent> matcher(
+      double[] ranges, Predicate<ProcessedEvent> residual) {
+    if (ranges.length == 0) {
+      return residual != null ? residual : event -> true;
+    }
+    Predicate<ProcessedEvent> values = event -> Rule.inRanges(ranges, event.valueTransformed());
+    return residual != null ? values.and(residual) : values;
+  }
+
+  private static Map<String, String> tags(int index, Map<String, String> tags) {
+    if (tags == null || tags.isEmpty()) {
+      return Map.of();
+    }
+    for (Map.Entry<String, String> tag : tags.entrySet()) {
+      if (tag.getKey() == null || tag.getKey().isBlank() || tag.getValue() == null) {
+        throw invalid(index, "tag conditions need a key and a value");
+      }
+    }
+    return Map.copyOf(new TreeMap<>(tags));
+  }
+
+  private static double[] ranges(int index, RuleDefinition.Predicate predicate) {
+    if (predicate.op() == null) {
+      if (predicate.value() != null || predicate.to() != null) {
+        throw invalid(index, "value given without op");
+      }
+      return ANY_VALUE;
+    }
+    double value = operand(index, "value", predicate.value());
+    String op = predicate.op().toLowerCase(Locale.ROOT);
+    if (!op.equals("between") && predicate.to() != null) {
+      throw invalid(index, "to is only used by between");
+    }
+    double inf = Double.POSITIVE_INFINITY;
+    return switch (op) {
+      case "gt" -> new double[] {Math.nextUp(value), inf};
+      case "gte" -> new double[] {value, inf};
+      case "lt" -> new double[] {-inf, Math.nextDown(value)};
+      case "lte" -> new double[] {-inf, value};
+      case "eq" -> new double[] {value, value};
+      case "ne" -> new double[] {-inf, Math.nextDown(value), Math.nextUp(value), inf};
+      case "between" -> {
+        double to = operand(index, "to", predicate.to());
+        if (to < value) {
+          throw invalid(index, "between needs value <= to");
+        }
+        yield new double[] {value, to};
+      }
+      default -> throw invalid(index, "unknown operator '" + predicate.op() + "'");
+    };
+  }
+
+  private static double operand(int index, String name, Double operand) {
+    if (operand == null || !Double.isFinite(operand)) {
+      throw invalid(index, name + " must be a finite number");
+    }
+    return operand;
+  }
+
+  private static InvalidRuleException invalid(int index, String reason) {
+    return new InvalidRuleException("Rule " + (index + 1) + ": " + reason);
+  }
+}
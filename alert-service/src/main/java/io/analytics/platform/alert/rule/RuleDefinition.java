@@ -0,0 +1,80 @@
+package io.analytics.platform.alert.rule;
+
+import io.analytics.platform.alert.expression.Expression;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One declared alert rule, as written under {@code alert.rules} or sent to {@code PUT /rules}.
+ *
+ * @param ruleId unique identifier of the rule, carried by its alerts
+ * @param description what the rule detects, the message of its alerts
+ * @param predicate the events the rule fires on, unless an expression is given
+ * @param expression the events the rule fires on, in the language of {@link Expression}
+ * @param condition the condition over time of a stateful rule, null to fire on every event
+ * @param severity {@code CRITICAL}, {@code HIGH}, {@code MEDIUM} or {@code LOW}, case-insensitive
+ */
+public record RuleDefinition(
+    String ruleId,
+    String description,
+    Predicate predicate,
+    String expression,
+    Condition condition,
+    String severity) {
+
+  /**
+   * Conditions an event must all meet to fire the rule; absent ones always hold.
+   *
+   * <ul>
+   *   <li>{@code source}: the event source equals it
+   *   <li>{@code tags}: every tag is present on the event with this value, compared as text
+   *   <li>{@code op} and {@code value}: the transformed value compared with {@code gt}, {@code
+   *       gte}, {@code lt}, {@code lte}, {@code eq} or {@code ne}, or within {@code value} and
+   *       {@code to} inclusive with {@code between}
+   * </ul>
+   *
+   * @param source the required event source
+   * @param tags the required tag values
+   * @param op the value comparison operator
+   * @param value the threshold, or the lower bound of {@code between}
+   * @param to the upper bound of {@code between}
+   */
+  public record Predicate(
+      String source, Map<String, String> tags, String op, Double value, Double to) {
+
+    /**
+     * Creates a predicate on the value only.
+     *
+     * @param op the comparison operator
+     * @param value the threshold
+     * @return the predicate
+     */
+    public static Predicate value(String op, double value) {
+      return new Predicate(null, null, op, value, null);
+    }
+  }
+
+  /**
+   * Turns a rule into a stateful one: the predicate or expression then selects the events the
+   * rule watches, and the rule fires on their pattern over time rather than on one event.
+   *
+   * <ul>
+   *   <li>{@code rate}: at least {@code count} matching events within {@code window}
+   *   <li>{@code sustained}: every event matching for at least {@code window}, e.g. a value above
+   *       a threshold for 5 minutes; an event that does not match, or no event for {@code
+   *       window}, starts over
+   *   <li>{@code absence}: no matching event for {@code window}, from a group seen before
+   * </ul>
+   *
+   * <p>The predicate's source and tags choose the events considered, its value condition (or
+   * the rest of the expression) is what must match.
+   *
+   * @param type {@code rate}, {@code sustained} or {@code absence}, case-insensitive
+   * @param window the duration of the condition
+   * @param count the events required by {@code rate}
+   * @param groupBy {@code source} or tag keys tracked separately, e.g. one absence per host;
+   *     none tracks the rule as a whole
+   */
+  public record Condition(String type, Duration window, Integer count, List<String> groupBy) {}
+}
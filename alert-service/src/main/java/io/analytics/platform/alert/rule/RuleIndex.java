@@ -0,0 +1,209 @@
+package io.analytics.platform.alert.rule;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Finds the rules an event fires without evaluating every rule.
+ *
+ * <p>Rules are partitioned by their required source, plus one partition for rules on any source,
+ * so an event only looks at two partitions. Within a partition, rules requiring the same set of
+ * tags form a group, whose tag conditions are checked once for all of its rules. Each group with
+ * tags is reachable through one of them, its anchor: the tag value shared by the fewest groups of
+ * the partition. An event looks up its own value of every anchor key, so groups whose anchor it
+ * does not carry are never visited. The value conditions of a group are resolved by its {@link
+ * ThresholdIndex}. Residual conditions of expression rules are tested last, on the rules found.
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+public final class RuleIndex {
+
+  private static final RuleIndex EMPTY = new RuleIndex(List.of());
+
+  private final List<Rule> rules;
+  private final Partition anySource;
+  private final Map<String, Partition> bySource;
+  private final boolean residuals;
+
+  private RuleIndex(List<Rule> rules) {
+    this.rules = List.copyOf(rules);
+    this.residuals = rules.stream().anyMatch(Rule::hasResidual);
+    Map<String, List<Rule>> sources = new HashMap<>();
+    List<Rule> any = new ArrayList<>();
+    for (Rule rule : rules) {
+      if (rule.source() != null) {
+        sources.computeIfAbsent(rule.source(), source -> new ArrayList<>()).add(rule);
+      } else {
+        any.add(rule);
+      }
+    }
+    this.anySource = any.isEmpty() ? null : new Partition(any);
+    Map<String, Partition> partitions = new HashMap<>();
+    sources.forEach((source, members) -> partitions.put(source, new Partition(members)));
+    this.bySource = Map.copyOf(partitions);
+  }
+
+  /**
+   * Indexes rules.
+   *
+   * @param rules the rules
+   * @return the index
+   */
+  public static RuleIndex of(List<Rule> rules) {
+    return rules.isEmpty() ? EMPTY : new RuleIndex(rules);
+  }
+
+  /**
+   * Returns the indexed rules.
+   *
+   * @return the rules in the order they were given
+   */
+  public List<Rule> rules() {
+    return rules;
+  }
+
+  /**
+   * Adds the rules an event fires, each once, in no particular order.
+   *
+   * @param event the event
+   * @param matches receives the rules; passing the same list for every event avoids allocating
+   * @return the number of rules added
+   */
+  public int match(ProcessedEvent event, List<Rule> matches) {
+    int before = matches.size();
+    Double boxed = event.valueTransformed();
+    double value = boxed != null ? boxed : Double.NaN;
+    if (anySource != null) {
+      anySource.match(event, value, matches);
+    }
+    Partition partition = event.source() != null ? bySource.get(event.source()) : null;
+    if (partition != null) {
+      partition.match(event, value, matches);
+    }
+    if (residuals) {
+      retainResidualMatches(event, matches, before);
+    }
+    return matches.size() - before;
+  }
+
+  /** Removes the rules added since {@code from} whose residual condition fails. */
+  private static void retainResidualMatches(ProcessedEvent event, List<Rule> matches, int from) {
+    int kept = from;
+    for (int i = from; i < matches.size(); i++) {
+      Rule rule = matches.get(i);
+      if (rule.residualMatches(event)) {
+        matches.set(kept++, rule);
+      }
+    }
+    matches.subList(kept, matches.size()).clear();
+  }
+
+  /** The rules of one source, or of any source. */
+  private static final class Partition {
+
+    private final ThresholdIndex untagged;
+    private final String[] keys;
+    private final List<Map<String, Group[]>> anchors;
+
+    Partition(List<Rule> rules) {
+      Map<Map<String, String>, List<Rule>> byTags = new LinkedHashMap<>();
+      for (Rule rule : rules) {
+        byTags.computeIfAbsent(new TreeMap<>(rule.tags()), tags -> new ArrayList<>()).add(rule);
+      }
+      List<Rule> noTags = byTags.remove(Map.of());
+      untagged = noTags != null ? new ThresholdIndex(noTags) : null;
+
+      Map<String, Map<String, Integer>> shared = new HashMap<>();
+      for (Map<String, String> tags : byTags.keySet()) {
+        tags.forEach(
+            (key, value) ->
+                shared.computeIfAbsent(key, k -> new HashMap<>()).merge(value, 1, Integer::sum));
+      }
+      Map<String, Map<String, List<Group>>> grouped = new LinkedHashMap<>();
+      byTags.forEach(
+          (tags, members) -> {
+            Map.Entry<String, String> anchor = null;
+            int fewest = Integer.MAX_VALUE;
+            for (Map.Entry<String, String> tag : tags.entrySet()) {
+              int count = shared.get(tag.getKey()).get(tag.getValue());
+              if (count < fewest) {
+                anchor = tag;
+                fewest = count;
+              }
+            }
+            Group group = new Group(tags, anchor.getKey(), new ThresholdIndex(members));
+            grouped
+                .computeIfAbsent(anchor.getKey(), key -> new HashMap<>())
+                .computeIfAbsent(anchor.getValue(), value -> new ArrayList<>())
+                .add(group);
+          });
+      keys = grouped.keySet().toArray(String[]::new);
+      anchors = new ArrayList<>(keys.length);
+      for (String key : keys) {
+        Map<String, Group[]> byValue = new HashMap<>();
+        grouped
+            .get(key)
+            .forEach((value, groups) -> byValue.put(value, groups.toArray(Group[]::new)));
+        anchors.add(byValue);
+      }
+    }
+
+    void match(ProcessedEvent event, double value, List<Rule> matches) {
+      if (untagged != null) {
+        untagged.match(value, matches);
+      }
+      Map<String, Object> tags = event.tags();
+      for (int k = 0; k < keys.length; k++) {
+        Object tag = tags.get(keys[k]);
+        if (tag == null) {
+          continue;
+        }
+        Group[] groups = anchors.get(k).get(tag instanceof String text ? text : tag.toString());
+        if (groups == null) {
+          continue;
+        }
+        for (Group group : groups) {
+          if (group.matchesOtherTags(tags)) {
+            group.thresholds.match(value, matches);
+          }
+        }
+      }
+    }
+  }
+
+  /** Rules of a partition requiring the same tags. */
+  private static final class Group {
+
+    private final String[] keys;
+    private final String[] values;
+    private final ThresholdIndex thresholds;
+
+    Group(Map<String, String> tags, String anchor, ThresholdIndex thresholds) {
+      this.keys = new String[tags.size() - 1];
+      this.values = new String[keys.length];
+      int i = 0;
+      for (Map.Entry<String, String> tag : tags.entrySet()) {
+        if (!tag.getKey().equals(anchor)) {
+          keys[i] = tag.getKey();
+          values[i++] = tag.getValue();
+        }
+      }
+      this.thresholds = thresholds;
+    }
+
+    /** Checks the tags besides the anchor, which the lookup already matched. */
+    boolean matchesOtherTags(Map<String, Object> tags) {
+      for (int i = 0; i < keys.length; i++) {
+        if (!Rule.tagEquals(tags.get(keys[i]), values[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package io.analytics.platform.alert.rule;
+
+import java.util.List;
+
+/**
+ * The rules compiled by {@link RuleCompiler} from one definition, indexed for evaluation.
+ *
+ * @param version incremented by every reload, 1 for the rules configured at startup
+ * @param definitions the definitions the rules were compiled from
+ * @param index the compiled rules
+ */
+public record RuleSet(long version, List<RuleDefinition> definitions, RuleIndex index) {}
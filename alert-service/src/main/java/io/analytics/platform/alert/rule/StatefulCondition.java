@@ -0,0 +1,46 @@
+package io.analytics.platform.alert.rule;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * The condition over time of a stateful rule, compiled from a {@link RuleDefinition.Condition}.
+ *
+ * <p>The source and tags of the rule only select the events it watches, its scope; {@code test}
+ * holds its value and expression conditions, checked by the state tracker on every event of the
+ * scope. Events of the scope are tracked separately per group, identified by {@link #key}.
+ *
+ * @param type what the rule detects
+ * @param windowMillis the window of the condition, in milliseconds
+ * @param count events a {@link Type#RATE} condition requires within the window, 0 otherwise
+ * @param groupBy {@code source} or tag keys whose values identify a group, empty for one group
+ * @param test the conditions an event of the scope must meet
+ */
+public record StatefulCondition(
+    Type type,
+    long windowMillis,
+    int count,
+    List<String> groupBy,
+    Predicate<ProcessedEvent> test) {
+
+  /** Kinds of conditions over time. */
+  public enum Type {
+    /** At least {@code count} matching events of a group within the window. */
+    RATE,
+    /** Every event of a group matching, for at least the window. */
+    SUSTAINED,
+    /** No matching event of a group for the window, once it has been seen. */
+    ABSENCE
+  }
+
+  /**
+   * Returns the group of an event.
+   *
+   * @param event an event of the rule's scope
+   * @return the key built by {@link GroupKey#of}, empty when the rule has a single group
+   */
+  public String key(ProcessedEvent event) {
+    return GroupKey.of(groupBy, event);
+  }
+}
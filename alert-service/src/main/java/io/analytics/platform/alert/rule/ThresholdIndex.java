@@ -0,0 +1,167 @@
+package io.analytics.platform.alert.rule;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds the rules of a {@link RuleIndex} group whose value range contains a value, touching only
+ * the rules that match plus a logarithmic number of others.
+ *
+ * <p>Ranges are split by shape:
+ *
+ * <ul>
+ *   <li>unbounded: the rule holds for any value
+ *   <li>bounded below only ({@code gt}, {@code gte}): sorted by low bound, the matches are the
+ *       prefix whose bound is at most the value, found by binary search
+ *   <li>bounded above only ({@code lt}, {@code lte}): likewise, the suffix sorted by high bound
+ *   <li>bounded both ways ({@code eq}, {@code between}): sorted by low bound and searched as an
+ *       implicit interval tree, each node holding the highest bound of its subtree, so subtrees
+ *       ending below the value are skipped
+ * </ul>
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+final class ThresholdIndex {
+
+  private final Rule[] always;
+  private final double[] lows;
+  private final Rule[] atLeast;
+  private final double[] highs;
+  private final Rule[] atMost;
+  private final double[] starts;
+  private final double[] ends;
+  private final double[] maxEnds;
+  private final Rule[] within;
+
+  /**
+   * Indexes the ranges of rules.
+   *
+   * @param rules the rules of one group, each with all its ranges
+   */
+  ThresholdIndex(List<Rule> rules) {
+    List<Rule> unbounded = new ArrayList<>();
+    List<Range> below = new ArrayList<>();
+    List<Range> above = new ArrayList<>();
+    List<Range> both = new ArrayList<>();
+    for (Rule rule : rules) {
+      if (rule.rangeCount() == 0) {
+        unbounded.add(rule);
+      }
+      for (int i = 0; i < rule.rangeCount(); i++) {
+        Range range = new Range(rule.low(i), rule.high(i), rule);
+        if (range.low == Double.NEGATIVE_INFINITY && range.high == Double.POSITIVE_INFINITY) {
+          unbounded.add(rule);
+        } else if (range.high == Double.POSITIVE_INFINITY) {
+          below.add(range);
+        } else if (range.low == Double.NEGATIVE_INFINITY) {
+          above.add(range);
+        } else {
+          both.add(range);
+        }
+      }
+    }
+    always = unbounded.toArray(Rule[]::new);
+
+    below.sort(Comparator.comparingDouble(Range::low));
+    lows = below.stream().mapToDouble(Range::low).toArray();
+    atLeast = below.stream().map(Range::rule).toArray(Rule[]::new);
+
+    above.sort(Comparator.comparingDouble(Range::high));
+    highs = above.stream().mapToDouble(Range::high).toArray();
+    atMost = above.stream().map(Range::rule).toArray(Rule[]::new);
+
+    both.sort(Comparator.comparingDouble(Range::low));
+    starts = both.stream().mapToDouble(Range::low).toArray();
+    ends = both.stream().mapToDouble(Range::high).toArray();
+    within = both.stream().map(Range::rule).toArray(Rule[]::new);
+    maxEnds = new double[ends.length];
+    buildMaxEnds(0, ends.length - 1);
+  }
+
+  /**
+   * Adds the rules whose range contains a value.
+   *
+   * @param value the event value; NaN matches unbounded rules only
+   * @param matches receives the matching rules
+   */
+  void match(double value, List<Rule> matches) {
+    for (Rule rule : always) {
+      matches.add(rule);
+    }
+    if (Double.isNaN(value)) {
+      return;
+    }
+    int prefix = countAtMost(lows, value);
+    for (int i = 0; i < prefix; i++) {
+      matches.add(atLeast[i]);
+    }
+    for (int i = countBelow(highs, value); i < highs.length; i++) {
+      matches.add(atMost[i]);
+    }
+    if (within.length > 0) {
+      stab(0, within.length - 1, value, matches);
+    }
+  }
+
+  /** Adds the bounded ranges of {@code [lo, hi]} that contain the value, in start order. */
+  private void stab(int lo, int hi, double value, List<Rule> matches) {
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (maxEnds[mid] < value) {
+        return;
+      }
+      stab(lo, mid - 1, value, matches);
+      if (starts[mid] > value) {
+        return;
+      }
+      if (ends[mid] >= value) {
+        matches.add(within[mid]);
+      }
+      lo = mid + 1;
+    }
+  }
+
+  private double buildMaxEnds(int lo, int hi) {
+    if (lo > hi) {
+      return Double.NEGATIVE_INFINITY;
+    }
+    int mid = (lo + hi) >>> 1;
+    double children = Math.max(buildMaxEnds(lo, mid - 1), buildMaxEnds(mid + 1, hi));
+    double max = Math.max(ends[mid], children);
+    maxEnds[mid] = max;
+    return max;
+  }
+
+  /** Returns the number of sorted bounds at most the value. */
+  private static int countAtMost(double[] sorted, double value) {
+    int lo = 0;
+    int hi = sorted.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (sorted[mid] <= value) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /** Returns the number of sorted bounds below the value. */
+  private static int countBelow(double[] sorted, double value) {
+    int lo = 0;
+    int hi = sorted.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (sorted[mid] < value) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private record Range(double low, double high, Rule rule) {}
+}
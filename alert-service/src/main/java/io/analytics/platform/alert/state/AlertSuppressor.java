@@ -0,0 +1,189 @@
+package io.analytics.platform.alert.state;
+
+import io.analytics.platform.alert.rule.GroupKey;
+import io.analytics.platform.alert.rule.Rule;
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the alerts of a rule to one per group and cooldown.
+ *
+ * <p>The group of an alert is that of its stateful condition, if the rule has one, or else the
+ * values of the configured {@code groupBy} tags of the event that fired it.
+ *
+ * <p>The first alert of a rule and group opens a window of {@code cooldown} and is published;
+ * the following ones within the window are only counted. When the window closes, at the first
+ * alert after it or at the next {@link #expire}, a summary is published if any alert was
+ * suppressed: {@code 37 occurrences in last 1m: } followed by the message of the last one.
+ *
+ * <p>Windows live in a {@link ConcurrentHashMap}: reads take no lock, and each alert replaces the
+ * immutable window of its key with one atomic {@code compute}, so concurrent listeners and the
+ * ticker contend only on the same key. Closed windows are evicted by {@link #expire}, their time
+ * to live being the cooldown. Beyond {@code maxKeys} open windows, alerts of new keys are
+ * published without suppression and counted as untracked.
+ *
+ * <p>The windows changed by a batch can be recorded in a {@link Rollback} and restored if the
+ * batch fails, so that its redelivered alerts are not held back as repeats of themselves.
+ *
+ * <p>Thread-safe.
+ */
+public final class AlertSuppressor {
+
+  private static final int MAX_MESSAGE_LENGTH = 1000;
+
+  private final long cooldownMillis;
+  private final List<String> groupBy;
+  private final int maxKeys;
+  private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+  private final LongAdder suppressed = new LongAdder();
+  private final LongAdder untracked = new LongAdder();
+
+  /**
+   * Creates a suppressor.
+   *
+   * @param cooldown the window of each key, zero to publish every alert
+   * @param groupBy {@code source} or tag keys whose values identify the group of a stateless rule
+   * @param maxKeys the open windows at most
+   */
+  public AlertSuppressor(Duration cooldown, List<String> groupBy, int maxKeys) {
+    this.cooldownMillis = cooldown.toMillis();
+    this.groupBy = List.copyOf(groupBy);
+    this.maxKeys = maxKeys;
+  }
+
+  /**
+   * Passes an alert through suppression.
+   *
+   * @param rule the rule that raised the alert
+   * @param event the event that fired it
+   * @param alert the alert
+   * @param nowMillis the current time
+   * @param publish receives the alerts to publish: the alert and the summary of the window it
+   *     closes, or nothing if it is suppressed
+   */
+  public void offer(
+      Rule rule, ProcessedEvent event, AlertEvent alert, long nowMillis, List<AlertEvent> publish) {
+    offer(rule, event, alert, nowMillis, publish, null);
+  }
+
+  /**
+   * Passes an alert of a batch through suppression.
+   *
+   * @param rule the rule that raised the alert
+   * @param event the event that fired it
+   * @param alert the alert
+   * @param nowMillis the current time
+   * @param publish receives the alerts to publish: the alert and the summary of the window it
+   *     closes, or nothing if it is suppressed
+   * @param rollback records how to restore the window of the alert, or null
+   */
+  public void offer(
+      Rule rule,
+      ProcessedEvent event,
+      AlertEvent alert,
+      long nowMillis,
+      List<AlertEvent> publish,
+      Rollback rollback) {
+    if (cooldownMillis <= 0) {
+      publish.add(alert);
+      return;
+    }
+    String group =
+        rule.condition() != null ? rule.condition().key(event) : GroupKey.of(groupBy, event);
+    String key = group.isEmpty() ? rule.id() : rule.id() + '\n' + group;
+    if (windows.size() >= maxKeys && !windows.containsKey(key)) {
+      untracked.increment();
+      publish.add(alert);
+      return;
+    }
+    Window[] previous = new Window[1];
+    Window window =
+        windows.compute(
+            key,
+            (k, open) -> {
+              previous[0] = open;
+              return open == null || nowMillis - open.start >= cooldownMillis
+                  ? new Window(nowMillis, 1, alert, open != null ? summary(open) : null)
+                  : new Window(open.start, open.count + 1, alert, null);
+            });
+    if (rollback != null && rollback.touch(key)) {
+      Window before = previous[0];
+      // A window evicted meanwhile stays evicted: its summary, if any, was already published
+      rollback.add(() -> windows.computeIfPresent(key, (k, current) -> before));
+    }
+    if (window.count > 1) {
+      suppressed.increment();
+      return;
+    }
+    if (window.closed != null) {
+      publish.add(window.closed);
+    }
+    publish.add(alert);
+  }
+
+  /**
+   * Evicts the windows older than the cooldown.
+   *
+   * @param nowMillis the current time
+   * @param publish receives the summaries of the evicted windows that suppressed alerts
+   */
+  public void expire(long nowMillis, List<AlertEvent> publish) {
+    for (Map.Entry<String, Window> entry : windows.entrySet()) {
+      Window window = entry.getValue();
+      if (nowMillis - window.start < cooldownMillis) {
+        continue;
+      }
+      // Fails if an alert replaced the window meanwhile; it is then evicted at a later call
+      if (windows.remove(entry.getKey(), window) && window.count > 1) {
+        publish.add(summary(window));
+      }
+    }
+  }
+
+  /** Returns the number of open windows. */
+  public int keys() {
+    return windows.size();
+  }
+
+  /** Returns the number of alerts suppressed. */
+  public long suppressed() {
+    return suppressed.sum();
+  }
+
+  /** Returns the number of alerts published unsuppressed because too many windows were open. */
+  public long untracked() {
+    return untracked.sum();
+  }
+
+  private AlertEvent summary(Window window) {
+    if (window.count < 2) {
+      return null;
+    }
+    AlertEvent last = window.last;
+    String message =
+        window.count
+            + " occurrences in last "
+            + ConditionTracker.format(cooldownMillis)
+            + ": "
+            + last.message();
+    if (message.length() > MAX_MESSAGE_LENGTH) {
+      message = message.substring(0, MAX_MESSAGE_LENGTH);
+    }
+    return new AlertEvent(last.ruleId(), message, last.severity());
+  }
+
+  /**
+   * The window of a key.
+   *
+   * @param start when its first alert was published
+   * @param count alerts within the window, the first included
+   * @param last the latest of them
+   * @param closed the summary of the window this one replaced, to publish with the first alert
+   */
+  private record Window(long start, int count, AlertEvent last, AlertEvent closed) {}
+}
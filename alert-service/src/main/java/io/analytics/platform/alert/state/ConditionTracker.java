@@ -0,0 +1,368 @@
+package io.analytics.platform.alert.state;
+
+import io.analytics.platform.alert.rule.Rule;
+import io.analytics.platform.alert.rule.RuleDefinition;
+import io.analytics.platform.alert.rule.RuleSet;
+import io.analytics.platform.alert.rule.StatefulCondition;
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tracks the groups of stateful rules and raises their alerts.
+ *
+ * <p>Each group of a rule, one per distinct {@code groupBy} value, holds a few fields: the time
+ * it was first and last matched, and for a rate condition a ring buffer of the times of its last
+ * {@code count} matching events. State is therefore O(groups), capped at {@code maxKeysPerRule}
+ * groups per rule; events of further groups are ignored and counted as rejected.
+ *
+ * <p>Every group has one timer in a {@link TimerWheel}, due one window after it was last matched.
+ * Timers are pushed back lazily: matching an event only updates the group, and a timer that
+ * fires early is rescheduled, so the wheel is touched once per window per group rather than
+ * once per event. A timer that fires a full window after the last match ends the group: it
+ * raises the alert of an absence condition, and simply drops the state of the others. The wheel
+ * is advanced by {@link #advance}, from one thread for all rules.
+ *
+ * <p>Times are the arrival times passed by the caller, not event timestamps, so an absence is
+ * noticed without any event arriving; after a consumer backlog, rates over the replayed events
+ * are overstated.
+ *
+ * <p>Changes made by the events of a batch can be recorded in a {@link Rollback} and undone if
+ * the batch fails, so that its redelivery does not count the same events twice and fire a
+ * condition early.
+ *
+ * <p>Thread-safe: every method synchronizes on the tracker.
+ */
+public final class ConditionTracker {
+
+  private static final int WHEEL_SLOTS = 512;
+
+  private final int maxKeysPerRule;
+  private final TimerWheel<Group> wheel;
+  private RuleSet ruleSet;
+  private Map<String, RuleState> rules = Map.of();
+  private int groups;
+  private long rejected;
+
+  /**
+   * Creates a tracker.
+   *
+   * @param tick the resolution of windows
+   * @param maxKeysPerRule the groups tracked per rule at most
+   * @param nowMillis the current time
+   */
+  public ConditionTracker(Duration tick, int maxKeysPerRule, long nowMillis) {
+    this.maxKeysPerRule = maxKeysPerRule;
+    this.wheel = new TimerWheel<>(tick.toMillis(), WHEEL_SLOTS, nowMillis);
+  }
+
+  /**
+   * Tracks the stateful rules of a rule set from now on.
+   *
+   * <p>Groups of a rule whose definition is unchanged are kept; those of changed or removed rules
+   * are dropped. Does nothing if the rule set is already tracked.
+   *
+   * @param next the rule set being evaluated
+   */
+  public synchronized void sync(RuleSet next) {
+    if (next == ruleSet) {
+      return;
+    }
+    List<Rule> compiled = next.index().rules();
+    Map<String, RuleState> kept = new HashMap<>();
+    for (int i = 0; i < compiled.size(); i++) {
+      Rule rule = compiled.get(i);
+      if (rule.condition() == null) {
+        continue;
+      }
+      RuleDefinition definition = next.definitions().get(i);
+      RuleState state = rules.get(rule.id());
+      if (state != null && state.definition.equals(definition)) {
+        state.rule = rule;
+      } else {
+        state = new RuleState(rule, definition);
+      }
+      kept.put(rule.id(), state);
+    }
+    for (RuleState state : rules.values()) {
+      if (kept.get(state.rule.id()) != state) {
+        state.groups.values().forEach(wheel::cancel);
+        groups -= state.groups.size();
+      }
+    }
+    rules = kept;
+    ruleSet = next;
+  }
+
+  /**
+   * Feeds an event to a stateful rule that watches it.
+   *
+   * @param rule a rule of the tracked rule set, with a condition
+   * @param event an event the index matched with the rule
+   * @param nowMillis the arrival time of the event
+   * @param alerts receives the alert if the event fires the rule
+   */
+  public synchronized void observe(
+      Rule rule, ProcessedEvent event, long nowMillis, List<AlertEvent> alerts) {
+    observe(rule, event, nowMillis, alerts, null);
+  }
+
+  /**
+   * Feeds an event of a batch to a stateful rule that watches it.
+   *
+   * @param rule a rule of the tracked rule set, with a condition
+   * @param event an event the index matched with the rule
+   * @param nowMillis the arrival time of the event
+   * @param alerts receives the alert if the event fires the rule
+   * @param rollback records how to undo the changes of the event, or null
+   */
+  public synchronized void observe(
+      Rule rule,
+      ProcessedEvent event,
+      long nowMillis,
+      List<AlertEvent> alerts,
+      Rollback rollback) {
+    RuleState state = rules.get(rule.id());
+    if (state == null || state.rule != rule) {
+      return;
+    }
+    StatefulCondition condition = rule.condition();
+    boolean matched = condition.test().test(event);
+    if (!matched && condition.type() != StatefulCondition.Type.SUSTAINED) {
+      return;
+    }
+    String key = condition.key(event);
+    Group group = state.groups.get(key);
+    if (!matched) {
+      if (group != null) {
+        remove(group);
+        if (rollback != null) {
+          Group removed = group;
+          rollback.add(() -> restore(removed));
+        }
+      }
+      return;
+    }
+    if (group == null) {
+      group = add(state, key, nowMillis);
+      if (group == null) {
+        return;
+      }
+      if (rollback != null) {
+        Group added = group;
+        rollback.touch(added);
+        rollback.add(() -> discard(added));
+      }
+    } else if (rollback != null && rollback.touch(group)) {
+      rollback.add(snapshot(group));
+    }
+    group.last = nowMillis;
+    long window = condition.windowMillis();
+    switch (condition.type()) {
+      case RATE -> {
+        if (group.record(nowMillis, window)) {
+          alerts.add(
+              rule.alert(
+                  condition.count()
+                      + " events within "
+                      + format(window)
+                      + suffix(key)
+                      + ", last event "
+                      + event.id()));
+        }
+      }
+      case SUSTAINED -> {
+        if (!group.fired && nowMillis - group.first >= window) {
+          group.fired = true;
+          alerts.add(
+              rule.alert(
+                  "held for "
+                      + format(window)
+                      + suffix(key)
+                      + ", value "
+                      + event.valueTransformed()
+                      + ", event "
+                      + event.id()));
+        }
+      }
+      case ABSENCE -> {
+        // Matching only refreshes the group
+      }
+    }
+  }
+
+  /**
+   * Expires the groups not matched for a window, raising absence alerts.
+   *
+   * @param nowMillis the current time
+   * @param alerts receives the alerts raised
+   */
+  public synchronized void advance(long nowMillis, List<AlertEvent> alerts) {
+    wheel.advance(nowMillis, group -> expire(group, nowMillis, alerts));
+  }
+
+  private void expire(Group group, long nowMillis, List<AlertEvent> alerts) {
+    StatefulCondition condition = group.owner.rule.condition();
+    long window = condition.windowMillis();
+    if (nowMillis - group.last < window) {
+      wheel.schedule(group, group.last + window);
+      return;
+    }
+    if (condition.type() == StatefulCondition.Type.ABSENCE) {
+      alerts.add(group.owner.rule.alert("no events for " + format(window) + suffix(group.key)));
+    }
+    group.owner.groups.remove(group.key);
+    groups--;
+  }
+
+  private Group add(RuleState state, String key, long nowMillis) {
+    if (state.groups.size() >= maxKeysPerRule) {
+      rejected++;
+      return null;
+    }
+    StatefulCondition condition = state.rule.condition();
+    Group group = new Group(state, key, nowMillis, condition.count());
+    state.groups.put(key, group);
+    groups++;
+    wheel.schedule(group, nowMillis + condition.windowMillis());
+    return group;
+  }
+
+  private void remove(Group group) {
+    wheel.cancel(group);
+    group.owner.groups.remove(group.key);
+    groups--;
+  }
+
+  /** Returns whether a group is still tracked, neither expired nor dropped with its rule. */
+  private boolean isTracked(Group group) {
+    return rules.get(group.owner.rule.id()) == group.owner
+        && group.owner.groups.get(group.key) == group;
+  }
+
+  /** Returns the undo of the changes about to be made to a group. */
+  private Runnable snapshot(Group group) {
+    long last = group.last;
+    boolean fired = group.fired;
+    int head = group.head;
+    int size = group.size;
+    long[] times = group.times != null ? group.times.clone() : null;
+    return () -> {
+      synchronized (this) {
+        if (isTracked(group)) {
+          group.last = last;
+          group.fired = fired;
+          group.head = head;
+          group.size = size;
+          if (times != null) {
+            System.arraycopy(times, 0, group.times, 0, times.length);
+          }
+        }
+      }
+    };
+  }
+
+  /** Undoes the creation of a group. */
+  private synchronized void discard(Group group) {
+    if (isTracked(group)) {
+      remove(group);
+    }
+  }
+
+  /** Undoes the removal of a group, unless its key was taken or its rule dropped meanwhile. */
+  private synchronized void restore(Group group) {
+    RuleState state = group.owner;
+    if (rules.get(state.rule.id()) != state
+        || state.groups.containsKey(group.key)
+        || state.groups.size() >= maxKeysPerRule) {
+      return;
+    }
+    state.groups.put(group.key, group);
+    groups++;
+    wheel.schedule(group, group.last + state.rule.condition().windowMillis());
+  }
+
+  /** Returns the number of groups tracked over all rules. */
+  public synchronized int groups() {
+    return groups;
+  }
+
+  /** Returns the number of scheduled timers. */
+  public synchronized int timers() {
+    return wheel.size();
+  }
+
+  /** Returns the number of events ignored because their rule tracked too many groups. */
+  public synchronized long rejected() {
+    return rejected;
+  }
+
+  private static String suffix(String key) {
+    return key.isEmpty() ? "" : ", " + key;
+  }
+
+  /** Formats a window as {@code 5m} or {@code 1m30s}. */
+  static String format(long millis) {
+    return Duration.ofMillis(millis).toString().substring(2).toLowerCase(Locale.ROOT);
+  }
+
+  /** The groups of one stateful rule. */
+  private static final class RuleState {
+
+    private final RuleDefinition definition;
+    private final Map<String, Group> groups = new HashMap<>();
+    private Rule rule;
+
+    RuleState(Rule rule, RuleDefinition definition) {
+      this.rule = rule;
+      this.definition = definition;
+    }
+  }
+
+  /** The state of one group of a rule, and its timer. */
+  private static final class Group extends TimerWheel.Timer {
+
+    private final RuleState owner;
+    private final String key;
+    private final long first;
+    private final long[] times;
+    private long last;
+    private boolean fired;
+    private int head;
+    private int size;
+
+    Group(RuleState owner, String key, long first, int count) {
+      this.owner = owner;
+      this.key = key;
+      this.first = first;
+      this.last = first;
+      this.times = count > 0 ? new long[count] : null;
+    }
+
+    /**
+     * Records a matching event of a rate condition.
+     *
+     * @return whether the last {@code count} events fall within the window; the buffer is then
+     *     cleared so that the next alert needs {@code count} new events
+     */
+    boolean record(long nowMillis, long window) {
+      int capacity = times.length;
+      if (size < capacity) {
+        times[(head + size++) % capacity] = nowMillis;
+      } else {
+        times[head] = nowMillis;
+        head = (head + 1) % capacity;
+      }
+      if (size == capacity && nowMillis - times[head] <= window) {
+        head = 0;
+        size = 0;
+        return true;
+      }
+      return false;
+    }
+  }
+}
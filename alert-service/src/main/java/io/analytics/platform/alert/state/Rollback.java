@@ -0,0 +1,51 @@
+package io.analytics.platform.alert.state;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Undoes the state changes made while evaluating a batch, when its alerts could not be published.
+ *
+ * <p>A failed batch is redelivered; without undoing them, its events would be counted twice by
+ * stateful conditions and its alerts held back as repeats of themselves. The {@link
+ * ConditionTracker} and {@link AlertSuppressor} record how to restore each piece of state they
+ * change, once per batch, and {@link #run()} restores them in reverse order. State changed
+ * meanwhile by others, e.g. expired by the ticker, is left as it is.
+ *
+ * <p>Not thread-safe: one per batch, used by the thread evaluating it.
+ */
+public final class Rollback {
+
+  private final List<Runnable> undos = new ArrayList<>();
+  private final Set<Object> touched = new HashSet<>();
+
+  /**
+   * Marks a piece of state as changed by the batch.
+   *
+   * @param state the state
+   * @return whether it is the first change of that state in the batch, which records its undo
+   */
+  boolean touch(Object state) {
+    return touched.add(state);
+  }
+
+  /**
+   * Records how to undo a change.
+   *
+   * @param undo restores the state; it synchronizes as the state requires
+   */
+  void add(Runnable undo) {
+    undos.add(undo);
+  }
+
+  /** Undoes the recorded changes, latest first, and forgets them. */
+  public void run() {
+    for (int i = undos.size() - 1; i >= 0; i--) {
+      undos.get(i).run();
+    }
+    undos.clear();
+    touched.clear();
+  }
+}
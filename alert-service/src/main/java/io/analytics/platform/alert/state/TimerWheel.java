@@ -0,0 +1,147 @@
+package io.analytics.platform.alert.state;
+
+import java.util.function.Consumer;
+
+/**
+ * A hashed timing wheel of intrusive timers.
+ *
+ * <p>Time is cut into ticks of {@code tickMillis}; a timer due at tick {@code t} sits in slot
+ * {@code t % slots}, in a doubly linked list threaded through the timer itself, so scheduling
+ * and cancelling are O(1) and allocate nothing. {@link #advance} visits the slots of the ticks
+ * elapsed since the previous call, at most one revolution, and fires the timers that are due;
+ * timers more than a revolution away simply stay in their slot until their tick comes. A timer
+ * fires at the first advance at or after its deadline, rounded up to a tick.
+ *
+ * <p>Not thread-safe: the owner serializes all calls.
+ *
+ * @param <T> the timer type
+ */
+final class TimerWheel<T extends TimerWheel.Timer> {
+
+  private final long tickMillis;
+  private final Timer[] slots;
+  private final int mask;
+  private long tick;
+  private int size;
+
+  /**
+   * Creates a wheel.
+   *
+   * @param tickMillis the resolution of the wheel
+   * @param slots the number of slots, rounded up to a power of two
+   * @param nowMillis the current time
+   */
+  TimerWheel(long tickMillis, int slots, long nowMillis) {
+    if (tickMillis <= 0 || slots <= 0) {
+      throw new IllegalArgumentException("tickMillis and slots must be positive");
+    }
+    this.tickMillis = tickMillis;
+    int length = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+    this.slots = new Timer[length];
+    for (int i = 0; i < length; i++) {
+      this.slots[i] = new Timer();
+      this.slots[i].prev = this.slots[i];
+      this.slots[i].next = this.slots[i];
+    }
+    this.mask = length - 1;
+    this.tick = nowMillis / tickMillis;
+  }
+
+  /**
+   * Schedules a timer that is not scheduled yet.
+   *
+   * @param timer the timer
+   * @param deadlineMillis when it is due; a deadline in the past fires at the next advance
+   */
+  void schedule(T timer, long deadlineMillis) {
+    if (timer.isScheduled()) {
+      throw new IllegalStateException("Timer is already scheduled");
+    }
+    long due = Math.max(Math.ceilDiv(deadlineMillis, tickMillis), tick + 1);
+    timer.due = due;
+    Timer head = slots[(int) (due & mask)];
+    timer.prev = head;
+    timer.next = head.next;
+    head.next.prev = timer;
+    head.next = timer;
+    size++;
+  }
+
+  /**
+   * Cancels a timer; does nothing if it is not scheduled.
+   *
+   * @param timer the timer
+   */
+  void cancel(T timer) {
+    if (timer.isScheduled()) {
+      unlink(timer);
+    }
+  }
+
+  /**
+   * Fires the timers due by now, in no particular order.
+   *
+   * @param nowMillis the current time
+   * @param expired receives each due timer, after it is unscheduled; it may schedule it again but
+   *     must not cancel other timers
+   * @return the number of timers fired
+   */
+  @SuppressWarnings("unchecked")
+  int advance(long nowMillis, Consumer<T> expired) {
+    long target = nowMillis / tickMillis;
+    if (target <= tick) {
+      return 0;
+    }
+    long steps = Math.min(target - tick, slots.length);
+    Timer due = null;
+    for (long t = tick + 1; t <= tick + steps; t++) {
+      Timer head = slots[(int) (t & mask)];
+      Timer timer = head.next;
+      while (timer != head) {
+        Timer next = timer.next;
+        if (timer.due <= target) {
+          unlink(timer);
+          timer.next = due;
+          due = timer;
+        }
+        timer = next;
+      }
+    }
+    tick = target;
+    int fired = 0;
+    while (due != null) {
+      Timer next = due.next;
+      due.next = null;
+      expired.accept((T) due);
+      due = next;
+      fired++;
+    }
+    return fired;
+  }
+
+  /** Returns the number of scheduled timers. */
+  int size() {
+    return size;
+  }
+
+  private void unlink(Timer timer) {
+    timer.prev.next = timer.next;
+    timer.next.prev = timer.prev;
+    timer.prev = null;
+    timer.next = null;
+    size--;
+  }
+
+  /** A timer, to be extended by the state it expires. */
+  static class Timer {
+
+    Timer prev;
+    Timer next;
+    long due;
+
+    /** Returns whether the timer is scheduled. */
+    final boolean isScheduled() {
+      return prev != null;
+    }
+  }
+}
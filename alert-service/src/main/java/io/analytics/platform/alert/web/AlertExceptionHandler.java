@@ -0,0 +1,17 @@
+package io.analytics.platform.alert.web;
+
+import io.analytics.platform.alert.rule.InvalidRuleException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/** Maps alert service exceptions to RFC 7807 problem responses. */
+@RestControllerAdvice
+public class AlertExceptionHandler {
+
+  @ExceptionHandler(InvalidRuleException.class)
+  public ProblemDetail handleInvalidRule(InvalidRuleException e) {
+    return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+  }
+}
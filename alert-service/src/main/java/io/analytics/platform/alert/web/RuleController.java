@@ -0,0 +1,39 @@
+package io.analytics.platform.alert.web;
+
+import io.analytics.platform.alert.rule.RuleDefinition;
+import io.analytics.platform.alert.rule.RuleRegistry;
+import java.util.List;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Reads and hot-reloads the alert rules.
+ *
+ * <p>{@code PUT /rules} takes the same rule list as {@code alert.rules} and applies it from the
+ * next batch on. A definition that does not compile is refused with 400 and the running rules
+ * stay in place. Reloads are not persisted: a restart applies the configured rules again.
+ */
+@RestController
+@RequestMapping(path = "/rules", produces = MediaType.APPLICATION_JSON_VALUE)
+public class RuleController {
+
+  private final RuleRegistry registry;
+
+  public RuleController(RuleRegistry registry) {
+    this.registry = registry;
+  }
+
+  @GetMapping
+  public RuleResponse current() {
+    return RuleResponse.from(registry.current());
+  }
+
+  @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+  public RuleResponse reload(@RequestBody List<RuleDefinition> rules) {
+    return RuleResponse.from(registry.reload(rules));
+  }
+}
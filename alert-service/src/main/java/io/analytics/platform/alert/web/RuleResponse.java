@@ -0,0 +1,24 @@
+package io.analytics.platform.alert.web;
+
+import io.analytics.platform.alert.rule.RuleDefinition;
+import io.analytics.platform.alert.rule.RuleSet;
+import java.util.List;
+
+/**
+ * The alert rules currently evaluated.
+ *
+ * @param version incremented by every successful reload
+ * @param rules the definition the rules were compiled from
+ */
+public record RuleResponse(long version, List<RuleDefinition> rules) {
+
+  /**
+   * Describes a compiled rule set.
+   *
+   * @param rules the rule set
+   * @return the response body
+   */
+  public static RuleResponse from(RuleSet rules) {
+    return new RuleResponse(rules.version(), rules.definitions());
+  }
+}
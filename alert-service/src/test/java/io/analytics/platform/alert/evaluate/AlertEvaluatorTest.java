@@ -0,0 +1,380 @@
+package io.analytics.platform.alert.evaluate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpServer;
+import io.analytics.platform.alert.config.AlertProperties;
+import io.analytics.platform.alert.notify.ConsoleNotifier;
+import io.analytics.platform.alert.notify.NotificationDispatcher;
+import io.analytics.platform.alert.notify.WebhookNotifier;
+import io.analytics.platform.alert.rule.RuleDefinition;
+import io.analytics.platform.alert.rule.RuleDefinition.Condition;
+import io.analytics.platform.alert.rule.RuleDefinition.Predicate;
+import io.analytics.platform.alert.rule.RuleRegistry;
+import io.analytics.platform.alert.state.AlertSuppressor;
+import io.analytics.platform.alert.state.ConditionTracker;
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.util.JsonCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+/** Unit tests for {@link AlertEvaluator} class. */
+class AlertEvaluatorTest {
+
+  private static final String INPUT = "processing.processed.v1";
+
+  private final RecordingTemplate template = new RecordingTemplate();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final RuleRegistry rules =
+      new RuleRegistry(
+          List.of(
+              new RuleDefinition(
+                  "hot", "Too hot", Predicate.value("gt", 90), null, null, "critical"),
+              new RuleDefinition(
+                  "eu",
+                  "Event from eu",
+                  new Predicate(null, Map.of("region", "eu"), null, null, null),
+                  null,
+                  null,
+                  "low")));
+  private final MutableClock clock = new MutableClock();
+  private final ConditionTracker conditions =
+      new ConditionTracker(Duration.ofSeconds(1), 100, clock.millis());
+  private final NotificationDispatcher notifications =
+      new NotificationDispatcher(List.of(new ConsoleNotifier()), settings(100), registry);
+  private final AlertEvaluator evaluator =
+      evaluator(new AlertSuppressor(Duration.ZERO, List.of(), 100));
+
+  /** Tests that every rule an event fires publishes one alert keyed by rule ID. */
+  @Test
+  void evaluate_publishesAlertPerFiredRule() throws Exception {
+    evaluator.evaluate(
+        List.of(
+            record(0, event("a", 95.0, Map.of("region", "eu"))),
+            record(1, event("b", 10.0, Map.of("region", "us"))),
+            record(2, event("c", 91.0, Map.of()))));
+
+    List<String> keys = template.sent.stream().map(ProducerRecord::key).sorted().toList();
+    assertEquals(List.of("eu", "hot", "hot"), keys);
+    ProducerRecord<String, byte[]> first = template.sent.get(0);
+    assertEquals("alerts.triggered.v1", first.topic());
+    AlertEvent alert = JsonCodec.ALERT_EVENT.decode(template.sent.get(2).value());
+    assertEquals("hot", alert.ruleId());
+    assertEquals("CRITICAL", alert.severity());
+    assertEquals(
+        2.0, registry.get("alert.triggered").tag("severity", "CRITICAL").counter().count());
+    assertEquals(3.0, registry.get("alert.events").tag("outcome", "evaluated").counter().count());
+  }
+
+  /** Tests that an undecodable record is skipped without failing the batch. */
+  @Test
+  void evaluate_skipsUndecodableRecord() throws Exception {
+    byte[] garbage = "{\"id\": oops".getBytes(StandardCharsets.UTF_8);
+
+    evaluator.evaluate(
+        List.of(
+            new ConsumerRecord<>(INPUT, 0, 0, "k", garbage),
+            record(1, event("a", 95.0, Map.of()))));
+
+    assertEquals(1, template.sent.size());
+    assertEquals(
+        1.0, registry.get("alert.events").tag("outcome", "undecodable").counter().count());
+  }
+
+  /** Tests that a failed alert send fails the batch so that it is redelivered. */
+  @Test
+  void evaluate_failsBatchOnFailedSend() {
+    template.failure = new IllegalStateException("broker down");
+
+    assertThrows(
+        IllegalStateException.class,
+        () -> evaluator.evaluate(List.of(record(0, event("a", 95.0, Map.of())))));
+  }
+
+  /**
+   * Tests that a batch whose alert failed to send notifies nothing and, redelivered, publishes the
+   * alert rather than suppress it as a repeat.
+   */
+  @Test
+  void evaluate_publishesAlertOfRedeliveredBatch() throws Exception {
+    AlertEvaluator suppressing =
+        evaluator(new AlertSuppressor(Duration.ofMinutes(1), List.of("region"), 100));
+    List<ConsumerRecord<String, byte[]>> batch =
+        List.of(record(0, event("a", 95.0, Map.of("region", "us"))));
+    template.failure = new IllegalStateException("broker down");
+
+    assertThrows(IllegalStateException.class, () -> suppressing.evaluate(batch));
+    assertEquals(0.0, registry.get("alert.notifications.queued").gauge().value());
+
+    template.failure = null;
+    clock.advance(Duration.ofSeconds(1));
+    suppressing.evaluate(batch);
+
+    assertEquals(2, template.sent.size());
+    assertEquals("hot", template.sent.get(1).key());
+    assertEquals(1.0, registry.get("alert.notifications.queued").gauge().value());
+  }
+
+  /**
+   * Tests that evaluation publishes every alert while the webhook stalls on its first call: the
+   * stub holds its response until the batch is evaluated, and the alerts that do not fit in the
+   * notification buffer are dropped rather than waited for.
+   */
+  @Test
+  void evaluate_finishesWhileWebhookIsStalled() throws Exception {
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+    HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext(
+        "/hook",
+        exchange -> {
+          calls.incrementAndGet();
+          exchange.getRequestBody().readAllBytes();
+          entered.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          exchange.sendResponseHeaders(200, -1);
+          exchange.close();
+        });
+    server.start();
+    URI url = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/hook");
+    NotificationDispatcher stalled =
+        new NotificationDispatcher(
+            List.of(new WebhookNotifier(url, Duration.ofSeconds(5))), settings(10), registry);
+    AlertEvaluator evaluating =
+        evaluator(new AlertSuppressor(Duration.ZERO, List.of(), 100), stalled);
+    List<ConsumerRecord<String, byte[]>> batch = new ArrayList<>();
+    for (int i = 1; i <= 1000; i++) {
+      batch.add(record(i, event("e" + i, 95.0, Map.of())));
+    }
+    stalled.start();
+    try {
+      evaluating.evaluate(List.of(record(0, event("first", 95.0, Map.of()))));
+      assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+      assertTimeoutPreemptively(Duration.ofSeconds(10), () -> evaluating.evaluate(batch));
+
+      assertEquals(1, calls.get());
+      assertEquals(1001, template.sent.size());
+      assertEquals(
+          990.0,
+          registry
+              .get("alert.notifications")
+              .tags("notifier", "webhook", "outcome", "dropped")
+              .counter()
+              .count());
+    } finally {
+      release.countDown();
+      stalled.stop();
+      server.stop(0);
+    }
+  }
+
+  /** Tests that reloaded rules apply from the next batch. */
+  @Test
+  void evaluate_usesReloadedRules() throws Exception {
+    rules.reload(
+        List.of(new RuleDefinition("cold", null, Predicate.value("lt", 0), null, null, "medium")));
+
+    evaluator.evaluate(List.of(record(0, event("a", -5.0, Map.of("region", "eu")))));
+
+    assertEquals(1, template.sent.size());
+    assertEquals("cold", template.sent.get(0).key());
+  }
+
+  /** Tests that a rate rule alerts once enough events of a group arrive within its window. */
+  @Test
+  void evaluate_alertsOnRateOfGroup() throws Exception {
+    rules.reload(
+        List.of(
+            new RuleDefinition(
+                "busy",
+                null,
+                null,
+                "value > 50",
+                new Condition("rate", Duration.ofMinutes(1), 3, List.of("region")),
+                "medium")));
+
+    evaluator.evaluate(
+        List.of(
+            record(0, event("a", 95.0, Map.of("region", "eu"))),
+            record(1, event("b", 95.0, Map.of("region", "us"))),
+            record(2, event("c", 10.0, Map.of("region", "eu"))),
+            record(3, event("d", 95.0, Map.of("region", "eu")))));
+    assertTrue(template.sent.isEmpty());
+    clock.advance(Duration.ofSeconds(30));
+    evaluator.evaluate(List.of(record(4, event("e", 95.0, Map.of("region", "eu")))));
+
+    assertEquals(1, template.sent.size());
+    AlertEvent alert = JsonCodec.ALERT_EVENT.decode(template.sent.get(0).value());
+    assertEquals("busy (3 events within 1m, region=eu, last event e)", alert.message());
+    assertEquals(2.0, registry.get("alert.state.groups").gauge().value());
+  }
+
+  /** Tests that the tick publishes the alert of a group gone silent. */
+  @Test
+  void tick_publishesAbsenceAlert() throws Exception {
+    rules.reload(
+        List.of(
+            new RuleDefinition(
+                "silent",
+                "Sensor silent",
+                null,
+                "source == 'processor-service'",
+                new Condition("absence", Duration.ofSeconds(10), null, null),
+                "high")));
+    evaluator.evaluate(List.of(record(0, event("a", 1.0, Map.of()))));
+
+    clock.advance(Duration.ofSeconds(5));
+    assertEquals(0, evaluator.tick());
+    clock.advance(Duration.ofSeconds(6));
+    assertEquals(1, evaluator.tick());
+
+    assertEquals("silent", template.sent.get(0).key());
+    assertEquals(
+        1.0, registry.get("alert.triggered").tag("severity", "HIGH").counter().count());
+    assertEquals(0.0, registry.get("alert.state.timers").gauge().value());
+  }
+
+  /** Tests that repeats of a rule and group are held back and then summarized. */
+  @Test
+  void evaluate_suppressesRepeatsWithinCooldown() throws Exception {
+    AlertSuppressor suppressor =
+        new AlertSuppressor(Duration.ofMinutes(1), List.of("region"), 100);
+    AlertEvaluator suppressing = evaluator(suppressor);
+
+    suppressing.evaluate(
+        List.of(
+            record(0, event("a", 95.0, Map.of("region", "us"))),
+            record(1, event("b", 96.0, Map.of("region", "us"))),
+            record(2, event("c", 97.0, Map.of("region", "us")))));
+    assertEquals(1, template.sent.size());
+    clock.advance(Duration.ofMinutes(1));
+    assertEquals(1, suppressing.tick());
+
+    AlertEvent summary = JsonCodec.ALERT_EVENT.decode(template.sent.get(1).value());
+    assertEquals("hot", summary.ruleId());
+    assertTrue(summary.message().startsWith("3 occurrences in last 1m: Too hot (value 97.0"));
+    assertEquals(2, suppressor.suppressed());
+    assertEquals(2.0, registry.get("alert.notifications.queued").gauge().value());
+  }
+
+  private AlertEvaluator evaluator(AlertSuppressor suppressor) {
+    return evaluator(suppressor, notifications);
+  }
+
+  private AlertEvaluator evaluator(
+      AlertSuppressor suppressor, NotificationDispatcher notifications) {
+    return new AlertEvaluator(
+        rules,
+        template,
+        "alerts.triggered.v1",
+        Duration.ofSeconds(5),
+        new AlertMetrics(
+            registry, () -> rules.current().index().rules().size(), conditions, suppressor),
+        conditions,
+        suppressor,
+        notifications,
+        clock);
+  }
+
+  private static AlertProperties.Notifications settings(int capacity) {
+    return new AlertProperties.Notifications(
+        true,
+        null,
+        Duration.ofSeconds(5),
+        capacity,
+        10,
+        1,
+        Duration.ZERO,
+        Duration.ZERO,
+        5,
+        Duration.ofSeconds(1),
+        Duration.ofSeconds(30));
+  }
+
+  private static ProcessedEvent event(String id, double value, Map<String, Object> tags) {
+    return new ProcessedEvent(
+        id, Instant.parse("2025-09-12T12:00:00Z"), value, tags, Map.of(), "processor-service");
+  }
+
+  private static ConsumerRecord<String, byte[]> record(long offset, ProcessedEvent event) {
+    return new ConsumerRecord<>(
+        INPUT, 0, offset, event.id(), JsonCodec.PROCESSED_EVENT.encode(event));
+  }
+
+  /** A clock moved forward by the test. */
+  private static final class MutableClock extends Clock {
+
+    private Instant now = Instant.parse("2025-09-12T12:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+
+  /** Records sent records and acknowledges them at once, or fails them. */
+  private static final class RecordingTemplate extends KafkaTemplate<String, byte[]> {
+
+    final List<ProducerRecord<String, byte[]>> sent = new ArrayList<>();
+    volatile RuntimeException failure;
+
+    RecordingTemplate() {
+      super(new DefaultKafkaProducerFactory<>(Map.of()));
+    }
+
+    @Override
+    public synchronized CompletableFuture<SendResult<String, byte[]>> send(
+        ProducerRecord<String, byte[]> record) {
+      sent.add(record);
+      if (failure != null) {
+        return CompletableFuture.failedFuture(failure);
+      }
+      RecordMetadata metadata =
+          new RecordMetadata(new TopicPartition(record.topic(), 0), sent.size(), 0, 0L, 0, 0);
+      return CompletableFuture.completedFuture(new SendResult<>(record, metadata));
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package io.analytics.platform.alert.expression;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link Expression} class. */
+class ExpressionTest {
+
+  private static final Instant TS = Instant.parse("2025-09-12T12:00:00Z");
+
+  /** Tests fields, tag conversions, functions and operator precedence on known events. */
+  @Test
+  void compile_evaluatesFieldsAndFunctions() {
+    ProcessedEvent event =
+        new ProcessedEvent(
+            "evt-7",
+            TS,
+            42.0,
+            Map.of("region", "EU-west", "load", "0.75", "rack", 7, "flag", true),
+            Map.of("priority", 3),
+            "sensor");
+
+    assertHolds(true, "value == 42 && source == 'sensor' && id == \"evt-7\"", event);
+    assertHolds(true, "tags.load > 0.5 && tags.rack == 7 && tags.rack == '7'", event);
+    assertHolds(true, "tags.flag && !(tags.missing) && not exists(tags.missing)", event);
+    assertHolds(true, "lower(tags.region) == 'eu-west' && startsWith(tags.region, 'EU')", event);
+    assertHolds(true, "abs(value - 50) * 2 + 1 == 17 && max(value, meta.priority) == 42", event);
+    assertHolds(true, "value > 100 || value < 50 and source in ('a', 'sensor')", event);
+    assertHolds(true, "value % 5 in (2, 3) && tags['rack'] >= 7 && tags.missing != 'x'", event);
+    assertHolds(false, "tags.missing > 0 || tags.missing < 0 || tags.region > 0", event);
+    assertHolds(false, "tags.missing == 'x' || contains(tags.missing, '')", event);
+    assertHolds(false, "-value >= 0 || 1 + 2 * 3 != 7", event);
+  }
+
+  /** Tests that malformed and ill-typed expressions report the column at fault. */
+  @Test
+  void parse_reportsErrorColumn() {
+    assertError("unexpected end of expression at column 8", "value >");
+    assertError("unknown field 'valu' at column 1", "valu > 1");
+    assertError("cannot compare a number with text at column 7", "value > 'high'");
+    assertError("expected a condition but found a number at column 1", "value + 1");
+    assertError("expected a number but found text at column 5", "abs(source) > 1");
+    assertError("use '==' to compare at column 8", "source = 'a'");
+    assertError("min takes 2 arguments but was given 1 at column 1", "min(value) > 0");
+    assertError("unknown function 'avg' at column 1", "avg(value) > 0");
+    assertError("expected ')' but found end of expression at column 11", "(value > 1");
+    assertError("unterminated text at column 11", "source == 'a");
+    assertError("in lists cannot mix numbers and text at column 14", "value in (1, 'a')");
+    assertError(
+        "conditions can only be compared with == and != at column 17", "tags.a && (true > false)");
+    assertError("expression is empty at column 1", " ");
+    ExpressionException e =
+        assertThrows(ExpressionException.class, () -> Expression.parse("(".repeat(200) + "1"));
+    assertTrue(e.getMessage().startsWith("expression nests deeper than"));
+  }
+
+  /** Tests that the compiled form agrees with the interpreter on random events. */
+  @Test
+  void compile_agreesWithInterpreter() {
+    List<String> expressions =
+        List.of(
+            "value > 10 && tags.region == 'r1'",
+            "value >= tags.load * 10 || meta.priority in (1, 3)",
+            "not (source == 's1' or value != 0) and tags.flag",
+            "tags.flag == true && tags.load != 0.5",
+            "abs(value) / 2 - min(tags.load, 1) <= max(meta.priority, -1) % 3",
+            "lower(tags.region) < 'r2' && endsWith(id, '1')",
+            "contains(id, meta.priority) || startsWith(tags.region, 'r3')",
+            "(tags.region in ('r0', 'r3')) != (value < 0)",
+            "exists(meta.priority) && -value > 5 && tags.load < tags.region");
+    SplittableRandom random = new SplittableRandom(11);
+    for (String text : expressions) {
+      Expression expression = Expression.parse(text);
+      Predicate<ProcessedEvent> compiled = expression.compile();
+      int held = 0;
+      for (int i = 0; i < 2000; i++) {
+        ProcessedEvent event = randomEvent(random, i);
+        boolean expected = expression.interpret(event);
+        assertEquals(expected, compiled.test(event), text + " on " + event);
+        held += expected ? 1 : 0;
+      }
+      assertTrue(held > 0, text);
+    }
+  }
+
+  /** Tests that indexable conditions are split from the residual ones. */
+  @Test
+  void split_extractsIndexableConditions() {
+    Expression.Split split =
+        Expression.parse(
+                "source == 'sensor' && 'eu' == tags.region && value > 5 && 10 >= value"
+                    + " && tags.region == 'us' && abs(meta.delta) > 1")
+            .split();
+
+    assertEquals("sensor", split.source());
+    assertEquals(Map.of("region", "eu"), split.tags());
+    assertEquals(Math.nextUp(5.0), split.low());
+    assertEquals(10.0, split.high());
+    ProcessedEvent event =
+        new ProcessedEvent("e", TS, 7.0, Map.of("region", "us"), Map.of("delta", -2), "sensor");
+    assertTrue(split.residual().compile().test(event));
+
+    Expression.Split none = Expression.parse("value > 5 || source == 'a'").split();
+    assertNull(none.source());
+    assertEquals(Map.of(), none.tags());
+    assertFalse(none.hasRange());
+    assertNotNull(none.residual());
+
+    Expression.Split full = Expression.parse("value != 1 && value == 3").split();
+    assertEquals(3.0, full.low());
+    assertEquals(3.0, full.high());
+    assertNotNull(full.residual());
+    assertNull(Expression.parse("value < 3").split().residual());
+  }
+
+  private static ProcessedEvent randomEvent(SplittableRandom random, int i) {
+    Map<String, Object> tags = new HashMap<>();
+    if (random.nextInt(4) > 0) {
+      tags.put("region", "r" + random.nextInt(4));
+    }
+    switch (random.nextInt(4)) {
+      case 0 -> tags.put("load", random.nextDouble());
+      case 1 -> tags.put("load", String.valueOf(random.nextInt(3) / 2.0));
+      case 2 -> tags.put("load", "high");
+      default -> {}
+    }
+    if (random.nextBoolean()) {
+      tags.put("flag", random.nextBoolean() ? Boolean.TRUE : "TRUE");
+    }
+    Map<String, Object> meta = new HashMap<>();
+    if (random.nextBoolean()) {
+      meta.put("priority", random.nextInt(-2, 5));
+    }
+    Double value = random.nextInt(10) == 0 ? null : (double) random.nextInt(-20, 20);
+    return new ProcessedEvent("e" + i, TS, value, tags, meta, "s" + random.nextInt(3));
+  }
+
+  private static void assertHolds(boolean expected, String text, ProcessedEvent event) {
+    Expression expression = Expression.parse(text);
+    assertEquals(expected, expression.compile().test(event), text);
+    assertEquals(expected, expression.interpret(event), text);
+  }
+
+  private static void assertError(String message, String text) {
+    ExpressionException e = assertThrows(ExpressionException.class, () -> Expression.parse(text));
+    assertEquals(message, e.getMessage());
+  }
+}
@@ -0,0 +1,69 @@
+package io.analytics.platform.alert.notify;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link CircuitBreaker} class. */
+class CircuitBreakerTest {
+
+  private static final long FAST = Duration.ofMillis(10).toNanos();
+  private static final long SLOW = Duration.ofSeconds(3).toNanos();
+
+  private final AtomicLong now = new AtomicLong();
+  private final CircuitBreaker breaker =
+      new CircuitBreaker(3, Duration.ofSeconds(1), Duration.ofSeconds(30), now::get);
+
+  /** Tests that failures and slow calls in a row open the breaker, and a success resets them. */
+  @Test
+  void record_opensAfterFailuresInARow() {
+    breaker.record(false, FAST);
+    breaker.record(true, SLOW);
+    breaker.record(true, FAST);
+    assertTrue(breaker.allow());
+
+    breaker.record(false, FAST);
+    breaker.record(true, SLOW);
+    breaker.record(false, FAST);
+
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    assertFalse(breaker.allow());
+  }
+
+  /** Tests that an open breaker half-opens after its delay and closes on a fast success. */
+  @Test
+  void allow_halfOpensAfterDelay() {
+    open();
+    now.addAndGet(Duration.ofSeconds(29).toNanos());
+    assertFalse(breaker.allow());
+    now.addAndGet(Duration.ofSeconds(1).toNanos());
+
+    assertTrue(breaker.allow());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+    breaker.record(true, FAST);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+  }
+
+  /** Tests that a single failure of a half-open breaker reopens it for a full delay. */
+  @Test
+  void record_reopensOnHalfOpenFailure() {
+    open();
+    now.addAndGet(Duration.ofSeconds(30).toNanos());
+    assertTrue(breaker.allow());
+
+    breaker.record(true, SLOW);
+
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    now.addAndGet(Duration.ofSeconds(29).toNanos());
+    assertFalse(breaker.allow());
+  }
+
+  private void open() {
+    for (int i = 0; i < 3; i++) {
+      breaker.record(false, FAST);
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+  }
+}
@@ -0,0 +1,294 @@
+package io.analytics.platform.alert.notify;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpServer;
+import io.analytics.platform.alert.config.AlertProperties;
+import io.analytics.platform.common.dto.AlertEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link NotificationDispatcher} class. */
+class NotificationDispatcherTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final AtomicInteger calls = new AtomicInteger();
+  private final CountDownLatch entered = new CountDownLatch(1);
+  private volatile CountDownLatch release = new CountDownLatch(0);
+  private NotificationDispatcher dispatcher;
+  private HttpServer server;
+
+  @AfterEach
+  void stop() {
+    release.countDown();
+    if (dispatcher != null) {
+      dispatcher.stop();
+    }
+    if (server != null) {
+      server.stop(0);
+    }
+  }
+
+  /** Tests that buffered alerts are delivered in order, in batches of at most the batch size. */
+  @Test
+  void submit_deliversInBatches() throws Exception {
+    Recording recording = new Recording(10);
+    dispatcher = new NotificationDispatcher(List.of(recording), settings(100, 3, 2), registry);
+    for (int i = 0; i < 10; i++) {
+      assertTrue(dispatcher.submit(alert(i)));
+    }
+
+    dispatcher.start();
+
+    assertTrue(recording.done.await(5, TimeUnit.SECONDS));
+    assertTrue(recording.batches.stream().allMatch(batch -> batch.size() <= 4));
+    assertEquals(alert(0), recording.batches.get(0).get(0));
+    await(() -> count("recording", "delivered") == 10.0);
+  }
+
+  /** Tests that a failed call is retried and the batch then delivered. */
+  @Test
+  void submit_retriesFailedCalls() throws Exception {
+    Recording recording = new Recording(1);
+    Notifier flaky =
+        new Notifier() {
+          @Override
+          public String name() {
+            return "flaky";
+          }
+
+          @Override
+          public void deliver(List<AlertEvent> alerts) throws IOException {
+            if (calls.incrementAndGet() < 3) {
+              throw new IOException("refused");
+            }
+            recording.deliver(alerts);
+          }
+        };
+    dispatcher = new NotificationDispatcher(List.of(flaky), settings(100, 3, 5), registry);
+
+    dispatcher.start();
+    dispatcher.submit(alert(0));
+
+    assertTrue(recording.done.await(5, TimeUnit.SECONDS));
+    assertEquals(3, calls.get());
+    await(() -> count("flaky", "delivered") == 1.0);
+    assertEquals(
+        2.0,
+        registry.get("alert.notifications.retries").tag("notifier", "flaky").counter().count());
+  }
+
+  /** Tests that a failing destination opens its breaker without delaying the others. */
+  @Test
+  void submit_isolatesFailingDestination() throws Exception {
+    Recording recording = new Recording(20);
+    Notifier failing =
+        new Notifier() {
+          @Override
+          public String name() {
+            return "failing";
+          }
+
+          @Override
+          public void deliver(List<AlertEvent> alerts) throws IOException {
+            calls.incrementAndGet();
+            throw new IOException("down");
+          }
+        };
+    dispatcher =
+        new NotificationDispatcher(List.of(failing, recording), settings(100, 3, 2), registry);
+
+    dispatcher.start();
+    for (int i = 0; i < 20; i++) {
+      dispatcher.submit(alert(i));
+      Thread.sleep(1);
+    }
+
+    assertTrue(recording.done.await(5, TimeUnit.SECONDS));
+    await(() -> circuit("failing") == 2.0 && count("failing", "rejected") > 0);
+    assertEquals(2, calls.get());
+    assertEquals(0.0, circuit("recording"));
+  }
+
+  /** Tests that a webhook answering 503 is retried until it answers 200. */
+  @Test
+  void submit_retriesWebhookUntilItRecovers() throws Exception {
+    WebhookNotifier webhook = webhook(() -> calls.get() < 3 ? 503 : 200);
+    dispatcher = new NotificationDispatcher(List.of(webhook), settings(100, 3, 5), registry);
+
+    dispatcher.start();
+    dispatcher.submit(alert(0));
+
+    await(() -> count("webhook", "delivered") == 1.0);
+    assertEquals(3, calls.get());
+    assertEquals(
+        2.0,
+        registry.get("alert.notifications.retries").tag("notifier", "webhook").counter().count());
+    assertEquals(0.0, circuit("webhook"));
+  }
+
+  /**
+   * Tests that a slow webhook leaves submission unblocked, drops overflow and opens its breaker.
+   * The stub holds its first response until every alert is submitted, and each call advances the
+   * dispatcher clock past the slow call threshold rather than taking that long.
+   */
+  @Test
+  void submit_staysUnblockedBySlowWebhook() throws Exception {
+    AtomicLong nanoTime = new AtomicLong();
+    release = new CountDownLatch(1);
+    WebhookNotifier webhook =
+        webhook(
+            () -> {
+              nanoTime.addAndGet(Duration.ofMillis(300).toNanos());
+              return 200;
+            });
+    dispatcher =
+        new NotificationDispatcher(List.of(webhook), settings(50, 1, 2), registry, nanoTime::get);
+    dispatcher.start();
+    assertTrue(dispatcher.submit(alert(0)));
+    assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+    int buffered = 1;
+    for (int i = 1; i < 100_000; i++) {
+      buffered += dispatcher.submit(alert(i)) ? 1 : 0;
+    }
+
+    // Every submission returned while the first call was still held
+    assertEquals(1, calls.get());
+    assertEquals(51, buffered);
+    assertEquals(100_000.0 - buffered, count("webhook", "dropped"));
+    release.countDown();
+    await(() -> circuit("webhook") == 2.0 && count("webhook", "rejected") == 46.0);
+    assertEquals(2, calls.get());
+    assertEquals(5.0, count("webhook", "delivered"));
+  }
+
+  /** Tests that alerts beyond the buffer capacity are dropped and counted. */
+  @Test
+  void submit_dropsWhenBufferIsFull() {
+    dispatcher =
+        new NotificationDispatcher(List.of(new Recording(1)), settings(2, 3, 5), registry);
+
+    assertTrue(dispatcher.submit(alert(0)));
+    assertTrue(dispatcher.submit(alert(1)));
+    assertFalse(dispatcher.submit(alert(2)));
+
+    assertEquals(1.0, count("recording", "dropped"));
+    assertEquals(2.0, registry.get("alert.notifications.queued").gauge().value());
+  }
+
+  /** Tests that retry pauses are jittered below the doubled, capped backoff. */
+  @Test
+  void backoff_isJitteredAndCapped() {
+    Destination destination = new Destination(new Recording(1), settings(1, 5, 5), registry);
+
+    for (int retry = 1; retry <= 8; retry++) {
+      long ceiling = Math.min(50, 5L << (retry - 1));
+      for (int i = 0; i < 100; i++) {
+        long pause = destination.backoff(retry);
+        assertTrue(pause >= 0 && pause <= ceiling, retry + ": " + pause);
+      }
+    }
+  }
+
+  private double count(String notifier, String outcome) {
+    return registry
+        .get("alert.notifications")
+        .tags("notifier", notifier, "outcome", outcome)
+        .counter()
+        .count();
+  }
+
+  private double circuit(String notifier) {
+    return registry.get("alert.notifications.circuit").tag("notifier", notifier).gauge().value();
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "condition not met in time");
+      Thread.sleep(10);
+    }
+  }
+
+  /**
+   * Starts a webhook stub that counts its calls, holds each response until {@link #release} opens
+   * and answers with the given status.
+   */
+  private WebhookNotifier webhook(IntSupplier status) throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext(
+        "/hook",
+        exchange -> {
+          calls.incrementAndGet();
+          exchange.getRequestBody().readAllBytes();
+          entered.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          exchange.sendResponseHeaders(status.getAsInt(), -1);
+          exchange.close();
+        });
+    server.start();
+    URI url = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/hook");
+    return new WebhookNotifier(url, Duration.ofSeconds(5));
+  }
+
+  /** Settings with short pauses, a 100 ms slow call threshold and a breaker that stays open. */
+  private static AlertProperties.Notifications settings(
+      int capacity, int maxAttempts, int failureThreshold) {
+    return new AlertProperties.Notifications(
+        true,
+        null,
+        Duration.ofSeconds(5),
+        capacity,
+        4,
+        maxAttempts,
+        Duration.ofMillis(5),
+        Duration.ofMillis(50),
+        failureThreshold,
+        Duration.ofMillis(100),
+        Duration.ofMinutes(1));
+  }
+
+  private static AlertEvent alert(int i) {
+    return new AlertEvent("rule-" + i, "Alert " + i, "LOW");
+  }
+
+  /** Records the batches delivered until a number of alerts have arrived. */
+  private static final class Recording implements Notifier {
+
+    final List<List<AlertEvent>> batches = new ArrayList<>();
+    final CountDownLatch done;
+
+    Recording(int alerts) {
+      done = new CountDownLatch(alerts);
+    }
+
+    @Override
+    public String name() {
+      return "recording";
+    }
+
+    @Override
+    public synchronized void deliver(List<AlertEvent> alerts) {
+      batches.add(List.copyOf(alerts));
+      alerts.forEach(alert -> done.countDown());
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package io.analytics.platform.alert.notify;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpServer;
+import io.analytics.platform.common.dto.AlertEvent;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link WebhookNotifier} class. */
+class WebhookNotifierTest {
+
+  private final AtomicReference<String> body = new AtomicReference<>();
+  private final AtomicInteger status = new AtomicInteger(200);
+  private HttpServer server;
+  private WebhookNotifier notifier;
+
+  @BeforeEach
+  void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext(
+        "/hook",
+        exchange -> {
+          body.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+          exchange.sendResponseHeaders(status.get(), -1);
+          exchange.close();
+        });
+    server.start();
+    URI url = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/hook");
+    notifier = new WebhookNotifier(url, Duration.ofSeconds(5));
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.stop(0);
+  }
+
+  /** Tests that a batch is posted as one JSON array. */
+  @Test
+  void deliver_postsJsonArray() throws Exception {
+    notifier.deliver(
+        List.of(new AlertEvent("hot", "Too hot", "HIGH"), new AlertEvent("cold", "Cold", "LOW")));
+
+    String json = body.get();
+    assertTrue(json.startsWith("[{"), json);
+    assertTrue(json.endsWith("}]"), json);
+    assertTrue(json.contains("\"ruleId\":\"hot\""), json);
+    assertTrue(json.contains("\"ruleId\":\"cold\""), json);
+  }
+
+  /** Tests that a status other than 2xx fails the delivery. */
+  @Test
+  void deliver_failsOnErrorStatus() {
+    status.set(503);
+
+    IOException e =
+        assertThrows(
+            IOException.class,
+            () -> notifier.deliver(List.of(new AlertEvent("hot", "Too hot", "HIGH"))));
+    assertTrue(e.getMessage().contains("503"), e.getMessage());
+  }
+}
@@ -0,0 +1,169 @@
+package io.analytics.platform.alert.rule;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.alert.rule.RuleDefinition.Condition;
+import io.analytics.platform.alert.rule.RuleDefinition.Predicate;
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link RuleCompiler} class. */
+class RuleCompilerTest {
+
+  /** Tests that a compiled rule raises an alert with its ID, severity and description. */
+  @Test
+  void compile_buildsAlertOfRule() {
+    RuleSet rules =
+        RuleCompiler.compile(
+            List.of(
+                new RuleDefinition(
+                    "hot", "Too hot", Predicate.value("gt", 90), null, null, " high ")),
+            3);
+    Rule rule = rules.index().rules().get(0);
+    ProcessedEvent event =
+        new ProcessedEvent(
+            "evt-1", Instant.parse("2025-09-12T12:00:00Z"), 95.0, Map.of(), Map.of(), "sensor");
+
+    AlertEvent alert = rule.alert(event);
+
+    assertEquals(3, rules.version());
+    assertEquals(AlertEvent.Severity.HIGH, rule.severity());
+    assertEquals("hot", alert.ruleId());
+    assertEquals("HIGH", alert.severity());
+    assertTrue(alert.message().startsWith("Too hot (value 95.0, source sensor, event evt-1"));
+    alert.validate();
+  }
+
+  /** Tests that an expression rule indexes its source, tag and value conditions. */
+  @Test
+  void compile_splitsExpressionRule() {
+    String expression =
+        "source == 'sensor' && value > 90 && tags.region == 'eu' && meta.priority >= 2";
+    Rule rule =
+        RuleCompiler.compile(
+                List.of(new RuleDefinition("hot", null, null, expression, null, "critical")), 1)
+            .index()
+            .rules()
+            .get(0);
+
+    assertEquals("sensor", rule.source());
+    assertEquals(Map.of("region", "eu"), rule.tags());
+    assertEquals(1, rule.rangeCount());
+    assertEquals(Math.nextUp(90.0), rule.low(0));
+    assertEquals(Double.POSITIVE_INFINITY, rule.high(0));
+    assertTrue(rule.hasResidual());
+    assertTrue(rule.matches(event(95, Map.of("priority", 2))));
+    assertFalse(rule.matches(event(95, Map.of("priority", 1))));
+    assertFalse(rule.matches(event(90, Map.of("priority", 2))));
+    assertTrue(rule.alert(event(95, Map.of())).message().startsWith("hot (value 95.0"));
+  }
+
+  /** Tests that malformed rules are refused with the position of the rule. */
+  @Test
+  void compile_rejectsMalformedRules() {
+    Predicate any = new Predicate(null, null, null, null, null);
+    assertInvalid("Rule 1: ruleId", new RuleDefinition(" ", null, any, null, null, "LOW"));
+    assertInvalid(
+        "Rule 1: unknown severity", new RuleDefinition("a", null, any, null, null, "urgent"));
+    assertInvalid("Rule 1: exactly one", new RuleDefinition("a", null, null, null, null, "LOW"));
+    assertInvalid(
+        "Rule 1: exactly one", new RuleDefinition("a", null, any, "value > 1", null, "LOW"));
+    assertInvalid(
+        "Rule 1: expression: unknown field 'valu' at column 1",
+        new RuleDefinition("a", null, null, "valu > 1", null, "LOW"));
+    assertInvalid(
+        "Rule 1: unknown operator",
+        new RuleDefinition("a", null, Predicate.value("above", 1), null, null, "LOW"));
+    assertInvalid(
+        "Rule 1: value must be",
+        new RuleDefinition(
+            "a", null, new Predicate(null, null, "gt", null, null), null, null, "LOW"));
+    assertInvalid(
+        "Rule 1: between",
+        new RuleDefinition(
+            "a", null, new Predicate(null, null, "between", 5.0, 1.0), null, null, "LOW"));
+    assertInvalid(
+        "Rule 1: value must be",
+        new RuleDefinition("a", null, Predicate.value("lt", Double.NaN), null, null, "LOW"));
+    assertInvalid(
+        "Rule 2: duplicate",
+        new RuleDefinition("a", null, any, null, null, "LOW"),
+        new RuleDefinition("a", null, any, null, null, "LOW"));
+  }
+
+  /** Tests that a stateful rule indexes its scope only and tests its value in its condition. */
+  @Test
+  void compile_movesValueConditionsOfStatefulRule() {
+    Condition condition = new Condition("Rate", Duration.ofMinutes(1), 5, List.of("region"));
+    Rule rule =
+        RuleCompiler.compile(
+                List.of(
+                    new RuleDefinition(
+                        "flapping",
+                        null,
+                        null,
+                        "source == 'sensor' && value > 90",
+                        condition,
+                        "low")),
+                1)
+            .index()
+            .rules()
+            .get(0);
+
+    assertEquals("sensor", rule.source());
+    assertEquals(0, rule.rangeCount());
+    StatefulCondition compiled = rule.condition();
+    assertEquals(StatefulCondition.Type.RATE, compiled.type());
+    assertEquals(60_000, compiled.windowMillis());
+    assertEquals(5, compiled.count());
+    assertTrue(compiled.test().test(event(95, Map.of())));
+    assertFalse(compiled.test().test(event(90, Map.of())));
+    assertEquals("region=eu", compiled.key(event(95, Map.of())));
+  }
+
+  /** Tests that malformed conditions over time are refused. */
+  @Test
+  void compile_rejectsMalformedConditions() {
+    Duration minute = Duration.ofMinutes(1);
+    assertInvalid(
+        "Rule 1: unknown condition type 'often'",
+        stateful(new Condition("often", minute, 1, null)));
+    assertInvalid(
+        "Rule 1: condition window", stateful(new Condition("absence", null, null, null)));
+    assertInvalid(
+        "Rule 1: condition window",
+        stateful(new Condition("absence", Duration.ofDays(2), null, null)));
+    assertInvalid("Rule 1: rate count", stateful(new Condition("rate", minute, 0, null)));
+    assertInvalid(
+        "Rule 1: count is only used", stateful(new Condition("sustained", minute, 3, null)));
+    assertInvalid(
+        "Rule 1: groupBy",
+        stateful(new Condition("absence", minute, null, List.of("region", "region"))));
+  }
+
+  private static RuleDefinition stateful(Condition condition) {
+    return new RuleDefinition("a", null, null, "value > 1", condition, "LOW");
+  }
+
+  private static ProcessedEvent event(double value, Map<String, Object> meta) {
+    return new ProcessedEvent(
+        "evt-1",
+        Instant.parse("2025-09-12T12:00:00Z"),
+        value,
+        Map.of("region", "eu"),
+        meta,
+        "sensor");
+  }
+
+  private static void assertInvalid(String message, RuleDefinition... definitions) {
+    InvalidRuleException e =
+        assertThrows(
+            InvalidRuleException.class, () -> RuleCompiler.compile(List.of(definitions), 1));
+    assertTrue(e.getMessage().startsWith(message), e.getMessage());
+  }
+}
@@ -0,0 +1,157 @@
+package io.analytics.platform.alert.rule;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.alert.rule.RuleDefinition.Predicate;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link RuleIndex} class. */
+class RuleIndexTest {
+
+  private static final Instant TS = Instant.parse("2025-09-12T12:00:00Z");
+  private static final String[] OPS = {"gt", "gte", "lt", "lte", "eq", "ne", "between", null};
+
+  /** Tests that source, tag and threshold conditions all have to hold. */
+  @Test
+  void match_requiresEveryCondition() {
+    RuleIndex index =
+        index(
+            rule("hot", new Predicate("sensor", Map.of("region", "eu"), "gt", 90.0, null)),
+            rule("any", new Predicate(null, null, null, null, null)),
+            rule("band", new Predicate(null, Map.of("region", "eu"), "between", 10.0, 20.0)),
+            rule(
+                "two-tags",
+                new Predicate("sensor", Map.of("region", "eu", "rack", "7"), null, null, null)));
+
+    assertEquals(Set.of("any", "hot"), ids(index, event("sensor", 95, Map.of("region", "eu"))));
+    assertEquals(Set.of("any"), ids(index, event("sensor", 90, Map.of("region", "eu"))));
+    assertEquals(Set.of("any"), ids(index, event("other", 95, Map.of("region", "us"))));
+    assertEquals(Set.of("any", "band"), ids(index, event("other", 10, Map.of("region", "eu"))));
+    assertEquals(
+        Set.of("any", "band", "two-tags"),
+        ids(index, event("sensor", 20, Map.of("region", "eu", "rack", 7))));
+  }
+
+  /** Tests that exclusive, inclusive and negated thresholds keep their boundaries. */
+  @Test
+  void match_respectsThresholdBoundaries() {
+    RuleIndex index =
+        index(
+            rule("gt", Predicate.value("gt", 5)),
+            rule("gte", Predicate.value("gte", 5)),
+            rule("lt", Predicate.value("lt", 5)),
+            rule("lte", Predicate.value("lte", 5)),
+            rule("eq", Predicate.value("eq", 5)),
+            rule("ne", Predicate.value("ne", 5)));
+
+    assertEquals(Set.of("gte", "lte", "eq"), ids(index, event("s", 5, Map.of())));
+    assertEquals(Set.of("gt", "gte", "ne"), ids(index, event("s", 5.000001, Map.of())));
+    assertEquals(Set.of("lt", "lte", "ne"), ids(index, event("s", -1e9, Map.of())));
+  }
+
+  /** Tests that expression rules fire only when their residual conditions also hold. */
+  @Test
+  void match_checksResidualConditions() {
+    RuleIndex index =
+        index(
+            expression("hot", "tags.region == 'eu' && value > 90 && tags.rack != '7'"),
+            expression("either", "value < 0 || source == 'sensor'"),
+            expression("ratio", "source == 'sensor' && value / 2 > tags.limit"),
+            rule("band", new Predicate(null, Map.of("region", "eu"), "between", 10.0, 20.0)));
+
+    assertEquals(
+        Set.of("hot", "either"), ids(index, event("sensor", 95, Map.of("region", "eu"))));
+    assertEquals(Set.of(), ids(index, event("other", 95, Map.of("region", "eu", "rack", 7))));
+    assertEquals(
+        Set.of("either", "ratio", "band"),
+        ids(index, event("sensor", 12, Map.of("region", "eu", "limit", 5))));
+    assertEquals(Set.of("either"), ids(index, event("other", -1, Map.of("limit", -5))));
+  }
+
+  /** Tests that the index finds exactly the rules a full scan finds, each once. */
+  @Test
+  void match_agreesWithFullScan() {
+    SplittableRandom random = new SplittableRandom(7);
+    List<RuleDefinition> definitions = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      definitions.add(rule("r" + i, randomPredicate(random)));
+    }
+    RuleIndex index = RuleCompiler.compile(definitions, 1).index();
+
+    List<Rule> matches = new ArrayList<>();
+    int fired = 0;
+    for (int i = 0; i < 5000; i++) {
+      Map<String, Object> tags = new HashMap<>();
+      if (random.nextBoolean()) {
+        tags.put("region", "r" + random.nextInt(4));
+      }
+      if (random.nextBoolean()) {
+        tags.put("rack", random.nextInt(3));
+      }
+      ProcessedEvent event = event("s" + random.nextInt(5), random.nextInt(-50, 50) / 2.0, tags);
+
+      matches.clear();
+      index.match(event, matches);
+
+      List<String> expected = new ArrayList<>();
+      for (Rule rule : index.rules()) {
+        if (rule.matches(event)) {
+          expected.add(rule.id());
+        }
+      }
+      List<String> actual = matches.stream().map(Rule::id).sorted().toList();
+      assertEquals(expected.stream().sorted().toList(), actual);
+      fired += actual.size();
+    }
+    assertTrue(fired > 5000);
+  }
+
+  private static Predicate randomPredicate(SplittableRandom random) {
+    String source = random.nextInt(3) == 0 ? null : "s" + random.nextInt(5);
+    Map<String, String> tags = new HashMap<>();
+    if (random.nextBoolean()) {
+      tags.put("region", "r" + random.nextInt(4));
+    }
+    if (random.nextInt(3) == 0) {
+      tags.put("rack", String.valueOf(random.nextInt(3)));
+    }
+    String op = OPS[random.nextInt(OPS.length)];
+    Double value = op != null ? random.nextInt(-50, 50) / 2.0 : null;
+    Double to = "between".equals(op) ? value + random.nextInt(20) : null;
+    return new Predicate(source, tags, op, value, to);
+  }
+
+  private static RuleIndex index(RuleDefinition... definitions) {
+    return RuleCompiler.compile(List.of(definitions), 1).index();
+  }
+
+  private static RuleDefinition rule(String id, Predicate predicate) {
+    return new RuleDefinition(id, "Rule " + id, predicate, null, null, "HIGH");
+  }
+
+  private static RuleDefinition expression(String id, String expression) {
+    return new RuleDefinition(id, "Rule " + id, null, expression, null, "HIGH");
+  }
+
+  private static Set<String> ids(RuleIndex index, ProcessedEvent event) {
+    List<Rule> matches = new ArrayList<>();
+    int count = index.match(event, matches);
+    Set<String> ids = new HashSet<>();
+    matches.forEach(rule -> ids.add(rule.id()));
+    assertEquals(count, ids.size());
+    return ids;
+  }
+
+  private static ProcessedEvent event(String source, double value, Map<String, Object> tags) {
+    return new ProcessedEvent("e", TS, value, tags, Map.of(), source);
+  }
+}
@@ -0,0 +1,121 @@
+package io.analytics.platform.alert.state;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.alert.rule.Rule;
+import io.analytics.platform.alert.rule.RuleCompiler;
+import io.analytics.platform.alert.rule.RuleDefinition;
+import io.analytics.platform.alert.rule.RuleDefinition.Condition;
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link AlertSuppressor} class. */
+class AlertSuppressorTest {
+
+  private static final long T0 = 1_757_678_400_000L;
+
+  private final AlertSuppressor suppressor =
+      new AlertSuppressor(Duration.ofMinutes(1), List.of("source"), 2);
+  private final Rule rule = rule("r");
+  private final List<AlertEvent> published = new ArrayList<>();
+
+  /** Tests that repeats within the cooldown are counted and summarized by the next alert. */
+  @Test
+  void offer_summarizesRepeatsWithNextAlert() {
+    offer(rule, "a", "s1", T0);
+    offer(rule, "b", "s1", T0 + 10_000);
+    offer(rule, "c", "s1", T0 + 59_999);
+    assertEquals(List.of("r (a)"), messages());
+
+    offer(rule, "d", "s1", T0 + 60_000);
+
+    assertEquals(List.of("r (a)", "3 occurrences in last 1m: r (c)", "r (d)"), messages());
+    assertEquals(2, suppressor.suppressed());
+  }
+
+  /** Tests that groups of a rule are suppressed independently. */
+  @Test
+  void offer_keysByRuleAndGroup() {
+    offer(rule, "a", "s1", T0);
+    offer(rule, "b", "s2", T0);
+    offer(rule("other"), "c", "s1", T0);
+
+    assertEquals(3, published.size());
+    assertEquals(2, suppressor.keys());
+    assertEquals(1, suppressor.untracked());
+  }
+
+  /** Tests that a stateful rule is grouped by its own condition rather than the configured tags. */
+  @Test
+  void offer_groupsStatefulRuleByCondition() {
+    Rule stateful =
+        rule("r", new Condition("rate", Duration.ofSeconds(10), 1, List.of("region")));
+
+    offer(stateful, "a", "s1", T0);
+    offer(stateful, "b", "s2", T0);
+
+    assertEquals(1, published.size());
+    assertEquals(1, suppressor.suppressed());
+  }
+
+  /** Tests that expiry evicts closed windows and summarizes only those that held alerts back. */
+  @Test
+  void expire_evictsClosedWindows() {
+    offer(rule, "a", "s1", T0);
+    offer(rule, "b", "s1", T0 + 1000);
+    offer(rule, "c", "s2", T0 + 30_000);
+    published.clear();
+
+    suppressor.expire(T0 + 60_000, published);
+
+    assertEquals(List.of("2 occurrences in last 1m: r (b)"), messages());
+    assertEquals(1, suppressor.keys());
+    suppressor.expire(T0 + 90_000, published);
+    assertEquals(0, suppressor.keys());
+    assertEquals(1, published.size());
+  }
+
+  /** Tests that a zero cooldown publishes every alert without tracking it. */
+  @Test
+  void offer_publishesAllWithoutCooldown() {
+    AlertSuppressor disabled = new AlertSuppressor(Duration.ZERO, List.of(), 2);
+
+    for (int i = 0; i < 5; i++) {
+      disabled.offer(rule, event("e" + i, "s1"), rule.alert("e" + i), T0, published);
+    }
+
+    assertEquals(5, published.size());
+    assertEquals(0, disabled.keys());
+  }
+
+  private void offer(Rule target, String id, String source, long now) {
+    suppressor.offer(target, event(id, source), target.alert(id), now, published);
+  }
+
+  private List<String> messages() {
+    return published.stream().map(AlertEvent::message).toList();
+  }
+
+  private static ProcessedEvent event(String id, String source) {
+    return new ProcessedEvent(
+        id, Instant.ofEpochMilli(T0), 1.0, Map.of("region", "eu"), Map.of(), source);
+  }
+
+  private static Rule rule(String id) {
+    return rule(id, null);
+  }
+
+  private static Rule rule(String id, Condition condition) {
+    return RuleCompiler.compile(
+            List.of(new RuleDefinition(id, null, null, "value > 0", condition, "LOW")), 1)
+        .index()
+        .rules()
+        .get(0);
+  }
+}
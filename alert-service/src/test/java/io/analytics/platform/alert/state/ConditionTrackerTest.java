@@ -0,0 +1,179 @@
+package io.analytics.platform.alert.state;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.alert.rule.Rule;
+import io.analytics.platform.alert.rule.RuleCompiler;
+import io.analytics.platform.alert.rule.RuleDefinition;
+import io.analytics.platform.alert.rule.RuleDefinition.Condition;
+import io.analytics.platform.alert.rule.RuleSet;
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link ConditionTracker} class. */
+class ConditionTrackerTest {
+
+  private static final long T0 = 1_757_678_400_000L;
+
+  private final ConditionTracker tracker = new ConditionTracker(Duration.ofSeconds(1), 3, T0);
+  private final List<AlertEvent> alerts = new ArrayList<>();
+
+  /** Tests that a rate rule fires when its count of events falls within the window. */
+  @Test
+  void observe_firesRateWithinWindow() {
+    Rule rule = sync(definition("rate", 3, List.of()));
+
+    observe(rule, "a", 95, "eu", T0);
+    observe(rule, "b", 10, "eu", T0 + 1000);
+    observe(rule, "c", 95, "eu", T0 + 50_000);
+    observe(rule, "d", 95, "eu", T0 + 70_000);
+    assertTrue(alerts.isEmpty());
+    observe(rule, "e", 95, "eu", T0 + 80_000);
+
+    assertEquals(1, alerts.size());
+    assertEquals("r (3 events within 1m, last event e)", alerts.get(0).message());
+    observe(rule, "f", 95, "eu", T0 + 81_000);
+    assertEquals(1, alerts.size());
+  }
+
+  /** Tests that a sustained rule fires once held for its window and resets on a miss. */
+  @Test
+  void observe_firesSustainedOnce() {
+    Rule rule = sync(definition("sustained", null, List.of("region")));
+
+    observe(rule, "a", 95, "eu", T0);
+    observe(rule, "b", 10, "eu", T0 + 30_000);
+    observe(rule, "c", 95, "eu", T0 + 40_000);
+    observe(rule, "d", 95, "eu", T0 + 90_000);
+    assertTrue(alerts.isEmpty());
+    observe(rule, "e", 95, "eu", T0 + 100_000);
+    observe(rule, "f", 95, "eu", T0 + 110_000);
+
+    assertEquals(1, alerts.size());
+    assertEquals("r (held for 1m, region=eu, value 95.0, event e)", alerts.get(0).message());
+  }
+
+  /** Tests that an absence rule fires once per group gone silent for its window. */
+  @Test
+  void advance_firesAbsencePerGroup() {
+    Rule rule = sync(definition("absence", null, List.of("region")));
+    observe(rule, "a", 95, "eu", T0);
+    observe(rule, "b", 95, "us", T0);
+    observe(rule, "c", 95, "eu", T0 + 30_000);
+
+    tracker.advance(T0 + 61_000, alerts);
+    assertEquals(List.of("r (no events for 1m, region=us)"), messages());
+    assertEquals(1, tracker.groups());
+    assertEquals(1, tracker.timers());
+
+    tracker.advance(T0 + 91_000, alerts);
+    tracker.advance(T0 + 200_000, alerts);
+    assertEquals(2, alerts.size());
+    assertEquals("r (no events for 1m, region=eu)", alerts.get(1).message());
+    assertEquals(0, tracker.groups());
+    assertEquals(0, tracker.timers());
+  }
+
+  /** Tests that groups beyond the cap of a rule are ignored and counted. */
+  @Test
+  void observe_rejectsGroupsBeyondCap() {
+    Rule rule = sync(definition("absence", null, List.of("region")));
+
+    for (String region : List.of("r1", "r2", "r3", "r4", "r5", "r1")) {
+      observe(rule, region, 95, region, T0);
+    }
+
+    assertEquals(3, tracker.groups());
+    assertEquals(2, tracker.rejected());
+  }
+
+  /** Tests that reloading keeps the groups of unchanged rules and drops the others. */
+  @Test
+  void sync_keepsStateOfUnchangedRules() {
+    RuleDefinition kept = definition("absence", null, List.of("region"));
+    RuleDefinition changed = definition("s", "value > 90", "absence", null, null);
+    RuleSet first = RuleCompiler.compile(List.of(kept, changed), 1);
+    tracker.sync(first);
+    observe(first.index().rules().get(0), "a", 95, "eu", T0);
+    observe(first.index().rules().get(1), "b", 95, "eu", T0);
+    assertEquals(2, tracker.groups());
+
+    RuleDefinition edited = definition("s", "value > 80", "absence", null, null);
+    RuleSet second = RuleCompiler.compile(List.of(kept, edited), 2);
+    tracker.sync(second);
+    observe(first.index().rules().get(0), "c", 95, "us", T0);
+
+    assertEquals(1, tracker.groups());
+    assertEquals(1, tracker.timers());
+    tracker.advance(T0 + 61_000, alerts);
+    assertEquals(List.of("r (no events for 1m, region=eu)"), messages());
+  }
+
+  /** Tests that undoing a batch leaves a rate and a sustained condition as they were before it. */
+  @Test
+  void observe_undoesChangesOfRolledBackBatch() {
+    Rule rate = sync(definition("rate", 3, List.of()));
+    observe(rate, "a", 95, "eu", T0);
+    Rollback rollback = new Rollback();
+
+    observe(rate, "b", 95, "eu", T0 + 1000, rollback);
+    rollback.run();
+    observe(rate, "b", 95, "eu", T0 + 2000);
+    assertTrue(alerts.isEmpty());
+    observe(rate, "c", 95, "eu", T0 + 3000);
+    assertEquals(List.of("r (3 events within 1m, last event c)"), messages());
+
+    alerts.clear();
+    Rule sustained = sync(definition("sustained", null, List.of("region")));
+    observe(sustained, "d", 95, "eu", T0);
+    observe(sustained, "e", 10, "eu", T0 + 30_000, rollback);
+    observe(sustained, "f", 95, "us", T0 + 30_000, rollback);
+    rollback.run();
+    assertEquals(1, tracker.groups());
+    observe(sustained, "g", 95, "eu", T0 + 60_000);
+    assertEquals(List.of("r (held for 1m, region=eu, value 95.0, event g)"), messages());
+  }
+
+  private Rule sync(RuleDefinition definition) {
+    RuleSet rules = RuleCompiler.compile(List.of(definition), 1);
+    tracker.sync(rules);
+    return rules.index().rules().get(0);
+  }
+
+  private void observe(Rule rule, String id, double value, String region, long now) {
+    observe(rule, id, value, region, now, null);
+  }
+
+  private void observe(
+      Rule rule, String id, double value, String region, long now, Rollback rollback) {
+    ProcessedEvent event =
+        new ProcessedEvent(
+            id, Instant.ofEpochMilli(now), value, Map.of("region", region), Map.of(), "sensor");
+    tracker.observe(rule, event, now, alerts, rollback);
+  }
+
+  private List<String> messages() {
+    return alerts.stream().map(AlertEvent::message).toList();
+  }
+
+  private static RuleDefinition definition(String type, Integer count, List<String> groupBy) {
+    return definition("r", "value > 90", type, count, groupBy);
+  }
+
+  private static RuleDefinition definition(
+      String id, String expression, String type, Integer count, List<String> groupBy) {
+    return new RuleDefinition(
+        id,
+        null,
+        null,
+        expression,
+        new Condition(type, Duration.ofMinutes(1), count, groupBy),
+        "HIGH");
+  }
+}
@@ -0,0 +1,88 @@
+package io.analytics.platform.alert.state;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link TimerWheel} class. */
+class TimerWheelTest {
+
+  private final TimerWheel<Named> wheel = new TimerWheel<>(10, 8, 1000);
+  private final List<String> fired = new ArrayList<>();
+
+  /** Tests that timers fire at the first advance at or after their deadline, rounded to a tick. */
+  @Test
+  void advance_firesDueTimers() {
+    wheel.schedule(new Named("a"), 1025);
+    wheel.schedule(new Named("b"), 1030);
+    wheel.schedule(new Named("c"), 1500);
+
+    assertEquals(0, wheel.advance(1029, this::fire));
+    assertEquals(2, wheel.advance(1030, this::fire));
+    assertEquals(List.of("a", "b"), fired.stream().sorted().toList());
+    assertEquals(1, wheel.size());
+  }
+
+  /** Tests that a timer more than a revolution away waits for its own tick. */
+  @Test
+  void advance_keepsTimersOfLaterRevolutions() {
+    Named far = new Named("far");
+    wheel.schedule(far, 1000 + 10 * 8 * 3 + 5);
+
+    assertEquals(0, wheel.advance(1100, this::fire));
+    assertEquals(0, wheel.advance(1200, this::fire));
+    assertTrue(far.isScheduled());
+    assertEquals(1, wheel.advance(10_000, this::fire));
+    assertFalse(far.isScheduled());
+  }
+
+  /** Tests that a cancelled timer never fires and that a past deadline fires at the next tick. */
+  @Test
+  void cancel_unschedulesTimer() {
+    Named cancelled = new Named("cancelled");
+    wheel.schedule(cancelled, 1050);
+    wheel.schedule(new Named("late"), 0);
+
+    wheel.cancel(cancelled);
+    wheel.cancel(cancelled);
+
+    assertEquals(1, wheel.advance(1010, this::fire));
+    assertEquals(List.of("late"), fired);
+    assertEquals(0, wheel.advance(2000, this::fire));
+    assertThrows(IllegalStateException.class, () -> scheduleTwice(new Named("twice")));
+  }
+
+  /** Tests that a timer may be scheduled again from its own callback. */
+  @Test
+  void advance_allowsReschedulingFromCallback() {
+    Named timer = new Named("again");
+    wheel.schedule(timer, 1010);
+
+    wheel.advance(1010, t -> wheel.schedule(t, 1100));
+
+    assertTrue(timer.isScheduled());
+    assertEquals(1, wheel.advance(1100, this::fire));
+    assertEquals(List.of("again"), fired);
+  }
+
+  private void fire(Named timer) {
+    fired.add(timer.name);
+  }
+
+  private void scheduleTwice(Named timer) {
+    wheel.schedule(timer, 1100);
+    wheel.schedule(timer, 1200);
+  }
+
+  /** A timer identified by name. */
+  private static final class Named extends TimerWheel.Timer {
+
+    private final String name;
+
+    Named(String name) {
+      this.name = name;
+    }
+  }
+}
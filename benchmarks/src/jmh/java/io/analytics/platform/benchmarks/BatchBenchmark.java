@@ -0,0 +1,78 @@
+package io.analytics.platform.benchmarks;
+
+import io.analytics.platform.common.dto.RawEvent;
+import io.analytics.platform.common.dto.RawEventBatch;
+import io.analytics.platform.common.util.JsonCodec;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Per-batch cost of the ingestion hot path: validate and encode every event of a request.
+ *
+ * <p>Scores are per batch; divide by {@code batchSize} for the per-event figure, or compare the
+ * gc profiler's {@code gc.alloc.rate.norm} across sizes to spot per-batch overhead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BatchBenchmark {
+
+  @Param({"1", "100", "10000"})
+  public int batchSize;
+
+  @Param({"small", "large"})
+  public String tagProfile;
+
+  private RawEvent[] events;
+  private List<RawEvent> eventList;
+  private byte[][] encoded;
+
+  @Setup
+  public void setup() {
+    events = EventFixtures.rawEvents(batchSize, tagProfile);
+    eventList = List.of(events);
+    encoded = new byte[batchSize][];
+    for (int i = 0; i < batchSize; i++) {
+      encoded[i] = JsonCodec.RAW_EVENT.encode(events[i]);
+    }
+  }
+
+  @Benchmark
+  public void validateAll(Blackhole bh) {
+    for (RawEvent event : events) {
+      event.validate();
+      bh.consume(event);
+    }
+  }
+
+  @Benchmark
+  public RawEventBatch batchValidate() {
+    return RawEventBatch.validate(eventList);
+  }
+
+  @Benchmark
+  public void validateAndEncodeAll(Blackhole bh) {
+    for (RawEvent event : events) {
+      event.validate();
+      bh.consume(JsonCodec.RAW_EVENT.encode(event));
+    }
+  }
+
+  @Benchmark
+  public void decodeAndValidateAll(Blackhole bh) {
+    for (byte[] payload : encoded) {
+      RawEvent event = JsonCodec.RAW_EVENT.decode(payload);
+      event.validate();
+      bh.consume(event);
+    }
+  }
+}
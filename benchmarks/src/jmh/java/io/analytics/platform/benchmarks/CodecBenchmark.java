@@ -0,0 +1,71 @@
+package io.analytics.platform.benchmarks;
+
+import io.analytics.platform.common.dto.RawEvent;
+import io.analytics.platform.common.util.BinaryEventCodec;
+import io.analytics.platform.common.util.JsonCodec;
+import io.analytics.platform.common.util.JsonUtil;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Encode and decode cost of a single {@link RawEvent} for the String-based {@link JsonUtil}, the
+ * byte-based {@link JsonCodec}, and the {@link BinaryEventCodec} wire format.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CodecBenchmark {
+
+  @Param({"small", "large"})
+  public String tagProfile;
+
+  private RawEvent event;
+  private String jsonString;
+  private byte[] jsonBytes;
+  private byte[] binaryBytes;
+
+  @Setup
+  public void setup() {
+    event = EventFixtures.rawEvents(1, tagProfile)[0];
+    jsonString = JsonUtil.toJson(event);
+    jsonBytes = JsonCodec.RAW_EVENT.encode(event);
+    binaryBytes = BinaryEventCodec.RAW_EVENT.encode(event);
+  }
+
+  @Benchmark
+  public String jsonUtilEncode() {
+    return JsonUtil.toJson(event);
+  }
+
+  @Benchmark
+  public RawEvent jsonUtilDecode() {
+    return JsonUtil.fromJson(jsonString, RawEvent.class);
+  }
+
+  @Benchmark
+  public byte[] jsonCodecEncode() {
+    return JsonCodec.RAW_EVENT.encode(event);
+  }
+
+  @Benchmark
+  public RawEvent jsonCodecDecode() {
+    return JsonCodec.RAW_EVENT.decode(jsonBytes);
+  }
+
+  @Benchmark
+  public byte[] binaryEncode() {
+    return BinaryEventCodec.RAW_EVENT.encode(event);
+  }
+
+  @Benchmark
+  public RawEvent binaryDecode() {
+    return BinaryEventCodec.RAW_EVENT.decode(binaryBytes);
+  }
+}
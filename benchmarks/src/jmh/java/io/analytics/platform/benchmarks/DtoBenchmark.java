@@ -0,0 +1,54 @@
+package io.analytics.platform.benchmarks;
+
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.dto.RawEvent;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Construction plus validation cost of the DTO factories that run once per event.
+ *
+ * <p>Reported in both throughput and sample-time modes; the latter provides p99 in the results.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DtoBenchmark {
+
+  @Param({"small", "large"})
+  public String tagProfile;
+
+  private Map<String, Object> tags;
+  private RawEvent raw;
+  private final Map<String, Object> meta = Map.of("stage", "processed");
+
+  @Setup
+  public void setup() {
+    tags = EventFixtures.tags(tagProfile);
+    raw = RawEvent.of("evt-1", EventFixtures.TS, 42.5, tags);
+  }
+
+  @Benchmark
+  public RawEvent rawEventOf() {
+    return RawEvent.of("evt-1", EventFixtures.TS, 42.5, tags);
+  }
+
+  @Benchmark
+  public ProcessedEvent processedEventFromRaw() {
+    return ProcessedEvent.fromRawEvent(raw, 85.0, meta, "processor");
+  }
+
+  @Benchmark
+  public AlertEvent alertEventOf() {
+    return AlertEvent.of("rule-1", "Threshold exceeded", "high");
+  }
+}
@@ -0,0 +1,55 @@
+package io.analytics.platform.benchmarks;
+
+import io.analytics.platform.common.dto.RawEvent;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic event generators shared by the benchmarks.
+ *
+ * <p>"small" events carry the three tags a typical edge sensor sends; "large" events carry 64
+ * tags mixing strings, numbers and booleans, which approximates enriched traffic.
+ */
+final class EventFixtures {
+
+  static final Instant TS = Instant.parse("2025-09-12T12:00:00Z");
+
+  private EventFixtures() {
+    // Prevent instantiation
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  static Map<String, Object> tags(String profile) {
+    return switch (profile) {
+      case "small" -> Map.of("host", "edge-17", "region", "eu-west-1", "sensor", "temp-3");
+      case "large" -> largeTags();
+      default -> throw new IllegalArgumentException("Unknown tag profile: " + profile);
+    };
+  }
+
+  static RawEvent[] rawEvents(int count, String profile) {
+    SplittableRandom random = new SplittableRandom(42);
+    Map<String, Object> tags = tags(profile);
+    RawEvent[] events = new RawEvent[count];
+    for (int i = 0; i < count; i++) {
+      events[i] =
+          new RawEvent("evt-" + i, TS.plusMillis(i), random.nextDouble(-1_000, 1_000), tags);
+    }
+    return events;
+  }
+
+  private static Map<String, Object> largeTags() {
+    Map<String, Object> tags = new HashMap<>();
+    for (int i = 0; i < 64; i++) {
+      switch (i % 4) {
+        case 0 -> tags.put("label-" + i, "value-" + i);
+        case 1 -> tags.put("count-" + i, i * 1_000L);
+        case 2 -> tags.put("ratio-" + i, i / 7.0);
+        default -> tags.put("flag-" + i, i % 8 == 3);
+      }
+    }
+    return Map.copyOf(tags);
+  }
+}
@@ -0,0 +1,137 @@
+package io.analytics.platform.benchmarks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Request handling models of the ingestion service under a simulated broker round trip.
+ *
+ * <p>Each operation serves {@code concurrency} requests that each publish {@code recordsPerRequest}
+ * records and wait for their acknowledgements, which arrive {@code ackMicros} after the send.
+ *
+ * <ul>
+ *   <li>{@code platformPool}: a fixed pool of 200 platform threads blocking on acknowledgements,
+ *       like Tomcat's default connector
+ *   <li>{@code virtualPerRequest}: one virtual thread per request blocking on acknowledgements
+ *   <li>{@code asyncComposition}: no blocking; acknowledgements are composed into one future per
+ *       request, like {@code ProduceController}
+ * </ul>
+ *
+ * <p>Scores are per round of {@code concurrency} requests. Once {@code concurrency} exceeds the
+ * pool size, the platform pool queues requests behind blocked threads while the other two models
+ * keep every request in flight.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExecutionModelBenchmark {
+
+  private static final int PLATFORM_POOL_SIZE = 200;
+
+  @Param({"100", "1000", "10000"})
+  public int concurrency;
+
+  @Param({"10"})
+  public int recordsPerRequest;
+
+  @Param({"1000"})
+  public long ackMicros;
+
+  private ScheduledExecutorService broker;
+  private ExecutorService platformPool;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    broker = Executors.newScheduledThreadPool(4);
+    platformPool = Executors.newFixedThreadPool(PLATFORM_POOL_SIZE);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    broker.shutdownNow();
+    platformPool.shutdownNow();
+  }
+
+  @Benchmark
+  public int platformPool() throws InterruptedException, ExecutionException {
+    return serveBlocking(platformPool);
+  }
+
+  @Benchmark
+  public int virtualPerRequest() throws InterruptedException, ExecutionException {
+    try (ExecutorService perRequest = Executors.newVirtualThreadPerTaskExecutor()) {
+      return serveBlocking(perRequest);
+    }
+  }
+
+  @Benchmark
+  public int asyncComposition() {
+    @SuppressWarnings("unchecked")
+    CompletableFuture<Integer>[] requests = new CompletableFuture[concurrency];
+    for (int i = 0; i < concurrency; i++) {
+      requests[i] = handleAsync();
+    }
+    int acknowledged = 0;
+    for (CompletableFuture<Integer> request : requests) {
+      acknowledged += request.join();
+    }
+    return acknowledged;
+  }
+
+  private int serveBlocking(ExecutorService executor)
+      throws InterruptedException, ExecutionException {
+    @SuppressWarnings("unchecked")
+    Future<Integer>[] requests = new Future[concurrency];
+    for (int i = 0; i < concurrency; i++) {
+      requests[i] = executor.submit(this::handleBlocking);
+    }
+    int acknowledged = 0;
+    for (Future<Integer> request : requests) {
+      acknowledged += request.get();
+    }
+    return acknowledged;
+  }
+
+  private int handleBlocking() throws InterruptedException, ExecutionException {
+    @SuppressWarnings("unchecked")
+    CompletableFuture<Integer>[] acks = new CompletableFuture[recordsPerRequest];
+    for (int i = 0; i < recordsPerRequest; i++) {
+      acks[i] = send();
+    }
+    int acknowledged = 0;
+    for (CompletableFuture<Integer> ack : acks) {
+      acknowledged += ack.get();
+    }
+    return acknowledged;
+  }
+
+  private CompletableFuture<Integer> handleAsync() {
+    CompletableFuture<Integer> result = CompletableFuture.completedFuture(0);
+    for (int i = 0; i < recordsPerRequest; i++) {
+      result = result.thenCombine(send(), Integer::sum);
+    }
+    return result;
+  }
+
+  /** Simulates a producer send whose acknowledgement arrives after the broker round trip. */
+  private CompletableFuture<Integer> send() {
+    CompletableFuture<Integer> ack = new CompletableFuture<>();
+    broker.schedule(() -> ack.complete(1), ackMicros, TimeUnit.MICROSECONDS);
+    return ack;
+  }
+}
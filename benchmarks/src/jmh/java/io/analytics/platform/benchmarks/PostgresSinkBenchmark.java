@@ -0,0 +1,139 @@
+package io.analytics.platform.benchmarks;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.util.JsonUtil;
+import io.analytics.platform.sink.postgres.PartitionInterval;
+import io.analytics.platform.sink.postgres.PartitionManager;
+import io.analytics.platform.sink.postgres.PostgresWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.postgresql.ds.PGSimpleDataSource;
+
+/**
+ * Events per second written to {@code processed_events} by the sink, against a local PostgreSQL
+ * with the schema of {@code infra/postgres-init.sql} (e.g. {@code docker compose up postgres}).
+ *
+ * <p>{@code copy} and {@code insert} are the {@link PostgresWriter} modes, writing batches of
+ * {@value #BATCH} events in one transaction; {@code row} inserts and commits one event at a time,
+ * through the partitioned table, as per-entity JPA saves do, and is the baseline. The table is
+ * truncated before each iteration; its partitions are created by the writer. Connection settings
+ * are read from the {@code sink.jdbc.url}, {@code sink.jdbc.user} and {@code sink.jdbc.password}
+ * system properties.
+ *
+ * <p>Excluded from the default run since it needs a database; run it with {@code
+ * -Pjmh.includes=PostgresSinkBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PostgresSinkBenchmark {
+
+  private static final int BATCH = 5000;
+
+  @Param({"copy", "insert", "row"})
+  public String mode;
+
+  @Param({"small", "large"})
+  public String profile;
+
+  private PGSimpleDataSource dataSource;
+  private PostgresWriter writer;
+  private Map<String, Object> tags;
+  private final SplittableRandom random = new SplittableRandom(42);
+  private long next;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    dataSource = new PGSimpleDataSource();
+    dataSource.setUrl(
+        System.getProperty("sink.jdbc.url", "jdbc:postgresql://localhost:5432/analyticsdb"));
+    dataSource.setUser(System.getProperty("sink.jdbc.user", "analytics"));
+    dataSource.setPassword(System.getProperty("sink.jdbc.password", "analytics"));
+    PostgresWriter.Mode writerMode =
+        mode.equals("insert") ? PostgresWriter.Mode.INSERT : PostgresWriter.Mode.COPY;
+    PartitionManager partitions =
+        new PartitionManager(
+            dataSource,
+            "processed_events",
+            PartitionInterval.DAILY,
+            0,
+            Duration.ZERO,
+            false,
+            Clock.systemUTC(),
+            new SimpleMeterRegistry());
+    writer = new PostgresWriter(dataSource, partitions, writerMode);
+    tags = EventFixtures.tags(profile);
+  }
+
+  @Setup(Level.Iteration)
+  public void truncate() throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("TRUNCATE processed_events");
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public int write() throws SQLException {
+    List<ProcessedEvent> events = batch();
+    return mode.equals("row") ? writeRows(events) : writer.write(events).written();
+  }
+
+  private List<ProcessedEvent> batch() {
+    List<ProcessedEvent> events = new ArrayList<>(BATCH);
+    for (int i = 0; i < BATCH; i++) {
+      events.add(
+          new ProcessedEvent(
+              "evt-" + next++,
+              EventFixtures.TS.plusMillis(i),
+              random.nextDouble(-1_000, 1_000),
+              tags,
+              Map.of("pipeline", "benchmark"),
+              "processor-service"));
+    }
+    return events;
+  }
+
+  private int writeRows(List<ProcessedEvent> events) throws SQLException {
+    int written = 0;
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement =
+            connection.prepareStatement(
+                "INSERT INTO processed_events (id, ts, value_transformed, tags, meta, source)"
+                    + " VALUES (?, ?, ?, ?::jsonb, ?::jsonb, ?)")) {
+      for (ProcessedEvent event : events) {
+        statement.setString(1, event.id());
+        statement.setObject(2, LocalDateTime.ofInstant(event.ts(), ZoneOffset.UTC));
+        statement.setDouble(3, event.valueTransformed());
+        statement.setString(4, JsonUtil.toJson(event.tags()));
+        statement.setString(5, JsonUtil.toJson(event.meta()));
+        statement.setString(6, event.source());
+        written += statement.executeUpdate();
+      }
+    }
+    return written;
+  }
+}
@@ -0,0 +1,77 @@
+package io.analytics.platform.benchmarks;
+
+import io.analytics.platform.alert.expression.Expression;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Evaluation of one rule expression per event: the compiled lambda tree against the interpreter
+ * walking the same typed tree, which boxes every intermediate result.
+ *
+ * <p>The expressions cover a threshold with a tag, arithmetic over a converted tag and metadata,
+ * and text functions with an {@code in} list. Events cycle through 1024 random ones so that
+ * branches are not predictable.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RuleExpressionBenchmark {
+
+  private static final int EVENTS = 1024;
+
+  @Param({
+    "value > 500 && tags.region == 'region-3'",
+    "abs(value - tags.baseline) * 2 > 300 || meta.priority >= 3",
+    "startsWith(tags.host, 'edge-1') && source in ('source-1', 'source-2', 'source-3')"
+  })
+  public String expression;
+
+  private Expression parsed;
+  private Predicate<ProcessedEvent> compiled;
+  private ProcessedEvent[] events;
+  private int next;
+
+  @Setup
+  public void setup() {
+    parsed = Expression.parse(expression);
+    compiled = parsed.compile();
+    SplittableRandom random = new SplittableRandom(42);
+    events = new ProcessedEvent[EVENTS];
+    for (int i = 0; i < EVENTS; i++) {
+      Map<String, Object> tags = new HashMap<>();
+      tags.put("region", "region-" + random.nextInt(20));
+      tags.put("host", "edge-" + random.nextInt(100));
+      tags.put("baseline", String.valueOf(random.nextInt(1000)));
+      events[i] =
+          new ProcessedEvent(
+              "evt-" + i,
+              EventFixtures.TS,
+              random.nextDouble(0, 1000),
+              tags,
+              Map.of("priority", random.nextInt(5)),
+              "source-" + random.nextInt(10));
+    }
+  }
+
+  @Benchmark
+  public boolean compiled() {
+    return compiled.test(events[next++ & (EVENTS - 1)]);
+  }
+
+  @Benchmark
+  public boolean interpreted() {
+    return parsed.interpret(events[next++ & (EVENTS - 1)]);
+  }
+}
@@ -0,0 +1,127 @@
+package io.analytics.platform.benchmarks;
+
+import io.analytics.platform.common.state.StateStore;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * {@link StateStore} as the processor uses it for window state: restoring a store of {@code
+ * entries} windows from its log, and checkpoints of {@code 1000} updated windows each.
+ *
+ * <p>{@code restore} reopens a log in which every entry was written three times, the garbage a
+ * store carries just below its compaction threshold. {@code checkpoint} reports the bytes handed
+ * to the store ({@code bytesPut}) and the bytes it wrote including compactions ({@code
+ * bytesWritten}) as auxiliary counters; their ratio is the write amplification.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StateStoreBenchmark {
+
+  private static final int CHECKPOINT_SIZE = 1000;
+  private static final int CHUNK_SIZE = 16 << 20;
+  private static final long COMPACTION_THRESHOLD = 32L << 20;
+
+  @Param({"10000", "1000000"})
+  public int entries;
+
+  @Param({"64"})
+  public int valueSize;
+
+  private Path directory;
+  private Path restoreDirectory;
+  private StateStore store;
+  private final SplittableRandom random = new SplittableRandom(42);
+  private byte[] value;
+
+  /** Bytes handed to and written by the store, summed over the measured checkpoints. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class WriteCounters {
+    public long bytesPut;
+    public long bytesWritten;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    value = new byte[valueSize];
+    random.nextBytes(value);
+    restoreDirectory = Files.createTempDirectory("state-restore");
+    try (StateStore prepared = open(restoreDirectory)) {
+      for (int round = 0; round < 3; round++) {
+        for (int i = 0; i < entries; i++) {
+          prepared.put(key(i), value);
+        }
+      }
+    }
+    directory = Files.createTempDirectory("state-checkpoint");
+    store = open(directory);
+    for (int i = 0; i < entries; i++) {
+      store.put(key(i), value);
+    }
+    store.flush();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    store.close();
+    delete(directory);
+    delete(restoreDirectory);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  public int restore() {
+    try (StateStore restored = open(restoreDirectory)) {
+      return restored.size();
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  public void checkpoint(WriteCounters counters) {
+    long put = store.bytesPut();
+    long written = store.bytesWritten();
+    for (int i = 0; i < CHECKPOINT_SIZE; i++) {
+      store.put(key(random.nextInt(entries)), value);
+    }
+    store.flush();
+    store.compactIfNeeded();
+    counters.bytesPut += store.bytesPut() - put;
+    counters.bytesWritten += store.bytesWritten() - written;
+  }
+
+  private static StateStore open(Path directory) {
+    return StateStore.open(directory, CHUNK_SIZE, COMPACTION_THRESHOLD);
+  }
+
+  private static String key(int i) {
+    return "w\u001fsource-1m\u001f1757678400000\u001fweb-" + i;
+  }
+
+  private static void delete(Path directory) {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
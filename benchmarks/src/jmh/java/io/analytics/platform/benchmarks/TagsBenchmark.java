@@ -0,0 +1,72 @@
+package io.analytics.platform.benchmarks;
+
+import io.analytics.platform.common.dto.Tags;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link Tags} against the {@link HashMap} it replaces: building a tag set, looking up a key, and
+ * hashing the whole set as a grouping key.
+ *
+ * <p>Run with {@code -prof gc} (enabled by default in this module) to compare allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TagsBenchmark {
+
+  @Param({"small", "large"})
+  public String tagProfile;
+
+  private Map<String, Object> source;
+  private Map<String, Object> hashMap;
+  private Tags tags;
+  private String lookupKey;
+
+  @Setup
+  public void setup() {
+    source = EventFixtures.tags(tagProfile);
+    hashMap = new HashMap<>(source);
+    tags = Tags.copyOf(source);
+    lookupKey = source.keySet().iterator().next();
+  }
+
+  @Benchmark
+  public Map<String, Object> hashMapCopy() {
+    return new HashMap<>(source);
+  }
+
+  @Benchmark
+  public Tags tagsCopy() {
+    return Tags.copyOf(source);
+  }
+
+  @Benchmark
+  public Object hashMapGet() {
+    return hashMap.get(lookupKey);
+  }
+
+  @Benchmark
+  public Object tagsGet() {
+    return tags.get(lookupKey);
+  }
+
+  @Benchmark
+  public int hashMapHashCode() {
+    return hashMap.hashCode();
+  }
+
+  @Benchmark
+  public int tagsHashCode() {
+    return tags.hashCode();
+  }
+}
@@ -15,6 +15,18 @@ public final class TopicNames {
    */
   public static final String PROCESSED_EVENTS = "processing.processed.v1";
 
+  /**
+   * Topic for windowed aggregates of processed events, keyed by window and group. Format:
+   * {domain}.aggregated.v{version}
+   */
+  public static final String AGGREGATES = "processing.aggregated.v1";
+
+  /**
+   * Compacted changelog of the window state of each processor instance, keyed by instance and
+   * window. Format: {domain}.{purpose}.v{version}
+   */
+  public static final String WINDOW_STATE = "processing.window-state.v1";
+
   /**
    * Topic for alert notifications that have been triggered. Format: {domain}.triggered.v{version}
    */
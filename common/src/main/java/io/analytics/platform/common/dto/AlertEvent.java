@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.analytics.platform.common.exception.ValidationException;
+import io.analytics.platform.common.validation.EventValidator;
+import io.analytics.platform.common.validation.Violation;
 import jakarta.validation.constraints.*;
 
 /**
@@ -40,6 +42,8 @@ public record AlertEvent(
     MEDIUM,
     LOW;
 
+    private static final Severity[] VALUES = values();
+
     /**
      * Parse a string into a Severity enum, normalizing case.
      *
@@ -48,12 +52,14 @@ public record AlertEvent(
      * @throws ValidationException if the value is invalid
      */
     public static Severity from(String value) {
-      try {
-        return value == null ? null : Severity.valueOf(value.trim().toUpperCase());
-      } catch (IllegalArgumentException e) {
-        throw new ValidationException(
-            "Invalid severity level. Must be one of: CRITICAL, HIGH, MEDIUM, LOW");
+      if (value == null) {
+        return null;
+      }
+      Severity severity = lookup(value);
+      if (severity == null) {
+        throw Violation.SEVERITY_INVALID.toException();
       }
+      return severity;
     }
 
     /**
@@ -63,12 +69,33 @@ public record AlertEvent(
      * @return true if valid, false otherwise
      */
     public static boolean isValid(String value) {
-      try {
-        from(value);
-        return true;
-      } catch (ValidationException e) {
-        return false;
+      return value == null || lookup(value) != null;
+    }
+
+    /**
+     * Resolves a severity ignoring case and surrounding whitespace, without allocating or
+     * throwing.
+     *
+     * @param value the severity string, must not be null
+     * @return the matching severity, or null if there is none
+     */
+    public static Severity lookup(String value) {
+      int start = 0;
+      int end = value.length();
+      while (start < end && value.charAt(start) <= ' ') {
+        start++;
+      }
+      while (end > start && value.charAt(end - 1) <= ' ') {
+        end--;
       }
+      int length = end - start;
+      for (Severity severity : VALUES) {
+        String name = severity.name();
+        if (name.length() == length && value.regionMatches(true, start, name, 0, length)) {
+          return severity;
+        }
+      }
+      return null;
     }
   }
 
@@ -78,32 +105,7 @@ public record AlertEvent(
    * @throws ValidationException if the alert is invalid
    */
   public void validate() {
-    try {
-      if (ruleId == null || ruleId.trim().isEmpty()) {
-        throw new ValidationException("Rule ID cannot be blank");
-      }
-      if (ruleId.length() > 100) {
-        throw new ValidationException("Rule ID cannot exceed 100 characters");
-      }
-
-      if (message == null || message.trim().isEmpty()) {
-        throw new ValidationException("Alert message cannot be blank");
-      }
-      if (message.length() > 1000) {
-        throw new ValidationException("Alert message cannot exceed 1000 characters");
-      }
-
-      if (severity == null || severity.trim().isEmpty()) {
-        throw new ValidationException("Severity cannot be blank");
-      }
-      if (!Severity.isValid(severity)) {
-        throw new ValidationException(
-            "Invalid severity level. Must be one of: CRITICAL, HIGH, MEDIUM, LOW");
-      }
-
-    } catch (NullPointerException e) {
-      throw new ValidationException(e.getMessage(), e);
-    }
+    EventValidator.check(this).throwIfInvalid();
   }
 
   /**
@@ -120,7 +122,9 @@ public record AlertEvent(
       @JsonProperty("ruleId") String ruleId,
       @JsonProperty("message") String message,
       @JsonProperty("severity") String severity) {
-    String normalized = severity != null ? severity.trim().toUpperCase() : null;
+    Severity known = severity != null ? Severity.lookup(severity) : null;
+    String normalized =
+        known != null ? known.name() : severity != null ? severity.trim().toUpperCase() : null;
     AlertEvent alert = new AlertEvent(ruleId, message, normalized);
     alert.validate();
     return alert;
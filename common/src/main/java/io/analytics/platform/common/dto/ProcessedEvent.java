@@ -1,6 +1,7 @@
 package io.analytics.platform.common.dto;
 
-import io.analytics.platform.common.exception.ValidationException;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.analytics.platform.common.validation.EventValidator;
 import jakarta.validation.constraints.*;
 import java.time.Instant;
 import java.util.Collections;
@@ -9,7 +10,8 @@ import java.util.Objects;
 
 /**
  * Represents an event after it has been processed and transformed by the analytics pipeline. This
- * is the enriched version of a {@link RawEvent} with additional processing information.
+ * is the enriched version of a {@link RawEvent} with additional processing information. When
+ * decoded from JSON or binary, tags and metadata are held in compact {@link Tags} maps.
  *
  * @param id Unique identifier of the processed event, must not be blank
  * @param ts Timestamp when the event was originally created, must not be in the future
@@ -31,8 +33,11 @@ public record ProcessedEvent(
         @Digits(integer = 9, fraction = 6, message = "Transformed value has invalid format")
         Double valueTransformed,
     @NotNull(message = "Tags map cannot be null")
+        @JsonDeserialize(using = Tags.Deserializer.class)
         Map<@NotBlank(message = "Tag key cannot be blank") String, Object> tags,
-    @NotNull(message = "Metadata map cannot be null") Map<String, Object> meta,
+    @NotNull(message = "Metadata map cannot be null")
+        @JsonDeserialize(using = Tags.Deserializer.class)
+        Map<String, Object> meta,
     @NotBlank(message = "Source identifier cannot be blank")
         @Size(max = 100, message = "Source identifier cannot exceed 100 characters")
         String source) {
@@ -40,54 +45,12 @@ public record ProcessedEvent(
   /**
    * Validates the ProcessedEvent object and throws a ValidationException if any constraints are
    * violated.
+   *
+   * <p>Callers validating many events should use {@link EventValidator#check(ProcessedEvent,
+   * Instant)} with a shared clock snapshot, which reports violations without throwing.
    */
   public void validate() {
-    try {
-      if (id == null || id.trim().isEmpty()) {
-        throw new ValidationException("Processed event ID cannot be blank");
-      }
-      if (id.length() > 255) {
-        throw new ValidationException("Processed event ID cannot exceed 255 characters");
-      }
-
-      if (ts == null) {
-        throw new ValidationException("Event timestamp cannot be blank");
-      }
-      if (ts.isAfter(Instant.now())) {
-        throw new ValidationException("Event timestamp cannot be in the future");
-      }
-
-      if (valueTransformed == null
-          || Double.isNaN(valueTransformed)
-          || Double.isInfinite(valueTransformed)) {
-        throw new ValidationException("Transformed value cannot be blank or invalid");
-      }
-
-      if (tags == null) {
-        throw new ValidationException("Tags map cannot be blank");
-      }
-      tags.keySet()
-          .forEach(
-              key -> {
-                if (key == null || key.trim().isEmpty()) {
-                  throw new ValidationException("Tag key cannot be blank");
-                }
-              });
-
-      if (meta == null) {
-        throw new ValidationException("Metadata map cannot be blank");
-      }
-
-      if (source == null || source.trim().isEmpty()) {
-        throw new ValidationException("Source identifier cannot be blank");
-      }
-      if (source.length() > 100) {
-        throw new ValidationException("Source identifier cannot exceed 100 characters");
-      }
-
-    } catch (NullPointerException e) {
-      throw new ValidationException(e.getMessage(), e);
-    }
+    EventValidator.check(this, Instant.now()).throwIfInvalid();
   }
 
   /** Factory method with validation. */
@@ -116,4 +79,32 @@ public record ProcessedEvent(
     Objects.requireNonNull(rawEvent, "Raw event cannot be null");
     return of(rawEvent.id(), rawEvent.ts(), valueTransformed, rawEvent.tags(), meta, source);
   }
+
+  /**
+   * Creates a ProcessedEvent from a RawEvent that already passed validation, e.g. at ingestion.
+   *
+   * <p>Only the fields added by processing are checked ({@link
+   * EventValidator#checkDerivedFields}); the id and timestamp are taken over unchecked, and so are
+   * the tags, which the caller may have extended with keys it validated itself.
+   *
+   * @param rawEvent the validated raw event
+   * @param valueTransformed the transformed value, must be finite
+   * @param tags the tags of the processed event, typically {@code rawEvent.tags()}
+   * @param meta processing metadata, must not be null
+   * @param source identifier of the processing pipeline, must not be blank
+   * @return the processed event
+   * @throws io.analytics.platform.common.exception.ValidationException if a derived field is
+   *     invalid
+   */
+  public static ProcessedEvent fromValidatedRawEvent(
+      RawEvent rawEvent,
+      double valueTransformed,
+      Map<String, Object> tags,
+      Map<String, Object> meta,
+      String source) {
+    ProcessedEvent event =
+        new ProcessedEvent(rawEvent.id(), rawEvent.ts(), valueTransformed, tags, meta, source);
+    EventValidator.checkDerivedFields(event).throwIfInvalidWithoutStackTrace();
+    return event;
+  }
 }
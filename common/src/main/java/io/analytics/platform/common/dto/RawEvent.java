@@ -1,6 +1,8 @@
 package io.analytics.platform.common.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import io.analytics.platform.common.exception.ValidationException;
+import io.analytics.platform.common.validation.EventValidator;
 import jakarta.validation.constraints.*;
 import java.time.Instant;
 import java.util.Collections;
@@ -11,7 +13,8 @@ import java.util.Map;
  * an event before any processing is applied.
  *
  * <p>The event must have a non-null ID, a timestamp that's not in the future, and a valid numeric
- * value. Tags are optional but cannot be null.
+ * value. Tags are optional but cannot be null. When decoded from JSON or binary, tags are held in a
+ * compact {@link Tags} map.
  *
  * @param id Unique identifier for the event, must not be blank and have a maximum of 255 characters
  * @param ts Timestamp when the event occurred, must not be null and cannot be in the future
@@ -33,50 +36,18 @@ public record RawEvent(
         @Digits(integer = 9, fraction = 6, message = "Event value has invalid format")
         Double value,
     @NotNull(message = "Tags map cannot be null")
+        @JsonDeserialize(using = Tags.Deserializer.class)
         Map<@NotBlank(message = "Tag key cannot be blank") String, Object> tags) {
   /**
    * Validates the RawEvent object and throws a ValidationException if any constraints are violated.
    *
+   * <p>Callers validating many events should use {@link EventValidator#check(RawEvent, Instant)}
+   * with a shared clock snapshot, which reports violations without throwing.
+   *
    * @throws ValidationException if the event is not valid
    */
   public void validate() {
-    try {
-      if (id == null || id.trim().isEmpty()) {
-        throw new ValidationException("Event ID cannot be blank");
-      }
-      if (id.length() > 255) {
-        throw new ValidationException("Event ID cannot exceed 255 characters");
-      }
-
-      if (ts == null) {
-        throw new ValidationException("Event timestamp cannot be blank");
-      }
-      if (ts.isAfter(Instant.now())) {
-        throw new ValidationException("Event timestamp cannot be in the future");
-      }
-
-      if (value == null
-          || Double.isNaN(value)
-          || Double.isInfinite(value)
-          || value > 999999999.999999
-          || value < -999999999.999999) {
-        throw new ValidationException("Event value is invalid or out of range");
-      }
-
-      if (tags == null) {
-        throw new ValidationException("Tags map cannot be blank");
-      }
-      tags.keySet()
-          .forEach(
-              key -> {
-                if (key == null || key.trim().isEmpty()) {
-                  throw new ValidationException("Tag key cannot be blank");
-                }
-              });
-
-    } catch (NullPointerException e) {
-      throw new ValidationException(e.getMessage(), e);
-    }
+    EventValidator.check(this, Instant.now()).throwIfInvalid();
   }
 
   /**
@@ -0,0 +1,194 @@
+package io.analytics.platform.common.dto;
+
+import io.analytics.platform.common.validation.EventValidator;
+import io.analytics.platform.common.validation.Violation;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Result of validating a list of {@link RawEvent}s in a single pass.
+ *
+ * <p>Unlike {@link RawEvent#of}, which aborts on the first invalid event, a batch validation
+ * checks every element against one clock snapshot and splits the input into the events that were
+ * accepted and a {@link Rejection} per invalid element, carrying its index and {@link Violation}.
+ * No exception is thrown for invalid events, so a request can be partially accepted and the
+ * rejections forwarded to the dead letter topic.
+ *
+ * <p>Batches at or above a size threshold are checked in parallel on the common fork-join pool;
+ * the outcome, including the order of both lists, is identical to a sequential run.
+ *
+ * <p>Instances are immutable.
+ */
+public final class RawEventBatch {
+
+  /** Default batch size from which validation is split across the fork-join pool. */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 8192;
+
+  /** Number of events each fork-join leaf task checks sequentially. */
+  private static final int LEAF_SIZE = 1024;
+
+  private final int size;
+  private final List<RawEvent> accepted;
+  private final List<Rejection> rejected;
+
+  /**
+   * A single element that failed validation.
+   *
+   * @param index position of the event in the submitted list
+   * @param event the rejected event, may be null if the element itself was null
+   * @param violation the first constraint the event violated
+   */
+  public record Rejection(int index, RawEvent event, Violation violation) {
+
+    /**
+     * Returns the human-readable reason for the rejection.
+     *
+     * @return the violation message
+     */
+    public String message() {
+      return violation.message();
+    }
+  }
+
+  private RawEventBatch(int size, List<RawEvent> accepted, List<Rejection> rejected) {
+    this.size = size;
+    this.accepted = Collections.unmodifiableList(accepted);
+    this.rejected = Collections.unmodifiableList(rejected);
+  }
+
+  /**
+   * Validates a batch against the current time, in parallel when it reaches {@link
+   * #DEFAULT_PARALLEL_THRESHOLD} events.
+   *
+   * @param events the events to validate
+   * @return the validation outcome
+   * @throws NullPointerException if events is null
+   */
+  public static RawEventBatch validate(List<RawEvent> events) {
+    return validate(events, Instant.now(), DEFAULT_PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Validates a batch against the given clock snapshot, in parallel when it reaches the given
+   * size.
+   *
+   * @param events the events to validate
+   * @param now the reference time for the "not in the future" constraint
+   * @param parallelThreshold batch size from which validation runs in parallel; use {@link
+   *     Integer#MAX_VALUE} to always validate sequentially
+   * @return the validation outcome
+   * @throws NullPointerException if events or now is null
+   */
+  public static RawEventBatch validate(List<RawEvent> events, Instant now, int parallelThreshold) {
+    Objects.requireNonNull(events, "Events cannot be null");
+    Objects.requireNonNull(now, "Reference time cannot be null");
+    RawEvent[] input = events.toArray(new RawEvent[0]);
+    Violation[] results = new Violation[input.length];
+    if (input.length >= parallelThreshold && input.length > LEAF_SIZE) {
+      ForkJoinPool.commonPool().invoke(new CheckTask(input, results, now, 0, input.length));
+    } else {
+      checkRange(input, results, now, 0, input.length);
+    }
+    return collect(input, results);
+  }
+
+  /**
+   * Returns the number of events submitted.
+   *
+   * @return accepted plus rejected count
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the valid events, in submission order.
+   *
+   * @return an unmodifiable list
+   */
+  public List<RawEvent> accepted() {
+    return accepted;
+  }
+
+  /**
+   * Returns one entry per invalid element, in submission order.
+   *
+   * @return an unmodifiable list
+   */
+  public List<Rejection> rejected() {
+    return rejected;
+  }
+
+  /**
+   * Returns whether every submitted event passed validation.
+   *
+   * @return true if nothing was rejected
+   */
+  public boolean isFullyAccepted() {
+    return rejected.isEmpty();
+  }
+
+  private static void checkRange(
+      RawEvent[] input, Violation[] results, Instant now, int from, int to) {
+    for (int i = from; i < to; i++) {
+      RawEvent event = input[i];
+      results[i] = event == null ? Violation.EVENT_MISSING : EventValidator.check(event, now);
+    }
+  }
+
+  private static RawEventBatch collect(RawEvent[] input, Violation[] results) {
+    int rejectedCount = 0;
+    for (Violation violation : results) {
+      if (violation != Violation.NONE) {
+        rejectedCount++;
+      }
+    }
+    List<RawEvent> accepted = new ArrayList<>(input.length - rejectedCount);
+    List<Rejection> rejected = new ArrayList<>(rejectedCount);
+    for (int i = 0; i < input.length; i++) {
+      if (results[i] == Violation.NONE) {
+        accepted.add(input[i]);
+      } else {
+        rejected.add(new Rejection(i, input[i], results[i]));
+      }
+    }
+    return new RawEventBatch(input.length, accepted, rejected);
+  }
+
+  /** Splits the index range in halves until it is small enough to check sequentially. */
+  private static final class CheckTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient RawEvent[] input;
+    private final transient Violation[] results;
+    private final transient Instant now;
+    private final int from;
+    private final int to;
+
+    CheckTask(RawEvent[] input, Violation[] results, Instant now, int from, int to) {
+      this.input = input;
+      this.results = results;
+      this.now = now;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= LEAF_SIZE) {
+        checkRange(input, results, now, from, to);
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      invokeAll(
+          new CheckTask(input, results, now, from, mid),
+          new CheckTask(input, results, now, mid, to));
+    }
+  }
+}
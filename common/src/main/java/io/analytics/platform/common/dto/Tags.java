@@ -0,0 +1,585 @@
+package io.analytics.platform.common.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Compact, immutable map of event tags.
+ *
+ * <p>Tags are stored as parallel arrays sorted by key: interned key strings, a kind per entry, a
+ * {@code long} slot holding integer, long, double and boolean values unboxed, and a reference slot
+ * for everything else. Lookups scan linearly up to {@value #LINEAR_SCAN_LIMIT} entries and use
+ * binary search beyond. The hash code is computed once at construction, which makes tag sets cheap
+ * to use as grouping keys.
+ *
+ * <p>{@code Tags} is a regular {@link Map}: it compares equal to, and hashes like, any map with
+ * the same entries and serializes to the same JSON object. Values are boxed only when read
+ * through the {@link Map} interface; {@link #getDouble}, {@link #getLong} and {@link #getBoolean}
+ * read them without allocation. Mutating methods throw {@link UnsupportedOperationException}.
+ *
+ * <p>{@code RawEvent.tags()} and {@code ProcessedEvent.tags()/meta()} are decoded into this type
+ * by both the JSON and the binary codecs.
+ */
+@JsonSerialize(using = Tags.Serializer.class)
+@JsonDeserialize(using = Tags.Deserializer.class)
+public final class Tags extends AbstractMap<String, Object> {
+
+  /** Lookups in maps up to this size scan linearly instead of using binary search. */
+  public static final int LINEAR_SCAN_LIMIT = 16;
+
+  /** Upper bound on distinct interned keys; keys seen after the pool is full are kept as is. */
+  private static final int MAX_INTERNED_KEYS = 10_000;
+
+  private static final ConcurrentHashMap<String, String> KEY_POOL = new ConcurrentHashMap<>();
+
+  private static final byte REF = 0;
+  private static final byte INT = 1;
+  private static final byte LONG = 2;
+  private static final byte DOUBLE = 3;
+  private static final byte BOOLEAN = 4;
+
+  private static final String[] NO_KEYS = {};
+  private static final Tags EMPTY = new Tags(NO_KEYS, new byte[0], new long[0], null);
+
+  private final String[] keys;
+  private final byte[] kinds;
+  private final long[] prims;
+  private final Object[] refs;
+  private final int hash;
+  private transient Set<Entry<String, Object>> entrySet;
+
+  private Tags(String[] keys, byte[] kinds, long[] prims, Object[] refs) {
+    this.keys = keys;
+    this.kinds = kinds;
+    this.prims = prims;
+    this.refs = refs;
+    int h = 0;
+    for (int i = 0; i < keys.length; i++) {
+      h += keys[i].hashCode() ^ valueHash(i);
+    }
+    this.hash = h;
+  }
+
+  /**
+   * Returns the empty tag set.
+   *
+   * @return a shared empty instance
+   */
+  public static Tags empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Returns an immutable copy of the given map, or the map itself if it already is a {@code Tags}.
+   *
+   * @param map the entries to copy
+   * @return the tag set
+   * @throws IllegalArgumentException if the map contains a null key
+   * @throws NullPointerException if map is null
+   */
+  public static Tags copyOf(Map<String, ?> map) {
+    if (map instanceof Tags tags) {
+      return tags;
+    }
+    Builder builder = new Builder(map.size());
+    map.forEach(builder::put);
+    return builder.build();
+  }
+
+  /**
+   * Returns a builder sized for a typical event.
+   *
+   * @return a new builder
+   */
+  public static Builder builder() {
+    return new Builder(8);
+  }
+
+  /**
+   * Returns the canonical instance of a tag key. Tag key cardinality is small, so every event
+   * holding a key such as {@code "host"} shares one String instance instead of a fresh copy.
+   *
+   * @param key the key to intern
+   * @return the pooled instance, or {@code key} itself once the pool is full
+   */
+  public static String internKey(String key) {
+    String pooled = KEY_POOL.get(key);
+    if (pooled != null) {
+      return pooled;
+    }
+    if (KEY_POOL.size() >= MAX_INTERNED_KEYS) {
+      return key;
+    }
+    pooled = KEY_POOL.putIfAbsent(key, key);
+    return pooled != null ? pooled : key;
+  }
+
+  @Override
+  public int size() {
+    return keys.length;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return keys.length == 0;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key instanceof String s && indexOf(s) >= 0;
+  }
+
+  @Override
+  public Object get(Object key) {
+    if (!(key instanceof String s)) {
+      return null;
+    }
+    int i = indexOf(s);
+    return i >= 0 ? valueAt(i) : null;
+  }
+
+  /**
+   * Returns a numeric tag as a double without boxing.
+   *
+   * @param key the tag key
+   * @param defaultValue value returned when the tag is absent or not numeric
+   * @return the tag value, widened to double
+   */
+  public double getDouble(String key, double defaultValue) {
+    int i = indexOf(key);
+    if (i < 0) {
+      return defaultValue;
+    }
+    return switch (kinds[i]) {
+      case INT, LONG -> prims[i];
+      case DOUBLE -> Double.longBitsToDouble(prims[i]);
+      default -> defaultValue;
+    };
+  }
+
+  /**
+   * Returns an integral tag as a long without boxing.
+   *
+   * @param key the tag key
+   * @param defaultValue value returned when the tag is absent or not an integer
+   * @return the tag value
+   */
+  public long getLong(String key, long defaultValue) {
+    int i = indexOf(key);
+    return i >= 0 && (kinds[i] == INT || kinds[i] == LONG) ? prims[i] : defaultValue;
+  }
+
+  /**
+   * Returns a boolean tag without boxing.
+   *
+   * @param key the tag key
+   * @param defaultValue value returned when the tag is absent or not a boolean
+   * @return the tag value
+   */
+  public boolean getBoolean(String key, boolean defaultValue) {
+    int i = indexOf(key);
+    return i >= 0 && kinds[i] == BOOLEAN ? prims[i] != 0 : defaultValue;
+  }
+
+  /**
+   * Returns a string tag.
+   *
+   * @param key the tag key
+   * @return the value if present and a String, otherwise null
+   */
+  public String getString(String key) {
+    int i = indexOf(key);
+    return i >= 0 && kinds[i] == REF && refs[i] instanceof String s ? s : null;
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super String, ? super Object> action) {
+    for (int i = 0; i < keys.length; i++) {
+      action.accept(keys[i], valueAt(i));
+    }
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    Set<Entry<String, Object>> es = entrySet;
+    if (es == null) {
+      es = new EntrySet();
+      entrySet = es;
+    }
+    return es;
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o instanceof Tags other) {
+      return hash == other.hash
+          && Arrays.equals(keys, other.keys)
+          && Arrays.equals(kinds, other.kinds)
+          && Arrays.equals(prims, other.prims)
+          && Arrays.equals(refs, other.refs);
+    }
+    return super.equals(o);
+  }
+
+  private int indexOf(String key) {
+    if (key == null) {
+      return -1;
+    }
+    String[] k = keys;
+    if (k.length <= LINEAR_SCAN_LIMIT) {
+      for (int i = 0; i < k.length; i++) {
+        if (k[i].equals(key)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    int i = Arrays.binarySearch(k, key);
+    return i >= 0 ? i : -1;
+  }
+
+  private Object valueAt(int i) {
+    return switch (kinds[i]) {
+      case INT -> (int) prims[i];
+      case LONG -> prims[i];
+      case DOUBLE -> Double.longBitsToDouble(prims[i]);
+      case BOOLEAN -> prims[i] != 0;
+      default -> refs[i];
+    };
+  }
+
+  private int valueHash(int i) {
+    return switch (kinds[i]) {
+      case INT -> Integer.hashCode((int) prims[i]);
+      case LONG, DOUBLE -> Long.hashCode(prims[i]);
+      case BOOLEAN -> Boolean.hashCode(prims[i] != 0);
+      default -> Objects.hashCode(refs[i]);
+    };
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<String, Object>> {
+
+    @Override
+    public Iterator<Entry<String, Object>> iterator() {
+      return new Iterator<>() {
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+          return next < keys.length;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+          if (next >= keys.length) {
+            throw new NoSuchElementException();
+          }
+          int i = next++;
+          return new SimpleImmutableEntry<>(keys[i], valueAt(i));
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return keys.length;
+    }
+  }
+
+  /**
+   * Accumulates entries for a {@link Tags} instance. Putting a key twice keeps the last value.
+   * Builders are not thread-safe and may be used for a single {@link #build()}.
+   */
+  public static final class Builder {
+
+    private String[] keys;
+    private byte[] kinds;
+    private long[] prims;
+    private Object[] refs;
+    private int size;
+
+    private Builder(int expectedSize) {
+      int capacity = Math.max(expectedSize, 1);
+      keys = new String[capacity];
+      kinds = new byte[capacity];
+      prims = new long[capacity];
+    }
+
+    /**
+     * Adds a value, storing integers, longs, doubles and booleans unboxed.
+     *
+     * @param key the tag key
+     * @param value the value, may be null
+     * @return this builder
+     * @throws IllegalArgumentException if key is null
+     */
+    public Builder put(String key, Object value) {
+      if (value instanceof Integer v) {
+        return putPrimitive(key, INT, v);
+      }
+      if (value instanceof Long v) {
+        return putPrimitive(key, LONG, v);
+      }
+      if (value instanceof Double v) {
+        return put(key, v.doubleValue());
+      }
+      if (value instanceof Boolean v) {
+        return put(key, v.booleanValue());
+      }
+      int i = slot(key, REF);
+      if (refs == null) {
+        refs = new Object[keys.length];
+      }
+      refs[i] = value;
+      return this;
+    }
+
+    /**
+     * Adds an integer value.
+     *
+     * @param key the tag key
+     * @param value the value
+     * @return this builder
+     */
+    public Builder put(String key, int value) {
+      return putPrimitive(key, INT, value);
+    }
+
+    /**
+     * Adds a long value.
+     *
+     * @param key the tag key
+     * @param value the value
+     * @return this builder
+     */
+    public Builder put(String key, long value) {
+      return putPrimitive(key, LONG, value);
+    }
+
+    /**
+     * Adds a double value.
+     *
+     * @param key the tag key
+     * @param value the value
+     * @return this builder
+     */
+    public Builder put(String key, double value) {
+      return putPrimitive(key, DOUBLE, Double.doubleToLongBits(value));
+    }
+
+    /**
+     * Adds a boolean value.
+     *
+     * @param key the tag key
+     * @param value the value
+     * @return this builder
+     */
+    public Builder put(String key, boolean value) {
+      return putPrimitive(key, BOOLEAN, value ? 1 : 0);
+    }
+
+    /**
+     * Builds the tag set.
+     *
+     * @return an immutable tag set, the shared empty instance if no entries were added
+     */
+    public Tags build() {
+      if (size == 0) {
+        return EMPTY;
+      }
+      int[] order = new int[size];
+      for (int i = 0; i < size; i++) {
+        order[i] = i;
+      }
+      sortStable(order, new int[size], 0, size);
+
+      // Keep the last value of duplicate keys; a stable sort leaves it last among its equals
+      int unique = 0;
+      for (int i = 0; i < size; i++) {
+        if (i + 1 < size && keys[order[i]].equals(keys[order[i + 1]])) {
+          continue;
+        }
+        order[unique++] = order[i];
+      }
+
+      String[] k = new String[unique];
+      byte[] kd = new byte[unique];
+      long[] p = new long[unique];
+      Object[] r = null;
+      for (int i = 0; i < unique; i++) {
+        int src = order[i];
+        k[i] = keys[src];
+        kd[i] = kinds[src];
+        p[i] = prims[src];
+        if (kd[i] == REF) {
+          if (r == null) {
+            r = new Object[unique];
+          }
+          r[i] = refs[src];
+        }
+      }
+      return new Tags(k, kd, p, r);
+    }
+
+    private Builder putPrimitive(String key, byte kind, long bits) {
+      int i = slot(key, kind);
+      prims[i] = bits;
+      return this;
+    }
+
+    private int slot(String key, byte kind) {
+      if (key == null) {
+        throw new IllegalArgumentException("Tag key cannot be null");
+      }
+      if (size == keys.length) {
+        int capacity = size << 1;
+        keys = Arrays.copyOf(keys, capacity);
+        kinds = Arrays.copyOf(kinds, capacity);
+        prims = Arrays.copyOf(prims, capacity);
+        if (refs != null) {
+          refs = Arrays.copyOf(refs, capacity);
+        }
+      }
+      int i = size++;
+      keys[i] = internKey(key);
+      kinds[i] = kind;
+      return i;
+    }
+
+    /** Stable merge sort of entry indexes by key; insertion sort for the typical small case. */
+    private void sortStable(int[] a, int[] tmp, int from, int to) {
+      if (to - from <= LINEAR_SCAN_LIMIT) {
+        for (int i = from + 1; i < to; i++) {
+          int v = a[i];
+          int j = i - 1;
+          while (j >= from && keys[a[j]].compareTo(keys[v]) > 0) {
+            a[j + 1] = a[j];
+            j--;
+          }
+          a[j + 1] = v;
+        }
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      sortStable(a, tmp, from, mid);
+      sortStable(a, tmp, mid, to);
+      System.arraycopy(a, from, tmp, from, to - from);
+      int i = from;
+      int j = mid;
+      for (int k = from; k < to; k++) {
+        if (j >= to || (i < mid && keys[tmp[i]].compareTo(keys[tmp[j]]) <= 0)) {
+          a[k] = tmp[i++];
+        } else {
+          a[k] = tmp[j++];
+        }
+      }
+    }
+  }
+
+  /** Writes tags as a JSON object, emitting primitive values without boxing. */
+  public static final class Serializer extends StdSerializer<Tags> {
+
+    private static final long serialVersionUID = 1L;
+
+    public Serializer() {
+      super(Tags.class);
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider provider, Tags value) {
+      return value.isEmpty();
+    }
+
+    @Override
+    public void serialize(Tags tags, JsonGenerator gen, SerializerProvider provider)
+        throws IOException {
+      gen.writeStartObject(tags, tags.keys.length);
+      for (int i = 0; i < tags.keys.length; i++) {
+        gen.writeFieldName(tags.keys[i]);
+        long bits = tags.prims[i];
+        switch (tags.kinds[i]) {
+          case INT -> gen.writeNumber((int) bits);
+          case LONG -> gen.writeNumber(bits);
+          case DOUBLE -> gen.writeNumber(Double.longBitsToDouble(bits));
+          case BOOLEAN -> gen.writeBoolean(bits != 0);
+          default -> provider.defaultSerializeValue(tags.refs[i], gen);
+        }
+      }
+      gen.writeEndObject();
+    }
+  }
+
+  /**
+   * Reads a JSON object straight into {@link Tags}, without an intermediate {@link Map} and
+   * without boxing scalar values. Nested objects and arrays are read as untyped values.
+   */
+  public static final class Deserializer extends StdDeserializer<Tags> {
+
+    private static final long serialVersionUID = 1L;
+
+    public Deserializer() {
+      super(Tags.class);
+    }
+
+    @Override
+    public Tags deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      JsonToken token = p.currentToken();
+      if (token == JsonToken.START_OBJECT) {
+        token = p.nextToken();
+      } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+        return (Tags) ctxt.handleUnexpectedToken(Tags.class, p);
+      }
+      Builder builder = new Builder(8);
+      for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+        String key = p.currentName();
+        switch (p.nextToken()) {
+          case VALUE_STRING -> builder.put(key, (Object) p.getText());
+          case VALUE_NUMBER_INT -> {
+            switch (p.getNumberType()) {
+              case INT -> builder.put(key, p.getIntValue());
+              case LONG -> builder.put(key, p.getLongValue());
+              default -> builder.put(key, (Object) p.getBigIntegerValue());
+            }
+          }
+          case VALUE_NUMBER_FLOAT -> builder.put(key, p.getDoubleValue());
+          case VALUE_TRUE -> builder.put(key, true);
+          case VALUE_FALSE -> builder.put(key, false);
+          case VALUE_NULL -> builder.put(key, (Object) null);
+          default -> builder.put(key, ctxt.readValue(p, Object.class));
+        }
+      }
+      return builder.build();
+    }
+
+    @Override
+    public Tags getEmptyValue(DeserializationContext ctxt) {
+      return EMPTY;
+    }
+  }
+}
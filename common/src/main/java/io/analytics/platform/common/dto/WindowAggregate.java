@@ -0,0 +1,122 @@
+package io.analytics.platform.common.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.analytics.platform.common.sketch.DDSketch;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Rollup of the processed events of one group over one event-time window, as published to the
+ * aggregates topic.
+ *
+ * <p>A window is identified by {@code window}, {@code group} and {@code windowStart}. Every
+ * processor {@code instance} aggregates the events it consumed, so a window's totals are the
+ * combination of one aggregate per instance. An instance publishes a window once the watermark
+ * passes its end and again for every update by late events within the allowed lateness, each time
+ * with its totals so far, so consumers keep the latest record per instance and identity and merge
+ * across instances: counts and sums add up, and percentiles come from the merged {@link DDSketch}
+ * in {@code sketch}.
+ *
+ * @param instance identifies the processor instance that aggregated the events
+ * @param window name of the window definition that produced the aggregate
+ * @param group value of each grouping tag, {@code "_"} for events without the tag
+ * @param windowStart inclusive start of the window
+ * @param windowEnd exclusive end of the window
+ * @param count number of events in the window
+ * @param sum sum of their transformed values
+ * @param min smallest transformed value
+ * @param max largest transformed value
+ * @param mean {@code sum / count}
+ * @param percentiles estimated percentiles by name, e.g. {@code p99}; empty if not configured
+ * @param sketch serialized {@link DDSketch} of the values, null if percentiles are not configured
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record WindowAggregate(
+    String instance,
+    String window,
+    Map<String, String> group,
+    Instant windowStart,
+    Instant windowEnd,
+    long count,
+    double sum,
+    double min,
+    double max,
+    double mean,
+    Map<String, Double> percentiles,
+    byte[] sketch) {
+
+  /**
+   * Returns the key of a quantile in {@code percentiles}.
+   *
+   * @param quantile the quantile, between 0 and 1
+   * @return {@code p} followed by the percent without trailing zeros, e.g. {@code p99.9}
+   */
+  public static String percentileName(double quantile) {
+    return "p" + BigDecimal.valueOf(quantile * 100).stripTrailingZeros().toPlainString();
+  }
+
+  /**
+   * Decodes the sketch of the values.
+   *
+   * @return the sketch, null if the aggregate has none
+   */
+  public DDSketch decodeSketch() {
+    return sketch != null ? DDSketch.fromBytes(sketch) : null;
+  }
+
+  /** Compares all components, the sketch by content. */
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof WindowAggregate other
+        && count == other.count
+        && Double.compare(sum, other.sum) == 0
+        && Double.compare(min, other.min) == 0
+        && Double.compare(max, other.max) == 0
+        && Double.compare(mean, other.mean) == 0
+        && Objects.equals(instance, other.instance)
+        && Objects.equals(window, other.window)
+        && Objects.equals(group, other.group)
+        && Objects.equals(windowStart, other.windowStart)
+        && Objects.equals(windowEnd, other.windowEnd)
+        && Objects.equals(percentiles, other.percentiles)
+        && Arrays.equals(sketch, other.sketch);
+  }
+
+  @Override
+  public int hashCode() {
+    int h = Objects.hash(instance, window, group, windowStart, windowEnd, count, sum, min, max);
+    return 31 * (31 * h + Objects.hashCode(percentiles)) + Arrays.hashCode(sketch);
+  }
+
+  @Override
+  public String toString() {
+    return "WindowAggregate[instance="
+        + instance
+        + ", window="
+        + window
+        + ", group="
+        + group
+        + ", windowStart="
+        + windowStart
+        + ", windowEnd="
+        + windowEnd
+        + ", count="
+        + count
+        + ", sum="
+        + sum
+        + ", min="
+        + min
+        + ", max="
+        + max
+        + ", mean="
+        + mean
+        + ", percentiles="
+        + percentiles
+        + ", sketch="
+        + (sketch != null ? sketch.length + " bytes" : null)
+        + "]";
+  }
+}
@@ -0,0 +1,32 @@
+package io.analytics.platform.common.exception;
+
+/**
+ * Base exception for failures while converting DTOs to or from their wire representation.
+ *
+ * <p>Callers that only care that a payload could not be handled should catch this type; callers
+ * that need to tell the direction apart should catch {@link EncodingException} or {@link
+ * DecodingException}.
+ */
+public abstract class CodecException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Constructs a new codec exception with the specified detail message.
+   *
+   * @param message the detail message
+   */
+  protected CodecException(String message) {
+    super(message);
+  }
+
+  /**
+   * Constructs a new codec exception with the specified detail message and cause.
+   *
+   * @param message the detail message
+   * @param cause the cause of the exception
+   */
+  protected CodecException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,29 @@
+package io.analytics.platform.common.exception;
+
+/**
+ * Exception thrown when a payload cannot be read back into an object, either because it is
+ * malformed or because the resulting object is rejected by its factory.
+ */
+public final class DecodingException extends CodecException {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Constructs a new decoding exception with the specified detail message.
+   *
+   * @param message the detail message
+   */
+  public DecodingException(String message) {
+    super(message);
+  }
+
+  /**
+   * Constructs a new decoding exception with the specified detail message and cause.
+   *
+   * @param message the detail message
+   * @param cause the cause of the exception
+   */
+  public DecodingException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,26 @@
+package io.analytics.platform.common.exception;
+
+/** Exception thrown when an object cannot be written to its wire representation. */
+public final class EncodingException extends CodecException {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Constructs a new encoding exception with the specified detail message.
+   *
+   * @param message the detail message
+   */
+  public EncodingException(String message) {
+    super(message);
+  }
+
+  /**
+   * Constructs a new encoding exception with the specified detail message and cause.
+   *
+   * @param message the detail message
+   * @param cause the cause of the exception
+   */
+  public EncodingException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
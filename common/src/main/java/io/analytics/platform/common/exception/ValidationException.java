@@ -38,6 +38,22 @@ public final class ValidationException extends RuntimeException {
     super(cause);
   }
 
+  /**
+   * Creates a validation exception that does not capture a stack trace and does not record
+   * suppressed exceptions.
+   *
+   * <p>Reserved for hot paths that reject malformed input at high rates and catch the exception
+   * themselves, where filling in the stack trace would dominate the cost of the rejection; see
+   * {@code Violation.throwIfInvalidWithoutStackTrace()}. Everywhere else, use the constructors so
+   * the stack trace is kept. The message still identifies the violated constraint.
+   *
+   * @param message the detail message
+   * @return a new stackless exception
+   */
+  public static ValidationException withoutStackTrace(String message) {
+    return new ValidationException(message, null, false, false);
+  }
+
   /**
    * Constructs a new validation exception with full control over suppression and stack trace
    * writability.
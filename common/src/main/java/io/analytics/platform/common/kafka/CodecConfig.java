@@ -0,0 +1,38 @@
+package io.analytics.platform.common.kafka;
+
+import io.analytics.platform.common.util.JsonCodec;
+import java.util.Map;
+import org.apache.kafka.common.config.ConfigException;
+
+/** Resolves codec bindings from Kafka client configuration. */
+final class CodecConfig {
+
+  private CodecConfig() {
+    // Prevent instantiation
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  /**
+   * Resolves the codec for the value type named under {@code key}. The value may be a {@link
+   * Class} or a fully qualified class name.
+   *
+   * @throws ConfigException if the key is missing or names an unknown class
+   */
+  @SuppressWarnings("unchecked")
+  static <T> JsonCodec<T> resolve(Map<String, ?> configs, String key) {
+    Object value = configs.get(key);
+    if (value instanceof Class<?> type) {
+      return (JsonCodec<T>) JsonCodec.forType(type);
+    }
+    if (value instanceof String name && !name.isBlank()) {
+      try {
+        return (JsonCodec<T>)
+            JsonCodec.forType(
+                Class.forName(name.trim(), true, Thread.currentThread().getContextClassLoader()));
+      } catch (ClassNotFoundException e) {
+        throw new ConfigException(key, value, "Class not found");
+      }
+    }
+    throw new ConfigException(key, value, "A value type is required");
+  }
+}
@@ -0,0 +1,32 @@
+package io.analytics.platform.common.kafka;
+
+/**
+ * Names of the Kafka headers attached to records written to the dead letter topic. The record
+ * value is the original payload; these headers explain where it came from and why it was
+ * rejected.
+ */
+public final class DlqHeaders {
+
+  /** Topic the record was read from, or would have been published to. */
+  public static final String ORIGIN_TOPIC = "dlq.origin.topic";
+
+  /** Service that rejected the record. */
+  public static final String SERVICE = "dlq.service";
+
+  /** Stable, machine-readable rejection code, e.g. a {@code Violation} constant name. */
+  public static final String ERROR_CODE = "dlq.error.code";
+
+  /** Human-readable rejection reason. */
+  public static final String REASON = "dlq.reason";
+
+  /** Destination the record could not be written to, for records rejected by a sink. */
+  public static final String SINK = "dlq.sink";
+
+  /** 1-based line number of the record in its request body, for lines of an NDJSON stream. */
+  public static final String LINE = "dlq.line";
+
+  private DlqHeaders() {
+    // Prevent instantiation
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+}
@@ -0,0 +1,96 @@
+package io.analytics.platform.common.kafka;
+
+import io.analytics.platform.common.exception.CodecException;
+import io.analytics.platform.common.util.BinaryEventCodec;
+import io.analytics.platform.common.util.JsonCodec;
+import io.analytics.platform.common.util.WireFormat;
+import java.util.Map;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Kafka {@link Deserializer} for event DTOs that reads both JSON and the compact binary format.
+ *
+ * <p>The encoding is taken from the {@link WireFormat#CONTENT_TYPE_HEADER} header when present and
+ * otherwise detected from the payload's first byte, so consumers keep working while producers are
+ * migrated between formats.
+ *
+ * @param <T> the event type, {@link io.analytics.platform.common.dto.RawEvent} or {@link
+ *     io.analytics.platform.common.dto.ProcessedEvent}
+ */
+public class EventDeserializer<T> implements Deserializer<T> {
+
+  private JsonCodec<T> json;
+  private BinaryEventCodec<T> binary;
+
+  /** Creates a deserializer whose type is resolved from configuration. */
+  public EventDeserializer() {}
+
+  /**
+   * Creates a deserializer for the given event type.
+   *
+   * @param type the event type
+   * @throws IllegalArgumentException if the type has no binary encoding
+   */
+  public EventDeserializer(Class<T> type) {
+    bind(type);
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    if (json == null) {
+      JsonCodec<T> codec = CodecConfig.resolve(configs, JsonCodecSerializer.VALUE_TYPE_CONFIG);
+      try {
+        bind(codec.type());
+      } catch (IllegalArgumentException e) {
+        throw new ConfigException(
+            JsonCodecSerializer.VALUE_TYPE_CONFIG, codec.type().getName(), e.getMessage());
+      }
+    }
+  }
+
+  /** Decodes a record, detecting its format from the payload. */
+  @Override
+  public T deserialize(String topic, byte[] data) {
+    if (data == null) {
+      return null;
+    }
+    return decode(topic, data, WireFormat.detect(data, 0, data.length));
+  }
+
+  /** Decodes a record, using its content type header when present. */
+  @Override
+  public T deserialize(String topic, Headers headers, byte[] data) {
+    if (data == null) {
+      return null;
+    }
+    WireFormat format = null;
+    if (headers != null) {
+      Header header = headers.lastHeader(WireFormat.CONTENT_TYPE_HEADER);
+      format = header != null ? WireFormat.fromContentType(header.value()) : null;
+    }
+    if (format == null) {
+      format = WireFormat.detect(data, 0, data.length);
+    }
+    return decode(topic, data, format);
+  }
+
+  private T decode(String topic, byte[] data, WireFormat format) {
+    if (json == null) {
+      throw new SerializationException("Deserializer is not configured with a value type");
+    }
+    try {
+      return format == WireFormat.BINARY ? binary.decode(data) : json.decode(data);
+    } catch (CodecException e) {
+      throw new SerializationException("Failed to deserialize record from topic " + topic, e);
+    }
+  }
+
+  private void bind(Class<T> type) {
+    this.binary = BinaryEventCodec.forType(type);
+    this.json = JsonCodec.forType(type);
+  }
+}
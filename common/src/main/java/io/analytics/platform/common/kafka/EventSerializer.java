@@ -0,0 +1,135 @@
+package io.analytics.platform.common.kafka;
+
+import io.analytics.platform.common.exception.CodecException;
+import io.analytics.platform.common.util.BinaryEventCodec;
+import io.analytics.platform.common.util.EventCodec;
+import io.analytics.platform.common.util.JsonCodec;
+import io.analytics.platform.common.util.WireFormat;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka {@link Serializer} for event DTOs that writes either JSON or the compact binary format and
+ * tags every record with a {@link WireFormat#CONTENT_TYPE_HEADER} header.
+ *
+ * <p>JSON is the default. Binary is opt-in, globally through {@link #WIRE_FORMAT_CONFIG} or per
+ * topic through {@code WIRE_FORMAT_CONFIG + "." + topic}, so topics from {@link
+ * io.analytics.platform.common.constants.TopicNames} can be migrated one at a time while consumers
+ * using {@link EventDeserializer} read both encodings.
+ *
+ * @param <T> the event type, {@link io.analytics.platform.common.dto.RawEvent} or {@link
+ *     io.analytics.platform.common.dto.ProcessedEvent}
+ */
+public class EventSerializer<T> implements Serializer<T> {
+
+  /** Configuration key selecting the default wire format: {@code json} or {@code binary}. */
+  public static final String WIRE_FORMAT_CONFIG = "analytics.wire.format";
+
+  private JsonCodec<T> json;
+  private BinaryEventCodec<T> binary;
+  private WireFormat defaultFormat = WireFormat.JSON;
+  private final Map<String, WireFormat> topicFormats = new HashMap<>();
+
+  /** Creates a serializer whose type and format are resolved from configuration. */
+  public EventSerializer() {}
+
+  /**
+   * Creates a serializer for the given event type writing the given format on every topic.
+   *
+   * @param type the event type
+   * @param format the wire format to write
+   * @throws IllegalArgumentException if the type has no binary encoding
+   */
+  public EventSerializer(Class<T> type, WireFormat format) {
+    bind(type);
+    this.defaultFormat = format;
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    if (json == null) {
+      JsonCodec<T> codec = CodecConfig.resolve(configs, JsonCodecSerializer.VALUE_TYPE_CONFIG);
+      try {
+        bind(codec.type());
+      } catch (IllegalArgumentException e) {
+        throw new ConfigException(
+            JsonCodecSerializer.VALUE_TYPE_CONFIG, codec.type().getName(), e.getMessage());
+      }
+    }
+    String prefix = WIRE_FORMAT_CONFIG + ".";
+    for (Map.Entry<String, ?> entry : configs.entrySet()) {
+      String key = entry.getKey();
+      if (key.equals(WIRE_FORMAT_CONFIG)) {
+        defaultFormat = parse(key, entry.getValue());
+      } else if (key.startsWith(prefix)) {
+        topicFormats.put(key.substring(prefix.length()), parse(key, entry.getValue()));
+      }
+    }
+  }
+
+  /**
+   * Returns the format written to the given topic.
+   *
+   * @param topic the destination topic
+   * @return the per-topic override, or the default format
+   */
+  public WireFormat formatFor(String topic) {
+    return topicFormats.getOrDefault(topic, defaultFormat);
+  }
+
+  /** Encodes without a header; used only by clients that do not pass headers. */
+  @Override
+  public byte[] serialize(String topic, T data) {
+    return encode(topic, data, codecFor(topic));
+  }
+
+  /** Encodes the value and records its content type in the record headers. */
+  @Override
+  public byte[] serialize(String topic, Headers headers, T data) {
+    EventCodec<T> codec = codecFor(topic);
+    byte[] payload = encode(topic, data, codec);
+    if (payload != null && headers != null) {
+      headers.remove(WireFormat.CONTENT_TYPE_HEADER);
+      headers.add(WireFormat.CONTENT_TYPE_HEADER, codec.format().contentTypeBytes());
+    }
+    return payload;
+  }
+
+  private EventCodec<T> codecFor(String topic) {
+    if (json == null) {
+      throw new SerializationException("Serializer is not configured with a value type");
+    }
+    return formatFor(topic) == WireFormat.BINARY ? binary : json;
+  }
+
+  private byte[] encode(String topic, T data, EventCodec<T> codec) {
+    if (data == null) {
+      return null;
+    }
+    try {
+      return codec.encode(data);
+    } catch (CodecException e) {
+      throw new SerializationException("Failed to serialize record for topic " + topic, e);
+    }
+  }
+
+  private void bind(Class<T> type) {
+    this.binary = BinaryEventCodec.forType(type);
+    this.json = JsonCodec.forType(type);
+  }
+
+  private static WireFormat parse(String key, Object value) {
+    if (value instanceof WireFormat format) {
+      return format;
+    }
+    try {
+      return WireFormat.fromName(value != null ? value.toString() : null);
+    } catch (IllegalArgumentException e) {
+      throw new ConfigException(key, value, e.getMessage());
+    }
+  }
+}
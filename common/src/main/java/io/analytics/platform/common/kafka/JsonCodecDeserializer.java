@@ -0,0 +1,63 @@
+package io.analytics.platform.common.kafka;
+
+import io.analytics.platform.common.exception.CodecException;
+import io.analytics.platform.common.util.JsonCodec;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Kafka {@link Deserializer} that reads UTF-8 JSON record values through a {@link JsonCodec},
+ * without materializing an intermediate String.
+ *
+ * <p>Instances can be passed directly to a consumer factory, e.g. {@code new
+ * JsonCodecDeserializer<>(JsonCodec.RAW_EVENT)}. When instantiated by Kafka from configuration,
+ * the target type is read from {@link JsonCodecSerializer#VALUE_TYPE_CONFIG}.
+ *
+ * @param <T> the record value type
+ */
+public class JsonCodecDeserializer<T> implements Deserializer<T> {
+
+  private JsonCodec<T> codec;
+
+  /** Creates a deserializer whose type is resolved from configuration. */
+  public JsonCodecDeserializer() {}
+
+  /**
+   * Creates a deserializer bound to the given codec.
+   *
+   * @param codec the codec used to decode values
+   */
+  public JsonCodecDeserializer(JsonCodec<T> codec) {
+    this.codec = Objects.requireNonNull(codec, "Codec cannot be null");
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    if (codec == null) {
+      codec = CodecConfig.resolve(configs, JsonCodecSerializer.VALUE_TYPE_CONFIG);
+    }
+  }
+
+  /**
+   * Decodes a record value. {@code null} payloads (tombstones) decode to {@code null}.
+   *
+   * @throws SerializationException if the payload is malformed or rejected by the value type;
+   *     the cause is the underlying {@link CodecException}
+   */
+  @Override
+  public T deserialize(String topic, byte[] data) {
+    if (data == null) {
+      return null;
+    }
+    if (codec == null) {
+      throw new SerializationException("Deserializer is not configured with a value type");
+    }
+    try {
+      return codec.decode(data);
+    } catch (CodecException e) {
+      throw new SerializationException("Failed to deserialize record from topic " + topic, e);
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package io.analytics.platform.common.kafka;
+
+import io.analytics.platform.common.exception.CodecException;
+import io.analytics.platform.common.util.JsonCodec;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka {@link Serializer} that writes record values as UTF-8 JSON through a {@link JsonCodec},
+ * without materializing an intermediate String.
+ *
+ * <p>Instances can be passed directly to a producer factory, e.g. {@code new
+ * JsonCodecSerializer<>(JsonCodec.RAW_EVENT)}. When instantiated by Kafka from configuration, the
+ * target type is read from {@link #VALUE_TYPE_CONFIG}.
+ *
+ * @param <T> the record value type
+ */
+public class JsonCodecSerializer<T> implements Serializer<T> {
+
+  /** Configuration key holding the fully qualified class name of the value type. */
+  public static final String VALUE_TYPE_CONFIG = "analytics.codec.value.type";
+
+  private JsonCodec<T> codec;
+
+  /** Creates a serializer whose type is resolved from {@link #VALUE_TYPE_CONFIG}. */
+  public JsonCodecSerializer() {}
+
+  /**
+   * Creates a serializer bound to the given codec.
+   *
+   * @param codec the codec used to encode values
+   */
+  public JsonCodecSerializer(JsonCodec<T> codec) {
+    this.codec = Objects.requireNonNull(codec, "Codec cannot be null");
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    if (codec == null) {
+      codec = CodecConfig.resolve(configs, VALUE_TYPE_CONFIG);
+    }
+  }
+
+  /**
+   * Encodes a record value. {@code null} values are passed through so tombstones keep working.
+   *
+   * @throws SerializationException if the value cannot be encoded
+   */
+  @Override
+  public byte[] serialize(String topic, T data) {
+    if (data == null) {
+      return null;
+    }
+    if (codec == null) {
+      throw new SerializationException("Serializer is not configured with a value type");
+    }
+    try {
+      return codec.encode(data);
+    } catch (CodecException e) {
+      throw new SerializationException("Failed to serialize record for topic " + topic, e);
+    }
+  }
+}
@@ -112,6 +112,20 @@ public final class Logging {
     }
   }
 
+  /**
+   * Logs a performance warning, e.g. an operation that blocked for too long, at WARN level with the
+   * PERF marker. Write the details as {@code key={}} pairs so that they can be filtered on.
+   *
+   * @param log the logger to use
+   * @param msg the message format string
+   * @param args arguments referenced by the format specifiers in the format string
+   */
+  public static void perf(Logger log, String msg, Object... args) {
+    if (log != null) {
+      log.warn(PERF_MARKER, msg, args);
+    }
+  }
+
   /**
    * Logs a debug message if debug level is enabled. Efficiently checks if debug is enabled before
    * constructing the log message.
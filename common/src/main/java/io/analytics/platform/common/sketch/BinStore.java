@@ -0,0 +1,112 @@
+package io.analytics.platform.common.sketch;
+
+import java.util.Arrays;
+
+/**
+ * Counts of the non-empty logarithmic bins of one sign of a {@link DDSketch}.
+ *
+ * <p>Bins are kept as parallel arrays of ascending bin indexes and their counts, so a sketch of
+ * values spanning a few orders of magnitude holds a few hundred entries whatever its count. Once
+ * more than {@code maxBins} are in use, the lowest bins are merged into the next one: only the
+ * values closest to zero lose accuracy.
+ *
+ * <p>Not thread-safe.
+ */
+final class BinStore {
+
+  private static final int[] NO_KEYS = new int[0];
+  private static final long[] NO_COUNTS = new long[0];
+
+  private final int maxBins;
+  private int[] keys = NO_KEYS;
+  private long[] counts = NO_COUNTS;
+  private int size;
+
+  BinStore(int maxBins) {
+    this.maxBins = maxBins;
+  }
+
+  /** Adds {@code n} to the count of bin {@code key}. */
+  void add(int key, long n) {
+    int i = Arrays.binarySearch(keys, 0, size, key);
+    if (i >= 0) {
+      counts[i] += n;
+      return;
+    }
+    i = -i - 1;
+    if (size == maxBins) {
+      if (i == 0) {
+        // Lower than every kept bin, which already absorbed the collapsed ones
+        counts[0] += n;
+        return;
+      }
+      counts[1] += counts[0];
+      System.arraycopy(keys, 1, keys, 0, size - 1);
+      System.arraycopy(counts, 1, counts, 0, size - 1);
+      size--;
+      i--;
+    }
+    if (size == keys.length) {
+      int capacity = Math.min(Math.max(8, size * 2), maxBins);
+      keys = Arrays.copyOf(keys, capacity);
+      counts = Arrays.copyOf(counts, capacity);
+    }
+    System.arraycopy(keys, i, keys, i + 1, size - i);
+    System.arraycopy(counts, i, counts, i + 1, size - i);
+    keys[i] = key;
+    counts[i] = n;
+    size++;
+  }
+
+  /** Adds every bin of {@code other} in one pass over both stores. */
+  void merge(BinStore other) {
+    if (other.size == 0) {
+      return;
+    }
+    int[] mergedKeys = new int[size + other.size];
+    long[] mergedCounts = new long[mergedKeys.length];
+    int i = 0;
+    int j = 0;
+    int n = 0;
+    while (i < size || j < other.size) {
+      if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+        mergedKeys[n] = keys[i];
+        mergedCounts[n++] = counts[i++];
+      } else if (i == size || other.keys[j] < keys[i]) {
+        mergedKeys[n] = other.keys[j];
+        mergedCounts[n++] = other.counts[j++];
+      } else {
+        mergedKeys[n] = keys[i];
+        mergedCounts[n++] = counts[i++] + other.counts[j++];
+      }
+    }
+    int drop = Math.max(0, n - maxBins);
+    for (int k = 0; k < drop; k++) {
+      mergedCounts[drop] += mergedCounts[k];
+    }
+    keys = Arrays.copyOfRange(mergedKeys, drop, n);
+    counts = Arrays.copyOfRange(mergedCounts, drop, n);
+    size = n - drop;
+  }
+
+  int size() {
+    return size;
+  }
+
+  int key(int i) {
+    return keys[i];
+  }
+
+  long count(int i) {
+    return counts[i];
+  }
+
+  /** Returns the estimated heap retained by the store, including its arrays. */
+  long memoryBytes() {
+    return 24 + arrayBytes(keys.length, Integer.BYTES) + arrayBytes(counts.length, Long.BYTES);
+  }
+
+  private static long arrayBytes(int length, int elementBytes) {
+    return length == 0 ? 0 : (16 + (long) length * elementBytes + 7) & ~7L;
+  }
+}
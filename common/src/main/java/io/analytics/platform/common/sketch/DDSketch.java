@@ -0,0 +1,343 @@
+package io.analytics.platform.common.sketch;
+
+import io.analytics.platform.common.exception.DecodingException;
+import io.analytics.platform.common.util.BinaryReader;
+import io.analytics.platform.common.util.BinaryWriter;
+
+/**
+ * Mergeable quantile sketch with a relative error guarantee, after the DDSketch algorithm.
+ *
+ * <p>Every value is counted in a logarithmic bin: bin {@code i} holds the magnitudes in {@code
+ * (gamma^(i-1), gamma^i]} with {@code gamma = (1 + a) / (1 - a)}, and is represented by a value
+ * within the relative accuracy {@code a} of all of them. A quantile estimate is therefore within
+ * {@code a} of the exact quantile of the added values, whatever their distribution. Negative
+ * values have mirrored bins and zero a count of its own.
+ *
+ * <p>Bins only depend on the accuracy, so sketches built independently, e.g. by several processor
+ * instances over the same window, {@link #merge merge} exactly: the result equals the sketch of
+ * all their values. Each sign keeps at most {@code maxBins} bins, which bounds memory and
+ * serialized size; past it the bins closest to zero are collapsed, and only quantiles falling in
+ * them lose the guarantee. With the defaults, values from 1 to 10<sup>9</sup> fit in about 1,050
+ * bins.
+ *
+ * <p>{@link #toBytes()} writes a compact binary form, varint-coded with delta-coded bin indexes,
+ * typically 2 to 4 bytes per bin.
+ *
+ * <p>Not thread-safe.
+ */
+public final class DDSketch {
+
+  /** Relative accuracy of sketches created with {@link #DDSketch()}. */
+  public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+  /** Bins per sign of sketches created with {@link #DDSketch()}. */
+  public static final int DEFAULT_MAX_BINS = 2048;
+
+  private static final int FORMAT_VERSION = 1;
+
+  private final double relativeAccuracy;
+  private final double gamma;
+  private final double lnGamma;
+  private final int maxBins;
+  private final BinStore positive;
+  private final BinStore negative;
+  private long zeroCount;
+  private long count;
+  private double sum;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+
+  /** Creates an empty sketch with 1% relative accuracy and {@value #DEFAULT_MAX_BINS} bins. */
+  public DDSketch() {
+    this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_BINS);
+  }
+
+  /**
+   * Creates an empty sketch.
+   *
+   * @param relativeAccuracy relative error bound of quantile estimates, between 0 and 1 exclusive
+   * @param maxBins bins kept per sign, at least 1
+   * @throws IllegalArgumentException if an argument is out of range
+   */
+  public DDSketch(double relativeAccuracy, int maxBins) {
+    if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+      throw new IllegalArgumentException(
+          "Relative accuracy must be between 0 and 1, got " + relativeAccuracy);
+    }
+    if (maxBins < 1) {
+      throw new IllegalArgumentException("Max bins must be positive, got " + maxBins);
+    }
+    this.relativeAccuracy = relativeAccuracy;
+    this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+    this.lnGamma = Math.log(gamma);
+    this.maxBins = maxBins;
+    this.positive = new BinStore(maxBins);
+    this.negative = new BinStore(maxBins);
+  }
+
+  /**
+   * Adds a value.
+   *
+   * @param value a finite value
+   * @throws IllegalArgumentException if the value is NaN or infinite
+   */
+  public void add(double value) {
+    if (!Double.isFinite(value)) {
+      throw new IllegalArgumentException("Cannot add non-finite value " + value);
+    }
+    if (value > 0) {
+      positive.add(index(value), 1);
+    } else if (value < 0) {
+      negative.add(index(-value), 1);
+    } else {
+      zeroCount++;
+    }
+    count++;
+    sum += value;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  /**
+   * Adds all values of another sketch to this one.
+   *
+   * @param other a sketch with the same relative accuracy; it is not modified
+   * @throws IllegalArgumentException if the relative accuracies differ
+   */
+  public void merge(DDSketch other) {
+    if (Double.compare(relativeAccuracy, other.relativeAccuracy) != 0) {
+      throw new IllegalArgumentException(
+          "Cannot merge sketches of relative accuracy "
+              + relativeAccuracy
+              + " and "
+              + other.relativeAccuracy);
+    }
+    if (other.count == 0) {
+      return;
+    }
+    positive.merge(other.positive);
+    negative.merge(other.negative);
+    zeroCount += other.zeroCount;
+    count += other.count;
+    sum += other.sum;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  /**
+   * Estimates a quantile of the added values.
+   *
+   * @param q the quantile, between 0 and 1
+   * @return the estimate, within the relative accuracy of the exact value and between {@link
+   *     #min()} and {@link #max()}; NaN if the sketch is empty
+   * @throws IllegalArgumentException if {@code q} is out of range
+   */
+  public double quantile(double q) {
+    if (!(q >= 0 && q <= 1)) {
+      throw new IllegalArgumentException("Quantile must be between 0 and 1, got " + q);
+    }
+    if (count == 0) {
+      return Double.NaN;
+    }
+    double estimate = valueAtRank((long) (q * (count - 1)));
+    return Math.max(min, Math.min(max, estimate));
+  }
+
+  /**
+   * Returns the number of added values.
+   *
+   * @return the count
+   */
+  public long count() {
+    return count;
+  }
+
+  /**
+   * Returns whether no value was added.
+   *
+   * @return true if the count is 0
+   */
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  /**
+   * Returns the exact sum of the added values.
+   *
+   * @return the sum, 0 if empty
+   */
+  public double sum() {
+    return sum;
+  }
+
+  /**
+   * Returns the exact smallest added value.
+   *
+   * @return the minimum, positive infinity if empty
+   */
+  public double min() {
+    return min;
+  }
+
+  /**
+   * Returns the exact largest added value.
+   *
+   * @return the maximum, negative infinity if empty
+   */
+  public double max() {
+    return max;
+  }
+
+  /**
+   * Returns the relative accuracy of the quantile estimates.
+   *
+   * @return the accuracy given at creation
+   */
+  public double relativeAccuracy() {
+    return relativeAccuracy;
+  }
+
+  /**
+   * Returns the number of non-empty bins over both signs.
+   *
+   * @return bins in use, at most twice {@code maxBins}
+   */
+  public int binCount() {
+    return positive.size() + negative.size();
+  }
+
+  /**
+   * Estimates the heap retained by the sketch, assuming compressed references.
+   *
+   * @return bytes of the sketch, its bin stores and their arrays
+   */
+  public long memoryBytes() {
+    return 88 + positive.memoryBytes() + negative.memoryBytes();
+  }
+
+  /**
+   * Serializes the sketch.
+   *
+   * @return the binary form, readable with {@link #fromBytes(byte[])}
+   */
+  public byte[] toBytes() {
+    BinaryWriter out = new BinaryWriter(48 + 4 * binCount());
+    out.writeByte(FORMAT_VERSION);
+    out.writeDouble(relativeAccuracy);
+    out.writeVarLong(maxBins);
+    out.writeVarLong(count);
+    out.writeVarLong(zeroCount);
+    if (count > 0) {
+      out.writeDouble(sum);
+      out.writeDouble(min);
+      out.writeDouble(max);
+    }
+    write(out, positive);
+    write(out, negative);
+    return out.toByteArray();
+  }
+
+  /**
+   * Reads a sketch written by {@link #toBytes()}.
+   *
+   * @param bytes the binary form
+   * @return the sketch
+   * @throws DecodingException if the bytes are not a valid sketch
+   */
+  public static DDSketch fromBytes(byte[] bytes) {
+    BinaryReader in = new BinaryReader(bytes, 0, bytes.length);
+    int version = in.readByte();
+    if (version != FORMAT_VERSION) {
+      throw new DecodingException("Unsupported sketch format version " + version);
+    }
+    double relativeAccuracy = in.readDouble();
+    int maxBins = in.readVarInt();
+    DDSketch sketch;
+    try {
+      sketch = new DDSketch(relativeAccuracy, maxBins);
+    } catch (IllegalArgumentException e) {
+      throw new DecodingException("Invalid sketch parameters: " + e.getMessage(), e);
+    }
+    long count = in.readVarLong();
+    long zeroCount = in.readVarLong();
+    if (count > 0) {
+      sketch.sum = in.readDouble();
+      sketch.min = in.readDouble();
+      sketch.max = in.readDouble();
+    }
+    long binned = read(in, sketch.positive, maxBins) + read(in, sketch.negative, maxBins);
+    if (in.hasRemaining()) {
+      throw new DecodingException("Trailing bytes after sketch");
+    }
+    if (count != zeroCount + binned || (count > 0 && !(sketch.min <= sketch.max))) {
+      throw new DecodingException("Inconsistent sketch statistics");
+    }
+    sketch.count = count;
+    sketch.zeroCount = zeroCount;
+    return sketch;
+  }
+
+  /** Returns the representative value of the bin holding the value of the given rank. */
+  private double valueAtRank(long rank) {
+    long seen = 0;
+    for (int i = negative.size() - 1; i >= 0; i--) {
+      seen += negative.count(i);
+      if (seen > rank) {
+        return -value(negative.key(i));
+      }
+    }
+    seen += zeroCount;
+    if (seen > rank) {
+      return 0;
+    }
+    for (int i = 0; i < positive.size(); i++) {
+      seen += positive.count(i);
+      if (seen > rank) {
+        return value(positive.key(i));
+      }
+    }
+    return max;
+  }
+
+  private int index(double magnitude) {
+    return (int) Math.ceil(Math.log(magnitude) / lnGamma);
+  }
+
+  private double value(int index) {
+    return 2 * Math.pow(gamma, index) / (gamma + 1);
+  }
+
+  private static void write(BinaryWriter out, BinStore store) {
+    out.writeVarLong(store.size());
+    int previous = 0;
+    for (int i = 0; i < store.size(); i++) {
+      out.writeZigZag((long) store.key(i) - previous);
+      out.writeVarLong(store.count(i));
+      previous = store.key(i);
+    }
+  }
+
+  /** Reads the bins of one sign and returns their total count. */
+  private static long read(BinaryReader in, BinStore store, int maxBins) {
+    int size = in.readVarInt();
+    if (size > maxBins) {
+      throw new DecodingException("Sketch has " + size + " bins, more than " + maxBins);
+    }
+    long total = 0;
+    long key = 0;
+    for (int i = 0; i < size; i++) {
+      long delta = in.readZigZag();
+      if (i > 0 && delta <= 0) {
+        throw new DecodingException("Sketch bins are not in ascending order");
+      }
+      key += delta;
+      long n = in.readVarLong();
+      if (key < Integer.MIN_VALUE || key > Integer.MAX_VALUE || n <= 0) {
+        throw new DecodingException("Invalid sketch bin");
+      }
+      store.add((int) key, n);
+      total += n;
+    }
+    return total;
+  }
+}
@@ -0,0 +1,522 @@
+package io.analytics.platform.common.state;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistent key-value store made of a memory-mapped append-only log and an in-memory index.
+ *
+ * <p>Every {@link #put} and {@link #delete} appends a record to the log, which is mapped in
+ * chunks of {@code chunkSize} bytes, and points the index at it, so writes are sequential memory
+ * copies and reads a hash lookup plus a copy out of the page cache. {@link #flush()} forces the
+ * written pages to disk; records written since the last flush may be lost by a crash, and a
+ * record torn by one fails its checksum and ends the log when it is reopened.
+ *
+ * <p>Overwritten and deleted records stay in the log as garbage. {@link #compactIfNeeded()}
+ * snapshots the live records into a new log, which atomically replaces the old one, once the log
+ * exceeds {@code compactionThreshold} and is more than half garbage, so the log stays within
+ * about twice the live data and reopening only reads what is needed. The bytes written by
+ * compaction count towards {@link #bytesWritten()}, which against {@link #bytesPut()} gives the
+ * write amplification.
+ *
+ * <p>A record is a 4-byte body length, a CRC32C of the body and the body: the varint length of
+ * the UTF-8 key, the key, a kind byte and the value. A length of 0 ends the log and -1 skips to the
+ * next chunk, since records never span chunks.
+ *
+ * <p>Not thread-safe.
+ */
+public final class StateStore implements Closeable {
+
+  /** Size of the mapped chunks of stores opened with {@link #open(Path)}. */
+  public static final int DEFAULT_CHUNK_SIZE = 64 << 20;
+
+  /** Log size below which stores opened with {@link #open(Path)} are not compacted. */
+  public static final long DEFAULT_COMPACTION_THRESHOLD = 64L << 20;
+
+  private static final String LOG_FILE = "state.log";
+  private static final String COMPACTED_FILE = "state.log.compacted";
+  private static final int HEADER = 8;
+  private static final int END = 0;
+  private static final int PADDING = -1;
+  private static final byte PUT = 1;
+  private static final byte DELETE = 2;
+
+  private final Path directory;
+  private final int chunkSize;
+  private final long compactionThreshold;
+  private final Map<String, Long> index = new HashMap<>();
+  private final CRC32C crc = new CRC32C();
+  private Log log;
+  private long liveBytes;
+  private long bytesPut;
+  private long bytesWritten;
+  private int compactions;
+
+  private StateStore(Path directory, int chunkSize, long compactionThreshold) {
+    this.directory = directory;
+    this.chunkSize = chunkSize;
+    this.compactionThreshold = compactionThreshold;
+  }
+
+  /**
+   * Opens the store of a directory with the default chunk size and compaction threshold.
+   *
+   * @param directory directory of the log, created if missing
+   * @return the store, holding the records of the existing log if any
+   * @throws UncheckedIOException if the log cannot be read or created
+   */
+  public static StateStore open(Path directory) {
+    return open(directory, DEFAULT_CHUNK_SIZE, DEFAULT_COMPACTION_THRESHOLD);
+  }
+
+  /**
+   * Opens the store of a directory.
+   *
+   * @param directory directory of the log, created if missing
+   * @param chunkSize bytes mapped at a time, which bounds the size of a record; must be the same
+   *     every time a log is opened
+   * @param compactionThreshold log size below which the log is not compacted
+   * @return the store, holding the records of the existing log if any
+   * @throws IllegalArgumentException if the chunk size is below 1 KB
+   * @throws UncheckedIOException if the log cannot be read or created
+   */
+  public static StateStore open(Path directory, int chunkSize, long compactionThreshold) {
+    if (chunkSize < 1024) {
+      throw new IllegalArgumentException("Chunk size must be at least 1 KB, got " + chunkSize);
+    }
+    StateStore store = new StateStore(directory, chunkSize, compactionThreshold);
+    try {
+      Files.createDirectories(directory);
+      Files.deleteIfExists(directory.resolve(COMPACTED_FILE));
+      store.log = new Log(directory.resolve(LOG_FILE), chunkSize);
+      store.replay();
+    } catch (IOException e) {
+      if (store.log != null) {
+        store.log.closeQuietly();
+      }
+      throw new UncheckedIOException("Cannot open state store in " + directory, e);
+    }
+    return store;
+  }
+
+  /**
+   * Returns the value of a key.
+   *
+   * @param key the key
+   * @return a copy of the value, null if the key is absent
+   */
+  public byte[] get(String key) {
+    Long position = index.get(key);
+    return position != null ? value(position) : null;
+  }
+
+  /**
+   * Sets the value of a key.
+   *
+   * @param key the key
+   * @param value the value
+   * @throws IllegalArgumentException if the record does not fit in a chunk
+   * @throws UncheckedIOException if the log cannot grow
+   */
+  public void put(String key, byte[] value) {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    long position = append(keyBytes, PUT, value);
+    release(index.put(key, position));
+    liveBytes += recordSize(position);
+    bytesPut += keyBytes.length + value.length;
+  }
+
+  /**
+   * Removes a key.
+   *
+   * @param key the key
+   * @throws UncheckedIOException if the log cannot grow
+   */
+  public void delete(String key) {
+    Long previous = index.remove(key);
+    if (previous != null) {
+      release(previous);
+      append(key.getBytes(StandardCharsets.UTF_8), DELETE, new byte[0]);
+    }
+  }
+
+  /**
+   * Passes every key and a copy of its value to an action, in no particular order.
+   *
+   * @param action the action
+   */
+  public void forEach(BiConsumer<String, byte[]> action) {
+    for (Map.Entry<String, Long> entry : index.entrySet()) {
+      action.accept(entry.getKey(), value(entry.getValue()));
+    }
+  }
+
+  /**
+   * Forces the records written since the previous flush to disk.
+   *
+   * @throws UncheckedIOException if the pages cannot be written
+   */
+  public void flush() {
+    log.force();
+  }
+
+  /**
+   * Rewrites the live records into a new log if the log is over the compaction threshold and more
+   * than half garbage. The new log is flushed before it replaces the old one.
+   *
+   * @return whether the log was compacted
+   * @throws UncheckedIOException if the new log cannot be written
+   */
+  public boolean compactIfNeeded() {
+    long size = log.end;
+    if (size < compactionThreshold || size - liveBytes <= liveBytes) {
+      return false;
+    }
+    compact();
+    return true;
+  }
+
+  /**
+   * Returns the number of keys.
+   *
+   * @return keys with a value
+   */
+  public int size() {
+    return index.size();
+  }
+
+  /**
+   * Returns the size of the log, garbage included.
+   *
+   * @return bytes up to the end of the last record
+   */
+  public long logBytes() {
+    return log.end;
+  }
+
+  /**
+   * Returns the size of the records of the current values.
+   *
+   * @return bytes a compacted log would take, without chunk padding
+   */
+  public long liveBytes() {
+    return liveBytes;
+  }
+
+  /**
+   * Returns the key and value bytes passed to {@link #put} since the store was opened.
+   *
+   * @return the logical bytes written
+   */
+  public long bytesPut() {
+    return bytesPut;
+  }
+
+  /**
+   * Returns the bytes appended to the log since the store was opened, by writes and compaction.
+   *
+   * @return the physical bytes written
+   */
+  public long bytesWritten() {
+    return bytesWritten;
+  }
+
+  /**
+   * Returns the number of compactions since the store was opened.
+   *
+   * @return the count
+   */
+  public int compactions() {
+    return compactions;
+  }
+
+  /** Flushes and closes the log; the store must not be used afterwards. */
+  @Override
+  public void close() {
+    try {
+      log.force();
+    } finally {
+      log.closeQuietly();
+    }
+  }
+
+  /** Rebuilds the index from the log, ending it at the first invalid record. */
+  private void replay() throws IOException {
+    long position = 0;
+    while (true) {
+      int length = log.readInt(position);
+      if (length == PADDING) {
+        position = log.nextChunk(position);
+        continue;
+      }
+      if (length == END || !isValid(position, length)) {
+        log.truncate(position);
+        return;
+      }
+      ByteBuffer chunk = log.chunk(position);
+      int offset = log.offset(position) + HEADER;
+      int keyLength = readVarInt(chunk, offset);
+      int keyOffset = offset + varIntSize(keyLength);
+      String key = readString(chunk, keyOffset, keyLength);
+      if (chunk.get(keyOffset + keyLength) == PUT) {
+        release(index.put(key, position));
+        liveBytes += HEADER + length;
+      } else {
+        release(index.remove(key));
+      }
+      position += HEADER + length;
+      log.end = position;
+    }
+  }
+
+  private boolean isValid(long position, int length) {
+    int offset = log.offset(position);
+    if (length < 2 || length > chunkSize - offset - HEADER) {
+      return false;
+    }
+    ByteBuffer chunk = log.chunk(position);
+    crc.reset();
+    crc.update(chunk.slice(offset + HEADER, length));
+    if ((int) crc.getValue() != chunk.getInt(offset + 4)) {
+      return false;
+    }
+    int keyLength = readVarInt(chunk, offset + HEADER);
+    return keyLength >= 0 && varIntSize(keyLength) + keyLength < length;
+  }
+
+  private long append(byte[] key, byte kind, byte[] value) {
+    int length = varIntSize(key.length) + key.length + 1 + value.length;
+    if (length > chunkSize - HEADER) {
+      throw new IllegalArgumentException(
+          "Record of " + length + " bytes does not fit in chunks of " + chunkSize + " bytes");
+    }
+    long before = log.end;
+    long position = log.reserve(HEADER + length);
+    ByteBuffer chunk = log.chunk(position);
+    int offset = log.offset(position);
+    int at = writeVarInt(chunk, offset + HEADER, key.length);
+    chunk.put(at, key);
+    chunk.put(at + key.length, kind);
+    chunk.put(at + key.length + 1, value);
+    crc.reset();
+    crc.update(chunk.slice(offset + HEADER, length));
+    chunk.putInt(offset + 4, (int) crc.getValue());
+    // The length goes last, so a record is only read back once it is complete
+    chunk.putInt(offset, length);
+    bytesWritten += log.end - before;
+    return position;
+  }
+
+  private void compact() {
+    Path target = directory.resolve(COMPACTED_FILE);
+    Log compacted = null;
+    try {
+      compacted = new Log(target, chunkSize);
+      Map<String, Long> positions = new HashMap<>(index.size() * 2);
+      for (Map.Entry<String, Long> entry : index.entrySet()) {
+        long from = entry.getValue();
+        int size = recordSize(from);
+        long before = compacted.end;
+        long to = compacted.reserve(size);
+        compacted.chunk(to).put(compacted.offset(to), log.chunk(from), log.offset(from), size);
+        bytesWritten += compacted.end - before;
+        positions.put(entry.getKey(), to);
+      }
+      compacted.force();
+      Files.move(
+          target,
+          directory.resolve(LOG_FILE),
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      syncDirectory();
+      log.closeQuietly();
+      log = compacted;
+      index.putAll(positions);
+      compactions++;
+    } catch (IOException e) {
+      if (compacted != null) {
+        compacted.closeQuietly();
+      }
+      throw new UncheckedIOException("Cannot compact state store in " + directory, e);
+    }
+  }
+
+  /** Makes the rename of the compacted log durable, where the platform allows it. */
+  private void syncDirectory() {
+    try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+      dir.force(true);
+    } catch (IOException e) {
+      // Directories cannot be opened for syncing on every platform
+    }
+  }
+
+  private void release(Long position) {
+    if (position != null) {
+      liveBytes -= recordSize(position);
+    }
+  }
+
+  private int recordSize(long position) {
+    return HEADER + log.readInt(position);
+  }
+
+  private byte[] value(long position) {
+    ByteBuffer chunk = log.chunk(position);
+    int offset = log.offset(position);
+    int length = chunk.getInt(offset);
+    int keyLength = readVarInt(chunk, offset + HEADER);
+    int valueOffset = offset + HEADER + varIntSize(keyLength) + keyLength + 1;
+    byte[] value = new byte[offset + HEADER + length - valueOffset];
+    chunk.get(valueOffset, value);
+    return value;
+  }
+
+  private static String readString(ByteBuffer chunk, int offset, int length) {
+    byte[] bytes = new byte[length];
+    chunk.get(offset, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static int readVarInt(ByteBuffer chunk, int offset) {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      if (offset >= chunk.capacity()) {
+        return -1;
+      }
+      byte b = chunk.get(offset++);
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    return -1;
+  }
+
+  private static int writeVarInt(ByteBuffer chunk, int offset, int value) {
+    while ((value & ~0x7F) != 0) {
+      chunk.put(offset++, (byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    chunk.put(offset++, (byte) value);
+    return offset;
+  }
+
+  private static int varIntSize(int value) {
+    int size = 1;
+    while ((value & ~0x7F) != 0) {
+      size++;
+      value >>>= 7;
+    }
+    return size;
+  }
+
+  /** The log file, mapped chunk by chunk as it grows. */
+  private static final class Log {
+
+    private final FileChannel channel;
+    private final int chunkSize;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private long end;
+    private int dirtyFrom = Integer.MAX_VALUE;
+
+    Log(Path file, int chunkSize) throws IOException {
+      this.channel =
+          FileChannel.open(
+              file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      this.chunkSize = chunkSize;
+    }
+
+    ByteBuffer chunk(long position) {
+      int index = (int) (position / chunkSize);
+      while (chunks.size() <= index) {
+        try {
+          chunks.add(
+              channel.map(
+                  FileChannel.MapMode.READ_WRITE, (long) chunks.size() * chunkSize, chunkSize));
+        } catch (IOException e) {
+          throw new UncheckedIOException("Cannot map state log", e);
+        }
+      }
+      return chunks.get(index);
+    }
+
+    int offset(long position) {
+      return (int) (position % chunkSize);
+    }
+
+    int readInt(long position) {
+      int offset = offset(position);
+      return offset + 4 <= chunkSize ? chunk(position).getInt(offset) : PADDING;
+    }
+
+    long nextChunk(long position) {
+      return (position / chunkSize + 1) * chunkSize;
+    }
+
+    /** Returns the position of a new record, padding the current chunk if it does not fit. */
+    long reserve(int size) {
+      if (offset(end) + size > chunkSize) {
+        if (offset(end) + 4 <= chunkSize) {
+          chunk(end).putInt(offset(end), PADDING);
+          markDirty(end);
+        }
+        end = nextChunk(end);
+      }
+      long position = end;
+      chunk(position);
+      markDirty(position);
+      end += size;
+      return position;
+    }
+
+    /** Erases whatever follows the end of the log, e.g. a record torn by a crash. */
+    void truncate(long position) throws IOException {
+      end = position;
+      ByteBuffer chunk = chunk(position);
+      byte[] zeros = new byte[8192];
+      for (int offset = offset(position); offset < chunkSize; offset += zeros.length) {
+        chunk.put(offset, zeros, 0, Math.min(zeros.length, chunkSize - offset));
+      }
+      markDirty(position);
+      long keep = nextChunk(position);
+      if (channel.size() > keep) {
+        channel.truncate(keep);
+      }
+      force();
+    }
+
+    void force() {
+      for (int i = dirtyFrom; i < chunks.size(); i++) {
+        chunks.get(i).force();
+      }
+      dirtyFrom = Integer.MAX_VALUE;
+    }
+
+    void closeQuietly() {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // Nothing left to release
+      }
+    }
+
+    private void markDirty(long position) {
+      dirtyFrom = Math.min(dirtyFrom, (int) (position / chunkSize));
+    }
+  }
+}
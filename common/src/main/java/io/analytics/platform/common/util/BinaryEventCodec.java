@@ -0,0 +1,380 @@
+package io.analytics.platform.common.util;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.dto.RawEvent;
+import io.analytics.platform.common.dto.Tags;
+import io.analytics.platform.common.exception.DecodingException;
+import io.analytics.platform.common.exception.EncodingException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Compact binary codec for {@link RawEvent} and {@link ProcessedEvent}.
+ *
+ * <p>Layout (version 1):
+ *
+ * <pre>
+ * magic(0xAE) version(1) recordType presenceBits fields...
+ *
+ * string    varint(utf8Length + 1) utf8Bytes      (0 = null)
+ * instant   zigzag(epochSecond) varint(nano)
+ * double    8 bytes, raw IEEE-754, big-endian
+ * map       varint(size) { key value }*
+ * key       varint(dictIndex + 1) | 0 string     (dictionary of well-known tag keys)
+ * value     typeByte payload                     (null, string, int, long, double, bool, json)
+ * </pre>
+ *
+ * <p>Fields are written in record component order. Values that are not strings, integers, longs,
+ * doubles or booleans (e.g. nested objects) are embedded as length-prefixed JSON, so any map that
+ * can travel as JSON can travel as binary. Tag and metadata maps decode into {@link Tags}. Decoding
+ * uses the canonical record constructors, like the JSON path, and therefore does not validate.
+ *
+ * <p>The key dictionary is part of the schema version: entries may only be appended, and a
+ * reordering requires a new {@link #VERSION}.
+ *
+ * @param <T> the event type handled by the codec
+ */
+public final class BinaryEventCodec<T> implements EventCodec<T> {
+
+  /** First byte of every binary payload; a UTF-8 continuation byte, so never the start of JSON. */
+  public static final byte MAGIC = (byte) 0xAE;
+
+  /** Schema version written by this codec. */
+  public static final int VERSION = 1;
+
+  private static final int TYPE_RAW_EVENT = 1;
+  private static final int TYPE_PROCESSED_EVENT = 2;
+
+  private static final int HAS_TS = 1;
+  private static final int HAS_VALUE = 1 << 1;
+  private static final int HAS_TAGS = 1 << 2;
+  private static final int HAS_META = 1 << 3;
+
+  private static final int V_NULL = 0;
+  private static final int V_STRING = 1;
+  private static final int V_INT = 2;
+  private static final int V_LONG = 3;
+  private static final int V_DOUBLE = 4;
+  private static final int V_TRUE = 5;
+  private static final int V_FALSE = 6;
+  private static final int V_JSON = 7;
+
+  /** Well-known tag and metadata keys, dictionary-coded in schema version 1. Append only. */
+  private static final String[] KEY_DICTIONARY = {
+    "host", "region", "sensor", "source", "device", "env", "service", "unit",
+    "type", "location", "zone", "version", "stage", "pipeline", "tenant", "app"
+  };
+
+  private static final Map<String, Integer> KEY_INDEX = new HashMap<>();
+
+  static {
+    for (int i = 0; i < KEY_DICTIONARY.length; i++) {
+      KEY_INDEX.put(KEY_DICTIONARY[i], i);
+    }
+  }
+
+  private static final int INITIAL_BUFFER_SIZE = 256;
+  private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+  private static final ThreadLocal<BinaryWriter> BUFFERS =
+      ThreadLocal.withInitial(() -> new BinaryWriter(INITIAL_BUFFER_SIZE));
+
+  /** Codec for {@link RawEvent}. */
+  public static final BinaryEventCodec<RawEvent> RAW_EVENT =
+      new BinaryEventCodec<>(
+          RawEvent.class,
+          TYPE_RAW_EVENT,
+          BinaryEventCodec::writeRawEvent,
+          BinaryEventCodec::readRawEvent);
+
+  /** Codec for {@link ProcessedEvent}. */
+  public static final BinaryEventCodec<ProcessedEvent> PROCESSED_EVENT =
+      new BinaryEventCodec<>(
+          ProcessedEvent.class,
+          TYPE_PROCESSED_EVENT,
+          BinaryEventCodec::writeProcessedEvent,
+          BinaryEventCodec::readProcessedEvent);
+
+  private final Class<T> type;
+  private final int recordType;
+  private final BiConsumer<BinaryWriter, T> body;
+  private final Function<BinaryReader, T> reader;
+
+  private BinaryEventCodec(
+      Class<T> type,
+      int recordType,
+      BiConsumer<BinaryWriter, T> body,
+      Function<BinaryReader, T> reader) {
+    this.type = type;
+    this.recordType = recordType;
+    this.body = body;
+    this.reader = reader;
+  }
+
+  /**
+   * Returns the binary codec for the given event type.
+   *
+   * @param <T> the event type
+   * @param type the class of T
+   * @return the codec
+   * @throws IllegalArgumentException if the type has no binary encoding
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> BinaryEventCodec<T> forType(Class<T> type) {
+    if (type == RawEvent.class) {
+      return (BinaryEventCodec<T>) RAW_EVENT;
+    }
+    if (type == ProcessedEvent.class) {
+      return (BinaryEventCodec<T>) PROCESSED_EVENT;
+    }
+    throw new IllegalArgumentException("No binary encoding for " + type.getName());
+  }
+
+  /**
+   * Returns whether a binary encoding exists for the given type.
+   *
+   * @param type the type to check
+   * @return true for {@link RawEvent} and {@link ProcessedEvent}
+   */
+  public static boolean supports(Class<?> type) {
+    return type == RawEvent.class || type == ProcessedEvent.class;
+  }
+
+  /**
+   * Returns the event type handled by this codec.
+   *
+   * @return the bound class
+   */
+  public Class<T> type() {
+    return type;
+  }
+
+  /**
+   * Returns {@link WireFormat#BINARY}.
+   *
+   * @return the binary wire format
+   */
+  @Override
+  public WireFormat format() {
+    return WireFormat.BINARY;
+  }
+
+  /**
+   * Encodes an event.
+   *
+   * @param value the event to encode
+   * @return a new array holding the payload
+   * @throws EncodingException if the event is null or a nested value cannot be encoded
+   */
+  @Override
+  public byte[] encode(T value) {
+    if (value == null) {
+      throw new EncodingException("Cannot encode a null event in binary format");
+    }
+    BinaryWriter out = BUFFERS.get();
+    out.reset();
+    out.writeByte(MAGIC);
+    out.writeByte(VERSION);
+    out.writeByte(recordType);
+    body.accept(out, value);
+    byte[] payload = out.toByteArray();
+    if (out.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+      BUFFERS.remove();
+    }
+    return payload;
+  }
+
+  /**
+   * Decodes an event.
+   *
+   * @param bytes the backing array
+   * @param offset index of the first byte
+   * @param length number of bytes in the payload
+   * @return the decoded event
+   * @throws DecodingException if the header is wrong, the version is unsupported, or the payload
+   *     is truncated or malformed
+   */
+  @Override
+  public T decode(byte[] bytes, int offset, int length) {
+    Objects.requireNonNull(bytes, "Binary payload cannot be null");
+    Objects.checkFromIndexSize(offset, length, bytes.length);
+    BinaryReader in = new BinaryReader(bytes, offset, length);
+    if (!in.hasRemaining() || (byte) in.readByte() != MAGIC) {
+      throw new DecodingException("Payload is not in binary event format");
+    }
+    int version = in.readByte();
+    if (version != VERSION) {
+      throw new DecodingException("Unsupported binary event version: " + version);
+    }
+    int actualType = in.readByte();
+    if (actualType != recordType) {
+      throw new DecodingException(
+          "Binary payload holds record type " + actualType + ", expected " + recordType);
+    }
+    T event = reader.apply(in);
+    if (in.hasRemaining()) {
+      throw new DecodingException("Trailing bytes after binary event");
+    }
+    return event;
+  }
+
+  private static void writeRawEvent(BinaryWriter out, RawEvent e) {
+    out.writeByte(presence(e.ts(), e.value(), e.tags(), null));
+    out.writeString(e.id());
+    writeCommon(out, e.ts(), e.value(), e.tags());
+  }
+
+  private static RawEvent readRawEvent(BinaryReader in) {
+    int bits = in.readByte();
+    String id = in.readString();
+    Instant ts = (bits & HAS_TS) != 0 ? readInstant(in) : null;
+    Double value = (bits & HAS_VALUE) != 0 ? in.readDouble() : null;
+    Map<String, Object> tags = (bits & HAS_TAGS) != 0 ? readMap(in) : null;
+    return new RawEvent(id, ts, value, tags);
+  }
+
+  private static void writeProcessedEvent(BinaryWriter out, ProcessedEvent e) {
+    out.writeByte(presence(e.ts(), e.valueTransformed(), e.tags(), e.meta()));
+    out.writeString(e.id());
+    writeCommon(out, e.ts(), e.valueTransformed(), e.tags());
+    if (e.meta() != null) {
+      writeMap(out, e.meta());
+    }
+    out.writeString(e.source());
+  }
+
+  private static ProcessedEvent readProcessedEvent(BinaryReader in) {
+    int bits = in.readByte();
+    String id = in.readString();
+    Instant ts = (bits & HAS_TS) != 0 ? readInstant(in) : null;
+    Double value = (bits & HAS_VALUE) != 0 ? in.readDouble() : null;
+    Map<String, Object> tags = (bits & HAS_TAGS) != 0 ? readMap(in) : null;
+    Map<String, Object> meta = (bits & HAS_META) != 0 ? readMap(in) : null;
+    String source = in.readString();
+    return new ProcessedEvent(id, ts, value, tags, meta, source);
+  }
+
+  private static int presence(Instant ts, Double value, Map<?, ?> tags, Map<?, ?> meta) {
+    return (ts != null ? HAS_TS : 0)
+        | (value != null ? HAS_VALUE : 0)
+        | (tags != null ? HAS_TAGS : 0)
+        | (meta != null ? HAS_META : 0);
+  }
+
+  private static void writeCommon(
+      BinaryWriter out, Instant ts, Double value, Map<String, Object> tags) {
+    if (ts != null) {
+      out.writeZigZag(ts.getEpochSecond());
+      out.writeVarLong(ts.getNano());
+    }
+    if (value != null) {
+      out.writeDouble(value);
+    }
+    if (tags != null) {
+      writeMap(out, tags);
+    }
+  }
+
+  private static Instant readInstant(BinaryReader in) {
+    long seconds = in.readZigZag();
+    long nanos = in.readVarLong();
+    try {
+      return Instant.ofEpochSecond(seconds, nanos);
+    } catch (DateTimeException | ArithmeticException e) {
+      throw new DecodingException("Invalid timestamp in binary payload", e);
+    }
+  }
+
+  private static void writeMap(BinaryWriter out, Map<String, Object> map) {
+    out.writeVarLong(map.size());
+    for (Map.Entry<String, Object> entry : map.entrySet()) {
+      writeKey(out, entry.getKey());
+      writeValue(out, entry.getValue());
+    }
+  }
+
+  private static Tags readMap(BinaryReader in) {
+    int size = in.readVarInt();
+    Tags.Builder tags = Tags.builder();
+    for (int i = 0; i < size; i++) {
+      String key = readKey(in);
+      if (key == null) {
+        throw new DecodingException("Null tag key in binary payload");
+      }
+      tags.put(key, readValue(in));
+    }
+    return tags.build();
+  }
+
+  private static void writeKey(BinaryWriter out, String key) {
+    Integer index = key != null ? KEY_INDEX.get(key) : null;
+    if (index != null) {
+      out.writeVarLong(index + 1L);
+    } else {
+      out.writeVarLong(0);
+      out.writeString(key);
+    }
+  }
+
+  private static String readKey(BinaryReader in) {
+    int code = in.readVarInt();
+    if (code == 0) {
+      return in.readString();
+    }
+    if (code > KEY_DICTIONARY.length) {
+      throw new DecodingException("Unknown dictionary key index: " + (code - 1));
+    }
+    return KEY_DICTIONARY[code - 1];
+  }
+
+  private static void writeValue(BinaryWriter out, Object value) {
+    if (value == null) {
+      out.writeByte(V_NULL);
+    } else if (value instanceof String s) {
+      out.writeByte(V_STRING);
+      out.writeString(s);
+    } else if (value instanceof Integer i) {
+      out.writeByte(V_INT);
+      out.writeZigZag(i);
+    } else if (value instanceof Long l) {
+      out.writeByte(V_LONG);
+      out.writeZigZag(l);
+    } else if (value instanceof Double d) {
+      out.writeByte(V_DOUBLE);
+      out.writeDouble(d);
+    } else if (value instanceof Boolean b) {
+      out.writeByte(b ? V_TRUE : V_FALSE);
+    } else {
+      byte[] json = JsonUtil.toJsonBytes(value);
+      out.writeByte(V_JSON);
+      out.writeVarLong(json.length);
+      out.writeBytes(json);
+    }
+  }
+
+  private static Object readValue(BinaryReader in) {
+    int typeByte = in.readByte();
+    return switch (typeByte) {
+      case V_NULL -> null;
+      case V_STRING -> in.readString();
+      case V_INT -> {
+        long v = in.readZigZag();
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+          throw new DecodingException("Integer value out of range in binary payload");
+        }
+        yield (int) v;
+      }
+      case V_LONG -> in.readZigZag();
+      case V_DOUBLE -> in.readDouble();
+      case V_TRUE -> Boolean.TRUE;
+      case V_FALSE -> Boolean.FALSE;
+      case V_JSON -> JsonCodec.forType(Object.class).decode(in.readBytes(in.readVarInt()));
+      default -> throw new DecodingException("Unknown value type in binary payload: " + typeByte);
+    };
+  }
+}
@@ -0,0 +1,164 @@
+package io.analytics.platform.common.util;
+
+import io.analytics.platform.common.exception.DecodingException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bounds-checked cursor over a binary wire format payload, also used to read sketches.
+ *
+ * <p>Reads what {@link BinaryWriter} writes, with the same conventions:
+ *
+ * <ul>
+ *   <li>integers are unsigned LEB128 varints: 7 bits per byte, least significant group first, the
+ *       high bit set on every byte but the last, at most 10 bytes for a {@code long}
+ *   <li>signed integers are ZigZag-encoded before being written as varints, so that small negative
+ *       values stay short
+ *   <li>doubles are the 8 raw IEEE-754 bytes, big-endian
+ *   <li>strings are prefixed with {@code varint(length + 1)}, the length in UTF-8 bytes, and a
+ *       prefix of 0 stands for null
+ *   <li>byte arrays carry no prefix; their length is known from the context
+ * </ul>
+ *
+ * <p>Every read checks the remaining bytes first and throws {@link DecodingException} on a
+ * truncated or malformed payload, never {@link ArrayIndexOutOfBoundsException}; the position is
+ * then undefined, so the payload must be given up. Not thread-safe.
+ */
+public final class BinaryReader {
+
+  private final byte[] buf;
+  private final int limit;
+  private int pos;
+
+  /**
+   * Creates a reader over {@code buf[offset, offset + length)}. The array is not copied, so it must
+   * not change while being read.
+   *
+   * @param buf the payload
+   * @param offset index of the first byte to read
+   * @param length number of bytes that may be read
+   */
+  public BinaryReader(byte[] buf, int offset, int length) {
+    this.buf = buf;
+    this.pos = offset;
+    this.limit = offset + length;
+  }
+
+  /**
+   * Returns whether bytes are left to read.
+   *
+   * @return true before the end of the payload
+   */
+  public boolean hasRemaining() {
+    return pos < limit;
+  }
+
+  /**
+   * Reads one byte.
+   *
+   * @return the byte, as an unsigned value in {@code [0, 255]}
+   * @throws DecodingException if no byte is left
+   */
+  public int readByte() {
+    require(1);
+    return buf[pos++] & 0xFF;
+  }
+
+  /**
+   * Reads bytes written without a length prefix.
+   *
+   * @param length number of bytes to read
+   * @return a copy of the bytes
+   * @throws DecodingException if length is negative or fewer bytes are left
+   */
+  public byte[] readBytes(int length) {
+    require(length);
+    byte[] out = new byte[length];
+    System.arraycopy(buf, pos, out, 0, length);
+    pos += length;
+    return out;
+  }
+
+  /**
+   * Reads an unsigned LEB128 varint of up to 10 bytes.
+   *
+   * @return the value; varints above {@link Long#MAX_VALUE} come out negative
+   * @throws DecodingException if the payload ends within the varint or it runs over 10 bytes
+   */
+  public long readVarLong() {
+    long result = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = readByte();
+      result |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+    }
+    throw new DecodingException("Malformed varint in binary payload");
+  }
+
+  /**
+   * Reads an unsigned LEB128 varint holding a non-negative {@code int}, e.g. a length or a count.
+   *
+   * @return the value
+   * @throws DecodingException if the varint is truncated or malformed, or above {@link
+   *     Integer#MAX_VALUE}
+   */
+  public int readVarInt() {
+    long v = readVarLong();
+    if (v < 0 || v > Integer.MAX_VALUE) {
+      throw new DecodingException("Varint out of range in binary payload");
+    }
+    return (int) v;
+  }
+
+  /**
+   * Reads a signed value written as a ZigZag-encoded varint.
+   *
+   * @return the value
+   * @throws DecodingException if the varint is truncated or malformed
+   */
+  public long readZigZag() {
+    long v = readVarLong();
+    return (v >>> 1) ^ -(v & 1);
+  }
+
+  /**
+   * Reads the 8 raw IEEE-754 bytes of a double, big-endian.
+   *
+   * @return the value, NaN payloads included
+   * @throws DecodingException if fewer than 8 bytes are left
+   */
+  public double readDouble() {
+    require(8);
+    long bits = 0;
+    for (int i = 0; i < 8; i++) {
+      bits = (bits << 8) | (buf[pos++] & 0xFF);
+    }
+    return Double.longBitsToDouble(bits);
+  }
+
+  /**
+   * Reads a string prefixed with {@code varint(length + 1)}, length in UTF-8 bytes.
+   *
+   * @return the string, or null for a prefix of 0
+   * @throws DecodingException if the prefix is malformed or the payload ends within the string;
+   *     invalid UTF-8 is replaced rather than rejected
+   */
+  public String readString() {
+    int encoded = readVarInt();
+    if (encoded == 0) {
+      return null;
+    }
+    int len = encoded - 1;
+    require(len);
+    String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+    pos += len;
+    return s;
+  }
+
+  private void require(int n) {
+    if (n < 0 || n > limit - pos) {
+      throw new DecodingException("Truncated binary payload");
+    }
+  }
+}
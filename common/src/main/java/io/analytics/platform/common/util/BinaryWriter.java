@@ -0,0 +1,166 @@
+package io.analytics.platform.common.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable, reusable output buffer for the binary wire format.
+ *
+ * <p>The layout is whatever sequence of values the caller writes, with no framing of its own; see
+ * {@link BinaryReader} for the encoding of each value. Integers are unsigned LEB128 varints,
+ * signed ones ZigZag-encoded first, doubles are big-endian and strings are prefixed with {@code
+ * varint(length + 1)}. The buffer doubles when full, so writes never fail for lack of room.
+ *
+ * <p>Not thread-safe; {@link BinaryEventCodec} keeps one instance per thread, and the sketch
+ * serialization uses it as well.
+ */
+public final class BinaryWriter {
+
+  private byte[] buf;
+  private int pos;
+
+  /**
+   * Creates an empty writer.
+   *
+   * @param initialCapacity initial buffer size in bytes; size it for a typical payload so that the
+   *     buffer seldom grows
+   * @throws NegativeArraySizeException if initialCapacity is negative
+   */
+  public BinaryWriter(int initialCapacity) {
+    this.buf = new byte[initialCapacity];
+  }
+
+  /** Discards the bytes written, keeping the buffer for the next payload. */
+  public void reset() {
+    pos = 0;
+  }
+
+  /**
+   * Returns the number of bytes written since the last {@link #reset()}.
+   *
+   * @return the payload size
+   */
+  public int size() {
+    return pos;
+  }
+
+  /**
+   * Returns the current buffer size, e.g. to drop a writer that grew too large to keep around.
+   *
+   * @return the buffer size in bytes
+   */
+  public int capacity() {
+    return buf.length;
+  }
+
+  /**
+   * Returns the bytes written since the last {@link #reset()}.
+   *
+   * @return a copy of the payload
+   */
+  public byte[] toByteArray() {
+    return Arrays.copyOf(buf, pos);
+  }
+
+  /**
+   * Writes one byte.
+   *
+   * @param b the byte; only its low 8 bits are written
+   */
+  public void writeByte(int b) {
+    ensure(1);
+    buf[pos++] = (byte) b;
+  }
+
+  /**
+   * Writes bytes as they are, without a length prefix; the reader must know their length.
+   *
+   * @param bytes the bytes
+   * @throws NullPointerException if bytes is null
+   */
+  public void writeBytes(byte[] bytes) {
+    ensure(bytes.length);
+    System.arraycopy(bytes, 0, buf, pos, bytes.length);
+    pos += bytes.length;
+  }
+
+  /**
+   * Writes an unsigned LEB128 varint: 7 bits per byte, least significant group first, the high bit
+   * set on every byte but the last. Takes 1 byte below 128 and up to 10 bytes.
+   *
+   * @param v the value, taken as unsigned; use {@link #writeZigZag(long)} for signed values
+   */
+  public void writeVarLong(long v) {
+    ensure(10);
+    while ((v & ~0x7FL) != 0) {
+      buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+      v >>>= 7;
+    }
+    buf[pos++] = (byte) v;
+  }
+
+  /**
+   * Writes a signed value as a ZigZag-encoded varint so small negatives stay short: 0, -1, 1, -2
+   * are written as 0, 1, 2, 3.
+   *
+   * @param v the value
+   */
+  public void writeZigZag(long v) {
+    writeVarLong((v << 1) ^ (v >> 63));
+  }
+
+  /**
+   * Writes the raw IEEE-754 bits of a double, big-endian, in 8 bytes.
+   *
+   * @param d the value; NaN payloads are kept
+   */
+  public void writeDouble(double d) {
+    long bits = Double.doubleToRawLongBits(d);
+    ensure(8);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      buf[pos++] = (byte) (bits >>> shift);
+    }
+  }
+
+  /**
+   * Writes a nullable string as {@code varint(length + 1)} followed by UTF-8 bytes; {@code 0}
+   * encodes null. ASCII strings, the common case for ids and tag values, are copied without an
+   * intermediate byte array.
+   *
+   * @param s the string, may be null; unpaired surrogates are written as {@code ?}
+   */
+  public void writeString(String s) {
+    if (s == null) {
+      writeVarLong(0);
+      return;
+    }
+    int len = s.length();
+    if (isAscii(s, len)) {
+      writeVarLong(len + 1L);
+      ensure(len);
+      for (int i = 0; i < len; i++) {
+        buf[pos++] = (byte) s.charAt(i);
+      }
+    } else {
+      byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+      writeVarLong(utf8.length + 1L);
+      writeBytes(utf8);
+    }
+  }
+
+  private static boolean isAscii(String s, int len) {
+    for (int i = 0; i < len; i++) {
+      if (s.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void ensure(int extra) {
+    int required = pos + extra;
+    if (required > buf.length) {
+      buf = Arrays.copyOf(buf, Math.max(required, buf.length << 1));
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package io.analytics.platform.common.util;
+
+/**
+ * A codec that converts values of one type to and from a byte payload in a given {@link
+ * WireFormat}.
+ *
+ * <p>Implementations are immutable and thread-safe.
+ *
+ * @param <T> the type handled by the codec
+ */
+public interface EventCodec<T> {
+
+  /**
+   * Returns the wire format produced and consumed by this codec.
+   *
+   * @return the wire format
+   */
+  WireFormat format();
+
+  /**
+   * Encodes a value.
+   *
+   * @param value the value to encode
+   * @return a new array holding the payload
+   * @throws io.analytics.platform.common.exception.EncodingException if encoding fails
+   */
+  byte[] encode(T value);
+
+  /**
+   * Decodes a payload stored in a slice of an array.
+   *
+   * @param bytes the backing array
+   * @param offset index of the first byte
+   * @param length number of bytes in the payload
+   * @return the decoded value
+   * @throws io.analytics.platform.common.exception.DecodingException if the payload is invalid
+   */
+  T decode(byte[] bytes, int offset, int length);
+
+  /**
+   * Decodes a complete payload.
+   *
+   * @param bytes the payload
+   * @return the decoded value
+   * @throws io.analytics.platform.common.exception.DecodingException if the payload is invalid
+   */
+  default T decode(byte[] bytes) {
+    return decode(bytes, 0, bytes.length);
+  }
+}
@@ -0,0 +1,247 @@
+package io.analytics.platform.common.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.dto.RawEvent;
+import io.analytics.platform.common.dto.WindowAggregate;
+import io.analytics.platform.common.exception.DecodingException;
+import io.analytics.platform.common.exception.EncodingException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Byte-oriented JSON codec bound to a single type.
+ *
+ * <p>Each codec holds an {@link ObjectReader} and {@link ObjectWriter} pre-bound to its type, so
+ * encoding and decoding skip the per-call type resolution that {@link JsonUtil} would otherwise
+ * perform. Payloads are read and written as UTF-8 bytes directly, without an intermediate {@link
+ * String}, and {@link #encode(Object)} reuses a per-thread output buffer.
+ *
+ * <p>Codecs are immutable and thread-safe. Instances for the platform DTOs are exposed as
+ * constants; other types can be obtained through {@link #forType(Class)}, which caches one codec
+ * per class.
+ *
+ * @param <T> the type handled by this codec
+ */
+public final class JsonCodec<T> implements EventCodec<T> {
+
+  /** Initial capacity of the per-thread output buffer; large enough for typical events. */
+  private static final int INITIAL_BUFFER_SIZE = 512;
+
+  /** Buffers retained above this size are dropped after use to avoid pinning large arrays. */
+  private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+  private static final ClassValue<JsonCodec<?>> CODECS =
+      new ClassValue<>() {
+        @Override
+        protected JsonCodec<?> computeValue(Class<?> type) {
+          return new JsonCodec<>(type);
+        }
+      };
+
+  private static final ThreadLocal<ByteArrayBuilder> BUFFERS =
+      ThreadLocal.withInitial(() -> new ByteArrayBuilder(INITIAL_BUFFER_SIZE));
+
+  /** Codec for {@link RawEvent}. */
+  public static final JsonCodec<RawEvent> RAW_EVENT = forType(RawEvent.class);
+
+  /** Codec for {@link ProcessedEvent}. */
+  public static final JsonCodec<ProcessedEvent> PROCESSED_EVENT = forType(ProcessedEvent.class);
+
+  /** Codec for {@link AlertEvent}. */
+  public static final JsonCodec<AlertEvent> ALERT_EVENT = forType(AlertEvent.class);
+
+  /** Codec for {@link WindowAggregate}. */
+  public static final JsonCodec<WindowAggregate> WINDOW_AGGREGATE =
+      forType(WindowAggregate.class);
+
+  private final Class<T> type;
+  private final ObjectReader reader;
+  private final ObjectWriter writer;
+
+  private JsonCodec(Class<T> type) {
+    this.type = type;
+    this.reader =
+        JsonUtil.mapper().readerFor(type).without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    this.writer =
+        JsonUtil.mapper().writerFor(type).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+  }
+
+  /**
+   * Returns the codec bound to the given type, creating and caching it on first use.
+   *
+   * @param <T> the type handled by the codec
+   * @param type the class of T
+   * @return the shared codec for {@code type}
+   * @throws NullPointerException if type is null
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> JsonCodec<T> forType(Class<T> type) {
+    Objects.requireNonNull(type, "Codec type cannot be null");
+    return (JsonCodec<T>) CODECS.get(type);
+  }
+
+  /**
+   * Returns the type handled by this codec.
+   *
+   * @return the bound class
+   */
+  public Class<T> type() {
+    return type;
+  }
+
+  /**
+   * Returns {@link WireFormat#JSON}.
+   *
+   * @return the JSON wire format
+   */
+  @Override
+  public WireFormat format() {
+    return WireFormat.JSON;
+  }
+
+  /**
+   * Encodes a value to UTF-8 JSON bytes.
+   *
+   * @param value the value to encode (may be null, which encodes as {@code null})
+   * @return a new array holding the JSON document
+   * @throws EncodingException if serialization fails
+   */
+  @Override
+  public byte[] encode(T value) {
+    ByteArrayBuilder buffer = BUFFERS.get();
+    byte[] json;
+    try {
+      writer.writeValue(buffer, value);
+      json = buffer.toByteArray();
+    } catch (IOException e) {
+      throw new EncodingException("Failed to serialize object to JSON", e);
+    } finally {
+      buffer.reset();
+    }
+    if (json.length > MAX_RETAINED_BUFFER_SIZE) {
+      BUFFERS.remove();
+    }
+    return json;
+  }
+
+  /**
+   * Encodes a value and wraps the result in a heap {@link ByteBuffer} positioned at zero.
+   *
+   * @param value the value to encode
+   * @return a buffer whose remaining bytes are the JSON document
+   * @throws EncodingException if serialization fails
+   */
+  public ByteBuffer encodeToBuffer(T value) {
+    return ByteBuffer.wrap(encode(value));
+  }
+
+  /**
+   * Encodes a value directly to an output stream. The stream is flushed but not closed.
+   *
+   * @param value the value to encode
+   * @param out the destination stream
+   * @throws EncodingException if serialization or writing fails
+   */
+  public void encode(T value, OutputStream out) {
+    Objects.requireNonNull(out, "Output stream cannot be null");
+    try {
+      writer.writeValue(out, value);
+    } catch (IOException e) {
+      throw new EncodingException("Failed to serialize object to JSON", e);
+    }
+  }
+
+  /**
+   * Decodes a complete JSON document.
+   *
+   * @param bytes UTF-8 JSON bytes
+   * @return the decoded value
+   * @throws DecodingException if the payload is empty, malformed, or rejected by the target type
+   */
+  @Override
+  public T decode(byte[] bytes) {
+    Objects.requireNonNull(bytes, "JSON payload cannot be null");
+    return decode(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Decodes a JSON document stored in a slice of an array.
+   *
+   * @param bytes the backing array
+   * @param offset index of the first byte of the document
+   * @param length number of bytes in the document
+   * @return the decoded value
+   * @throws DecodingException if the payload is empty, malformed, or rejected by the target type
+   */
+  @Override
+  public T decode(byte[] bytes, int offset, int length) {
+    Objects.requireNonNull(bytes, "JSON payload cannot be null");
+    Objects.checkFromIndexSize(offset, length, bytes.length);
+    if (length == 0) {
+      throw new DecodingException("JSON payload cannot be empty");
+    }
+    try {
+      return reader.readValue(bytes, offset, length);
+    } catch (IOException e) {
+      throw new DecodingException("Failed to deserialize JSON", e);
+    }
+  }
+
+  /**
+   * Decodes the remaining bytes of a buffer. On success the buffer's position is advanced to its
+   * limit.
+   *
+   * @param buffer a buffer whose remaining bytes are a JSON document
+   * @return the decoded value
+   * @throws DecodingException if the payload is empty, malformed, or rejected by the target type
+   */
+  public T decode(ByteBuffer buffer) {
+    Objects.requireNonNull(buffer, "JSON payload cannot be null");
+    T value;
+    if (buffer.hasArray()) {
+      value = decode(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    } else if (!buffer.hasRemaining()) {
+      throw new DecodingException("JSON payload cannot be empty");
+    } else {
+      value = decode(new ByteBufferBackedInputStream(buffer.duplicate()));
+    }
+    buffer.position(buffer.limit());
+    return value;
+  }
+
+  /**
+   * Decodes a single JSON document from a stream. The stream is not closed.
+   *
+   * @param in the source stream
+   * @return the decoded value
+   * @throws DecodingException if reading fails, or the payload is malformed or rejected
+   */
+  public T decode(InputStream in) {
+    Objects.requireNonNull(in, "Input stream cannot be null");
+    try {
+      return reader.readValue(in);
+    } catch (IOException e) {
+      throw new DecodingException("Failed to deserialize JSON", e);
+    }
+  }
+
+  /** Pre-bound reader, shared with {@link JsonUtil} for its String-based API. */
+  ObjectReader reader() {
+    return reader;
+  }
+
+  /** Pre-bound writer, shared with {@link JsonUtil} for its String-based API. */
+  ObjectWriter writer() {
+    return writer;
+  }
+}
@@ -4,15 +4,20 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.analytics.platform.common.exception.DecodingException;
+import io.analytics.platform.common.exception.EncodingException;
 
 /**
  * Utility class providing JSON serialization and deserialization functionality using Jackson's
  * {@link ObjectMapper}.
  *
  * <p>This class is thread-safe and uses a single shared {@link ObjectMapper} instance that
- * automatically discovers and registers all available modules.
+ * automatically discovers and registers all available modules. Readers and writers are resolved
+ * once per type through {@link JsonCodec}; hot paths that handle bytes (e.g. Kafka records) should
+ * use a {@link JsonCodec} directly to avoid the String round trip.
  *
  * @see com.fasterxml.jackson.databind.ObjectMapper
+ * @see JsonCodec
  */
 public final class JsonUtil {
 
@@ -23,24 +28,51 @@ public final class JsonUtil {
           .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
           .findAndRegisterModules();
 
+  private static final byte[] NULL_BYTES = {'n', 'u', 'l', 'l'};
+
   private JsonUtil() {
     // Prevent instantiation
     throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
   }
 
+  /**
+   * Returns the shared, fully configured mapper. Kept package-private so that every codec in this
+   * package shares one configuration.
+   */
+  static ObjectMapper mapper() {
+    return MAPPER;
+  }
+
   /**
    * Serializes an object to its JSON representation.
    *
    * @param obj the object to serialize (may be null)
    * @return JSON string representation of the object
-   * @throws RuntimeException if serialization fails
+   * @throws EncodingException if serialization fails
    */
   public static String toJson(Object obj) {
     try {
-      return MAPPER.writeValueAsString(obj);
+      return obj == null
+          ? MAPPER.writeValueAsString(null)
+          : JsonCodec.forType(obj.getClass()).writer().writeValueAsString(obj);
     } catch (JsonProcessingException e) {
-      throw new RuntimeException("Failed to serialize object to JSON", e);
+      throw new EncodingException("Failed to serialize object to JSON", e);
+    }
+  }
+
+  /**
+   * Serializes an object to UTF-8 JSON bytes without an intermediate String.
+   *
+   * @param obj the object to serialize (may be null)
+   * @return UTF-8 encoded JSON
+   * @throws EncodingException if serialization fails
+   */
+  @SuppressWarnings("unchecked")
+  public static byte[] toJsonBytes(Object obj) {
+    if (obj == null) {
+      return NULL_BYTES.clone();
     }
+    return ((JsonCodec<Object>) JsonCodec.forType(obj.getClass())).encode(obj);
   }
 
   /**
@@ -51,16 +83,33 @@ public final class JsonUtil {
    * @param clazz the class of T
    * @return an object of type T
    * @throws IllegalArgumentException if json is null or empty
-   * @throws RuntimeException if deserialization fails
+   * @throws DecodingException if deserialization fails
    */
   public static <T> T fromJson(String json, Class<T> clazz) {
     if (json == null || json.trim().isEmpty()) {
       throw new IllegalArgumentException("JSON string cannot be null or empty");
     }
     try {
-      return MAPPER.readValue(json, clazz);
+      return JsonCodec.forType(clazz).reader().readValue(json);
     } catch (JsonProcessingException e) {
-      throw new RuntimeException("Failed to deserialize JSON", e);
+      throw new DecodingException("Failed to deserialize JSON", e);
+    }
+  }
+
+  /**
+   * Deserializes UTF-8 JSON bytes to an object of the specified type.
+   *
+   * @param <T> the type of the desired object
+   * @param json the UTF-8 JSON bytes to deserialize
+   * @param clazz the class of T
+   * @return an object of type T
+   * @throws IllegalArgumentException if json is null or empty
+   * @throws DecodingException if deserialization fails
+   */
+  public static <T> T fromJson(byte[] json, Class<T> clazz) {
+    if (json == null || json.length == 0) {
+      throw new IllegalArgumentException("JSON payload cannot be null or empty");
     }
+    return JsonCodec.forType(clazz).decode(json);
   }
 }
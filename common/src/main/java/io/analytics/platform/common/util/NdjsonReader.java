@@ -0,0 +1,240 @@
+package io.analytics.platform.common.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.analytics.platform.common.exception.DecodingException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Incremental reader of newline-delimited JSON (NDJSON) documents.
+ *
+ * <p>The stream is consumed through a fixed read buffer and split on {@code \n}; each line is then
+ * decoded by a {@link JsonCodec}, i.e. by Jackson's streaming parser over the line bytes. Memory
+ * use is bounded by the read buffer plus {@code maxLineLength}, whatever the size of the stream.
+ *
+ * <p>Lines are decoded on demand and independently of each other, so a malformed or oversized
+ * line fails only itself: {@link #value()} throws for that line and {@link #advance()} moves on to
+ * the next one. Blank lines are skipped and a trailing {@code \r} is ignored.
+ *
+ * <p>Typical use:
+ *
+ * <pre>{@code
+ * NdjsonReader<RawEvent> reader = new NdjsonReader<>(in, JsonCodec.RAW_EVENT, 1 << 20);
+ * while (reader.advance()) {
+ *   try {
+ *     handle(reader.value());
+ *   } catch (DecodingException e) {
+ *     reject(reader.lineNumber(), e.getMessage());
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>Instances are not thread-safe. The reader never closes the underlying stream.
+ *
+ * @param <T> the type of each line
+ */
+public final class NdjsonReader<T> {
+
+  /** Default upper bound of a single line, in bytes. */
+  public static final int DEFAULT_MAX_LINE_LENGTH = 1024 * 1024;
+
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+  private static final int INITIAL_LINE_CAPACITY = 1024;
+
+  private final InputStream in;
+  private final JsonCodec<T> codec;
+  private final int maxLineLength;
+  private final byte[] input = new byte[READ_BUFFER_SIZE];
+  private int inputPosition;
+  private int inputLimit;
+  private boolean endOfStream;
+  private byte[] line;
+  private int lineLength;
+  private boolean oversized;
+  private long lineNumber;
+
+  /**
+   * Creates a reader.
+   *
+   * @param in the source stream, read from its current position
+   * @param codec the codec decoding each line
+   * @param maxLineLength longest accepted line in bytes, excluding the line terminator
+   * @throws NullPointerException if in or codec is null
+   * @throws IllegalArgumentException if maxLineLength is not positive
+   */
+  public NdjsonReader(InputStream in, JsonCodec<T> codec, int maxLineLength) {
+    this.in = Objects.requireNonNull(in, "Input stream cannot be null");
+    this.codec = Objects.requireNonNull(codec, "Codec cannot be null");
+    if (maxLineLength <= 0) {
+      throw new IllegalArgumentException("Maximum line length must be positive");
+    }
+    this.maxLineLength = maxLineLength;
+    this.line = new byte[Math.min(INITIAL_LINE_CAPACITY, maxLineLength)];
+  }
+
+  /**
+   * Moves to the next non-blank line.
+   *
+   * @return false once the stream is exhausted
+   * @throws DecodingException if reading from the stream fails
+   */
+  public boolean advance() {
+    while (readLine()) {
+      if (!isBlank()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Decodes the current line.
+   *
+   * @return the decoded value; a {@code null} literal decodes to null
+   * @throws DecodingException if the line is longer than the limit or is not a valid document;
+   *     the message names the line
+   * @throws IllegalStateException if {@link #advance()} has not returned true
+   */
+  public T value() {
+    if (lineNumber == 0) {
+      throw new IllegalStateException("No current line");
+    }
+    if (oversized) {
+      throw new DecodingException(
+          "Line " + lineNumber + " exceeds the maximum length of " + maxLineLength + " bytes");
+    }
+    try {
+      return codec.decode(line, 0, lineLength);
+    } catch (DecodingException e) {
+      throw new DecodingException("Invalid JSON on line " + lineNumber + ": " + describe(e), e);
+    }
+  }
+
+  /**
+   * Returns a copy of the bytes of the current line, without its line terminator, e.g. to dead
+   * letter a line that does not decode.
+   *
+   * @return the line bytes; empty if the line is oversized, since its bytes were discarded
+   * @throws IllegalStateException if {@link #advance()} has not returned true
+   */
+  public byte[] bytes() {
+    if (lineNumber == 0) {
+      throw new IllegalStateException("No current line");
+    }
+    return oversized ? new byte[0] : Arrays.copyOf(line, lineLength);
+  }
+
+  /**
+   * Returns the 1-based number of the current line, counting blank lines.
+   *
+   * @return the line number, 0 before the first call to {@link #advance()}
+   */
+  public long lineNumber() {
+    return lineNumber;
+  }
+
+  /**
+   * Returns whether the current line exceeded the length limit. Its bytes were discarded.
+   *
+   * @return true if the current line is oversized
+   */
+  public boolean isOversized() {
+    return oversized;
+  }
+
+  private boolean readLine() {
+    lineLength = 0;
+    oversized = false;
+    boolean started = false;
+    while (true) {
+      if (inputPosition == inputLimit && !fill()) {
+        if (!started) {
+          return false;
+        }
+        break;
+      }
+      started = true;
+      int end = indexOfNewline(inputPosition, inputLimit);
+      append(inputPosition, (end < 0 ? inputLimit : end) - inputPosition);
+      if (end >= 0) {
+        inputPosition = end + 1;
+        break;
+      }
+      inputPosition = inputLimit;
+    }
+    lineNumber++;
+    if (!oversized && lineLength > 0 && line[lineLength - 1] == '\r') {
+      lineLength--;
+    }
+    return true;
+  }
+
+  private boolean fill() {
+    if (endOfStream) {
+      return false;
+    }
+    try {
+      int read = in.read(input);
+      while (read == 0) {
+        read = in.read(input);
+      }
+      if (read < 0) {
+        endOfStream = true;
+        return false;
+      }
+      inputPosition = 0;
+      inputLimit = read;
+      return true;
+    } catch (IOException e) {
+      throw new DecodingException("Failed to read NDJSON stream", e);
+    }
+  }
+
+  private int indexOfNewline(int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (input[i] == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void append(int from, int length) {
+    if (oversized) {
+      return;
+    }
+    int required = lineLength + length;
+    if (required > maxLineLength) {
+      // Keep scanning for the terminator, but stop buffering the line
+      oversized = true;
+      return;
+    }
+    if (required > line.length) {
+      line = Arrays.copyOf(line, Math.min(maxLineLength, Math.max(required, line.length * 2)));
+    }
+    System.arraycopy(input, from, line, lineLength, length);
+    lineLength = required;
+  }
+
+  private boolean isBlank() {
+    if (oversized) {
+      return false;
+    }
+    for (int i = 0; i < lineLength; i++) {
+      byte b = line[i];
+      if (b != ' ' && b != '\t' && b != '\r') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String describe(DecodingException e) {
+    if (e.getCause() instanceof JsonProcessingException cause) {
+      return cause.getOriginalMessage();
+    }
+    return e.getMessage();
+  }
+}
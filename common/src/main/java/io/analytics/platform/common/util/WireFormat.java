@@ -0,0 +1,105 @@
+package io.analytics.platform.common.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Wire encodings supported for event payloads on Kafka topics.
+ *
+ * <p>Producers advertise the encoding of each record through the {@link #CONTENT_TYPE_HEADER}
+ * header. Consumers prefer that header and fall back to {@link #detect(byte[], int, int)} for
+ * records written before the header existed, which allows a topic to carry both encodings during a
+ * rolling migration.
+ */
+public enum WireFormat {
+  /** UTF-8 JSON, as produced by {@link JsonCodec}. */
+  JSON("application/json"),
+
+  /** Compact binary encoding, as produced by {@link BinaryEventCodec}. */
+  BINARY("application/vnd.analytics.event+binary;v=1");
+
+  /** Name of the record header carrying the content type. */
+  public static final String CONTENT_TYPE_HEADER = "content-type";
+
+  private final String contentType;
+  private final byte[] contentTypeBytes;
+
+  WireFormat(String contentType) {
+    this.contentType = contentType;
+    this.contentTypeBytes = contentType.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Returns the MIME content type advertised for this format.
+   *
+   * @return the content type
+   */
+  public String contentType() {
+    return contentType;
+  }
+
+  /**
+   * Returns the content type as ASCII bytes, suitable for a Kafka header value. The returned array
+   * is shared and must not be modified.
+   *
+   * @return the content type bytes
+   */
+  public byte[] contentTypeBytes() {
+    return contentTypeBytes;
+  }
+
+  /**
+   * Resolves a format from a content type header value. Parameters after the base type (e.g. a
+   * charset) are ignored for JSON; any binary version is mapped to {@link #BINARY} so that the
+   * codec can report an unsupported version explicitly.
+   *
+   * @param header the raw header value, may be null
+   * @return the matching format, or null if the header is absent or unrecognized
+   */
+  public static WireFormat fromContentType(byte[] header) {
+    if (header == null || header.length == 0) {
+      return null;
+    }
+    String value = new String(header, StandardCharsets.US_ASCII);
+    if (value.startsWith("application/json")) {
+      return JSON;
+    }
+    if (value.startsWith("application/vnd.analytics.event+binary")) {
+      return BINARY;
+    }
+    return null;
+  }
+
+  /**
+   * Detects the encoding of a payload from its first byte. Binary payloads start with {@link
+   * BinaryEventCodec#MAGIC}, which can never begin valid UTF-8 text; everything else is treated as
+   * JSON.
+   *
+   * @param bytes the payload
+   * @param offset index of the first byte
+   * @param length number of bytes in the payload
+   * @return the detected format
+   */
+  public static WireFormat detect(byte[] bytes, int offset, int length) {
+    return length > 0 && bytes[offset] == BinaryEventCodec.MAGIC ? BINARY : JSON;
+  }
+
+  /**
+   * Parses a format name from configuration, ignoring case.
+   *
+   * @param name the configured name, e.g. {@code "json"} or {@code "binary"}
+   * @return the format
+   * @throws IllegalArgumentException if the name is unknown
+   */
+  public static WireFormat fromName(String name) {
+    if (name == null || name.isBlank()) {
+      throw new IllegalArgumentException("Wire format cannot be blank");
+    }
+    try {
+      return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "Unknown wire format: " + name + " (expected json|binary)");
+    }
+  }
+}
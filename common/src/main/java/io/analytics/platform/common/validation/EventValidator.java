@@ -0,0 +1,202 @@
+package io.analytics.platform.common.validation;
+
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.dto.RawEvent;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Exception-free validation of the platform DTOs.
+ *
+ * <p>Each {@code check} method applies the same constraints, in the same order, as the
+ * corresponding {@code validate()} method, but reports the first failure as a {@link Violation}
+ * instead of throwing. Strings are tested for blankness without {@code trim()} and callers pass
+ * the reference time, so a batch can be validated against a single clock snapshot.
+ *
+ * <p>This class is stateless and thread-safe.
+ */
+public final class EventValidator {
+
+  /** Largest magnitude accepted for {@link RawEvent#value()}. */
+  public static final double MAX_ABS_VALUE = 999999999.999999;
+
+  private static final int MAX_EVENT_ID_LENGTH = 255;
+  private static final int MAX_SOURCE_LENGTH = 100;
+  private static final int MAX_RULE_ID_LENGTH = 100;
+  private static final int MAX_MESSAGE_LENGTH = 1000;
+
+  private EventValidator() {
+    // Prevent instantiation
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  /**
+   * Checks a raw event.
+   *
+   * @param event the event to check, must not be null
+   * @param now the reference time for the "not in the future" constraint
+   * @return the first violation found, or {@link Violation#NONE}
+   */
+  public static Violation check(RawEvent event, Instant now) {
+    String id = event.id();
+    if (isBlank(id)) {
+      return Violation.RAW_ID_BLANK;
+    }
+    if (id.length() > MAX_EVENT_ID_LENGTH) {
+      return Violation.RAW_ID_TOO_LONG;
+    }
+    Violation ts = checkTimestamp(event.ts(), now);
+    if (ts != Violation.NONE) {
+      return ts;
+    }
+    Double value = event.value();
+    if (value == null || !isInRange(value)) {
+      return Violation.RAW_VALUE_INVALID;
+    }
+    return checkTags(event.tags());
+  }
+
+  /**
+   * Checks a processed event.
+   *
+   * @param event the event to check, must not be null
+   * @param now the reference time for the "not in the future" constraint
+   * @return the first violation found, or {@link Violation#NONE}
+   */
+  public static Violation check(ProcessedEvent event, Instant now) {
+    String id = event.id();
+    if (isBlank(id)) {
+      return Violation.PROCESSED_ID_BLANK;
+    }
+    if (id.length() > MAX_EVENT_ID_LENGTH) {
+      return Violation.PROCESSED_ID_TOO_LONG;
+    }
+    Violation ts = checkTimestamp(event.ts(), now);
+    if (ts != Violation.NONE) {
+      return ts;
+    }
+    Double value = event.valueTransformed();
+    if (value == null || !Double.isFinite(value)) {
+      return Violation.PROCESSED_VALUE_INVALID;
+    }
+    Violation tags = checkTags(event.tags());
+    if (tags != Violation.NONE) {
+      return tags;
+    }
+    return checkMetaAndSource(event);
+  }
+
+  /**
+   * Checks only the fields a processor adds on top of an already validated {@link RawEvent}: the
+   * transformed value, the metadata map and the source. The id, timestamp and tags are assumed to
+   * have been checked on the raw event.
+   *
+   * @param event the event to check, must not be null
+   * @return the first violation found, or {@link Violation#NONE}
+   */
+  public static Violation checkDerivedFields(ProcessedEvent event) {
+    Double value = event.valueTransformed();
+    if (value == null || !Double.isFinite(value)) {
+      return Violation.PROCESSED_VALUE_INVALID;
+    }
+    return checkMetaAndSource(event);
+  }
+
+  /**
+   * Checks an alert.
+   *
+   * @param alert the alert to check, must not be null
+   * @return the first violation found, or {@link Violation#NONE}
+   */
+  public static Violation check(AlertEvent alert) {
+    String ruleId = alert.ruleId();
+    if (isBlank(ruleId)) {
+      return Violation.RULE_ID_BLANK;
+    }
+    if (ruleId.length() > MAX_RULE_ID_LENGTH) {
+      return Violation.RULE_ID_TOO_LONG;
+    }
+    String message = alert.message();
+    if (isBlank(message)) {
+      return Violation.MESSAGE_BLANK;
+    }
+    if (message.length() > MAX_MESSAGE_LENGTH) {
+      return Violation.MESSAGE_TOO_LONG;
+    }
+    String severity = alert.severity();
+    if (isBlank(severity)) {
+      return Violation.SEVERITY_BLANK;
+    }
+    if (AlertEvent.Severity.lookup(severity) == null) {
+      return Violation.SEVERITY_INVALID;
+    }
+    return Violation.NONE;
+  }
+
+  /**
+   * Returns whether a string is null or consists only of characters that {@link String#trim()}
+   * would remove (code points up to U+0020), without allocating.
+   *
+   * @param s the string to test
+   * @return true if {@code s == null || s.trim().isEmpty()}
+   */
+  public static boolean isBlank(String s) {
+    if (s == null) {
+      return true;
+    }
+    for (int i = 0, n = s.length(); i < n; i++) {
+      if (s.charAt(i) > ' ') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether a value is finite and within {@link #MAX_ABS_VALUE} in magnitude.
+   *
+   * @param value the value to test
+   * @return true if the value is accepted
+   */
+  public static boolean isInRange(double value) {
+    // NaN fails both comparisons, infinities fail one of them
+    return value <= MAX_ABS_VALUE && value >= -MAX_ABS_VALUE;
+  }
+
+  private static Violation checkTimestamp(Instant ts, Instant now) {
+    if (ts == null) {
+      return Violation.TIMESTAMP_MISSING;
+    }
+    if (ts.isAfter(now)) {
+      return Violation.TIMESTAMP_IN_FUTURE;
+    }
+    return Violation.NONE;
+  }
+
+  private static Violation checkTags(Map<String, ?> tags) {
+    if (tags == null) {
+      return Violation.TAGS_MISSING;
+    }
+    for (String key : tags.keySet()) {
+      if (isBlank(key)) {
+        return Violation.TAG_KEY_BLANK;
+      }
+    }
+    return Violation.NONE;
+  }
+
+  private static Violation checkMetaAndSource(ProcessedEvent event) {
+    if (event.meta() == null) {
+      return Violation.META_MISSING;
+    }
+    String source = event.source();
+    if (isBlank(source)) {
+      return Violation.SOURCE_BLANK;
+    }
+    if (source.length() > MAX_SOURCE_LENGTH) {
+      return Violation.SOURCE_TOO_LONG;
+    }
+    return Violation.NONE;
+  }
+}
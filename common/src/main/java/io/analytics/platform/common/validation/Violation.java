@@ -0,0 +1,119 @@
+package io.analytics.platform.common.validation;
+
+import io.analytics.platform.common.exception.ValidationException;
+
+/**
+ * Outcome codes of the validation fast path in {@link EventValidator}.
+ *
+ * <p>Each constant identifies the first constraint an object violated, together with the field
+ * it concerns and the exact message the DTO {@code validate()} methods have always used. Being an
+ * enum, a result can be returned, stored and compared without allocation; {@link #toException()}
+ * converts it into a {@link ValidationException} only where throwing is required. Hot paths that
+ * reject at high rates and catch the exception themselves use {@link
+ * #throwIfInvalidWithoutStackTrace()} instead, which skips capturing the stack trace.
+ */
+public enum Violation {
+  /** No constraint was violated. */
+  NONE(null, null),
+
+  /** A batch contained a null element where an event was expected. */
+  EVENT_MISSING(null, "Event cannot be null"),
+
+  RAW_ID_BLANK("id", "Event ID cannot be blank"),
+  RAW_ID_TOO_LONG("id", "Event ID cannot exceed 255 characters"),
+  RAW_VALUE_INVALID("value", "Event value is invalid or out of range"),
+
+  PROCESSED_ID_BLANK("id", "Processed event ID cannot be blank"),
+  PROCESSED_ID_TOO_LONG("id", "Processed event ID cannot exceed 255 characters"),
+  PROCESSED_VALUE_INVALID("valueTransformed", "Transformed value cannot be blank or invalid"),
+  META_MISSING("meta", "Metadata map cannot be blank"),
+  SOURCE_BLANK("source", "Source identifier cannot be blank"),
+  SOURCE_TOO_LONG("source", "Source identifier cannot exceed 100 characters"),
+
+  TIMESTAMP_MISSING("ts", "Event timestamp cannot be blank"),
+  TIMESTAMP_IN_FUTURE("ts", "Event timestamp cannot be in the future"),
+  TAGS_MISSING("tags", "Tags map cannot be blank"),
+  TAG_KEY_BLANK("tags", "Tag key cannot be blank"),
+
+  RULE_ID_BLANK("ruleId", "Rule ID cannot be blank"),
+  RULE_ID_TOO_LONG("ruleId", "Rule ID cannot exceed 100 characters"),
+  MESSAGE_BLANK("message", "Alert message cannot be blank"),
+  MESSAGE_TOO_LONG("message", "Alert message cannot exceed 1000 characters"),
+  SEVERITY_BLANK("severity", "Severity cannot be blank"),
+  SEVERITY_INVALID(
+      "severity", "Invalid severity level. Must be one of: CRITICAL, HIGH, MEDIUM, LOW");
+
+  private final String field;
+  private final String message;
+
+  Violation(String field, String message) {
+    this.field = field;
+    this.message = message;
+  }
+
+  /**
+   * Returns the name of the offending field.
+   *
+   * @return the field name, or null for {@link #NONE}
+   */
+  public String field() {
+    return field;
+  }
+
+  /**
+   * Returns the human-readable message for this violation.
+   *
+   * @return the message, or null for {@link #NONE}
+   */
+  public String message() {
+    return message;
+  }
+
+  /**
+   * Returns whether this result represents a valid object.
+   *
+   * @return true only for {@link #NONE}
+   */
+  public boolean isValid() {
+    return this == NONE;
+  }
+
+  /**
+   * Converts this violation into a {@link ValidationException} carrying its message.
+   *
+   * @return the exception to throw
+   * @throws IllegalStateException if called on {@link #NONE}
+   */
+  public ValidationException toException() {
+    if (this == NONE) {
+      throw new IllegalStateException("No violation to report");
+    }
+    return new ValidationException(message);
+  }
+
+  /**
+   * Throws the exception for this violation unless it is {@link #NONE}.
+   *
+   * @throws ValidationException if this is a violation
+   */
+  public void throwIfInvalid() {
+    if (this != NONE) {
+      throw toException();
+    }
+  }
+
+  /**
+   * Throws a stackless exception for this violation unless it is {@link #NONE}.
+   *
+   * <p>Only for hot paths that catch the exception and handle the rejection themselves, such as
+   * the processor dead lettering invalid events; anywhere else the stack trace of {@link
+   * #throwIfInvalid()} is worth its cost.
+   *
+   * @throws ValidationException if this is a violation, without a stack trace
+   */
+  public void throwIfInvalidWithoutStackTrace() {
+    if (this != NONE) {
+      throw ValidationException.withoutStackTrace(message);
+    }
+  }
+}
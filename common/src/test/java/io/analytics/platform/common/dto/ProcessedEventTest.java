@@ -51,6 +51,29 @@ class ProcessedEventTest {
     assertEquals(123.4, proc.valueTransformed());
   }
 
+  /**
+   * Tests the conversion from an already validated raw event. Verifies that only the derived fields
+   * are checked, so a raw timestamp later than the processing clock is taken over as is.
+   */
+  @Test
+  void fromValidatedRawEvent_checksOnlyDerivedFields() {
+    RawEvent raw = new RawEvent("raw-1", Instant.now().plusSeconds(60), 5.0, Map.of("tag", "x"));
+    ProcessedEvent proc =
+        ProcessedEvent.fromValidatedRawEvent(raw, 10.0, raw.tags(), Map.of(), "etl");
+    assertEquals("raw-1", proc.id());
+    assertEquals(10.0, proc.valueTransformed());
+    assertSame(raw.tags(), proc.tags());
+
+    ValidationException ex =
+        assertThrows(
+            ValidationException.class,
+            () ->
+                ProcessedEvent.fromValidatedRawEvent(
+                    raw, Double.POSITIVE_INFINITY, raw.tags(), Map.of(), "etl"));
+    assertTrue(ex.getMessage().contains("Transformed value"));
+    assertEquals(0, ex.getStackTrace().length);
+  }
+
   /**
    * Tests that a blank source identifier triggers a validation exception. Verifies the exception
    * message indicates the source cannot be blank.
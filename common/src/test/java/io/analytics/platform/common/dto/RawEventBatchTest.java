@@ -0,0 +1,88 @@
+package io.analytics.platform.common.dto;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.validation.Violation;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link RawEventBatch} class.
+ *
+ * <p>Verifies that a batch is validated in full, that rejections carry their index and violation,
+ * and that the parallel path produces exactly the same outcome as the sequential one.
+ */
+class RawEventBatchTest {
+
+  private static final Instant NOW = Instant.parse("2025-09-12T12:00:00Z");
+
+  /**
+   * Tests that valid events are accepted and invalid ones rejected without aborting the batch.
+   * Verifies both lists keep submission order.
+   */
+  @Test
+  void mixedBatch_isPartiallyAccepted() {
+    List<RawEvent> events =
+        Arrays.asList(
+            new RawEvent("a", NOW, 1.0, Map.of()),
+            new RawEvent(" ", NOW, 1.0, Map.of()),
+            null,
+            new RawEvent("b", NOW.plusSeconds(60), 1.0, Map.of()),
+            new RawEvent("c", NOW, 2.0, Map.of("k", "v")));
+
+    RawEventBatch batch = RawEventBatch.validate(events, NOW, Integer.MAX_VALUE);
+
+    assertEquals(5, batch.size());
+    assertFalse(batch.isFullyAccepted());
+    assertEquals(List.of("a", "c"), batch.accepted().stream().map(RawEvent::id).toList());
+    assertEquals(3, batch.rejected().size());
+
+    RawEventBatch.Rejection first = batch.rejected().get(0);
+    assertEquals(1, first.index());
+    assertSame(Violation.RAW_ID_BLANK, first.violation());
+    assertEquals("Event ID cannot be blank", first.message());
+    assertSame(Violation.EVENT_MISSING, batch.rejected().get(1).violation());
+    assertSame(Violation.TIMESTAMP_IN_FUTURE, batch.rejected().get(2).violation());
+  }
+
+  /** Tests that an empty batch is trivially accepted. */
+  @Test
+  void emptyBatch_isFullyAccepted() {
+    RawEventBatch batch = RawEventBatch.validate(List.of());
+    assertTrue(batch.isFullyAccepted());
+    assertEquals(0, batch.size());
+  }
+
+  /**
+   * Tests that a large batch validated in parallel matches the sequential result element by
+   * element.
+   */
+  @Test
+  void parallelValidation_matchesSequential() {
+    List<RawEvent> events = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      String id = i % 7 == 0 ? "" : "evt-" + i;
+      events.add(new RawEvent(id, NOW, (double) i, Map.of()));
+    }
+
+    RawEventBatch sequential = RawEventBatch.validate(events, NOW, Integer.MAX_VALUE);
+    RawEventBatch parallel = RawEventBatch.validate(events, NOW, 1);
+
+    assertEquals(sequential.accepted(), parallel.accepted());
+    assertEquals(sequential.rejected(), parallel.rejected());
+    assertEquals(20_000 / 7 + 1, parallel.rejected().size());
+  }
+
+  /** Tests that the returned lists cannot be modified. */
+  @Test
+  void resultLists_areUnmodifiable() {
+    RawEventBatch batch =
+        RawEventBatch.validate(List.of(new RawEvent("a", NOW, 1.0, Map.of())), NOW, 10);
+    assertThrows(UnsupportedOperationException.class, () -> batch.accepted().clear());
+    assertThrows(UnsupportedOperationException.class, () -> batch.rejected().clear());
+  }
+}
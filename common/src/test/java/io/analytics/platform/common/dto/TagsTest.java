@@ -0,0 +1,214 @@
+package io.analytics.platform.common.dto;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.util.BinaryEventCodec;
+import io.analytics.platform.common.util.JsonCodec;
+import io.analytics.platform.common.util.JsonUtil;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link Tags} class.
+ *
+ * <p>Verifies map semantics against {@link HashMap}, unboxed accessors, key interning, and that
+ * both codecs decode event tags into {@code Tags} without changing the wire representation.
+ */
+class TagsTest {
+
+  private static final Instant TS = Instant.parse("2025-09-12T12:00:00Z");
+
+  /**
+   * Tests that a tag set equals and hashes like a HashMap with the same entries, in both
+   * directions.
+   */
+  @Test
+  void equalsAndHashCode_matchHashMap() {
+    Map<String, Object> expected = new HashMap<>();
+    expected.put("host", "edge-1");
+    expected.put("port", 8080);
+    expected.put("bytes", 5_000_000_000L);
+    expected.put("load", 0.75);
+    expected.put("primary", true);
+    expected.put("note", null);
+
+    Tags tags = Tags.copyOf(expected);
+
+    assertEquals(expected, tags);
+    assertEquals(tags, expected);
+    assertEquals(expected.hashCode(), tags.hashCode());
+    assertEquals(expected.toString().length(), tags.toString().length());
+    assertEquals(Tags.copyOf(new LinkedHashMap<>(expected)), tags);
+  }
+
+  /** Tests that values keep their boxed type when read through the Map interface. */
+  @Test
+  void get_preservesValueTypes() {
+    Tags tags =
+        Tags.builder()
+            .put("i", 1)
+            .put("l", 2L)
+            .put("d", 3.5)
+            .put("b", false)
+            .put("s", (Object) "x")
+            .build();
+
+    assertEquals(Integer.valueOf(1), tags.get("i"));
+    assertEquals(Long.valueOf(2L), tags.get("l"));
+    assertEquals(Double.valueOf(3.5), tags.get("d"));
+    assertEquals(Boolean.FALSE, tags.get("b"));
+    assertEquals("x", tags.get("s"));
+    assertNull(tags.get("missing"));
+    assertNull(tags.get(42));
+    assertTrue(tags.containsKey("b"));
+    assertFalse(tags.containsKey("missing"));
+  }
+
+  /** Tests the unboxed accessors, including widening and defaults for absent or mistyped keys. */
+  @Test
+  void primitiveAccessors_readWithoutBoxing() {
+    Tags tags =
+        Tags.builder()
+            .put("i", 7)
+            .put("l", 9L)
+            .put("d", 1.25)
+            .put("b", true)
+            .put("s", (Object) "text")
+            .build();
+
+    assertEquals(7.0, tags.getDouble("i", -1));
+    assertEquals(9.0, tags.getDouble("l", -1));
+    assertEquals(1.25, tags.getDouble("d", -1));
+    assertEquals(-1.0, tags.getDouble("s", -1));
+    assertEquals(-1.0, tags.getDouble("missing", -1));
+    assertEquals(7L, tags.getLong("i", -1));
+    assertEquals(-1L, tags.getLong("d", -1));
+    assertTrue(tags.getBoolean("b", false));
+    assertFalse(tags.getBoolean("s", false));
+    assertEquals("text", tags.getString("s"));
+    assertNull(tags.getString("i"));
+  }
+
+  /** Tests that a repeated key keeps the last value, as with {@link Map#put}. */
+  @Test
+  void builder_lastValueWins() {
+    Tags tags = Tags.builder().put("k", 1).put("other", 2).put("k", (Object) "last").build();
+
+    assertEquals(2, tags.size());
+    assertEquals("last", tags.get("k"));
+  }
+
+  /** Tests lookups above the linear-scan limit, which switch to binary search. */
+  @Test
+  void largeTagSet_isSearchable() {
+    Map<String, Object> expected = new HashMap<>();
+    for (int i = 0; i < 200; i++) {
+      expected.put("key-" + (i * 7919 % 200), i);
+    }
+
+    Tags tags = Tags.copyOf(expected);
+
+    assertEquals(200, tags.size());
+    assertEquals(expected, tags);
+    for (Map.Entry<String, Object> entry : expected.entrySet()) {
+      assertEquals(entry.getValue(), tags.get(entry.getKey()));
+    }
+    assertFalse(tags.containsKey("key-200"));
+  }
+
+  /** Tests that entries iterate in key order and that the map cannot be modified. */
+  @Test
+  void tags_areSortedAndImmutable() {
+    Tags tags = Tags.builder().put("b", 2).put("a", 1).put("c", 3).build();
+
+    List<String> keys = new ArrayList<>(tags.keySet());
+    assertEquals(List.of("a", "b", "c"), keys);
+    assertThrows(UnsupportedOperationException.class, () -> tags.put("d", 4));
+    assertThrows(UnsupportedOperationException.class, () -> tags.remove("a"));
+    assertThrows(UnsupportedOperationException.class, tags::clear);
+    assertThrows(UnsupportedOperationException.class, () -> tags.entrySet().clear());
+  }
+
+  /** Tests that equal keys from different sources share one interned String instance. */
+  @Test
+  void keys_areInterned() {
+    String first = new String(new char[] {'r', 'e', 'g', 'i', 'o', 'n'});
+    String second = new String(new char[] {'r', 'e', 'g', 'i', 'o', 'n'});
+
+    Tags a = Tags.builder().put(first, 1).build();
+    Tags b = Tags.builder().put(second, 2).build();
+
+    assertSame(a.keySet().iterator().next(), b.keySet().iterator().next());
+  }
+
+  /** Tests empty handling and rejection of null keys. */
+  @Test
+  void emptyAndNullKeys() {
+    assertSame(Tags.empty(), Tags.builder().build());
+    assertSame(Tags.empty(), Tags.copyOf(Map.of()));
+    assertEquals(Map.of(), Tags.empty());
+
+    Map<String, Object> withNullKey = new HashMap<>();
+    withNullKey.put(null, "v");
+    assertThrows(IllegalArgumentException.class, () -> Tags.copyOf(withNullKey));
+  }
+
+  /**
+   * Tests that JSON decoding of events yields Tags, and that encoding Tags produces the same JSON
+   * as encoding a plain map.
+   */
+  @Test
+  void jsonCodec_decodesIntoTagsAndKeepsWireFormat() {
+    Map<String, Object> plain = new LinkedHashMap<>();
+    plain.put("a", "x");
+    plain.put("b", 1);
+    plain.put("c", 12_345_678_901L);
+    plain.put("d", 2.5);
+    plain.put("e", true);
+    plain.put("f", null);
+    plain.put("g", Map.of("nested", List.of(1, 2)));
+    plain.put("h", new BigInteger("123456789012345678901234567890"));
+
+    byte[] json = JsonCodec.RAW_EVENT.encode(new RawEvent("e-1", TS, 1.0, plain));
+    RawEvent decoded = JsonCodec.RAW_EVENT.decode(json);
+
+    assertInstanceOf(Tags.class, decoded.tags());
+    assertEquals(plain, decoded.tags());
+    assertArrayEquals(json, JsonCodec.RAW_EVENT.encode(decoded));
+    assertEquals(JsonUtil.toJson(plain), JsonUtil.toJson(Tags.copyOf(plain)));
+  }
+
+  /** Tests that processed event tags and metadata decode into Tags for both wire formats. */
+  @Test
+  void processedEvent_decodesTagsAndMeta() {
+    ProcessedEvent event =
+        new ProcessedEvent("p-1", TS, 2.0, Map.of("host", "h"), Map.of("stage", 3), "pipeline");
+
+    ProcessedEvent fromJson =
+        JsonCodec.PROCESSED_EVENT.decode(JsonCodec.PROCESSED_EVENT.encode(event));
+    ProcessedEvent fromBinary =
+        BinaryEventCodec.PROCESSED_EVENT.decode(BinaryEventCodec.PROCESSED_EVENT.encode(event));
+
+    for (ProcessedEvent decoded : List.of(fromJson, fromBinary)) {
+      assertEquals(event, decoded);
+      assertInstanceOf(Tags.class, decoded.tags());
+      assertInstanceOf(Tags.class, decoded.meta());
+    }
+  }
+
+  /** Tests that an empty JSON object decodes to the shared empty instance. */
+  @Test
+  void emptyJsonObject_decodesToEmptyTags() {
+    RawEvent decoded =
+        JsonCodec.RAW_EVENT.decode(
+            "{\"id\":\"e\",\"ts\":\"2025-09-12T12:00:00Z\",\"value\":1.0,\"tags\":{}}".getBytes());
+
+    assertSame(Tags.empty(), decoded.tags());
+  }
+}
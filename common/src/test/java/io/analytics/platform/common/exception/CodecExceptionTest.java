@@ -0,0 +1,33 @@
+package io.analytics.platform.common.exception;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link CodecException} and its {@link EncodingException} and {@link
+ * DecodingException} subtypes.
+ */
+class CodecExceptionTest {
+
+  /** Tests that both subtypes share the common base type and keep message and cause. */
+  @Test
+  void subtypesCarryMessageAndCause() {
+    Exception cause = new IllegalStateException("bad");
+
+    CodecException encoding = new EncodingException("encode", cause);
+    CodecException decoding = new DecodingException("decode", cause);
+
+    assertEquals("encode", encoding.getMessage());
+    assertSame(cause, encoding.getCause());
+    assertEquals("decode", decoding.getMessage());
+    assertSame(cause, decoding.getCause());
+  }
+
+  /** Tests construction with a message only. */
+  @Test
+  void constructWithMessage() {
+    assertEquals("oops", new DecodingException("oops").getMessage());
+    assertNull(new EncodingException("oops").getCause());
+  }
+}
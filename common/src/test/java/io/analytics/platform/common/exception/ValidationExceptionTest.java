@@ -44,4 +44,17 @@ class ValidationExceptionTest {
     ValidationException ex = new ValidationException(cause);
     assertSame(cause, ex.getCause());
   }
+
+  /**
+   * Tests the stackless factory. Verifies the message is kept while no stack trace or suppressed
+   * exceptions are recorded.
+   */
+  @Test
+  void withoutStackTrace() {
+    ValidationException ex = ValidationException.withoutStackTrace("fast");
+    ex.addSuppressed(new RuntimeException("ignored"));
+    assertEquals("fast", ex.getMessage());
+    assertEquals(0, ex.getStackTrace().length);
+    assertEquals(0, ex.getSuppressed().length);
+  }
 }
@@ -0,0 +1,92 @@
+package io.analytics.platform.common.kafka;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.constants.TopicNames;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.dto.RawEvent;
+import io.analytics.platform.common.util.WireFormat;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link EventSerializer} and {@link EventDeserializer}.
+ *
+ * <p>Covers format selection, the content-type header, and auto-detection of records written in
+ * either format, which is what a rolling migration relies on.
+ */
+class EventSerdeTest {
+
+  private final RawEvent event =
+      new RawEvent("evt-1", Instant.parse("2025-09-12T12:00:00Z"), 1.5, Map.of("host", "a"));
+
+  /** Tests that JSON is the default and is advertised in the header. */
+  @Test
+  void jsonIsDefaultAndAdvertised() {
+    Headers headers = new RecordHeaders();
+    try (var serializer = new EventSerializer<RawEvent>()) {
+      serializer.configure(
+          Map.of(JsonCodecSerializer.VALUE_TYPE_CONFIG, RawEvent.class.getName()), false);
+
+      byte[] payload = serializer.serialize(TopicNames.RAW_EVENTS, headers, event);
+
+      assertEquals('{', payload[0]);
+      assertEquals(
+          WireFormat.JSON.contentType(),
+          new String(
+              headers.lastHeader(WireFormat.CONTENT_TYPE_HEADER).value(),
+              StandardCharsets.US_ASCII));
+    }
+  }
+
+  /** Tests that binary can be enabled for a single topic. */
+  @Test
+  void binaryCanBeEnabledPerTopic() {
+    try (var serializer = new EventSerializer<RawEvent>()) {
+      serializer.configure(
+          Map.of(
+              JsonCodecSerializer.VALUE_TYPE_CONFIG, RawEvent.class,
+              EventSerializer.WIRE_FORMAT_CONFIG + "." + TopicNames.RAW_EVENTS, "binary"),
+          false);
+
+      assertEquals(WireFormat.BINARY, serializer.formatFor(TopicNames.RAW_EVENTS));
+      assertEquals(WireFormat.JSON, serializer.formatFor(TopicNames.DLQ));
+    }
+  }
+
+  /** Tests that a consumer reads both formats, with and without the header. */
+  @Test
+  void deserializerReadsBothFormats() {
+    try (var json = new EventSerializer<>(RawEvent.class, WireFormat.JSON);
+        var binary = new EventSerializer<>(RawEvent.class, WireFormat.BINARY);
+        var deserializer = new EventDeserializer<>(RawEvent.class)) {
+      for (EventSerializer<RawEvent> serializer : List.of(json, binary)) {
+        Headers headers = new RecordHeaders();
+        byte[] payload = serializer.serialize(TopicNames.RAW_EVENTS, headers, event);
+
+        assertEquals(event, deserializer.deserialize(TopicNames.RAW_EVENTS, headers, payload));
+        assertEquals(event, deserializer.deserialize(TopicNames.RAW_EVENTS, payload));
+      }
+    }
+  }
+
+  /** Tests a processed event travelling in binary. */
+  @Test
+  void processedEventRoundTripsInBinary() {
+    ProcessedEvent processed =
+        new ProcessedEvent(
+            "p-1", Instant.parse("2025-09-12T12:00:00Z"), 3.0, Map.of(), Map.of("v", 1), "etl");
+    try (var serializer = new EventSerializer<>(ProcessedEvent.class, WireFormat.BINARY);
+        var deserializer = new EventDeserializer<>(ProcessedEvent.class)) {
+      Headers headers = new RecordHeaders();
+      byte[] payload = serializer.serialize(TopicNames.PROCESSED_EVENTS, headers, processed);
+      assertEquals(
+          processed, deserializer.deserialize(TopicNames.PROCESSED_EVENTS, headers, payload));
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package io.analytics.platform.common.kafka;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.constants.TopicNames;
+import io.analytics.platform.common.dto.RawEvent;
+import io.analytics.platform.common.exception.DecodingException;
+import io.analytics.platform.common.util.JsonCodec;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link JsonCodecSerializer} and {@link JsonCodecDeserializer}.
+ *
+ * <p>Verifies that the Kafka adapters round-trip DTOs, honour tombstones, resolve their value type
+ * from client configuration and report failures as Kafka serialization errors.
+ */
+class JsonCodecSerdeTest {
+
+  private final RawEvent event =
+      new RawEvent("evt-1", Instant.parse("2025-09-12T12:00:00Z"), 1.5, Map.of("host", "a"));
+
+  /** Tests a serializer/deserializer pair built from a codec instance. */
+  @Test
+  void roundTripWithCodecInstance() {
+    try (var serializer = new JsonCodecSerializer<>(JsonCodec.RAW_EVENT);
+        var deserializer = new JsonCodecDeserializer<>(JsonCodec.RAW_EVENT)) {
+      byte[] payload = serializer.serialize(TopicNames.RAW_EVENTS, event);
+      assertEquals(event, deserializer.deserialize(TopicNames.RAW_EVENTS, payload));
+    }
+  }
+
+  /** Tests that the value type can be supplied through Kafka client configuration. */
+  @Test
+  void roundTripWithConfiguredType() {
+    Map<String, Object> configs =
+        Map.of(JsonCodecSerializer.VALUE_TYPE_CONFIG, RawEvent.class.getName());
+    try (var serializer = new JsonCodecSerializer<RawEvent>();
+        var deserializer = new JsonCodecDeserializer<RawEvent>()) {
+      serializer.configure(configs, false);
+      deserializer.configure(configs, false);
+
+      byte[] payload = serializer.serialize(TopicNames.RAW_EVENTS, event);
+      assertEquals(event, deserializer.deserialize(TopicNames.RAW_EVENTS, payload));
+    }
+  }
+
+  /** Tests that null values (tombstones) pass through in both directions. */
+  @Test
+  void nullValuesPassThrough() {
+    try (var serializer = new JsonCodecSerializer<>(JsonCodec.RAW_EVENT);
+        var deserializer = new JsonCodecDeserializer<>(JsonCodec.RAW_EVENT)) {
+      assertNull(serializer.serialize(TopicNames.RAW_EVENTS, null));
+      assertNull(deserializer.deserialize(TopicNames.RAW_EVENTS, null));
+    }
+  }
+
+  /** Tests that a malformed record surfaces as a Kafka error carrying the typed cause. */
+  @Test
+  void malformedRecordThrowsSerializationException() {
+    try (var deserializer = new JsonCodecDeserializer<>(JsonCodec.RAW_EVENT)) {
+      byte[] payload = "{oops".getBytes(StandardCharsets.UTF_8);
+      SerializationException ex =
+          assertThrows(
+              SerializationException.class,
+              () -> deserializer.deserialize(TopicNames.RAW_EVENTS, payload));
+      assertInstanceOf(DecodingException.class, ex.getCause());
+    }
+  }
+
+  /** Tests that a missing value type is reported as a configuration error. */
+  @Test
+  void missingValueTypeIsRejected() {
+    try (var deserializer = new JsonCodecDeserializer<RawEvent>()) {
+      assertThrows(ConfigException.class, () -> deserializer.configure(Map.of(), false));
+    }
+  }
+}
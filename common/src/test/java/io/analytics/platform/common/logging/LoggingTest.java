@@ -101,6 +101,22 @@ class LoggingTest {
     assertEquals("SECURITY", event.getMarkerList().get(0).getName(), "Should use SECURITY marker");
   }
 
+  /**
+   * Tests that {@link Logging#perf(Logger, String, Object...)} correctly logs a WARN level message
+   * with the PERF marker.
+   */
+  @Test
+  void testPerfLog() {
+    Logging.perf(logger, "Slow call: durationMs={} target={}", 250, "broker");
+    ILoggingEvent event = listAppender.list.get(0);
+    assertEquals(
+        "Slow call: durationMs=250 target=broker",
+        event.getFormattedMessage(),
+        "Message should be properly formatted");
+    assertEquals(Level.WARN, event.getLevel(), "Performance warnings should be at WARN level");
+    assertEquals("PERF", event.getMarkerList().get(0).getName(), "Should use PERF marker");
+  }
+
   /**
    * Tests that {@link Logging#debug(Logger, String, Object...)} only logs when debug level is
    * enabled.
@@ -0,0 +1,164 @@
+package io.analytics.platform.common.sketch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.exception.DecodingException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link DDSketch} class. */
+class DDSketchTest {
+
+  private static final double[] QUANTILES = {0, 0.01, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 0.999, 1};
+
+  /** Tests that estimates stay within the relative accuracy on skewed and mixed-sign data. */
+  @Test
+  void quantile_isWithinRelativeAccuracy() {
+    Random random = new Random(42);
+    double[] lognormal = new double[100_000];
+    double[] mixed = new double[100_000];
+    for (int i = 0; i < lognormal.length; i++) {
+      lognormal[i] = Math.exp(random.nextGaussian() * 2 + 3);
+      mixed[i] = random.nextInt(10) == 0 ? 0 : random.nextGaussian() * 1000;
+    }
+
+    assertWithinAccuracy(lognormal, 0.01);
+    assertWithinAccuracy(mixed, 0.01);
+    assertWithinAccuracy(lognormal, 0.05);
+  }
+
+  /** Tests that merging sketches gives exactly the sketch of all their values. */
+  @Test
+  void merge_equalsSketchOfUnion() {
+    Random random = new Random(7);
+    DDSketch all = new DDSketch();
+    DDSketch first = new DDSketch();
+    DDSketch second = new DDSketch();
+    for (int i = 0; i < 50_000; i++) {
+      double value = random.nextDouble() * 500 - 50;
+      all.add(value);
+      (i % 3 == 0 ? first : second).add(value);
+    }
+
+    first.merge(second);
+
+    assertEquals(all.count(), first.count());
+    assertEquals(all.min(), first.min());
+    assertEquals(all.max(), first.max());
+    assertEquals(all.sum(), first.sum(), 1e-6);
+    for (double q : QUANTILES) {
+      assertEquals(all.quantile(q), first.quantile(q), "q=" + q);
+    }
+    assertEquals(all.binCount(), first.binCount());
+  }
+
+  /** Tests that sketches of different accuracy are not merged. */
+  @Test
+  void merge_rejectsDifferentAccuracy() {
+    DDSketch sketch = new DDSketch(0.01, 100);
+    DDSketch other = new DDSketch(0.02, 100);
+    other.add(1);
+
+    assertThrows(IllegalArgumentException.class, () -> sketch.merge(other));
+    assertTrue(sketch.isEmpty());
+  }
+
+  /** Tests that the binary form round-trips every statistic and stays compact. */
+  @Test
+  void toBytes_roundTripsCompactly() {
+    Random random = new Random(3);
+    DDSketch sketch = new DDSketch();
+    for (int i = 0; i < 100_000; i++) {
+      sketch.add(Math.exp(random.nextGaussian() * 2 + 3) * (i % 10 == 0 ? -1 : 1));
+    }
+    sketch.add(0);
+
+    byte[] bytes = sketch.toBytes();
+    DDSketch copy = DDSketch.fromBytes(bytes);
+
+    assertEquals(sketch.count(), copy.count());
+    assertEquals(sketch.sum(), copy.sum());
+    assertEquals(sketch.min(), copy.min());
+    assertEquals(sketch.max(), copy.max());
+    assertEquals(sketch.binCount(), copy.binCount());
+    for (double q : QUANTILES) {
+      assertEquals(sketch.quantile(q), copy.quantile(q));
+    }
+    assertTrue(bytes.length <= 5 * sketch.binCount() + 48, bytes.length + " bytes");
+    assertArrayEquals(bytes, copy.toBytes());
+  }
+
+  /** Tests that an empty sketch estimates nothing and round-trips in a few bytes. */
+  @Test
+  void emptySketch_hasNoQuantiles() {
+    DDSketch sketch = new DDSketch();
+
+    DDSketch copy = DDSketch.fromBytes(sketch.toBytes());
+
+    assertTrue(Double.isNaN(copy.quantile(0.5)));
+    assertTrue(copy.isEmpty());
+    assertTrue(sketch.toBytes().length < 16);
+  }
+
+  /** Tests that memory is bounded by the bin limit however wide the value range. */
+  @Test
+  void memoryBytes_isBoundedByMaxBins() {
+    DDSketch latency = new DDSketch();
+    DDSketch wide = new DDSketch(0.01, 128);
+    Random random = new Random(11);
+    for (int i = 0; i < 1_000_000; i++) {
+      latency.add(1 + random.nextDouble() * 10_000);
+      wide.add(Math.pow(10, random.nextDouble() * 18 - 9));
+    }
+
+    assertTrue(latency.memoryBytes() < 16 * 1024, latency.memoryBytes() + " bytes");
+    assertEquals(128, wide.binCount());
+    assertTrue(wide.memoryBytes() < 2 * 1024, wide.memoryBytes() + " bytes");
+    double exact = 1e8;
+    assertEquals(exact, wide.quantile(0.944), exact * 0.1);
+  }
+
+  /** Tests that malformed payloads are rejected. */
+  @Test
+  void fromBytes_rejectsMalformedPayloads() {
+    DDSketch sketch = new DDSketch();
+    sketch.add(1);
+    sketch.add(2);
+    byte[] bytes = sketch.toBytes();
+
+    assertThrows(
+        DecodingException.class, () -> DDSketch.fromBytes(Arrays.copyOf(bytes, bytes.length - 1)));
+    assertThrows(
+        DecodingException.class, () -> DDSketch.fromBytes(Arrays.copyOf(bytes, bytes.length + 1)));
+    byte[] version = bytes.clone();
+    version[0] = 9;
+    assertThrows(DecodingException.class, () -> DDSketch.fromBytes(version));
+    assertThrows(DecodingException.class, () -> DDSketch.fromBytes(new byte[0]));
+  }
+
+  /** Tests that non-finite values and quantiles out of range are rejected. */
+  @Test
+  void add_rejectsNonFiniteValues() {
+    DDSketch sketch = new DDSketch();
+
+    assertThrows(IllegalArgumentException.class, () -> sketch.add(Double.NaN));
+    assertThrows(IllegalArgumentException.class, () -> sketch.add(Double.POSITIVE_INFINITY));
+    assertThrows(IllegalArgumentException.class, () -> sketch.quantile(1.5));
+    assertTrue(sketch.isEmpty());
+  }
+
+  private static void assertWithinAccuracy(double[] values, double accuracy) {
+    DDSketch sketch = new DDSketch(accuracy, DDSketch.DEFAULT_MAX_BINS);
+    for (double value : values) {
+      sketch.add(value);
+    }
+    double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    for (double q : QUANTILES) {
+      double exact = sorted[(int) (q * (sorted.length - 1))];
+      double estimate = sketch.quantile(q);
+      assertEquals(exact, estimate, Math.abs(exact) * accuracy + 1e-12, "q=" + q);
+    }
+  }
+}
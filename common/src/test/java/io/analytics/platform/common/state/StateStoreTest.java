@@ -0,0 +1,114 @@
+package io.analytics.platform.common.state;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Unit tests for {@link StateStore} class. */
+class StateStoreTest {
+
+  @TempDir Path directory;
+
+  /** Tests that values, overwrites and deletes survive reopening the store. */
+  @Test
+  void reopen_restoresLatestValues() {
+    try (StateStore store = StateStore.open(directory)) {
+      store.put("a", bytes("1"));
+      store.put("b", bytes("2"));
+      store.put("a", bytes("3"));
+      store.put("c", new byte[0]);
+      store.delete("b");
+      store.delete("missing");
+    }
+
+    try (StateStore store = StateStore.open(directory)) {
+      assertEquals(2, store.size());
+      assertArrayEquals(bytes("3"), store.get("a"));
+      assertNull(store.get("b"));
+      assertArrayEquals(new byte[0], store.get("c"));
+      Map<String, String> all = new HashMap<>();
+      store.forEach((key, value) -> all.put(key, new String(value, StandardCharsets.UTF_8)));
+      assertEquals(Map.of("a", "3", "c", ""), all);
+    }
+  }
+
+  /** Tests that records are laid out across chunks and too large ones are rejected. */
+  @Test
+  void put_spreadsRecordsOverChunks() {
+    try (StateStore store = StateStore.open(directory, 1024, Long.MAX_VALUE)) {
+      for (int i = 0; i < 100; i++) {
+        store.put("key-" + i, new byte[100 + i]);
+      }
+      assertThrows(IllegalArgumentException.class, () -> store.put("big", new byte[1024]));
+    }
+
+    try (StateStore store = StateStore.open(directory, 1024, Long.MAX_VALUE)) {
+      assertEquals(100, store.size());
+      for (int i = 0; i < 100; i++) {
+        assertEquals(100 + i, store.get("key-" + i).length);
+      }
+      assertTrue(store.logBytes() > 10 * 1024);
+    }
+  }
+
+  /** Tests that a record torn by a crash ends the log and later writes replace it. */
+  @Test
+  void reopen_dropsTornRecord() throws IOException {
+    long end;
+    try (StateStore store = StateStore.open(directory, 4096, Long.MAX_VALUE)) {
+      store.put("a", bytes("1"));
+      end = store.logBytes();
+      store.put("b", bytes("2"));
+    }
+    try (RandomAccessFile file =
+        new RandomAccessFile(directory.resolve("state.log").toFile(), "rw")) {
+      file.seek(end + 10);
+      file.write(0x55);
+    }
+
+    try (StateStore store = StateStore.open(directory, 4096, Long.MAX_VALUE)) {
+      assertEquals(1, store.size());
+      assertEquals(end, store.logBytes());
+      store.put("c", bytes("3"));
+    }
+    try (StateStore store = StateStore.open(directory, 4096, Long.MAX_VALUE)) {
+      assertArrayEquals(bytes("1"), store.get("a"));
+      assertNull(store.get("b"));
+      assertArrayEquals(bytes("3"), store.get("c"));
+    }
+  }
+
+  /** Tests that compaction keeps the live values, bounds the log and counts its writes. */
+  @Test
+  void compactIfNeeded_rewritesLiveRecords() {
+    try (StateStore store = StateStore.open(directory, 4096, 16 * 1024)) {
+      for (int round = 0; round < 20; round++) {
+        for (int i = 0; i < 50; i++) {
+          store.put("key-" + i, bytes(round + "-" + i));
+        }
+        store.delete("key-" + round);
+        store.compactIfNeeded();
+      }
+      assertTrue(store.compactions() > 0);
+      assertTrue(store.logBytes() <= 2 * store.liveBytes() + 16 * 1024);
+      assertTrue(store.bytesWritten() > store.bytesPut());
+    }
+
+    try (StateStore store = StateStore.open(directory, 4096, 16 * 1024)) {
+      assertEquals(49, store.size());
+      assertNull(store.get("key-19"));
+      assertArrayEquals(bytes("19-42"), store.get("key-42"));
+    }
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+}
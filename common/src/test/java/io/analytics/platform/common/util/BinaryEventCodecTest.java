@@ -0,0 +1,132 @@
+package io.analytics.platform.common.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.dto.RawEvent;
+import io.analytics.platform.common.exception.DecodingException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link BinaryEventCodec} class.
+ *
+ * <p>Round-trips the same events used by the DTO tests, checks that every supported tag value type
+ * survives, and compares payload sizes against {@link JsonCodec}.
+ *
+ * @see BinaryEventCodec
+ */
+class BinaryEventCodecTest {
+
+  private static final Instant TS = Instant.parse("2025-09-12T12:00:00.123456789Z");
+
+  /** Tests round trips of the raw events exercised in {@code RawEventTest}. */
+  @Test
+  void rawEventsRoundTrip() {
+    List<RawEvent> events =
+        List.of(
+            RawEvent.of("id-1", TS, 42.5, Map.of("source", "test")),
+            new RawEvent("evt-1", TS, 123.45, Map.of("source", "unit-test")),
+            new RawEvent("id", Instant.EPOCH.minusSeconds(5), -0.0, Map.of()),
+            new RawEvent(null, null, null, null));
+
+    for (RawEvent event : events) {
+      byte[] payload = BinaryEventCodec.RAW_EVENT.encode(event);
+      assertEquals(event, BinaryEventCodec.RAW_EVENT.decode(payload), "Round trip of " + event);
+    }
+  }
+
+  /** Tests round trips of the processed events exercised in {@code ProcessedEventTest}. */
+  @Test
+  void processedEventsRoundTrip() {
+    RawEvent raw = RawEvent.of("raw-1", TS, 50.0, Map.of("tag", "x"));
+    List<ProcessedEvent> events =
+        List.of(
+            ProcessedEvent.of(
+                "proc-1", TS, 99.9, Map.of("source", "unit"), Map.of("meta", "ok"), "pipeline-1"),
+            ProcessedEvent.fromRawEvent(raw, 123.4, Map.of("stage", "processed"), "etl"),
+            new ProcessedEvent("p", TS, 1.0, null, null, null));
+
+    for (ProcessedEvent event : events) {
+      byte[] payload = BinaryEventCodec.PROCESSED_EVENT.encode(event);
+      assertEquals(
+          event, BinaryEventCodec.PROCESSED_EVENT.decode(payload), "Round trip of " + event);
+    }
+  }
+
+  /** Tests that every tag value type decodes to the same Java type and value. */
+  @Test
+  void tagValueTypesArePreserved() {
+    Map<String, Object> tags = new HashMap<>();
+    tags.put("host", "h-1");
+    tags.put("custom-key", "ünïcødé");
+    tags.put("count", 7);
+    tags.put("big", Long.MAX_VALUE);
+    tags.put("ratio", Double.NaN);
+    tags.put("on", true);
+    tags.put("off", false);
+    tags.put("missing", null);
+    tags.put("nested", Map.of("a", List.of(1, 2)));
+    RawEvent event = new RawEvent("evt", TS, 1.0, tags);
+
+    RawEvent decoded = BinaryEventCodec.RAW_EVENT.decode(BinaryEventCodec.RAW_EVENT.encode(event));
+
+    assertEquals(tags, decoded.tags());
+    assertInstanceOf(Integer.class, decoded.tags().get("count"));
+    assertInstanceOf(Long.class, decoded.tags().get("big"));
+  }
+
+  /** Tests that the binary encoding of a typical event is at least 40% smaller than JSON. */
+  @Test
+  void binaryIsSmallerThanJson() {
+    RawEvent event =
+        new RawEvent(
+            "3f2b8c1e-5d4a-4b7e-9f0a-1c2d3e4f5a6b",
+            TS,
+            21.375,
+            Map.of("host", "edge-17", "region", "eu-west-1", "sensor", "temp-3"));
+
+    int binary = BinaryEventCodec.RAW_EVENT.encode(event).length;
+    int json = JsonCodec.RAW_EVENT.encode(event).length;
+
+    assertTrue(binary * 5 < json * 3, "Binary " + binary + "B vs JSON " + json + "B");
+  }
+
+  /** Tests that payloads with a bad header, version, type or length are rejected. */
+  @Test
+  void invalidPayloadsAreRejected() {
+    byte[] payload = BinaryEventCodec.RAW_EVENT.encode(new RawEvent("e", TS, 1.0, Map.of()));
+
+    assertThrows(DecodingException.class, () -> BinaryEventCodec.RAW_EVENT.decode(new byte[0]));
+    assertThrows(
+        DecodingException.class, () -> BinaryEventCodec.PROCESSED_EVENT.decode(payload));
+    assertThrows(
+        DecodingException.class,
+        () -> BinaryEventCodec.RAW_EVENT.decode(Arrays.copyOf(payload, payload.length - 1)));
+    assertThrows(
+        DecodingException.class,
+        () -> BinaryEventCodec.RAW_EVENT.decode(Arrays.copyOf(payload, payload.length + 1)));
+
+    byte[] futureVersion = payload.clone();
+    futureVersion[1] = (byte) (BinaryEventCodec.VERSION + 1);
+    DecodingException ex =
+        assertThrows(
+            DecodingException.class, () -> BinaryEventCodec.RAW_EVENT.decode(futureVersion));
+    assertTrue(ex.getMessage().contains("Unsupported binary event version"));
+  }
+
+  /** Tests that {@link WireFormat#detect} tells the two encodings apart. */
+  @Test
+  void detectDistinguishesFormats() {
+    RawEvent event = new RawEvent("e", TS, 1.0, Map.of());
+    byte[] binary = BinaryEventCodec.RAW_EVENT.encode(event);
+    byte[] json = JsonCodec.RAW_EVENT.encode(event);
+
+    assertEquals(WireFormat.BINARY, WireFormat.detect(binary, 0, binary.length));
+    assertEquals(WireFormat.JSON, WireFormat.detect(json, 0, json.length));
+  }
+}
@@ -0,0 +1,143 @@
+package io.analytics.platform.common.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.dto.RawEvent;
+import io.analytics.platform.common.dto.WindowAggregate;
+import io.analytics.platform.common.exception.CodecException;
+import io.analytics.platform.common.exception.DecodingException;
+import io.analytics.platform.common.sketch.DDSketch;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link JsonCodec} class.
+ *
+ * <p>Verifies the byte, buffer and stream entry points, codec caching, and the typed exceptions
+ * raised for malformed or rejected payloads.
+ *
+ * @see JsonCodec
+ */
+class JsonCodecTest {
+
+  private static final Instant TS = Instant.parse("2025-09-12T12:00:00Z");
+
+  /** Tests that a {@link RawEvent} survives a byte array round trip. */
+  @Test
+  void rawEventRoundTripsThroughBytes() {
+    RawEvent event = new RawEvent("evt-1", TS, 123.45, Map.of("source", "unit-test"));
+
+    byte[] json = JsonCodec.RAW_EVENT.encode(event);
+    RawEvent result = JsonCodec.RAW_EVENT.decode(json);
+
+    assertEquals(event, result, "Decoded event should equal the original");
+  }
+
+  /** Tests that a {@link WindowAggregate} and its sketch survive a byte array round trip. */
+  @Test
+  void windowAggregateRoundTripsThroughBytes() {
+    DDSketch sketch = new DDSketch();
+    sketch.add(1.0);
+    sketch.add(4.0);
+    WindowAggregate aggregate =
+        new WindowAggregate(
+            "processor-1",
+            "source-1m",
+            Map.of("source", "web"),
+            TS,
+            TS.plusSeconds(60),
+            3,
+            8.0,
+            1.0,
+            4.0,
+            8.0 / 3,
+            Map.of("p99", 4.0),
+            sketch.toBytes());
+
+    byte[] json = JsonCodec.WINDOW_AGGREGATE.encode(aggregate);
+    WindowAggregate result = JsonCodec.WINDOW_AGGREGATE.decode(json);
+
+    assertEquals(aggregate, result);
+    assertEquals(2, result.decodeSketch().count());
+  }
+
+  /** Tests that codec bytes are identical to what {@link JsonUtil} produces as a String. */
+  @Test
+  void encodedBytesMatchJsonUtilOutput() {
+    ProcessedEvent event =
+        new ProcessedEvent("proc-1", TS, 42.5, Map.of("k", "v"), Map.of("m", 1), "svc");
+
+    byte[] json = JsonCodec.PROCESSED_EVENT.encode(event);
+
+    assertEquals(JsonUtil.toJson(event), new String(json, StandardCharsets.UTF_8));
+  }
+
+  /** Tests decoding from a slice of a larger array and from heap and direct buffers. */
+  @Test
+  void decodesSlicesAndBuffers() {
+    AlertEvent alert = AlertEvent.of("rule-1", "Threshold exceeded", "HIGH");
+    byte[] json = JsonCodec.ALERT_EVENT.encode(alert);
+
+    byte[] padded = new byte[json.length + 4];
+    System.arraycopy(json, 0, padded, 2, json.length);
+    assertEquals(alert, JsonCodec.ALERT_EVENT.decode(padded, 2, json.length));
+
+    ByteBuffer heap = ByteBuffer.wrap(padded, 2, json.length);
+    assertEquals(alert, JsonCodec.ALERT_EVENT.decode(heap));
+    assertFalse(heap.hasRemaining(), "Buffer should be fully consumed");
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(json.length).put(json).flip();
+    assertEquals(alert, JsonCodec.ALERT_EVENT.decode(direct));
+    assertFalse(direct.hasRemaining(), "Buffer should be fully consumed");
+  }
+
+  /** Tests that stream encoding leaves the stream open and decodes back to the same value. */
+  @Test
+  void streamsRoundTripWithoutClosing() {
+    RawEvent event = new RawEvent("evt-2", TS, -1.0, Map.of());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    JsonCodec.RAW_EVENT.encode(event, out);
+    out.write('\n');
+
+    byte[] bytes = out.toByteArray();
+    assertEquals('\n', bytes[bytes.length - 1], "Stream should remain writable after encode");
+    assertEquals(event, JsonCodec.RAW_EVENT.decode(new ByteArrayInputStream(bytes)));
+  }
+
+  /** Tests that codecs are cached per type. */
+  @Test
+  void forTypeReturnsCachedInstance() {
+    assertSame(JsonCodec.RAW_EVENT, JsonCodec.forType(RawEvent.class));
+    assertSame(JsonCodec.forType(String.class), JsonCodec.forType(String.class));
+  }
+
+  /** Tests that malformed and empty payloads raise {@link DecodingException}. */
+  @Test
+  void malformedPayloadThrowsDecodingException() {
+    byte[] invalid = "{not-valid-json}".getBytes(StandardCharsets.UTF_8);
+
+    DecodingException ex =
+        assertThrows(DecodingException.class, () -> JsonCodec.RAW_EVENT.decode(invalid));
+    assertTrue(ex.getMessage().contains("Failed to deserialize JSON"));
+
+    assertThrows(DecodingException.class, () -> JsonCodec.RAW_EVENT.decode(new byte[0]));
+  }
+
+  /** Tests that a payload rejected by the DTO factory surfaces as a {@link CodecException}. */
+  @Test
+  void rejectedPayloadThrowsCodecException() {
+    byte[] json =
+        "{\"ruleId\":\"r\",\"message\":\"m\",\"severity\":\"NOPE\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    assertThrows(CodecException.class, () -> JsonCodec.ALERT_EVENT.decode(json));
+  }
+}
@@ -0,0 +1,120 @@
+package io.analytics.platform.common.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.dto.RawEvent;
+import io.analytics.platform.common.exception.DecodingException;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link NdjsonReader} class. */
+class NdjsonReaderTest {
+
+  private static final String EVENT =
+      "{\"id\":\"%s\",\"ts\":\"2025-09-12T12:00:00Z\",\"value\":1.0,\"tags\":{}}";
+
+  /** Tests that every line is decoded, with blank lines, CRLF and a missing final newline. */
+  @Test
+  void advance_readsEveryLine() {
+    String body = event("a") + "\n\n" + event("b") + "\r\n  \n" + event("c");
+    NdjsonReader<RawEvent> reader = reader(body, NdjsonReader.DEFAULT_MAX_LINE_LENGTH);
+
+    List<String> ids = new ArrayList<>();
+    List<Long> lines = new ArrayList<>();
+    while (reader.advance()) {
+      ids.add(reader.value().id());
+      lines.add(reader.lineNumber());
+    }
+
+    assertEquals(List.of("a", "b", "c"), ids);
+    assertEquals(List.of(1L, 3L, 5L), lines);
+  }
+
+  /** Tests that a malformed line fails alone, names its line number and keeps its bytes. */
+  @Test
+  void value_malformedLineDoesNotStopTheStream() {
+    NdjsonReader<RawEvent> reader =
+        reader(event("a") + "\n{\"id\": oops\n" + event("c") + "\n", 1024);
+
+    assertTrue(reader.advance());
+    assertEquals("a", reader.value().id());
+    assertTrue(reader.advance());
+    DecodingException error = assertThrows(DecodingException.class, reader::value);
+    assertTrue(error.getMessage().startsWith("Invalid JSON on line 2: "), error.getMessage());
+    assertEquals("{\"id\": oops", new String(reader.bytes(), StandardCharsets.UTF_8));
+    assertTrue(reader.advance());
+    assertEquals("c", reader.value().id());
+    assertFalse(reader.advance());
+  }
+
+  /** Tests that an oversized line is skipped without buffering it. */
+  @Test
+  void value_oversizedLineIsRejected() {
+    String longLine = event("x".repeat(200));
+    NdjsonReader<RawEvent> reader = reader(longLine + "\n" + event("b") + "\n", 128);
+
+    assertTrue(reader.advance());
+    assertTrue(reader.isOversized());
+    DecodingException error = assertThrows(DecodingException.class, reader::value);
+    assertEquals("Line 1 exceeds the maximum length of 128 bytes", error.getMessage());
+    assertEquals(0, reader.bytes().length);
+    assertTrue(reader.advance());
+    assertFalse(reader.isOversized());
+    assertEquals("b", reader.value().id());
+  }
+
+  /** Tests that lines split across many small reads are reassembled. */
+  @Test
+  void advance_reassemblesLinesAcrossReads() {
+    StringBuilder body = new StringBuilder();
+    for (int i = 0; i < 50; i++) {
+      body.append(event("e-" + i)).append('\n');
+    }
+    InputStream trickle =
+        new FilterInputStream(
+            new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8))) {
+          @Override
+          public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 7));
+          }
+        };
+    NdjsonReader<RawEvent> reader = new NdjsonReader<>(trickle, JsonCodec.RAW_EVENT, 1024);
+
+    int count = 0;
+    while (reader.advance()) {
+      assertEquals("e-" + count, reader.value().id());
+      count++;
+    }
+    assertEquals(50, count);
+  }
+
+  /** Tests that a {@code null} literal decodes to null and an empty stream has no lines. */
+  @Test
+  void value_nullLiteralAndEmptyStream() {
+    NdjsonReader<RawEvent> reader = reader("null\n", 1024);
+    assertTrue(reader.advance());
+    assertNull(reader.value());
+    assertFalse(reader.advance());
+
+    NdjsonReader<RawEvent> empty = reader("", 1024);
+    assertFalse(empty.advance());
+    assertThrows(IllegalStateException.class, empty::value);
+  }
+
+  private static String event(String id) {
+    return EVENT.formatted(id);
+  }
+
+  private static NdjsonReader<RawEvent> reader(String body, int maxLineLength) {
+    return new NdjsonReader<>(
+        new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+        JsonCodec.RAW_EVENT,
+        maxLineLength);
+  }
+}
@@ -0,0 +1,123 @@
+package io.analytics.platform.common.validation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.dto.AlertEvent;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.dto.RawEvent;
+import io.analytics.platform.common.exception.ValidationException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link EventValidator} and {@link Violation}.
+ *
+ * <p>Verifies that the fast path reports the same first violation, with the same message, as the
+ * throwing {@code validate()} methods, and that it honours the supplied clock snapshot.
+ */
+class EventValidatorTest {
+
+  private static final Instant NOW = Instant.parse("2025-09-12T12:00:00Z");
+
+  /** Tests that a valid raw event yields {@link Violation#NONE}. */
+  @Test
+  void validRawEvent_returnsNone() {
+    RawEvent event = new RawEvent("id-1", NOW, 42.5, Map.of("source", "test"));
+    assertSame(Violation.NONE, EventValidator.check(event, NOW));
+    assertTrue(Violation.NONE.isValid());
+  }
+
+  /** Tests each raw event constraint in isolation. */
+  @Test
+  void rawEventViolations_areReportedWithoutThrowing() {
+    Map<String, Object> blankKey = new HashMap<>();
+    blankKey.put(" \t", "x");
+
+    assertSame(Violation.RAW_ID_BLANK, check(new RawEvent("  ", NOW, 1.0, Map.of())));
+    assertSame(Violation.RAW_ID_TOO_LONG, check(new RawEvent("x".repeat(256), NOW, 1.0, Map.of())));
+    assertSame(Violation.TIMESTAMP_MISSING, check(new RawEvent("id", null, 1.0, Map.of())));
+    assertSame(
+        Violation.TIMESTAMP_IN_FUTURE,
+        check(new RawEvent("id", NOW.plusMillis(1), 1.0, Map.of())));
+    assertSame(Violation.RAW_VALUE_INVALID, check(new RawEvent("id", NOW, Double.NaN, Map.of())));
+    assertSame(Violation.RAW_VALUE_INVALID, check(new RawEvent("id", NOW, 1e9, Map.of())));
+    assertSame(Violation.TAGS_MISSING, check(new RawEvent("id", NOW, 1.0, null)));
+    assertSame(Violation.TAG_KEY_BLANK, check(new RawEvent("id", NOW, 1.0, blankKey)));
+  }
+
+  /** Tests that the clock snapshot, not the wall clock, decides whether a timestamp is future. */
+  @Test
+  void clockSnapshot_isUsedForFutureCheck() {
+    RawEvent event = new RawEvent("id", NOW, 1.0, Map.of());
+    assertSame(Violation.TIMESTAMP_IN_FUTURE, EventValidator.check(event, NOW.minusSeconds(1)));
+    assertSame(Violation.NONE, EventValidator.check(event, NOW));
+  }
+
+  /** Tests that processed events report violations in declaration order. */
+  @Test
+  void processedEventViolations_followFieldOrder() {
+    ProcessedEvent invalidValueAndSource =
+        new ProcessedEvent("id", NOW, Double.POSITIVE_INFINITY, Map.of(), Map.of(), " ");
+    assertSame(
+        Violation.PROCESSED_VALUE_INVALID, EventValidator.check(invalidValueAndSource, NOW));
+
+    ProcessedEvent blankSource = new ProcessedEvent("id", NOW, 1.0, Map.of(), Map.of(), " ");
+    assertSame(Violation.SOURCE_BLANK, EventValidator.check(blankSource, NOW));
+    assertSame(Violation.SOURCE_BLANK, EventValidator.checkDerivedFields(blankSource));
+
+    ProcessedEvent noMeta = new ProcessedEvent("id", NOW, 1.0, Map.of(), null, "svc");
+    assertSame(Violation.META_MISSING, EventValidator.checkDerivedFields(noMeta));
+  }
+
+  /** Tests alert checks, including case-insensitive severities. */
+  @Test
+  void alertViolations_areReported() {
+    assertSame(Violation.NONE, EventValidator.check(new AlertEvent("r", "m", " high ")));
+    assertSame(Violation.SEVERITY_INVALID, EventValidator.check(new AlertEvent("r", "m", "HI")));
+    assertSame(Violation.SEVERITY_BLANK, EventValidator.check(new AlertEvent("r", "m", "")));
+    assertSame(Violation.MESSAGE_BLANK, EventValidator.check(new AlertEvent("r", null, "LOW")));
+    assertSame(
+        Violation.RULE_ID_TOO_LONG,
+        EventValidator.check(new AlertEvent("r".repeat(101), "m", "LOW")));
+  }
+
+  /** Tests that blankness matches {@code String.trim().isEmpty()}. */
+  @Test
+  void isBlank_matchesTrimSemantics() {
+    for (String s : new String[] {"", " ", "\t\n", "\u0000", " a ", " ", "x"}) {
+      assertEquals(s.trim().isEmpty(), EventValidator.isBlank(s), "for '" + s + "'");
+    }
+    assertTrue(EventValidator.isBlank(null));
+  }
+
+  /** Tests that thrown violations keep their stack trace and the historical message. */
+  @Test
+  void toException_keepsStackTraceAndOriginalMessage() {
+    ValidationException ex = Violation.TAG_KEY_BLANK.toException();
+    assertEquals("Tag key cannot be blank", ex.getMessage());
+    assertTrue(ex.getStackTrace().length > 0);
+    assertThrows(IllegalStateException.class, Violation.NONE::toException);
+    assertDoesNotThrow(Violation.NONE::throwIfInvalid);
+  }
+
+  /** Tests that only the hot-path variant throws stackless exceptions. */
+  @Test
+  void throwIfInvalidWithoutStackTrace_isStackless() {
+    ValidationException ex =
+        assertThrows(
+            ValidationException.class,
+            Violation.PROCESSED_VALUE_INVALID::throwIfInvalidWithoutStackTrace);
+    assertEquals("Transformed value cannot be blank or invalid", ex.getMessage());
+    assertEquals(0, ex.getStackTrace().length);
+    assertDoesNotThrow(Violation.NONE::throwIfInvalidWithoutStackTrace);
+
+    ex = assertThrows(ValidationException.class, Violation.PROCESSED_VALUE_INVALID::throwIfInvalid);
+    assertTrue(ex.getStackTrace().length > 0);
+  }
+
+  private static Violation check(RawEvent event) {
+    return EventValidator.check(event, NOW);
+  }
+}
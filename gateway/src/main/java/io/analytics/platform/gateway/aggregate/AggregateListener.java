@@ -0,0 +1,47 @@
+package io.analytics.platform.gateway.aggregate;
+
+import io.analytics.platform.common.dto.WindowAggregate;
+import io.analytics.platform.common.exception.DecodingException;
+import io.analytics.platform.common.logging.Logging;
+import io.analytics.platform.common.util.JsonCodec;
+import org.slf4j.Logger;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds the window aggregates published by the processors into the {@link AggregateStore}.
+ *
+ * <p>Every gateway instance consumes the whole topic under a group of its own, from the earliest
+ * retained record, so each holds every aggregate and rebuilds its store on restart. Records that
+ * do not decode, or whose sketch does not, are logged and skipped.
+ */
+@Component
+public class AggregateListener {
+
+  private static final Logger log = Logging.getLogger(AggregateListener.class);
+
+  private final AggregateStore store;
+
+  public AggregateListener(AggregateStore store) {
+    this.store = store;
+  }
+
+  @KafkaListener(topics = "${gateway.aggregates-topic}", groupId = "gateway-${random.uuid}")
+  public void onAggregate(byte[] value) {
+    WindowAggregate aggregate;
+    try {
+      aggregate = JsonCodec.WINDOW_AGGREGATE.decode(value);
+      aggregate.decodeSketch();
+    } catch (DecodingException e) {
+      Logging.error(log, "Skipping undecodable window aggregate", e);
+      return;
+    }
+    if (!store.put(aggregate)) {
+      Logging.debug(
+          log,
+          "Dropped aggregate of expired window {} at {}",
+          aggregate.window(),
+          aggregate.windowStart());
+    }
+  }
+}
@@ -0,0 +1,259 @@
+package io.analytics.platform.gateway.aggregate;
+
+import io.analytics.platform.common.dto.WindowAggregate;
+import io.analytics.platform.common.sketch.DDSketch;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory store of the window aggregates published by the processor instances, merged on query.
+ *
+ * <p>Each processor instance publishes partial aggregates of the events it consumed, so the store
+ * keeps the latest aggregate per window, group and instance, replacing it when a late event
+ * updates the window, and combines the instances when queried: counts and sums add up, minimums
+ * and maximums combine, and percentiles are estimated from the merged {@link DDSketch sketches},
+ * so they are as accurate as if one instance had seen every event. A query can also roll up all
+ * the windows of a time range per group, e.g. hourly percentiles from one-minute windows.
+ *
+ * <p>Aggregates of windows starting more than the retention before the newest window start are
+ * dropped, and past {@code maxAggregates} the oldest windows are dropped first.
+ *
+ * <p>Thread-safe.
+ */
+public final class AggregateStore {
+
+  private final long retentionMillis;
+  private final int maxAggregates;
+
+  /** Window name to window start to the aggregates of that window. */
+  private final Map<String, NavigableMap<Long, Groups>> windows = new HashMap<>();
+
+  private long newestStart = Long.MIN_VALUE;
+  private int size;
+
+  /**
+   * Creates an empty store.
+   *
+   * @param retention how far before the newest window start aggregates are kept
+   * @param maxAggregates bound on the per-instance aggregates held
+   */
+  public AggregateStore(Duration retention, int maxAggregates) {
+    if (!retention.isPositive() || maxAggregates <= 0) {
+      throw new IllegalArgumentException("Retention and max aggregates must be positive");
+    }
+    this.retentionMillis = retention.toMillis();
+    this.maxAggregates = maxAggregates;
+  }
+
+  /**
+   * Stores an aggregate, replacing the previous one of the same window, group and instance.
+   *
+   * @param aggregate the aggregate
+   * @return false if the window is older than the retention and the aggregate was dropped
+   */
+  public synchronized boolean put(WindowAggregate aggregate) {
+    long start = aggregate.windowStart().toEpochMilli();
+    if (newestStart != Long.MIN_VALUE && start < newestStart - retentionMillis) {
+      return false;
+    }
+    Groups groups =
+        windows
+            .computeIfAbsent(aggregate.window(), w -> new TreeMap<>())
+            .computeIfAbsent(start, s -> new Groups());
+    if (groups.put(aggregate)) {
+      size++;
+    }
+    if (start > newestStart) {
+      newestStart = start;
+      evictExpired();
+    }
+    while (size > maxAggregates) {
+      evictOldest();
+    }
+    return true;
+  }
+
+  /**
+   * Merges the aggregates of a window definition over the processor instances.
+   *
+   * @param window name of the window definition
+   * @param group tag values the groups must have, empty for every group
+   * @param from inclusive lower bound of the window starts, null for none
+   * @param to exclusive upper bound of the window starts, null for none
+   * @param quantiles quantiles between 0 and 1 to estimate
+   * @param rollup whether to also merge all the windows of a group into one aggregate
+   * @return the merged aggregates by window start, then group
+   * @throws IllegalArgumentException if a quantile is out of range
+   */
+  public synchronized List<MergedAggregate> query(
+      String window,
+      Map<String, String> group,
+      Instant from,
+      Instant to,
+      List<Double> quantiles,
+      boolean rollup) {
+    for (double q : quantiles) {
+      if (!(q >= 0 && q <= 1)) {
+        throw new IllegalArgumentException("Quantiles must be between 0 and 1, got " + q);
+      }
+    }
+    NavigableMap<Long, Groups> starts = windows.get(window);
+    if (starts == null) {
+      return List.of();
+    }
+    long lower = from != null ? from.toEpochMilli() : Long.MIN_VALUE;
+    long upper = to != null ? to.toEpochMilli() : Long.MAX_VALUE;
+    if (lower >= upper) {
+      return List.of();
+    }
+    List<Merge> merges = new ArrayList<>();
+    Map<Map<String, String>, Merge> rollups = new LinkedHashMap<>();
+    for (Groups groups : starts.subMap(lower, true, upper, false).values()) {
+      for (Map.Entry<Map<String, String>, Map<String, WindowAggregate>> entry :
+          groups.byGroup.entrySet()) {
+        if (!entry.getKey().entrySet().containsAll(group.entrySet())) {
+          continue;
+        }
+        Merge merge;
+        if (rollup) {
+          merge = rollups.computeIfAbsent(entry.getKey(), g -> new Merge(window, g));
+        } else {
+          merge = new Merge(window, entry.getKey());
+          merges.add(merge);
+        }
+        for (WindowAggregate aggregate : entry.getValue().values()) {
+          merge.add(aggregate);
+        }
+      }
+    }
+    List<MergedAggregate> result = new ArrayList<>();
+    for (Merge merge : rollup ? rollups.values() : merges) {
+      result.add(merge.toAggregate(quantiles));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of per-instance aggregates held.
+   *
+   * @return the count
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  private void evictExpired() {
+    long horizon = newestStart - retentionMillis;
+    for (NavigableMap<Long, Groups> starts : windows.values()) {
+      Map<Long, Groups> expired = starts.headMap(horizon, false);
+      for (Groups groups : expired.values()) {
+        size -= groups.size;
+      }
+      expired.clear();
+    }
+    windows.values().removeIf(Map::isEmpty);
+  }
+
+  private void evictOldest() {
+    NavigableMap<Long, Groups> oldest = null;
+    for (NavigableMap<Long, Groups> starts : windows.values()) {
+      if (oldest == null || starts.firstKey() < oldest.firstKey()) {
+        oldest = starts;
+      }
+    }
+    size -= oldest.pollFirstEntry().getValue().size;
+    windows.values().removeIf(Map::isEmpty);
+  }
+
+  /** Latest aggregates of one window start, by group, then instance. */
+  private static final class Groups {
+
+    private final Map<Map<String, String>, Map<String, WindowAggregate>> byGroup =
+        new HashMap<>();
+    private int size;
+
+    /** Stores an aggregate and returns whether it is the first of its group and instance. */
+    boolean put(WindowAggregate aggregate) {
+      boolean added =
+          byGroup
+                  .computeIfAbsent(aggregate.group(), g -> new HashMap<>())
+                  .put(aggregate.instance(), aggregate)
+              == null;
+      if (added) {
+        size++;
+      }
+      return added;
+    }
+  }
+
+  /** Running combination of the aggregates of one group. */
+  private static final class Merge {
+
+    private final String window;
+    private final Map<String, String> group;
+    private final Set<String> instances = new HashSet<>();
+    private long start = Long.MAX_VALUE;
+    private long end = Long.MIN_VALUE;
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private DDSketch sketch;
+    private boolean sketched = true;
+
+    Merge(String window, Map<String, String> group) {
+      this.window = window;
+      this.group = group;
+    }
+
+    void add(WindowAggregate aggregate) {
+      instances.add(aggregate.instance());
+      start = Math.min(start, aggregate.windowStart().toEpochMilli());
+      end = Math.max(end, aggregate.windowEnd().toEpochMilli());
+      count += aggregate.count();
+      sum += aggregate.sum();
+      min = Math.min(min, aggregate.min());
+      max = Math.max(max, aggregate.max());
+      DDSketch other = sketched ? aggregate.decodeSketch() : null;
+      if (other == null
+          || (sketch != null && sketch.relativeAccuracy() != other.relativeAccuracy())) {
+        sketched = false;
+        sketch = null;
+      } else if (sketch == null) {
+        sketch = other;
+      } else {
+        sketch.merge(other);
+      }
+    }
+
+    MergedAggregate toAggregate(List<Double> quantiles) {
+      Map<String, Double> percentiles = new LinkedHashMap<>();
+      if (sketched && sketch != null) {
+        for (double q : quantiles) {
+          percentiles.put(WindowAggregate.percentileName(q), sketch.quantile(q));
+        }
+      }
+      return new MergedAggregate(
+          window,
+          group,
+          Instant.ofEpochMilli(start),
+          Instant.ofEpochMilli(end),
+          instances.size(),
+          count,
+          sum,
+          min,
+          max,
+          count > 0 ? sum / count : 0,
+          percentiles);
+    }
+  }
+}
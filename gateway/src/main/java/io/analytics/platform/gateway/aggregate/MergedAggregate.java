@@ -0,0 +1,33 @@
+package io.analytics.platform.gateway.aggregate;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Window aggregate combined over every processor instance, and optionally over several windows.
+ *
+ * @param window name of the window definition
+ * @param group value of each grouping tag
+ * @param windowStart start of the earliest merged window
+ * @param windowEnd end of the latest merged window
+ * @param instances number of processor instances that contributed
+ * @param count number of events
+ * @param sum sum of their values
+ * @param min smallest value
+ * @param max largest value
+ * @param mean {@code sum / count}
+ * @param percentiles requested percentiles by name, e.g. {@code p99}, from the merged sketches;
+ *     empty if some contribution has no sketch
+ */
+public record MergedAggregate(
+    String window,
+    Map<String, String> group,
+    Instant windowStart,
+    Instant windowEnd,
+    int instances,
+    long count,
+    double sum,
+    double min,
+    double max,
+    double mean,
+    Map<String, Double> percentiles) {}
@@ -0,0 +1,54 @@
+package io.analytics.platform.gateway.config;
+
+import io.analytics.platform.gateway.aggregate.AggregateStore;
+import io.analytics.platform.gateway.events.EventQueries;
+import io.analytics.platform.gateway.events.EventRepository;
+import io.analytics.platform.gateway.events.HotEventStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import javax.sql.DataSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wires the in-memory store of window aggregates, the repository of the processed events, read
+ * from the data source configured with {@code spring.datasource.*}, and the in-memory store of the
+ * recent ones in front of it.
+ */
+@Configuration(proxyBeanMethods = false)
+public class GatewayConfig {
+
+  @Bean
+  public AggregateStore aggregateStore(GatewayProperties properties) {
+    return new AggregateStore(properties.aggregateRetention(), properties.maxAggregates());
+  }
+
+  @Bean
+  public EventRepository eventRepository(DataSource dataSource, GatewayProperties properties) {
+    return new EventRepository(dataSource, properties.eventsTable());
+  }
+
+  @Bean
+  public HotEventStore hotEventStore(
+      GatewayProperties properties, Clock clock, MeterRegistry registry) {
+    GatewayProperties.HotStore hotStore = properties.hotStore();
+    return new HotEventStore(
+        hotStore.segmentDuration(),
+        hotStore.segmentSize(),
+        hotStore.retention(),
+        hotStore.maxEvents(),
+        clock,
+        registry);
+  }
+
+  @Bean
+  public EventQueries eventQueries(
+      HotEventStore hotEventStore, EventRepository eventRepository, MeterRegistry registry) {
+    return new EventQueries(hotEventStore, eventRepository, registry);
+  }
+
+  @Bean
+  public Clock clock() {
+    return Clock.systemUTC();
+  }
+}
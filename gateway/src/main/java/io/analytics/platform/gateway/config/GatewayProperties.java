@@ -0,0 +1,81 @@
+package io.analytics.platform.gateway.config;
+
+import io.analytics.platform.common.constants.TopicNames;
+import java.time.Duration;
+import java.util.regex.Pattern;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the gateway service, bound from the {@code gateway.*} namespace.
+ *
+ * @param aggregatesTopic topic of the window aggregates published by the processors
+ * @param aggregateRetention how far before the newest window start aggregates are kept
+ * @param maxAggregates bound on the per-instance aggregates held in memory
+ * @param eventsTable the PostgreSQL table of the processed events, optionally schema-qualified
+ * @param maxEventRange the longest time range of an event query
+ * @param maxEventLimit the most events an event query returns
+ * @param hotStore settings of the in-memory store of the recent events
+ */
+@ConfigurationProperties(prefix = "gateway")
+public record GatewayProperties(
+    @DefaultValue(TopicNames.AGGREGATES) String aggregatesTopic,
+    @DefaultValue("6h") Duration aggregateRetention,
+    @DefaultValue("1000000") int maxAggregates,
+    @DefaultValue("processed_events") String eventsTable,
+    @DefaultValue("1d") Duration maxEventRange,
+    @DefaultValue("1000") int maxEventLimit,
+    @DefaultValue HotStore hotStore) {
+
+  private static final Pattern TABLE_NAME =
+      Pattern.compile("[a-z_][a-z0-9_]*(\\.[a-z_][a-z0-9_]*)?");
+
+  /** Validates the settings. */
+  public GatewayProperties {
+    if (!aggregateRetention.isPositive() || maxAggregates <= 0) {
+      throw new IllegalArgumentException(
+          "gateway aggregate-retention and max-aggregates must be positive");
+    }
+    if (!TABLE_NAME.matcher(eventsTable).matches()) {
+      throw new IllegalArgumentException(
+          "gateway.events-table must be a lower case, optionally schema-qualified name");
+    }
+    if (!maxEventRange.isPositive() || maxEventLimit <= 0) {
+      throw new IllegalArgumentException(
+          "gateway max-event-range and max-event-limit must be positive");
+    }
+  }
+
+  /**
+   * Settings of the in-memory store of the recent events, bound from {@code gateway.hot-store.*}.
+   *
+   * <p>Events of {@code topic} are held column by column in segments of at most {@code
+   * segmentSize} events, one time bucket of {@code segmentDuration} each, for {@code retention};
+   * event queries within that window are answered from memory, older ones from PostgreSQL.
+   *
+   * @param topic topic of the processed events
+   * @param retention how long events are held
+   * @param segmentDuration the time bucket of a segment, and the granularity of the eviction
+   * @param segmentSize the most events of a segment
+   * @param maxEvents bound on the events held, the oldest buckets being evicted first
+   */
+  public record HotStore(
+      @DefaultValue(TopicNames.PROCESSED_EVENTS) String topic,
+      @DefaultValue("2h") Duration retention,
+      @DefaultValue("1m") Duration segmentDuration,
+      @DefaultValue("8192") int segmentSize,
+      @DefaultValue("10000000") long maxEvents) {
+
+    /** Validates the settings. */
+    public HotStore {
+      if (segmentDuration.toNanos() < 1000 || segmentSize <= 0 || maxEvents <= 0) {
+        throw new IllegalArgumentException(
+            "gateway.hot-store segment-duration, segment-size and max-events must be positive");
+      }
+      if (retention.compareTo(segmentDuration) < 0) {
+        throw new IllegalArgumentException(
+            "gateway.hot-store.retention must be at least segment-duration");
+      }
+    }
+  }
+}
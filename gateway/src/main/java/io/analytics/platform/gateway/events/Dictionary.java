@@ -0,0 +1,75 @@
+package io.analytics.platform.gateway.events;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Dictionary encoding of a column: each distinct value is stored once and rows hold its code, the
+ * position of the value in the order first seen.
+ *
+ * <p>Filters are evaluated once per distinct value rather than once per row: {@link #matches}
+ * turns a predicate into a table indexed by code, which a scan then reads for each row.
+ *
+ * <p>Not thread-safe.
+ *
+ * @param <T> type of the values
+ */
+final class Dictionary<T> {
+
+  private final Map<T, Integer> codes = new HashMap<>();
+  private final List<T> values = new ArrayList<>();
+
+  /**
+   * Returns the code of a value, adding the value if it is new.
+   *
+   * @param value the value, not null
+   * @return its code
+   */
+  int encode(T value) {
+    Integer code = codes.get(value);
+    if (code == null) {
+      code = values.size();
+      codes.put(value, code);
+      values.add(value);
+    }
+    return code;
+  }
+
+  /**
+   * Returns the code of a value.
+   *
+   * @param value the value
+   * @return its code, or -1 if the value was never encoded
+   */
+  int code(T value) {
+    Integer code = codes.get(value);
+    return code != null ? code : -1;
+  }
+
+  /**
+   * Returns the value of a code.
+   *
+   * @param code a code returned by {@link #encode}
+   * @return the value
+   */
+  T decode(int code) {
+    return values.get(code);
+  }
+
+  /**
+   * Evaluates a predicate on every distinct value.
+   *
+   * @param predicate the predicate
+   * @return whether the value of each code matches, indexed by code
+   */
+  boolean[] matches(Predicate<? super T> predicate) {
+    boolean[] matches = new boolean[values.size()];
+    for (int code = 0; code < matches.length; code++) {
+      matches[code] = predicate.test(values.get(code));
+    }
+    return matches;
+  }
+}
@@ -0,0 +1,126 @@
+package io.analytics.platform.gateway.events;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers event queries from the {@link HotEventStore} where it holds the range, and from
+ * PostgreSQL otherwise.
+ *
+ * <p>A range is split at {@link HotEventStore#coveredFrom()}: the part after it is read from the
+ * store, the part before it, if any, from the {@link EventRepository}. Event lists are read newest
+ * first, so PostgreSQL is only asked for the events the store could not supply up to the limit;
+ * aggregates of both parts are combined. A range the store no longer holds by the time it is
+ * scanned, its buckets evicted meanwhile, is read from PostgreSQL as a whole.
+ *
+ * <p>Meters:
+ *
+ * <ul>
+ *   <li>{@code gateway.events.queries{tier=hot|postgres|mixed}}: queries answered by the store
+ *       alone, by PostgreSQL alone, or by both
+ * </ul>
+ *
+ * <p>Thread-safe.
+ */
+public final class EventQueries {
+
+  private final HotEventStore store;
+  private final EventRepository repository;
+  private final Counter hot;
+  private final Counter postgres;
+  private final Counter mixed;
+
+  /**
+   * Creates the queries.
+   *
+   * @param store the store of the recent events
+   * @param repository the repository of every event
+   * @param registry registry of the query meters
+   */
+  public EventQueries(HotEventStore store, EventRepository repository, MeterRegistry registry) {
+    this.store = store;
+    this.repository = repository;
+    this.hot = queries(registry, "hot");
+    this.postgres = queries(registry, "postgres");
+    this.mixed = queries(registry, "mixed");
+  }
+
+  private static Counter queries(MeterRegistry registry, String tier) {
+    return Counter.builder("gateway.events.queries")
+        .description("Event queries, by the tier that answered them")
+        .tag("tier", tier)
+        .register(registry);
+  }
+
+  /**
+   * Returns the latest events of a time range.
+   *
+   * @param from start of the range, inclusive
+   * @param to end of the range, exclusive
+   * @param source the source the events must come from, or null for any
+   * @param limit the most events returned
+   * @return the events, newest first
+   * @throws SQLException if the query of PostgreSQL failed
+   */
+  public List<ProcessedEvent> find(Instant from, Instant to, String source, int limit)
+      throws SQLException {
+    Instant split = split(from, to);
+    List<ProcessedEvent> recent = split != null ? store.find(split, to, source, limit) : null;
+    if (recent == null) {
+      postgres.increment();
+      return repository.find(from, to, source, limit);
+    }
+    if (recent.size() == limit || !from.isBefore(split)) {
+      hot.increment();
+      return recent;
+    }
+    mixed.increment();
+    List<ProcessedEvent> events = new ArrayList<>(recent);
+    events.addAll(repository.find(from, split, source, limit - recent.size()));
+    return events;
+  }
+
+  /**
+   * Aggregates the values of the events of a time range.
+   *
+   * @param from start of the range, inclusive
+   * @param to end of the range, exclusive
+   * @param source the source the events must come from, or null for any
+   * @param tags tag values the events must have, as strings, empty for any
+   * @return the aggregate
+   * @throws SQLException if the query of PostgreSQL failed
+   */
+  public EventStats stats(Instant from, Instant to, String source, Map<String, String> tags)
+      throws SQLException {
+    Instant split = split(from, to);
+    EventStats recent = split != null ? store.stats(split, to, source, tags) : null;
+    if (recent == null) {
+      postgres.increment();
+      return repository.stats(from, to, source, tags);
+    }
+    if (!from.isBefore(split)) {
+      hot.increment();
+      return recent;
+    }
+    mixed.increment();
+    EventStats.Accumulator stats = new EventStats.Accumulator();
+    stats.add(recent);
+    stats.add(repository.stats(from, split, source, tags));
+    return stats.toStats(from, to);
+  }
+
+  /** Returns where the store takes over in a range, or null if it holds none of it. */
+  private Instant split(Instant from, Instant to) {
+    Instant covered = store.coveredFrom();
+    if (covered == null || !covered.isBefore(to)) {
+      return null;
+    }
+    return covered.isAfter(from) ? covered : from;
+  }
+}
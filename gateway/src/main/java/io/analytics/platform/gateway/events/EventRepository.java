@@ -0,0 +1,152 @@
+package io.analytics.platform.gateway.events;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.util.JsonUtil;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * Reads processed events back from the PostgreSQL table written by the sink.
+ *
+ * <p>The table is range-partitioned by {@code ts}, so every query is bounded in time with {@code
+ * ts >= ? AND ts < ?} on the bare column: PostgreSQL then scans only the partitions overlapping
+ * the range, pruned at planning or, for generic plans, at execution. Timestamps are bound as UTC
+ * {@link LocalDateTime}s, matching the {@code TIMESTAMP} column without a cast that would defeat
+ * pruning.
+ *
+ * <p>Thread-safe.
+ */
+public final class EventRepository {
+
+  private final DataSource dataSource;
+  private final String table;
+  private final String sql;
+  private final String sourceSql;
+
+  /**
+   * Creates a repository.
+   *
+   * @param dataSource source of the connections
+   * @param table the events table, optionally schema-qualified
+   */
+  public EventRepository(DataSource dataSource, String table) {
+    this.dataSource = dataSource;
+    this.table = table;
+    String select =
+        "SELECT id, ts, value_transformed, tags, meta, source FROM "
+            + table
+            + " WHERE ts >= ? AND ts < ?";
+    this.sql = select + " ORDER BY ts DESC LIMIT ?";
+    this.sourceSql = select + " AND source = ? ORDER BY ts DESC LIMIT ?";
+  }
+
+  /**
+   * Returns the latest events of a time range.
+   *
+   * @param from start of the range, inclusive
+   * @param to end of the range, exclusive
+   * @param source the source the events must come from, or null for any
+   * @param limit the most events returned
+   * @return the events, newest first
+   * @throws SQLException if the query failed
+   */
+  public List<ProcessedEvent> find(Instant from, Instant to, String source, int limit)
+      throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement =
+            connection.prepareStatement(source != null ? sourceSql : sql)) {
+      int i = 1;
+      statement.setObject(i++, LocalDateTime.ofInstant(from, ZoneOffset.UTC));
+      statement.setObject(i++, LocalDateTime.ofInstant(to, ZoneOffset.UTC));
+      if (source != null) {
+        statement.setString(i++, source);
+      }
+      statement.setInt(i, limit);
+      List<ProcessedEvent> events = new ArrayList<>();
+      try (ResultSet rows = statement.executeQuery()) {
+        while (rows.next()) {
+          events.add(event(rows));
+        }
+      }
+      return events;
+    }
+  }
+
+  /**
+   * Aggregates the values of the events of a time range.
+   *
+   * <p>A tag filter is matched with {@code tags @> ?::jsonb}, which the GIN index on {@code tags}
+   * serves; it matches tags whose value is the given string.
+   *
+   * @param from start of the range, inclusive
+   * @param to end of the range, exclusive
+   * @param source the source the events must come from, or null for any
+   * @param tags tag values the events must have, empty for any
+   * @return the aggregate
+   * @throws SQLException if the query failed
+   */
+  public EventStats stats(Instant from, Instant to, String source, Map<String, String> tags)
+      throws SQLException {
+    StringBuilder sql =
+        new StringBuilder("SELECT count(value_transformed), sum(value_transformed),")
+            .append(" min(value_transformed), max(value_transformed) FROM ")
+            .append(table)
+            .append(" WHERE ts >= ? AND ts < ?");
+    if (source != null) {
+      sql.append(" AND source = ?");
+    }
+    if (!tags.isEmpty()) {
+      sql.append(" AND tags @> ?::jsonb");
+    }
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+      int i = 1;
+      statement.setObject(i++, LocalDateTime.ofInstant(from, ZoneOffset.UTC));
+      statement.setObject(i++, LocalDateTime.ofInstant(to, ZoneOffset.UTC));
+      if (source != null) {
+        statement.setString(i++, source);
+      }
+      if (!tags.isEmpty()) {
+        statement.setString(i, JsonUtil.toJson(tags));
+      }
+      EventStats.Accumulator stats = new EventStats.Accumulator();
+      try (ResultSet rows = statement.executeQuery()) {
+        if (rows.next() && rows.getLong(1) > 0) {
+          stats.add(
+              rows.getLong(1),
+              rows.getBigDecimal(2).doubleValue(),
+              rows.getBigDecimal(3).doubleValue(),
+              rows.getBigDecimal(4).doubleValue());
+        }
+      }
+      return stats.toStats(from, to);
+    }
+  }
+
+  private static ProcessedEvent event(ResultSet row) throws SQLException {
+    BigDecimal value = row.getBigDecimal(3);
+    return new ProcessedEvent(
+        row.getString(1),
+        row.getObject(2, LocalDateTime.class).toInstant(ZoneOffset.UTC),
+        value != null ? value.doubleValue() : null,
+        map(row.getString(4)),
+        map(row.getString(5)),
+        row.getString(6));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> map(String json) {
+    return json != null ? JsonUtil.fromJson(json, Map.class) : Collections.emptyMap();
+  }
+}
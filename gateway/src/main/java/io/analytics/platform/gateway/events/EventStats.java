@@ -0,0 +1,73 @@
+package io.analytics.platform.gateway.events;
+
+import java.time.Instant;
+
+/**
+ * Aggregate of the values of the processed events of a time range.
+ *
+ * @param from start of the range, inclusive
+ * @param to end of the range, exclusive
+ * @param count number of events with a value
+ * @param sum sum of their values
+ * @param min smallest value, null if there is none
+ * @param max largest value, null if there is none
+ * @param mean {@code sum / count}, null if there is no value
+ */
+public record EventStats(
+    Instant from, Instant to, long count, double sum, Double min, Double max, Double mean) {
+
+  /**
+   * Running aggregate, combining scanned values and partial aggregates.
+   *
+   * <p>Not thread-safe.
+   */
+  public static final class Accumulator {
+
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Adds a partial aggregate.
+     *
+     * @param count number of values
+     * @param sum sum of the values
+     * @param min smallest value, ignored if {@code count} is zero
+     * @param max largest value, ignored if {@code count} is zero
+     */
+    public void add(long count, double sum, double min, double max) {
+      if (count == 0) {
+        return;
+      }
+      this.count += count;
+      this.sum += sum;
+      this.min = Math.min(this.min, min);
+      this.max = Math.max(this.max, max);
+    }
+
+    /**
+     * Adds a partial aggregate.
+     *
+     * @param stats the partial aggregate
+     */
+    public void add(EventStats stats) {
+      if (stats.count() > 0) {
+        add(stats.count(), stats.sum(), stats.min(), stats.max());
+      }
+    }
+
+    /**
+     * Returns the aggregate.
+     *
+     * @param from start of the aggregated range
+     * @param to end of the aggregated range
+     * @return the aggregate of the values added
+     */
+    public EventStats toStats(Instant from, Instant to) {
+      return count == 0
+          ? new EventStats(from, to, 0, 0, null, null, null)
+          : new EventStats(from, to, count, sum, min, max, sum / count);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package io.analytics.platform.gateway.events;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.kafka.EventDeserializer;
+import io.analytics.platform.common.logging.Logging;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.SerializationException;
+import org.slf4j.Logger;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds the processed events into the {@link HotEventStore}.
+ *
+ * <p>Every gateway instance consumes the whole topic under a group of its own, in batches. Its
+ * partitions are consumed from the records produced since they were assigned, so the store holds
+ * every event from that moment, which it is told to {@link HotEventStore#cover}; older ranges are
+ * read from PostgreSQL until the store has filled up to its retention. Records are produced after
+ * the event they hold happened, so no event of the covered range is skipped. Records that do not
+ * hold a decodable event are logged and skipped.
+ */
+@Component
+public class HotEventListener implements ConsumerSeekAware {
+
+  private static final Logger log = Logging.getLogger(HotEventListener.class);
+
+  private final HotEventStore store;
+  private final Clock clock;
+  private final EventDeserializer<ProcessedEvent> deserializer =
+      new EventDeserializer<>(ProcessedEvent.class);
+
+  public HotEventListener(HotEventStore store, Clock clock) {
+    this.store = store;
+    this.clock = clock;
+  }
+
+  @Override
+  public void onPartitionsAssigned(
+      Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+    Instant now = clock.instant();
+    Logging.info(log, "Consuming {} into the hot store from {}", assignments.keySet(), now);
+    callback.seekToTimestamp(assignments.keySet(), now.toEpochMilli());
+    store.cover(now);
+  }
+
+  @KafkaListener(
+      topics = "${gateway.hot-store.topic}",
+      groupId = "gateway-events-${random.uuid}",
+      batch = "true")
+  public void onEvents(List<ConsumerRecord<String, byte[]>> records) {
+    List<ProcessedEvent> events = new ArrayList<>(records.size());
+    for (ConsumerRecord<String, byte[]> record : records) {
+      ProcessedEvent event;
+      try {
+        event = deserializer.deserialize(record.topic(), record.headers(), record.value());
+      } catch (SerializationException e) {
+        Logging.error(log, "Skipping undecodable processed event", e);
+        continue;
+      }
+      if (event != null && event.id() != null && event.ts() != null) {
+        events.add(event);
+      }
+    }
+    store.addAll(events);
+  }
+}
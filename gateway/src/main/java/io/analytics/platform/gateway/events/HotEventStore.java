@@ -0,0 +1,331 @@
+package io.analytics.platform.gateway.events;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory, column-oriented store of the recent processed events, serving the queries on them
+ * without a round trip to PostgreSQL.
+ *
+ * <p>Events are grouped in time buckets of {@code segmentDuration}, each held in {@link Segment
+ * segments} of at most {@code segmentSize} events. A query visits only the buckets overlapping its
+ * range, and within them scans columns of primitives rather than objects. Buckets entirely older
+ * than {@code retention} are evicted whenever events are added, and past {@code maxEvents} the
+ * oldest buckets go first.
+ *
+ * <p>The topic feeding the store is delivered at least once, so each bucket keeps the IDs of its
+ * events and an event whose ID it already holds is skipped, as PostgreSQL skips it on its primary
+ * key: queries count a redelivered event once in either tier. An event keeps its timestamp, so a
+ * redelivered one falls in the same bucket.
+ *
+ * <p>The store holds every event from the instant it started to {@link #cover} and from the end
+ * of the last bucket evicted, whichever is later: {@link #coveredFrom()}. Queries of ranges
+ * starting earlier must go to PostgreSQL; events older than that are still accepted, but only the
+ * covered part of the store is ever queried.
+ *
+ * <p>Meters:
+ *
+ * <ul>
+ *   <li>{@code gateway.hotstore.events}: events held
+ *   <li>{@code gateway.hotstore.segments}: segments held
+ * </ul>
+ *
+ * <p>Thread-safe: queries run concurrently, and exclude additions.
+ */
+public final class HotEventStore {
+
+  private static final Comparator<Row> BY_TIMESTAMP = Comparator.comparingLong(Row::timestamp);
+
+  private final long bucketMicros;
+  private final int segmentSize;
+  private final long retentionMicros;
+  private final long maxEvents;
+  private final Clock clock;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // Guarded by lock
+  private final NavigableMap<Long, Bucket> buckets = new TreeMap<>();
+  private long coverStart = Long.MAX_VALUE;
+  private long evictedUpTo = Long.MIN_VALUE;
+  private long events;
+  private int segments;
+
+  /**
+   * Creates an empty store.
+   *
+   * @param segmentDuration the time bucket of a segment
+   * @param segmentSize the most events of a segment
+   * @param retention how long events are kept, measured from now
+   * @param maxEvents bound on the events held
+   * @param clock clock measuring the retention
+   * @param registry registry of the store meters
+   */
+  public HotEventStore(
+      Duration segmentDuration,
+      int segmentSize,
+      Duration retention,
+      long maxEvents,
+      Clock clock,
+      MeterRegistry registry) {
+    if (segmentDuration.toNanos() < 1000 || segmentSize <= 0 || maxEvents <= 0) {
+      throw new IllegalArgumentException(
+          "Segment duration, segment size and max events must be positive");
+    }
+    this.bucketMicros = segmentDuration.toNanos() / 1000;
+    this.segmentSize = segmentSize;
+    this.retentionMicros = retention.toNanos() / 1000;
+    this.maxEvents = maxEvents;
+    this.clock = clock;
+    Gauge.builder("gateway.hotstore.events", this::size)
+        .description("Events held by the hot store")
+        .register(registry);
+    Gauge.builder("gateway.hotstore.segments", this::segments)
+        .description("Segments held by the hot store")
+        .register(registry);
+  }
+
+  /**
+   * Records that every event from now on is added, e.g. once the consumer feeding the store is
+   * positioned at the end of the topic.
+   *
+   * @param start the instant from which no event is missing
+   */
+  public void cover(Instant start) {
+    lock.writeLock().lock();
+    try {
+      long micros = Segment.micros(start);
+      coverStart = coverStart == Long.MAX_VALUE ? micros : Math.max(coverStart, micros);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the start of the time range the store holds every event of.
+   *
+   * @return the start, or null if the store was never told it {@link #cover covers} any
+   */
+  public Instant coveredFrom() {
+    lock.readLock().lock();
+    try {
+      return coverStart != Long.MAX_VALUE ? Segment.instant(coveredFromMicros()) : null;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private long coveredFromMicros() {
+    return Math.max(coverStart, evictedUpTo);
+  }
+
+  /**
+   * Adds events, after evicting the buckets beyond the retention.
+   *
+   * @param added the events, with an ID and a timestamp
+   * @return the number of events added, those older than the retention or already held being
+   *     dropped
+   */
+  public int addAll(Collection<ProcessedEvent> added) {
+    lock.writeLock().lock();
+    try {
+      evictBefore(Segment.micros(clock.instant()) - retentionMicros);
+      int count = 0;
+      for (ProcessedEvent event : added) {
+        long timestamp = Segment.micros(event.ts());
+        if (timestamp < evictedUpTo) {
+          continue;
+        }
+        Bucket bucket = buckets.computeIfAbsent(bucket(timestamp), b -> new Bucket());
+        if (!bucket.ids.add(event.id())) {
+          continue;
+        }
+        List<Segment> bucketSegments = bucket.segments;
+        Segment segment =
+            bucketSegments.isEmpty() ? null : bucketSegments.get(bucketSegments.size() - 1);
+        if (segment == null || segment.isFull()) {
+          segment = new Segment(segmentSize);
+          bucketSegments.add(segment);
+          segments++;
+        }
+        segment.add(event, timestamp);
+        events++;
+        count++;
+      }
+      while (events > maxEvents) {
+        Map.Entry<Long, Bucket> oldest = buckets.pollFirstEntry();
+        evicted(oldest.getKey(), oldest.getValue());
+      }
+      return count;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void evictBefore(long horizon) {
+    long end = bucket(horizon);
+    if (end <= evictedUpTo) {
+      return;
+    }
+    Map<Long, Bucket> expired = buckets.headMap(end, false);
+    for (Bucket bucket : expired.values()) {
+      for (Segment segment : bucket.segments) {
+        events -= segment.size();
+      }
+      segments -= bucket.segments.size();
+    }
+    expired.clear();
+    evictedUpTo = end;
+  }
+
+  private void evicted(long start, Bucket bucket) {
+    for (Segment segment : bucket.segments) {
+      events -= segment.size();
+    }
+    segments -= bucket.segments.size();
+    evictedUpTo = Math.max(evictedUpTo, start + bucketMicros);
+  }
+
+  private long bucket(long timestamp) {
+    return Math.floorDiv(timestamp, bucketMicros) * bucketMicros;
+  }
+
+  /**
+   * Returns the latest events of a time range.
+   *
+   * @param from start of the range, inclusive
+   * @param to end of the range, exclusive
+   * @param source the source the events must come from, or null for any
+   * @param limit the most events returned
+   * @return the events, newest first, or null if the range starts before {@link #coveredFrom()}
+   */
+  public List<ProcessedEvent> find(Instant from, Instant to, String source, int limit) {
+    lock.readLock().lock();
+    try {
+      long lower = Segment.micros(from);
+      long upper = Segment.micros(to);
+      if (lower < coveredFromMicros()) {
+        return null;
+      }
+      List<ProcessedEvent> found = new ArrayList<>();
+      int[] selection = new int[segmentSize];
+      // Buckets do not overlap, so the newest events are in the newest buckets
+      for (Bucket bucket : range(lower, upper).descendingMap().values()) {
+        int wanted = limit - found.size();
+        PriorityQueue<Row> newest = new PriorityQueue<>(BY_TIMESTAMP);
+        for (Segment segment : bucket.segments) {
+          int selected = segment.select(lower, upper, source, Map.of(), selection);
+          for (int i = 0; i < selected; i++) {
+            long timestamp = segment.timestamp(selection[i]);
+            if (newest.size() < wanted) {
+              newest.add(new Row(segment, selection[i], timestamp));
+            } else if (timestamp > newest.peek().timestamp()) {
+              newest.poll();
+              newest.add(new Row(segment, selection[i], timestamp));
+            }
+          }
+        }
+        List<ProcessedEvent> rows = new ArrayList<>(newest.size());
+        while (!newest.isEmpty()) {
+          Row row = newest.poll();
+          rows.add(row.segment().event(row.row()));
+        }
+        found.addAll(rows.reversed());
+        if (found.size() == limit) {
+          break;
+        }
+      }
+      return found;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Aggregates the values of the events of a time range.
+   *
+   * @param from start of the range, inclusive
+   * @param to end of the range, exclusive
+   * @param source the source the events must come from, or null for any
+   * @param tags tag values the events must have, as JSON strings, empty for any
+   * @return the aggregate, or null if the range starts before {@link #coveredFrom()}
+   */
+  public EventStats stats(Instant from, Instant to, String source, Map<String, String> tags) {
+    lock.readLock().lock();
+    try {
+      long lower = Segment.micros(from);
+      long upper = Segment.micros(to);
+      if (lower < coveredFromMicros()) {
+        return null;
+      }
+      EventStats.Accumulator stats = new EventStats.Accumulator();
+      int[] selection = new int[segmentSize];
+      for (Bucket bucket : range(lower, upper).values()) {
+        for (Segment segment : bucket.segments) {
+          int selected = segment.select(lower, upper, source, tags, selection);
+          segment.aggregate(selection, selected, stats);
+        }
+      }
+      return stats.toStats(from, to);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private NavigableMap<Long, Bucket> range(long lower, long upper) {
+    return lower < upper ? buckets.subMap(bucket(lower), true, upper, false) : new TreeMap<>();
+  }
+
+  /**
+   * Returns the number of events held.
+   *
+   * @return the count
+   */
+  public long size() {
+    lock.readLock().lock();
+    try {
+      return events;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of segments held.
+   *
+   * @return the count
+   */
+  public int segments() {
+    lock.readLock().lock();
+    try {
+      return segments;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** The segments of a time bucket, and the IDs of their events. */
+  private static final class Bucket {
+
+    private final List<Segment> segments = new ArrayList<>();
+    private final Set<String> ids = new HashSet<>();
+  }
+
+  /** A selected row, ordered by timestamp to keep the newest of a bucket. */
+  private record Row(Segment segment, int row, long timestamp) {}
+}
@@ -0,0 +1,223 @@
+package io.analytics.platform.gateway.events;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.util.JsonUtil;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Column-oriented block of at most {@code capacity} events of one time bucket.
+ *
+ * <p>Each field is a column: timestamps in epoch microseconds in a {@code long[]}, values in a
+ * {@code double[]} ({@code NaN} for none), event IDs as they are, and the source, tags and
+ * metadata dictionary-encoded, as they repeat across events. Dictionaries belong to the segment,
+ * so evicting it frees them. Columns start small and double up to the capacity.
+ *
+ * <p>Scans produce a selection vector, the rows passing every filter: the time range is checked
+ * without branching in a tight loop over the timestamp column, skipped altogether when the segment
+ * lies within it, then the dictionary filters narrow the selection by comparing codes. Tag filters
+ * compare JSON values, as the containment query of PostgreSQL does: a filter value is a JSON
+ * string, so it matches the tag {@code "1"} but not the number {@code 1}. Aggregates read the
+ * value column at the selected rows.
+ *
+ * <p>Not thread-safe.
+ */
+final class Segment {
+
+  private static final int INITIAL_CAPACITY = 256;
+
+  private final int capacity;
+  private final Dictionary<String> sourceDictionary = new Dictionary<>();
+  private final Dictionary<Map<String, Object>> tagDictionary = new Dictionary<>();
+  private final Dictionary<Map<String, Object>> metaDictionary = new Dictionary<>();
+  private long[] timestamps;
+  private double[] values;
+  private int[] sources;
+  private int[] tags;
+  private int[] metas;
+  private String[] ids;
+  private int size;
+  private long minTimestamp = Long.MAX_VALUE;
+  private long maxTimestamp = Long.MIN_VALUE;
+
+  /**
+   * Creates an empty segment.
+   *
+   * @param capacity the most events it holds
+   */
+  Segment(int capacity) {
+    this.capacity = capacity;
+    int initial = Math.min(capacity, INITIAL_CAPACITY);
+    timestamps = new long[initial];
+    values = new double[initial];
+    sources = new int[initial];
+    tags = new int[initial];
+    metas = new int[initial];
+    ids = new String[initial];
+  }
+
+  /** Returns the number of events held. */
+  int size() {
+    return size;
+  }
+
+  /** Returns whether the segment holds {@code capacity} events. */
+  boolean isFull() {
+    return size == capacity;
+  }
+
+  /**
+   * Appends an event.
+   *
+   * @param event the event, with an ID and a timestamp
+   * @param timestamp its timestamp in epoch microseconds
+   */
+  void add(ProcessedEvent event, long timestamp) {
+    if (size == timestamps.length) {
+      grow();
+    }
+    timestamps[size] = timestamp;
+    values[size] = event.valueTransformed() != null ? event.valueTransformed() : Double.NaN;
+    sources[size] = event.source() != null ? sourceDictionary.encode(event.source()) : -1;
+    tags[size] = tagDictionary.encode(event.tags() != null ? event.tags() : Map.of());
+    metas[size] = metaDictionary.encode(event.meta() != null ? event.meta() : Map.of());
+    ids[size] = event.id();
+    size++;
+    minTimestamp = Math.min(minTimestamp, timestamp);
+    maxTimestamp = Math.max(maxTimestamp, timestamp);
+  }
+
+  private void grow() {
+    int length = Math.min(capacity, timestamps.length * 2);
+    timestamps = Arrays.copyOf(timestamps, length);
+    values = Arrays.copyOf(values, length);
+    sources = Arrays.copyOf(sources, length);
+    tags = Arrays.copyOf(tags, length);
+    metas = Arrays.copyOf(metas, length);
+    ids = Arrays.copyOf(ids, length);
+  }
+
+  /**
+   * Selects the rows of the events matching a query.
+   *
+   * @param from start of the time range in epoch microseconds, inclusive
+   * @param to end of the time range in epoch microseconds, exclusive
+   * @param source the source the events must come from, or null for any
+   * @param tagFilter tag values the events must have, as JSON strings, empty for any
+   * @param selection receives the selected rows, in order; at least as long as the capacity
+   * @return the number of rows selected
+   */
+  int select(
+      long from, long to, String source, Map<String, String> tagFilter, int[] selection) {
+    if (size == 0 || maxTimestamp < from || minTimestamp >= to) {
+      return 0;
+    }
+    int selected = 0;
+    if (minTimestamp >= from && maxTimestamp < to) {
+      for (int row = 0; row < size; row++) {
+        selection[row] = row;
+      }
+      selected = size;
+    } else {
+      for (int row = 0; row < size; row++) {
+        long timestamp = timestamps[row];
+        selection[selected] = row;
+        selected += timestamp >= from & timestamp < to ? 1 : 0;
+      }
+    }
+    if (source != null) {
+      int code = sourceDictionary.code(source);
+      if (code < 0) {
+        return 0;
+      }
+      int kept = 0;
+      for (int i = 0; i < selected; i++) {
+        int row = selection[i];
+        selection[kept] = row;
+        kept += sources[row] == code ? 1 : 0;
+      }
+      selected = kept;
+    }
+    if (!tagFilter.isEmpty()) {
+      boolean[] matches = tagDictionary.matches(tagSet -> matches(tagSet, tagFilter));
+      int kept = 0;
+      for (int i = 0; i < selected; i++) {
+        int row = selection[i];
+        selection[kept] = row;
+        kept += matches[tags[row]] ? 1 : 0;
+      }
+      selected = kept;
+    }
+    return selected;
+  }
+
+  private static boolean matches(Map<String, Object> tagSet, Map<String, String> tagFilter) {
+    for (Map.Entry<String, String> tag : tagFilter.entrySet()) {
+      Object value = tagSet.get(tag.getKey());
+      // Serialized as the sink stores it, so a number or boolean never equals a string
+      if (value == null || !JsonUtil.toJson(value).equals(JsonUtil.toJson(tag.getValue()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Adds the values of selected rows to an aggregate.
+   *
+   * @param selection rows returned by {@link #select}
+   * @param selected the number of rows selected
+   * @param stats the aggregate
+   */
+  void aggregate(int[] selection, int selected, EventStats.Accumulator stats) {
+    long count = 0;
+    double sum = 0;
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < selected; i++) {
+      double value = values[selection[i]];
+      if (value == value) {
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+      }
+    }
+    stats.add(count, sum, min, max);
+  }
+
+  /** Returns the timestamp of a row, in epoch microseconds. */
+  long timestamp(int row) {
+    return timestamps[row];
+  }
+
+  /**
+   * Rebuilds the event of a row.
+   *
+   * @param row the row
+   * @return the event
+   */
+  ProcessedEvent event(int row) {
+    double value = values[row];
+    return new ProcessedEvent(
+        ids[row],
+        instant(timestamps[row]),
+        Double.isNaN(value) ? null : value,
+        tagDictionary.decode(tags[row]),
+        metaDictionary.decode(metas[row]),
+        sources[row] >= 0 ? sourceDictionary.decode(sources[row]) : null);
+  }
+
+  /** Converts an instant to epoch microseconds, truncating nanoseconds as PostgreSQL does. */
+  static long micros(Instant instant) {
+    return Math.addExact(
+        Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1000);
+  }
+
+  /** Converts epoch microseconds to an instant. */
+  static Instant instant(long micros) {
+    return Instant.ofEpochSecond(
+        Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1000);
+  }
+}
@@ -0,0 +1,58 @@
+package io.analytics.platform.gateway.web;
+
+import io.analytics.platform.gateway.aggregate.AggregateStore;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Queries the window aggregates merged over the processor instances.
+ *
+ * <p>{@code GET /aggregates/{window}} returns the windows starting in {@code [from, to)}, both
+ * ISO-8601 instants and optional, of the groups having every {@code group=tag:value} given, with
+ * the percentiles listed in {@code q} estimated from the merged sketches. With {@code rollup=true}
+ * the windows of each group are merged into one aggregate over the whole range.
+ */
+@RestController
+@RequestMapping(path = "/aggregates", produces = MediaType.APPLICATION_JSON_VALUE)
+public class AggregateController {
+
+  private final AggregateStore store;
+
+  public AggregateController(AggregateStore store) {
+    this.store = store;
+  }
+
+  @GetMapping("/{window}")
+  public AggregateResponse query(
+      @PathVariable String window,
+      @RequestParam(required = false) Instant from,
+      @RequestParam(required = false) Instant to,
+      @RequestParam(name = "group", required = false) List<String> group,
+      @RequestParam(name = "q", defaultValue = "0.5,0.95,0.99") List<Double> quantiles,
+      @RequestParam(defaultValue = "false") boolean rollup) {
+    return AggregateResponse.from(
+        window, rollup, store.query(window, parseGroup(group), from, to, quantiles, rollup));
+  }
+
+  private static Map<String, String> parseGroup(List<String> group) {
+    Map<String, String> tags = new LinkedHashMap<>();
+    if (group != null) {
+      for (String tag : group) {
+        int colon = tag.indexOf(':');
+        if (colon <= 0) {
+          throw new IllegalArgumentException("Group filters must be tag:value, got " + tag);
+        }
+        tags.put(tag.substring(0, colon), tag.substring(colon + 1));
+      }
+    }
+    return tags;
+  }
+}
@@ -0,0 +1,27 @@
+package io.analytics.platform.gateway.web;
+
+import io.analytics.platform.gateway.aggregate.MergedAggregate;
+import java.util.List;
+
+/**
+ * Aggregates of a window definition merged over the processor instances.
+ *
+ * @param window name of the window definition
+ * @param rollup whether each aggregate covers all the matching windows of its group
+ * @param aggregates the merged aggregates by window start, then group
+ */
+public record AggregateResponse(String window, boolean rollup, List<MergedAggregate> aggregates) {
+
+  /**
+   * Describes a query result.
+   *
+   * @param window name of the window definition
+   * @param rollup whether the windows of each group were merged
+   * @param aggregates the merged aggregates
+   * @return the response body
+   */
+  public static AggregateResponse from(
+      String window, boolean rollup, List<MergedAggregate> aggregates) {
+    return new AggregateResponse(window, rollup, aggregates);
+  }
+}
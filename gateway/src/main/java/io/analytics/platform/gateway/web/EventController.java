@@ -0,0 +1,98 @@
+package io.analytics.platform.gateway.web;
+
+import io.analytics.platform.gateway.config.GatewayProperties;
+import io.analytics.platform.gateway.events.EventQueries;
+import io.analytics.platform.gateway.events.EventStats;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Queries the processed events, from the in-memory store of the recent ones or from PostgreSQL.
+ *
+ * <p>{@code GET /events} returns the latest {@code limit} events with {@code ts} in {@code [from,
+ * to)}, both ISO-8601 instants, optionally of one {@code source}. {@code GET /events/stats}
+ * returns the count, sum, minimum, maximum and mean of their values, optionally of the events
+ * having every {@code tag=key:value} given. {@code to} defaults to now and {@code from} to one
+ * hour before {@code to}. The range is always bounded, by at most {@code
+ * gateway.max-event-range}, so that a query scans only the partitions it overlaps.
+ */
+@RestController
+@RequestMapping(path = "/events", produces = MediaType.APPLICATION_JSON_VALUE)
+public class EventController {
+
+  private static final Duration DEFAULT_RANGE = Duration.ofHours(1);
+
+  private final EventQueries queries;
+  private final GatewayProperties properties;
+  private final Clock clock;
+
+  public EventController(EventQueries queries, GatewayProperties properties, Clock clock) {
+    this.queries = queries;
+    this.properties = properties;
+    this.clock = clock;
+  }
+
+  @GetMapping
+  public EventResponse query(
+      @RequestParam(required = false) Instant from,
+      @RequestParam(required = false) Instant to,
+      @RequestParam(required = false) String source,
+      @RequestParam(defaultValue = "100") int limit)
+      throws SQLException {
+    Instant end = to != null ? to : clock.instant();
+    Instant start = from != null ? from : end.minus(DEFAULT_RANGE);
+    checkRange(start, end);
+    if (limit <= 0 || limit > properties.maxEventLimit()) {
+      throw new IllegalArgumentException(
+          "limit must be between 1 and " + properties.maxEventLimit());
+    }
+    return EventResponse.from(start, end, queries.find(start, end, source, limit));
+  }
+
+  @GetMapping("/stats")
+  public EventStats stats(
+      @RequestParam(required = false) Instant from,
+      @RequestParam(required = false) Instant to,
+      @RequestParam(required = false) String source,
+      @RequestParam(name = "tag", required = false) List<String> tag)
+      throws SQLException {
+    Instant end = to != null ? to : clock.instant();
+    Instant start = from != null ? from : end.minus(DEFAULT_RANGE);
+    checkRange(start, end);
+    return queries.stats(start, end, source, parseTags(tag));
+  }
+
+  private void checkRange(Instant start, Instant end) {
+    if (!start.isBefore(end)) {
+      throw new IllegalArgumentException("from must be before to");
+    }
+    if (Duration.between(start, end).compareTo(properties.maxEventRange()) > 0) {
+      throw new IllegalArgumentException(
+          "The range of an event query cannot exceed " + properties.maxEventRange());
+    }
+  }
+
+  private static Map<String, String> parseTags(List<String> tag) {
+    Map<String, String> tags = new LinkedHashMap<>();
+    if (tag != null) {
+      for (String filter : tag) {
+        int colon = filter.indexOf(':');
+        if (colon <= 0) {
+          throw new IllegalArgumentException("Tag filters must be key:value, got " + filter);
+        }
+        tags.put(filter.substring(0, colon), filter.substring(colon + 1));
+      }
+    }
+    return tags;
+  }
+}
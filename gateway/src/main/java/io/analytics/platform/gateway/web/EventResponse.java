@@ -0,0 +1,27 @@
+package io.analytics.platform.gateway.web;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Processed events of a time range.
+ *
+ * @param from start of the range, inclusive
+ * @param to end of the range, exclusive
+ * @param events the events, newest first
+ */
+public record EventResponse(Instant from, Instant to, List<ProcessedEvent> events) {
+
+  /**
+   * Describes a query result.
+   *
+   * @param from start of the queried range
+   * @param to end of the queried range
+   * @param events the events found
+   * @return the response body
+   */
+  public static EventResponse from(Instant from, Instant to, List<ProcessedEvent> events) {
+    return new EventResponse(from, to, events);
+  }
+}
@@ -0,0 +1,16 @@
+package io.analytics.platform.gateway.web;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/** Maps query exceptions to RFC 7807 problem responses. */
+@RestControllerAdvice
+public class GatewayExceptionHandler {
+
+  @ExceptionHandler(IllegalArgumentException.class)
+  public ProblemDetail handleInvalidQuery(IllegalArgumentException e) {
+    return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+  }
+}
@@ -0,0 +1,156 @@
+package io.analytics.platform.gateway.aggregate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.dto.WindowAggregate;
+import io.analytics.platform.common.sketch.DDSketch;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link AggregateStore} class. */
+class AggregateStoreTest {
+
+  private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+  private static final List<Double> QUANTILES = List.of(0.5, 0.99);
+
+  /** Tests that instances are merged as if one instance had aggregated every event. */
+  @Test
+  void query_mergesInstances() {
+    AggregateStore store = new AggregateStore(Duration.ofHours(1), 1000);
+    Random random = new Random(5);
+    DDSketch all = new DDSketch();
+    DDSketch[] parts = {new DDSketch(), new DDSketch(), new DDSketch()};
+    for (int i = 0; i < 30_000; i++) {
+      double value = Math.exp(random.nextGaussian() + 4);
+      all.add(value);
+      parts[i % parts.length].add(value);
+    }
+    for (int i = 0; i < parts.length; i++) {
+      store.put(aggregate("p-" + i, Map.of("source", "web"), 0, parts[i]));
+    }
+
+    List<MergedAggregate> result = store.query("latency", Map.of(), null, null, QUANTILES, false);
+
+    assertEquals(1, result.size());
+    MergedAggregate merged = result.get(0);
+    assertEquals(3, merged.instances());
+    assertEquals(all.count(), merged.count());
+    assertEquals(all.sum(), merged.sum(), 1e-6);
+    assertEquals(all.min(), merged.min());
+    assertEquals(all.max(), merged.max());
+    assertEquals(all.quantile(0.5), merged.percentiles().get("p50"));
+    assertEquals(all.quantile(0.99), merged.percentiles().get("p99"));
+  }
+
+  /** Tests that an update of a window by an instance replaces its previous aggregate. */
+  @Test
+  void put_replacesPreviousAggregateOfInstance() {
+    AggregateStore store = new AggregateStore(Duration.ofHours(1), 1000);
+    store.put(aggregate("p-1", Map.of("source", "web"), 0, sketch(1, 2)));
+    store.put(aggregate("p-1", Map.of("source", "web"), 0, sketch(1, 2, 3)));
+
+    List<MergedAggregate> result = store.query("latency", Map.of(), null, null, QUANTILES, false);
+
+    assertEquals(1, store.size());
+    assertEquals(3, result.get(0).count());
+    assertEquals(1, result.get(0).instances());
+  }
+
+  /** Tests that the group filter, time range and rollup select and combine windows. */
+  @Test
+  void query_filtersAndRollsUp() {
+    AggregateStore store = new AggregateStore(Duration.ofHours(1), 1000);
+    for (int minute = 0; minute < 3; minute++) {
+      store.put(aggregate("p-1", Map.of("source", "web"), minute, sketch(minute + 1)));
+      store.put(aggregate("p-1", Map.of("source", "app"), minute, sketch(100)));
+    }
+
+    List<MergedAggregate> windows =
+        store.query(
+            "latency", Map.of("source", "web"), T0, T0.plusSeconds(120), QUANTILES, false);
+    List<MergedAggregate> rollup =
+        store.query("latency", Map.of("source", "web"), null, null, QUANTILES, true);
+
+    assertEquals(2, windows.size());
+    assertEquals(T0, windows.get(0).windowStart());
+    assertEquals(T0.plusSeconds(60), windows.get(1).windowStart());
+    assertEquals(1, rollup.size());
+    assertEquals(3, rollup.get(0).count());
+    assertEquals(T0, rollup.get(0).windowStart());
+    assertEquals(T0.plusSeconds(180), rollup.get(0).windowEnd());
+    assertEquals(2, rollup.get(0).percentiles().get("p50"), 2 * 0.01);
+    assertTrue(store.query("other", Map.of(), null, null, QUANTILES, false).isEmpty());
+  }
+
+  /** Tests that percentiles are omitted when a contribution has no sketch. */
+  @Test
+  void query_omitsPercentilesWithoutSketches() {
+    AggregateStore store = new AggregateStore(Duration.ofHours(1), 1000);
+    store.put(aggregate("p-1", Map.of(), 0, sketch(1)));
+    store.put(aggregate("p-2", Map.of(), 0, null));
+
+    MergedAggregate merged = store.query("latency", Map.of(), null, null, QUANTILES, false).get(0);
+
+    assertTrue(merged.percentiles().isEmpty());
+    assertEquals(2, merged.count());
+  }
+
+  /** Tests that windows past the retention and beyond the bound are dropped, oldest first. */
+  @Test
+  void put_evictsExpiredAndOldestWindows() {
+    AggregateStore store = new AggregateStore(Duration.ofMinutes(10), 5);
+    store.put(aggregate("p-1", Map.of(), 0, sketch(1)));
+    store.put(aggregate("p-1", Map.of(), 20, sketch(1)));
+
+    assertEquals(1, store.size());
+    assertFalse(store.put(aggregate("p-1", Map.of(), 5, sketch(1))));
+
+    for (int minute = 21; minute < 27; minute++) {
+      store.put(aggregate("p-1", Map.of(), minute, sketch(1)));
+    }
+
+    List<MergedAggregate> result = store.query("latency", Map.of(), null, null, QUANTILES, false);
+    assertEquals(5, store.size());
+    assertEquals(T0.plusSeconds(22 * 60), result.get(0).windowStart());
+  }
+
+  /** Tests that quantiles out of range are rejected. */
+  @Test
+  void query_rejectsInvalidQuantiles() {
+    AggregateStore store = new AggregateStore(Duration.ofHours(1), 1000);
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> store.query("latency", Map.of(), null, null, List.of(1.5), false));
+  }
+
+  private static DDSketch sketch(double... values) {
+    DDSketch sketch = new DDSketch();
+    for (double value : values) {
+      sketch.add(value);
+    }
+    return sketch;
+  }
+
+  private static WindowAggregate aggregate(
+      String instance, Map<String, String> group, int minute, DDSketch sketch) {
+    DDSketch values = sketch != null ? sketch : sketch(1);
+    return new WindowAggregate(
+        instance,
+        "latency",
+        group,
+        T0.plusSeconds(minute * 60L),
+        T0.plusSeconds(minute * 60L + 60),
+        values.count(),
+        values.sum(),
+        values.min(),
+        values.max(),
+        values.sum() / values.count(),
+        Map.of(),
+        sketch != null ? sketch.toBytes() : null);
+  }
+}
@@ -0,0 +1,237 @@
+package io.analytics.platform.gateway.events;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link HotEventStore} class. */
+class HotEventStoreTest {
+
+  private static final Instant T0 = Instant.parse("2025-09-12T12:00:00Z");
+
+  private final MutableClock clock = new MutableClock(T0.plus(Duration.ofMinutes(30)));
+
+  /** Tests that the latest events are returned newest first, across segments and buckets. */
+  @Test
+  void find_returnsNewestFirst() {
+    HotEventStore store = store(4, 1000);
+    List<ProcessedEvent> events = new ArrayList<>();
+    // Out of order, over three one-minute buckets, the first spanning several segments
+    for (int i : new int[] {5, 1, 130, 7, 3, 65, 0, 2, 6, 70, 4}) {
+      events.add(event("e" + i, T0.plusSeconds(i), (double) i, "web", Map.of()));
+    }
+    store.addAll(events);
+
+    List<ProcessedEvent> found = store.find(T0, T0.plusSeconds(120), null, 5);
+
+    assertEquals(
+        List.of("e70", "e65", "e7", "e6", "e5"), found.stream().map(ProcessedEvent::id).toList());
+    assertEquals(4, store.segments());
+    assertEquals(11, store.size());
+  }
+
+  /** Tests that events read back keep every field, the timestamp to the microsecond. */
+  @Test
+  void find_rebuildsEvents() {
+    HotEventStore store = store(8192, 1000);
+    ProcessedEvent event =
+        new ProcessedEvent(
+            "e1",
+            T0.plusNanos(123_456_789),
+            2.5,
+            Map.of("region", "eu"),
+            Map.of("stage", 1),
+            "web");
+    store.addAll(List.of(event, event("e2", T0, null, null, Map.of())));
+
+    List<ProcessedEvent> found = store.find(T0, T0.plusSeconds(1), null, 10);
+
+    assertEquals(
+        new ProcessedEvent(
+            "e1",
+            T0.plusNanos(123_456_000),
+            2.5,
+            Map.of("region", "eu"),
+            Map.of("stage", 1),
+            "web"),
+        found.get(0));
+    assertEquals(new ProcessedEvent("e2", T0, null, Map.of(), Map.of(), null), found.get(1));
+  }
+
+  /** Tests that aggregates scan only the events matching the range, source and tags. */
+  @Test
+  void stats_filtersAndAggregates() {
+    HotEventStore store = store(3, 1000);
+    store.addAll(
+        List.of(
+            event("e0", T0, 1.0, "web", Map.of("region", "eu")),
+            event("e1", T0.plusSeconds(1), 2.0, "web", Map.of("region", "us")),
+            event("e2", T0.plusSeconds(2), 4.0, "web", Map.of("region", "eu", "tier", "1")),
+            event("e3", T0.plusSeconds(3), 8.0, "app", Map.of("region", "eu")),
+            event("e4", T0.plusSeconds(4), null, "web", Map.of("region", "eu")),
+            event("e5", T0.plusSeconds(90), 16.0, "web", Map.of("region", "eu"))));
+
+    EventStats all = store.stats(T0, T0.plusSeconds(120), null, Map.of());
+    EventStats filtered = store.stats(T0, T0.plusSeconds(60), "web", Map.of("region", "eu"));
+    EventStats tier = store.stats(T0, T0.plusSeconds(60), null, Map.of("tier", "1"));
+    EventStats none = store.stats(T0, T0.plusSeconds(60), "batch", Map.of());
+
+    assertEquals(new EventStats(T0, T0.plusSeconds(120), 5, 31.0, 1.0, 16.0, 6.2), all);
+    assertEquals(new EventStats(T0, T0.plusSeconds(60), 2, 5.0, 1.0, 4.0, 2.5), filtered);
+    assertEquals(1, tier.count());
+    assertEquals(4.0, tier.sum());
+    assertEquals(new EventStats(T0, T0.plusSeconds(60), 0, 0, null, null, null), none);
+  }
+
+  /** Tests that tag filters match JSON strings only, as PostgreSQL containment does. */
+  @Test
+  void stats_matchesTagsByJsonValue() {
+    HotEventStore store = store(8192, 1000);
+    store.addAll(
+        List.of(
+            event("e0", T0, 1.0, "web", Map.of("n", 1)),
+            event("e1", T0.plusSeconds(1), 2.0, "web", Map.of("n", "1")),
+            event("e2", T0.plusSeconds(2), 4.0, "web", Map.of("n", true)),
+            event("e3", T0.plusSeconds(3), 8.0, "web", Map.of("n", "true"))));
+
+    assertEquals(2.0, store.stats(T0, T0.plusSeconds(60), null, Map.of("n", "1")).sum());
+    assertEquals(8.0, store.stats(T0, T0.plusSeconds(60), null, Map.of("n", "true")).sum());
+  }
+
+  /** Tests that a redelivered event is held once, as PostgreSQL stores it once. */
+  @Test
+  void addAll_skipsEventsAlreadyHeld() {
+    HotEventStore store = store(2, 1000);
+    ProcessedEvent event = event("e1", T0.plusSeconds(10), 1.0, "web", Map.of());
+    store.addAll(List.of(event, event("e2", T0.plusSeconds(20), 2.0, "web", Map.of())));
+    store.addAll(List.of(event("e3", T0.plusSeconds(30), 4.0, "web", Map.of())));
+
+    int added = store.addAll(List.of(event, event));
+
+    assertEquals(0, added);
+    assertEquals(3, store.size());
+    assertEquals(7.0, store.stats(T0, T0.plusSeconds(60), null, Map.of()).sum());
+    assertEquals(
+        List.of("e3", "e2", "e1"),
+        store.find(T0, T0.plusSeconds(60), null, 10).stream().map(ProcessedEvent::id).toList());
+  }
+
+  /** Tests that queries starting before the store covers the range are refused. */
+  @Test
+  void find_refusesUncoveredRange() {
+    HotEventStore store =
+        new HotEventStore(
+            Duration.ofMinutes(1),
+            8192,
+            Duration.ofHours(1),
+            1000,
+            clock,
+            new SimpleMeterRegistry());
+    store.addAll(List.of(event("e1", T0.plusSeconds(10), 1.0, "web", Map.of())));
+
+    assertNull(store.coveredFrom());
+    assertNull(store.find(T0, T0.plusSeconds(60), null, 10));
+
+    store.cover(T0.plusSeconds(5));
+
+    assertEquals(T0.plusSeconds(5), store.coveredFrom());
+    assertNull(store.stats(T0, T0.plusSeconds(60), null, Map.of()));
+    assertEquals(1, store.find(T0.plusSeconds(5), T0.plusSeconds(60), null, 10).size());
+  }
+
+  /** Tests that buckets beyond the retention are evicted and the coverage moves past them. */
+  @Test
+  void addAll_evictsExpiredBuckets() {
+    HotEventStore store = store(8192, 1000);
+    store.addAll(
+        List.of(
+            event("e1", T0.plusSeconds(10), 1.0, "web", Map.of()),
+            event("e2", T0.plusSeconds(70), 2.0, "web", Map.of())));
+    clock.now = T0.plus(Duration.ofMinutes(61)).plusSeconds(30);
+
+    int added =
+        store.addAll(
+            List.of(
+                event("e3", T0.plusSeconds(30), 3.0, "web", Map.of()),
+                event("e4", T0.plusSeconds(90), 4.0, "web", Map.of())));
+
+    assertEquals(1, added);
+    assertEquals(2, store.size());
+    assertEquals(T0.plusSeconds(60), store.coveredFrom());
+    assertEquals(
+        List.of("e4", "e2"),
+        store.find(T0.plusSeconds(60), T0.plusSeconds(120), null, 10).stream()
+            .map(ProcessedEvent::id)
+            .toList());
+  }
+
+  /** Tests that past the maximum number of events the oldest buckets are evicted first. */
+  @Test
+  void addAll_boundsEvents() {
+    HotEventStore store = store(8192, 3);
+
+    store.addAll(
+        List.of(
+            event("e1", T0.plusSeconds(10), 1.0, "web", Map.of()),
+            event("e2", T0.plusSeconds(70), 2.0, "web", Map.of()),
+            event("e3", T0.plusSeconds(130), 3.0, "web", Map.of()),
+            event("e4", T0.plusSeconds(131), 4.0, "web", Map.of())));
+
+    assertEquals(3, store.size());
+    assertEquals(T0.plusSeconds(60), store.coveredFrom());
+    assertEquals(9.0, store.stats(T0.plusSeconds(60), T0.plusSeconds(180), null, Map.of()).sum());
+  }
+
+  private HotEventStore store(int segmentSize, long maxEvents) {
+    HotEventStore store =
+        new HotEventStore(
+            Duration.ofMinutes(1),
+            segmentSize,
+            Duration.ofHours(1),
+            maxEvents,
+            clock,
+            new SimpleMeterRegistry());
+    store.cover(T0);
+    return store;
+  }
+
+  private static ProcessedEvent event(
+      String id, Instant ts, Double value, String source, Map<String, Object> tags) {
+    return new ProcessedEvent(id, ts, value, tags, Map.of(), source);
+  }
+
+  /** Clock whose time the tests set. */
+  private static final class MutableClock extends Clock {
+
+    volatile Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
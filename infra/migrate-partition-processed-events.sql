@@ -0,0 +1,64 @@
+-- Upgrades a processed_events table created before partitioning (a heap table with
+-- PRIMARY KEY (id)) to the partitioned layout of postgres-init.sql. Run it once, with sink-service
+-- stopped, passing the partition interval the sink is configured with
+-- (sink.postgres.partitioning.interval):
+--
+--   psql -v ON_ERROR_STOP=1 -v interval=daily -f infra/migrate-partition-processed-events.sql
+--
+-- The old table is kept as processed_events_unpartitioned; drop it once the copy is checked.
+-- Everything runs in one transaction, so a failure leaves the database as it was.
+\if :{?interval}
+\else
+\set interval daily
+\endif
+
+BEGIN;
+
+SELECT set_config('migrate.interval', :'interval', true);
+
+ALTER TABLE processed_events RENAME TO processed_events_unpartitioned;
+ALTER INDEX processed_events_pkey RENAME TO processed_events_unpartitioned_pkey;
+ALTER INDEX IF EXISTS idx_events_ts RENAME TO idx_events_unpartitioned_ts;
+ALTER INDEX IF EXISTS idx_events_tags RENAME TO idx_events_unpartitioned_tags;
+
+CREATE TABLE processed_events (
+    id VARCHAR NOT NULL,
+    ts TIMESTAMP NOT NULL,
+    value_transformed NUMERIC,
+    tags JSONB,
+    meta JSONB,
+    source TEXT,
+    PRIMARY KEY (id, ts)
+) PARTITION BY RANGE (ts);
+
+CREATE INDEX idx_events_ts ON processed_events USING brin(ts);
+CREATE INDEX idx_events_tags ON processed_events USING gin(tags jsonb_path_ops);
+
+-- One partition per interval holding stored events, named as sink-service names them, so the sink
+-- takes them over and expires them like its own
+DO $$
+DECLARE
+    hourly BOOLEAN := current_setting('migrate.interval') = 'hourly';
+    step INTERVAL := CASE WHEN hourly THEN INTERVAL '1 hour' ELSE INTERVAL '1 day' END;
+    start TIMESTAMP;
+BEGIN
+    IF current_setting('migrate.interval') NOT IN ('daily', 'hourly') THEN
+        RAISE EXCEPTION 'interval must be daily or hourly, not %',
+            current_setting('migrate.interval');
+    END IF;
+    FOR start IN
+        SELECT DISTINCT date_trunc(CASE WHEN hourly THEN 'hour' ELSE 'day' END, ts)
+        FROM processed_events_unpartitioned
+    LOOP
+        EXECUTE format(
+            'CREATE TABLE %I PARTITION OF processed_events FOR VALUES FROM (%L) TO (%L)',
+            'processed_events_p' || to_char(start, CASE WHEN hourly THEN 'YYYYMMDDHH24' ELSE 'YYYYMMDD' END),
+            start,
+            start + step);
+    END LOOP;
+END $$;
+
+INSERT INTO processed_events (id, ts, value_transformed, tags, meta, source)
+SELECT id, ts, value_transformed, tags, meta, source FROM processed_events_unpartitioned;
+
+COMMIT;
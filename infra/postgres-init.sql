@@ -1,11 +1,18 @@
+-- Partitioned by day or hour of ts; the partitions are created and expired by sink-service
+-- (sink.postgres.partitioning). Rows outside every partition are rejected, so there is no
+-- default partition to silently collect them.
 CREATE TABLE IF NOT EXISTS processed_events (
-    id VARCHAR PRIMARY KEY,
+    id VARCHAR NOT NULL,
     ts TIMESTAMP NOT NULL,
     value_transformed NUMERIC,
     tags JSONB,
     meta JSONB,
-    source TEXT
-);
+    source TEXT,
+    PRIMARY KEY (id, ts)
+) PARTITION BY RANGE (ts);
 
-CREATE INDEX IF NOT EXISTS idx_events_ts ON processed_events(ts);
-CREATE INDEX IF NOT EXISTS idx_events_tags ON processed_events USING gin(tags);
+-- Created on every partition. Events arrive roughly in ts order, so a BRIN index serves range
+-- scans within a partition at a fraction of the size and insert cost of a btree; jsonb_path_ops
+-- keeps the GIN index to the containment (@>) lookups tag filters use.
+CREATE INDEX IF NOT EXISTS idx_events_ts ON processed_events USING brin(ts);
+CREATE INDEX IF NOT EXISTS idx_events_tags ON processed_events USING gin(tags jsonb_path_ops);
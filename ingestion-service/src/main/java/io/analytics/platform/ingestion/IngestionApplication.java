@@ -0,0 +1,15 @@
+package io.analytics.platform.ingestion;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+/** Entry point of the ingestion service: accepts raw events over HTTP and publishes them. */
+@SpringBootApplication
+@ConfigurationPropertiesScan
+public class IngestionApplication {
+
+  public static void main(String[] args) {
+    SpringApplication.run(IngestionApplication.class, args);
+  }
+}
@@ -0,0 +1,17 @@
+package io.analytics.platform.ingestion.config;
+
+/** Thread model serving {@code POST /produce}, selected by {@code ingestion.execution.mode}. */
+public enum ExecutionMode {
+
+  /**
+   * Tomcat's platform thread pool; requests are completed asynchronously when the last
+   * acknowledgement arrives, so no pool thread waits on Kafka.
+   */
+  PLATFORM,
+
+  /**
+   * One virtual thread per request; the handler blocks on acknowledgements and fans batch sends
+   * out to child virtual threads. Pinned virtual threads are reported at startup and at runtime.
+   */
+  VIRTUAL
+}
@@ -0,0 +1,54 @@
+package io.analytics.platform.ingestion.config;
+
+import io.analytics.platform.ingestion.pipeline.DedupCache;
+import io.analytics.platform.ingestion.pipeline.InFlightBudget;
+import io.analytics.platform.ingestion.pipeline.IngestionMetrics;
+import io.analytics.platform.ingestion.pipeline.IngestionPipeline;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/** Wires the ingestion pipeline and the state it shares across requests. */
+@Configuration(proxyBeanMethods = false)
+public class IngestionConfig {
+
+  @Bean
+  public Clock clock() {
+    return Clock.systemUTC();
+  }
+
+  @Bean
+  public InFlightBudget inFlightBudget(IngestionProperties properties) {
+    return new InFlightBudget(properties.maxInFlight().toBytes());
+  }
+
+  @Bean
+  public DedupCache dedupCache(IngestionProperties properties, Clock clock) {
+    IngestionProperties.Dedup dedup = properties.dedup();
+    if (!dedup.enabled()) {
+      return DedupCache.disabled();
+    }
+    return new DedupCache(
+        dedup.window(), dedup.maxEntries(), dedup.bloomFalsePositiveRate(), clock);
+  }
+
+  @Bean
+  public IngestionMetrics ingestionMetrics(
+      MeterRegistry registry, InFlightBudget budget, DedupCache dedup) {
+    return new IngestionMetrics(registry, budget, dedup);
+  }
+
+  @Bean
+  public IngestionPipeline ingestionPipeline(
+      KafkaTemplate<String, byte[]> ingestionKafkaTemplate,
+      IngestionProperties properties,
+      InFlightBudget budget,
+      IngestionMetrics metrics,
+      DedupCache dedup,
+      Clock clock) {
+    return new IngestionPipeline(
+        ingestionKafkaTemplate, properties, budget, metrics, dedup, clock);
+  }
+}
@@ -0,0 +1,139 @@
+package io.analytics.platform.ingestion.config;
+
+import io.analytics.platform.common.constants.TopicNames;
+import io.analytics.platform.common.util.WireFormat;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings of the ingestion pipeline, bound from the {@code ingestion.*} namespace.
+ *
+ * <p>{@code maxInFlight} bounds the payload bytes handed to the producer but not yet acknowledged.
+ * It must stay below {@code producer.bufferMemory}, so that a full budget is answered with HTTP 429
+ * instead of blocking request threads inside {@code KafkaProducer.send}.
+ *
+ * @param topic topic receiving accepted events
+ * @param dlqTopic topic receiving rejected events
+ * @param maxBatchSize maximum number of events accepted in one request
+ * @param maxInFlight maximum unacknowledged payload bytes across all requests
+ * @param retryAfter delay advertised to clients in the {@code Retry-After} header on HTTP 429
+ * @param wireFormat encoding of events published to {@code topic}
+ * @param producer Kafka producer tuning
+ * @param execution request handling model
+ * @param stream NDJSON streaming settings
+ * @param dedup duplicate suppression settings
+ */
+@ConfigurationProperties(prefix = "ingestion")
+public record IngestionProperties(
+    @DefaultValue(TopicNames.RAW_EVENTS) String topic,
+    @DefaultValue(TopicNames.DLQ) String dlqTopic,
+    @DefaultValue("10000") int maxBatchSize,
+    @DefaultValue("64MB") DataSize maxInFlight,
+    @DefaultValue("1s") Duration retryAfter,
+    @DefaultValue("JSON") WireFormat wireFormat,
+    @DefaultValue Producer producer,
+    @DefaultValue Execution execution,
+    @DefaultValue Stream stream,
+    @DefaultValue Dedup dedup) {
+
+  /** Validates the settings against each other. */
+  public IngestionProperties {
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("ingestion.max-batch-size must be positive");
+    }
+    if (maxInFlight.toBytes() <= 0) {
+      throw new IllegalArgumentException("ingestion.max-in-flight must be positive");
+    }
+    if (execution.fanOutSize() <= 0) {
+      throw new IllegalArgumentException("ingestion.execution.fan-out-size must be positive");
+    }
+    if (stream.batchSize() <= 0 || stream.batchSize() > maxBatchSize) {
+      throw new IllegalArgumentException(
+          "ingestion.stream.batch-size must be positive and at most ingestion.max-batch-size");
+    }
+    if (stream.maxPendingBatches() <= 0) {
+      throw new IllegalArgumentException("ingestion.stream.max-pending-batches must be positive");
+    }
+    if (dedup.enabled() && (dedup.maxEntries() <= 0 || dedup.window().toMillis() <= 0)) {
+      throw new IllegalArgumentException(
+          "ingestion.dedup.max-entries and ingestion.dedup.window must be positive");
+    }
+    if (dedup.bloomFalsePositiveRate() < 0 || dedup.bloomFalsePositiveRate() >= 1) {
+      throw new IllegalArgumentException(
+          "ingestion.dedup.bloom-false-positive-rate must be in [0, 1)");
+    }
+    if (maxInFlight.toBytes() > producer.bufferMemory().toBytes()) {
+      throw new IllegalArgumentException(
+          "ingestion.max-in-flight must not exceed ingestion.producer.buffer-memory");
+    }
+  }
+
+  /**
+   * Kafka producer tuning for throughput. The defaults trade up to {@code linger} of latency for
+   * large, compressed batches; idempotence is always enabled.
+   *
+   * @param linger time a partition batch waits for more records before it is sent
+   * @param batchSize upper bound of a partition batch
+   * @param compression batch compression codec
+   * @param bufferMemory memory the producer may use to buffer unsent records
+   * @param acks acknowledgements required from the partition leader and replicas
+   * @param requestTimeout time to wait for a broker response
+   * @param deliveryTimeout upper bound for a record to be acknowledged, retries included
+   * @param maxBlock maximum time {@code send} may block on metadata or buffer space
+   */
+  public record Producer(
+      @DefaultValue("10ms") Duration linger,
+      @DefaultValue("256KB") DataSize batchSize,
+      @DefaultValue("lz4") String compression,
+      @DefaultValue("128MB") DataSize bufferMemory,
+      @DefaultValue("all") String acks,
+      @DefaultValue("30s") Duration requestTimeout,
+      @DefaultValue("60s") Duration deliveryTimeout,
+      @DefaultValue("5s") Duration maxBlock) {}
+
+  /**
+   * How {@code POST /produce} requests are served.
+   *
+   * @param mode the thread model
+   * @param fanOutSize records handed to the producer per virtual thread in {@link
+   *     ExecutionMode#VIRTUAL} mode
+   * @param pinnedThreshold pinned virtual thread waits longer than this are reported
+   */
+  public record Execution(
+      @DefaultValue("PLATFORM") ExecutionMode mode,
+      @DefaultValue("500") int fanOutSize,
+      @DefaultValue("20ms") Duration pinnedThreshold) {}
+
+  /**
+   * Settings of {@code POST /produce/stream}. A stream holds at most {@code batchSize} parsed
+   * events plus {@code maxPendingBatches} unacknowledged batches, so its memory does not depend on
+   * the payload size.
+   *
+   * @param batchSize events per rolling batch handed to the producer
+   * @param maxLineLength longest accepted NDJSON line; longer lines are rejected
+   * @param maxPendingBatches unacknowledged batches per stream before reading pauses
+   * @param maxReportedRejections rejections listed individually in the summary; all are counted
+   */
+  public record Stream(
+      @DefaultValue("1000") int batchSize,
+      @DefaultValue("1MB") DataSize maxLineLength,
+      @DefaultValue("4") int maxPendingBatches,
+      @DefaultValue("1000") int maxReportedRejections) {}
+
+  /**
+   * Suppression of events whose ID was already published. Memory grows with the number of
+   * distinct IDs per window, up to {@code maxEntries}.
+   *
+   * @param enabled whether duplicates are suppressed
+   * @param window how long a published ID is remembered
+   * @param maxEntries upper bound of remembered IDs; the oldest are forgotten first
+   * @param bloomFalsePositiveRate false positive rate of the Bloom prefilter, 0 to disable it
+   */
+  public record Dedup(
+      @DefaultValue("true") boolean enabled,
+      @DefaultValue("10m") Duration window,
+      @DefaultValue("1000000") int maxEntries,
+      @DefaultValue("0.01") double bloomFalsePositiveRate) {}
+}
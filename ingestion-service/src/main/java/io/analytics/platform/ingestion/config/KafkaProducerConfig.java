@@ -0,0 +1,59 @@
+package io.analytics.platform.ingestion.config;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+/**
+ * Producer used by the ingestion pipeline.
+ *
+ * <p>Events are serialized once by the pipeline, so the producer only moves {@code byte[]} values
+ * keyed by event id. Connection settings come from {@code spring.kafka.*}; batching, compression
+ * and delivery settings from {@link IngestionProperties.Producer}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class KafkaProducerConfig {
+
+  @Bean
+  public ProducerFactory<String, byte[]> ingestionProducerFactory(
+      KafkaProperties kafkaProperties,
+      IngestionProperties properties,
+      ObjectProvider<SslBundles> sslBundles) {
+    Map<String, Object> config =
+        new HashMap<>(kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable()));
+    IngestionProperties.Producer producer = properties.producer();
+    config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+    config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+    config.put(ProducerConfig.LINGER_MS_CONFIG, producer.linger().toMillis());
+    config.put(ProducerConfig.BATCH_SIZE_CONFIG, Math.toIntExact(producer.batchSize().toBytes()));
+    config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, producer.compression());
+    config.put(ProducerConfig.BUFFER_MEMORY_CONFIG, producer.bufferMemory().toBytes());
+    config.put(ProducerConfig.ACKS_CONFIG, producer.acks());
+    config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+    config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+    config.put(
+        ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG,
+        Math.toIntExact(producer.requestTimeout().toMillis()));
+    config.put(
+        ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG,
+        Math.toIntExact(producer.deliveryTimeout().toMillis()));
+    config.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, producer.maxBlock().toMillis());
+    return new DefaultKafkaProducerFactory<>(config);
+  }
+
+  @Bean
+  public KafkaTemplate<String, byte[]> ingestionKafkaTemplate(
+      ProducerFactory<String, byte[]> ingestionProducerFactory) {
+    return new KafkaTemplate<>(ingestionProducerFactory);
+  }
+}
@@ -0,0 +1,42 @@
+package io.analytics.platform.ingestion.config;
+
+import io.analytics.platform.ingestion.diagnostics.PinningDiagnostics;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.Executors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Beans of {@link ExecutionMode#VIRTUAL} mode: Tomcat serves each request on a new virtual thread,
+ * and pinned virtual threads are reported from startup on.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "ingestion.execution", name = "mode", havingValue = "virtual")
+public class VirtualThreadConfig {
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+    return handler -> handler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+  }
+
+  @Bean(destroyMethod = "close")
+  public PinningDiagnostics pinningDiagnostics(
+      MeterRegistry registry,
+      IngestionProperties properties,
+      KafkaTemplate<String, byte[]> ingestionKafkaTemplate) {
+    // Fetching partition metadata exercises the producer's synchronized metadata wait
+    Runnable probe = () -> ingestionKafkaTemplate.partitionsFor(properties.topic());
+    return new PinningDiagnostics(registry, properties.execution().pinnedThreshold(), probe);
+  }
+
+  @Bean
+  public ApplicationListener<ApplicationReadyEvent> pinningDiagnosticsStarter(
+      PinningDiagnostics pinningDiagnostics) {
+    return event -> pinningDiagnostics.start();
+  }
+}
@@ -0,0 +1,125 @@
+package io.analytics.platform.ingestion.diagnostics;
+
+import io.analytics.platform.common.logging.Logging;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread.
+ *
+ * <p>A virtual thread that parks inside a {@code synchronized} block or a native frame cannot
+ * unmount, so it holds its carrier for the whole wait. The Kafka producer has such waits, e.g.
+ * the partition metadata wait in {@code KafkaProducer.send}. This class listens to the JFR {@code
+ * jdk.VirtualThreadPinned} event in-process, logs each pinned wait longer than the threshold with
+ * its top stack frames, and counts them in {@code ingestion.virtual.pinned}.
+ *
+ * <p>{@link #start()} also runs a probe of the send path on a virtual thread, so pinning in it is
+ * reported at startup rather than under the first burst of traffic.
+ */
+public final class PinningDiagnostics implements AutoCloseable {
+
+  /** JFR event emitted when a virtual thread parks while pinned. */
+  static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+  private static final Logger log = Logging.getLogger(PinningDiagnostics.class);
+
+  private static final int REPORTED_FRAMES = 8;
+
+  private final Duration threshold;
+  private final Runnable probe;
+  private final Counter pinned;
+  private RecordingStream stream;
+
+  /**
+   * Creates the diagnostics; nothing is recorded until {@link #start()}.
+   *
+   * @param registry registry receiving the pinned-wait counter
+   * @param threshold pinned waits shorter than this are ignored
+   * @param probe exercise of the send path, run once on a virtual thread at startup
+   */
+  public PinningDiagnostics(MeterRegistry registry, Duration threshold, Runnable probe) {
+    this.threshold = threshold;
+    this.probe = probe;
+    this.pinned =
+        Counter.builder("ingestion.virtual.pinned")
+            .description("Virtual thread waits that pinned their carrier thread")
+            .register(registry);
+  }
+
+  /** Starts listening for pinned waits and probes the send path. */
+  public synchronized void start() {
+    if (stream != null) {
+      return;
+    }
+    stream = new RecordingStream();
+    stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+    stream.onEvent(PINNED_EVENT, this::report);
+    stream.startAsync();
+    Logging.info(
+        log, "Virtual thread mode: reporting pinned waits over {} ms", threshold.toMillis());
+
+    Thread.ofVirtual()
+        .name("pinning-probe")
+        .start(
+            () -> {
+              try {
+                probe.run();
+              } catch (RuntimeException e) {
+                // The broker may not be reachable yet; the probe is best effort
+                Logging.debug(log, "Send path probe failed: {}", e.getMessage());
+              }
+            });
+  }
+
+  /**
+   * Returns the number of pinned waits reported so far.
+   *
+   * @return the pinned-wait count
+   */
+  public long pinnedCount() {
+    return (long) pinned.count();
+  }
+
+  void report(RecordedEvent event) {
+    pinned.increment();
+    Logging.perf(
+        log,
+        "Virtual thread pinned its carrier: durationMs={} thread={} stack={}",
+        event.getDuration().toMillis(),
+        event.getThread() != null ? event.getThread().getJavaName() : null,
+        describe(event.getStackTrace()));
+  }
+
+  static String describe(RecordedStackTrace stackTrace) {
+    if (stackTrace == null) {
+      return "<no stack trace>";
+    }
+    List<RecordedFrame> frames = stackTrace.getFrames();
+    return frames.stream()
+        .limit(REPORTED_FRAMES)
+        .map(
+            frame ->
+                frame.getMethod().getType().getName()
+                    + "."
+                    + frame.getMethod().getName()
+                    + ":"
+                    + frame.getLineNumber())
+        .collect(Collectors.joining(" <- "));
+  }
+
+  @Override
+  public synchronized void close() {
+    if (stream != null) {
+      stream.close();
+      stream = null;
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package io.analytics.platform.ingestion.pipeline;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a batch cannot be accepted because the in-flight budget is exhausted. Mapped to HTTP
+ * 429 with a {@code Retry-After} header.
+ *
+ * <p>The exception does not capture a stack trace: under overload it is thrown for most requests,
+ * and the trace would carry no information beyond the message.
+ */
+public final class BackpressureException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Duration retryAfter;
+
+  /**
+   * Creates a new exception.
+   *
+   * @param retryAfter delay after which the client may retry
+   */
+  public BackpressureException(Duration retryAfter) {
+    super("Ingestion buffer is full, retry later", null, false, false);
+    this.retryAfter = retryAfter;
+  }
+
+  /**
+   * Returns the delay after which the client may retry.
+   *
+   * @return the retry delay
+   */
+  public Duration retryAfter() {
+    return retryAfter;
+  }
+}
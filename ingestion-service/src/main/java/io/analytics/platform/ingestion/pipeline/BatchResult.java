@@ -0,0 +1,36 @@
+package io.analytics.platform.ingestion.pipeline;
+
+import java.util.List;
+
+/**
+ * Outcome of one batch once every record has been acknowledged or has failed.
+ *
+ * @param received number of events in the batch
+ * @param published accepted events acknowledged by the broker
+ * @param failed accepted events the producer could not deliver
+ * @param duplicates accepted events not published again because their ID already was
+ * @param rejected events that failed validation, in batch order
+ */
+public record BatchResult(
+    int received, int published, int failed, int duplicates, List<Rejected> rejected) {
+
+  /**
+   * Returns the number of events that passed validation.
+   *
+   * @return {@code published + failed + duplicates}
+   */
+  public int accepted() {
+    return published + failed + duplicates;
+  }
+
+  /**
+   * An event that failed validation and where it was parked.
+   *
+   * @param index position of the event in the batch
+   * @param id the event ID, null if the event or its ID was missing
+   * @param reason the violated constraint
+   * @param dlqPartition partition of the dead letter record, -1 if it was not written
+   * @param dlqOffset offset of the dead letter record, -1 if it was not written
+   */
+  public record Rejected(int index, String id, String reason, int dlqPartition, long dlqOffset) {}
+}
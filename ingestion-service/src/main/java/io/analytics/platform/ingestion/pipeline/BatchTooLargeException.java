@@ -0,0 +1,17 @@
+package io.analytics.platform.ingestion.pipeline;
+
+/** Thrown when a request carries more events than a single batch may hold. Mapped to HTTP 413. */
+public final class BatchTooLargeException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Creates a new exception.
+   *
+   * @param size number of events in the request
+   * @param limit maximum number of events per batch
+   */
+  public BatchTooLargeException(int size, int limit) {
+    super("Batch of " + size + " events exceeds the limit of " + limit);
+  }
+}
@@ -0,0 +1,216 @@
+package io.analytics.platform.ingestion.pipeline;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Time- and size-bounded set of recently published event IDs.
+ *
+ * <p>An ID is remembered for {@code window} after its record was acknowledged, so a client retry
+ * within the window is answered without publishing the event again. Entries are spread over
+ * lock-striped shards, each an insertion-ordered map: since every entry has the same time to live,
+ * the eldest entry is always the next to expire, and expiry and the size bound both evict from the
+ * head in constant time.
+ *
+ * <p>An optional {@link RotatingBloomFilter} answers lookups of IDs never seen before, the common
+ * case, without taking a shard lock. Its false positives only cost an exact lookup.
+ *
+ * <p>IDs are recorded when their record is acknowledged rather than when it is accepted, so a
+ * failed publish never hides a retry. Two concurrent requests carrying the same ID may therefore
+ * both be published; downstream idempotency on the event ID still applies.
+ */
+public final class DedupCache {
+
+  /**
+   * Estimated heap per entry besides the ID characters: map entry, boxed expiry, String header
+   * and its array header.
+   */
+  private static final long ENTRY_OVERHEAD_BYTES = 120;
+
+  private static final DedupCache DISABLED = new DedupCache();
+
+  private final Clock clock;
+  private final long windowMillis;
+  private final Shard[] shards;
+  private final int shardMask;
+  private final RotatingBloomFilter prefilter;
+
+  /**
+   * Creates a cache.
+   *
+   * @param window how long an acknowledged ID is remembered
+   * @param maxEntries upper bound of remembered IDs; the oldest are evicted first
+   * @param bloomFalsePositiveRate false positive rate of the prefilter, or 0 to disable it
+   * @param clock time source of the expiry
+   * @throws IllegalArgumentException if window or maxEntries is not positive
+   */
+  public DedupCache(Duration window, int maxEntries, double bloomFalsePositiveRate, Clock clock) {
+    if (window.isZero() || window.isNegative()) {
+      throw new IllegalArgumentException("Dedup window must be positive");
+    }
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("Dedup cache size must be positive");
+    }
+    this.clock = clock;
+    this.windowMillis = window.toMillis();
+    int count = shardCount(maxEntries);
+    this.shards = new Shard[count];
+    int perShard = (maxEntries + count - 1) / count;
+    for (int i = 0; i < count; i++) {
+      shards[i] = new Shard(perShard);
+    }
+    this.shardMask = count - 1;
+    this.prefilter =
+        bloomFalsePositiveRate > 0
+            ? new RotatingBloomFilter(maxEntries, bloomFalsePositiveRate, windowMillis, clock)
+            : null;
+  }
+
+  private DedupCache() {
+    this.clock = null;
+    this.windowMillis = 0;
+    this.shards = new Shard[0];
+    this.shardMask = -1;
+    this.prefilter = null;
+  }
+
+  /**
+   * Returns a cache that remembers nothing, for deployments with deduplication turned off.
+   *
+   * @return the shared disabled cache
+   */
+  public static DedupCache disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Returns whether this cache remembers IDs at all.
+   *
+   * @return false for {@link #disabled()}
+   */
+  public boolean isEnabled() {
+    return shards.length > 0;
+  }
+
+  /**
+   * Returns whether an ID was acknowledged within the window.
+   *
+   * @param id the event ID
+   * @return true if the event was already published
+   */
+  public boolean contains(String id) {
+    if (!isEnabled() || (prefilter != null && !prefilter.mightContain(id))) {
+      return false;
+    }
+    return shard(id).contains(id, clock.millis());
+  }
+
+  /**
+   * Remembers an acknowledged ID for the window, starting now.
+   *
+   * @param id the event ID
+   */
+  public void record(String id) {
+    if (!isEnabled()) {
+      return;
+    }
+    if (prefilter != null) {
+      prefilter.add(id);
+    }
+    long now = clock.millis();
+    shard(id).record(id, now, now + windowMillis);
+  }
+
+  /**
+   * Returns the number of remembered IDs, expired ones not yet evicted included.
+   *
+   * @return the entry count
+   */
+  public long size() {
+    long size = 0;
+    for (Shard shard : shards) {
+      size += shard.size();
+    }
+    return size;
+  }
+
+  /**
+   * Returns an estimate of the heap held by the cache and its prefilter.
+   *
+   * @return estimated bytes
+   */
+  public long memoryBytes() {
+    long bytes = prefilter != null ? prefilter.memoryBytes() : 0;
+    for (Shard shard : shards) {
+      bytes += shard.memoryBytes();
+    }
+    return bytes;
+  }
+
+  private Shard shard(String id) {
+    int h = id.hashCode();
+    return shards[(h ^ (h >>> 16)) & shardMask];
+  }
+
+  /** Enough shards to keep lock contention low, without tiny shards for small caches. */
+  private static int shardCount(int maxEntries) {
+    int target = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+    while (target > 1 && maxEntries / target < 1024) {
+      target >>>= 1;
+    }
+    return target;
+  }
+
+  /** One lock stripe: IDs in insertion order, mapped to their expiry time. */
+  private static final class Shard {
+
+    private final int capacity;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>();
+    private long idChars;
+
+    Shard(int capacity) {
+      this.capacity = capacity;
+    }
+
+    synchronized boolean contains(String id, long now) {
+      Long expiry = entries.get(id);
+      if (expiry == null) {
+        return false;
+      }
+      if (expiry <= now) {
+        entries.remove(id);
+        idChars -= id.length();
+        return false;
+      }
+      return true;
+    }
+
+    synchronized void record(String id, long now, long expiry) {
+      // Re-insert so the entry moves to the tail and the head stays the next to expire
+      if (entries.remove(id) == null) {
+        idChars += id.length();
+      }
+      entries.put(id, expiry);
+      Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+      while (eldest.hasNext()) {
+        Map.Entry<String, Long> entry = eldest.next();
+        if (entries.size() <= capacity && entry.getValue() > now) {
+          break;
+        }
+        idChars -= entry.getKey().length();
+        eldest.remove();
+      }
+    }
+
+    synchronized int size() {
+      return entries.size();
+    }
+
+    synchronized long memoryBytes() {
+      return entries.size() * ENTRY_OVERHEAD_BYTES + idChars;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package io.analytics.platform.ingestion.pipeline;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Non-blocking bound on the payload bytes handed to the producer but not yet acknowledged.
+ *
+ * <p>Callers reserve the bytes of a whole batch before sending and release each record's bytes as
+ * its acknowledgement arrives. A reservation that does not fit is refused immediately rather than
+ * queued, which is what turns a saturated producer into HTTP 429. A single reservation larger
+ * than the capacity is granted only when nothing else is in flight, so oversized batches still
+ * make progress without starving the budget.
+ */
+public final class InFlightBudget {
+
+  private static final long MIN_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+  private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final long capacity;
+  private final AtomicLong bytes = new AtomicLong();
+  private final AtomicLong records = new AtomicLong();
+
+  /**
+   * Creates a budget.
+   *
+   * @param capacity maximum number of in-flight bytes
+   * @throws IllegalArgumentException if capacity is not positive
+   */
+  public InFlightBudget(long capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("In-flight capacity must be positive");
+    }
+    this.capacity = capacity;
+  }
+
+  /**
+   * Reserves bytes for a batch of records.
+   *
+   * @param size number of bytes to reserve
+   * @param count number of records the bytes belong to
+   * @return true if the reservation was granted
+   */
+  public boolean tryAcquire(long size, int count) {
+    while (true) {
+      long current = bytes.get();
+      if (current > 0 && current + size > capacity) {
+        return false;
+      }
+      if (bytes.compareAndSet(current, current + size)) {
+        records.addAndGet(count);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Reserves bytes for a batch of records, waiting up to {@code timeout} for acknowledgements to
+   * free enough of the budget. Meant for callers that read their input incrementally and can
+   * pause, such as streaming requests; request/response callers use {@link #tryAcquire(long,
+   * int)} and shed load instead.
+   *
+   * @param size number of bytes to reserve
+   * @param count number of records the bytes belong to
+   * @param timeout maximum time to wait
+   * @return true if the reservation was granted
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public boolean tryAcquire(long size, int count, Duration timeout) throws InterruptedException {
+    long deadline = System.nanoTime() + timeout.toNanos();
+    long backoff = MIN_BACKOFF_NANOS;
+    while (!tryAcquire(size, count)) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return false;
+      }
+      // Releases are too frequent to signal; a bounded exponential backoff is cheaper
+      LockSupport.parkNanos(Math.min(backoff, remaining));
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+    }
+    return true;
+  }
+
+  /**
+   * Returns the bytes of one acknowledged or failed record.
+   *
+   * @param size number of bytes to release
+   */
+  public void release(long size) {
+    records.decrementAndGet();
+    bytes.addAndGet(-size);
+  }
+
+  /**
+   * Returns whether the budget is exhausted, letting callers shed load before doing any work.
+   *
+   * @return true if no further bytes can be reserved
+   */
+  public boolean isExhausted() {
+    return bytes.get() >= capacity;
+  }
+
+  /**
+   * Returns the bytes currently in flight.
+   *
+   * @return reserved bytes
+   */
+  public long bytes() {
+    return bytes.get();
+  }
+
+  /**
+   * Returns the records currently in flight, i.e. the producer queue depth seen by this service.
+   *
+   * @return unacknowledged records
+   */
+  public long records() {
+    return records.get();
+  }
+
+  /**
+   * Returns the configured capacity.
+   *
+   * @return maximum in-flight bytes
+   */
+  public long capacity() {
+    return capacity;
+  }
+}
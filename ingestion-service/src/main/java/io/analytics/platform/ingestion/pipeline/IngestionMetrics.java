@@ -0,0 +1,191 @@
+package io.analytics.platform.ingestion.pipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instruments of the ingestion pipeline.
+ *
+ * <ul>
+ *   <li>{@code ingestion.events{outcome}}: received, accepted, rejected, published, failed,
+ *       duplicate and throttled event counts
+ *   <li>{@code ingestion.stage.duration{stage}}: latency per pipeline stage; {@code publish} is
+ *       measured per record from send to broker acknowledgement, the others per batch
+ *   <li>{@code ingestion.batch.size}: events per request
+ *   <li>{@code ingestion.inflight.bytes}, {@code ingestion.inflight.records}: unacknowledged
+ *       payload bytes and records, against {@code ingestion.inflight.capacity}
+ *   <li>{@code ingestion.dedup.lookups{result}}: dedup cache hits and misses, for the hit rate
+ *   <li>{@code ingestion.dedup.entries}, {@code ingestion.dedup.memory}: remembered IDs and the
+ *       estimated heap they hold
+ * </ul>
+ *
+ * <p>All meters are registered once; the hot path only touches pre-resolved instruments.
+ */
+public final class IngestionMetrics {
+
+  /** Pipeline stages with a latency timer. */
+  public enum Stage {
+    PARSE,
+    VALIDATE,
+    SERIALIZE,
+    PUBLISH
+  }
+
+  private final Counter received;
+  private final Counter accepted;
+  private final Counter rejected;
+  private final Counter published;
+  private final Counter failed;
+  private final Counter duplicates;
+  private final Counter throttled;
+  private final Counter dedupHits;
+  private final Counter dedupMisses;
+  private final Timer[] stages = new Timer[Stage.values().length];
+  private final DistributionSummary batchSize;
+
+  /**
+   * Registers the pipeline meters.
+   *
+   * @param registry the registry to publish to
+   * @param budget the in-flight budget observed by the queue-depth gauges
+   * @param dedup the dedup cache observed by the footprint gauges
+   */
+  public IngestionMetrics(MeterRegistry registry, InFlightBudget budget, DedupCache dedup) {
+    received = outcome(registry, "received");
+    accepted = outcome(registry, "accepted");
+    rejected = outcome(registry, "rejected");
+    published = outcome(registry, "published");
+    failed = outcome(registry, "failed");
+    duplicates = outcome(registry, "duplicate");
+    throttled = outcome(registry, "throttled");
+    dedupHits = dedupLookups(registry, "hit");
+    dedupMisses = dedupLookups(registry, "miss");
+    for (Stage stage : Stage.values()) {
+      stages[stage.ordinal()] =
+          Timer.builder("ingestion.stage.duration")
+              .description("Latency of an ingestion pipeline stage")
+              .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+              .publishPercentileHistogram()
+              .register(registry);
+    }
+    batchSize =
+        DistributionSummary.builder("ingestion.batch.size")
+            .description("Events per ingestion request")
+            .baseUnit("events")
+            .register(registry);
+    Gauge.builder("ingestion.inflight.bytes", budget, InFlightBudget::bytes)
+        .description("Payload bytes handed to the producer and not yet acknowledged")
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("ingestion.inflight.records", budget, InFlightBudget::records)
+        .description("Records handed to the producer and not yet acknowledged")
+        .register(registry);
+    Gauge.builder("ingestion.inflight.capacity", budget, InFlightBudget::capacity)
+        .description("Maximum unacknowledged payload bytes")
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("ingestion.dedup.entries", dedup, DedupCache::size)
+        .description("Event IDs remembered by the dedup cache")
+        .register(registry);
+    Gauge.builder("ingestion.dedup.memory", dedup, DedupCache::memoryBytes)
+        .description("Estimated heap held by the dedup cache and its Bloom prefilter")
+        .baseUnit("bytes")
+        .register(registry);
+  }
+
+  private static Counter dedupLookups(MeterRegistry registry, String result) {
+    return Counter.builder("ingestion.dedup.lookups")
+        .description("Dedup cache lookups, by result")
+        .tag("result", result)
+        .register(registry);
+  }
+
+  private static Counter outcome(MeterRegistry registry, String outcome) {
+    return Counter.builder("ingestion.events")
+        .description("Events seen by the ingestion pipeline, by outcome")
+        .tag("outcome", outcome)
+        .register(registry);
+  }
+
+  /**
+   * Runs a stage and records its latency.
+   *
+   * @param <T> the stage result type
+   * @param stage the stage being timed
+   * @param body the stage
+   * @return the stage result
+   */
+  public <T> T time(Stage stage, Supplier<T> body) {
+    long start = System.nanoTime();
+    try {
+      return body.get();
+    } finally {
+      record(stage, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Records a stage latency measured by the caller.
+   *
+   * @param stage the stage
+   * @param nanos elapsed time in nanoseconds
+   */
+  public void record(Stage stage, long nanos) {
+    stages[stage.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records a received batch.
+   *
+   * @param events number of events in the batch
+   */
+  public void received(int events) {
+    received.increment(events);
+    batchSize.record(events);
+  }
+
+  /** Records events that passed validation. */
+  public void accepted(int events) {
+    accepted.increment(events);
+  }
+
+  /** Records events that failed validation. */
+  public void rejected(int events) {
+    rejected.increment(events);
+  }
+
+  /** Records a record acknowledged by the broker. */
+  public void published() {
+    published.increment();
+  }
+
+  /** Records a record the producer failed to deliver. */
+  public void failed() {
+    failed.increment();
+  }
+
+  /** Records accepted events acknowledged without publishing because their ID was seen. */
+  public void duplicates(int events) {
+    duplicates.increment(events);
+  }
+
+  /**
+   * Records a dedup cache lookup.
+   *
+   * @param hit whether the ID was found
+   */
+  public void dedupLookup(boolean hit) {
+    (hit ? dedupHits : dedupMisses).increment();
+  }
+
+  /** Records events refused because the in-flight budget was exhausted. */
+  public void throttled(int events) {
+    throttled.increment(events);
+  }
+}
@@ -0,0 +1,624 @@
+package io.analytics.platform.ingestion.pipeline;
+
+import io.analytics.platform.common.dto.RawEvent;
+import io.analytics.platform.common.dto.RawEventBatch;
+import io.analytics.platform.common.exception.DecodingException;
+import io.analytics.platform.common.exception.EncodingException;
+import io.analytics.platform.common.kafka.DlqHeaders;
+import io.analytics.platform.common.logging.Logging;
+import io.analytics.platform.common.util.BinaryEventCodec;
+import io.analytics.platform.common.util.EventCodec;
+import io.analytics.platform.common.util.JsonCodec;
+import io.analytics.platform.common.util.NdjsonReader;
+import io.analytics.platform.common.util.WireFormat;
+import io.analytics.platform.ingestion.config.IngestionProperties;
+import io.analytics.platform.ingestion.pipeline.IngestionMetrics.Stage;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.Logger;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+/**
+ * Turns request bodies into acknowledged Kafka records.
+ *
+ * <p>A batch goes through four stages, each timed in {@link IngestionMetrics}:
+ *
+ * <ol>
+ *   <li><b>parse</b>: the UTF-8 body is decoded straight from bytes into events
+ *   <li><b>validate</b>: the whole batch is checked in one pass by {@link RawEventBatch}
+ *   <li><b>serialize</b>: every accepted event is encoded exactly once, in the configured {@link
+ *       WireFormat}; rejected events are encoded as JSON for the dead letter topic, and events
+ *       whose ID is in the {@link DedupCache} are acknowledged without being encoded at all
+ *   <li><b>publish</b>: records are handed to the producer keyed by event id, and the returned
+ *       future completes when the last acknowledgement arrives
+ * </ol>
+ *
+ * <p>Memory is bounded by an {@link InFlightBudget} sized below the producer's buffer: a batch
+ * whose serialized size does not fit is refused with {@link BackpressureException} before any
+ * record is sent, so requests are never queued without bound and never block inside the producer.
+ */
+public class IngestionPipeline {
+
+  private static final Logger log = Logging.getLogger(IngestionPipeline.class);
+
+  /** Error code of dead lettered stream lines that are not valid event JSON. */
+  public static final String MALFORMED_LINE = "MALFORMED_LINE";
+
+  /** Error code of dead lettered stream lines over {@code ingestion.stream.max-line-length}. */
+  public static final String LINE_TOO_LONG = "LINE_TOO_LONG";
+
+  private static final JsonCodec<RawEvent[]> ARRAY_CODEC = JsonCodec.forType(RawEvent[].class);
+
+  private static final byte[] SERVICE_NAME = "ingestion-service".getBytes(StandardCharsets.UTF_8);
+
+  private final KafkaTemplate<String, byte[]> template;
+  private final IngestionProperties properties;
+  private final InFlightBudget budget;
+  private final IngestionMetrics metrics;
+  private final DedupCache dedup;
+  private final Clock clock;
+  private final EventCodec<RawEvent> codec;
+  private final Header contentType;
+  private final Header dlqContentType;
+  private final byte[] originTopic;
+
+  /**
+   * Creates a pipeline.
+   *
+   * @param template producer of serialized events
+   * @param properties pipeline settings
+   * @param budget the in-flight byte budget shared by all requests
+   * @param metrics the pipeline instruments
+   * @param dedup IDs published recently, whose events are acknowledged without publishing again
+   * @param clock clock used to reject future timestamps
+   */
+  public IngestionPipeline(
+      KafkaTemplate<String, byte[]> template,
+      IngestionProperties properties,
+      InFlightBudget budget,
+      IngestionMetrics metrics,
+      DedupCache dedup,
+      Clock clock) {
+    this.template = template;
+    this.properties = properties;
+    this.budget = budget;
+    this.metrics = metrics;
+    this.dedup = dedup;
+    this.clock = clock;
+    this.codec =
+        properties.wireFormat() == WireFormat.BINARY
+            ? BinaryEventCodec.RAW_EVENT
+            : JsonCodec.RAW_EVENT;
+    this.contentType =
+        new RecordHeader(WireFormat.CONTENT_TYPE_HEADER, codec.format().contentTypeBytes());
+    this.dlqContentType =
+        new RecordHeader(WireFormat.CONTENT_TYPE_HEADER, WireFormat.JSON.contentTypeBytes());
+    this.originTopic = properties.topic().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Decodes a request body holding either a single JSON event or a JSON array of events.
+   *
+   * @param body the UTF-8 request body
+   * @return the decoded events; a JSON {@code null} decodes to a single null element
+   * @throws DecodingException if the body is empty or not valid event JSON
+   */
+  public List<RawEvent> parse(byte[] body) {
+    return metrics.time(Stage.PARSE, () -> decode(body));
+  }
+
+  /**
+   * Validates, serializes and publishes a batch.
+   *
+   * @param events the events to publish; null elements are rejected like invalid events
+   * @return a future completed once every record of the batch is acknowledged or has failed
+   * @throws BatchTooLargeException if the batch exceeds {@code ingestion.max-batch-size}
+   * @throws BackpressureException if the in-flight budget cannot hold the batch
+   */
+  public CompletableFuture<BatchResult> submit(List<RawEvent> events) {
+    Prepared batch = prepare(events);
+    send(batch, 0, batch.records.size());
+    return batch.tracker.result;
+  }
+
+  /**
+   * Validates, serializes and publishes a batch, blocking until every record is acknowledged or
+   * has failed. Intended for callers running on virtual threads, where blocking is cheap.
+   *
+   * <p>Records are handed to the producer in slices of {@code ingestion.execution.fan-out-size},
+   * each from its own virtual thread, and the slices are joined before waiting for the
+   * acknowledgements. {@code KafkaProducer.send} can block on partition metadata or buffer space;
+   * fanning out keeps one slow slice from serializing the rest of the batch behind it.
+   *
+   * @param events the events to publish; null elements are rejected like invalid events
+   * @return the batch outcome
+   * @throws BatchTooLargeException if the batch exceeds {@code ingestion.max-batch-size}
+   * @throws BackpressureException if the in-flight budget cannot hold the batch
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public BatchResult submitAndWait(List<RawEvent> events) throws InterruptedException {
+    Prepared batch = prepare(events);
+    int total = batch.records.size();
+    int slice = properties.execution().fanOutSize();
+    if (total <= slice) {
+      send(batch, 0, total);
+    } else {
+      // Closing the executor waits for every slice, so no send outlives this scope
+      try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+        for (int from = 0; from < total; from += slice) {
+          int sliceStart = from;
+          int sliceEnd = Math.min(total, from + slice);
+          scope.execute(() -> send(batch, sliceStart, sliceEnd));
+        }
+      }
+    }
+    return await(batch.tracker.result);
+  }
+
+  /**
+   * Publishes an NDJSON stream in rolling batches of {@code ingestion.stream.batch-size} events,
+   * blocking until every batch is acknowledged or has failed. The stream is not closed.
+   *
+   * <p>Lines are parsed one at a time by {@link NdjsonReader}; malformed and oversized lines are
+   * rejected without failing the stream. Like events failing validation, they are dead lettered,
+   * as read and with their line number in the {@link DlqHeaders#LINE} header, so that they can be
+   * replayed; an oversized line is dead lettered empty, its bytes having been discarded. Malformed
+   * lines count towards the rolling batch they fall in. Memory stays bounded whatever the payload
+   * size: at most one batch is being filled, at most {@code
+   * ingestion.stream.max-pending-batches} are awaiting acknowledgement, and reading pauses while
+   * the in-flight budget is full. The budget wait is bounded by {@code
+   * ingestion.producer.max-block}; past it the stream fails with {@link BackpressureException}
+   * after the batches already sent, which a retry re-publishes under the same event IDs.
+   *
+   * @param body the NDJSON request body
+   * @return the stream summary
+   * @throws BackpressureException if the in-flight budget stays full for too long
+   * @throws DecodingException if reading the body fails
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public StreamResult stream(InputStream body) throws InterruptedException {
+    IngestionProperties.Stream settings = properties.stream();
+    int batchSize = settings.batchSize();
+    NdjsonReader<RawEvent> reader =
+        new NdjsonReader<>(
+            body, JsonCodec.RAW_EVENT, Math.toIntExact(settings.maxLineLength().toBytes()));
+    StreamResult.Builder summary = new StreamResult.Builder(settings.maxReportedRejections());
+    Deque<Pending> pending = new ArrayDeque<>();
+    List<RawEvent> events = new ArrayList<>(batchSize);
+    long[] lines = new long[batchSize];
+    List<CompletableFuture<StreamResult.Rejected>> malformed = new ArrayList<>();
+    while (reader.advance()) {
+      RawEvent event = null;
+      String error = null;
+      long start = System.nanoTime();
+      try {
+        event = reader.value();
+      } catch (DecodingException e) {
+        error = e.getMessage();
+      }
+      metrics.record(Stage.PARSE, System.nanoTime() - start);
+      if (error != null) {
+        metrics.rejected(1);
+        malformed.add(deadLetter(reader, error, pending, summary));
+      } else {
+        lines[events.size()] = reader.lineNumber();
+        events.add(event);
+      }
+      if (events.size() + malformed.size() == batchSize) {
+        publish(events, lines, malformed, pending, summary);
+        events = new ArrayList<>(batchSize);
+        lines = new long[batchSize];
+        malformed = new ArrayList<>();
+      }
+    }
+    if (!events.isEmpty() || !malformed.isEmpty()) {
+      publish(events, lines, malformed, pending, summary);
+    }
+    while (!pending.isEmpty()) {
+      settle(pending.poll(), summary);
+    }
+    return summary.build();
+  }
+
+  /** Sends one rolling batch of a stream, first waiting for room among its pending batches. */
+  private void publish(
+      List<RawEvent> events,
+      long[] lines,
+      List<CompletableFuture<StreamResult.Rejected>> malformed,
+      Deque<Pending> pending,
+      StreamResult.Builder summary)
+      throws InterruptedException {
+    while (pending.size() >= properties.stream().maxPendingBatches()) {
+      settle(pending.poll(), summary);
+    }
+    metrics.received(events.size());
+    Prepared batch = encode(events, lines);
+    reserve(batch.bytes, batch.records.size(), events.size(), pending, summary);
+    admit(batch);
+    send(batch, 0, batch.records.size());
+    pending.add(new Pending(batch.tracker.result, lines, malformed));
+  }
+
+  /**
+   * Sends a stream line that does not decode to the dead letter topic, as it was read.
+   *
+   * @return the rejected line, with the position of its dead letter record once acknowledged
+   */
+  private CompletableFuture<StreamResult.Rejected> deadLetter(
+      NdjsonReader<RawEvent> reader,
+      String reason,
+      Deque<Pending> pending,
+      StreamResult.Builder summary)
+      throws InterruptedException {
+    long line = reader.lineNumber();
+    String code = reader.isOversized() ? LINE_TOO_LONG : MALFORMED_LINE;
+    byte[] payload = reader.bytes();
+    reserve(payload.length, 1, 1, pending, summary);
+    ProducerRecord<String, byte[]> record =
+        new ProducerRecord<>(
+            properties.dlqTopic(), null, null, payload, dlqHeaders(code, reason, line));
+    CompletableFuture<SendResult<String, byte[]>> future;
+    try {
+      future = template.send(record);
+    } catch (RuntimeException e) {
+      future = CompletableFuture.failedFuture(e);
+    }
+    return future.handle(
+        (result, error) -> {
+          budget.release(payload.length);
+          if (error != null) {
+            Logging.error(log, "Failed to publish malformed line to the dead letter topic", error);
+            return new StreamResult.Rejected(line, null, reason, -1, -1L);
+          }
+          RecordMetadata metadata = result.getRecordMetadata();
+          return new StreamResult.Rejected(
+              line, null, reason, metadata.partition(), metadata.offset());
+        });
+  }
+
+  /**
+   * Reserves records of a stream in the budget, waiting up to {@code ingestion.producer.max-block}
+   * if it is full.
+   *
+   * @param size number of events the records belong to, reported if the wait times out
+   */
+  private void reserve(
+      long bytes, int records, int size, Deque<Pending> pending, StreamResult.Builder summary)
+      throws InterruptedException {
+    if (!budget.tryAcquire(bytes, records)) {
+      // The stream's own batches are the likeliest holders of the budget; drain them first
+      while (!pending.isEmpty()) {
+        settle(pending.poll(), summary);
+      }
+      Duration wait = properties.producer().maxBlock();
+      if (!budget.tryAcquire(bytes, records, wait)) {
+        throw throttle(size);
+      }
+    }
+  }
+
+  private static void settle(Pending batch, StreamResult.Builder summary)
+      throws InterruptedException {
+    BatchResult result = await(batch.result);
+    List<StreamResult.Rejected> malformed = new ArrayList<>(batch.malformed.size());
+    for (CompletableFuture<StreamResult.Rejected> line : batch.malformed) {
+      malformed.add(await(line));
+    }
+    summary.add(result, batch.lines, malformed);
+  }
+
+  private static <T> T await(CompletableFuture<T> result) throws InterruptedException {
+    try {
+      return result.get();
+    } catch (ExecutionException e) {
+      // Batch trackers and dead letters of malformed lines only ever complete normally
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /** Runs the parse-independent stages and reserves the batch in the in-flight budget. */
+  private Prepared prepare(List<RawEvent> events) {
+    int size = events.size();
+    if (size > properties.maxBatchSize()) {
+      throw new BatchTooLargeException(size, properties.maxBatchSize());
+    }
+    metrics.received(size);
+    if (budget.isExhausted()) {
+      // Shed load before paying for validation and serialization
+      throw throttle(size);
+    }
+    Prepared batch = encode(events, null);
+    if (!budget.tryAcquire(batch.bytes, batch.records.size())) {
+      throw throttle(size);
+    }
+    admit(batch);
+    return batch;
+  }
+
+  /**
+   * Validates and serializes a batch, without reserving it in the budget.
+   *
+   * @param lines line number of each event in its stream, by batch index, null outside streams
+   */
+  private Prepared encode(List<RawEvent> events, long[] lines) {
+    int size = events.size();
+    List<RawEvent> batchEvents = assignMissingIds(events);
+    RawEventBatch batch =
+        metrics.time(
+            Stage.VALIDATE,
+            () ->
+                RawEventBatch.validate(
+                    batchEvents, clock.instant(), RawEventBatch.DEFAULT_PARALLEL_THRESHOLD));
+
+    long start = System.nanoTime();
+    List<RawEvent> accepted = batch.accepted();
+    List<RawEventBatch.Rejection> rejected = batch.rejected();
+    List<ProducerRecord<String, byte[]>> records = new ArrayList<>(size);
+    int[] rejections = new int[size];
+    long bytes = 0;
+    // Also catches repeats within the batch, whose first copy is not acknowledged yet
+    Set<String> seen = dedup.isEnabled() ? new HashSet<>() : null;
+    int duplicates = 0;
+    for (RawEvent event : accepted) {
+      if (seen != null && (!seen.add(event.id()) || isDuplicate(event.id()))) {
+        duplicates++;
+        continue;
+      }
+      byte[] payload = codec.encode(event);
+      RecordHeaders headers = new RecordHeaders(new Header[] {contentType});
+      rejections[records.size()] = -1;
+      records.add(new ProducerRecord<>(properties.topic(), null, event.id(), payload, headers));
+      bytes += payload.length;
+    }
+    for (int i = 0; i < rejected.size(); i++) {
+      RawEventBatch.Rejection rejection = rejected.get(i);
+      byte[] payload = encodeForDlq(rejection.event());
+      if (payload != null) {
+        String key = rejection.event() != null ? rejection.event().id() : null;
+        long line = lines != null ? lines[rejection.index()] : 0;
+        RecordHeaders headers = dlqHeaders(rejection.violation().name(), rejection.message(), line);
+        rejections[records.size()] = i;
+        records.add(new ProducerRecord<>(properties.dlqTopic(), null, key, payload, headers));
+        bytes += payload.length;
+      }
+    }
+    metrics.record(Stage.SERIALIZE, System.nanoTime() - start);
+
+    Tracker tracker = new Tracker(size, rejected, records.size(), duplicates);
+    return new Prepared(records, rejections, tracker, bytes, accepted.size(), rejected.size());
+  }
+
+  /** Counts a batch whose bytes were reserved and completes it at once if it has no records. */
+  private void admit(Prepared batch) {
+    metrics.accepted(batch.accepted);
+    metrics.rejected(batch.rejected);
+    metrics.duplicates(batch.tracker.duplicates);
+    if (batch.records.isEmpty()) {
+      batch.tracker.finish();
+    }
+  }
+
+  /** Sends the records of a prepared batch in {@code [from, to)}. */
+  private void send(Prepared batch, int from, int to) {
+    for (int i = from; i < to; i++) {
+      send(batch.records.get(i), batch.tracker, batch.rejections[i]);
+    }
+  }
+
+  /**
+   * Sends one record and settles it with the tracker when the producer completes it.
+   *
+   * @param rejection index into the batch rejections for dead letter records, -1 otherwise
+   */
+  private void send(ProducerRecord<String, byte[]> record, Tracker tracker, int rejection) {
+    int length = record.value().length;
+    long start = System.nanoTime();
+    CompletableFuture<SendResult<String, byte[]>> future;
+    try {
+      future = template.send(record);
+    } catch (RuntimeException e) {
+      future = CompletableFuture.failedFuture(e);
+    }
+    future.whenComplete(
+        (result, error) -> {
+          budget.release(length);
+          if (rejection < 0) {
+            metrics.record(Stage.PUBLISH, System.nanoTime() - start);
+            if (error == null) {
+              metrics.published();
+              dedup.record(record.key());
+            } else {
+              metrics.failed();
+            }
+          }
+          tracker.settle(rejection, result, error);
+        });
+  }
+
+  private boolean isDuplicate(String id) {
+    boolean duplicate = dedup.contains(id);
+    metrics.dedupLookup(duplicate);
+    return duplicate;
+  }
+
+  private BackpressureException throttle(int size) {
+    metrics.throttled(size);
+    return new BackpressureException(properties.retryAfter());
+  }
+
+  /**
+   * Builds the headers of a dead letter record.
+   *
+   * @param line line number of the record in its stream, 0 outside streams
+   */
+  private RecordHeaders dlqHeaders(String code, String reason, long line) {
+    RecordHeaders headers = new RecordHeaders(new Header[] {dlqContentType});
+    headers.add(DlqHeaders.ORIGIN_TOPIC, originTopic);
+    headers.add(DlqHeaders.SERVICE, SERVICE_NAME);
+    headers.add(DlqHeaders.ERROR_CODE, code.getBytes(StandardCharsets.UTF_8));
+    headers.add(DlqHeaders.REASON, reason.getBytes(StandardCharsets.UTF_8));
+    if (line > 0) {
+      headers.add(DlqHeaders.LINE, Long.toString(line).getBytes(StandardCharsets.UTF_8));
+    }
+    return headers;
+  }
+
+  private static byte[] encodeForDlq(RawEvent event) {
+    try {
+      return JsonCodec.RAW_EVENT.encode(event);
+    } catch (EncodingException e) {
+      Logging.error(log, "Failed to encode rejected event for the dead letter topic", e);
+      return null;
+    }
+  }
+
+  /**
+   * Gives events without an ID a random one, so that every published record has a partition key.
+   * Blank IDs are left alone and rejected by validation.
+   */
+  private static List<RawEvent> assignMissingIds(List<RawEvent> events) {
+    List<RawEvent> result = events;
+    for (int i = 0; i < events.size(); i++) {
+      RawEvent event = events.get(i);
+      if (event != null && event.id() == null) {
+        if (result == events) {
+          result = new ArrayList<>(events);
+        }
+        String id = UUID.randomUUID().toString();
+        result.set(i, new RawEvent(id, event.ts(), event.value(), event.tags()));
+      }
+    }
+    return result;
+  }
+
+  static List<RawEvent> decode(byte[] body) {
+    int start = 0;
+    while (start < body.length && isWhitespace(body[start])) {
+      start++;
+    }
+    if (start == body.length) {
+      throw new DecodingException("Request body cannot be empty");
+    }
+    if (body[start] == '[') {
+      return Arrays.asList(ARRAY_CODEC.decode(body));
+    }
+    return Collections.singletonList(JsonCodec.RAW_EVENT.decode(body));
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+  }
+
+  /**
+   * A validated, serialized batch whose bytes are reserved in the budget.
+   *
+   * @param records the records to send, accepted events first
+   * @param rejections for each record, its index in the batch rejections, -1 for accepted events
+   * @param tracker the batch outcome collector
+   * @param bytes total payload bytes of the records
+   * @param accepted number of events that passed validation
+   * @param rejected number of events that failed validation
+   */
+  private record Prepared(
+      List<ProducerRecord<String, byte[]>> records,
+      int[] rejections,
+      Tracker tracker,
+      long bytes,
+      int accepted,
+      int rejected) {}
+
+  /**
+   * A rolling batch of a stream awaiting acknowledgement.
+   *
+   * @param result the batch outcome
+   * @param lines line number of each event of the batch, by batch index
+   * @param malformed the dead lettered lines of the batch that did not decode
+   */
+  private record Pending(
+      CompletableFuture<BatchResult> result,
+      long[] lines,
+      List<CompletableFuture<StreamResult.Rejected>> malformed) {}
+
+  /** Collects per-record outcomes of a batch and completes its future after the last one. */
+  private static final class Tracker {
+
+    final CompletableFuture<BatchResult> result = new CompletableFuture<>();
+    private final int received;
+    private final int duplicates;
+    private final List<RawEventBatch.Rejection> rejected;
+    private final int[] dlqPartitions;
+    private final long[] dlqOffsets;
+    private final AtomicInteger pending;
+    private final AtomicInteger published = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    Tracker(int received, List<RawEventBatch.Rejection> rejected, int records, int duplicates) {
+      this.received = received;
+      this.duplicates = duplicates;
+      this.rejected = rejected;
+      this.dlqPartitions = new int[rejected.size()];
+      this.dlqOffsets = new long[rejected.size()];
+      Arrays.fill(dlqPartitions, -1);
+      Arrays.fill(dlqOffsets, -1L);
+      this.pending = new AtomicInteger(records);
+    }
+
+    void settle(int rejection, SendResult<String, byte[]> sent, Throwable error) {
+      if (rejection >= 0) {
+        if (error == null) {
+          RecordMetadata metadata = sent.getRecordMetadata();
+          dlqPartitions[rejection] = metadata.partition();
+          dlqOffsets[rejection] = metadata.offset();
+        } else {
+          Logging.error(log, "Failed to publish rejected event to the dead letter topic", error);
+        }
+      } else if (error == null) {
+        published.incrementAndGet();
+      } else if (failed.incrementAndGet() == 1) {
+        // One log line per batch: a broker outage fails every record of it
+        Logging.error(log, "Failed to publish events", error);
+      }
+      if (pending.decrementAndGet() == 0) {
+        finish();
+      }
+    }
+
+    void finish() {
+      List<BatchResult.Rejected> summary = new ArrayList<>(rejected.size());
+      for (int i = 0; i < rejected.size(); i++) {
+        RawEventBatch.Rejection rejection = rejected.get(i);
+        summary.add(
+            new BatchResult.Rejected(
+                rejection.index(),
+                rejection.event() != null ? rejection.event().id() : null,
+                rejection.message(),
+                dlqPartitions[i],
+                dlqOffsets[i]));
+      }
+      result.complete(
+          new BatchResult(received, published.get(), failed.get(), duplicates, summary));
+    }
+  }
+}
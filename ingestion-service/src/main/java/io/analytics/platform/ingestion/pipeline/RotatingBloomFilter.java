@@ -0,0 +1,223 @@
+package io.analytics.platform.ingestion.pipeline;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over event IDs that forgets entries after one to two windows.
+ *
+ * <p>Two generations of bits are kept; IDs are added to the current one and looked up in both.
+ * Once per window the current generation becomes the previous one and a fresh one replaces it, so
+ * an ID is remembered for at least one window. {@link #mightContain(String)} never returns a
+ * false negative within that period, which is what makes it safe as a prefilter: a negative
+ * answer proves an ID is new without consulting the exact cache.
+ *
+ * <p>Each ID is hashed once, with the 128-bit MurmurHash3 of its UTF-8 bytes, and its probes are
+ * derived from the two 64-bit halves by double hashing, {@code h1 + i * h2}. Unlike {@link
+ * String#hashCode()}, the hash does not collapse IDs to 32 bits, so IDs that collide there do not
+ * share probes.
+ */
+final class RotatingBloomFilter {
+
+  private static final VarHandle LONG_LE =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final long C1 = 0x87c37b91114253d5L;
+  private static final long C2 = 0x4cf5ad432745937fL;
+
+  private final Clock clock;
+  private final long windowMillis;
+  private final int words;
+  private final int mask;
+  private final int hashes;
+  private volatile Generation generation;
+
+  /**
+   * Creates a filter.
+   *
+   * @param expectedInsertions IDs expected per window
+   * @param falsePositiveRate target false positive probability at {@code expectedInsertions}
+   * @param windowMillis generation lifetime
+   * @param clock time source of the rotation
+   */
+  RotatingBloomFilter(
+      int expectedInsertions, double falsePositiveRate, long windowMillis, Clock clock) {
+    if (expectedInsertions <= 0) {
+      throw new IllegalArgumentException("Expected insertions must be positive");
+    }
+    if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+      throw new IllegalArgumentException("False positive rate must be in (0, 1)");
+    }
+    double ln2 = Math.log(2);
+    long optimalBits =
+        (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+    // A power-of-two size turns the modulo of each probe into a mask
+    long bits = Long.highestOneBit(Math.max(64, optimalBits - 1)) << 1;
+    if (bits > (1L << 31)) {
+      throw new IllegalArgumentException("Bloom filter would exceed 256 MB");
+    }
+    this.words = (int) (bits >>> 6);
+    this.mask = (int) (bits - 1);
+    this.hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * ln2));
+    this.windowMillis = windowMillis;
+    this.clock = clock;
+    long now = clock.millis();
+    this.generation = new Generation(new AtomicLongArray(words), null, now + windowMillis);
+  }
+
+  /**
+   * Returns whether an ID may have been added within the last one to two windows.
+   *
+   * @param id the event ID
+   * @return false only if the ID was definitely not added during that period
+   */
+  boolean mightContain(String id) {
+    Generation current = current();
+    Hash hash = hash(id);
+    return contains(current.bits, hash)
+        || (current.previous != null && contains(current.previous, hash));
+  }
+
+  /**
+   * Adds an ID to the current generation.
+   *
+   * @param id the event ID
+   */
+  void add(String id) {
+    AtomicLongArray bits = current().bits;
+    Hash hash = hash(id);
+    for (int i = 0; i < hashes; i++) {
+      int bit = hash.probe(i, mask);
+      long flag = 1L << bit;
+      int word = bit >>> 6;
+      long value = bits.get(word);
+      if ((value & flag) == 0) {
+        bits.getAndUpdate(word, v -> v | flag);
+      }
+    }
+  }
+
+  /**
+   * Returns the heap used by the bit arrays.
+   *
+   * @return bytes held by both generations
+   */
+  long memoryBytes() {
+    Generation current = generation;
+    return (long) words * Long.BYTES * (current.previous != null ? 2 : 1);
+  }
+
+  private boolean contains(AtomicLongArray bits, Hash hash) {
+    for (int i = 0; i < hashes; i++) {
+      int bit = hash.probe(i, mask);
+      if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Generation current() {
+    Generation current = generation;
+    long now = clock.millis();
+    if (now < current.rotateAt) {
+      return current;
+    }
+    synchronized (this) {
+      current = generation;
+      if (now >= current.rotateAt) {
+        // After an idle period longer than a window the previous generation is stale as well
+        AtomicLongArray previous = now < current.rotateAt + windowMillis ? current.bits : null;
+        current = new Generation(new AtomicLongArray(words), previous, now + windowMillis);
+        generation = current;
+      }
+      return current;
+    }
+  }
+
+  /** Returns the MurmurHash3 x64 128-bit hash, seed 0, of the UTF-8 bytes of an ID. */
+  static Hash hash(String id) {
+    byte[] data = id.getBytes(StandardCharsets.UTF_8);
+    int length = data.length;
+    int blocks = length >>> 4;
+    long h1 = 0;
+    long h2 = 0;
+    for (int i = 0; i < blocks; i++) {
+      long k1 = (long) LONG_LE.get(data, i << 4);
+      long k2 = (long) LONG_LE.get(data, (i << 4) + 8);
+      h1 ^= mixK1(k1);
+      h1 = Long.rotateLeft(h1, 27) + h2;
+      h1 = h1 * 5 + 0x52dce729;
+      h2 ^= mixK2(k2);
+      h2 = Long.rotateLeft(h2, 31) + h1;
+      h2 = h2 * 5 + 0x38495ab5;
+    }
+    int tail = blocks << 4;
+    int remaining = length & 15;
+    long k1 = 0;
+    long k2 = 0;
+    for (int i = remaining - 1; i >= 8; i--) {
+      k2 ^= (data[tail + i] & 0xFFL) << ((i - 8) << 3);
+    }
+    for (int i = Math.min(remaining, 8) - 1; i >= 0; i--) {
+      k1 ^= (data[tail + i] & 0xFFL) << (i << 3);
+    }
+    if (remaining > 8) {
+      h2 ^= mixK2(k2);
+    }
+    if (remaining > 0) {
+      h1 ^= mixK1(k1);
+    }
+    h1 ^= length;
+    h2 ^= length;
+    h1 += h2;
+    h2 += h1;
+    h1 = fmix(h1);
+    h2 = fmix(h2);
+    h1 += h2;
+    h2 += h1;
+    return new Hash(h1, h2);
+  }
+
+  private static long mixK1(long k1) {
+    return Long.rotateLeft(k1 * C1, 31) * C2;
+  }
+
+  private static long mixK2(long k2) {
+    return Long.rotateLeft(k2 * C2, 33) * C1;
+  }
+
+  private static long fmix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  /**
+   * The two 64-bit halves of the hash of an ID.
+   *
+   * @param h1 the first half, the base of every probe
+   * @param h2 the second half, the step between probes
+   */
+  record Hash(long h1, long h2) {
+
+    /**
+     * Returns the bit of the {@code i}-th probe. The step is made odd, so that the probes of an ID
+     * cycle through the whole power-of-two table before repeating.
+     */
+    int probe(int i, int mask) {
+      return (int) ((h1 + i * (h2 | 1)) & mask);
+    }
+  }
+
+  /**
+   * Bits of the current window, the previous window's bits and the time of the next rotation.
+   */
+  private record Generation(AtomicLongArray bits, AtomicLongArray previous, long rotateAt) {}
+}
@@ -0,0 +1,102 @@
+package io.analytics.platform.ingestion.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of an NDJSON stream once every rolling batch has been acknowledged or has failed.
+ *
+ * <p>Counts cover the whole stream; {@code rejections} lists only the first rejections up to
+ * {@code ingestion.stream.max-reported-rejections}, so the summary stays bounded as well.
+ *
+ * @param received number of non-blank lines
+ * @param published events acknowledged by the broker
+ * @param failed valid events the producer could not deliver
+ * @param duplicates valid events not published again because their ID already was
+ * @param rejected lines that were malformed or failed validation
+ * @param rejections the first rejected lines, in stream order
+ */
+public record StreamResult(
+    long received,
+    long published,
+    long failed,
+    long duplicates,
+    long rejected,
+    List<Rejected> rejections) {
+
+  /**
+   * Returns the number of events that passed validation.
+   *
+   * @return {@code published + failed + duplicates}
+   */
+  public long accepted() {
+    return published + failed + duplicates;
+  }
+
+  /**
+   * A rejected line and where it was parked.
+   *
+   * @param line 1-based line number in the stream
+   * @param id the event ID, null if the line was malformed or had no ID
+   * @param reason why the line was rejected
+   * @param dlqPartition partition of the dead letter record, -1 if it was not written
+   * @param dlqOffset offset of the dead letter record, -1 if it was not written
+   */
+  public record Rejected(long line, String id, String reason, int dlqPartition, long dlqOffset) {}
+
+  /** Accumulates the outcomes of the batches and malformed lines of one stream. */
+  static final class Builder {
+
+    private final int maxReported;
+    private final List<Rejected> rejections = new ArrayList<>();
+    private long received;
+    private long published;
+    private long failed;
+    private long duplicates;
+    private long rejected;
+
+    Builder(int maxReported) {
+      this.maxReported = maxReported;
+    }
+
+    /**
+     * Adds a completed rolling batch.
+     *
+     * @param batch the batch outcome
+     * @param lines line number of each event of the batch, by batch index
+     * @param malformed the lines of the batch that could not be decoded into an event, in stream
+     *     order
+     */
+    void add(BatchResult batch, long[] lines, List<Rejected> malformed) {
+      received += batch.received() + malformed.size();
+      published += batch.published();
+      failed += batch.failed();
+      duplicates += batch.duplicates();
+      int next = 0;
+      for (BatchResult.Rejected entry : batch.rejected()) {
+        long line = lines[entry.index()];
+        while (next < malformed.size() && malformed.get(next).line() < line) {
+          reject(malformed.get(next++));
+        }
+        reject(
+            new Rejected(
+                line, entry.id(), entry.reason(), entry.dlqPartition(), entry.dlqOffset()));
+      }
+      while (next < malformed.size()) {
+        reject(malformed.get(next++));
+      }
+    }
+
+    private void reject(Rejected entry) {
+      rejected++;
+      if (rejections.size() < maxReported) {
+        rejections.add(entry);
+      }
+    }
+
+    StreamResult build() {
+      return new StreamResult(
+          received, published, failed, duplicates, rejected, List.copyOf(rejections));
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package io.analytics.platform.ingestion.web;
+
+import io.analytics.platform.ingestion.config.ExecutionMode;
+import io.analytics.platform.ingestion.pipeline.IngestionPipeline;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * {@code POST /produce} for {@link ExecutionMode#VIRTUAL} mode.
+ *
+ * <p>Each request runs on its own virtual thread and simply blocks until the batch is
+ * acknowledged; parking a virtual thread releases its carrier, so this scales like the
+ * asynchronous {@link ProduceController} without an async servlet dispatch. Request, response and
+ * status codes are the same.
+ */
+@RestController
+@RequestMapping("/produce")
+@ConditionalOnProperty(prefix = "ingestion.execution", name = "mode", havingValue = "virtual")
+public class BlockingProduceController {
+
+  private final IngestionPipeline pipeline;
+
+  public BlockingProduceController(IngestionPipeline pipeline) {
+    this.pipeline = pipeline;
+  }
+
+  @PostMapping(
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<ProduceResponse> produce(@RequestBody byte[] body)
+      throws InterruptedException {
+    return ProduceResponse.toEntity(pipeline.submitAndWait(pipeline.parse(body)));
+  }
+}
@@ -0,0 +1,34 @@
+package io.analytics.platform.ingestion.web;
+
+import io.analytics.platform.common.exception.DecodingException;
+import io.analytics.platform.ingestion.pipeline.BackpressureException;
+import io.analytics.platform.ingestion.pipeline.BatchTooLargeException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/** Maps pipeline exceptions to RFC 7807 problem responses. */
+@RestControllerAdvice
+public class IngestionExceptionHandler {
+
+  @ExceptionHandler(BackpressureException.class)
+  public ResponseEntity<ProblemDetail> handleBackpressure(BackpressureException e) {
+    long seconds = Math.max(1, (e.retryAfter().toMillis() + 999) / 1000);
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, Long.toString(seconds))
+        .body(ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, e.getMessage()));
+  }
+
+  @ExceptionHandler(BatchTooLargeException.class)
+  public ProblemDetail handleBatchTooLarge(BatchTooLargeException e) {
+    return ProblemDetail.forStatusAndDetail(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage());
+  }
+
+  @ExceptionHandler(DecodingException.class)
+  public ProblemDetail handleDecoding(DecodingException e) {
+    return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+  }
+}
@@ -0,0 +1,53 @@
+package io.analytics.platform.ingestion.web;
+
+import io.analytics.platform.ingestion.config.ExecutionMode;
+import io.analytics.platform.ingestion.pipeline.IngestionPipeline;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Accepts a single {@code RawEvent} or a JSON array of them and publishes them to Kafka.
+ *
+ * <p>The body is read as bytes and parsed by the pipeline, and the response is written once every
+ * record has been acknowledged, without holding a request thread while waiting. Status codes:
+ *
+ * <ul>
+ *   <li>200: every valid event was published; invalid ones are listed in {@code rejected}
+ *   <li>400: the body is malformed, or no event passed validation
+ *   <li>413: the request holds more than {@code ingestion.max-batch-size} events
+ *   <li>429: the in-flight budget is full; retry after the {@code Retry-After} delay
+ *   <li>503: some valid events could not be published; retrying the request is safe because
+ *       events are keyed by ID
+ * </ul>
+ *
+ * <p>Active in {@link ExecutionMode#PLATFORM} mode; {@link BlockingProduceController} serves the
+ * same endpoint in {@link ExecutionMode#VIRTUAL} mode.
+ */
+@RestController
+@RequestMapping("/produce")
+@ConditionalOnProperty(
+    prefix = "ingestion.execution",
+    name = "mode",
+    havingValue = "platform",
+    matchIfMissing = true)
+public class ProduceController {
+
+  private final IngestionPipeline pipeline;
+
+  public ProduceController(IngestionPipeline pipeline) {
+    this.pipeline = pipeline;
+  }
+
+  @PostMapping(
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public CompletableFuture<ResponseEntity<ProduceResponse>> produce(@RequestBody byte[] body) {
+    return pipeline.submit(pipeline.parse(body)).thenApply(ProduceResponse::toEntity);
+  }
+}
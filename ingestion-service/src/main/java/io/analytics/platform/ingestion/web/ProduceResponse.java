@@ -0,0 +1,60 @@
+package io.analytics.platform.ingestion.web;
+
+import io.analytics.platform.ingestion.pipeline.BatchResult;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Body of a {@code POST /produce} response.
+ *
+ * @param received number of events in the request
+ * @param accepted events that passed validation
+ * @param published accepted events acknowledged by Kafka
+ * @param failed accepted events that could not be published; the request may be retried
+ * @param duplicates accepted events already published under the same ID, acknowledged as is
+ * @param rejected events that failed validation, with the reason and dead letter position
+ */
+public record ProduceResponse(
+    int received,
+    int accepted,
+    int published,
+    int failed,
+    int duplicates,
+    List<BatchResult.Rejected> rejected) {
+
+  /**
+   * Creates the response for a completed batch.
+   *
+   * @param result the batch outcome
+   * @return the response body
+   */
+  public static ProduceResponse from(BatchResult result) {
+    return new ProduceResponse(
+        result.received(),
+        result.accepted(),
+        result.published(),
+        result.failed(),
+        result.duplicates(),
+        result.rejected());
+  }
+
+  /**
+   * Creates the HTTP response for a completed batch: 503 if any valid event failed to publish,
+   * 400 if no event passed validation, 200 otherwise.
+   *
+   * @param result the batch outcome
+   * @return the response entity
+   */
+  public static ResponseEntity<ProduceResponse> toEntity(BatchResult result) {
+    HttpStatus status;
+    if (result.failed() > 0) {
+      status = HttpStatus.SERVICE_UNAVAILABLE;
+    } else if (result.accepted() == 0 && !result.rejected().isEmpty()) {
+      status = HttpStatus.BAD_REQUEST;
+    } else {
+      status = HttpStatus.OK;
+    }
+    return ResponseEntity.status(status).body(from(result));
+  }
+}
@@ -0,0 +1,40 @@
+package io.analytics.platform.ingestion.web;
+
+import io.analytics.platform.ingestion.pipeline.IngestionPipeline;
+import java.io.InputStream;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Accepts newline-delimited JSON events of any size and publishes them in rolling batches.
+ *
+ * <p>The body is consumed incrementally from the request stream, so a multi-hundred-megabyte
+ * upload is never buffered; reading pauses, and TCP flow control slows the client down, while the
+ * producer catches up. The response is a summary written after the last batch is acknowledged.
+ * Status codes follow {@code POST /produce}, except that one bad line never fails the stream and
+ * 413 does not apply; a 429 can arrive after part of the stream was published.
+ *
+ * <p>Served in both execution modes: the handler blocks on the request stream, which holds a
+ * pool thread in {@code platform} mode and only a virtual thread in {@code virtual} mode.
+ */
+@RestController
+@RequestMapping("/produce")
+public class StreamController {
+
+  private final IngestionPipeline pipeline;
+
+  public StreamController(IngestionPipeline pipeline) {
+    this.pipeline = pipeline;
+  }
+
+  @PostMapping(
+      path = "/stream",
+      consumes = MediaType.APPLICATION_NDJSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<StreamResponse> stream(InputStream body) throws InterruptedException {
+    return StreamResponse.toEntity(pipeline.stream(body));
+  }
+}
@@ -0,0 +1,64 @@
+package io.analytics.platform.ingestion.web;
+
+import io.analytics.platform.ingestion.pipeline.StreamResult;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Body of a {@code POST /produce/stream} response.
+ *
+ * @param received number of non-blank lines in the stream
+ * @param accepted events that passed validation
+ * @param published accepted events acknowledged by Kafka
+ * @param failed accepted events that could not be published; the stream may be resent
+ * @param duplicates accepted events already published under the same ID, acknowledged as is
+ * @param rejected lines that were malformed or failed validation
+ * @param rejections the first rejected lines, with the reason and dead letter position
+ */
+public record StreamResponse(
+    long received,
+    long accepted,
+    long published,
+    long failed,
+    long duplicates,
+    long rejected,
+    List<StreamResult.Rejected> rejections) {
+
+  /**
+   * Creates the response for a completed stream.
+   *
+   * @param result the stream outcome
+   * @return the response body
+   */
+  public static StreamResponse from(StreamResult result) {
+    return new StreamResponse(
+        result.received(),
+        result.accepted(),
+        result.published(),
+        result.failed(),
+        result.duplicates(),
+        result.rejected(),
+        result.rejections());
+  }
+
+  /**
+   * Creates the HTTP response for a completed stream, with the status rules of {@code POST
+   * /produce}: 503 if any valid event failed to publish, 400 if no line was a valid event, 200
+   * otherwise.
+   *
+   * @param result the stream outcome
+   * @return the response entity
+   */
+  public static ResponseEntity<StreamResponse> toEntity(StreamResult result) {
+    HttpStatus status;
+    if (result.failed() > 0) {
+      status = HttpStatus.SERVICE_UNAVAILABLE;
+    } else if (result.accepted() == 0 && result.rejected() > 0) {
+      status = HttpStatus.BAD_REQUEST;
+    } else {
+      status = HttpStatus.OK;
+    }
+    return ResponseEntity.status(status).body(from(result));
+  }
+}
@@ -0,0 +1,64 @@
+package io.analytics.platform.ingestion.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link PinningDiagnostics} class. */
+class PinningDiagnosticsTest {
+
+  private final Object lock = new Object();
+
+  /**
+   * Tests that a virtual thread parking inside a synchronized block is reported, and that the
+   * probe runs on a virtual thread at startup.
+   */
+  @Test
+  void pinnedWait_isReported() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    CountDownLatch probed = new CountDownLatch(1);
+    Runnable probe =
+        () -> {
+          if (Thread.currentThread().isVirtual()) {
+            probed.countDown();
+          }
+        };
+
+    try (PinningDiagnostics diagnostics =
+        new PinningDiagnostics(registry, Duration.ofMillis(5), probe)) {
+      diagnostics.start();
+      assertTrue(probed.await(5, TimeUnit.SECONDS));
+
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+      while (diagnostics.pinnedCount() == 0 && System.nanoTime() < deadline) {
+        Thread.ofVirtual().start(this::sleepWhileHoldingMonitor).join();
+        Thread.sleep(200);
+      }
+
+      assertTrue(diagnostics.pinnedCount() > 0);
+      assertEquals(
+          (double) diagnostics.pinnedCount(),
+          registry.get("ingestion.virtual.pinned").counter().count());
+    }
+  }
+
+  /** Tests the stack trace rendering of an event without a stack trace. */
+  @Test
+  void describe_handlesMissingStackTrace() {
+    assertEquals("<no stack trace>", PinningDiagnostics.describe(null));
+  }
+
+  private void sleepWhileHoldingMonitor() {
+    synchronized (lock) {
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
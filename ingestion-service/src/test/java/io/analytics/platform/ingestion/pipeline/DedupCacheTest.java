@@ -0,0 +1,169 @@
+package io.analytics.platform.ingestion.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link DedupCache} class. */
+class DedupCacheTest {
+
+  private final MutableClock clock = new MutableClock();
+
+  /** Tests that a recorded ID is found until the window elapses. */
+  @Test
+  void recordedId_expiresAfterWindow() {
+    DedupCache cache = new DedupCache(Duration.ofSeconds(10), 100, 0.01, clock);
+
+    assertFalse(cache.contains("e-1"));
+    cache.record("e-1");
+    assertTrue(cache.contains("e-1"));
+
+    clock.advance(Duration.ofSeconds(9));
+    assertTrue(cache.contains("e-1"));
+    clock.advance(Duration.ofSeconds(1));
+    assertFalse(cache.contains("e-1"));
+    assertEquals(0, cache.size());
+  }
+
+  /** Tests that the oldest IDs are evicted once the cache is full. */
+  @Test
+  void fullCache_evictsOldestFirst() {
+    DedupCache cache = new DedupCache(Duration.ofMinutes(1), 3, 0, clock);
+
+    for (int i = 0; i < 5; i++) {
+      cache.record("e-" + i);
+      clock.advance(Duration.ofMillis(1));
+    }
+
+    assertEquals(3, cache.size());
+    assertFalse(cache.contains("e-0"));
+    assertFalse(cache.contains("e-1"));
+    assertTrue(cache.contains("e-4"));
+  }
+
+  /** Tests that expired entries are evicted by later records and the footprint follows. */
+  @Test
+  void record_evictsExpiredEntries() {
+    DedupCache cache = new DedupCache(Duration.ofSeconds(1), 1000, 0, clock);
+    cache.record("a");
+    cache.record("b");
+    long footprint = cache.memoryBytes();
+    assertTrue(footprint > 0);
+
+    clock.advance(Duration.ofSeconds(2));
+    cache.record("c");
+
+    assertEquals(1, cache.size());
+    assertTrue(cache.memoryBytes() < footprint);
+  }
+
+  /** Tests that the Bloom prefilter never hides a recorded ID. */
+  @Test
+  void bloomPrefilter_hasNoFalseNegatives() {
+    DedupCache cache = new DedupCache(Duration.ofSeconds(10), 10_000, 0.01, clock);
+    for (int i = 0; i < 5_000; i++) {
+      cache.record("id-" + i);
+    }
+
+    for (int i = 0; i < 5_000; i++) {
+      assertTrue(cache.contains("id-" + i), "id-" + i);
+    }
+  }
+
+  /** Tests the false positive rate of the prefilter and that it forgets after two windows. */
+  @Test
+  void rotatingBloomFilter_forgetsAfterTwoWindows() {
+    RotatingBloomFilter filter = new RotatingBloomFilter(10_000, 0.01, 10_000, clock);
+    for (int i = 0; i < 10_000; i++) {
+      filter.add("known-" + i);
+    }
+    int falsePositives = 0;
+    for (int i = 0; i < 10_000; i++) {
+      if (filter.mightContain("unknown-" + i)) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+
+    clock.advance(Duration.ofSeconds(15));
+    assertTrue(filter.mightContain("known-1"));
+    clock.advance(Duration.ofSeconds(10));
+    assertFalse(filter.mightContain("known-1"));
+  }
+
+  /**
+   * Tests that IDs sharing their {@link String#hashCode()} and length do not share probes: strings
+   * made of "Aa" and "BB" blocks all have the same 32-bit hash.
+   */
+  @Test
+  void rotatingBloomFilter_separatesStringHashCodeCollisions() {
+    RotatingBloomFilter filter = new RotatingBloomFilter(10_000, 0.01, 10_000, clock);
+    filter.add("Aa".repeat(10));
+    int falsePositives = 0;
+    for (int n = 1; n < 1 << 10; n++) {
+      StringBuilder id = new StringBuilder();
+      for (int block = 0; block < 10; block++) {
+        id.append((n & (1 << block)) != 0 ? "BB" : "Aa");
+      }
+      assertEquals("Aa".repeat(10).hashCode(), id.toString().hashCode());
+      if (filter.mightContain(id.toString())) {
+        falsePositives++;
+      }
+    }
+    assertTrue(filter.mightContain("Aa".repeat(10)));
+    assertTrue(falsePositives < 5, "false positives: " + falsePositives);
+  }
+
+  /** Tests the 128-bit MurmurHash3 of the filter against reference values. */
+  @Test
+  void rotatingBloomFilter_hashesWithMurmur3() {
+    assertEquals(new RotatingBloomFilter.Hash(0, 0), RotatingBloomFilter.hash(""));
+    assertEquals(
+        new RotatingBloomFilter.Hash(0x629942693e10f867L, 0x92db0b82baeb5347L),
+        RotatingBloomFilter.hash("hell"));
+    assertEquals(
+        new RotatingBloomFilter.Hash(0xe34bbc7bbc071b6cL, 0x7a433ca9c49a9347L),
+        RotatingBloomFilter.hash("The quick brown fox jumps over the lazy dog"));
+  }
+
+  /** Tests that the disabled cache remembers nothing. */
+  @Test
+  void disabledCache_remembersNothing() {
+    DedupCache cache = DedupCache.disabled();
+    cache.record("e-1");
+
+    assertFalse(cache.isEnabled());
+    assertFalse(cache.contains("e-1"));
+    assertEquals(0, cache.memoryBytes());
+  }
+
+  /** A clock moved forward by the test. */
+  private static final class MutableClock extends Clock {
+
+    private Instant now = Instant.parse("2025-09-12T12:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
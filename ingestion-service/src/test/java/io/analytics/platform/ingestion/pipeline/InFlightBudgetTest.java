@@ -0,0 +1,64 @@
+package io.analytics.platform.ingestion.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link InFlightBudget} class. */
+class InFlightBudgetTest {
+
+  /** Tests that reservations are granted up to the capacity and refused beyond it. */
+  @Test
+  void tryAcquire_respectsCapacity() {
+    InFlightBudget budget = new InFlightBudget(100);
+
+    assertTrue(budget.tryAcquire(60, 2));
+    assertFalse(budget.tryAcquire(41, 1));
+    assertTrue(budget.tryAcquire(40, 1));
+    assertTrue(budget.isExhausted());
+    assertEquals(100, budget.bytes());
+    assertEquals(3, budget.records());
+  }
+
+  /** Tests that an oversized reservation is granted only while nothing is in flight. */
+  @Test
+  void oversizedReservation_requiresIdleBudget() {
+    InFlightBudget budget = new InFlightBudget(100);
+
+    assertTrue(budget.tryAcquire(500, 1));
+    assertFalse(budget.tryAcquire(1, 1));
+
+    budget.release(500);
+    assertEquals(0, budget.bytes());
+    assertEquals(0, budget.records());
+    assertTrue(budget.tryAcquire(1, 1));
+  }
+
+  /** Tests that a timed reservation waits for a release and gives up at the deadline. */
+  @Test
+  void timedReservation_waitsForRelease() throws InterruptedException {
+    InFlightBudget budget = new InFlightBudget(100);
+    assertTrue(budget.tryAcquire(100, 1));
+
+    assertFalse(budget.tryAcquire(50, 1, Duration.ofMillis(20)));
+
+    Thread releaser =
+        Thread.ofVirtual()
+            .start(
+                () -> {
+                  LockSupport.parkNanos(Duration.ofMillis(20).toNanos());
+                  budget.release(100);
+                });
+    assertTrue(budget.tryAcquire(50, 1, Duration.ofSeconds(5)));
+    releaser.join();
+    assertEquals(50, budget.bytes());
+  }
+
+  /** Tests that a non-positive capacity is rejected. */
+  @Test
+  void constructor_rejectsNonPositiveCapacity() {
+    assertThrows(IllegalArgumentException.class, () -> new InFlightBudget(0));
+  }
+}
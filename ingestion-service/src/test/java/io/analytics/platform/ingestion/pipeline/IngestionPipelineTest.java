@@ -0,0 +1,507 @@
+package io.analytics.platform.ingestion.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.dto.RawEvent;
+import io.analytics.platform.common.exception.DecodingException;
+import io.analytics.platform.common.kafka.DlqHeaders;
+import io.analytics.platform.common.util.BinaryEventCodec;
+import io.analytics.platform.common.util.JsonCodec;
+import io.analytics.platform.common.util.WireFormat;
+import io.analytics.platform.ingestion.config.ExecutionMode;
+import io.analytics.platform.ingestion.config.IngestionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Unit tests for {@link IngestionPipeline} class.
+ *
+ * <p>Uses a recording {@link KafkaTemplate} whose sends are completed by the test, so that
+ * acknowledgement ordering, dead-lettering and backpressure can be checked without a broker.
+ */
+class IngestionPipelineTest {
+
+  private static final Instant NOW = Instant.parse("2025-09-12T12:00:00Z");
+  private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final RecordingTemplate template = new RecordingTemplate();
+  private DedupCache dedup = DedupCache.disabled();
+
+  /**
+   * Tests that valid events are published once, keyed by ID with a content-type header, and that
+   * the batch completes only after the last acknowledgement.
+   */
+  @Test
+  void validBatch_isPublishedAndCompletesAfterAcks() {
+    IngestionPipeline pipeline = pipeline(WireFormat.JSON, DataSize.ofMegabytes(1));
+    RawEvent first = new RawEvent("e-1", NOW, 1.0, Map.of("host", "a"));
+    RawEvent second = new RawEvent("e-2", NOW, 2.0, Map.of());
+
+    CompletableFuture<BatchResult> result = pipeline.submit(List.of(first, second));
+
+    assertEquals(2, template.sent.size());
+    ProducerRecord<String, byte[]> record = template.sent.get(0);
+    assertEquals("raw", record.topic());
+    assertEquals("e-1", record.key());
+    assertEquals(first, JsonCodec.RAW_EVENT.decode(record.value()));
+    assertArrayEquals(
+        WireFormat.JSON.contentTypeBytes(),
+        record.headers().lastHeader(WireFormat.CONTENT_TYPE_HEADER).value());
+
+    template.ack(0);
+    assertFalse(result.isDone());
+    template.ack(1);
+
+    BatchResult batch = result.join();
+    assertEquals(2, batch.received());
+    assertEquals(2, batch.published());
+    assertEquals(0, batch.failed());
+    assertTrue(batch.rejected().isEmpty());
+    assertEquals(2.0, events("published"));
+    assertEquals(2, stage("publish"));
+  }
+
+  /**
+   * Tests that invalid and null events are dead-lettered with explanatory headers, and that the
+   * result reports their index, reason and dead letter offset.
+   */
+  @Test
+  void invalidEvents_areDeadLettered() {
+    IngestionPipeline pipeline = pipeline(WireFormat.JSON, DataSize.ofMegabytes(1));
+    List<RawEvent> events =
+        Arrays.asList(
+            new RawEvent("ok", NOW, 1.0, Map.of()),
+            new RawEvent(" ", NOW, 1.0, Map.of()),
+            null,
+            new RawEvent("late", NOW.plusSeconds(60), 1.0, Map.of()));
+
+    CompletableFuture<BatchResult> result = pipeline.submit(events);
+
+    assertEquals(4, template.sent.size());
+    ProducerRecord<String, byte[]> dlq = template.sent.get(1);
+    assertEquals("dlq", dlq.topic());
+    assertEquals(" ", dlq.key());
+    assertEquals("RAW_ID_BLANK", header(dlq, DlqHeaders.ERROR_CODE));
+    assertEquals("Event ID cannot be blank", header(dlq, DlqHeaders.REASON));
+    assertEquals("raw", header(dlq, DlqHeaders.ORIGIN_TOPIC));
+    assertEquals("ingestion-service", header(dlq, DlqHeaders.SERVICE));
+    assertNull(dlq.headers().lastHeader(DlqHeaders.LINE));
+    assertEquals("null", new String(template.sent.get(2).value(), StandardCharsets.UTF_8));
+
+    for (int i = 0; i < template.sent.size(); i++) {
+      template.ack(i);
+    }
+
+    BatchResult batch = result.join();
+    assertEquals(1, batch.accepted());
+    assertEquals(3, batch.rejected().size());
+    BatchResult.Rejected rejected = batch.rejected().get(2);
+    assertEquals(3, rejected.index());
+    assertEquals("late", rejected.id());
+    assertEquals("Event timestamp cannot be in the future", rejected.reason());
+    assertEquals(0, rejected.dlqPartition());
+    assertEquals(3L, rejected.dlqOffset());
+  }
+
+  /**
+   * Tests that a batch which does not fit the in-flight budget is refused before anything is sent,
+   * and that acknowledgements give the budget back.
+   */
+  @Test
+  void exhaustedBudget_throwsBackpressureUntilAcked() {
+    InFlightBudget budget = new InFlightBudget(16);
+    IngestionPipeline pipeline = pipeline(WireFormat.JSON, budget);
+    List<RawEvent> batch = List.of(new RawEvent("e-1", NOW, 1.0, Map.of()));
+
+    // An oversized batch is still granted when nothing else is in flight
+    pipeline.submit(batch);
+    assertTrue(budget.bytes() > 16);
+
+    BackpressureException e =
+        assertThrows(BackpressureException.class, () -> pipeline.submit(batch));
+    assertEquals(Duration.ofSeconds(2), e.retryAfter());
+    assertEquals(1, template.sent.size());
+    assertEquals(1.0, events("throttled"));
+
+    template.ack(0);
+    assertEquals(0, budget.bytes());
+    assertEquals(0, budget.records());
+    pipeline.submit(batch);
+    assertEquals(2, template.sent.size());
+  }
+
+  /** Tests that a request over the batch size limit is refused. */
+  @Test
+  void oversizedBatch_isRefused() {
+    IngestionPipeline pipeline = pipeline(WireFormat.JSON, DataSize.ofMegabytes(1));
+    List<RawEvent> events = new ArrayList<>();
+    for (int i = 0; i < 101; i++) {
+      events.add(new RawEvent("e-" + i, NOW, 1.0, Map.of()));
+    }
+
+    assertThrows(BatchTooLargeException.class, () -> pipeline.submit(events));
+    assertTrue(template.sent.isEmpty());
+  }
+
+  /** Tests that delivery failures are reported as failed, not published. */
+  @Test
+  void sendFailure_isReportedAsFailed() {
+    IngestionPipeline pipeline = pipeline(WireFormat.JSON, DataSize.ofMegabytes(1));
+
+    CompletableFuture<BatchResult> result =
+        pipeline.submit(List.of(new RawEvent("e-1", NOW, 1.0, Map.of())));
+    template.futures.get(0).completeExceptionally(new SerializationException("broker down"));
+
+    BatchResult batch = result.join();
+    assertEquals(0, batch.published());
+    assertEquals(1, batch.failed());
+    assertEquals(1.0, events("failed"));
+  }
+
+  /** Tests that events without an ID get one, so that every record has a partition key. */
+  @Test
+  void missingId_isGenerated() {
+    IngestionPipeline pipeline = pipeline(WireFormat.JSON, DataSize.ofMegabytes(1));
+
+    pipeline.submit(List.of(new RawEvent(null, NOW, 1.0, Map.of())));
+
+    String key = template.sent.get(0).key();
+    assertNotNull(key);
+    assertEquals(key, JsonCodec.RAW_EVENT.decode(template.sent.get(0).value()).id());
+  }
+
+  /** Tests that the binary wire format is used for published events when configured. */
+  @Test
+  void binaryWireFormat_isApplied() {
+    IngestionPipeline pipeline = pipeline(WireFormat.BINARY, DataSize.ofMegabytes(1));
+    RawEvent event = new RawEvent("e-1", NOW, 1.0, Map.of("host", "a"));
+
+    pipeline.submit(List.of(event));
+
+    ProducerRecord<String, byte[]> record = template.sent.get(0);
+    assertEquals(event, BinaryEventCodec.RAW_EVENT.decode(record.value()));
+    assertArrayEquals(
+        WireFormat.BINARY.contentTypeBytes(),
+        record.headers().lastHeader(WireFormat.CONTENT_TYPE_HEADER).value());
+  }
+
+  /**
+   * Tests that the blocking variant fans sends out to virtual threads and returns once every
+   * record is acknowledged.
+   */
+  @Test
+  void submitAndWait_fansOutToVirtualThreads() throws InterruptedException {
+    IngestionPipeline pipeline =
+        pipeline(WireFormat.JSON, new InFlightBudget(DataSize.ofMegabytes(1).toBytes()), 2);
+    template.autoAck = true;
+    List<RawEvent> events = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      events.add(new RawEvent("e-" + i, NOW, (double) i, Map.of()));
+    }
+    events.add(new RawEvent(" ", NOW, 1.0, Map.of()));
+
+    BatchResult batch = pipeline.submitAndWait(events);
+
+    assertEquals(8, batch.received());
+    assertEquals(7, batch.published());
+    assertEquals(1, batch.rejected().size());
+    assertEquals(8, template.sent.size());
+    assertTrue(template.senders.stream().allMatch(Thread::isVirtual));
+    assertTrue(template.senders.size() > 1);
+  }
+
+  /** Tests that a batch within one slice is sent from the calling thread. */
+  @Test
+  void submitAndWait_sendsSmallBatchInline() throws InterruptedException {
+    IngestionPipeline pipeline = pipeline(WireFormat.JSON, DataSize.ofMegabytes(1));
+    template.autoAck = true;
+
+    BatchResult batch = pipeline.submitAndWait(List.of(new RawEvent("e-1", NOW, 1.0, Map.of())));
+
+    assertEquals(1, batch.published());
+    assertEquals(Set.of(Thread.currentThread()), template.senders);
+  }
+
+  /**
+   * Tests that a stream is published in rolling batches and that malformed and invalid lines are
+   * dead lettered and reported by line number without failing the stream.
+   */
+  @Test
+  void stream_publishesRollingBatchesAndReportsRejectedLines() throws InterruptedException {
+    IngestionPipeline pipeline = pipeline(WireFormat.JSON, DataSize.ofMegabytes(1));
+    template.autoAck = true;
+    StringBuilder body = new StringBuilder();
+    for (int i = 1; i <= 7; i++) {
+      body.append(ndjson("e-" + i)).append('\n');
+      if (i == 2) {
+        body.append("{\"id\":\n");
+      }
+      if (i == 5) {
+        body.append(ndjson(" ")).append("\n\n");
+      }
+    }
+
+    StreamResult result = pipeline.stream(stream(body.toString()));
+
+    assertEquals(9, result.received());
+    assertEquals(7, result.published());
+    assertEquals(2, result.rejected());
+    assertEquals(0, result.failed());
+    StreamResult.Rejected malformed = result.rejections().get(0);
+    assertEquals(3, malformed.line());
+    assertTrue(malformed.reason().startsWith("Invalid JSON on line 3"), malformed.reason());
+    ProducerRecord<String, byte[]> malformedDlq = template.sent.get((int) malformed.dlqOffset());
+    assertEquals("dlq", malformedDlq.topic());
+    assertNull(malformedDlq.key());
+    assertEquals("{\"id\":", new String(malformedDlq.value(), StandardCharsets.UTF_8));
+    assertEquals(IngestionPipeline.MALFORMED_LINE, header(malformedDlq, DlqHeaders.ERROR_CODE));
+    assertEquals(malformed.reason(), header(malformedDlq, DlqHeaders.REASON));
+    assertEquals("3", header(malformedDlq, DlqHeaders.LINE));
+    StreamResult.Rejected invalid = result.rejections().get(1);
+    assertEquals(7, invalid.line());
+    assertEquals("Event ID cannot be blank", invalid.reason());
+    ProducerRecord<String, byte[]> invalidDlq = template.sent.get((int) invalid.dlqOffset());
+    assertEquals("dlq", invalidDlq.topic());
+    assertEquals("RAW_ID_BLANK", header(invalidDlq, DlqHeaders.ERROR_CODE));
+    assertEquals("7", header(invalidDlq, DlqHeaders.LINE));
+    assertEquals(9, template.sent.size());
+    assertEquals(9, stage("parse"));
+    assertEquals(7.0, events("published"));
+    assertEquals(2.0, events("rejected"));
+  }
+
+  /** Tests that reading pauses once the stream's pending batches are unacknowledged. */
+  @Test
+  void stream_pausesOnPendingBatches() throws Exception {
+    IngestionPipeline pipeline = pipeline(WireFormat.JSON, DataSize.ofMegabytes(1));
+    StringBuilder body = new StringBuilder();
+    for (int i = 0; i < 10; i++) {
+      body.append(ndjson("e-" + i)).append('\n');
+    }
+    CompletableFuture<StreamResult> result = new CompletableFuture<>();
+    Thread reader =
+        Thread.ofVirtual()
+            .start(
+                () -> {
+                  try {
+                    result.complete(pipeline.stream(stream(body.toString())));
+                  } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                  }
+                });
+
+    // Two pending batches of three events each, then the stream waits for the first one
+    awaitSent(6);
+    Thread.sleep(50);
+    assertEquals(6, template.sent.size());
+
+    template.ack(0);
+    template.ack(1);
+    template.ack(2);
+    awaitSent(9);
+    template.autoAck = true;
+    for (int i = 3; i < 9; i++) {
+      template.ack(i);
+    }
+    reader.join(5000);
+
+    assertEquals(10, result.join().published());
+    assertEquals(10, template.sent.size());
+  }
+
+  /**
+   * Tests that an event whose ID was already acknowledged, or repeats within the batch, is
+   * acknowledged as a duplicate without being published again.
+   */
+  @Test
+  void duplicateIds_areNotPublishedAgain() {
+    dedup = new DedupCache(Duration.ofMinutes(1), 100, 0.01, CLOCK);
+    IngestionPipeline pipeline = pipeline(WireFormat.JSON, DataSize.ofMegabytes(1));
+    template.autoAck = true;
+    RawEvent first = new RawEvent("e-1", NOW, 1.0, Map.of());
+
+    assertEquals(1, pipeline.submit(List.of(first)).join().published());
+    BatchResult retry =
+        pipeline
+            .submit(List.of(first, new RawEvent("e-2", NOW, 2.0, Map.of()), first))
+            .join();
+
+    assertEquals(3, retry.received());
+    assertEquals(1, retry.published());
+    assertEquals(2, retry.duplicates());
+    assertEquals(3, retry.accepted());
+    assertEquals(2, template.sent.size());
+    assertEquals(2.0, events("duplicate"));
+    assertEquals(
+        1.0, registry.get("ingestion.dedup.lookups").tag("result", "hit").counter().count());
+    assertEquals(2.0, registry.get("ingestion.dedup.entries").gauge().value());
+  }
+
+  /** Tests that an ID whose publish failed is not remembered, so a retry is published. */
+  @Test
+  void failedPublish_isNotRemembered() {
+    dedup = new DedupCache(Duration.ofMinutes(1), 100, 0, CLOCK);
+    IngestionPipeline pipeline = pipeline(WireFormat.JSON, DataSize.ofMegabytes(1));
+    RawEvent event = new RawEvent("e-1", NOW, 1.0, Map.of());
+
+    CompletableFuture<BatchResult> first = pipeline.submit(List.of(event));
+    template.futures.get(0).completeExceptionally(new SerializationException("down"));
+    assertEquals(1, first.join().failed());
+    template.autoAck = true;
+
+    assertEquals(1, pipeline.submit(List.of(event)).join().published());
+    assertEquals(2, template.sent.size());
+  }
+
+  /** Tests that an empty batch completes immediately. */
+  @Test
+  void emptyBatch_completesImmediately() {
+    IngestionPipeline pipeline = pipeline(WireFormat.JSON, DataSize.ofMegabytes(1));
+
+    BatchResult batch = pipeline.submit(List.of()).join();
+
+    assertEquals(0, batch.received());
+    assertTrue(template.sent.isEmpty());
+  }
+
+  /** Tests decoding of single events, arrays, and empty bodies. */
+  @Test
+  void parse_acceptsSingleEventOrArray() {
+    IngestionPipeline pipeline = pipeline(WireFormat.JSON, DataSize.ofMegabytes(1));
+    String single = "{\"id\":\"a\",\"ts\":\"2025-09-12T12:00:00Z\",\"value\":1.5,\"tags\":{}}";
+
+    assertEquals(1, pipeline.parse(bytes(single)).size());
+    assertEquals(2, pipeline.parse(bytes("  [" + single + "," + single + "]")).size());
+    assertNull(pipeline.parse(bytes("null")).get(0));
+    assertThrows(DecodingException.class, () -> pipeline.parse(bytes(" \n")));
+    assertThrows(DecodingException.class, () -> pipeline.parse(bytes("{\"id\":")));
+    assertEquals(5, stage("parse"));
+  }
+
+  private IngestionPipeline pipeline(WireFormat format, DataSize maxInFlight) {
+    return pipeline(format, new InFlightBudget(maxInFlight.toBytes()));
+  }
+
+  private IngestionPipeline pipeline(WireFormat format, InFlightBudget budget) {
+    return pipeline(format, budget, 500);
+  }
+
+  private IngestionPipeline pipeline(WireFormat format, InFlightBudget budget, int fanOutSize) {
+    IngestionProperties properties =
+        new IngestionProperties(
+            "raw",
+            "dlq",
+            100,
+            DataSize.ofBytes(budget.capacity()),
+            Duration.ofSeconds(2),
+            format,
+            new IngestionProperties.Producer(
+                Duration.ofMillis(10),
+                DataSize.ofKilobytes(256),
+                "lz4",
+                DataSize.ofMegabytes(128),
+                "all",
+                Duration.ofSeconds(30),
+                Duration.ofSeconds(60),
+                Duration.ofSeconds(5)),
+            new IngestionProperties.Execution(
+                ExecutionMode.VIRTUAL, fanOutSize, Duration.ofMillis(20)),
+            new IngestionProperties.Stream(3, DataSize.ofKilobytes(1), 2, 10),
+            new IngestionProperties.Dedup(dedup.isEnabled(), Duration.ofMinutes(1), 100, 0.01));
+    return new IngestionPipeline(
+        template, properties, budget, new IngestionMetrics(registry, budget, dedup), dedup, CLOCK);
+  }
+
+  private void awaitSent(int count) throws InterruptedException {
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (template.sent.size() < count && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    assertEquals(count, template.sent.size());
+  }
+
+  private static String ndjson(String id) {
+    return new String(
+        JsonCodec.RAW_EVENT.encode(new RawEvent(id, NOW, 1.0, Map.of())), StandardCharsets.UTF_8);
+  }
+
+  private static InputStream stream(String body) {
+    return new ByteArrayInputStream(bytes(body));
+  }
+
+  private double events(String outcome) {
+    return registry.get("ingestion.events").tag("outcome", outcome).counter().count();
+  }
+
+  private long stage(String stage) {
+    return registry.get("ingestion.stage.duration").tag("stage", stage).timer().count();
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String header(ProducerRecord<String, byte[]> record, String key) {
+    return new String(record.headers().lastHeader(key).value(), StandardCharsets.UTF_8);
+  }
+
+  /** Records sends and leaves their completion to the test. */
+  private static final class RecordingTemplate extends KafkaTemplate<String, byte[]> {
+
+    final List<ProducerRecord<String, byte[]>> sent = new ArrayList<>();
+    final List<CompletableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>();
+    final Set<Thread> senders = ConcurrentHashMap.newKeySet();
+    volatile boolean autoAck;
+
+    RecordingTemplate() {
+      super(new DefaultKafkaProducerFactory<>(Map.of()));
+    }
+
+    @Override
+    public CompletableFuture<SendResult<String, byte[]>> send(
+        ProducerRecord<String, byte[]> record) {
+      CompletableFuture<SendResult<String, byte[]>> future = new CompletableFuture<>();
+      int index;
+      synchronized (this) {
+        index = sent.size();
+        sent.add(record);
+        futures.add(future);
+      }
+      senders.add(Thread.currentThread());
+      if (autoAck) {
+        ack(index);
+      }
+      return future;
+    }
+
+    synchronized void ack(int index) {
+      ProducerRecord<String, byte[]> record = sent.get(index);
+      RecordMetadata metadata =
+          new RecordMetadata(new TopicPartition(record.topic(), 0), index, 0, 0L, 0, 0);
+      futures.get(index).complete(new SendResult<>(record, metadata));
+    }
+  }
+}
@@ -0,0 +1,217 @@
+package io.analytics.platform.ingestion.web;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.exception.DecodingException;
+import io.analytics.platform.common.kafka.DlqHeaders;
+import io.analytics.platform.common.util.WireFormat;
+import io.analytics.platform.ingestion.config.ExecutionMode;
+import io.analytics.platform.ingestion.config.IngestionProperties;
+import io.analytics.platform.ingestion.pipeline.BackpressureException;
+import io.analytics.platform.ingestion.pipeline.BatchResult;
+import io.analytics.platform.ingestion.pipeline.BatchTooLargeException;
+import io.analytics.platform.ingestion.pipeline.DedupCache;
+import io.analytics.platform.ingestion.pipeline.InFlightBudget;
+import io.analytics.platform.ingestion.pipeline.IngestionMetrics;
+import io.analytics.platform.ingestion.pipeline.IngestionPipeline;
+import io.analytics.platform.ingestion.pipeline.StreamResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Unit tests for {@link ProduceResponse}, {@link StreamResponse} and {@link
+ * IngestionExceptionHandler} classes, which define the HTTP contract shared by {@link
+ * ProduceController}, {@link BlockingProduceController} and {@link StreamController}.
+ *
+ * <p>Verifies the mapping of batch and stream outcomes and pipeline exceptions to HTTP status
+ * codes, and the dead letters of a stream sent through {@link StreamController}.
+ */
+class ProduceControllerTest {
+
+  private static final BatchResult.Rejected REJECTED =
+      new BatchResult.Rejected(1, " ", "Event ID cannot be blank", 0, 7L);
+
+  /** Tests the status code for each kind of batch outcome. */
+  @Test
+  void toEntity_mapsOutcomeToStatus() {
+    assertEquals(
+        HttpStatus.OK,
+        ProduceResponse.toEntity(new BatchResult(2, 2, 0, 0, List.of())).getStatusCode());
+    assertEquals(HttpStatus.OK, status(new BatchResult(2, 1, 0, 0, List.of(REJECTED))));
+    assertEquals(HttpStatus.OK, status(new BatchResult(2, 0, 0, 2, List.of())));
+    assertEquals(HttpStatus.BAD_REQUEST, status(new BatchResult(1, 0, 0, 0, List.of(REJECTED))));
+    assertEquals(
+        HttpStatus.SERVICE_UNAVAILABLE,
+        ProduceResponse.toEntity(new BatchResult(2, 1, 1, 0, List.of())).getStatusCode());
+  }
+
+  /** Tests that the response body summarizes the batch. */
+  @Test
+  void toEntity_summarizesBatch() {
+    ProduceResponse body =
+        ProduceResponse.toEntity(new BatchResult(3, 2, 0, 0, List.of(REJECTED))).getBody();
+
+    assertNotNull(body);
+    assertEquals(3, body.received());
+    assertEquals(2, body.accepted());
+    assertEquals(2, body.published());
+    assertEquals(List.of(REJECTED), body.rejected());
+  }
+
+  /** Tests the status code and body of a stream summary. */
+  @Test
+  void streamToEntity_mapsOutcomeToStatus() {
+    StreamResult.Rejected line = new StreamResult.Rejected(4, null, "Invalid JSON", -1, -1L);
+
+    ResponseEntity<StreamResponse> partial =
+        StreamResponse.toEntity(new StreamResult(5, 4, 0, 0, 1, List.of(line)));
+    assertEquals(HttpStatus.OK, partial.getStatusCode());
+    assertNotNull(partial.getBody());
+    assertEquals(4, partial.getBody().accepted());
+    assertEquals(List.of(line), partial.getBody().rejections());
+    assertEquals(
+        HttpStatus.BAD_REQUEST,
+        StreamResponse.toEntity(new StreamResult(1, 0, 0, 0, 1, List.of(line))).getStatusCode());
+    assertEquals(
+        HttpStatus.SERVICE_UNAVAILABLE,
+        StreamResponse.toEntity(new StreamResult(5, 4, 1, 0, 0, List.of())).getStatusCode());
+  }
+
+  /**
+   * Tests that every rejected line of a stream, malformed or invalid, is dead lettered with its
+   * line number and reported with the position of its dead letter.
+   */
+  @Test
+  void stream_deadLettersRejectedLines() throws InterruptedException {
+    Instant now = Instant.parse("2025-09-12T12:00:00Z");
+    AckingTemplate template = new AckingTemplate();
+    StreamController controller = new StreamController(pipeline(template, now));
+    String event = "{\"id\":\"%s\",\"ts\":\"2025-09-12T12:00:00Z\",\"value\":1.0,\"tags\":{}}";
+    String body =
+        String.format(event, "e-1") + "\n{oops\n\n" + String.format(event, " ") + "\n";
+
+    ResponseEntity<StreamResponse> response =
+        controller.stream(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    StreamResponse summary = response.getBody();
+    assertNotNull(summary);
+    assertEquals(1, summary.published());
+    assertEquals(2, summary.rejected());
+    List<ProducerRecord<String, byte[]>> dlq =
+        template.sent.stream().filter(record -> record.topic().equals("dlq")).toList();
+    assertEquals(2, dlq.size());
+    for (StreamResult.Rejected line : summary.rejections()) {
+      ProducerRecord<String, byte[]> record = template.sent.get((int) line.dlqOffset());
+      assertEquals("dlq", record.topic());
+      assertEquals(Long.toString(line.line()), header(record, DlqHeaders.LINE));
+      assertEquals(line.reason(), header(record, DlqHeaders.REASON));
+    }
+    assertEquals(
+        List.of(2L, 4L), summary.rejections().stream().map(StreamResult.Rejected::line).toList());
+    assertEquals("{oops", new String(dlq.get(0).value(), StandardCharsets.UTF_8));
+    assertEquals(IngestionPipeline.MALFORMED_LINE, header(dlq.get(0), DlqHeaders.ERROR_CODE));
+    assertEquals("RAW_ID_BLANK", header(dlq.get(1), DlqHeaders.ERROR_CODE));
+  }
+
+  /** Tests that backpressure maps to 429 with a Retry-After header rounded up to seconds. */
+  @Test
+  void backpressure_mapsTo429WithRetryAfter() {
+    ResponseEntity<ProblemDetail> response =
+        new IngestionExceptionHandler()
+            .handleBackpressure(new BackpressureException(Duration.ofMillis(1500)));
+
+    assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+    assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+  }
+
+  /** Tests the status codes of the remaining pipeline exceptions. */
+  @Test
+  void clientErrors_mapToProblemDetails() {
+    IngestionExceptionHandler handler = new IngestionExceptionHandler();
+
+    assertEquals(413, handler.handleBatchTooLarge(new BatchTooLargeException(11, 10)).getStatus());
+    assertEquals(400, handler.handleDecoding(new DecodingException("bad")).getStatus());
+  }
+
+  private static HttpStatusCode status(BatchResult result) {
+    return ProduceResponse.toEntity(result).getStatusCode();
+  }
+
+  private static IngestionPipeline pipeline(KafkaTemplate<String, byte[]> template, Instant now) {
+    IngestionProperties properties =
+        new IngestionProperties(
+            "raw",
+            "dlq",
+            100,
+            DataSize.ofMegabytes(1),
+            Duration.ofSeconds(2),
+            WireFormat.JSON,
+            new IngestionProperties.Producer(
+                Duration.ofMillis(10),
+                DataSize.ofKilobytes(256),
+                "lz4",
+                DataSize.ofMegabytes(128),
+                "all",
+                Duration.ofSeconds(30),
+                Duration.ofSeconds(60),
+                Duration.ofSeconds(5)),
+            new IngestionProperties.Execution(ExecutionMode.VIRTUAL, 500, Duration.ofMillis(20)),
+            new IngestionProperties.Stream(3, DataSize.ofKilobytes(1), 2, 10),
+            new IngestionProperties.Dedup(false, Duration.ofMinutes(1), 100, 0.01));
+    InFlightBudget budget = new InFlightBudget(DataSize.ofMegabytes(1).toBytes());
+    DedupCache dedup = DedupCache.disabled();
+    return new IngestionPipeline(
+        template,
+        properties,
+        budget,
+        new IngestionMetrics(new SimpleMeterRegistry(), budget, dedup),
+        dedup,
+        Clock.fixed(now, ZoneOffset.UTC));
+  }
+
+  private static String header(ProducerRecord<String, byte[]> record, String key) {
+    return new String(record.headers().lastHeader(key).value(), StandardCharsets.UTF_8);
+  }
+
+  /** Acknowledges every send at once, at an offset equal to its position among all sends. */
+  private static final class AckingTemplate extends KafkaTemplate<String, byte[]> {
+
+    final List<ProducerRecord<String, byte[]>> sent = new ArrayList<>();
+
+    AckingTemplate() {
+      super(new DefaultKafkaProducerFactory<>(Map.of()));
+    }
+
+    @Override
+    public synchronized CompletableFuture<SendResult<String, byte[]>> send(
+        ProducerRecord<String, byte[]> record) {
+      RecordMetadata metadata =
+          new RecordMetadata(new TopicPartition(record.topic(), 0), sent.size(), 0, 0L, 0, 0);
+      sent.add(record);
+      return CompletableFuture.completedFuture(new SendResult<>(record, metadata));
+    }
+  }
+}
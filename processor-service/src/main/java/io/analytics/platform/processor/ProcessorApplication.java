@@ -0,0 +1,15 @@
+package io.analytics.platform.processor;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+/** Entry point of the processor service: turns raw events into processed events. */
+@SpringBootApplication
+@ConfigurationPropertiesScan
+public class ProcessorApplication {
+
+  public static void main(String[] args) {
+    SpringApplication.run(ProcessorApplication.class, args);
+  }
+}
@@ -0,0 +1,131 @@
+package io.analytics.platform.processor.config;
+
+import io.analytics.platform.processor.engine.ProcessingEngine;
+import io.analytics.platform.processor.pipeline.EventProcessor;
+import io.analytics.platform.processor.state.StateChangelog;
+import io.analytics.platform.processor.state.StateManager;
+import io.analytics.platform.processor.transform.TransformRegistry;
+import io.analytics.platform.processor.window.WindowAggregator;
+import io.analytics.platform.processor.window.WindowEmitter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Wires the processing engine, its consumer, the window aggregation and its persistent state, and
+ * the producer of processed events and window aggregates.
+ *
+ * <p>Both clients move {@code byte[]} values: events are decoded and encoded by the {@link
+ * EventProcessor}, once per record. Connection and group settings come from {@code
+ * spring.kafka.*}; auto-commit is always off because the engine commits completed offsets itself.
+ */
+@Configuration(proxyBeanMethods = false)
+public class ProcessorConfig {
+
+  @Bean
+  public Clock clock() {
+    return Clock.systemUTC();
+  }
+
+  @Bean
+  public ConsumerFactory<String, byte[]> processorConsumerFactory(
+      KafkaProperties kafkaProperties, ObjectProvider<SslBundles> sslBundles) {
+    Map<String, Object> config =
+        new HashMap<>(kafkaProperties.buildConsumerProperties(sslBundles.getIfAvailable()));
+    config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+    config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+    config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+    return new DefaultKafkaConsumerFactory<>(config);
+  }
+
+  @Bean
+  public KafkaTemplate<String, byte[]> processorKafkaTemplate(
+      KafkaProperties kafkaProperties, ObjectProvider<SslBundles> sslBundles) {
+    Map<String, Object> config =
+        new HashMap<>(kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable()));
+    config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+    config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+    config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+    config.put(ProducerConfig.ACKS_CONFIG, "all");
+    return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(config));
+  }
+
+  @Bean
+  public TransformRegistry transformRegistry(ProcessorProperties properties) {
+    return new TransformRegistry(properties.pipeline());
+  }
+
+  @Bean
+  public WindowAggregator windowAggregator(
+      ProcessorProperties properties, MeterRegistry registry, Clock clock) {
+    return new WindowAggregator(properties.aggregation(), registry, clock);
+  }
+
+  @Bean
+  public WindowEmitter windowEmitter(
+      WindowAggregator windowAggregator,
+      KafkaTemplate<String, byte[]> processorKafkaTemplate,
+      ProcessorProperties properties) {
+    return new WindowEmitter(windowAggregator, processorKafkaTemplate, properties.aggregation());
+  }
+
+  @Bean
+  public StateManager stateManager(
+      ProcessorProperties properties,
+      WindowAggregator windowAggregator,
+      ConsumerFactory<String, byte[]> processorConsumerFactory,
+      KafkaTemplate<String, byte[]> processorKafkaTemplate,
+      MeterRegistry registry) {
+    String topic = properties.state().changelogTopic();
+    StateChangelog changelog =
+        topic.isBlank()
+            ? null
+            : new StateChangelog(
+                processorKafkaTemplate, processorConsumerFactory::createConsumer, topic);
+    return new StateManager(properties, windowAggregator, changelog, registry);
+  }
+
+  @Bean
+  public EventProcessor eventProcessor(
+      KafkaTemplate<String, byte[]> processorKafkaTemplate,
+      ProcessorProperties properties,
+      TransformRegistry transformRegistry,
+      WindowAggregator windowAggregator,
+      StateManager stateManager) {
+    return new EventProcessor(
+        processorKafkaTemplate, properties, transformRegistry, windowAggregator, stateManager);
+  }
+
+  @Bean
+  public ProcessingEngine processingEngine(
+      ConsumerFactory<String, byte[]> processorConsumerFactory,
+      EventProcessor eventProcessor,
+      ProcessorProperties properties,
+      MeterRegistry registry,
+      Clock clock) {
+    return new ProcessingEngine(
+        processorConsumerFactory::createConsumer,
+        List.of(properties.inputTopic()),
+        eventProcessor,
+        properties.engine(),
+        registry,
+        clock);
+  }
+}
@@ -0,0 +1,177 @@
+package io.analytics.platform.processor.config;
+
+import io.analytics.platform.common.constants.TopicNames;
+import io.analytics.platform.common.util.WireFormat;
+import io.analytics.platform.processor.transform.StepDefinition;
+import io.analytics.platform.processor.window.WindowDefinition;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings of the processor service, bound from the {@code processor.*} namespace.
+ *
+ * @param inputTopic topic of raw events to process
+ * @param outputTopic topic receiving processed events
+ * @param dlqTopic topic receiving records that could not be processed
+ * @param source value of {@code ProcessedEvent.source} for events emitted by this service
+ * @param wireFormat encoding of events published to {@code outputTopic}
+ * @param sendTimeout time a batch waits for its output records to be acknowledged
+ * @param engine consumer engine tuning
+ * @param aggregation windowed aggregation of processed events, off unless windows are defined
+ * @param state persistence of the window state across restarts, off by default
+ * @param pipeline transformation steps applied to every event until reloaded, none by default
+ */
+@ConfigurationProperties(prefix = "processor")
+public record ProcessorProperties(
+    @DefaultValue(TopicNames.RAW_EVENTS) String inputTopic,
+    @DefaultValue(TopicNames.PROCESSED_EVENTS) String outputTopic,
+    @DefaultValue(TopicNames.DLQ) String dlqTopic,
+    @DefaultValue("processor-service") String source,
+    @DefaultValue("JSON") WireFormat wireFormat,
+    @DefaultValue("30s") Duration sendTimeout,
+    @DefaultValue Engine engine,
+    @DefaultValue Aggregation aggregation,
+    @DefaultValue State state,
+    List<StepDefinition> pipeline) {
+
+  /** Checks that a changelog has an instance ID to key it by, and defaults the pipeline. */
+  public ProcessorProperties {
+    if (state.enabled() && !state.changelogTopic().isBlank() && aggregation.instanceId() == null) {
+      // A random ID per start would key every start's entries anew, never tombstoning the old
+      throw new IllegalArgumentException(
+          "processor.state.changelog-topic requires processor.aggregation.instance-id");
+    }
+    pipeline = pipeline != null ? List.copyOf(pipeline) : List.of();
+  }
+
+  /**
+   * Tuning of the {@code ProcessingEngine}.
+   *
+   * <p>Records of one partition are spread over {@code lanes} worker threads by key, so per-key
+   * order is kept while a partition is processed in parallel. {@code maxInFlight} bounds the
+   * records polled but not yet processed; above it the consumer pauses fetching.
+   *
+   * @param lanes number of worker threads
+   * @param laneBatchSize maximum records handed to the processor in one call
+   * @param maxInFlight records polled and not yet processed before fetching pauses
+   * @param pollTimeout maximum time a poll waits for records
+   * @param commitInterval interval between asynchronous offset commits
+   * @param maxAttempts processing attempts of a batch before it is handed to recovery
+   * @param retryBackoff delay before the first retry; doubles with each further attempt
+   * @param shutdownTimeout time allowed to finish queued records on shutdown or revocation
+   */
+  public record Engine(
+      @DefaultValue("16") int lanes,
+      @DefaultValue("500") int laneBatchSize,
+      @DefaultValue("10000") int maxInFlight,
+      @DefaultValue("100ms") Duration pollTimeout,
+      @DefaultValue("1s") Duration commitInterval,
+      @DefaultValue("3") int maxAttempts,
+      @DefaultValue("200ms") Duration retryBackoff,
+      @DefaultValue("30s") Duration shutdownTimeout) {
+
+    /** Validates the settings. */
+    public Engine {
+      if (lanes <= 0 || laneBatchSize <= 0 || maxInFlight <= 0 || maxAttempts <= 0) {
+        throw new IllegalArgumentException(
+            "processor.engine lanes, lane-batch-size, max-in-flight and max-attempts must be"
+                + " positive");
+      }
+    }
+  }
+
+  /**
+   * Event-time windowed aggregation of processed events, see {@code WindowAggregator}.
+   *
+   * <p>The watermark trails the highest event timestamp seen by {@code watermarkDelay}; windows
+   * ending before it are published to {@code outputTopic} every {@code emitInterval}. When no
+   * event arrives for {@code idleTimeout} the watermark advances with the wall clock, so the last
+   * windows are published as well. At most {@code maxOpenWindows} windows are kept; events that
+   * would open more are dropped and counted.
+   *
+   * <p>Aggregates are partial per instance and merged by their consumers. Without an {@code
+   * instanceId} every start uses a new random one, which is what merging needs: the windows an
+   * instance held when it stopped are lost, and its successor must not replace what it emitted.
+   * With {@link State persisted state} the ID is kept with the windows instead, and restored with
+   * them.
+   *
+   * @param outputTopic topic receiving the window aggregates
+   * @param instanceId identifies this instance in emitted aggregates, random or restored by
+   *     default
+   * @param watermarkDelay out-of-orderness tolerated before a window is emitted
+   * @param idleTimeout time without events after which the watermark follows the wall clock
+   * @param emitInterval interval between checks for windows to emit
+   * @param maxOpenWindows bound on windows held in memory across all groups and definitions
+   * @param shards independently locked partitions of the window state
+   * @param windows the window definitions, none by default
+   */
+  public record Aggregation(
+      @DefaultValue(TopicNames.AGGREGATES) String outputTopic,
+      String instanceId,
+      @DefaultValue("5s") Duration watermarkDelay,
+      @DefaultValue("1m") Duration idleTimeout,
+      @DefaultValue("1s") Duration emitInterval,
+      @DefaultValue("2000000") int maxOpenWindows,
+      @DefaultValue("16") int shards,
+      List<WindowDefinition> windows) {
+
+    /** Validates the settings and defaults the windows. */
+    public Aggregation {
+      if (maxOpenWindows <= 0 || shards <= 0) {
+        throw new IllegalArgumentException(
+            "processor.aggregation max-open-windows and shards must be positive");
+      }
+      if (watermarkDelay.isNegative() || !idleTimeout.isPositive() || !emitInterval.isPositive()) {
+        throw new IllegalArgumentException(
+            "processor.aggregation watermark-delay must not be negative, idle-timeout and"
+                + " emit-interval must be positive");
+      }
+      if (instanceId != null && instanceId.isBlank()) {
+        instanceId = null;
+      }
+      windows = windows != null ? List.copyOf(windows) : List.of();
+    }
+  }
+
+  /**
+   * Persistence of the window state, see {@code StateManager}.
+   *
+   * <p>Before offsets are committed, the windows changed since the previous commit are appended to
+   * a memory-mapped log in {@code directory} and flushed, and also written to {@code
+   * changelogTopic}, a compacted topic. A restarted instance reopens its windows from the log in
+   * seconds instead of losing them; on a new host with an empty directory they are read back from
+   * the changelog. Changelog entries are keyed by instance, so a changelog requires a configured
+   * {@code processor.aggregation.instance-id}, the same on every start; there is none by default.
+   *
+   * @param enabled whether the window state is persisted and restored on start
+   * @param directory directory of the state log, one per instance
+   * @param chunkSize bytes of the log mapped at a time, which bounds the size of one window
+   * @param compactionThreshold log size below which the log is not compacted
+   * @param changelogTopic compacted topic the state is replicated to, blank for none
+   * @param restoreTimeout time allowed to read the changelog back on start
+   */
+  public record State(
+      @DefaultValue("false") boolean enabled,
+      @DefaultValue("data/processor-state") Path directory,
+      @DefaultValue("64MB") DataSize chunkSize,
+      @DefaultValue("64MB") DataSize compactionThreshold,
+      @DefaultValue("") String changelogTopic,
+      @DefaultValue("2m") Duration restoreTimeout) {
+
+    /** Validates the settings. */
+    public State {
+      if (chunkSize.toBytes() < 1024 || chunkSize.toBytes() > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException(
+            "processor.state chunk-size must be between 1KB and 2GB, got " + chunkSize);
+      }
+      if (!restoreTimeout.isPositive()) {
+        throw new IllegalArgumentException("processor.state restore-timeout must be positive");
+      }
+      changelogTopic = changelogTopic != null ? changelogTopic : "";
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package io.analytics.platform.processor.engine;
+
+import java.util.List;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Processes the records the {@link ProcessingEngine} hands to one lane.
+ *
+ * <p>A batch holds records of any partition, and records with the same key always appear in
+ * offset order and are never processed concurrently. Implementations are called from several lane
+ * threads at once and must be thread-safe.
+ */
+@FunctionalInterface
+public interface BatchProcessor {
+
+  /**
+   * Processes a batch. Returning normally marks every record of the batch as done; throwing
+   * makes the engine retry the whole batch.
+   *
+   * @param records the records, in lane order
+   * @throws Exception if the batch should be retried
+   */
+  void process(List<ConsumerRecord<String, byte[]>> records) throws Exception;
+
+  /**
+   * Disposes of a batch that failed every attempt, typically by writing it to a dead letter
+   * topic. Returning normally marks the records as done; throwing makes the engine start over
+   * with {@link #process}, holding back the lane until one of them succeeds.
+   *
+   * <p>The default implementation rethrows, so a batch is never skipped.
+   *
+   * @param records the records of the failed batch
+   * @param cause the exception of the last attempt
+   * @throws Exception if the batch could not be disposed of
+   */
+  default void recover(List<ConsumerRecord<String, byte[]>> records, Exception cause)
+      throws Exception {
+    throw cause;
+  }
+
+  /**
+   * Persists state the processor keeps across batches. The engine calls it from the polling thread
+   * before committing offsets, with every record below them processed, and skips the commit if
+   * it throws.
+   *
+   * <p>The default implementation does nothing.
+   *
+   * @throws Exception if the state could not be persisted
+   */
+  default void checkpoint() throws Exception {}
+}
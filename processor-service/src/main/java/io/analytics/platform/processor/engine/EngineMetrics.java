@@ -0,0 +1,109 @@
+package io.analytics.platform.processor.engine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instruments of the {@link ProcessingEngine}.
+ *
+ * <ul>
+ *   <li>{@code processor.records{outcome}}: processed, recovered and retried record counts
+ *   <li>{@code processor.batch.duration}: time spent in {@link BatchProcessor#process} per batch
+ *   <li>{@code processor.batch.size}: records per lane batch
+ *   <li>{@code processor.record.lag}: time from the record timestamp to the end of its processing
+ *   <li>{@code processor.inflight}: records polled and not yet processed
+ *   <li>{@code processor.commits}: offset commits sent to the broker
+ * </ul>
+ */
+public final class EngineMetrics {
+
+  private final Counter processed;
+  private final Counter recovered;
+  private final Counter retried;
+  private final Counter commits;
+  private final Timer batchDuration;
+  private final Timer recordLag;
+  private final DistributionSummary batchSize;
+
+  /**
+   * Registers the engine meters.
+   *
+   * @param registry the registry to publish to
+   * @param inFlight source of the in-flight record count
+   */
+  public EngineMetrics(MeterRegistry registry, Supplier<Number> inFlight) {
+    processed = outcome(registry, "processed");
+    recovered = outcome(registry, "recovered");
+    retried = outcome(registry, "retried");
+    commits =
+        Counter.builder("processor.commits")
+            .description("Offset commits sent to the broker")
+            .register(registry);
+    batchDuration =
+        Timer.builder("processor.batch.duration")
+            .description("Time spent processing one lane batch")
+            .publishPercentileHistogram()
+            .register(registry);
+    recordLag =
+        Timer.builder("processor.record.lag")
+            .description("Time from the record timestamp to the end of its processing")
+            .publishPercentileHistogram()
+            .register(registry);
+    batchSize =
+        DistributionSummary.builder("processor.batch.size")
+            .description("Records per lane batch")
+            .baseUnit("records")
+            .register(registry);
+    Gauge.builder("processor.inflight", inFlight)
+        .description("Records polled and not yet processed")
+        .register(registry);
+  }
+
+  private static Counter outcome(MeterRegistry registry, String outcome) {
+    return Counter.builder("processor.records")
+        .description("Records handled by the processing engine, by outcome")
+        .tag("outcome", outcome)
+        .register(registry);
+  }
+
+  /**
+   * Records a processed batch.
+   *
+   * @param size records in the batch
+   * @param nanos processing time in nanoseconds
+   */
+  public void processed(int size, long nanos) {
+    processed.increment(size);
+    batchSize.record(size);
+    batchDuration.record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /** Records a batch that was handed to recovery. */
+  public void recovered(int size) {
+    recovered.increment(size);
+  }
+
+  /** Records a batch that is about to be retried. */
+  public void retried(int size) {
+    retried.increment(size);
+  }
+
+  /**
+   * Records the lag of a processed record.
+   *
+   * @param millis time from the record timestamp to now
+   */
+  public void lag(long millis) {
+    recordLag.record(millis, TimeUnit.MILLISECONDS);
+  }
+
+  /** Records an offset commit. */
+  public void committed() {
+    commits.increment();
+  }
+}
@@ -0,0 +1,207 @@
+package io.analytics.platform.processor.engine;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * Tracks which dispatched offsets have completed, per partition, to tell how far each partition
+ * may be committed.
+ *
+ * <p>Records of a partition complete out of order once they are spread over several lanes. The
+ * committable position is the lowest offset still in progress, or the offset after the highest
+ * dispatched one when nothing is: committing further could skip a record that never completes if
+ * the consumer crashes, committing less only costs reprocessing.
+ *
+ * <p>Each partition keeps its in-progress offsets in a ring ordered by dispatch, which is offset
+ * order. Completion is a binary search plus a flag, and the head advances past every completed
+ * offset, so memory is proportional to the records in flight, not to the offset range.
+ *
+ * <p>{@link #dispatched} is called by the polling thread; {@link #completed} by any lane.
+ */
+public final class OffsetTracker {
+
+  private final Map<TopicPartition, PartitionOffsets> partitions = new ConcurrentHashMap<>();
+
+  /**
+   * Registers a record handed to a lane. Offsets of a partition must be dispatched in ascending
+   * order.
+   *
+   * @param partition the record's partition
+   * @param offset the record's offset
+   */
+  public void dispatched(TopicPartition partition, long offset) {
+    partitions.computeIfAbsent(partition, p -> new PartitionOffsets()).dispatched(offset);
+  }
+
+  /**
+   * Marks a dispatched record as done.
+   *
+   * @param partition the record's partition
+   * @param offset the record's offset
+   * @return false if the partition is no longer tracked or the offset was not dispatched
+   */
+  public boolean completed(TopicPartition partition, long offset) {
+    PartitionOffsets offsets = partitions.get(partition);
+    return offsets != null && offsets.completed(offset);
+  }
+
+  /**
+   * Returns whether records of a partition are still expected, i.e. it was not released.
+   *
+   * @param partition the partition
+   * @return true if the partition is tracked
+   */
+  public boolean isTracked(TopicPartition partition) {
+    return partitions.containsKey(partition);
+  }
+
+  /**
+   * Returns the number of dispatched, uncompleted records of a partition.
+   *
+   * @param partition the partition
+   * @return records in progress, 0 if the partition is not tracked
+   */
+  public int pending(TopicPartition partition) {
+    PartitionOffsets offsets = partitions.get(partition);
+    return offsets != null ? offsets.pending() : 0;
+  }
+
+  /**
+   * Returns the positions to commit for partitions that advanced past their last {@link
+   * #markCommitted committed} position. A position is returned again until it is marked.
+   *
+   * @return offsets to commit, empty if no partition advanced
+   */
+  public Map<TopicPartition, OffsetAndMetadata> committable() {
+    return committable(partitions.keySet());
+  }
+
+  /**
+   * Returns the positions to commit for the given partitions that advanced past their last {@link
+   * #markCommitted committed} position.
+   *
+   * @param subset the partitions to consider
+   * @return offsets to commit, empty if none of them advanced
+   */
+  public Map<TopicPartition, OffsetAndMetadata> committable(Collection<TopicPartition> subset) {
+    Map<TopicPartition, OffsetAndMetadata> result = new HashMap<>();
+    for (TopicPartition partition : subset) {
+      PartitionOffsets offsets = partitions.get(partition);
+      long position = offsets != null ? offsets.uncommitted() : -1;
+      if (position >= 0) {
+        result.put(partition, new OffsetAndMetadata(position));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Remembers positions as committed once the commit succeeded, so they are not returned by
+   * {@link #committable} again. Positions behind the last committed one, e.g. of an earlier commit
+   * acknowledged late, and partitions no longer tracked are ignored.
+   *
+   * @param committed the offsets that were committed
+   */
+  public void markCommitted(Map<TopicPartition, OffsetAndMetadata> committed) {
+    for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : committed.entrySet()) {
+      PartitionOffsets offsets = partitions.get(entry.getKey());
+      if (offsets != null) {
+        offsets.committed(entry.getValue().offset());
+      }
+    }
+  }
+
+  /**
+   * Stops tracking partitions, e.g. after they were revoked. Later completions for them are
+   * ignored.
+   *
+   * @param released the partitions
+   */
+  public void release(Collection<TopicPartition> released) {
+    for (TopicPartition partition : released) {
+      partitions.remove(partition);
+    }
+  }
+
+  /** In-progress offsets of one partition, in a growable ring. */
+  private static final class PartitionOffsets {
+
+    private long[] offsets = new long[64];
+    private boolean[] done = new boolean[64];
+    private int head;
+    private int size;
+    private int open;
+    private long next = -1;
+    private long committed = -1;
+
+    synchronized void dispatched(long offset) {
+      if (size == offsets.length) {
+        grow();
+      }
+      int slot = (head + size) & (offsets.length - 1);
+      offsets[slot] = offset;
+      done[slot] = false;
+      size++;
+      open++;
+      next = offset + 1;
+    }
+
+    synchronized boolean completed(long offset) {
+      int mask = offsets.length - 1;
+      int low = 0;
+      int high = size - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        long value = offsets[(head + mid) & mask];
+        if (value < offset) {
+          low = mid + 1;
+        } else if (value > offset) {
+          high = mid - 1;
+        } else {
+          int slot = (head + mid) & mask;
+          if (!done[slot]) {
+            done[slot] = true;
+            open--;
+          }
+          while (size > 0 && done[head]) {
+            head = (head + 1) & mask;
+            size--;
+          }
+          return true;
+        }
+      }
+      return false;
+    }
+
+    synchronized int pending() {
+      return open;
+    }
+
+    /** Returns the committable position, or -1 if it is not ahead of the committed one. */
+    synchronized long uncommitted() {
+      long position = size > 0 ? offsets[head] : next;
+      return position > committed ? position : -1;
+    }
+
+    synchronized void committed(long position) {
+      committed = Math.max(committed, position);
+    }
+
+    private void grow() {
+      int capacity = offsets.length;
+      long[] grownOffsets = new long[capacity * 2];
+      boolean[] grownDone = new boolean[capacity * 2];
+      for (int i = 0; i < size; i++) {
+        grownOffsets[i] = offsets[(head + i) & (capacity - 1)];
+        grownDone[i] = done[(head + i) & (capacity - 1)];
+      }
+      offsets = grownOffsets;
+      done = grownDone;
+      head = 0;
+    }
+  }
+}
@@ -0,0 +1,406 @@
+package io.analytics.platform.processor.engine;
+
+import io.analytics.platform.common.logging.Logging;
+import io.analytics.platform.processor.config.ProcessorProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Kafka consumer that processes each partition with several threads while keeping per-key order.
+ *
+ * <p>A single polling thread owns the {@link Consumer}. Every polled record is routed to one of
+ * {@code lanes} worker threads by the hash of its key (records without a key by partition), so
+ * records sharing a key are handled by the same lane in offset order, while different keys of the
+ * same partition proceed in parallel. Each lane hands up to {@code laneBatchSize} queued records
+ * at a time to the {@link BatchProcessor}.
+ *
+ * <p>Lanes finish records out of offset order, so offsets are committed through an {@link
+ * OffsetTracker}: a partition is only committed up to its lowest offset still in progress, and a
+ * crash never skips a record that was not processed. Commits are asynchronous every {@code
+ * commitInterval} and synchronous on revocation and shutdown; a position counts as committed only
+ * once its commit succeeded, so a failed commit is repeated by the next one. Before each commit
+ * the processor may {@link BatchProcessor#checkpoint() checkpoint} its state; if that fails, the
+ * commit is skipped.
+ *
+ * <p>When {@code maxInFlight} records are queued or in progress the consumer pauses its
+ * partitions, and resumes them once half have completed, so a slow processor bounds memory rather
+ * than growing the lane queues.
+ */
+public final class ProcessingEngine implements SmartLifecycle {
+
+  private static final Logger log = Logging.getLogger(ProcessingEngine.class);
+
+  /** Upper bound of the retry backoff, however many attempts are configured. */
+  private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private final Supplier<Consumer<String, byte[]>> consumers;
+  private final Collection<String> topics;
+  private final BatchProcessor processor;
+  private final ProcessorProperties.Engine settings;
+  private final EngineMetrics metrics;
+  private final Clock clock;
+  private final OffsetTracker offsets = new OffsetTracker();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final Lane[] lanes;
+  private volatile boolean running;
+  private Thread poller;
+
+  /**
+   * Creates an engine; records are consumed once it is {@link #start() started}.
+   *
+   * @param consumers creates the consumer, called on the polling thread; auto-commit must be off
+   * @param topics topics to subscribe to
+   * @param processor processes the lane batches
+   * @param settings engine tuning
+   * @param registry registry of the engine meters
+   * @param clock time source of the record lag
+   */
+  public ProcessingEngine(
+      Supplier<Consumer<String, byte[]>> consumers,
+      Collection<String> topics,
+      BatchProcessor processor,
+      ProcessorProperties.Engine settings,
+      MeterRegistry registry,
+      Clock clock) {
+    this.consumers = consumers;
+    this.topics = List.copyOf(topics);
+    this.processor = processor;
+    this.settings = settings;
+    this.metrics = new EngineMetrics(registry, inFlight::get);
+    this.clock = clock;
+    this.lanes = new Lane[settings.lanes()];
+    for (int i = 0; i < lanes.length; i++) {
+      lanes[i] = new Lane();
+    }
+  }
+
+  @Override
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    for (int i = 0; i < lanes.length; i++) {
+      lanes[i].thread = Thread.ofPlatform().name("processor-lane-" + i).start(lanes[i]);
+    }
+    poller = Thread.ofPlatform().name("processor-poll").start(this::pollLoop);
+  }
+
+  /**
+   * Stops polling, waits up to {@code shutdownTimeout} for queued records to complete, commits
+   * their offsets and closes the consumer.
+   */
+  @Override
+  public void stop() {
+    Thread thread;
+    synchronized (this) {
+      if (!running) {
+        return;
+      }
+      running = false;
+      thread = poller;
+    }
+    try {
+      thread.join(settings.shutdownTimeout().plus(settings.pollTimeout()).plusSeconds(5));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Returns the number of records polled and not yet processed.
+   *
+   * @return records queued in or processed by a lane
+   */
+  public int inFlight() {
+    return inFlight.get();
+  }
+
+  private void pollLoop() {
+    Consumer<String, byte[]> consumer = consumers.get();
+    try {
+      consumer.subscribe(topics, new Rebalance(consumer));
+      long interval = settings.commitInterval().toNanos();
+      long nextCommit = System.nanoTime() + interval;
+      while (running) {
+        applyBackpressure(consumer);
+        dispatch(consumer.poll(settings.pollTimeout()));
+        if (System.nanoTime() - nextCommit >= 0) {
+          commitAsync(consumer);
+          nextCommit = System.nanoTime() + interval;
+        }
+      }
+    } catch (RuntimeException e) {
+      Logging.error(log, "Processing engine stopped polling after an unexpected error", e);
+      running = false;
+    } finally {
+      awaitCompletion(Set.of(), settings.shutdownTimeout());
+      for (Lane lane : lanes) {
+        lane.close();
+      }
+      commitSync(consumer, offsets.committable());
+      consumer.close();
+      Logging.info(log, "Processing engine stopped");
+    }
+  }
+
+  private void dispatch(ConsumerRecords<String, byte[]> records) {
+    for (TopicPartition partition : records.partitions()) {
+      for (ConsumerRecord<String, byte[]> record : records.records(partition)) {
+        offsets.dispatched(partition, record.offset());
+        inFlight.incrementAndGet();
+        lanes[laneOf(record)].queue.add(record);
+      }
+    }
+  }
+
+  private int laneOf(ConsumerRecord<String, byte[]> record) {
+    int h = record.key() != null ? record.key().hashCode() : record.partition();
+    return Math.floorMod(h ^ (h >>> 16), lanes.length);
+  }
+
+  private void applyBackpressure(Consumer<String, byte[]> consumer) {
+    int current = inFlight.get();
+    if (current >= settings.maxInFlight()) {
+      // Paused again on every poll, so partitions assigned meanwhile are paused as well
+      Set<TopicPartition> assigned = consumer.assignment();
+      if (!assigned.isEmpty()) {
+        consumer.pause(assigned);
+      }
+    } else if (current <= settings.maxInFlight() / 2) {
+      Set<TopicPartition> paused = consumer.paused();
+      if (!paused.isEmpty()) {
+        consumer.resume(paused);
+      }
+    }
+  }
+
+  private void commitAsync(Consumer<String, byte[]> consumer) {
+    Map<TopicPartition, OffsetAndMetadata> commit = offsets.committable();
+    if (!checkpoint() || commit.isEmpty()) {
+      return;
+    }
+    consumer.commitAsync(
+        commit,
+        (committed, e) -> {
+          if (e == null) {
+            offsets.markCommitted(committed);
+          } else {
+            // The positions stay committable and are offered again by the next commit
+            Logging.error(log, "Asynchronous offset commit failed", e);
+          }
+        });
+    metrics.committed();
+  }
+
+  private void commitSync(
+      Consumer<String, byte[]> consumer, Map<TopicPartition, OffsetAndMetadata> commit) {
+    if (!checkpoint() || commit.isEmpty()) {
+      return;
+    }
+    try {
+      consumer.commitSync(commit);
+      offsets.markCommitted(commit);
+      metrics.committed();
+    } catch (RuntimeException e) {
+      Logging.error(log, "Offset commit failed, processed records may be redelivered", e);
+    }
+  }
+
+  /**
+   * Lets the processor persist its state before offsets computed earlier are committed, so the
+   * committed offsets never run ahead of the state.
+   *
+   * @return whether the offsets may be committed
+   */
+  private boolean checkpoint() {
+    try {
+      processor.checkpoint();
+      return true;
+    } catch (Exception e) {
+      Logging.error(log, "State checkpoint failed, offsets not committed", e);
+      return false;
+    }
+  }
+
+  /**
+   * Waits until the given partitions, or all of them if empty, have no records in progress.
+   *
+   * @return false if the timeout elapsed first
+   */
+  private boolean awaitCompletion(Collection<TopicPartition> partitions, Duration timeout) {
+    long deadline = System.nanoTime() + timeout.toNanos();
+    while (partitions.isEmpty() ? inFlight.get() > 0 : pending(partitions) > 0) {
+      if (System.nanoTime() - deadline >= 0) {
+        return false;
+      }
+      try {
+        Thread.sleep(5);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int pending(Collection<TopicPartition> partitions) {
+    int pending = 0;
+    for (TopicPartition partition : partitions) {
+      pending += offsets.pending(partition);
+    }
+    return pending;
+  }
+
+  private static TopicPartition partitionOf(ConsumerRecord<?, ?> record) {
+    return new TopicPartition(record.topic(), record.partition());
+  }
+
+  /** Completes revoked partitions before another consumer of the group takes them over. */
+  private final class Rebalance implements ConsumerRebalanceListener {
+
+    private final Consumer<String, byte[]> consumer;
+
+    Rebalance(Consumer<String, byte[]> consumer) {
+      this.consumer = consumer;
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+      if (!awaitCompletion(partitions, settings.shutdownTimeout())) {
+        Logging.info(
+            log,
+            "Revoked partitions {} still had records in progress, they will be redelivered",
+            partitions);
+      }
+      commitSync(consumer, offsets.committable(partitions));
+      offsets.release(partitions);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+      // Partitions are tracked from their first dispatched record
+    }
+
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> partitions) {
+      // Another consumer already owns them, committing would fail
+      offsets.release(partitions);
+    }
+  }
+
+  /** A worker thread with its queue of records to process. */
+  private final class Lane implements Runnable {
+
+    private final BlockingQueue<ConsumerRecord<String, byte[]>> queue =
+        new LinkedBlockingQueue<>();
+    private final List<ConsumerRecord<String, byte[]>> batch = new ArrayList<>();
+    private volatile boolean open = true;
+    private Thread thread;
+
+    @Override
+    public void run() {
+      try {
+        while (open) {
+          ConsumerRecord<String, byte[]> first = queue.poll(100, TimeUnit.MILLISECONDS);
+          if (first == null) {
+            continue;
+          }
+          batch.add(first);
+          queue.drainTo(batch, settings.laneBatchSize() - 1);
+          dropReleased();
+          if (!batch.isEmpty()) {
+            handle();
+            complete();
+          }
+          batch.clear();
+        }
+      } catch (InterruptedException e) {
+        // Closed while waiting, uncompleted records are redelivered after the last commit
+      }
+    }
+
+    void close() {
+      open = false;
+      if (thread != null) {
+        thread.interrupt();
+      }
+    }
+
+    /** Drops records of revoked partitions; their new owner processes them. */
+    private void dropReleased() {
+      int before = batch.size();
+      batch.removeIf(record -> !offsets.isTracked(partitionOf(record)));
+      inFlight.addAndGet(batch.size() - before);
+    }
+
+    /** Processes the batch until it succeeds or is recovered. */
+    private void handle() throws InterruptedException {
+      int attempt = 0;
+      long backoff = settings.retryBackoff().toNanos();
+      while (true) {
+        long start = System.nanoTime();
+        try {
+          processor.process(batch);
+          metrics.processed(batch.size(), System.nanoTime() - start);
+          return;
+        } catch (InterruptedException e) {
+          throw e;
+        } catch (Exception e) {
+          if (++attempt < settings.maxAttempts()) {
+            metrics.retried(batch.size());
+            TimeUnit.NANOSECONDS.sleep(backoff);
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+            continue;
+          }
+          try {
+            processor.recover(batch, e);
+            metrics.recovered(batch.size());
+            return;
+          } catch (InterruptedException ie) {
+            throw ie;
+          } catch (Exception re) {
+            Logging.error(log, "Recovery of a failed batch failed, processing it again", re);
+            attempt = 0;
+            TimeUnit.NANOSECONDS.sleep(backoff);
+          }
+        }
+      }
+    }
+
+    private void complete() {
+      long now = clock.millis();
+      for (ConsumerRecord<String, byte[]> record : batch) {
+        offsets.completed(partitionOf(record), record.offset());
+        if (record.timestamp() >= 0) {
+          metrics.lag(Math.max(0, now - record.timestamp()));
+        }
+      }
+      inFlight.addAndGet(-batch.size());
+    }
+  }
+}
@@ -0,0 +1,210 @@
+package io.analytics.platform.processor.pipeline;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.dto.RawEvent;
+import io.analytics.platform.common.exception.ValidationException;
+import io.analytics.platform.common.kafka.DlqHeaders;
+import io.analytics.platform.common.kafka.EventDeserializer;
+import io.analytics.platform.common.logging.Logging;
+import io.analytics.platform.common.util.BinaryEventCodec;
+import io.analytics.platform.common.util.EventCodec;
+import io.analytics.platform.common.util.JsonCodec;
+import io.analytics.platform.common.util.WireFormat;
+import io.analytics.platform.common.validation.Violation;
+import io.analytics.platform.processor.config.ProcessorProperties;
+import io.analytics.platform.processor.engine.BatchProcessor;
+import io.analytics.platform.processor.state.StateManager;
+import io.analytics.platform.processor.transform.CompiledPipeline;
+import io.analytics.platform.processor.transform.TransformRegistry;
+import io.analytics.platform.processor.window.WindowAggregator;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.Logger;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Turns raw event records into processed events on the output topic.
+ *
+ * <p>Every record of a lane batch is decoded in the format named by its content type header, run
+ * through the current compiled transformation pipeline of the {@link TransformRegistry} and
+ * encoded once in the configured {@link WireFormat}; events dropped by a filter produce no output.
+ * Raw events were validated at ingestion, so beyond the presence of the ID, timestamp and value
+ * read from the topic, only the fields the pipeline derives are checked.
+ *
+ * <p>All output records are sent before the batch waits for their acknowledgements, so a batch
+ * costs one round trip rather than one per record. Records that cannot be decoded or fail
+ * validation are written to the dead letter topic at once, since retrying them cannot succeed.
+ *
+ * <p>A failed send fails the batch, which the engine retries; records of a batch may therefore be
+ * published more than once, and consumers deduplicate on the event ID. Events are added to the
+ * {@link WindowAggregator} only once their batch was acknowledged, so a retried batch is not
+ * counted twice. The window state is persisted through the {@link StateManager} whenever the
+ * engine is about to commit offsets.
+ */
+public class EventProcessor implements BatchProcessor {
+
+  private static final Logger log = Logging.getLogger(EventProcessor.class);
+
+  /** Error code of records whose payload is not a decodable event. */
+  public static final String DECODE_FAILED = "DECODE_FAILED";
+
+  /** Error code of records whose event failed validation. */
+  public static final String INVALID_EVENT = "INVALID_EVENT";
+
+  /** Error code of records whose batch failed every processing attempt. */
+  public static final String PROCESSING_FAILED = "PROCESSING_FAILED";
+
+  private final KafkaTemplate<String, byte[]> template;
+  private final ProcessorProperties properties;
+  private final TransformRegistry transforms;
+  private final WindowAggregator windows;
+  private final StateManager state;
+  private final EventDeserializer<RawEvent> deserializer =
+      new EventDeserializer<>(RawEvent.class);
+  private final EventCodec<ProcessedEvent> codec;
+  private final Header contentType;
+  private final byte[] serviceName;
+
+  /**
+   * Creates a processor.
+   *
+   * @param template producer of the output and dead letter records
+   * @param properties topics, source name and output format
+   * @param transforms holder of the transformation pipeline
+   * @param windows aggregator of the processed events
+   * @param state persistence of the window state
+   */
+  public EventProcessor(
+      KafkaTemplate<String, byte[]> template,
+      ProcessorProperties properties,
+      TransformRegistry transforms,
+      WindowAggregator windows,
+      StateManager state) {
+    this.template = template;
+    this.properties = properties;
+    this.transforms = transforms;
+    this.windows = windows;
+    this.state = state;
+    this.codec =
+        properties.wireFormat() == WireFormat.BINARY
+            ? BinaryEventCodec.PROCESSED_EVENT
+            : JsonCodec.PROCESSED_EVENT;
+    this.contentType =
+        new RecordHeader(WireFormat.CONTENT_TYPE_HEADER, codec.format().contentTypeBytes());
+    this.serviceName = properties.source().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void process(List<ConsumerRecord<String, byte[]>> records) throws Exception {
+    CompiledPipeline pipeline = transforms.current();
+    List<CompletableFuture<?>> sends = new ArrayList<>(records.size());
+    List<ProcessedEvent> produced = windows.isEnabled() ? new ArrayList<>(records.size()) : null;
+    for (ConsumerRecord<String, byte[]> record : records) {
+      ProducerRecord<String, byte[]> output = output(record, pipeline, produced);
+      if (output != null) {
+        sends.add(template.send(output));
+      }
+    }
+    await(sends);
+    if (produced != null) {
+      for (ProcessedEvent event : produced) {
+        windows.add(event);
+      }
+    }
+  }
+
+  @Override
+  public void checkpoint() throws Exception {
+    state.checkpoint();
+  }
+
+  /** Parks every record of the batch on the dead letter topic. */
+  @Override
+  public void recover(List<ConsumerRecord<String, byte[]>> records, Exception cause)
+      throws Exception {
+    Logging.error(log, "Sending " + records.size() + " records to the dead letter topic", cause);
+    String reason = String.valueOf(cause.getMessage());
+    List<CompletableFuture<?>> sends = new ArrayList<>(records.size());
+    for (ConsumerRecord<String, byte[]> record : records) {
+      sends.add(template.send(deadLetter(record, PROCESSING_FAILED, reason)));
+    }
+    await(sends);
+  }
+
+  /**
+   * Returns the output or dead letter record, or null if the event was filtered out. The output
+   * event is added to {@code produced} unless it is null.
+   */
+  private ProducerRecord<String, byte[]> output(
+      ConsumerRecord<String, byte[]> record,
+      CompiledPipeline pipeline,
+      List<ProcessedEvent> produced) {
+    ProcessedEvent event;
+    try {
+      RawEvent raw = deserializer.deserialize(record.topic(), record.headers(), record.value());
+      if (raw == null) {
+        return deadLetter(record, DECODE_FAILED, "Record has no event");
+      }
+      if (raw.id() == null) {
+        return deadLetter(record, INVALID_EVENT, Violation.RAW_ID_BLANK.message());
+      }
+      if (raw.ts() == null) {
+        return deadLetter(record, INVALID_EVENT, Violation.TIMESTAMP_MISSING.message());
+      }
+      if (raw.value() == null) {
+        return deadLetter(record, INVALID_EVENT, Violation.RAW_VALUE_INVALID.message());
+      }
+      event = pipeline.apply(raw, properties.source());
+      if (event == null) {
+        return null;
+      }
+    } catch (SerializationException e) {
+      Throwable cause = e.getCause() != null ? e.getCause() : e;
+      return deadLetter(record, DECODE_FAILED, String.valueOf(cause.getMessage()));
+    } catch (ValidationException e) {
+      return deadLetter(record, INVALID_EVENT, String.valueOf(e.getMessage()));
+    }
+    if (produced != null) {
+      produced.add(event);
+    }
+    RecordHeaders headers = new RecordHeaders(new Header[] {contentType});
+    return new ProducerRecord<>(
+        properties.outputTopic(), null, event.id(), codec.encode(event), headers);
+  }
+
+  private ProducerRecord<String, byte[]> deadLetter(
+      ConsumerRecord<String, byte[]> record, String code, String reason) {
+    Headers headers = new RecordHeaders();
+    Header original = record.headers().lastHeader(WireFormat.CONTENT_TYPE_HEADER);
+    if (original != null) {
+      headers.add(original);
+    }
+    headers.add(DlqHeaders.ORIGIN_TOPIC, record.topic().getBytes(StandardCharsets.UTF_8));
+    headers.add(DlqHeaders.SERVICE, serviceName);
+    headers.add(DlqHeaders.ERROR_CODE, code.getBytes(StandardCharsets.UTF_8));
+    headers.add(DlqHeaders.REASON, reason.getBytes(StandardCharsets.UTF_8));
+    return new ProducerRecord<>(
+        properties.dlqTopic(), null, record.key(), record.value(), headers);
+  }
+
+  /** Waits for every send of the batch; the first failure fails the batch. */
+  private void await(List<CompletableFuture<?>> sends) throws Exception {
+    try {
+      CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+          .get(properties.sendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof Exception cause ? cause : e;
+    }
+  }
+}
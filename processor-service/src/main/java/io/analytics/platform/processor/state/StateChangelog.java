@@ -0,0 +1,112 @@
+package io.analytics.platform.processor.state;
+
+import io.analytics.platform.common.state.StateStore;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Replicates the entries of processor state stores to a compacted topic, and reads them back.
+ *
+ * <p>Records are keyed by the instance ID and the entry key separated by {@code /}; a deleted
+ * entry is a tombstone. Compaction keeps the latest record of each key, so the topic holds about
+ * one record per open window of every instance, and restoring an instance reads the whole topic
+ * and keeps the records of its own ID.
+ */
+public final class StateChangelog {
+
+  private static final Duration POLL_TIMEOUT = Duration.ofMillis(200);
+
+  private final KafkaTemplate<String, byte[]> template;
+  private final Supplier<Consumer<String, byte[]>> consumers;
+  private final String topic;
+
+  /**
+   * Creates a changelog.
+   *
+   * @param template producer of the changelog records
+   * @param consumers creates the consumer reading the topic back; it is assigned partitions and
+   *     never commits
+   * @param topic the compacted changelog topic
+   */
+  public StateChangelog(
+      KafkaTemplate<String, byte[]> template,
+      Supplier<Consumer<String, byte[]>> consumers,
+      String topic) {
+    this.template = template;
+    this.consumers = consumers;
+    this.topic = topic;
+  }
+
+  /**
+   * Sends a change of an entry.
+   *
+   * @param instance the instance owning the store
+   * @param key the entry key
+   * @param value the new value, or null if the entry was deleted
+   * @return completes once the record is acknowledged
+   */
+  public CompletableFuture<?> send(String instance, String key, byte[] value) {
+    return template.send(topic, instance + "/" + key, value);
+  }
+
+  /**
+   * Reads the whole topic and applies the records of an instance to a store.
+   *
+   * @param instance the instance whose entries to restore
+   * @param store the store to fill
+   * @param timeout time allowed to reach the end of every partition
+   * @return the number of records applied
+   * @throws IllegalStateException if the end of the topic was not reached in time
+   */
+  public long restore(String instance, StateStore store, Duration timeout) {
+    String prefix = instance + "/";
+    long applied = 0;
+    try (Consumer<String, byte[]> consumer = consumers.get()) {
+      List<TopicPartition> partitions = new ArrayList<>();
+      for (PartitionInfo info : consumer.partitionsFor(topic)) {
+        partitions.add(new TopicPartition(info.topic(), info.partition()));
+      }
+      if (partitions.isEmpty()) {
+        return 0;
+      }
+      consumer.assign(partitions);
+      consumer.seekToBeginning(partitions);
+      Map<TopicPartition, Long> ends = consumer.endOffsets(partitions);
+      Set<TopicPartition> remaining = new HashSet<>(partitions);
+      long deadline = System.nanoTime() + timeout.toNanos();
+      while (true) {
+        remaining.removeIf(partition -> consumer.position(partition) >= ends.get(partition));
+        if (remaining.isEmpty()) {
+          return applied;
+        }
+        if (System.nanoTime() - deadline >= 0) {
+          throw new IllegalStateException(
+              "Changelog " + topic + " not restored within " + timeout + ", at " + remaining);
+        }
+        for (ConsumerRecord<String, byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+          if (record.key() == null || !record.key().startsWith(prefix)) {
+            continue;
+          }
+          String key = record.key().substring(prefix.length());
+          if (record.value() != null) {
+            store.put(key, record.value());
+          } else {
+            store.delete(key);
+          }
+          applied++;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,222 @@
+package io.analytics.platform.processor.state;
+
+import io.analytics.platform.common.logging.Logging;
+import io.analytics.platform.common.state.StateStore;
+import io.analytics.platform.processor.config.ProcessorProperties;
+import io.analytics.platform.processor.window.WindowAggregator;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Persists the window state of the {@link WindowAggregator}, so that a restarted instance resumes
+ * its open windows instead of losing them or replaying hours of input.
+ *
+ * <p>On start, before the engine consumes, the {@link StateStore} in {@code directory} is opened
+ * and the aggregator restored from it. If the store is empty and the instance ID is configured, it
+ * is first filled from the {@link StateChangelog}, e.g. on a new host.
+ *
+ * <p>The engine calls {@link #checkpoint()} before every offset commit. The windows changed since
+ * the previous checkpoint are written to the store, which is flushed, and to the changelog, whose
+ * acknowledgements are awaited, so committed offsets never run ahead of the persisted state. After
+ * a crash, the events processed since the last checkpoint are redelivered and aggregated again.
+ * Events checkpointed but not yet committed are aggregated twice, the at-least-once guarantee of
+ * the rest of the pipeline. If the changelog fails, the whole store is sent again with the next
+ * checkpoint, together with tombstones for every entry deleted since the changelog last
+ * acknowledged a checkpoint, so closed windows never come back from it. The store is compacted
+ * after a checkpoint once its log is mostly garbage.
+ */
+public final class StateManager implements SmartLifecycle {
+
+  private static final Logger log = Logging.getLogger(StateManager.class);
+
+  private final ProcessorProperties.State settings;
+  private final String configuredInstance;
+  private final Duration sendTimeout;
+  private final WindowAggregator windows;
+  private final StateChangelog changelog;
+  private final StateMetrics metrics;
+
+  /** Keys deleted from the store whose tombstones the changelog has not acknowledged yet. */
+  private final Set<String> unacknowledgedDeletes = new HashSet<>();
+
+  private StateStore store;
+  private boolean resync;
+
+  /**
+   * Creates a manager; the state is restored once it is {@link #start() started}.
+   *
+   * @param properties state settings, configured instance ID and send timeout
+   * @param windows the aggregator whose state to persist
+   * @param changelog the changelog to replicate the state to, null to keep it local only
+   * @param registry registry of the state meters
+   */
+  public StateManager(
+      ProcessorProperties properties,
+      WindowAggregator windows,
+      StateChangelog changelog,
+      MeterRegistry registry) {
+    this.settings = properties.state();
+    this.configuredInstance = properties.aggregation().instanceId();
+    this.sendTimeout = properties.sendTimeout();
+    this.windows = windows;
+    this.changelog = changelog;
+    this.metrics = new StateMetrics(registry, this::logSize, this::liveSize);
+  }
+
+  /**
+   * Returns whether state is persisted at all.
+   *
+   * @return false if persistence is disabled or no window is defined
+   */
+  public boolean isEnabled() {
+    return settings.enabled() && windows.isEnabled();
+  }
+
+  /** Opens the store and restores the aggregator from it, unless persistence is disabled. */
+  @Override
+  public synchronized void start() {
+    if (store != null || !isEnabled()) {
+      return;
+    }
+    long begin = System.nanoTime();
+    StateStore opened =
+        StateStore.open(
+            settings.directory(),
+            (int) settings.chunkSize().toBytes(),
+            settings.compactionThreshold().toBytes());
+    int restored;
+    try {
+      if (opened.size() == 0 && changelog != null && configuredInstance != null) {
+        long applied = changelog.restore(configuredInstance, opened, settings.restoreTimeout());
+        opened.flush();
+        Logging.info(log, "Read {} window state records back from the changelog", applied);
+      }
+      restored = windows.restore(opened);
+    } catch (RuntimeException e) {
+      opened.close();
+      throw e;
+    }
+    store = opened;
+    long nanos = System.nanoTime() - begin;
+    metrics.restored(nanos);
+    Logging.info(
+        log,
+        "Restored {} windows of instance {} in {} ms",
+        restored,
+        windows.instance(),
+        TimeUnit.NANOSECONDS.toMillis(nanos));
+  }
+
+  /** Takes a last checkpoint and closes the store, after the engine has stopped. */
+  @Override
+  public synchronized void stop() {
+    if (store == null) {
+      return;
+    }
+    try {
+      checkpoint();
+    } catch (Exception e) {
+      Logging.error(log, "Final window state checkpoint failed", e);
+    } finally {
+      store.close();
+      store = null;
+    }
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return store != null;
+  }
+
+  /** Starts before and stops after the engine and the emitter. */
+  @Override
+  public int getPhase() {
+    return SmartLifecycle.DEFAULT_PHASE - 1;
+  }
+
+  /**
+   * Persists the window state changed since the previous checkpoint. Does nothing unless
+   * started.
+   *
+   * @throws Exception if the state could not be written, flushed or replicated
+   */
+  public synchronized void checkpoint() throws Exception {
+    if (store == null) {
+      return;
+    }
+    long begin = System.nanoTime();
+    long putBefore = store.bytesPut();
+    long writtenBefore = store.bytesWritten();
+    String instance = windows.instance();
+    List<CompletableFuture<?>> sends = new ArrayList<>();
+    if (resync && changelog != null) {
+      store.forEach((key, value) -> sends.add(changelog.send(instance, key, value)));
+      for (String key : unacknowledgedDeletes) {
+        sends.add(changelog.send(instance, key, null));
+      }
+    }
+    int[] changed = new int[2];
+    windows.checkpoint(
+        (key, value) -> {
+          if (value != null) {
+            store.put(key, value);
+            changed[0]++;
+          } else {
+            store.delete(key);
+            changed[1]++;
+          }
+          if (changelog != null) {
+            sends.add(changelog.send(instance, key, value));
+            if (value != null) {
+              unacknowledgedDeletes.remove(key);
+            } else {
+              unacknowledgedDeletes.add(key);
+            }
+          }
+        });
+    store.flush();
+    await(sends);
+    resync = false;
+    unacknowledgedDeletes.clear();
+    store.compactIfNeeded();
+    metrics.checkpointed(
+        System.nanoTime() - begin,
+        changed[0],
+        changed[1],
+        store.bytesPut() - putBefore,
+        store.bytesWritten() - writtenBefore);
+  }
+
+  private void await(List<CompletableFuture<?>> sends) throws Exception {
+    if (sends.isEmpty()) {
+      return;
+    }
+    try {
+      CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+          .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      resync = true;
+      throw e.getCause() instanceof Exception cause ? cause : e;
+    } catch (Exception e) {
+      resync = true;
+      throw e;
+    }
+  }
+
+  private synchronized double logSize() {
+    return store != null ? store.logBytes() : Double.NaN;
+  }
+
+  private synchronized double liveSize() {
+    return store != null ? store.liveBytes() : Double.NaN;
+  }
+}
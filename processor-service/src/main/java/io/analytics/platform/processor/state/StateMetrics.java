@@ -0,0 +1,91 @@
+package io.analytics.platform.processor.state;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instruments of the {@link StateManager}.
+ *
+ * <ul>
+ *   <li>{@code processor.state.checkpoint}: duration of checkpoints, changelog acknowledgements
+ *       included
+ *   <li>{@code processor.state.entries{operation}}: entries written and deleted by checkpoints
+ *   <li>{@code processor.state.bytes{kind}}: bytes of window state put, and bytes the log wrote
+ *       for them including compaction; their ratio is the write amplification
+ *   <li>{@code processor.state.log.size} and {@code processor.state.live.size}: bytes of the log
+ *       and of its current entries
+ *   <li>{@code processor.state.restore}: duration of the restore on start
+ * </ul>
+ */
+public final class StateMetrics {
+
+  private final Timer checkpoint;
+  private final Timer restore;
+  private final Counter written;
+  private final Counter deleted;
+  private final Counter bytesPut;
+  private final Counter bytesWritten;
+
+  /**
+   * Registers the state meters.
+   *
+   * @param registry the registry to publish to
+   * @param logSize source of the log size in bytes
+   * @param liveSize source of the size of the current entries in bytes
+   */
+  public StateMetrics(MeterRegistry registry, Supplier<Number> logSize, Supplier<Number> liveSize) {
+    checkpoint =
+        Timer.builder("processor.state.checkpoint")
+            .description("Duration of window state checkpoints")
+            .register(registry);
+    restore =
+        Timer.builder("processor.state.restore")
+            .description("Duration of the window state restore on start")
+            .register(registry);
+    written = entries(registry, "put");
+    deleted = entries(registry, "delete");
+    bytesPut = bytes(registry, "put");
+    bytesWritten = bytes(registry, "written");
+    Gauge.builder("processor.state.log.size", logSize)
+        .description("Bytes of the state log, garbage included")
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("processor.state.live.size", liveSize)
+        .description("Bytes of the current state entries")
+        .baseUnit("bytes")
+        .register(registry);
+  }
+
+  private static Counter entries(MeterRegistry registry, String operation) {
+    return Counter.builder("processor.state.entries")
+        .description("State entries changed by checkpoints, by operation")
+        .tag("operation", operation)
+        .register(registry);
+  }
+
+  private static Counter bytes(MeterRegistry registry, String kind) {
+    return Counter.builder("processor.state.bytes")
+        .description("Bytes of state put, and written to the log for them")
+        .tag("kind", kind)
+        .baseUnit("bytes")
+        .register(registry);
+  }
+
+  /** Records a checkpoint and what it changed. */
+  void checkpointed(long nanos, int puts, int deletes, long put, long logWritten) {
+    checkpoint.record(nanos, TimeUnit.NANOSECONDS);
+    written.increment(puts);
+    deleted.increment(deletes);
+    bytesPut.increment(put);
+    bytesWritten.increment(logWritten);
+  }
+
+  /** Records the restore on start. */
+  void restored(long nanos) {
+    restore.record(nanos, TimeUnit.NANOSECONDS);
+  }
+}
@@ -0,0 +1,99 @@
+package io.analytics.platform.processor.transform;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.dto.RawEvent;
+import io.analytics.platform.common.dto.Tags;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A transformation pipeline compiled by {@link PipelineCompiler}, applied to one event at a time.
+ *
+ * <p>The filter and map steps are fused into a single {@link DoubleUnaryOperator} working on the
+ * unboxed value, and the enrich steps into constant {@link Tags}, so applying the pipeline
+ * allocates nothing but the resulting {@link ProcessedEvent}, plus a merged {@link Tags} when tags
+ * are added to an event that already has some. The tags of processed events are always immutable
+ * {@link Tags}, copied from the raw event only if it was not decoded into {@link Tags} already.
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+public final class CompiledPipeline {
+
+  /** Value returned by the program when a filter drops the event. */
+  static final double DROPPED = Double.NaN;
+
+  private final long version;
+  private final List<StepDefinition> steps;
+  private final DoubleUnaryOperator program;
+  private final Tags tags;
+  private final Tags meta;
+
+  CompiledPipeline(
+      long version, List<StepDefinition> steps, DoubleUnaryOperator program, Tags tags, Tags meta) {
+    this.version = version;
+    this.steps = steps;
+    this.program = program;
+    this.tags = tags;
+    this.meta = meta;
+  }
+
+  /**
+   * Returns the version, incremented by every reload.
+   *
+   * @return the version, 1 for the pipeline configured at startup
+   */
+  public long version() {
+    return version;
+  }
+
+  /**
+   * Returns the definition this pipeline was compiled from.
+   *
+   * @return the steps, in order
+   */
+  public List<StepDefinition> steps() {
+    return steps;
+  }
+
+  /**
+   * Applies the pipeline to a raw event that passed validation at ingestion.
+   *
+   * @param raw the raw event, its value must not be null
+   * @param source the source recorded on the processed event
+   * @return the processed event, or null if a filter dropped it
+   * @throws io.analytics.platform.common.exception.ValidationException if the transformed value
+   *     is not finite
+   */
+  public ProcessedEvent apply(RawEvent raw, String source) {
+    double value = program.applyAsDouble(raw.value());
+    if (Double.isNaN(value)) {
+      return null;
+    }
+    return ProcessedEvent.fromValidatedRawEvent(raw, value, tags(raw.tags()), meta, source);
+  }
+
+  /**
+   * Applies only the filter and map steps.
+   *
+   * @param value the raw value
+   * @return the transformed value, NaN if a filter dropped it, infinite if it overflowed
+   */
+  public double applyAsDouble(double value) {
+    return program.applyAsDouble(value);
+  }
+
+  /** Merges the enrich tags into those of an event, the enrich tags winning on equal keys. */
+  private Tags tags(Map<String, Object> original) {
+    if (tags.isEmpty()) {
+      return Tags.copyOf(original);
+    }
+    if (original.isEmpty()) {
+      return tags;
+    }
+    Tags.Builder merged = Tags.builder();
+    original.forEach(merged::put);
+    tags.forEach(merged::put);
+    return merged.build();
+  }
+}
@@ -0,0 +1,14 @@
+package io.analytics.platform.processor.transform;
+
+/** Thrown when a pipeline definition cannot be compiled; the running pipeline is unchanged. */
+public class InvalidPipelineException extends RuntimeException {
+
+  /**
+   * Creates an exception.
+   *
+   * @param message what is wrong with the definition, naming the step
+   */
+  public InvalidPipelineException(String message) {
+    super(message);
+  }
+}
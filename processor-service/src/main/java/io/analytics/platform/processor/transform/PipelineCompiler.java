@@ -0,0 +1,206 @@
+package io.analytics.platform.processor.transform;
+
+import io.analytics.platform.common.dto.Tags;
+import io.analytics.platform.common.validation.EventValidator;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Compiles declared {@link StepDefinition steps} into a {@link CompiledPipeline}.
+ *
+ * <p>Compilation validates every step up front, then:
+ *
+ * <ol>
+ *   <li>folds runs of adjacent {@code multiply}, {@code divide}, {@code add} and {@code subtract}
+ *       steps into one affine step {@code a * value + b}, so {@code value * 2 + 1} costs one
+ *       multiply-add whatever the number of declared steps; the result may differ from step by
+ *       step evaluation in the last bit
+ *   <li>links the remaining filter and map steps back to front into nested lambdas, each
+ *       specialized for its operator and calling the next step directly, so a filter that drops
+ *       the event skips the rest of the chain
+ *   <li>merges every enrich step into one tag map and one metadata map, later steps winning
+ * </ol>
+ *
+ * <p>A dropped event yields NaN. A map step whose result is not finite stops the chain with an
+ * infinite value, which fails validation of the processed event, so arithmetic can never produce
+ * the NaN that means "dropped".
+ */
+public final class PipelineCompiler {
+
+  private static final double INVALID = Double.POSITIVE_INFINITY;
+
+  private PipelineCompiler() {
+    // Prevent instantiation
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  /**
+   * Compiles a pipeline definition.
+   *
+   * @param steps the steps, applied in order; empty passes events through unchanged
+   * @param version the version of the compiled pipeline
+   * @return the compiled pipeline
+   * @throws InvalidPipelineException if a step is malformed
+   */
+  public static CompiledPipeline compile(List<StepDefinition> steps, long version) {
+    List<Op> ops = new ArrayList<>();
+    Map<String, Object> tags = new LinkedHashMap<>();
+    Map<String, Object> meta = new LinkedHashMap<>();
+    for (int i = 0; i < steps.size(); i++) {
+      StepDefinition step = steps.get(i);
+      if (step == null || step.type() == null) {
+        throw invalid(i, "type is required (filter, map or enrich)");
+      }
+      switch (step.type().toLowerCase(Locale.ROOT)) {
+        case "filter" -> ops.add(new Filter(comparison(i, step), operand(i, step)));
+        case "map" -> append(ops, arithmetic(i, step));
+        case "enrich" -> {
+          putAll(i, "tags", step.tags(), tags);
+          putAll(i, "meta", step.meta(), meta);
+        }
+        default -> throw invalid(i, "unknown type '" + step.type() + "'");
+      }
+    }
+    DoubleUnaryOperator program = v -> v;
+    for (int i = ops.size() - 1; i >= 0; i--) {
+      program = ops.get(i).link(program);
+    }
+    return new CompiledPipeline(
+        version, List.copyOf(steps), program, Tags.copyOf(tags), Tags.copyOf(meta));
+  }
+
+  private static Comparison comparison(int index, StepDefinition step) {
+    try {
+      return Comparison.valueOf(String.valueOf(step.op()).toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw invalid(index, "unknown filter operator '" + step.op() + "'");
+    }
+  }
+
+  private static Op arithmetic(int index, StepDefinition step) {
+    String op = String.valueOf(step.op()).toLowerCase(Locale.ROOT);
+    if (op.equals("abs")) {
+      return new Abs();
+    }
+    double operand = operand(index, step);
+    return switch (op) {
+      case "multiply" -> new Affine(operand, 0);
+      case "add" -> new Affine(1, operand);
+      case "subtract" -> new Affine(1, -operand);
+      case "divide" -> {
+        if (operand == 0) {
+          throw invalid(index, "division by zero");
+        }
+        yield new Affine(1 / operand, 0);
+      }
+      default -> throw invalid(index, "unknown map operator '" + step.op() + "'");
+    };
+  }
+
+  private static double operand(int index, StepDefinition step) {
+    Double value = step.value();
+    if (value == null || !Double.isFinite(value)) {
+      throw invalid(index, "a finite value is required for '" + step.op() + "'");
+    }
+    return value;
+  }
+
+  /** Appends a map step, folding it into the previous one when both are affine. */
+  private static void append(List<Op> ops, Op op) {
+    int last = ops.size() - 1;
+    if (op instanceof Affine next && last >= 0 && ops.get(last) instanceof Affine previous) {
+      // next(previous(v)) = a2 * (a1 * v + b1) + b2
+      ops.set(last, new Affine(next.a * previous.a, next.a * previous.b + next.b));
+    } else {
+      ops.add(op);
+    }
+  }
+
+  private static void putAll(
+      int index, String field, Map<String, String> source, Map<String, Object> target) {
+    if (source == null) {
+      return;
+    }
+    for (Map.Entry<String, String> entry : source.entrySet()) {
+      if (EventValidator.isBlank(entry.getKey()) || entry.getValue() == null) {
+        throw invalid(index, field + " keys must not be blank and values must not be null");
+      }
+      target.put(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private static InvalidPipelineException invalid(int index, String reason) {
+    return new InvalidPipelineException("Pipeline step " + (index + 1) + ": " + reason);
+  }
+
+  /** Filter operators. */
+  private enum Comparison {
+    GT,
+    GTE,
+    LT,
+    LTE,
+    EQ,
+    NE
+  }
+
+  /** A filter or map step before linking. */
+  private sealed interface Op permits Filter, Affine, Abs {
+
+    /** Returns this step followed by {@code next}. */
+    DoubleUnaryOperator link(DoubleUnaryOperator next);
+  }
+
+  private record Filter(Comparison comparison, double threshold) implements Op {
+
+    @Override
+    public DoubleUnaryOperator link(DoubleUnaryOperator next) {
+      double t = threshold;
+      double dropped = CompiledPipeline.DROPPED;
+      return switch (comparison) {
+        case GT -> v -> v > t ? next.applyAsDouble(v) : dropped;
+        case GTE -> v -> v >= t ? next.applyAsDouble(v) : dropped;
+        case LT -> v -> v < t ? next.applyAsDouble(v) : dropped;
+        case LTE -> v -> v <= t ? next.applyAsDouble(v) : dropped;
+        case EQ -> v -> v == t ? next.applyAsDouble(v) : dropped;
+        case NE -> v -> v != t ? next.applyAsDouble(v) : dropped;
+      };
+    }
+  }
+
+  private record Affine(double a, double b) implements Op {
+
+    @Override
+    public DoubleUnaryOperator link(DoubleUnaryOperator next) {
+      double scale = a;
+      double offset = b;
+      if (offset == 0) {
+        return v -> {
+          double r = scale * v;
+          return Double.isFinite(r) ? next.applyAsDouble(r) : INVALID;
+        };
+      }
+      if (scale == 1) {
+        return v -> {
+          double r = v + offset;
+          return Double.isFinite(r) ? next.applyAsDouble(r) : INVALID;
+        };
+      }
+      return v -> {
+        double r = scale * v + offset;
+        return Double.isFinite(r) ? next.applyAsDouble(r) : INVALID;
+      };
+    }
+  }
+
+  private record Abs() implements Op {
+
+    @Override
+    public DoubleUnaryOperator link(DoubleUnaryOperator next) {
+      return v -> next.applyAsDouble(Math.abs(v));
+    }
+  }
+}
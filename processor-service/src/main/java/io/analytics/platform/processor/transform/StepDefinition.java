@@ -0,0 +1,58 @@
+package io.analytics.platform.processor.transform;
+
+import java.util.Map;
+
+/**
+ * One declared transformation step, as written under {@code processor.pipeline} or sent to {@code
+ * PUT /pipeline}.
+ *
+ * <ul>
+ *   <li>{@code filter}: keeps events whose value satisfies {@code op} ({@code gt}, {@code gte},
+ *       {@code lt}, {@code lte}, {@code eq}, {@code ne}) against {@code value}
+ *   <li>{@code map}: replaces the value by applying {@code op} ({@code multiply}, {@code divide},
+ *       {@code add}, {@code subtract}, {@code abs}) with {@code value} as the operand
+ *   <li>{@code enrich}: adds {@code tags} to the event tags and {@code meta} to its metadata
+ * </ul>
+ *
+ * @param type {@code filter}, {@code map} or {@code enrich}
+ * @param op the operator of a filter or map step
+ * @param value the operand of a filter or map step; not used by {@code abs}
+ * @param tags tags added by an enrich step
+ * @param meta metadata added by an enrich step
+ */
+public record StepDefinition(
+    String type, String op, Double value, Map<String, String> tags, Map<String, String> meta) {
+
+  /**
+   * Creates a filter step.
+   *
+   * @param op the comparison operator
+   * @param value the threshold
+   * @return the step
+   */
+  public static StepDefinition filter(String op, double value) {
+    return new StepDefinition("filter", op, value, null, null);
+  }
+
+  /**
+   * Creates a map step.
+   *
+   * @param op the arithmetic operator
+   * @param value the operand, ignored by {@code abs}
+   * @return the step
+   */
+  public static StepDefinition map(String op, double value) {
+    return new StepDefinition("map", op, value, null, null);
+  }
+
+  /**
+   * Creates an enrich step.
+   *
+   * @param tags tags to add
+   * @param meta metadata to add
+   * @return the step
+   */
+  public static StepDefinition enrich(Map<String, String> tags, Map<String, String> meta) {
+    return new StepDefinition("enrich", null, null, tags, meta);
+  }
+}
@@ -0,0 +1,53 @@
+package io.analytics.platform.processor.transform;
+
+import io.analytics.platform.common.logging.Logging;
+import java.util.List;
+import org.slf4j.Logger;
+
+/**
+ * Holds the pipeline currently applied to events and swaps it on reload.
+ *
+ * <p>A reload compiles the new definition completely before publishing it with a single volatile
+ * write, so a definition that fails to compile leaves the running pipeline untouched, and every
+ * reader sees either the old or the new pipeline, never a mix. The processor reads {@link
+ * #current()} once per batch, so a batch is transformed by one version throughout.
+ */
+public final class TransformRegistry {
+
+  private static final Logger log = Logging.getLogger(TransformRegistry.class);
+
+  private volatile CompiledPipeline current;
+
+  /**
+   * Creates a registry holding the configured pipeline as version 1.
+   *
+   * @param steps the configured steps
+   * @throws InvalidPipelineException if a step is malformed
+   */
+  public TransformRegistry(List<StepDefinition> steps) {
+    this.current = PipelineCompiler.compile(steps, 1);
+  }
+
+  /**
+   * Returns the pipeline to apply.
+   *
+   * @return the latest successfully compiled pipeline
+   */
+  public CompiledPipeline current() {
+    return current;
+  }
+
+  /**
+   * Compiles a new definition and makes it current.
+   *
+   * @param steps the new steps
+   * @return the new pipeline
+   * @throws InvalidPipelineException if a step is malformed; the current pipeline is kept
+   */
+  public synchronized CompiledPipeline reload(List<StepDefinition> steps) {
+    CompiledPipeline next = PipelineCompiler.compile(steps, current.version() + 1);
+    current = next;
+    Logging.info(log, "Transformation pipeline reloaded as version {}", next.version());
+    return next;
+  }
+}
@@ -0,0 +1,40 @@
+package io.analytics.platform.processor.web;
+
+import io.analytics.platform.processor.transform.StepDefinition;
+import io.analytics.platform.processor.transform.TransformRegistry;
+import java.util.List;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Reads and hot-reloads the transformation pipeline.
+ *
+ * <p>{@code PUT /pipeline} takes the same step list as {@code processor.pipeline} and applies it
+ * from the next lane batch on, without restarting the consumer. A definition that does not compile
+ * is refused with 400 and the running pipeline stays in place. Reloads are not persisted: a
+ * restart applies the configured pipeline again.
+ */
+@RestController
+@RequestMapping(path = "/pipeline", produces = MediaType.APPLICATION_JSON_VALUE)
+public class PipelineController {
+
+  private final TransformRegistry registry;
+
+  public PipelineController(TransformRegistry registry) {
+    this.registry = registry;
+  }
+
+  @GetMapping
+  public PipelineResponse current() {
+    return PipelineResponse.from(registry.current());
+  }
+
+  @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+  public PipelineResponse reload(@RequestBody List<StepDefinition> steps) {
+    return PipelineResponse.from(registry.reload(steps));
+  }
+}
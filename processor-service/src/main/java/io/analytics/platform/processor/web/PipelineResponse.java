@@ -0,0 +1,24 @@
+package io.analytics.platform.processor.web;
+
+import io.analytics.platform.processor.transform.CompiledPipeline;
+import io.analytics.platform.processor.transform.StepDefinition;
+import java.util.List;
+
+/**
+ * The transformation pipeline currently applied by the processor.
+ *
+ * @param version incremented by every successful reload
+ * @param steps the definition the pipeline was compiled from
+ */
+public record PipelineResponse(long version, List<StepDefinition> steps) {
+
+  /**
+   * Describes a compiled pipeline.
+   *
+   * @param pipeline the pipeline
+   * @return the response body
+   */
+  public static PipelineResponse from(CompiledPipeline pipeline) {
+    return new PipelineResponse(pipeline.version(), pipeline.steps());
+  }
+}
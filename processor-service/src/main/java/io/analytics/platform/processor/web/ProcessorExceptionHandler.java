@@ -0,0 +1,17 @@
+package io.analytics.platform.processor.web;
+
+import io.analytics.platform.processor.transform.InvalidPipelineException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/** Maps processor exceptions to RFC 7807 problem responses. */
+@RestControllerAdvice
+public class ProcessorExceptionHandler {
+
+  @ExceptionHandler(InvalidPipelineException.class)
+  public ProblemDetail handleInvalidPipeline(InvalidPipelineException e) {
+    return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+  }
+}
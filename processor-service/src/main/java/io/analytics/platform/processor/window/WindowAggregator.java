@@ -0,0 +1,621 @@
+package io.analytics.platform.processor.window;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.dto.WindowAggregate;
+import io.analytics.platform.common.exception.DecodingException;
+import io.analytics.platform.common.logging.Logging;
+import io.analytics.platform.common.sketch.DDSketch;
+import io.analytics.platform.common.state.StateStore;
+import io.analytics.platform.common.util.BinaryReader;
+import io.analytics.platform.common.util.BinaryWriter;
+import io.analytics.platform.common.util.JsonCodec;
+import io.analytics.platform.processor.config.ProcessorProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+
+/**
+ * Rolls processed events up into event-time windows per group, see {@link WindowDefinition}.
+ *
+ * <p>The watermark is the highest event timestamp seen minus {@code watermarkDelay}: windows
+ * ending at or before it are complete and returned by {@link #fire()}, and kept for their allowed
+ * lateness so that late events update and re-emit them. An event whose windows all ended more than
+ * the allowed lateness before the watermark is dropped as late. While no event arrives for {@code
+ * idleTimeout}, event time is assumed to advance with the wall clock so that the last windows are
+ * still emitted.
+ *
+ * <p>Window state lives in {@link WindowTable}s split into {@code shards} by group key, each
+ * guarded by its own lock, so lanes aggregating different groups rarely contend. Across all
+ * shards at most {@code maxOpenWindows} windows are open; an event that would open another one is
+ * dropped and counted rather than growing memory without bound.
+ *
+ * <p>A group holds a single session per definition: an event after the session's end closes it
+ * and starts the next, and an event before its start minus the gap belongs to an earlier session,
+ * which is no longer held. Such an event is dropped even within the allowed lateness, since
+ * merging it would take every closed session of the group, and counted apart as {@code
+ * superseded}; only events past the allowed lateness count as late.
+ *
+ * <p>Once {@link #restore restored} from a {@link StateStore}, the aggregator tracks which windows
+ * changed, closed or were emitted, and {@link #checkpoint} hands exactly those to be persisted,
+ * so a checkpoint costs in proportion to the windows updated since the previous one.
+ */
+public final class WindowAggregator {
+
+  private static final Logger log = Logging.getLogger(WindowAggregator.class);
+
+  /** Value of a grouping tag the event does not carry. */
+  public static final String MISSING = "_";
+
+  private static final char SEPARATOR = '\u001f';
+
+  private static final String INSTANCE_KEY = "m" + WindowState.SEPARATOR + "instance";
+  private static final String WATERMARK_KEY = "m" + WindowState.SEPARATOR + "watermark";
+  private static final String CLOSED_KEY = "c" + WindowState.SEPARATOR;
+
+  /** Slots allocated per shard up front; tables grow from there. */
+  private static final int INITIAL_SLOTS = 1024;
+
+  private final WindowDefinition[] definitions;
+  private final long[] sizes;
+  private final long[] slides;
+  private final long[] gaps;
+  private final long[] lateness;
+  private final int[] sameGroupAs;
+  private final String[][] percentileNames;
+  private final int[] fingerprints;
+  private final Map<String, Integer> indexes = new HashMap<>();
+  private final String configuredInstance;
+  private final long delay;
+  private final long idleTimeout;
+  private final Clock clock;
+  private final Shard[] shards;
+  private final WindowMetrics metrics;
+  private final AtomicLong maxEventTime = new AtomicLong(Long.MIN_VALUE);
+  private volatile long lastEventAt;
+  private volatile long idleWatermark = Long.MIN_VALUE;
+  private volatile String instance;
+  private volatile boolean tracking;
+  private boolean instanceChanged;
+
+  /**
+   * Creates an aggregator with no open windows.
+   *
+   * @param settings window definitions and bounds
+   * @param registry registry of the window meters
+   * @param clock wall clock of the idle watermark
+   */
+  public WindowAggregator(
+      ProcessorProperties.Aggregation settings, MeterRegistry registry, Clock clock) {
+    List<WindowDefinition> windows = settings.windows();
+    Set<String> names = new HashSet<>();
+    definitions = windows.toArray(WindowDefinition[]::new);
+    sizes = new long[definitions.length];
+    slides = new long[definitions.length];
+    gaps = new long[definitions.length];
+    lateness = new long[definitions.length];
+    sameGroupAs = new int[definitions.length];
+    percentileNames = new String[definitions.length][];
+    fingerprints = new int[definitions.length];
+    for (int d = 0; d < definitions.length; d++) {
+      WindowDefinition definition = definitions[d];
+      if (!names.add(definition.name())) {
+        throw new IllegalArgumentException("Duplicate window name " + definition.name());
+      }
+      sizes[d] = definition.size() != null ? definition.size().toMillis() : 0;
+      slides[d] = definition.slide() != null ? definition.slide().toMillis() : sizes[d];
+      gaps[d] = definition.gap() != null ? definition.gap().toMillis() : 0;
+      lateness[d] = definition.allowedLateness().toMillis();
+      fingerprints[d] = WindowState.fingerprint(definition);
+      indexes.put(definition.name(), d);
+      sameGroupAs[d] = d;
+      for (int other = 0; other < d; other++) {
+        if (definitions[other].groupBy().equals(definition.groupBy())) {
+          sameGroupAs[d] = other;
+          break;
+        }
+      }
+      percentileNames[d] = new String[definition.percentiles().size()];
+      for (int i = 0; i < percentileNames[d].length; i++) {
+        percentileNames[d][i] = WindowAggregate.percentileName(definition.percentiles().get(i));
+      }
+    }
+    this.configuredInstance = settings.instanceId();
+    this.instance =
+        configuredInstance != null ? configuredInstance : "processor-" + UUID.randomUUID();
+    this.delay = settings.watermarkDelay().toMillis();
+    this.idleTimeout = settings.idleTimeout().toMillis();
+    this.clock = clock;
+    int perShard = (settings.maxOpenWindows() + settings.shards() - 1) / settings.shards();
+    shards = new Shard[settings.shards()];
+    for (int i = 0; i < shards.length; i++) {
+      shards[i] = new Shard(new WindowTable(Math.min(INITIAL_SLOTS, perShard), perShard));
+    }
+    metrics = new WindowMetrics(registry, windows, this::open, this::watermarkLag);
+  }
+
+  /**
+   * Returns whether any window is defined.
+   *
+   * @return false if events are not aggregated at all
+   */
+  public boolean isEnabled() {
+    return definitions.length > 0;
+  }
+
+  /**
+   * Adds an event to its windows of every definition and advances the watermark.
+   *
+   * <p>Events are added once their batch was published, when failing would republish it; an event
+   * without a timestamp is therefore counted as {@code untimed} and skipped rather than rejected.
+   *
+   * @param event a processed event
+   */
+  public void add(ProcessedEvent event) {
+    if (definitions.length == 0) {
+      return;
+    }
+    if (event.ts() == null) {
+      for (int d = 0; d < definitions.length; d++) {
+        metrics.untimed(d);
+      }
+      return;
+    }
+    long ts = event.ts().toEpochMilli();
+    maxEventTime.accumulateAndGet(ts, Math::max);
+    lastEventAt = clock.millis();
+    long watermark = watermark();
+    double value = event.valueTransformed();
+    String[] keys = new String[definitions.length];
+    for (int d = 0; d < definitions.length; d++) {
+      String key = keys[d] = keys[sameGroupAs[d]] != null ? keys[sameGroupAs[d]] : key(d, event);
+      int hash = WindowTable.hash(d, key, 0);
+      Shard shard = shards[Math.floorMod(hash, shards.length)];
+      Outcome outcome;
+      synchronized (shard) {
+        outcome = shard.add(d, key, ts, value, watermark);
+      }
+      switch (outcome) {
+        case AGGREGATED -> metrics.aggregated(d);
+        case LATE -> metrics.late(d);
+        case SUPERSEDED -> metrics.superseded(d);
+        case OVERFLOW -> metrics.overflow(d);
+      }
+    }
+  }
+
+  /**
+   * Returns the aggregates of the windows the watermark has passed that were not emitted with
+   * their current values, and closes windows past their allowed lateness.
+   *
+   * @return the aggregates to publish, in no particular order
+   */
+  public List<WindowAggregate> fire() {
+    long max = maxEventTime.get();
+    long idleFor = clock.millis() - lastEventAt;
+    if (max != Long.MIN_VALUE && idleFor >= idleTimeout) {
+      idleWatermark = Math.max(idleWatermark, max + idleFor - delay);
+    }
+    long watermark = watermark();
+    List<WindowAggregate> fired = new ArrayList<>();
+    for (Shard shard : shards) {
+      synchronized (shard) {
+        shard.fire(watermark, fired);
+      }
+    }
+    return fired;
+  }
+
+  /**
+   * Returns the current watermark.
+   *
+   * @return epoch milliseconds before which windows are complete, {@link Long#MIN_VALUE} before
+   *     the first event
+   */
+  public long watermark() {
+    long max = maxEventTime.get();
+    long byEvents = max != Long.MIN_VALUE ? max - delay : Long.MIN_VALUE;
+    return Math.max(byEvents, idleWatermark);
+  }
+
+  /**
+   * Returns the instance ID the aggregates are published under.
+   *
+   * @return the configured ID, the one restored with the state, or a random one
+   */
+  public String instance() {
+    return instance;
+  }
+
+  /**
+   * Reopens the windows and watermark persisted in a store and starts tracking changes for
+   * {@link #checkpoint}. Must be called once, before any event is added.
+   *
+   * <p>Without a configured instance ID the ID stored with the state is adopted, so the restored
+   * windows keep publishing under the ID of the instance that aggregated them. State stored under
+   * another ID than the configured one is discarded, as are windows of definitions that were
+   * removed or changed since, and windows that no longer fit in {@code maxOpenWindows}; the next
+   * checkpoint deletes them from the store.
+   *
+   * @param store the store, empty on the first start
+   * @return the number of windows restored
+   */
+  public int restore(StateStore store) {
+    byte[] stored = store.get(INSTANCE_KEY);
+    String storedInstance = stored != null ? new String(stored, StandardCharsets.UTF_8) : null;
+    if (configuredInstance == null && storedInstance != null) {
+      instance = storedInstance;
+    }
+    instanceChanged = !instance.equals(storedInstance);
+    boolean discard = storedInstance != null && instanceChanged;
+    if (discard) {
+      Logging.info(
+          log,
+          "Discarding window state of instance {}, this instance is {}",
+          storedInstance,
+          instance);
+    }
+    Shard first = shards[0];
+    int[] restored = new int[1];
+    synchronized (first) {
+      store.forEach(
+          (key, value) -> {
+            if (key.equals(INSTANCE_KEY)) {
+              return;
+            }
+            if (discard || !restore(key, value)) {
+              first.removed.add(key);
+            } else if (key.startsWith(CLOSED_KEY) && !key.equals(CLOSED_KEY + 0)) {
+              // Pending sessions of every shard are merged into those of the first one
+              first.removed.add(key);
+              first.closedChanged = true;
+            } else if (key.startsWith("w")) {
+              restored[0]++;
+            }
+          });
+    }
+    lastEventAt = clock.millis();
+    tracking = true;
+    return restored[0];
+  }
+
+  /**
+   * Passes the state changed since the previous checkpoint, or since {@link #restore}, to be
+   * persisted: the serialized windows that changed, the closed ones as deletions, and the
+   * watermark.
+   *
+   * @param changes receives each changed key with its new value, or null if it was deleted
+   * @throws IllegalStateException if the state was not restored first
+   */
+  public void checkpoint(BiConsumer<String, byte[]> changes) {
+    if (!tracking) {
+      throw new IllegalStateException("Window state must be restored before checkpoints");
+    }
+    if (instanceChanged) {
+      changes.accept(INSTANCE_KEY, instance.getBytes(StandardCharsets.UTF_8));
+      instanceChanged = false;
+    }
+    for (int i = 0; i < shards.length; i++) {
+      Shard shard = shards[i];
+      synchronized (shard) {
+        shard.checkpoint(i, changes);
+      }
+    }
+    BinaryWriter watermark = new BinaryWriter(20);
+    watermark.writeZigZag(maxEventTime.get());
+    watermark.writeZigZag(idleWatermark);
+    changes.accept(WATERMARK_KEY, watermark.toByteArray());
+  }
+
+  /**
+   * Returns the number of open windows across all shards.
+   *
+   * @return windows held in memory
+   */
+  public int open() {
+    int open = 0;
+    for (Shard shard : shards) {
+      synchronized (shard) {
+        open += shard.table.live();
+      }
+    }
+    return open;
+  }
+
+  WindowMetrics metrics() {
+    return metrics;
+  }
+
+  private double watermarkLag() {
+    long watermark = watermark();
+    return watermark != Long.MIN_VALUE ? clock.millis() - watermark : Double.NaN;
+  }
+
+  /** Restores one stored entry into the first shard and returns false if it is stale. */
+  private boolean restore(String key, byte[] value) {
+    try {
+      if (key.equals(WATERMARK_KEY)) {
+        BinaryReader in = new BinaryReader(value, 0, value.length);
+        maxEventTime.accumulateAndGet(in.readZigZag(), Math::max);
+        idleWatermark = Math.max(idleWatermark, in.readZigZag());
+        return true;
+      }
+      if (key.startsWith(CLOSED_KEY)) {
+        BinaryReader in = new BinaryReader(value, 0, value.length);
+        for (long n = in.readVarLong(); n > 0; n--) {
+          shards[0].closed.add(JsonCodec.WINDOW_AGGREGATE.decode(in.readBytes(in.readVarInt())));
+        }
+        return true;
+      }
+      return key.startsWith("w") && restoreWindow(key, WindowState.decode(value));
+    } catch (DecodingException e) {
+      Logging.error(log, "Discarding undecodable window state " + key, e);
+      return false;
+    }
+  }
+
+  private boolean restoreWindow(String stateKey, WindowState state) {
+    int name = stateKey.indexOf(WindowState.SEPARATOR, 2);
+    int id = stateKey.indexOf(WindowState.SEPARATOR, name + 1);
+    Integer d = name > 0 && id > 0 ? indexes.get(stateKey.substring(2, name)) : null;
+    if (d == null || fingerprints[d] != state.fingerprint()) {
+      return false;
+    }
+    long windowId = Long.parseLong(stateKey.substring(name + 1, id));
+    String key = stateKey.substring(id + 1);
+    DDSketch sketch = state.sketch() != null ? DDSketch.fromBytes(state.sketch()) : null;
+    Shard shard = shards[Math.floorMod(WindowTable.hash(d, key, 0), shards.length)];
+    synchronized (shard) {
+      WindowTable table = shard.table;
+      int hash = WindowTable.hash(d, key, windowId);
+      int s = table.find(d, key, windowId, hash);
+      if (s == WindowTable.NONE) {
+        s = table.insert(d, key, windowId, hash, state.start(), state.end(), false);
+      }
+      if (s == WindowTable.NONE) {
+        return false;
+      }
+      table.bounds(s, state.start(), state.end());
+      table.restore(
+          s, state.count(), state.sum(), state.min(), state.max(), sketch, state.flags());
+    }
+    return true;
+  }
+
+  private String key(int d, ProcessedEvent event) {
+    List<String> groupBy = definitions[d].groupBy();
+    if (groupBy.size() == 1) {
+      return tag(event, groupBy.get(0));
+    }
+    StringBuilder key = new StringBuilder();
+    for (int i = 0; i < groupBy.size(); i++) {
+      if (i > 0) {
+        key.append(SEPARATOR);
+      }
+      key.append(tag(event, groupBy.get(i)));
+    }
+    return key.toString();
+  }
+
+  private static String tag(ProcessedEvent event, String name) {
+    Object value = event.tags().get(name);
+    return value != null ? value.toString() : MISSING;
+  }
+
+  private Map<String, String> group(int d, String key) {
+    List<String> groupBy = definitions[d].groupBy();
+    Map<String, String> group = new LinkedHashMap<>();
+    int from = 0;
+    for (int i = 0; i < groupBy.size(); i++) {
+      int to = i < groupBy.size() - 1 ? key.indexOf(SEPARATOR, from) : key.length();
+      group.put(groupBy.get(i), key.substring(from, to));
+      from = to + 1;
+    }
+    return group;
+  }
+
+  private enum Outcome {
+    AGGREGATED,
+    LATE,
+    SUPERSEDED,
+    OVERFLOW
+  }
+
+  /** A lock-guarded partition of the window state. */
+  private final class Shard {
+
+    private final WindowTable table;
+
+    /** Sessions closed by a later event before the watermark reached them. */
+    private final List<WindowAggregate> closed = new ArrayList<>();
+
+    /** State keys of the windows closed since the last checkpoint, while tracking changes. */
+    private final List<String> removed = new ArrayList<>();
+
+    /** Whether {@link #closed} changed since the last checkpoint. */
+    private boolean closedChanged;
+
+    Shard(WindowTable table) {
+      this.table = table;
+    }
+
+    Outcome add(int d, String key, long ts, double value, long watermark) {
+      return switch (definitions[d].type()) {
+        case TUMBLING -> {
+          long start = ts - Math.floorMod(ts, sizes[d]);
+          yield addToWindow(d, key, start, start + sizes[d], value, watermark);
+        }
+        case SLIDING -> {
+          Outcome outcome = Outcome.LATE;
+          long first = ts - Math.floorMod(ts, slides[d]);
+          for (long start = first; start > ts - sizes[d]; start -= slides[d]) {
+            Outcome window = addToWindow(d, key, start, start + sizes[d], value, watermark);
+            if (window == Outcome.OVERFLOW) {
+              yield window;
+            }
+            if (window == Outcome.AGGREGATED) {
+              outcome = window;
+            }
+          }
+          yield outcome;
+        }
+        case SESSION -> addToSession(d, key, ts, value, watermark);
+      };
+    }
+
+    private Outcome addToWindow(
+        int d, String key, long start, long end, double value, long watermark) {
+      if (end + lateness[d] <= watermark) {
+        return Outcome.LATE;
+      }
+      int hash = WindowTable.hash(d, key, start);
+      int s = table.find(d, key, start, hash);
+      if (s == WindowTable.NONE) {
+        s = table.insert(d, key, start, hash, start, end, percentileNames[d].length > 0);
+        if (s == WindowTable.NONE) {
+          return Outcome.OVERFLOW;
+        }
+      }
+      table.add(s, value);
+      return Outcome.AGGREGATED;
+    }
+
+    private Outcome addToSession(int d, String key, long ts, double value, long watermark) {
+      long end = ts + gaps[d];
+      int hash = WindowTable.hash(d, key, 0);
+      int s = table.find(d, key, 0, hash);
+      if (s == WindowTable.NONE || ts >= table.end(s)) {
+        if (end + lateness[d] <= watermark) {
+          return Outcome.LATE;
+        }
+        boolean sketch = percentileNames[d].length > 0;
+        if (s == WindowTable.NONE) {
+          s = table.insert(d, key, 0, hash, ts, end, sketch);
+          if (s == WindowTable.NONE) {
+            return Outcome.OVERFLOW;
+          }
+        } else {
+          // The gap elapsed since the last event of the session, so it is complete
+          if (table.isDirty(s)) {
+            closed.add(snapshot(s));
+            closedChanged = true;
+          }
+          table.reset(s, ts, end, sketch);
+        }
+      } else if (ts >= table.start(s) - gaps[d]) {
+        table.bounds(s, Math.min(table.start(s), ts), Math.max(table.end(s), end));
+      } else {
+        // Belongs to a session closed before the current one started
+        return end + lateness[d] <= watermark ? Outcome.LATE : Outcome.SUPERSEDED;
+      }
+      table.add(s, value);
+      return Outcome.AGGREGATED;
+    }
+
+    void fire(long watermark, List<WindowAggregate> fired) {
+      if (!closed.isEmpty()) {
+        fired.addAll(closed);
+        closed.clear();
+        closedChanged = true;
+      }
+      for (int s = 0; s < table.allocated(); s++) {
+        if (!table.isLive(s) || table.end(s) > watermark) {
+          continue;
+        }
+        if (table.isDirty(s)) {
+          fired.add(snapshot(s));
+          table.emitted(s);
+        }
+        if (table.end(s) + lateness[table.definition(s)] <= watermark) {
+          if (tracking) {
+            removed.add(stateKey(s));
+          }
+          table.remove(s);
+        }
+      }
+    }
+
+    void checkpoint(int index, BiConsumer<String, byte[]> changes) {
+      for (String key : removed) {
+        changes.accept(key, null);
+      }
+      removed.clear();
+      for (int s = 0; s < table.allocated(); s++) {
+        if (table.isLive(s) && table.isChanged(s)) {
+          changes.accept(stateKey(s), state(s).encode());
+          table.checkpointed(s);
+        }
+      }
+      if (closedChanged) {
+        changes.accept(CLOSED_KEY + index, closed.isEmpty() ? null : encodeClosed());
+        closedChanged = false;
+      }
+    }
+
+    private String stateKey(int s) {
+      return WindowState.key(definitions[table.definition(s)].name(), table.id(s), table.key(s));
+    }
+
+    private WindowState state(int s) {
+      DDSketch sketch = table.sketch(s);
+      return new WindowState(
+          fingerprints[table.definition(s)],
+          table.start(s),
+          table.end(s),
+          table.count(s),
+          table.sum(s),
+          table.min(s),
+          table.max(s),
+          table.emission(s),
+          sketch != null ? sketch.toBytes() : null);
+    }
+
+    private byte[] encodeClosed() {
+      BinaryWriter out = new BinaryWriter(256 * closed.size());
+      out.writeVarLong(closed.size());
+      for (WindowAggregate aggregate : closed) {
+        byte[] json = JsonCodec.WINDOW_AGGREGATE.encode(aggregate);
+        out.writeVarLong(json.length);
+        out.writeBytes(json);
+      }
+      return out.toByteArray();
+    }
+
+    private WindowAggregate snapshot(int s) {
+      int d = table.definition(s);
+      long count = table.count(s);
+      double min = table.min(s);
+      double max = table.max(s);
+      Map<String, Double> percentiles = new LinkedHashMap<>();
+      DDSketch sketch = table.sketch(s);
+      for (int i = 0; i < percentileNames[d].length; i++) {
+        double quantile = definitions[d].percentiles().get(i);
+        percentiles.put(percentileNames[d][i], sketch.quantile(quantile));
+      }
+      return new WindowAggregate(
+          instance,
+          definitions[d].name(),
+          group(d, table.key(s)),
+          Instant.ofEpochMilli(table.start(s)),
+          Instant.ofEpochMilli(table.end(s)),
+          count,
+          table.sum(s),
+          min,
+          max,
+          table.sum(s) / count,
+          percentiles,
+          sketch != null ? sketch.toBytes() : null);
+    }
+  }
+}
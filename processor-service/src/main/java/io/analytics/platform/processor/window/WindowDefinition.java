@@ -0,0 +1,128 @@
+package io.analytics.platform.processor.window;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * One windowed aggregation, as written under {@code processor.aggregation.windows}.
+ *
+ * <p>Events are grouped by the values of the {@code groupBy} tags, so {@code [source]} yields one
+ * rollup per source and an empty list a single rollup of all events. Each group has its own
+ * windows over the event timestamp:
+ *
+ * <ul>
+ *   <li>{@code tumbling}: {@code size}-long windows aligned to the epoch
+ *   <li>{@code sliding}: {@code size}-long windows starting every {@code slide}
+ *   <li>{@code session}: a window that each event extends to its timestamp plus {@code gap}
+ * </ul>
+ *
+ * <p>A window is emitted when the watermark passes its end and kept for {@code allowedLateness}
+ * afterwards, so late events still update it and re-emit it; events later than that are dropped.
+ *
+ * @param name identifies the definition in emitted aggregates and metrics
+ * @param type how events are assigned to windows
+ * @param size window length of tumbling and sliding windows
+ * @param slide distance between sliding window starts; must divide {@code size}
+ * @param gap inactivity that closes a session
+ * @param allowedLateness time a window accepts late events after it was emitted, none by default
+ * @param groupBy tags whose values form the group key
+ * @param percentiles quantiles between 0 and 1 to estimate, none by default
+ */
+public record WindowDefinition(
+    String name,
+    WindowType type,
+    Duration size,
+    Duration slide,
+    Duration gap,
+    Duration allowedLateness,
+    List<String> groupBy,
+    List<Double> percentiles) {
+
+  /** Upper bound of the windows one event of a sliding definition falls into. */
+  public static final int MAX_SLIDES = 64;
+
+  /** Validates the definition and applies the defaults. */
+  public WindowDefinition {
+    if (name == null || name.isBlank()) {
+      throw new IllegalArgumentException("Window name is required");
+    }
+    if (type == null) {
+      throw new IllegalArgumentException("Window " + name + ": type is required");
+    }
+    switch (type) {
+      case TUMBLING -> requirePositive(name, "size", size);
+      case SLIDING -> {
+        requirePositive(name, "size", size);
+        requirePositive(name, "slide", slide);
+        if (size.toMillis() % slide.toMillis() != 0) {
+          throw new IllegalArgumentException("Window " + name + ": slide must divide size");
+        }
+        if (size.toMillis() / slide.toMillis() > MAX_SLIDES) {
+          throw new IllegalArgumentException(
+              "Window " + name + ": size / slide must not exceed " + MAX_SLIDES);
+        }
+      }
+      case SESSION -> requirePositive(name, "gap", gap);
+    }
+    allowedLateness = allowedLateness != null ? allowedLateness : Duration.ZERO;
+    if (allowedLateness.isNegative()) {
+      throw new IllegalArgumentException(
+          "Window " + name + ": allowed-lateness must not be negative");
+    }
+    groupBy = groupBy != null ? List.copyOf(groupBy) : List.of();
+    percentiles = percentiles != null ? List.copyOf(percentiles) : List.of();
+    for (double q : percentiles) {
+      if (!(q >= 0 && q <= 1)) {
+        throw new IllegalArgumentException(
+            "Window " + name + ": percentiles must be between 0 and 1, got " + q);
+      }
+    }
+  }
+
+  /**
+   * Creates a tumbling window definition without lateness or percentiles.
+   *
+   * @param name the definition name
+   * @param size the window length
+   * @param groupBy the grouping tags
+   * @return the definition
+   */
+  public static WindowDefinition tumbling(String name, Duration size, String... groupBy) {
+    return new WindowDefinition(
+        name, WindowType.TUMBLING, size, null, null, null, List.of(groupBy), null);
+  }
+
+  /**
+   * Creates a sliding window definition without lateness or percentiles.
+   *
+   * @param name the definition name
+   * @param size the window length
+   * @param slide the distance between window starts
+   * @param groupBy the grouping tags
+   * @return the definition
+   */
+  public static WindowDefinition sliding(
+      String name, Duration size, Duration slide, String... groupBy) {
+    return new WindowDefinition(
+        name, WindowType.SLIDING, size, slide, null, null, List.of(groupBy), null);
+  }
+
+  /**
+   * Creates a session window definition without lateness or percentiles.
+   *
+   * @param name the definition name
+   * @param gap the inactivity that closes a session
+   * @param groupBy the grouping tags
+   * @return the definition
+   */
+  public static WindowDefinition session(String name, Duration gap, String... groupBy) {
+    return new WindowDefinition(
+        name, WindowType.SESSION, null, null, gap, null, List.of(groupBy), null);
+  }
+
+  private static void requirePositive(String name, String field, Duration value) {
+    if (value == null || value.toMillis() <= 0) {
+      throw new IllegalArgumentException("Window " + name + ": " + field + " must be at least 1ms");
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package io.analytics.platform.processor.window;
+
+import io.analytics.platform.common.dto.WindowAggregate;
+import io.analytics.platform.common.logging.Logging;
+import io.analytics.platform.common.util.JsonCodec;
+import io.analytics.platform.common.util.WireFormat;
+import io.analytics.platform.processor.config.ProcessorProperties;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.Logger;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Publishes the windows closed by the {@link WindowAggregator} to the aggregates topic.
+ *
+ * <p>Every {@code emitInterval} a single thread fires the aggregator and sends each aggregate as
+ * JSON, keyed by window name and group so that all updates of a group land on one partition in
+ * order. Sends are not awaited: a failed send is logged and counted, and the aggregate is not
+ * retried, as its window is already closed or has moved on.
+ *
+ * <p>Open windows are held in memory; unless they are persisted by the {@code StateManager}, they
+ * are lost on shutdown, and the records they aggregated have been committed and are not
+ * redelivered.
+ */
+public final class WindowEmitter implements SmartLifecycle {
+
+  private static final Logger log = Logging.getLogger(WindowEmitter.class);
+
+  private final WindowAggregator aggregator;
+  private final KafkaTemplate<String, byte[]> template;
+  private final ProcessorProperties.Aggregation settings;
+  private final Header contentType =
+      new RecordHeader(WireFormat.CONTENT_TYPE_HEADER, WireFormat.JSON.contentTypeBytes());
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * Creates an emitter; windows are published once it is {@link #start() started}.
+   *
+   * @param aggregator the aggregator to fire
+   * @param template producer of the aggregate records
+   * @param settings output topic and emit interval
+   */
+  public WindowEmitter(
+      WindowAggregator aggregator,
+      KafkaTemplate<String, byte[]> template,
+      ProcessorProperties.Aggregation settings) {
+    this.aggregator = aggregator;
+    this.template = template;
+    this.settings = settings;
+  }
+
+  /** Schedules the emission, unless no window is defined. */
+  @Override
+  public synchronized void start() {
+    if (scheduler != null || !aggregator.isEnabled()) {
+      return;
+    }
+    long interval = settings.emitInterval().toMillis();
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("processor-window-emitter").factory());
+    scheduler.scheduleWithFixedDelay(this::emitSafely, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (scheduler == null) {
+      return;
+    }
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(settings.emitInterval().toMillis() + 5000, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    scheduler = null;
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return scheduler != null;
+  }
+
+  /**
+   * Fires the aggregator and sends the aggregates of the closed windows.
+   *
+   * @return the number of aggregates sent
+   */
+  public int emit() {
+    List<WindowAggregate> fired = aggregator.fire();
+    WindowMetrics metrics = aggregator.metrics();
+    for (WindowAggregate aggregate : fired) {
+      template
+          .send(record(aggregate))
+          .whenComplete(
+              (result, e) -> {
+                if (e != null) {
+                  metrics.failed();
+                  Logging.error(log, "Failed to publish window aggregate " + key(aggregate), e);
+                } else {
+                  metrics.published();
+                }
+              });
+    }
+    return fired.size();
+  }
+
+  private void emitSafely() {
+    try {
+      emit();
+    } catch (RuntimeException e) {
+      // Thrown out of the scheduled task it would cancel every later emission
+      Logging.error(log, "Window emission failed", e);
+    }
+  }
+
+  private ProducerRecord<String, byte[]> record(WindowAggregate aggregate) {
+    return new ProducerRecord<>(
+        settings.outputTopic(),
+        null,
+        key(aggregate),
+        JsonCodec.WINDOW_AGGREGATE.encode(aggregate),
+        new RecordHeaders(new Header[] {contentType}));
+  }
+
+  private static String key(WindowAggregate aggregate) {
+    StringBuilder key = new StringBuilder(aggregate.window());
+    for (String value : aggregate.group().values()) {
+      key.append('/').append(value);
+    }
+    return key.toString();
+  }
+}
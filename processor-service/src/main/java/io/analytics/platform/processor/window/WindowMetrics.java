@@ -0,0 +1,120 @@
+package io.analytics.platform.processor.window;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instruments of the {@link WindowAggregator} and {@link WindowEmitter}.
+ *
+ * <ul>
+ *   <li>{@code processor.window.events{window,outcome}}: events aggregated, dropped as late,
+ *       dropped as belonging to a session superseded by the group's current one, dropped
+ *       because the window bound was reached, or skipped for lack of a timestamp, per definition
+ *   <li>{@code processor.window.open}: windows held in memory
+ *   <li>{@code processor.window.watermark.lag}: milliseconds from the watermark to the wall clock
+ *   <li>{@code processor.window.emitted{outcome}}: aggregates published and failed to publish
+ * </ul>
+ */
+public final class WindowMetrics {
+
+  private final Counter[] aggregated;
+  private final Counter[] late;
+  private final Counter[] superseded;
+  private final Counter[] overflow;
+  private final Counter[] untimed;
+  private final Counter emitted;
+  private final Counter failed;
+
+  /**
+   * Registers the window meters.
+   *
+   * @param registry the registry to publish to
+   * @param definitions the window definitions, in aggregator order
+   * @param open source of the open window count
+   * @param watermarkLag source of the watermark lag in milliseconds
+   */
+  public WindowMetrics(
+      MeterRegistry registry,
+      List<WindowDefinition> definitions,
+      Supplier<Number> open,
+      Supplier<Number> watermarkLag) {
+    aggregated = new Counter[definitions.size()];
+    late = new Counter[definitions.size()];
+    superseded = new Counter[definitions.size()];
+    overflow = new Counter[definitions.size()];
+    untimed = new Counter[definitions.size()];
+    for (int d = 0; d < definitions.size(); d++) {
+      String window = definitions.get(d).name();
+      aggregated[d] = events(registry, window, "aggregated");
+      late[d] = events(registry, window, "late");
+      superseded[d] = events(registry, window, "superseded");
+      overflow[d] = events(registry, window, "overflow");
+      untimed[d] = events(registry, window, "untimed");
+    }
+    emitted = emitted(registry, "published");
+    failed = emitted(registry, "failed");
+    Gauge.builder("processor.window.open", open)
+        .description("Windows held in memory")
+        .register(registry);
+    Gauge.builder("processor.window.watermark.lag", watermarkLag)
+        .description("Milliseconds from the watermark to the wall clock")
+        .baseUnit("milliseconds")
+        .register(registry);
+  }
+
+  private static Counter events(MeterRegistry registry, String window, String outcome) {
+    return Counter.builder("processor.window.events")
+        .description("Events offered to a window definition, by outcome")
+        .tag("window", window)
+        .tag("outcome", outcome)
+        .register(registry);
+  }
+
+  private static Counter emitted(MeterRegistry registry, String outcome) {
+    return Counter.builder("processor.window.emitted")
+        .description("Window aggregates sent to the aggregates topic, by outcome")
+        .tag("outcome", outcome)
+        .register(registry);
+  }
+
+  /** Records an event added to the windows of a definition. */
+  void aggregated(int definition) {
+    aggregated[definition].increment();
+  }
+
+  /** Records an event dropped because all its windows of a definition had closed. */
+  void late(int definition) {
+    late[definition].increment();
+  }
+
+  /**
+   * Records an event dropped because it fell before the current session of its group, within the
+   * allowed lateness.
+   */
+  void superseded(int definition) {
+    superseded[definition].increment();
+  }
+
+  /** Records an event dropped because no more windows could be opened. */
+  void overflow(int definition) {
+    overflow[definition].increment();
+  }
+
+  /** Records an event skipped because it had no timestamp. */
+  void untimed(int definition) {
+    untimed[definition].increment();
+  }
+
+  /** Records an aggregate acknowledged by the broker. */
+  void published() {
+    emitted.increment();
+  }
+
+  /** Records an aggregate the producer failed to deliver. */
+  void failed() {
+    failed.increment();
+  }
+}
@@ -0,0 +1,113 @@
+package io.analytics.platform.processor.window;
+
+import io.analytics.platform.common.exception.DecodingException;
+import io.analytics.platform.common.util.BinaryReader;
+import io.analytics.platform.common.util.BinaryWriter;
+
+/**
+ * Persisted form of one open window, the value of its entry in the state store.
+ *
+ * <p>Entries are keyed by {@link #key}: definition name, window ID and group key, so they survive
+ * changes to the order of the definitions. The fingerprint of the definition is kept with the
+ * window, and windows of a definition whose settings have changed since are not restored.
+ *
+ * @param fingerprint fingerprint of the window definition
+ * @param start start of the window
+ * @param end end of the window
+ * @param count number of aggregated values
+ * @param sum sum of the values
+ * @param min smallest value
+ * @param max largest value
+ * @param flags emission flags of the {@link WindowTable} slot
+ * @param sketch serialized quantile sketch, null if the window keeps none
+ */
+record WindowState(
+    int fingerprint,
+    long start,
+    long end,
+    long count,
+    double sum,
+    double min,
+    double max,
+    int flags,
+    byte[] sketch) {
+
+  /** Separates the parts of state keys; group keys may contain it, so they come last. */
+  static final char SEPARATOR = '\u001f';
+
+  private static final int FORMAT_VERSION = 1;
+
+  /**
+   * Returns the fingerprint of a definition, stable across restarts.
+   *
+   * @param definition the definition
+   * @return a hash of its settings
+   */
+  static int fingerprint(WindowDefinition definition) {
+    return definition.toString().hashCode();
+  }
+
+  /**
+   * Returns the state key of a window.
+   *
+   * @param definition name of the window definition
+   * @param id the window start, or 0 for the single session of a group
+   * @param key the group key
+   * @return the key, starting with {@code w}
+   */
+  static String key(String definition, long id, String key) {
+    return "w" + SEPARATOR + definition + SEPARATOR + id + SEPARATOR + key;
+  }
+
+  /**
+   * Serializes the window.
+   *
+   * @return the binary form, readable with {@link #decode(byte[])}
+   */
+  byte[] encode() {
+    BinaryWriter out = new BinaryWriter(64 + (sketch != null ? sketch.length : 0));
+    out.writeByte(FORMAT_VERSION);
+    out.writeZigZag(fingerprint);
+    out.writeZigZag(start);
+    out.writeZigZag(end);
+    out.writeVarLong(count);
+    out.writeDouble(sum);
+    out.writeDouble(min);
+    out.writeDouble(max);
+    out.writeByte(flags);
+    out.writeVarLong(sketch != null ? sketch.length + 1 : 0);
+    if (sketch != null) {
+      out.writeBytes(sketch);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Reads a window written by {@link #encode()}.
+   *
+   * @param bytes the binary form
+   * @return the window
+   * @throws DecodingException if the bytes are not a valid window
+   */
+  static WindowState decode(byte[] bytes) {
+    BinaryReader in = new BinaryReader(bytes, 0, bytes.length);
+    int version = in.readByte();
+    if (version != FORMAT_VERSION) {
+      throw new DecodingException("Unsupported window state version " + version);
+    }
+    int fingerprint = (int) in.readZigZag();
+    long start = in.readZigZag();
+    long end = in.readZigZag();
+    long count = in.readVarLong();
+    double sum = in.readDouble();
+    double min = in.readDouble();
+    double max = in.readDouble();
+    int flags = in.readByte();
+    int sketchLength = in.readVarInt();
+    byte[] sketch = sketchLength > 0 ? in.readBytes(sketchLength - 1) : null;
+    if (in.hasRemaining()) {
+      throw new DecodingException("Trailing bytes after window state");
+    }
+    return new WindowState(fingerprint, start, end, count, sum, min, max, flags, sketch);
+  }
+}
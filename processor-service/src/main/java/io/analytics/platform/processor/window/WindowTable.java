@@ -0,0 +1,309 @@
+package io.analytics.platform.processor.window;
+
+import io.analytics.platform.common.sketch.DDSketch;
+import java.util.Arrays;
+
+/**
+ * Open windows of one aggregator shard, stored column-wise in primitive arrays.
+ *
+ * <p>A window occupies a slot index into parallel arrays of its identity (definition, group key
+ * and start), bounds and running aggregates, so a window costs about 90 bytes plus its group key,
+ * which is shared by every window of that group created from the same event, and no per-window
+ * object unless it keeps a quantile sketch. Slots are found through hash chains linked by slot
+ * index and recycled through a free list; the arrays double on demand up to {@code maxSlots} and
+ * never shrink.
+ *
+ * <p>Not thread-safe; the owning shard serializes access.
+ */
+final class WindowTable {
+
+  /** Index of no slot. */
+  static final int NONE = -1;
+
+  private static final byte EMITTED = 1;
+  private static final byte DIRTY = 2;
+  private static final byte CHANGED = 4;
+
+  private final int maxSlots;
+  private int[] heads;
+  private int[] next;
+  private int[] hashes;
+  private int[] definitions;
+  private String[] keys;
+  private long[] ids;
+  private long[] starts;
+  private long[] ends;
+  private long[] counts;
+  private double[] sums;
+  private double[] mins;
+  private double[] maxs;
+  private DDSketch[] sketches;
+  private byte[] flags;
+  private int allocated;
+  private int free = NONE;
+  private int live;
+
+  /**
+   * Creates an empty table.
+   *
+   * @param initialSlots slots allocated up front
+   * @param maxSlots slots the table may grow to
+   */
+  WindowTable(int initialSlots, int maxSlots) {
+    this.maxSlots = maxSlots;
+    int capacity = Math.max(1, Math.min(initialSlots, maxSlots));
+    heads = new int[Integer.highestOneBit(capacity * 2 - 1)];
+    Arrays.fill(heads, NONE);
+    next = new int[capacity];
+    hashes = new int[capacity];
+    definitions = new int[capacity];
+    keys = new String[capacity];
+    ids = new long[capacity];
+    starts = new long[capacity];
+    ends = new long[capacity];
+    counts = new long[capacity];
+    sums = new double[capacity];
+    mins = new double[capacity];
+    maxs = new double[capacity];
+    sketches = new DDSketch[capacity];
+    flags = new byte[capacity];
+  }
+
+  /**
+   * Returns the hash of a window identity.
+   *
+   * @param definition index of the window definition
+   * @param key the group key
+   * @param id the window start, or 0 for the single session of a group
+   * @return the hash
+   */
+  static int hash(int definition, String key, long id) {
+    int h = key.hashCode() * 31 + definition;
+    h ^= Long.hashCode(id * 0x9E3779B97F4A7C15L);
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Finds the slot of a window.
+   *
+   * @return the slot, or {@link #NONE} if the window is not open
+   */
+  int find(int definition, String key, long id, int hash) {
+    for (int s = heads[hash & (heads.length - 1)]; s != NONE; s = next[s]) {
+      if (hashes[s] == hash
+          && ids[s] == id
+          && definitions[s] == definition
+          && keys[s].equals(key)) {
+        return s;
+      }
+    }
+    return NONE;
+  }
+
+  /**
+   * Opens a window with no events.
+   *
+   * @param sketch whether the window keeps a quantile sketch
+   * @return the slot, or {@link #NONE} if the table is full
+   */
+  int insert(
+      int definition, String key, long id, int hash, long start, long end, boolean sketch) {
+    int s;
+    if (free != NONE) {
+      s = free;
+      free = next[s];
+    } else {
+      if (allocated == next.length && !grow()) {
+        return NONE;
+      }
+      s = allocated++;
+    }
+    hashes[s] = hash;
+    definitions[s] = definition;
+    keys[s] = key;
+    ids[s] = id;
+    reset(s, start, end, sketch);
+    int bucket = hash & (heads.length - 1);
+    next[s] = heads[bucket];
+    heads[bucket] = s;
+    if (++live > heads.length) {
+      rehash();
+    }
+    return s;
+  }
+
+  /** Clears the aggregates of a slot and gives it new bounds, keeping its identity. */
+  void reset(int s, long start, long end, boolean sketch) {
+    starts[s] = start;
+    ends[s] = end;
+    counts[s] = 0;
+    sums[s] = 0;
+    mins[s] = Double.POSITIVE_INFINITY;
+    maxs[s] = Double.NEGATIVE_INFINITY;
+    sketches[s] = sketch ? new DDSketch() : null;
+    flags[s] = CHANGED;
+  }
+
+  /** Sets the aggregates and emission flags of a slot, e.g. from a checkpoint. */
+  void restore(
+      int s, long count, double sum, double min, double max, DDSketch sketch, int emission) {
+    counts[s] = count;
+    sums[s] = sum;
+    mins[s] = min;
+    maxs[s] = max;
+    sketches[s] = sketch;
+    flags[s] = (byte) (emission & (EMITTED | DIRTY));
+  }
+
+  /** Adds a value to the aggregates of a slot. */
+  void add(int s, double value) {
+    counts[s]++;
+    sums[s] += value;
+    mins[s] = Math.min(mins[s], value);
+    maxs[s] = Math.max(maxs[s], value);
+    if (sketches[s] != null) {
+      sketches[s].add(value);
+    }
+    flags[s] |= DIRTY | CHANGED;
+  }
+
+  /** Changes the bounds of a slot, e.g. of an extended session. */
+  void bounds(int s, long start, long end) {
+    starts[s] = start;
+    ends[s] = end;
+    flags[s] |= CHANGED;
+  }
+
+  /** Marks a slot as emitted with its current aggregates. */
+  void emitted(int s) {
+    flags[s] = EMITTED | CHANGED;
+  }
+
+  /** Returns whether the slot has aggregates not emitted yet. */
+  boolean isDirty(int s) {
+    return (flags[s] & DIRTY) != 0;
+  }
+
+  /** Returns whether the slot changed since it was last {@link #checkpointed}. */
+  boolean isChanged(int s) {
+    return (flags[s] & CHANGED) != 0;
+  }
+
+  /** Marks a slot as persisted with its current aggregates and flags. */
+  void checkpointed(int s) {
+    flags[s] &= ~CHANGED;
+  }
+
+  /** Returns the emission flags of a slot, to persist them. */
+  int emission(int s) {
+    return flags[s] & (EMITTED | DIRTY);
+  }
+
+  /** Closes the window of a slot and recycles the slot. */
+  void remove(int s) {
+    int bucket = hashes[s] & (heads.length - 1);
+    if (heads[bucket] == s) {
+      heads[bucket] = next[s];
+    } else {
+      int p = heads[bucket];
+      while (next[p] != s) {
+        p = next[p];
+      }
+      next[p] = next[s];
+    }
+    keys[s] = null;
+    sketches[s] = null;
+    next[s] = free;
+    free = s;
+    live--;
+  }
+
+  /** Returns whether a slot holds an open window, for iterating up to {@link #allocated()}. */
+  boolean isLive(int s) {
+    return keys[s] != null;
+  }
+
+  /** Returns the number of slots ever handed out; every live slot is below it. */
+  int allocated() {
+    return allocated;
+  }
+
+  /** Returns the number of open windows. */
+  int live() {
+    return live;
+  }
+
+  int definition(int s) {
+    return definitions[s];
+  }
+
+  long id(int s) {
+    return ids[s];
+  }
+
+  String key(int s) {
+    return keys[s];
+  }
+
+  long start(int s) {
+    return starts[s];
+  }
+
+  long end(int s) {
+    return ends[s];
+  }
+
+  long count(int s) {
+    return counts[s];
+  }
+
+  double sum(int s) {
+    return sums[s];
+  }
+
+  double min(int s) {
+    return mins[s];
+  }
+
+  double max(int s) {
+    return maxs[s];
+  }
+
+  DDSketch sketch(int s) {
+    return sketches[s];
+  }
+
+  private boolean grow() {
+    int capacity = next.length;
+    if (capacity >= maxSlots) {
+      return false;
+    }
+    int grown = (int) Math.min((long) capacity * 2, maxSlots);
+    next = Arrays.copyOf(next, grown);
+    hashes = Arrays.copyOf(hashes, grown);
+    definitions = Arrays.copyOf(definitions, grown);
+    keys = Arrays.copyOf(keys, grown);
+    ids = Arrays.copyOf(ids, grown);
+    starts = Arrays.copyOf(starts, grown);
+    ends = Arrays.copyOf(ends, grown);
+    counts = Arrays.copyOf(counts, grown);
+    sums = Arrays.copyOf(sums, grown);
+    mins = Arrays.copyOf(mins, grown);
+    maxs = Arrays.copyOf(maxs, grown);
+    sketches = Arrays.copyOf(sketches, grown);
+    flags = Arrays.copyOf(flags, grown);
+    return true;
+  }
+
+  private void rehash() {
+    heads = new int[heads.length * 2];
+    Arrays.fill(heads, NONE);
+    for (int s = 0; s < allocated; s++) {
+      if (keys[s] != null) {
+        int bucket = hashes[s] & (heads.length - 1);
+        next[s] = heads[bucket];
+        heads[bucket] = s;
+      }
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package io.analytics.platform.processor.window;
+
+/** How a {@link WindowDefinition} assigns events to windows by their timestamp. */
+public enum WindowType {
+
+  /** Consecutive windows of a fixed size; every event falls into exactly one. */
+  TUMBLING,
+
+  /** Windows of a fixed size starting every slide; an event falls into {@code size / slide}. */
+  SLIDING,
+
+  /** Per-group windows extended by every event and closed after a gap without events. */
+  SESSION
+}
@@ -0,0 +1,127 @@
+package io.analytics.platform.processor.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link OffsetTracker} class. */
+class OffsetTrackerTest {
+
+  private static final TopicPartition P0 = new TopicPartition("events", 0);
+  private static final TopicPartition P1 = new TopicPartition("events", 1);
+
+  /** Tests that the position stops at the lowest uncompleted offset. */
+  @Test
+  void committable_stopsAtLowestOffsetInProgress() {
+    OffsetTracker tracker = new OffsetTracker();
+    for (long offset = 10; offset < 15; offset++) {
+      tracker.dispatched(P0, offset);
+    }
+
+    assertTrue(tracker.completed(P0, 11));
+    assertTrue(tracker.completed(P0, 13));
+    assertEquals(Map.of(P0, new OffsetAndMetadata(10)), tracker.committable());
+
+    assertTrue(tracker.completed(P0, 10));
+    assertEquals(Map.of(P0, new OffsetAndMetadata(12)), tracker.committable());
+    assertEquals(2, tracker.pending(P0));
+
+    tracker.completed(P0, 12);
+    tracker.completed(P0, 14);
+    assertEquals(Map.of(P0, new OffsetAndMetadata(15)), tracker.committable());
+    assertEquals(0, tracker.pending(P0));
+  }
+
+  /** Tests that a position is returned until committed, and only for partitions that advanced. */
+  @Test
+  void committable_returnsOnlyAdvancedPartitions() {
+    OffsetTracker tracker = new OffsetTracker();
+    tracker.dispatched(P0, 0);
+    tracker.dispatched(P1, 7);
+    tracker.completed(P0, 0);
+
+    Map<TopicPartition, OffsetAndMetadata> expected =
+        Map.of(P0, new OffsetAndMetadata(1), P1, new OffsetAndMetadata(7));
+    assertEquals(expected, tracker.committable());
+    assertEquals(expected, tracker.committable());
+
+    tracker.markCommitted(expected);
+    assertTrue(tracker.committable().isEmpty());
+
+    tracker.completed(P1, 7);
+    assertEquals(Map.of(P1, new OffsetAndMetadata(8)), tracker.committable(List.of(P0, P1)));
+  }
+
+  /** Tests that a late acknowledgement of an older commit does not move the position back. */
+  @Test
+  void markCommitted_ignoresStalePositions() {
+    OffsetTracker tracker = new OffsetTracker();
+    tracker.dispatched(P0, 0);
+    tracker.dispatched(P0, 1);
+    tracker.completed(P0, 0);
+    tracker.completed(P0, 1);
+
+    tracker.markCommitted(Map.of(P0, new OffsetAndMetadata(2)));
+    tracker.markCommitted(Map.of(P0, new OffsetAndMetadata(1), P1, new OffsetAndMetadata(5)));
+
+    assertTrue(tracker.committable().isEmpty());
+    assertFalse(tracker.isTracked(P1));
+  }
+
+  /** Tests that offset gaps, as left by compaction or transactions, do not block the position. */
+  @Test
+  void completed_handlesOffsetGapsAndUnknownOffsets() {
+    OffsetTracker tracker = new OffsetTracker();
+    tracker.dispatched(P0, 3);
+    tracker.dispatched(P0, 9);
+    tracker.dispatched(P0, 40);
+
+    assertFalse(tracker.completed(P0, 4));
+    assertFalse(tracker.completed(P1, 3));
+    tracker.completed(P0, 9);
+    tracker.completed(P0, 3);
+    assertEquals(Map.of(P0, new OffsetAndMetadata(40)), tracker.committable());
+  }
+
+  /** Tests that the ring grows past its initial capacity while offsets wrap around. */
+  @Test
+  void dispatched_growsBeyondInitialCapacity() {
+    OffsetTracker tracker = new OffsetTracker();
+    for (long offset = 0; offset < 50; offset++) {
+      tracker.dispatched(P0, offset);
+    }
+    for (long offset = 0; offset < 40; offset++) {
+      tracker.completed(P0, offset);
+    }
+    for (long offset = 50; offset < 500; offset++) {
+      tracker.dispatched(P0, offset);
+    }
+    for (long offset = 499; offset >= 41; offset--) {
+      assertTrue(tracker.completed(P0, offset));
+    }
+
+    assertEquals(Map.of(P0, new OffsetAndMetadata(40)), tracker.committable());
+    tracker.completed(P0, 40);
+    assertEquals(Map.of(P0, new OffsetAndMetadata(500)), tracker.committable());
+  }
+
+  /** Tests that released partitions ignore late completions. */
+  @Test
+  void release_stopsTrackingPartitions() {
+    OffsetTracker tracker = new OffsetTracker();
+    tracker.dispatched(P0, 0);
+    tracker.dispatched(P1, 0);
+
+    tracker.release(List.of(P0));
+
+    assertFalse(tracker.isTracked(P0));
+    assertTrue(tracker.isTracked(P1));
+    assertFalse(tracker.completed(P0, 0));
+    assertEquals(0, tracker.pending(P0));
+    assertEquals(Map.of(P1, new OffsetAndMetadata(0)), tracker.committable());
+  }
+}
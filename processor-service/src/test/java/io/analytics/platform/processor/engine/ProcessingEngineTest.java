@@ -0,0 +1,393 @@
+package io.analytics.platform.processor.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.processor.config.ProcessorProperties;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ProcessingEngine} class.
+ *
+ * <p>A {@link MockConsumer} stands in for the broker: records are added to it before the engine
+ * polls them, and offsets the engine commits are read back from it.
+ */
+class ProcessingEngineTest {
+
+  private static final String TOPIC = "events";
+
+  private final TestConsumer consumer = new TestConsumer();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private ProcessingEngine engine;
+
+  @AfterEach
+  void stopEngine() {
+    if (engine != null) {
+      engine.stop();
+    }
+  }
+
+  /** Tests that records sharing a key are processed in offset order while lanes run in parallel. */
+  @Test
+  void start_keepsPerKeyOrderAcrossLanes() {
+    Map<String, List<Long>> seen = new ConcurrentHashMap<>();
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    List<ConsumerRecord<String, byte[]>> records = records(4, 2000, 40);
+    start(
+        batch -> {
+          threads.add(Thread.currentThread().getName());
+          for (ConsumerRecord<String, byte[]> record : batch) {
+            seen.computeIfAbsent(record.key(), k -> Collections.synchronizedList(new ArrayList<>()))
+                .add(record.offset());
+          }
+          Thread.sleep(1);
+        },
+        settings(8, 20, 10_000),
+        4,
+        records);
+
+    awaitCommitted(4, 500);
+    assertEquals(40, seen.size());
+    for (Map.Entry<String, List<Long>> entry : seen.entrySet()) {
+      List<Long> offsets = entry.getValue();
+      assertEquals(50, offsets.size(), entry.getKey());
+      for (int i = 1; i < offsets.size(); i++) {
+        assertTrue(offsets.get(i - 1) < offsets.get(i), entry.getKey() + " out of order");
+      }
+    }
+    assertTrue(threads.size() > 1, "expected several lanes, got " + threads);
+    assertEquals(0, engine.inFlight());
+  }
+
+  /** Tests that commits stop at a record still in progress and catch up once it completes. */
+  @Test
+  void commit_stopsAtLowestRecordInProgress() {
+    CountDownLatch release = new CountDownLatch(1);
+    Set<Long> done = ConcurrentHashMap.newKeySet();
+    start(
+        batch -> {
+          for (ConsumerRecord<String, byte[]> record : batch) {
+            if (record.offset() == 3) {
+              release.await();
+            }
+            done.add(record.offset());
+          }
+        },
+        settings(4, 1, 10_000),
+        1,
+        records(1, 40, 20));
+
+    TopicPartition partition = new TopicPartition(TOPIC, 0);
+    await(() -> committed(partition) == 3, "offset 3 to be committed");
+    await(() -> done.contains(39L), "a lane other than the blocked one to finish");
+    sleep(100);
+    assertEquals(3, committed(partition));
+    assertTrue(engine.inFlight() > 0);
+
+    release.countDown();
+    awaitCommitted(1, 40);
+  }
+
+  /** Tests that a failing batch is retried, then recovered, and its offset committed. */
+  @Test
+  void start_retriesThenRecoversFailingBatch() {
+    AtomicInteger attempts = new AtomicInteger();
+    List<Long> recovered = Collections.synchronizedList(new ArrayList<>());
+    BatchProcessor processor =
+        new BatchProcessor() {
+          @Override
+          public void process(List<ConsumerRecord<String, byte[]>> batch) {
+            if (batch.get(0).offset() == 5) {
+              attempts.incrementAndGet();
+              throw new IllegalStateException("downstream unavailable");
+            }
+          }
+
+          @Override
+          public void recover(List<ConsumerRecord<String, byte[]>> batch, Exception cause) {
+            assertEquals("downstream unavailable", cause.getMessage());
+            batch.forEach(record -> recovered.add(record.offset()));
+          }
+        };
+    start(processor, settings(1, 1, 10_000), 1, records(1, 10, 10));
+
+    awaitCommitted(1, 10);
+    assertEquals(3, attempts.get());
+    assertEquals(List.of(5L), recovered);
+    assertEquals(2.0, count("retried"));
+    assertEquals(1.0, count("recovered"));
+    assertEquals(9.0, count("processed"));
+  }
+
+  /** Tests that fetching pauses at the in-flight limit and resumes once records complete. */
+  @Test
+  void start_pausesFetchingAtInFlightLimit() {
+    CountDownLatch release = new CountDownLatch(1);
+    TopicPartition partition = new TopicPartition(TOPIC, 0);
+    start(batch -> release.await(), settings(2, 5, 10), 1, records(1, 30, 30));
+
+    await(() -> consumer.paused().contains(partition), "the partition to be paused");
+    assertEquals(30, engine.inFlight());
+
+    release.countDown();
+    await(() -> consumer.paused().isEmpty(), "the partition to be resumed");
+    awaitCommitted(1, 30);
+  }
+
+  /** Tests that stopping drains queued records and commits them synchronously. */
+  @Test
+  void stop_drainsLanesAndCommits() {
+    AtomicInteger processed = new AtomicInteger();
+    start(
+        batch -> {
+          Thread.sleep(20);
+          processed.addAndGet(batch.size());
+        },
+        settings(2, 10, 10_000),
+        2,
+        records(2, 200, 10));
+    await(() -> engine.inFlight() > 0, "records to be polled");
+
+    engine.stop();
+
+    assertTrue(consumer.closedByEngine);
+    assertEquals(200, processed.get());
+    assertEquals(100, committed(new TopicPartition(TOPIC, 0)));
+    assertEquals(100, committed(new TopicPartition(TOPIC, 1)));
+  }
+
+  /**
+   * Tests throughput and latency against a processor with a fixed cost per batch, as a remote
+   * call would have: spreading one partition over 8 lanes must be several times faster than a
+   * single lane, and the record lag must shrink with it.
+   */
+  @Test
+  void start_parallelLanesOutperformSingleLane() {
+    Run sequential = run(1);
+    Run parallel = run(8);
+
+    assertTrue(
+        parallel.elapsedNanos * 3 < sequential.elapsedNanos,
+        "8 lanes took " + parallel.millis() + " ms, 1 lane " + sequential.millis() + " ms");
+    assertTrue(
+        parallel.maxLagMillis < sequential.maxLagMillis,
+        "lag with 8 lanes " + parallel.maxLagMillis + " ms, 1 lane " + sequential.maxLagMillis);
+  }
+
+  private Run run(int lanes) {
+    TestConsumer source = new TestConsumer();
+    SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    int total = 20_000;
+    AtomicInteger processed = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(1);
+    ProcessingEngine subject =
+        new ProcessingEngine(
+            () -> source,
+            List.of(TOPIC),
+            batch -> {
+              Thread.sleep(2);
+              if (processed.addAndGet(batch.size()) == total) {
+                done.countDown();
+              }
+            },
+            settings(lanes, 50, 50_000),
+            meters,
+            Clock.systemUTC());
+    assign(source, 1, records(1, total, 1000));
+
+    long start = System.nanoTime();
+    subject.start();
+    try {
+      assertTrue(done.await(30, TimeUnit.SECONDS), "records were not processed in time");
+      long elapsed = System.nanoTime() - start;
+      Timer lag = meters.find("processor.record.lag").timer();
+      // The lane records the lag right after the processor returns
+      await(() -> lag.count() == total, "the lag of every record");
+      return new Run(elapsed, (long) lag.max(TimeUnit.MILLISECONDS));
+    } catch (InterruptedException e) {
+      throw new AssertionError(e);
+    } finally {
+      subject.stop();
+    }
+  }
+
+  /**
+   * Timing of one run.
+   *
+   * @param elapsedNanos time until every record was processed
+   * @param maxLagMillis highest record lag reported by the engine
+   */
+  private record Run(long elapsedNanos, long maxLagMillis) {
+    long millis() {
+      return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+  }
+
+  private void start(
+      BatchProcessor processor,
+      ProcessorProperties.Engine settings,
+      int partitions,
+      List<ConsumerRecord<String, byte[]>> records) {
+    engine =
+        new ProcessingEngine(
+            () -> consumer, List.of(TOPIC), processor, settings, registry, Clock.systemUTC());
+    assign(consumer, partitions, records);
+    engine.start();
+  }
+
+  /** Assigns the partitions and makes the records available on the first poll. */
+  private static void assign(
+      TestConsumer target, int partitions, List<ConsumerRecord<String, byte[]>> records) {
+    target.schedulePollTask(
+        () -> {
+          List<TopicPartition> assigned = new ArrayList<>();
+          Map<TopicPartition, Long> beginning = new HashMap<>();
+          for (int p = 0; p < partitions; p++) {
+            TopicPartition partition = new TopicPartition(TOPIC, p);
+            assigned.add(partition);
+            beginning.put(partition, 0L);
+          }
+          target.rebalance(assigned);
+          target.updateBeginningOffsets(beginning);
+          records.forEach(target::addRecord);
+        });
+  }
+
+  /**
+   * Creates records spread over partitions, a key always landing on the same partition as Kafka's
+   * partitioner would place it.
+   */
+  private static List<ConsumerRecord<String, byte[]>> records(
+      int partitions, int count, int keys) {
+    long[] next = new long[partitions];
+    List<ConsumerRecord<String, byte[]>> records = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int key = i % keys;
+      int partition = key % partitions;
+      records.add(
+          new ConsumerRecord<>(
+              TOPIC,
+              partition,
+              next[partition]++,
+              System.currentTimeMillis(),
+              TimestampType.CREATE_TIME,
+              -1,
+              -1,
+              "key-" + key,
+              new byte[0],
+              new RecordHeaders(),
+              Optional.empty()));
+    }
+    return records;
+  }
+
+  private static ProcessorProperties.Engine settings(
+      int lanes, int laneBatchSize, int maxInFlight) {
+    return new ProcessorProperties.Engine(
+        lanes,
+        laneBatchSize,
+        maxInFlight,
+        Duration.ofMillis(10),
+        Duration.ofMillis(20),
+        3,
+        Duration.ofMillis(1),
+        Duration.ofSeconds(10));
+  }
+
+  private long committed(TopicPartition partition) {
+    OffsetAndMetadata offset = consumer.committed(Set.of(partition)).get(partition);
+    return offset != null ? offset.offset() : -1;
+  }
+
+  private void awaitCommitted(int partitions, long perPartition) {
+    await(
+        () -> {
+          for (int p = 0; p < partitions; p++) {
+            if (committed(new TopicPartition(TOPIC, p)) != perPartition) {
+              return false;
+            }
+          }
+          return true;
+        },
+        "offset " + perPartition + " to be committed on every partition");
+  }
+
+  private double count(String outcome) {
+    return registry.find("processor.records").tag("outcome", outcome).counter().count();
+  }
+
+  private static void await(BooleanSupplier condition, String description) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) {
+        fail("Timed out waiting for " + description);
+      }
+      sleep(5);
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Keeps committed offsets readable after the engine closed the consumer, and waits briefly on
+   * empty polls as a broker would instead of letting the polling thread spin.
+   */
+  private static final class TestConsumer extends MockConsumer<String, byte[]> {
+
+    volatile boolean closedByEngine;
+
+    TestConsumer() {
+      super(OffsetResetStrategy.EARLIEST);
+    }
+
+    @Override
+    public ConsumerRecords<String, byte[]> poll(Duration timeout) {
+      ConsumerRecords<String, byte[]> records = super.poll(timeout);
+      if (records.isEmpty()) {
+        sleep(Math.min(timeout.toMillis(), 1));
+      }
+      return records;
+    }
+
+    @Override
+    public synchronized void close() {
+      closedByEngine = true;
+    }
+
+    @Override
+    public synchronized void close(Duration timeout) {
+      closedByEngine = true;
+    }
+  }
+}
@@ -0,0 +1,288 @@
+package io.analytics.platform.processor.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.dto.RawEvent;
+import io.analytics.platform.common.kafka.DlqHeaders;
+import io.analytics.platform.common.util.BinaryEventCodec;
+import io.analytics.platform.common.util.JsonCodec;
+import io.analytics.platform.common.util.WireFormat;
+import io.analytics.platform.processor.config.ProcessorProperties;
+import io.analytics.platform.processor.state.StateManager;
+import io.analytics.platform.processor.transform.StepDefinition;
+import io.analytics.platform.processor.transform.TransformRegistry;
+import io.analytics.platform.processor.window.WindowAggregator;
+import io.analytics.platform.processor.window.WindowDefinition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.unit.DataSize;
+
+/** Unit tests for {@link EventProcessor} class. */
+class EventProcessorTest {
+
+  private static final String INPUT = "ingestion.raw.v1";
+
+  private final RecordingTemplate template = new RecordingTemplate();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  /** Tests that binary and JSON input are both converted to processed events. */
+  @Test
+  void process_publishesProcessedEvents() throws Exception {
+    EventProcessor processor = processor(WireFormat.JSON);
+    RawEvent first = new RawEvent("a", Instant.parse("2025-09-12T12:00:00Z"), 1.5, Map.of());
+    RawEvent second = new RawEvent("b", Instant.parse("2025-09-12T12:00:01Z"), 2.5, Map.of());
+    ConsumerRecord<String, byte[]> binary =
+        new ConsumerRecord<>(INPUT, 0, 0, "a", BinaryEventCodec.RAW_EVENT.encode(first));
+    binary.headers().add(WireFormat.CONTENT_TYPE_HEADER, WireFormat.BINARY.contentTypeBytes());
+    ConsumerRecord<String, byte[]> json =
+        new ConsumerRecord<>(INPUT, 0, 1, "b", JsonCodec.RAW_EVENT.encode(second));
+
+    processor.process(List.of(binary, json));
+
+    assertEquals(2, template.sent.size());
+    ProducerRecord<String, byte[]> out = template.sent.get(0);
+    assertEquals("processing.processed.v1", out.topic());
+    assertEquals("a", out.key());
+    assertArrayEquals(
+        WireFormat.JSON.contentTypeBytes(),
+        out.headers().lastHeader(WireFormat.CONTENT_TYPE_HEADER).value());
+    ProcessedEvent event = JsonCodec.PROCESSED_EVENT.decode(out.value());
+    assertEquals(1.5, event.valueTransformed());
+    assertEquals("processor-service", event.source());
+    assertEquals("b", JsonCodec.PROCESSED_EVENT.decode(template.sent.get(1).value()).id());
+  }
+
+  /** Tests that the current pipeline transforms events and its filters suppress output. */
+  @Test
+  void process_appliesCurrentPipeline() throws Exception {
+    TransformRegistry transforms =
+        new TransformRegistry(
+            List.of(StepDefinition.filter("gt", 10), StepDefinition.map("multiply", 2)));
+    EventProcessor processor = processor(WireFormat.JSON, transforms, windows(List.of()));
+
+    processor.process(List.of(record(0, "low", 5.0), record(1, "high", 12.0)));
+    transforms.reload(List.of());
+    processor.process(List.of(record(2, "low", 5.0)));
+
+    assertEquals(2, template.sent.size());
+    assertEquals(24.0, value(template.sent.get(0)));
+    assertEquals(5.0, value(template.sent.get(1)));
+  }
+
+  /** Tests that an undecodable record goes to the dead letter topic without failing the batch. */
+  @Test
+  void process_sendsUndecodableRecordToDlq() throws Exception {
+    EventProcessor processor = processor(WireFormat.BINARY);
+    byte[] garbage = "{\"id\": oops".getBytes(StandardCharsets.UTF_8);
+
+    processor.process(List.of(new ConsumerRecord<>(INPUT, 0, 0, "k", garbage)));
+
+    ProducerRecord<String, byte[]> dead = template.sent.get(0);
+    assertEquals("dlq.v1", dead.topic());
+    assertArrayEquals(garbage, dead.value());
+    assertEquals(EventProcessor.DECODE_FAILED, header(dead, DlqHeaders.ERROR_CODE));
+    assertEquals(INPUT, header(dead, DlqHeaders.ORIGIN_TOPIC));
+    assertEquals("processor-service", header(dead, DlqHeaders.SERVICE));
+  }
+
+  /** Tests that a record without a timestamp is dead lettered rather than published. */
+  @Test
+  void process_sendsEventWithoutTimestampToDlq() throws Exception {
+    EventProcessor processor = processor(WireFormat.JSON);
+    byte[] payload = JsonCodec.RAW_EVENT.encode(new RawEvent("a", null, 1.0, Map.of()));
+
+    processor.process(List.of(new ConsumerRecord<>(INPUT, 0, 0, "a", payload)));
+
+    assertEquals(1, template.sent.size());
+    ProducerRecord<String, byte[]> dead = template.sent.get(0);
+    assertEquals("dlq.v1", dead.topic());
+    assertArrayEquals(payload, dead.value());
+    assertEquals(EventProcessor.INVALID_EVENT, header(dead, DlqHeaders.ERROR_CODE));
+    assertEquals("Event timestamp cannot be blank", header(dead, DlqHeaders.REASON));
+  }
+
+  /** Tests that a failed send fails the batch and recovery parks it on the dead letter topic. */
+  @Test
+  void recover_parksBatchOnDlq() throws Exception {
+    EventProcessor processor = processor(WireFormat.JSON);
+    RawEvent raw = new RawEvent("a", Instant.parse("2025-09-12T12:00:00Z"), 1.0, Map.of());
+    List<ConsumerRecord<String, byte[]>> batch =
+        List.of(new ConsumerRecord<>(INPUT, 0, 0, "a", JsonCodec.RAW_EVENT.encode(raw)));
+    template.failure = new IllegalStateException("broker down");
+
+    Exception error = assertThrows(IllegalStateException.class, () -> processor.process(batch));
+    template.failure = null;
+    processor.recover(batch, error);
+
+    ProducerRecord<String, byte[]> dead = template.sent.get(1);
+    assertEquals("dlq.v1", dead.topic());
+    assertEquals(EventProcessor.PROCESSING_FAILED, header(dead, DlqHeaders.ERROR_CODE));
+    assertEquals("broker down", header(dead, DlqHeaders.REASON));
+  }
+
+  /** Tests that events are aggregated once their batch is acknowledged, not per attempt. */
+  @Test
+  void process_aggregatesAcknowledgedEventsOnce() throws Exception {
+    WindowAggregator windows =
+        windows(List.of(WindowDefinition.tumbling("total", Duration.ofMinutes(1))));
+    EventProcessor processor =
+        processor(WireFormat.JSON, new TransformRegistry(List.of()), windows);
+    List<ConsumerRecord<String, byte[]>> batch = List.of(record(0, "a", 1.0), record(1, "b", 2.0));
+    template.failure = new IllegalStateException("broker down");
+
+    assertThrows(IllegalStateException.class, () -> processor.process(batch));
+    assertEquals(0, windows.open());
+    template.failure = null;
+    processor.process(batch);
+
+    assertEquals(1, windows.open());
+    assertEquals(2.0, aggregated());
+  }
+
+  /**
+   * Tests that a retried batch holding a record without a timestamp is aggregated once: the record
+   * is dead lettered and nothing after the acknowledgement fails the batch again.
+   */
+  @Test
+  void process_retriedBatchWithUntimedRecordIsAggregatedOnce() throws Exception {
+    WindowAggregator windows =
+        windows(List.of(WindowDefinition.tumbling("total", Duration.ofMinutes(1))));
+    EventProcessor processor =
+        processor(WireFormat.JSON, new TransformRegistry(List.of()), windows);
+    byte[] untimed = JsonCodec.RAW_EVENT.encode(new RawEvent("b", null, 2.0, Map.of()));
+    List<ConsumerRecord<String, byte[]>> batch =
+        List.of(
+            record(0, "a", 1.0),
+            new ConsumerRecord<>(INPUT, 0, 1, "b", untimed),
+            record(2, "c", 4.0));
+    template.failure = new IllegalStateException("broker down");
+
+    assertThrows(IllegalStateException.class, () -> processor.process(batch));
+    template.failure = null;
+    processor.process(batch);
+
+    assertEquals(2.0, aggregated());
+    assertEquals(1, windows.open());
+    assertEquals(EventProcessor.INVALID_EVENT, header(template.sent.get(4), DlqHeaders.ERROR_CODE));
+  }
+
+  private EventProcessor processor(WireFormat format) {
+    return processor(format, new TransformRegistry(List.of()), windows(List.of()));
+  }
+
+  private EventProcessor processor(
+      WireFormat format, TransformRegistry transforms, WindowAggregator windows) {
+    ProcessorProperties properties = properties(format);
+    StateManager state = new StateManager(properties, windows, null, new SimpleMeterRegistry());
+    return new EventProcessor(template, properties, transforms, windows, state);
+  }
+
+  private WindowAggregator windows(List<WindowDefinition> definitions) {
+    Clock clock = Clock.fixed(Instant.parse("2025-09-12T12:00:00Z"), ZoneOffset.UTC);
+    return new WindowAggregator(aggregation(definitions), registry, clock);
+  }
+
+  private static ProcessorProperties.Aggregation aggregation(List<WindowDefinition> definitions) {
+    return new ProcessorProperties.Aggregation(
+        "processing.aggregated.v1",
+        "processor-1",
+        Duration.ofSeconds(5),
+        Duration.ofMinutes(1),
+        Duration.ofSeconds(1),
+        1000,
+        2,
+        definitions);
+  }
+
+  private static ConsumerRecord<String, byte[]> record(long offset, String id, double value) {
+    RawEvent raw = new RawEvent(id, Instant.parse("2025-09-12T12:00:00Z"), value, Map.of());
+    return new ConsumerRecord<>(INPUT, 0, offset, id, JsonCodec.RAW_EVENT.encode(raw));
+  }
+
+  private double aggregated() {
+    return registry
+        .get("processor.window.events")
+        .tag("outcome", "aggregated")
+        .counter()
+        .count();
+  }
+
+  private static double value(ProducerRecord<String, byte[]> record) {
+    return JsonCodec.PROCESSED_EVENT.decode(record.value()).valueTransformed();
+  }
+
+  private static String header(ProducerRecord<String, byte[]> record, String key) {
+    Header header = record.headers().lastHeader(key);
+    return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+  }
+
+  private static ProcessorProperties properties(WireFormat format) {
+    return new ProcessorProperties(
+        INPUT,
+        "processing.processed.v1",
+        "dlq.v1",
+        "processor-service",
+        format,
+        Duration.ofSeconds(5),
+        new ProcessorProperties.Engine(
+            1,
+            10,
+            100,
+            Duration.ofMillis(10),
+            Duration.ofSeconds(1),
+            3,
+            Duration.ofMillis(1),
+            Duration.ofSeconds(1)),
+        aggregation(List.of()),
+        new ProcessorProperties.State(
+            false,
+            Path.of("state"),
+            DataSize.ofMegabytes(64),
+            DataSize.ofMegabytes(64),
+            "",
+            Duration.ofMinutes(2)),
+        List.of());
+  }
+
+  /** Records sent records and acknowledges them at once, or fails them. */
+  private static final class RecordingTemplate extends KafkaTemplate<String, byte[]> {
+
+    final List<ProducerRecord<String, byte[]>> sent = new ArrayList<>();
+    volatile RuntimeException failure;
+
+    RecordingTemplate() {
+      super(new DefaultKafkaProducerFactory<>(Map.of()));
+    }
+
+    @Override
+    public synchronized CompletableFuture<SendResult<String, byte[]>> send(
+        ProducerRecord<String, byte[]> record) {
+      sent.add(record);
+      if (failure != null) {
+        return CompletableFuture.failedFuture(failure);
+      }
+      RecordMetadata metadata =
+          new RecordMetadata(new TopicPartition(record.topic(), 0), sent.size(), 0, 0L, 0, 0);
+      return CompletableFuture.completedFuture(new SendResult<>(record, metadata));
+    }
+  }
+}
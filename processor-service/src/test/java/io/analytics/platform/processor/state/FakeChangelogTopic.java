@@ -0,0 +1,103 @@
+package io.analytics.platform.processor.state;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+/**
+ * A single-partition changelog topic held in memory. Its {@link #template} appends acknowledged
+ * records to the topic, or fails them while {@link #failure} is set, and {@link #consumer()}
+ * reads the topic back as a broker would, without compaction.
+ */
+final class FakeChangelogTopic {
+
+  static final String TOPIC = "processing.window-state.v1";
+
+  /** Records acknowledged by the topic, in offset order. */
+  final List<ProducerRecord<String, byte[]>> records = new ArrayList<>();
+
+  /** Records the template was asked to send, acknowledged or not. */
+  final List<ProducerRecord<String, byte[]>> sent = new ArrayList<>();
+
+  /** Failure of every send while set. */
+  volatile RuntimeException failure;
+
+  final KafkaTemplate<String, byte[]> template = new Template();
+
+  /** Offset reported as the end of the partition, the number of records when negative. */
+  long endOffset = -1;
+
+  /** Number of consumers created, each reading the whole topic. */
+  int reads;
+
+  /**
+   * Returns a consumer of the topic as it is now.
+   *
+   * @return a consumer whose first poll returns every record of the topic
+   */
+  Consumer<String, byte[]> consumer() {
+    reads++;
+    List<ProducerRecord<String, byte[]>> topic = List.copyOf(records);
+    TopicPartition partition = new TopicPartition(TOPIC, 0);
+    MockConsumer<String, byte[]> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    Node node = new Node(0, "localhost", 9092);
+    consumer.updatePartitions(
+        TOPIC, List.of(new PartitionInfo(TOPIC, 0, node, new Node[] {node}, new Node[] {node})));
+    consumer.updateBeginningOffsets(Map.of(partition, 0L));
+    consumer.updateEndOffsets(Map.of(partition, endOffset >= 0 ? endOffset : topic.size()));
+    consumer.schedulePollTask(
+        () -> {
+          for (int i = 0; i < topic.size(); i++) {
+            ProducerRecord<String, byte[]> record = topic.get(i);
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, record.key(), record.value()));
+          }
+        });
+    return consumer;
+  }
+
+  /**
+   * Returns the keys of the acknowledged tombstones.
+   *
+   * @return changelog keys whose record has no value, in offset order
+   */
+  List<String> tombstones() {
+    return records.stream()
+        .filter(record -> record.value() == null)
+        .map(ProducerRecord::key)
+        .toList();
+  }
+
+  private final class Template extends KafkaTemplate<String, byte[]> {
+
+    Template() {
+      super(new DefaultKafkaProducerFactory<>(Map.of()));
+    }
+
+    @Override
+    public synchronized CompletableFuture<SendResult<String, byte[]>> send(
+        String topic, String key, byte[] data) {
+      ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, key, data);
+      sent.add(record);
+      if (failure != null) {
+        return CompletableFuture.failedFuture(failure);
+      }
+      records.add(record);
+      RecordMetadata metadata =
+          new RecordMetadata(new TopicPartition(topic, 0), records.size() - 1, 0, 0L, 0, 0);
+      return CompletableFuture.completedFuture(new SendResult<>(record, metadata));
+    }
+  }
+}
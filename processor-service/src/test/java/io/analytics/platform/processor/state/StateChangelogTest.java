@@ -0,0 +1,90 @@
+package io.analytics.platform.processor.state;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.state.StateStore;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Unit tests for {@link StateChangelog} class. */
+class StateChangelogTest {
+
+  private final FakeChangelogTopic topic = new FakeChangelogTopic();
+  private final StateChangelog changelog =
+      new StateChangelog(topic.template, topic::consumer, FakeChangelogTopic.TOPIC);
+
+  @TempDir Path directory;
+
+  /** Tests that records are keyed by instance and entry, and deletions sent as tombstones. */
+  @Test
+  void send_keysRecordsByInstanceAndEntry() throws Exception {
+    changelog.send("processor-1", "w/key", bytes("1")).get();
+    changelog.send("processor-1", "w/key", null).get();
+
+    assertEquals(2, topic.records.size());
+    ProducerRecord<String, byte[]> record = topic.records.get(0);
+    assertEquals(FakeChangelogTopic.TOPIC, record.topic());
+    assertEquals("processor-1/w/key", record.key());
+    assertArrayEquals(bytes("1"), record.value());
+    assertEquals(List.of("processor-1/w/key"), topic.tombstones());
+  }
+
+  /** Tests that restoring applies the latest records of its own instance only. */
+  @Test
+  void restore_appliesLatestRecordsOfOwnInstance() throws Exception {
+    changelog.send("processor-1", "a", bytes("1")).get();
+    changelog.send("processor-2", "a", bytes("other")).get();
+    changelog.send("processor-1", "b", bytes("2")).get();
+    changelog.send("processor-1", "a", bytes("3")).get();
+    changelog.send("processor-1", "b", null).get();
+    changelog.send("processor-10", "c", bytes("prefix")).get();
+
+    try (StateStore store = StateStore.open(directory)) {
+      long applied = changelog.restore("processor-1", store, Duration.ofSeconds(5));
+
+      assertEquals(4, applied);
+      assertEquals(Map.of("a", "3"), contents(store));
+    }
+  }
+
+  /** Tests that an empty topic restores nothing. */
+  @Test
+  void restore_emptyTopicAppliesNothing() {
+    try (StateStore store = StateStore.open(directory)) {
+      assertEquals(0, changelog.restore("processor-1", store, Duration.ofSeconds(5)));
+      assertEquals(0, store.size());
+    }
+  }
+
+  /** Tests that restoring fails rather than starting from part of the state. */
+  @Test
+  void restore_failsWhenEndIsNotReachedInTime() throws Exception {
+    changelog.send("processor-1", "a", bytes("1")).get();
+    topic.endOffset = 5;
+
+    try (StateStore store = StateStore.open(directory)) {
+      IllegalStateException e =
+          assertThrows(
+              IllegalStateException.class,
+              () -> changelog.restore("processor-1", store, Duration.ofMillis(50)));
+      assertTrue(e.getMessage().contains(FakeChangelogTopic.TOPIC), e.getMessage());
+    }
+  }
+
+  private static Map<String, String> contents(StateStore store) {
+    Map<String, String> contents = new HashMap<>();
+    store.forEach((key, value) -> contents.put(key, new String(value, StandardCharsets.UTF_8)));
+    return contents;
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,220 @@
+package io.analytics.platform.processor.state;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.util.WireFormat;
+import io.analytics.platform.processor.config.ProcessorProperties;
+import io.analytics.platform.processor.window.WindowAggregator;
+import io.analytics.platform.processor.window.WindowDefinition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Unit tests for {@link StateManager} class.
+ *
+ * <p>The state is checkpointed to a store in a temporary directory and replicated to a {@link
+ * FakeChangelogTopic}; a new host is a manager with another, empty directory.
+ */
+class StateManagerTest {
+
+  private static final Instant T0 = Instant.parse("2025-09-12T12:00:00Z");
+  private static final String INSTANCE = "processor-1";
+
+  private final FakeChangelogTopic topic = new FakeChangelogTopic();
+  private final StateChangelog changelog =
+      new StateChangelog(topic.template, topic::consumer, FakeChangelogTopic.TOPIC);
+  private final List<StateManager> managers = new ArrayList<>();
+  private Path directory;
+  private Path otherHost;
+
+  @TempDir Path root;
+
+  @BeforeEach
+  void directories() {
+    directory = root.resolve("host-1");
+    otherHost = root.resolve("host-2");
+  }
+
+  @AfterEach
+  void stop() {
+    managers.forEach(StateManager::stop);
+  }
+
+  /** Tests that a new host reads the windows back from the changelog. */
+  @Test
+  void start_restoresFromChangelogOnNewHost() throws Exception {
+    WindowAggregator windows = windows();
+    StateManager manager = start(directory, windows, changelog);
+    windows.add(event(T0.plusSeconds(10), 1.0));
+    windows.add(event(T0.plusSeconds(70), 2.0));
+    manager.checkpoint();
+
+    WindowAggregator restored = windows();
+    start(otherHost, restored, changelog);
+
+    assertEquals(2, restored.open());
+    assertEquals(INSTANCE, restored.instance());
+    assertEquals(windows.watermark(), restored.watermark());
+  }
+
+  /** Tests that a non-empty local store is restored without reading the changelog. */
+  @Test
+  void start_prefersLocalStoreOverChangelog() throws Exception {
+    WindowAggregator windows = windows();
+    StateManager manager = start(directory, windows, changelog);
+    windows.add(event(T0.plusSeconds(10), 1.0));
+    manager.stop();
+    int reads = topic.reads;
+
+    WindowAggregator restored = windows();
+    start(directory, restored, changelog);
+
+    assertEquals(reads, topic.reads);
+    assertEquals(1, restored.open());
+  }
+
+  /** Tests that closed windows are tombstoned, so a new host does not bring them back. */
+  @Test
+  void checkpoint_tombstonesClosedWindows() throws Exception {
+    WindowAggregator windows = windows();
+    StateManager manager = start(directory, windows, changelog);
+    windows.add(event(T0.plusSeconds(10), 1.0));
+    manager.checkpoint();
+    windows.add(event(T0.plusSeconds(130), 2.0));
+    assertEquals(1, windows.fire().size());
+    manager.checkpoint();
+
+    assertEquals(1, topic.tombstones().size());
+    WindowAggregator restored = windows();
+    start(otherHost, restored, changelog);
+    assertEquals(1, restored.open());
+    assertTrue(restored.fire().isEmpty());
+  }
+
+  /**
+   * Tests that tombstones of a checkpoint the changelog failed are sent again with the next one,
+   * although their keys are no longer in the store.
+   */
+  @Test
+  void checkpoint_resendsTombstonesAfterFailedChangelogSend() throws Exception {
+    WindowAggregator windows = windows();
+    StateManager manager = start(directory, windows, changelog);
+    windows.add(event(T0.plusSeconds(10), 1.0));
+    manager.checkpoint();
+    windows.add(event(T0.plusSeconds(130), 2.0));
+    assertEquals(1, windows.fire().size());
+    topic.failure = new IllegalStateException("broker down");
+
+    assertThrows(IllegalStateException.class, manager::checkpoint);
+    assertTrue(topic.tombstones().isEmpty());
+    topic.failure = null;
+    manager.checkpoint();
+
+    assertEquals(1, topic.tombstones().size());
+    assertTrue(topic.tombstones().get(0).startsWith(INSTANCE + "/w"), topic.tombstones().get(0));
+    WindowAggregator restored = windows();
+    start(otherHost, restored, changelog);
+    assertEquals(1, restored.open());
+    assertTrue(restored.fire().isEmpty());
+  }
+
+  /** Tests that state kept local only is checkpointed to the store and restored from it. */
+  @Test
+  void checkpoint_withoutChangelogKeepsStateLocal() throws Exception {
+    WindowAggregator windows = windows();
+    StateManager manager = start(directory, windows, null);
+    windows.add(event(T0.plusSeconds(10), 1.0));
+    manager.checkpoint();
+    manager.stop();
+
+    WindowAggregator restored = windows();
+    start(directory, restored, null);
+
+    assertEquals(1, restored.open());
+    assertTrue(topic.sent.isEmpty());
+  }
+
+  /** Tests that a changelog cannot be configured without an instance ID to key it by. */
+  @Test
+  void properties_requireInstanceIdWithChangelog() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> properties(directory, null, FakeChangelogTopic.TOPIC));
+    assertDoesNotThrow(() -> properties(directory, null, ""));
+    assertDoesNotThrow(() -> properties(directory, INSTANCE, FakeChangelogTopic.TOPIC));
+  }
+
+  private StateManager start(Path dir, WindowAggregator windows, StateChangelog log) {
+    String changelogTopic = log != null ? FakeChangelogTopic.TOPIC : "";
+    StateManager manager =
+        new StateManager(
+            properties(dir, INSTANCE, changelogTopic), windows, log, new SimpleMeterRegistry());
+    managers.add(manager);
+    manager.start();
+    assertTrue(manager.isRunning());
+    return manager;
+  }
+
+  private static WindowAggregator windows() {
+    Clock clock = Clock.fixed(T0.plusSeconds(60), ZoneOffset.UTC);
+    return new WindowAggregator(aggregation(INSTANCE), new SimpleMeterRegistry(), clock);
+  }
+
+  private static ProcessorProperties.Aggregation aggregation(String instanceId) {
+    return new ProcessorProperties.Aggregation(
+        "processing.aggregated.v1",
+        instanceId,
+        Duration.ofSeconds(5),
+        Duration.ofMinutes(1),
+        Duration.ofSeconds(1),
+        1000,
+        2,
+        List.of(WindowDefinition.tumbling("total", Duration.ofMinutes(1))));
+  }
+
+  private static ProcessorProperties properties(
+      Path dir, String instanceId, String changelogTopic) {
+    return new ProcessorProperties(
+        "ingestion.raw.v1",
+        "processing.processed.v1",
+        "dlq.v1",
+        "processor-service",
+        WireFormat.JSON,
+        Duration.ofSeconds(5),
+        new ProcessorProperties.Engine(
+            1,
+            10,
+            100,
+            Duration.ofMillis(10),
+            Duration.ofSeconds(1),
+            3,
+            Duration.ofMillis(1),
+            Duration.ofSeconds(1)),
+        aggregation(instanceId),
+        new ProcessorProperties.State(
+            true,
+            dir,
+            DataSize.ofMegabytes(1),
+            DataSize.ofMegabytes(1),
+            changelogTopic,
+            Duration.ofSeconds(5)),
+        List.of());
+  }
+
+  private static ProcessedEvent event(Instant ts, double value) {
+    return new ProcessedEvent("e", ts, value, Map.of(), Map.of(), "processor");
+  }
+}
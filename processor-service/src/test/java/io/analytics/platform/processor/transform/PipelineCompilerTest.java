@@ -0,0 +1,170 @@
+package io.analytics.platform.processor.transform;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.dto.RawEvent;
+import io.analytics.platform.common.dto.Tags;
+import io.analytics.platform.common.exception.ValidationException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link PipelineCompiler} class. */
+class PipelineCompilerTest {
+
+  private static final Instant TS = Instant.parse("2025-09-12T12:00:00Z");
+
+  /** Tests the documented filter, map and enrich rules end to end. */
+  @Test
+  void compile_appliesFilterMapAndEnrich() {
+    CompiledPipeline pipeline =
+        PipelineCompiler.compile(
+            List.of(
+                StepDefinition.filter("gt", 10),
+                StepDefinition.map("multiply", 2),
+                StepDefinition.enrich(Map.of("stage", "processed"), Map.of("rule", "x2"))),
+            1);
+
+    ProcessedEvent event = pipeline.apply(raw(21.5, Map.of("host", "a")), "processor-service");
+
+    assertEquals(43.0, event.valueTransformed());
+    assertEquals(Map.of("host", "a", "stage", "processed"), event.tags());
+    assertInstanceOf(Tags.class, event.tags());
+    assertEquals(Map.of("rule", "x2"), event.meta());
+    assertEquals("processor-service", event.source());
+    assertNull(pipeline.apply(raw(10.0, Map.of()), "processor-service"));
+  }
+
+  /** Tests that adjacent arithmetic steps are folded without changing their result. */
+  @Test
+  void compile_foldsAdjacentArithmetic() {
+    CompiledPipeline pipeline =
+        PipelineCompiler.compile(
+            List.of(
+                StepDefinition.map("add", 3),
+                StepDefinition.map("multiply", 4),
+                StepDefinition.map("subtract", 2),
+                StepDefinition.filter("lte", 100),
+                StepDefinition.map("abs", 0),
+                StepDefinition.map("divide", 2)),
+            1);
+
+    assertEquals(((5 + 3) * 4 - 2) / 2.0, pipeline.applyAsDouble(5));
+    assertEquals(((-20 + 3) * 4 - 2) / -2.0, pipeline.applyAsDouble(-20));
+    assertTrue(Double.isNaN(pipeline.applyAsDouble(50)));
+  }
+
+  /** Tests every filter operator against its threshold. */
+  @Test
+  void compile_supportsEveryComparison() {
+    Map<String, boolean[]> expected =
+        Map.of(
+            "gt", new boolean[] {false, false, true},
+            "gte", new boolean[] {false, true, true},
+            "lt", new boolean[] {true, false, false},
+            "lte", new boolean[] {true, true, false},
+            "eq", new boolean[] {false, true, false},
+            "ne", new boolean[] {true, false, true});
+    for (Map.Entry<String, boolean[]> entry : expected.entrySet()) {
+      CompiledPipeline pipeline =
+          PipelineCompiler.compile(List.of(StepDefinition.filter(entry.getKey(), 5)), 1);
+      double[] values = {4, 5, 6};
+      for (int i = 0; i < values.length; i++) {
+        boolean kept = !Double.isNaN(pipeline.applyAsDouble(values[i]));
+        assertEquals(entry.getValue()[i], kept, entry.getKey() + " " + values[i]);
+      }
+    }
+  }
+
+  /** Tests that an overflowing map fails validation instead of being taken for a dropped event. */
+  @Test
+  void apply_overflowIsInvalidNotDropped() {
+    CompiledPipeline pipeline =
+        PipelineCompiler.compile(
+            List.of(
+                StepDefinition.map("multiply", 1e300),
+                StepDefinition.map("multiply", 1e300),
+                StepDefinition.filter("gt", 0),
+                StepDefinition.map("multiply", 0)),
+            1);
+
+    assertEquals(Double.POSITIVE_INFINITY, pipeline.applyAsDouble(1));
+    assertThrows(ValidationException.class, () -> pipeline.apply(raw(1.0, Map.of()), "p"));
+  }
+
+  /** Tests that an empty pipeline passes events through unchanged. */
+  @Test
+  void compile_emptyPipelineIsIdentity() {
+    CompiledPipeline pipeline = PipelineCompiler.compile(List.of(), 7);
+    RawEvent raw = raw(-3.25, Tags.copyOf(Map.of("k", "v")));
+
+    ProcessedEvent event = pipeline.apply(raw, "p");
+
+    assertEquals(7, pipeline.version());
+    assertEquals(-3.25, event.valueTransformed());
+    assertSame(raw.tags(), event.tags());
+    assertTrue(event.meta().isEmpty());
+  }
+
+  /**
+   * Tests that enrich tags override those of the event and that the tags of processed events are
+   * always immutable {@link Tags}.
+   */
+  @Test
+  void apply_returnsTags() {
+    CompiledPipeline enrich =
+        PipelineCompiler.compile(
+            List.of(StepDefinition.enrich(Map.of("stage", "processed"), Map.of())), 1);
+    CompiledPipeline identity = PipelineCompiler.compile(List.of(), 1);
+    RawEvent raw = raw(1.0, Map.of("host", "a", "stage", "raw"));
+
+    ProcessedEvent enriched = enrich.apply(raw, "p");
+    ProcessedEvent copied = identity.apply(raw, "p");
+
+    assertEquals(Tags.copyOf(Map.of("host", "a", "stage", "processed")), enriched.tags());
+    assertInstanceOf(Tags.class, enriched.tags());
+    assertEquals(raw.tags(), copied.tags());
+    assertInstanceOf(Tags.class, copied.tags());
+    assertThrows(UnsupportedOperationException.class, () -> enriched.tags().put("k", "v"));
+  }
+
+  /** Tests that malformed steps are reported with their position. */
+  @Test
+  void compile_rejectsMalformedSteps() {
+    assertEquals(
+        "Pipeline step 2: unknown filter operator 'between'",
+        assertThrows(
+                InvalidPipelineException.class,
+                () ->
+                    PipelineCompiler.compile(
+                        List.of(StepDefinition.map("add", 1), StepDefinition.filter("between", 1)),
+                        1))
+            .getMessage());
+    assertThrows(
+        InvalidPipelineException.class,
+        () -> PipelineCompiler.compile(List.of(StepDefinition.map("divide", 0)), 1));
+    assertThrows(
+        InvalidPipelineException.class,
+        () -> PipelineCompiler.compile(List.of(StepDefinition.map("pow", 2)), 1));
+    assertThrows(
+        InvalidPipelineException.class,
+        () ->
+            PipelineCompiler.compile(
+                List.of(new StepDefinition("filter", "gt", null, null, null)), 1));
+    assertThrows(
+        InvalidPipelineException.class,
+        () ->
+            PipelineCompiler.compile(
+                List.of(new StepDefinition("sort", null, null, null, null)), 1));
+    assertThrows(
+        InvalidPipelineException.class,
+        () ->
+            PipelineCompiler.compile(List.of(StepDefinition.enrich(Map.of(" ", "v"), null)), 1));
+  }
+
+  private static RawEvent raw(double value, Map<String, Object> tags) {
+    return new RawEvent("e-1", TS, value, tags);
+  }
+}
@@ -0,0 +1,68 @@
+package io.analytics.platform.processor.transform;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link TransformRegistry} class. */
+class TransformRegistryTest {
+
+  /** Tests that a reload swaps the pipeline and increments its version. */
+  @Test
+  void reload_swapsPipeline() {
+    TransformRegistry registry = new TransformRegistry(List.of(StepDefinition.map("add", 1)));
+    CompiledPipeline initial = registry.current();
+
+    CompiledPipeline reloaded = registry.reload(List.of(StepDefinition.map("multiply", 10)));
+
+    assertEquals(1, initial.version());
+    assertEquals(2, reloaded.version());
+    assertSame(reloaded, registry.current());
+    assertEquals(3.0, initial.applyAsDouble(2));
+    assertEquals(20.0, registry.current().applyAsDouble(2));
+  }
+
+  /** Tests that a definition that fails to compile leaves the running pipeline in place. */
+  @Test
+  void reload_keepsCurrentPipelineOnError() {
+    TransformRegistry registry = new TransformRegistry(List.of(StepDefinition.map("add", 1)));
+    CompiledPipeline initial = registry.current();
+
+    assertThrows(
+        InvalidPipelineException.class,
+        () -> registry.reload(List.of(StepDefinition.map("add", 1), StepDefinition.map("x", 1))));
+
+    assertSame(initial, registry.current());
+  }
+
+  /** Tests that readers only ever observe complete pipelines while reloads run concurrently. */
+  @Test
+  void current_neverObservesPartialPipeline() throws InterruptedException {
+    TransformRegistry registry = new TransformRegistry(List.of(StepDefinition.map("multiply", 1)));
+    AtomicBoolean stop = new AtomicBoolean();
+    AtomicReference<String> failure = new AtomicReference<>();
+    Thread reader =
+        Thread.ofPlatform()
+            .start(
+                () -> {
+                  while (!stop.get()) {
+                    CompiledPipeline pipeline = registry.current();
+                    // Version n multiplies by n: a mix of versions would break the relation
+                    if (pipeline.applyAsDouble(1) != pipeline.version()) {
+                      failure.set("version " + pipeline.version());
+                    }
+                  }
+                });
+    for (int version = 2; version <= 2000; version++) {
+      registry.reload(List.of(StepDefinition.map("multiply", version)));
+    }
+    stop.set(true);
+    reader.join();
+
+    assertNull(failure.get());
+    assertEquals(2000, registry.current().version());
+  }
+}
@@ -0,0 +1,433 @@
+package io.analytics.platform.processor.window;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.dto.WindowAggregate;
+import io.analytics.platform.common.sketch.DDSketch;
+import io.analytics.platform.common.state.StateStore;
+import io.analytics.platform.processor.config.ProcessorProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Unit tests for {@link WindowAggregator} class. */
+class WindowAggregatorTest {
+
+  private static final Instant T0 = Instant.parse("2025-09-12T12:00:00Z");
+
+  private final MutableClock clock = new MutableClock();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @TempDir Path directory;
+
+  /** Tests that a tumbling window is emitted with its rollup once the watermark passes its end. */
+  @Test
+  void tumbling_emitsWindowAfterWatermark() {
+    WindowAggregator windows =
+        aggregator(1000, WindowDefinition.tumbling("source-1m", Duration.ofMinutes(1), "source"));
+    windows.add(event(T0.plusSeconds(10), 4.0, "web"));
+    windows.add(event(T0.plusSeconds(20), 1.0, "web"));
+    windows.add(event(T0.plusSeconds(30), 7.0, "app"));
+    windows.add(event(T0.plusSeconds(50), 3.0, "web"));
+
+    assertTrue(windows.fire().isEmpty());
+    windows.add(event(T0.plusSeconds(65), 9.0, "web"));
+    List<WindowAggregate> fired = sorted(windows.fire());
+
+    assertEquals(2, fired.size());
+    WindowAggregate web = fired.get(1);
+    assertEquals("source-1m", web.window());
+    assertEquals(Map.of("source", "web"), web.group());
+    assertEquals(T0, web.windowStart());
+    assertEquals(T0.plusSeconds(60), web.windowEnd());
+    assertEquals(3, web.count());
+    assertEquals(8.0, web.sum());
+    assertEquals(1.0, web.min());
+    assertEquals(4.0, web.max());
+    assertEquals(8.0 / 3, web.mean(), 1e-9);
+    assertEquals(Map.of("source", "app"), fired.get(0).group());
+    assertEquals(1, windows.open());
+  }
+
+  /** Tests that a sliding window event counts towards every window overlapping it. */
+  @Test
+  void sliding_addsEventToOverlappingWindows() {
+    WindowAggregator windows =
+        aggregator(
+            1000,
+            WindowDefinition.sliding("load", Duration.ofMinutes(3), Duration.ofMinutes(1)));
+    windows.add(event(T0.plusSeconds(150), 2.0, "web"));
+
+    assertEquals(3, windows.open());
+    windows.add(event(T0.plusSeconds(600), 1.0, "web"));
+    List<WindowAggregate> fired = sorted(windows.fire());
+
+    assertEquals(3, fired.size());
+    assertEquals(T0, fired.get(0).windowStart());
+    assertEquals(T0.plusSeconds(120), fired.get(2).windowStart());
+    assertEquals(Map.of(), fired.get(0).group());
+    assertTrue(fired.stream().allMatch(aggregate -> aggregate.count() == 1));
+  }
+
+  /** Tests that events within the gap extend a session and a later event closes it. */
+  @Test
+  void session_mergesEventsWithinGap() {
+    WindowAggregator windows =
+        aggregator(1000, WindowDefinition.session("visits", Duration.ofSeconds(30), "user"));
+    windows.add(event(T0, 1.0, "u1"));
+    windows.add(event(T0.plusSeconds(20), 2.0, "u1"));
+    windows.add(event(T0.plusSeconds(10), 3.0, "u1"));
+    windows.add(event(T0.plusSeconds(45), 4.0, "u1"));
+    windows.add(event(T0.plusSeconds(100), 5.0, "u1"));
+
+    List<WindowAggregate> fired = windows.fire();
+
+    assertEquals(1, fired.size());
+    WindowAggregate session = fired.get(0);
+    assertEquals(T0, session.windowStart());
+    assertEquals(T0.plusSeconds(75), session.windowEnd());
+    assertEquals(4, session.count());
+    assertEquals(10.0, session.sum());
+    assertEquals(1, windows.open());
+  }
+
+  /**
+   * Tests that an event before the current session of its group is counted as superseded within
+   * the allowed lateness and as late past it.
+   */
+  @Test
+  void session_dropsEventsBeforeCurrentSession() {
+    WindowDefinition definition =
+        new WindowDefinition(
+            "visits",
+            WindowType.SESSION,
+            null,
+            null,
+            Duration.ofSeconds(30),
+            Duration.ofMinutes(1),
+            List.of("user"),
+            null);
+    WindowAggregator windows = aggregator(1000, definition);
+    windows.add(event(T0, 1.0, "u1"));
+    windows.add(event(T0.plusSeconds(100), 2.0, "u1"));
+
+    windows.add(event(T0.plusSeconds(50), 4.0, "u1"));
+    windows.add(event(T0.minusSeconds(200), 8.0, "u1"));
+
+    assertEquals(1.0, counter("superseded"));
+    assertEquals(1.0, counter("late"));
+    List<WindowAggregate> fired = windows.fire();
+    assertEquals(1, fired.size());
+    assertEquals(1.0, fired.get(0).sum());
+  }
+
+  /** Tests that an event without a timestamp is skipped and counted instead of failing. */
+  @Test
+  void add_skipsEventsWithoutTimestamp() {
+    WindowAggregator windows =
+        aggregator(1000, WindowDefinition.tumbling("source-1m", Duration.ofMinutes(1), "source"));
+    windows.add(event(T0.plusSeconds(10), 1.0, "web"));
+    windows.add(event(null, 2.0, "web"));
+    windows.add(event(T0.plusSeconds(20), 4.0, "web"));
+    windows.add(event(T0.plusSeconds(70), 8.0, "app"));
+
+    assertEquals(3.0, counter("aggregated"));
+    assertEquals(1.0, counter("untimed"));
+    List<WindowAggregate> fired = windows.fire();
+    assertEquals(1, fired.size());
+    assertEquals(5.0, fired.get(0).sum());
+  }
+
+  /** Tests that late events update a window within the allowed lateness and are dropped after. */
+  @Test
+  void allowedLateness_reemitsUpdatedWindowThenDropsLateEvents() {
+    WindowDefinition definition =
+        new WindowDefinition(
+            "late",
+            WindowType.TUMBLING,
+            Duration.ofMinutes(1),
+            null,
+            null,
+            Duration.ofMinutes(1),
+            List.of(),
+            null);
+    WindowAggregator windows = aggregator(1000, definition);
+    windows.add(event(T0.plusSeconds(10), 1.0, "web"));
+    windows.add(event(T0.plusSeconds(70), 1.0, "web"));
+    assertEquals(1, windows.fire().size());
+    assertTrue(windows.fire().isEmpty());
+
+    windows.add(event(T0.plusSeconds(20), 5.0, "web"));
+    List<WindowAggregate> updated = windows.fire();
+    windows.add(event(T0.plusSeconds(130), 1.0, "web"));
+    windows.fire();
+    windows.add(event(T0.plusSeconds(30), 9.0, "web"));
+
+    assertEquals(1, updated.size());
+    assertEquals(2, updated.get(0).count());
+    assertEquals(6.0, updated.get(0).sum());
+    assertEquals(1.0, counter("late"));
+    assertTrue(windows.fire().stream().noneMatch(a -> a.windowStart().equals(T0)));
+  }
+
+  /** Tests that events opening windows beyond the bound are dropped and counted. */
+  @Test
+  void maxOpenWindows_dropsEventsBeyondBound() {
+    WindowAggregator windows =
+        aggregator(64, WindowDefinition.tumbling("keys", Duration.ofMinutes(1), "source"));
+    for (int i = 0; i < 10_000; i++) {
+      windows.add(event(T0.plusSeconds(1), i, "key-" + i));
+    }
+
+    assertEquals(64, windows.open());
+    assertEquals(64, counter("aggregated"));
+    assertEquals(10_000 - 64, counter("overflow"));
+    windows.add(event(T0.plusSeconds(70), 1.0, "key-0"));
+    assertEquals(64, windows.fire().size());
+    double overflow = counter("overflow");
+    for (int i = 1; i <= 10; i++) {
+      windows.add(event(T0.plusSeconds(70), 1.0, "key-" + i));
+    }
+
+    assertEquals(overflow, counter("overflow"));
+    assertTrue(windows.open() >= 10);
+  }
+
+  /** Tests that percentile estimates stay within the relative accuracy of the histogram. */
+  @Test
+  void percentiles_areWithinRelativeAccuracy() {
+    WindowDefinition definition =
+        new WindowDefinition(
+            "latency",
+            WindowType.TUMBLING,
+            Duration.ofMinutes(1),
+            null,
+            null,
+            null,
+            List.of(),
+            List.of(0.5, 0.99, 0.999));
+    WindowAggregator windows = aggregator(1000, definition);
+    for (int i = 1; i <= 10_000; i++) {
+      windows.add(event(T0.plusMillis(i), i, "web"));
+    }
+    windows.add(event(T0.plusSeconds(70), 1.0, "web"));
+
+    WindowAggregate aggregate = windows.fire().get(0);
+    Map<String, Double> percentiles = aggregate.percentiles();
+
+    assertEquals("processor-1", aggregate.instance());
+    assertEquals(List.of("p50", "p99", "p99.9"), List.copyOf(percentiles.keySet()));
+    assertEquals(5000, percentiles.get("p50"), 5000 * 0.01);
+    assertEquals(9900, percentiles.get("p99"), 9900 * 0.01);
+    assertEquals(9990, percentiles.get("p99.9"), 9990 * 0.01);
+    assertEquals(10_000, aggregate.decodeSketch().count());
+  }
+
+  /** Tests that the sketches of two instances merge into the percentiles of all their events. */
+  @Test
+  void sketches_mergeAcrossInstances() {
+    WindowDefinition definition =
+        new WindowDefinition(
+            "latency",
+            WindowType.TUMBLING,
+            Duration.ofMinutes(1),
+            null,
+            null,
+            null,
+            List.of(),
+            List.of(0.5));
+    WindowAggregator first = aggregator(1000, definition);
+    WindowAggregator second = aggregator(1000, definition);
+    for (int i = 1; i <= 2000; i++) {
+      (i <= 1500 ? first : second).add(event(T0.plusMillis(i), i, "web"));
+    }
+    first.add(event(T0.plusSeconds(70), 1.0, "web"));
+    second.add(event(T0.plusSeconds(70), 1.0, "web"));
+
+    DDSketch merged = first.fire().get(0).decodeSketch();
+    merged.merge(second.fire().get(0).decodeSketch());
+
+    assertEquals(2000, merged.count());
+    assertEquals(1000, merged.quantile(0.5), 1000 * 0.01);
+  }
+
+  /** Tests that the watermark follows the wall clock once no event arrived for the idle timeout. */
+  @Test
+  void idleTimeout_advancesWatermarkWithWallClock() {
+    WindowAggregator windows =
+        aggregator(1000, WindowDefinition.tumbling("total", Duration.ofMinutes(1)));
+    windows.add(event(T0.plusSeconds(50), 1.0, "web"));
+    clock.advance(Duration.ofSeconds(30));
+    assertTrue(windows.fire().isEmpty());
+
+    clock.advance(Duration.ofSeconds(45));
+
+    assertEquals(1, windows.fire().size());
+    assertEquals(0, windows.open());
+  }
+
+  /** Tests that groups combine several tags and mark missing ones. */
+  @Test
+  void groupBy_combinesTagsAndMarksMissingOnes() {
+    WindowAggregator windows =
+        aggregator(
+            1000,
+            WindowDefinition.tumbling("by-region", Duration.ofMinutes(1), "source", "region"));
+    windows.add(
+        new ProcessedEvent(
+            "e", T0, 1.0, Map.of("source", "web", "region", "eu"), Map.of(), "processor"));
+    windows.add(event(T0, 1.0, "web"));
+    windows.add(event(T0.plusSeconds(70), 1.0, "web"));
+
+    List<Map<String, String>> groups =
+        windows.fire().stream().map(WindowAggregate::group).toList();
+
+    assertEquals(2, groups.size());
+    assertTrue(groups.contains(Map.of("source", "web", "region", "eu")));
+    assertTrue(groups.contains(Map.of("source", "web", "region", WindowAggregator.MISSING)));
+  }
+
+  /** Tests that checkpointed windows reopen in a new aggregator and fire the same aggregates. */
+  @Test
+  void restore_reopensCheckpointedWindows() {
+    WindowDefinition definition =
+        WindowDefinition.tumbling("source-1m", Duration.ofMinutes(1), "source");
+    WindowAggregator before = aggregator(1000, definition);
+    WindowAggregator after = aggregator(1000, definition);
+    try (StateStore store = StateStore.open(directory)) {
+      assertEquals(0, before.restore(store));
+      before.add(event(T0.plusSeconds(10), 4.0, "web"));
+      before.add(event(T0.plusSeconds(20), 1.0, "app"));
+      before.add(event(T0.plusSeconds(70), 2.0, "web"));
+      checkpoint(before, store);
+      before.add(event(T0.plusSeconds(80), 3.0, "web"));
+      assertEquals(2, before.fire().size());
+      checkpoint(before, store);
+    }
+
+    try (StateStore store = StateStore.open(directory)) {
+      assertEquals(1, after.restore(store));
+    }
+
+    assertEquals(before.watermark(), after.watermark());
+    assertEquals(before.open(), after.open());
+    before.add(event(T0.plusSeconds(200), 1.0, "app"));
+    after.add(event(T0.plusSeconds(200), 1.0, "app"));
+    WindowAggregate expected = before.fire().get(0);
+    WindowAggregate actual = after.fire().get(0);
+    assertEquals(T0.plusSeconds(60), actual.windowStart());
+    assertEquals(2, actual.count());
+    assertEquals(expected.sum(), actual.sum());
+    assertEquals(expected.group(), actual.group());
+  }
+
+  /** Tests that the stored instance ID is adopted and windows of changed definitions dropped. */
+  @Test
+  void restore_adoptsInstanceAndDropsChangedDefinitions() {
+    try (StateStore store = StateStore.open(directory)) {
+      WindowAggregator before =
+          aggregator(null, 1000, WindowDefinition.tumbling("total", Duration.ofMinutes(1)));
+      before.restore(store);
+      before.add(event(T0.plusSeconds(10), 1.0, "web"));
+      checkpoint(before, store);
+
+      WindowAggregator same =
+          aggregator(null, 1000, WindowDefinition.tumbling("total", Duration.ofMinutes(1)));
+      assertEquals(1, same.restore(store));
+      assertEquals(before.instance(), same.instance());
+
+      WindowAggregator changed =
+          aggregator(null, 1000, WindowDefinition.tumbling("total", Duration.ofMinutes(5)));
+      assertEquals(0, changed.restore(store));
+      assertEquals(0, changed.open());
+      checkpoint(changed, store);
+      List<String> keys = new ArrayList<>();
+      store.forEach((key, value) -> keys.add(key));
+      assertTrue(keys.stream().noneMatch(key -> key.startsWith("w")), keys.toString());
+      assertEquals(before.instance(), changed.instance());
+    }
+  }
+
+  private static void checkpoint(WindowAggregator windows, StateStore store) {
+    windows.checkpoint(
+        (key, value) -> {
+          if (value != null) {
+            store.put(key, value);
+          } else {
+            store.delete(key);
+          }
+        });
+  }
+
+  private WindowAggregator aggregator(int maxOpenWindows, WindowDefinition... definitions) {
+    return aggregator("processor-1", maxOpenWindows, definitions);
+  }
+
+  private WindowAggregator aggregator(
+      String instanceId, int maxOpenWindows, WindowDefinition... definitions) {
+    ProcessorProperties.Aggregation settings =
+        new ProcessorProperties.Aggregation(
+            "processing.aggregated.v1",
+            instanceId,
+            Duration.ofSeconds(5),
+            Duration.ofMinutes(1),
+            Duration.ofSeconds(1),
+            maxOpenWindows,
+            4,
+            List.of(definitions));
+    return new WindowAggregator(settings, registry, clock);
+  }
+
+  private double counter(String outcome) {
+    return registry.get("processor.window.events").tag("outcome", outcome).counter().count();
+  }
+
+  private static ProcessedEvent event(Instant ts, double value, String tag) {
+    Map<String, Object> tags = Map.of("source", tag, "user", tag);
+    return new ProcessedEvent("e", ts, value, tags, Map.of(), "processor");
+  }
+
+  private static List<WindowAggregate> sorted(List<WindowAggregate> aggregates) {
+    return aggregates.stream()
+        .sorted(
+            Comparator.comparing(WindowAggregate::windowStart)
+                .thenComparing(aggregate -> aggregate.group().toString()))
+        .toList();
+  }
+
+  /** A clock moved forward by the test. */
+  private static final class MutableClock extends Clock {
+
+    private Instant now = T0.plusSeconds(60);
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package io.analytics.platform.sink;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+/** Entry point of the sink service: persists processed events to PostgreSQL. */
+@SpringBootApplication
+@ConfigurationPropertiesScan
+public class SinkApplication {
+
+  public static void main(String[] args) {
+    SpringApplication.run(SinkApplication.class, args);
+  }
+}
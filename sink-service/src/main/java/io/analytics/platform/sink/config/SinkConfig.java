@@ -0,0 +1,183 @@
+package io.analytics.platform.sink.config;
+
+import io.analytics.platform.sink.elasticsearch.BulkIndexer;
+import io.analytics.platform.sink.pipeline.DeadLetterPublisher;
+import io.analytics.platform.sink.pipeline.EventWriter;
+import io.analytics.platform.sink.pipeline.SinkPipeline;
+import io.analytics.platform.sink.postgres.PartitionMaintenance;
+import io.analytics.platform.sink.postgres.PartitionManager;
+import io.analytics.platform.sink.postgres.PostgresWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Wires the PostgreSQL writer, the Elasticsearch indexer and the pipelines that feed them
+ * processed events, each under a consumer group of its own.
+ *
+ * <p>The consumers read {@code byte[]} values, decoded by the pipelines in either wire format.
+ * Connection settings come from {@code spring.kafka.*}; auto-commit is always off because offsets
+ * are committed after each flush, and each pipeline fetches at most its batch size per poll. The
+ * producer of dead letters is idempotent and waits for all replicas. The data source is
+ * configured with {@code spring.datasource.*}; the events table is partitioned by time, its
+ * partitions created and expired by the sink.
+ */
+@Configuration(proxyBeanMethods = false)
+public class SinkConfig {
+
+  @Bean
+  public ConsumerFactory<String, byte[]> sinkConsumerFactory(
+      KafkaProperties kafkaProperties, ObjectProvider<SslBundles> sslBundles) {
+    Map<String, Object> config =
+        new HashMap<>(kafkaProperties.buildConsumerProperties(sslBundles.getIfAvailable()));
+    config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+    config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+    config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+    return new DefaultKafkaConsumerFactory<>(config);
+  }
+
+  @Bean
+  public KafkaTemplate<String, byte[]> sinkKafkaTemplate(
+      KafkaProperties kafkaProperties, ObjectProvider<SslBundles> sslBundles) {
+    Map<String, Object> config =
+        new HashMap<>(kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable()));
+    config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+    config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+    config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+    config.put(ProducerConfig.ACKS_CONFIG, "all");
+    return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(config));
+  }
+
+  @Bean
+  public DeadLetterPublisher deadLetterPublisher(
+      KafkaTemplate<String, byte[]> sinkKafkaTemplate, SinkProperties properties) {
+    return new DeadLetterPublisher(
+        sinkKafkaTemplate, properties.dlqTopic(), properties.dlqSendTimeout());
+  }
+
+  @Bean
+  public Clock clock() {
+    return Clock.systemUTC();
+  }
+
+  @Bean
+  public PartitionManager partitionManager(
+      DataSource dataSource, SinkProperties properties, Clock clock, MeterRegistry registry) {
+    SinkProperties.Postgres postgres = properties.postgres();
+    SinkProperties.Partitioning partitioning = postgres.partitioning();
+    return new PartitionManager(
+        dataSource,
+        postgres.table(),
+        partitioning.interval(),
+        partitioning.precreate(),
+        partitioning.retention(),
+        partitioning.retentionAction() == SinkProperties.RetentionAction.DROP,
+        clock,
+        registry);
+  }
+
+  @Bean
+  public PartitionMaintenance partitionMaintenance(
+      PartitionManager partitionManager, SinkProperties properties) {
+    return new PartitionMaintenance(
+        partitionManager, properties.postgres().partitioning().maintenanceInterval());
+  }
+
+  @Bean
+  public PostgresWriter postgresWriter(
+      DataSource dataSource, PartitionManager partitionManager, SinkProperties properties) {
+    return new PostgresWriter(dataSource, partitionManager, properties.postgres().mode());
+  }
+
+  @Bean
+  public SinkPipeline postgresPipeline(
+      ConsumerFactory<String, byte[]> sinkConsumerFactory,
+      PostgresWriter postgresWriter,
+      DeadLetterPublisher deadLetterPublisher,
+      SinkProperties properties,
+      MeterRegistry registry) {
+    SinkProperties.Postgres postgres = properties.postgres();
+    return new SinkPipeline(
+        consumers(sinkConsumerFactory, postgres.groupId(), postgresWriter, postgres.batchSize()),
+        List.of(properties.inputTopic()),
+        postgresWriter,
+        deadLetterPublisher,
+        postgres.batchSize(),
+        postgres.flushInterval(),
+        postgres.retryBackoff(),
+        postgres.maxRetryBackoff(),
+        registry);
+  }
+
+  @Bean
+  @ConditionalOnProperty(prefix = "sink.elasticsearch", name = "enabled", matchIfMissing = true)
+  public BulkIndexer bulkIndexer(SinkProperties properties, MeterRegistry registry) {
+    SinkProperties.Elasticsearch elasticsearch = properties.elasticsearch();
+    return new BulkIndexer(
+        elasticsearch.url(),
+        elasticsearch.index(),
+        elasticsearch.concurrency(),
+        (int) elasticsearch.minBulkSize().toBytes(),
+        (int) elasticsearch.maxBulkSize().toBytes(),
+        elasticsearch.targetLatency(),
+        elasticsearch.maxAttempts(),
+        elasticsearch.retryBackoff(),
+        elasticsearch.timeout(),
+        registry);
+  }
+
+  @Bean
+  @ConditionalOnProperty(prefix = "sink.elasticsearch", name = "enabled", matchIfMissing = true)
+  public SinkPipeline elasticsearchPipeline(
+      ConsumerFactory<String, byte[]> sinkConsumerFactory,
+      BulkIndexer bulkIndexer,
+      DeadLetterPublisher deadLetterPublisher,
+      SinkProperties properties,
+      MeterRegistry registry) {
+    SinkProperties.Elasticsearch elasticsearch = properties.elasticsearch();
+    return new SinkPipeline(
+        consumers(
+            sinkConsumerFactory, elasticsearch.groupId(), bulkIndexer, elasticsearch.batchSize()),
+        List.of(properties.inputTopic()),
+        bulkIndexer,
+        deadLetterPublisher,
+        elasticsearch.batchSize(),
+        elasticsearch.flushInterval(),
+        elasticsearch.retryBackoff(),
+        elasticsearch.maxRetryBackoff(),
+        registry);
+  }
+
+  /**
+   * Creates the consumers of a pipeline, under its group and with a client ID suffixed by its
+   * writer, fetching no more than a batch per poll so that its buffer stays bounded.
+   */
+  private static Supplier<Consumer<String, byte[]>> consumers(
+      ConsumerFactory<String, byte[]> factory, String groupId, EventWriter writer, int batchSize) {
+    Properties overrides = new Properties();
+    overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Integer.toString(batchSize));
+    return () -> factory.createConsumer(groupId, null, "-" + writer.name(), overrides);
+  }
+}
@@ -0,0 +1,215 @@
+package io.analytics.platform.sink.config;
+
+import io.analytics.platform.common.constants.TopicNames;
+import io.analytics.platform.sink.postgres.PartitionInterval;
+import io.analytics.platform.sink.postgres.PostgresWriter;
+import java.net.URI;
+import java.time.Duration;
+import java.util.regex.Pattern;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings of the sink service, bound from the {@code sink.*} namespace.
+ *
+ * <p>Each destination is fed by a pipeline of its own, consuming {@code inputTopic} under its own
+ * consumer group with its own buffer and retry policy, so that it progresses, lags and scales
+ * independently of the others.
+ *
+ * @param inputTopic topic of the processed events to persist
+ * @param dlqTopic topic receiving the records a destination cannot store
+ * @param dlqSendTimeout how long the dead letters of a flush may take to be acknowledged
+ * @param postgres settings of the PostgreSQL pipeline
+ * @param elasticsearch settings of the Elasticsearch pipeline
+ */
+@ConfigurationProperties(prefix = "sink")
+public record SinkProperties(
+    @DefaultValue(TopicNames.PROCESSED_EVENTS) String inputTopic,
+    @DefaultValue(TopicNames.DLQ) String dlqTopic,
+    @DefaultValue("30s") Duration dlqSendTimeout,
+    @DefaultValue Postgres postgres,
+    @DefaultValue Elasticsearch elasticsearch) {
+
+  private static final Pattern TABLE_NAME =
+      Pattern.compile("[a-z_][a-z0-9_]*(\\.[a-z_][a-z0-9_]*)?");
+
+  /** Validates the settings. */
+  public SinkProperties {
+    if (!dlqSendTimeout.isPositive()) {
+      throw new IllegalArgumentException("sink.dlq-send-timeout must be positive");
+    }
+    if (elasticsearch.enabled() && elasticsearch.groupId().equals(postgres.groupId())) {
+      throw new IllegalArgumentException(
+          "sink.postgres.group-id and sink.elasticsearch.group-id must differ");
+    }
+  }
+
+  /**
+   * Settings of the PostgreSQL pipeline, bound from {@code sink.postgres.*}.
+   *
+   * <p>Events are buffered and written in one transaction per flush, when {@code batchSize} are
+   * buffered or the oldest has waited {@code flushInterval}; offsets are committed only once the
+   * flush succeeded. A failed flush is retried with fetching paused, after {@code retryBackoff}
+   * then after a pause doubling up to {@code maxRetryBackoff}.
+   *
+   * @param table the table events are written to, optionally schema-qualified
+   * @param mode {@code copy} to stream batches with the COPY protocol, {@code insert} for
+   *     multi-row inserts
+   * @param groupId the consumer group of the pipeline
+   * @param batchSize the events that trigger a flush, the most written per call and the most
+   *     fetched per poll
+   * @param flushInterval how long an event is buffered at most
+   * @param retryBackoff the pause after the first failure of a flush
+   * @param maxRetryBackoff the longest pause between attempts of a failed flush
+   * @param partitioning management of the time partitions of the table
+   */
+  public record Postgres(
+      @DefaultValue("processed_events") String table,
+      @DefaultValue("copy") PostgresWriter.Mode mode,
+      @DefaultValue("sink-service") String groupId,
+      @DefaultValue("5000") int batchSize,
+      @DefaultValue("1s") Duration flushInterval,
+      @DefaultValue("1s") Duration retryBackoff,
+      @DefaultValue("1m") Duration maxRetryBackoff,
+      @DefaultValue Partitioning partitioning) {
+
+    /** Validates the settings. */
+    public Postgres {
+      if (!TABLE_NAME.matcher(table).matches()) {
+        throw new IllegalArgumentException(
+            "sink.postgres.table must be a lower case, optionally schema-qualified name");
+      }
+      if (batchSize <= 0) {
+        throw new IllegalArgumentException("sink.postgres.batch-size must be positive");
+      }
+      if (!flushInterval.isPositive() || !retryBackoff.isPositive()) {
+        throw new IllegalArgumentException(
+            "sink.postgres.flush-interval and retry-backoff must be positive");
+      }
+      if (maxRetryBackoff.compareTo(retryBackoff) < 0) {
+        throw new IllegalArgumentException(
+            "sink.postgres.max-retry-backoff must be at least retry-backoff");
+      }
+    }
+  }
+
+  /**
+   * Management of the time partitions of the events table, bound from {@code
+   * sink.postgres.partitioning.*}.
+   *
+   * <p>Every {@code maintenanceInterval} the partition of the current interval and the {@code
+   * precreate} following ones are created, and those whose whole range is older than {@code
+   * retention} are detached, then dropped if {@code retentionAction} is {@code drop}.
+   *
+   * @param interval {@code daily} or {@code hourly} partitions
+   * @param precreate the partitions created ahead of the current one
+   * @param retention how long events are kept, zero to keep them forever
+   * @param retentionAction {@code drop} to drop expired partitions, {@code detach} to only detach
+   *     them, e.g. to archive them
+   * @param maintenanceInterval the pause between maintenance runs
+   */
+  public record Partitioning(
+      @DefaultValue("daily") PartitionInterval interval,
+      @DefaultValue("3") int precreate,
+      @DefaultValue("30d") Duration retention,
+      @DefaultValue("drop") RetentionAction retentionAction,
+      @DefaultValue("10m") Duration maintenanceInterval) {
+
+    /** Validates the settings. */
+    public Partitioning {
+      if (precreate < 0) {
+        throw new IllegalArgumentException(
+            "sink.postgres.partitioning.precreate must not be negative");
+      }
+      if (retention.isNegative()) {
+        throw new IllegalArgumentException(
+            "sink.postgres.partitioning.retention must not be negative");
+      }
+      if (!maintenanceInterval.isPositive()) {
+        throw new IllegalArgumentException(
+            "sink.postgres.partitioning.maintenance-interval must be positive");
+      }
+    }
+  }
+
+  /** What is done with the partitions beyond the retention. */
+  public enum RetentionAction {
+    /** Detach and drop them. */
+    DROP,
+    /** Only detach them, leaving standalone tables. */
+    DETACH
+  }
+
+  /**
+   * Settings of the Elasticsearch pipeline, bound from {@code sink.elasticsearch.*}.
+   *
+   * <p>The pipeline consumes under a consumer group of its own, so that it progresses independently
+   * of the PostgreSQL one. Events are buffered as for PostgreSQL and each flush is indexed with
+   * {@code _bulk} requests whose size adapts between {@code minBulkSize} and {@code maxBulkSize}:
+   * it grows while requests take less than {@code targetLatency} and shrinks when they take longer
+   * or are rejected. Items failing transiently are retried up to {@code maxAttempts} times before
+   * the flush fails and is retried as a whole, after a pause doubling from {@code retryBackoff} up
+   * to {@code maxRetryBackoff}; items rejected for good go to the dead letter topic.
+   *
+   * @param enabled whether events are indexed into Elasticsearch
+   * @param url the base URL of the cluster
+   * @param index the index events are written to
+   * @param groupId the consumer group of the pipeline
+   * @param batchSize the events that trigger a flush, the most indexed per call and the most
+   *     fetched per poll
+   * @param flushInterval how long an event is buffered at most
+   * @param retryBackoff the pause after the first failure of a flush, and before the first retry
+   *     of failed items
+   * @param maxRetryBackoff the longest pause between attempts of a failed flush
+   * @param concurrency the most bulk requests in flight at a time
+   * @param minBulkSize the smallest target size of a bulk request
+   * @param maxBulkSize the largest target size of a bulk request
+   * @param targetLatency the latency above which bulk requests are made smaller
+   * @param maxAttempts the attempts made at an item within a flush
+   * @param timeout how long a request may take, connection included
+   */
+  public record Elasticsearch(
+      @DefaultValue("true") boolean enabled,
+      @DefaultValue("http://localhost:9200") URI url,
+      @DefaultValue("processed_events") String index,
+      @DefaultValue("sink-service-elasticsearch") String groupId,
+      @DefaultValue("5000") int batchSize,
+      @DefaultValue("1s") Duration flushInterval,
+      @DefaultValue("1s") Duration retryBackoff,
+      @DefaultValue("1m") Duration maxRetryBackoff,
+      @DefaultValue("4") int concurrency,
+      @DefaultValue("1MB") DataSize minBulkSize,
+      @DefaultValue("15MB") DataSize maxBulkSize,
+      @DefaultValue("1s") Duration targetLatency,
+      @DefaultValue("3") int maxAttempts,
+      @DefaultValue("30s") Duration timeout) {
+
+    /** Validates the settings. */
+    public Elasticsearch {
+      if (batchSize <= 0 || concurrency <= 0 || maxAttempts <= 0) {
+        throw new IllegalArgumentException(
+            "sink.elasticsearch batch-size, concurrency and max-attempts must be positive");
+      }
+      if (minBulkSize.toBytes() <= 0
+          || minBulkSize.compareTo(maxBulkSize) > 0
+          || maxBulkSize.toBytes() > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException(
+            "sink.elasticsearch.min-bulk-size must be positive and at most max-bulk-size,"
+                + " itself below 2GB");
+      }
+      if (!flushInterval.isPositive()
+          || !retryBackoff.isPositive()
+          || !targetLatency.isPositive()
+          || !timeout.isPositive()) {
+        throw new IllegalArgumentException(
+            "sink.elasticsearch flush-interval, retry-backoff, target-latency and timeout must be"
+                + " positive");
+      }
+      if (maxRetryBackoff.compareTo(retryBackoff) < 0) {
+        throw new IllegalArgumentException(
+            "sink.elasticsearch.max-retry-backoff must be at least retry-backoff");
+      }
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package io.analytics.platform.sink.elasticsearch;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.exception.EncodingException;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Encodes events as the lines of a {@code _bulk} request body: an {@code index} action keyed by
+ * the event ID, so that redelivered events overwrite their document, then the document itself.
+ *
+ * <p>Documents follow the {@code processed_events} mapping: {@code id}, {@code ts}, {@code
+ * valueTransformed}, {@code tags} and {@code source}. Tags are written as an array of {@code
+ * key:value} keywords, which a {@code keyword} field indexes as is; processing metadata is left
+ * out, as it is not searched.
+ *
+ * <p>Not thread-safe: one encoder serves one batch.
+ */
+final class BulkEncoder {
+
+  private static final JsonFactory JSON = new JsonFactory();
+
+  private final String index;
+  private final ByteArrayBuilder buffer = new ByteArrayBuilder(512);
+  private final JsonGenerator generator;
+
+  BulkEncoder(String index) {
+    this.index = index;
+    try {
+      this.generator = JSON.createGenerator(buffer);
+    } catch (IOException e) {
+      throw new EncodingException("Failed to create a JSON generator", e);
+    }
+    generator.setRootValueSeparator(null);
+  }
+
+  /**
+   * Encodes the action and document lines of an event.
+   *
+   * @param event the event
+   * @return both lines, each ended by a newline
+   */
+  byte[] encode(ProcessedEvent event) {
+    try {
+      generator.writeStartObject();
+      generator.writeObjectFieldStart("index");
+      generator.writeStringField("_index", index);
+      generator.writeStringField("_id", event.id());
+      generator.writeEndObject();
+      generator.writeEndObject();
+      generator.writeRaw('\n');
+      generator.writeStartObject();
+      generator.writeStringField("id", event.id());
+      generator.writeStringField("ts", event.ts().toString());
+      if (event.valueTransformed() != null) {
+        generator.writeNumberField("valueTransformed", event.valueTransformed());
+      }
+      if (event.tags() != null && !event.tags().isEmpty()) {
+        generator.writeArrayFieldStart("tags");
+        for (Map.Entry<String, Object> tag : event.tags().entrySet()) {
+          generator.writeString(tag.getKey() + ':' + tag.getValue());
+        }
+        generator.writeEndArray();
+      }
+      if (event.source() != null) {
+        generator.writeStringField("source", event.source());
+      }
+      generator.writeEndObject();
+      generator.writeRaw('\n');
+      generator.flush();
+      byte[] lines = buffer.toByteArray();
+      buffer.reset();
+      return lines;
+    } catch (IOException e) {
+      throw new EncodingException("Failed to encode event " + event.id(), e);
+    }
+  }
+}
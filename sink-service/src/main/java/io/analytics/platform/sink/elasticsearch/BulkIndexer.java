@@ -0,0 +1,369 @@
+package io.analytics.platform.sink.elasticsearch;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.logging.Logging;
+import io.analytics.platform.sink.pipeline.EventWriter;
+import io.analytics.platform.sink.pipeline.WriteResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+
+/**
+ * Indexes batches of processed events into Elasticsearch with {@code _bulk} requests.
+ *
+ * <p>A batch is encoded once, then cut into requests of about {@link BulkSizer#bytes()} bytes,
+ * which adapts to the latency and rejections of the previous requests. At most {@code
+ * concurrency} requests are in flight at a time, so the sink never queues more work on the
+ * cluster than its write thread pools can take. Documents are keyed by event ID, which makes
+ * indexing idempotent: a redelivered event overwrites its document.
+ *
+ * <p>Only the items that failed with a transient status (429, 502, 503, 504), or all the items of
+ * a request that failed as a whole with 413, 429 or 5xx or on I/O, are sent again, after a backoff
+ * that doubles from {@code retryBackoff} on each of up to {@code maxAttempts} attempts; the batch
+ * fails if some are still failing then. Items rejected for good, e.g. a document the mapping
+ * refuses, are reported as rejected, for the pipeline to dead letter them. Any other status of a
+ * whole request fails the batch.
+ *
+ * <p>The index is created with the {@code processed_events} mapping before the first batch, unless
+ * it already exists.
+ *
+ * <p>Meters, tagged {@code sink=elasticsearch}:
+ *
+ * <ul>
+ *   <li>{@code sink.bulk.duration}: latency of the bulk requests
+ *   <li>{@code sink.bulk.size}: the current target size of a request, in bytes
+ *   <li>{@code sink.bulk.rejections}: requests rejected, or with items rejected, as overloading
+ *   <li>{@code sink.bulk.items{outcome=retried|rejected}}: items sent again, or rejected for good
+ * </ul>
+ *
+ * <p>Not thread-safe: batches are written one at a time.
+ */
+public final class BulkIndexer implements EventWriter {
+
+  private static final Logger log = Logging.getLogger(BulkIndexer.class);
+
+  private static final String MAPPING =
+      "{\"mappings\":{\"properties\":{"
+          + "\"id\":{\"type\":\"keyword\"},"
+          + "\"ts\":{\"type\":\"date\"},"
+          + "\"valueTransformed\":{\"type\":\"float\"},"
+          + "\"tags\":{\"type\":\"keyword\"},"
+          + "\"source\":{\"type\":\"keyword\"}}}}";
+
+  private final URI bulkUri;
+  private final URI indexUri;
+  private final String index;
+  private final Semaphore permits;
+  private final BulkSizer sizer;
+  private final int maxAttempts;
+  private final Duration retryBackoff;
+  private final Duration timeout;
+  private final HttpClient client;
+  private final Timer duration;
+  private final Counter rejections;
+  private final Counter retried;
+  private final Counter rejected;
+  private boolean indexReady;
+
+  /**
+   * Creates an indexer.
+   *
+   * @param url the base URL of the cluster, e.g. {@code http://localhost:9200}
+   * @param index the index written to
+   * @param concurrency the most requests in flight at a time
+   * @param minBytes the smallest target size of a request
+   * @param maxBytes the largest target size of a request
+   * @param targetLatency the request latency above which requests are made smaller
+   * @param maxAttempts the attempts made at an item before the batch fails
+   * @param retryBackoff the pause before the second attempt, doubled for each further one
+   * @param timeout how long a request may take, connection included
+   * @param registry registry of the indexer meters
+   */
+  public BulkIndexer(
+      URI url,
+      String index,
+      int concurrency,
+      int minBytes,
+      int maxBytes,
+      Duration targetLatency,
+      int maxAttempts,
+      Duration retryBackoff,
+      Duration timeout,
+      MeterRegistry registry) {
+    String base = url.toString().endsWith("/") ? url.toString() : url + "/";
+    this.bulkUri = URI.create(base + "_bulk");
+    this.indexUri = URI.create(base + index);
+    this.index = index;
+    this.permits = new Semaphore(concurrency);
+    this.sizer = new BulkSizer(minBytes, maxBytes, minBytes * 4, targetLatency);
+    this.maxAttempts = maxAttempts;
+    this.retryBackoff = retryBackoff;
+    this.timeout = timeout;
+    this.client =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(timeout)
+            .build();
+    duration =
+        Timer.builder("sink.bulk.duration")
+            .description("Latency of the bulk requests")
+            .tag("sink", name())
+            .register(registry);
+    Gauge.builder("sink.bulk.size", sizer::bytes)
+        .description("Target size of a bulk request, in bytes")
+        .tag("sink", name())
+        .register(registry);
+    rejections =
+        Counter.builder("sink.bulk.rejections")
+            .description("Bulk requests rejected, or with items rejected, as overloading")
+            .tag("sink", name())
+            .register(registry);
+    retried = items(registry, "retried");
+    rejected = items(registry, "rejected");
+  }
+
+  private Counter items(MeterRegistry registry, String outcome) {
+    return Counter.builder("sink.bulk.items")
+        .description("Bulk items sent again or rejected for good")
+        .tag("sink", name())
+        .tag("outcome", outcome)
+        .register(registry);
+  }
+
+  @Override
+  public String name() {
+    return "elasticsearch";
+  }
+
+  /**
+   * Indexes a batch.
+   *
+   * @param events the events
+   * @return the number of events indexed and those rejected for good
+   * @throws IOException if some events could not be indexed; those that were stay indexed
+   * @throws InterruptedException if interrupted while waiting for a request or a retry
+   */
+  @Override
+  public WriteResult write(List<ProcessedEvent> events) throws IOException, InterruptedException {
+    if (!indexReady) {
+      createIndex();
+      indexReady = true;
+    }
+    BulkEncoder encoder = new BulkEncoder(index);
+    byte[][] documents = new byte[events.size()][];
+    for (int i = 0; i < documents.length; i++) {
+      documents[i] = encoder.encode(events.get(i));
+    }
+    int[] pending = IntStream.range(0, documents.length).toArray();
+    int indexed = 0;
+    List<WriteResult.Rejection> rejections = new ArrayList<>();
+    for (int attempt = 1; ; attempt++) {
+      Round round = new Round(events, documents);
+      round.send(pending);
+      indexed += round.indexed;
+      rejections.addAll(round.rejected);
+      if (round.retry.isEmpty()) {
+        return new WriteResult(indexed, rejections);
+      }
+      if (attempt == maxAttempts) {
+        throw new IOException(
+            round.retry.size()
+                + " of "
+                + events.size()
+                + " events still failing after "
+                + attempt
+                + " attempts, last with "
+                + round.lastError);
+      }
+      retried.increment(round.retry.size());
+      Thread.sleep(retryBackoff.multipliedBy(1L << Math.min(attempt - 1, 10)));
+      pending = round.retry.stream().mapToInt(Integer::intValue).toArray();
+    }
+  }
+
+  private void createIndex() throws IOException, InterruptedException {
+    HttpRequest request =
+        HttpRequest.newBuilder(indexUri)
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .PUT(HttpRequest.BodyPublishers.ofString(MAPPING))
+            .build();
+    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    if (response.statusCode() == 200) {
+      Logging.info(log, "Created index {}", index);
+    } else if (response.statusCode() != 400
+        || !response.body().contains("resource_already_exists_exception")) {
+      throw new IOException(
+          "Creating index "
+              + index
+              + " responded "
+              + response.statusCode()
+              + ": "
+              + response.body());
+    }
+  }
+
+  /** One pass over the pending items of a batch, cut into concurrent requests. */
+  private final class Round {
+
+    private final List<ProcessedEvent> events;
+    private final byte[][] documents;
+    private final List<Integer> retry = new ArrayList<>();
+    private final List<WriteResult.Rejection> rejected = new ArrayList<>();
+    private int indexed;
+    private String lastError;
+
+    Round(List<ProcessedEvent> events, byte[][] documents) {
+      this.events = events;
+      this.documents = documents;
+    }
+
+    void send(int[] pending) throws IOException, InterruptedException {
+      List<int[]> bulks = new ArrayList<>();
+      List<CompletableFuture<Outcome>> outcomes = new ArrayList<>();
+      int from = 0;
+      while (from < pending.length) {
+        // Sized when sent, so that each request follows the outcome of those before it
+        int target = sizer.bytes();
+        int to = from;
+        int bytes = 0;
+        while (to < pending.length) {
+          int length = documents[pending[to]].length;
+          if (to > from && bytes + length > target) {
+            break;
+          }
+          bytes += length;
+          to++;
+        }
+        int[] items = Arrays.copyOfRange(pending, from, to);
+        byte[] body = new byte[bytes];
+        int offset = 0;
+        for (int item : items) {
+          System.arraycopy(documents[item], 0, body, offset, documents[item].length);
+          offset += documents[item].length;
+        }
+        permits.acquire();
+        bulks.add(items);
+        outcomes.add(post(body));
+        from = to;
+      }
+      for (int i = 0; i < bulks.size(); i++) {
+        try {
+          handle(bulks.get(i), outcomes.get(i).get());
+        } catch (ExecutionException e) {
+          throw new IllegalStateException("Bulk outcomes are always completed normally", e);
+        }
+      }
+    }
+
+    private CompletableFuture<Outcome> post(byte[] body) {
+      HttpRequest request =
+          HttpRequest.newBuilder(bulkUri)
+              .timeout(timeout)
+              .header("Content-Type", "application/x-ndjson")
+              .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+              .build();
+      long begin = System.nanoTime();
+      return client
+          .sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+          .handle(
+              (response, error) -> {
+                permits.release();
+                long nanos = System.nanoTime() - begin;
+                duration.record(nanos, TimeUnit.NANOSECONDS);
+                return new Outcome(response, error, nanos);
+              });
+    }
+
+    private void handle(int[] items, Outcome outcome) throws IOException {
+      if (outcome.error != null) {
+        Throwable error =
+            outcome.error instanceof CompletionException && outcome.error.getCause() != null
+                ? outcome.error.getCause()
+                : outcome.error;
+        completed(outcome.nanos, error instanceof HttpTimeoutException);
+        lastError = error.toString();
+        retryAll(items);
+        return;
+      }
+      int status = outcome.response.statusCode();
+      if (status == 200) {
+        items(items, BulkResponse.parse(outcome.response.body(), items.length), outcome.nanos);
+      } else if (status == 413 || status == 429 || status / 100 == 5) {
+        completed(outcome.nanos, status == 413 || status == 429 || status == 503);
+        lastError = "status " + status;
+        retryAll(items);
+      } else {
+        completed(outcome.nanos, false);
+        throw new IOException(
+            "Bulk request responded "
+                + status
+                + ": "
+                + new String(outcome.response.body(), StandardCharsets.UTF_8));
+      }
+    }
+
+    private void items(int[] items, BulkResponse response, long nanos) {
+      boolean overloaded = false;
+      int refused = 0;
+      String example = null;
+      for (int i = 0; i < items.length; i++) {
+        int status = response.status(i);
+        if (status / 100 == 2) {
+          indexed++;
+        } else if (status == 429 || status == 502 || status == 503 || status == 504) {
+          overloaded |= status == 429;
+          lastError = "item status " + status + ": " + response.error(i);
+          retry.add(items[i]);
+        } else {
+          String reason = "status " + status + ": " + response.error(i);
+          rejected.add(new WriteResult.Rejection(items[i], reason));
+          refused++;
+          if (example == null) {
+            example = events.get(items[i]).id() + " (" + reason + ")";
+          }
+        }
+      }
+      completed(nanos, overloaded);
+      if (refused > 0) {
+        BulkIndexer.this.rejected.increment(refused);
+        Logging.info(log, "Elasticsearch rejected {} events, e.g. {}", refused, example);
+      }
+    }
+
+    private void completed(long nanos, boolean overloaded) {
+      if (overloaded) {
+        rejections.increment();
+      }
+      sizer.completed(nanos, overloaded);
+    }
+
+    private void retryAll(int[] items) {
+      for (int item : items) {
+        retry.add(item);
+      }
+    }
+  }
+
+  /** The response to a bulk request, or the error it failed with. */
+  private record Outcome(HttpResponse<byte[]> response, Throwable error, long nanos) {}
+}
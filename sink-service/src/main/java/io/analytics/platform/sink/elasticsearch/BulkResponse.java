@@ -0,0 +1,129 @@
+package io.analytics.platform.sink.elasticsearch;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+
+/**
+ * Outcome of the items of a {@code _bulk} request, read from its response body.
+ *
+ * <p>The body is streamed rather than bound to a tree: when its leading {@code errors} flag is
+ * false, as it is for nearly every request, nothing past it is read; otherwise only the status and
+ * error of each item are kept.
+ */
+final class BulkResponse {
+
+  private static final JsonFactory JSON = new JsonFactory();
+
+  private final int[] statuses;
+  private final String[] errors;
+
+  private BulkResponse(int[] statuses, String[] errors) {
+    this.statuses = statuses;
+    this.errors = errors;
+  }
+
+  /**
+   * Reads a response body.
+   *
+   * @param body the body of a 200 response
+   * @param items the number of items of the request
+   * @return the outcome of the items
+   * @throws IOException if the body is not a bulk response for that many items
+   */
+  static BulkResponse parse(byte[] body, int items) throws IOException {
+    try (JsonParser parser = JSON.createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Bulk response is not a JSON object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if (field.equals("errors") && value == JsonToken.VALUE_FALSE) {
+          return new BulkResponse(null, null);
+        } else if (field.equals("items") && value == JsonToken.START_ARRAY) {
+          return items(parser, items);
+        }
+        parser.skipChildren();
+      }
+      throw new IOException("Bulk response has neither errors nor items");
+    }
+  }
+
+  private static BulkResponse items(JsonParser parser, int items) throws IOException {
+    int[] statuses = new int[items];
+    String[] errors = new String[items];
+    int i = 0;
+    while (parser.nextToken() == JsonToken.START_OBJECT) {
+      if (i == items) {
+        throw new IOException("Bulk response has more than " + items + " items");
+      }
+      // {"index": {"_id": ..., "status": 429, "error": {"type": ..., "reason": ...}}}
+      parser.nextToken();
+      parser.nextToken();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        parser.nextToken();
+        if (field.equals("status")) {
+          statuses[i] = parser.getIntValue();
+        } else if (field.equals("error")) {
+          errors[i] = error(parser);
+        } else {
+          parser.skipChildren();
+        }
+      }
+      parser.nextToken();
+      i++;
+    }
+    if (i != items) {
+      throw new IOException("Bulk response has " + i + " items, expected " + items);
+    }
+    return new BulkResponse(statuses, errors);
+  }
+
+  private static String error(JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      return parser.getValueAsString();
+    }
+    String type = null;
+    String reason = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      parser.nextToken();
+      if (field.equals("type")) {
+        type = parser.getValueAsString();
+      } else if (field.equals("reason")) {
+        reason = parser.getValueAsString();
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return reason != null ? type + ": " + reason : type;
+  }
+
+  /** Returns whether some items failed. */
+  boolean errors() {
+    return statuses != null;
+  }
+
+  /**
+   * Returns the HTTP status of an item.
+   *
+   * @param item the position of the item in the request
+   * @return its status, 200 for every item when none failed
+   */
+  int status(int item) {
+    return statuses != null ? statuses[item] : 200;
+  }
+
+  /**
+   * Returns the error of an item.
+   *
+   * @param item the position of the item in the request
+   * @return its error type and reason, or null if it succeeded
+   */
+  String error(int item) {
+    return errors != null ? errors[item] : null;
+  }
+}
@@ -0,0 +1,58 @@
+package io.analytics.platform.sink.elasticsearch;
+
+import java.time.Duration;
+
+/**
+ * Size of the bulk requests, adapted to how the cluster copes with them.
+ *
+ * <p>Follows additive increase, multiplicative decrease: a request answered within {@code
+ * targetLatency} without rejection grows the size by {@code minBytes}, while a rejection (HTTP 429
+ * or 413, or items rejected with 429) halves it and a slow answer shrinks it by a quarter. The size
+ * thus settles just below the point where the cluster starts queueing, and backs off quickly when
+ * its write thread pool fills up. It stays within {@code [minBytes, maxBytes]}.
+ *
+ * <p>Thread-safe.
+ */
+final class BulkSizer {
+
+  private final int minBytes;
+  private final int maxBytes;
+  private final long targetNanos;
+  private int bytes;
+
+  /**
+   * Creates a sizer.
+   *
+   * @param minBytes the smallest size, and the step of an increase
+   * @param maxBytes the largest size
+   * @param initialBytes the size to start with
+   * @param targetLatency the latency above which requests shrink
+   */
+  BulkSizer(int minBytes, int maxBytes, int initialBytes, Duration targetLatency) {
+    this.minBytes = minBytes;
+    this.maxBytes = maxBytes;
+    this.targetNanos = targetLatency.toNanos();
+    this.bytes = Math.clamp(initialBytes, minBytes, maxBytes);
+  }
+
+  /** Returns the current target size of a request, in bytes. */
+  synchronized int bytes() {
+    return bytes;
+  }
+
+  /**
+   * Adapts the size to the outcome of a request.
+   *
+   * @param nanos how long the request took
+   * @param rejected whether the cluster rejected the request or some of its items as overloaded
+   */
+  synchronized void completed(long nanos, boolean rejected) {
+    if (rejected) {
+      bytes = Math.max(minBytes, bytes / 2);
+    } else if (nanos > targetNanos) {
+      bytes = Math.max(minBytes, bytes - bytes / 4);
+    } else {
+      bytes = Math.min(maxBytes, bytes + minBytes);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package io.analytics.platform.sink.pipeline;
+
+import io.analytics.platform.common.kafka.DlqHeaders;
+import io.analytics.platform.common.util.WireFormat;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Writes the records a sink cannot store to the dead letter topic.
+ *
+ * <p>The dead letter holds the original key, payload and content type header, with the {@link
+ * DlqHeaders} telling where it was read from, which destination refused it and why. Since every
+ * destination consumes the input topic on its own, a record refused by several of them is dead
+ * lettered once by each.
+ *
+ * <p>Thread-safe.
+ */
+public final class DeadLetterPublisher {
+
+  /** Error code of records whose payload is not a decodable event. */
+  public static final String DECODE_FAILED = "DECODE_FAILED";
+
+  /** Error code of events the destination refused, e.g. a document its mapping rejects. */
+  public static final String WRITE_REJECTED = "WRITE_REJECTED";
+
+  /** Error code of events whose write failed because of the event itself. */
+  public static final String WRITE_FAILED = "WRITE_FAILED";
+
+  private static final byte[] SERVICE = "sink-service".getBytes(StandardCharsets.UTF_8);
+
+  private final KafkaTemplate<String, byte[]> template;
+  private final String topic;
+  private final Duration sendTimeout;
+
+  /**
+   * Creates a publisher.
+   *
+   * @param template producer of the dead letters
+   * @param topic the dead letter topic
+   * @param sendTimeout how long a batch of dead letters may take to be acknowledged
+   */
+  public DeadLetterPublisher(
+      KafkaTemplate<String, byte[]> template, String topic, Duration sendTimeout) {
+    this.template = template;
+    this.topic = topic;
+    this.sendTimeout = sendTimeout;
+  }
+
+  /**
+   * Builds the dead letter of a record.
+   *
+   * @param record the record consumed
+   * @param sink the name of the destination that refused it
+   * @param code the error code, one of the constants of this class
+   * @param reason why it was refused
+   * @return the dead letter, to be {@link #publish published}
+   */
+  public ProducerRecord<String, byte[]> deadLetter(
+      ConsumerRecord<String, byte[]> record, String sink, String code, String reason) {
+    Headers headers = new RecordHeaders();
+    Header contentType = record.headers().lastHeader(WireFormat.CONTENT_TYPE_HEADER);
+    if (contentType != null) {
+      headers.add(contentType);
+    }
+    headers.add(DlqHeaders.ORIGIN_TOPIC, record.topic().getBytes(StandardCharsets.UTF_8));
+    headers.add(DlqHeaders.SERVICE, SERVICE);
+    headers.add(DlqHeaders.SINK, sink.getBytes(StandardCharsets.UTF_8));
+    headers.add(DlqHeaders.ERROR_CODE, code.getBytes(StandardCharsets.UTF_8));
+    headers.add(DlqHeaders.REASON, reason.getBytes(StandardCharsets.UTF_8));
+    return new ProducerRecord<>(topic, null, record.key(), record.value(), headers);
+  }
+
+  /**
+   * Sends dead letters, then waits until all of them are acknowledged.
+   *
+   * @param deadLetters the dead letters
+   * @throws Exception if a send failed or was not acknowledged within the send timeout
+   */
+  public void publish(List<ProducerRecord<String, byte[]>> deadLetters) throws Exception {
+    if (deadLetters.isEmpty()) {
+      return;
+    }
+    List<CompletableFuture<?>> sends = new ArrayList<>(deadLetters.size());
+    for (ProducerRecord<String, byte[]> deadLetter : deadLetters) {
+      sends.add(template.send(deadLetter));
+    }
+    try {
+      CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+          .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof Exception cause ? cause : e;
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package io.analytics.platform.sink.pipeline;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.util.List;
+
+/** Destination of the batches flushed by a {@link SinkPipeline}. */
+public interface EventWriter {
+
+  /**
+   * Returns the name of the destination, the {@code sink} tag of its meters.
+   *
+   * @return the name
+   */
+  String name();
+
+  /**
+   * Writes a batch durably. Events already written, as redelivered ones are, must be skipped
+   * rather than fail the batch; events the destination refuses for good are reported as rejected
+   * rather than fail it.
+   *
+   * @param events the events, never empty
+   * @return the number of events written and those rejected
+   * @throws Exception if the batch was not written; it is retried, as a whole if the exception is
+   *     {@link #isPermanent permanent}, and in smaller parts otherwise
+   */
+  WriteResult write(List<ProcessedEvent> events) throws Exception;
+
+  /**
+   * Returns whether a failure of {@link #write} is caused by some events of the batch, e.g. a
+   * value the destination cannot store, rather than by the destination being unavailable. Retrying
+   * the same batch then fails the same way, so the pipeline splits it to isolate those events.
+   *
+   * @param failure the exception thrown by {@link #write}
+   * @return true if the failure is caused by the data written; false by default
+   */
+  default boolean isPermanent(Exception failure) {
+    return false;
+  }
+}
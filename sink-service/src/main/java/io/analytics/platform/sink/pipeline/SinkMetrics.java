@@ -0,0 +1,111 @@
+package io.analytics.platform.sink.pipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instruments of a {@link SinkPipeline}, tagged with the name of its writer.
+ *
+ * <ul>
+ *   <li>{@code sink.events{sink,outcome}}: written, duplicate (already stored), dead_lettered
+ *       (refused by the writer) and undecodable event counts
+ *   <li>{@code sink.flush.duration{sink}}: time taken by a successful flush
+ *   <li>{@code sink.flush.size{sink}}: events per flush
+ *   <li>{@code sink.flush.failures{sink}}: failed flush attempts
+ *   <li>{@code sink.buffered{sink}}: events polled and not yet flushed
+ *   <li>{@code sink.lag{sink}}: records between the position of the consumer and the end of its
+ *       partitions, as of the last poll
+ * </ul>
+ */
+public final class SinkMetrics {
+
+  private final Counter written;
+  private final Counter duplicate;
+  private final Counter deadLettered;
+  private final Counter undecodable;
+  private final Counter failures;
+  private final Timer flushDuration;
+  private final DistributionSummary flushSize;
+
+  /**
+   * Registers the pipeline meters.
+   *
+   * @param registry the registry to publish to
+   * @param sink the name of the writer
+   * @param buffered source of the buffered event count
+   * @param lag source of the consumer lag
+   */
+  public SinkMetrics(
+      MeterRegistry registry, String sink, Supplier<Number> buffered, Supplier<Number> lag) {
+    written = outcome(registry, sink, "written");
+    duplicate = outcome(registry, sink, "duplicate");
+    deadLettered = outcome(registry, sink, "dead_lettered");
+    undecodable = outcome(registry, sink, "undecodable");
+    failures =
+        Counter.builder("sink.flush.failures")
+            .description("Failed flush attempts")
+            .tag("sink", sink)
+            .register(registry);
+    flushDuration =
+        Timer.builder("sink.flush.duration")
+            .description("Time taken by a successful flush")
+            .tag("sink", sink)
+            .publishPercentileHistogram()
+            .register(registry);
+    flushSize =
+        DistributionSummary.builder("sink.flush.size")
+            .description("Events per flush")
+            .tag("sink", sink)
+            .baseUnit("events")
+            .register(registry);
+    Gauge.builder("sink.buffered", buffered)
+        .description("Events polled and not yet flushed")
+        .tag("sink", sink)
+        .register(registry);
+    Gauge.builder("sink.lag", lag)
+        .description("Records between the consumer position and the end of its partitions")
+        .tag("sink", sink)
+        .baseUnit("records")
+        .register(registry);
+  }
+
+  private static Counter outcome(MeterRegistry registry, String sink, String outcome) {
+    return Counter.builder("sink.events")
+        .description("Events handled by the sink, by outcome")
+        .tag("sink", sink)
+        .tag("outcome", outcome)
+        .register(registry);
+  }
+
+  /**
+   * Records a successful flush.
+   *
+   * @param size events in the batch
+   * @param written events the writer stored
+   * @param deadLettered events the writer refused, sent to the dead letter topic; the others are
+   *     duplicates
+   * @param nanos flush time in nanoseconds
+   */
+  public void flushed(int size, int written, int deadLettered, long nanos) {
+    this.written.increment(written);
+    this.deadLettered.increment(deadLettered);
+    duplicate.increment(size - written - deadLettered);
+    flushSize.record(size);
+    flushDuration.record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /** Records a failed flush attempt. */
+  public void failed() {
+    failures.increment();
+  }
+
+  /** Records a record dead lettered because it held no decodable event. */
+  public void undecodable() {
+    undecodable.increment();
+  }
+}
@@ -0,0 +1,448 @@
+package io.analytics.platform.sink.pipeline;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.kafka.EventDeserializer;
+import io.analytics.platform.common.logging.Logging;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.SerializationException;
+import org.slf4j.Logger;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Kafka consumer that buffers processed events and hands them to an {@link EventWriter} in
+ * batches, committing offsets only once a batch has been written.
+ *
+ * <p>A single thread owns the {@link Consumer}, the buffer and the flushes. The buffer is flushed
+ * when it holds {@code batchSize} events or its oldest record has waited {@code flushInterval},
+ * whichever comes first, so a busy topic is written in large batches and a quiet one with bounded
+ * latency. A poll may take the buffer beyond {@code batchSize}; it is then written in several
+ * calls of at most that many events. Offsets are committed synchronously once the whole buffer is
+ * written: a crash loses no event, and the events of the last batch are redelivered, which
+ * writers skip.
+ *
+ * <p>Each destination runs its own pipeline, with its own consumer, so that a slow or failing one
+ * neither holds back nor buffers for the others. The consumer is expected to fetch at most {@code
+ * batchSize} records per poll, which bounds the buffer below twice that many.
+ *
+ * <p>A failed flush keeps the buffer and pauses fetching, and is retried after {@code retryBackoff}
+ * until it succeeds, the pause doubling after each failure up to {@code maxRetryBackoff}; the
+ * consumer keeps polling meanwhile so that it stays in its group. On revocation the buffer is
+ * flushed before the partitions are given up; if that fails it is discarded, and the partitions
+ * still assigned are rewound to its first record.
+ *
+ * <p>Records that cannot be stored however often they are retried go to the dead letter topic
+ * instead of blocking the pipeline: records that do not hold a decodable event, events the writer
+ * reports as rejected, and events a write fails on for good. When a write fails with an exception
+ * the writer {@linkplain EventWriter#isPermanent deems permanent}, the batch is split in halves
+ * written separately, down to the single event at fault. Dead letters are published with the
+ * flush, before its offsets are committed; failing to publish them fails the flush.
+ */
+public final class SinkPipeline implements SmartLifecycle {
+
+  private static final Logger log = Logging.getLogger(SinkPipeline.class);
+
+  private final Supplier<Consumer<String, byte[]>> consumers;
+  private final Collection<String> topics;
+  private final EventWriter writer;
+  private final DeadLetterPublisher publisher;
+  private final int batchSize;
+  private final Duration flushInterval;
+  private final Duration retryBackoff;
+  private final Duration maxRetryBackoff;
+  private final SinkMetrics metrics;
+  private final EventDeserializer<ProcessedEvent> deserializer =
+      new EventDeserializer<>(ProcessedEvent.class);
+
+  // Owned by the polling thread
+  private final List<ProcessedEvent> buffer = new ArrayList<>();
+  private final List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+  private final List<ProducerRecord<String, byte[]>> undecodable = new ArrayList<>();
+  private final Map<TopicPartition, Long> firstOffsets = new HashMap<>();
+  private final Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+  private long oldestNanos;
+  private boolean failing;
+  private int failures;
+  private long retryNanos;
+
+  private volatile int buffered;
+  private volatile long lag;
+  private volatile boolean running;
+  private Thread poller;
+
+  /**
+   * Creates a pipeline; records are consumed once it is {@link #start() started}.
+   *
+   * @param consumers creates the consumer, called on the polling thread; auto-commit must be off
+   * @param topics topics to subscribe to
+   * @param writer destination of the batches
+   * @param publisher publisher of the records that cannot be stored
+   * @param batchSize the events that trigger a flush, and the most handed to the writer at once
+   * @param flushInterval how long a record is buffered at most
+   * @param retryBackoff the pause after the first failure of a flush
+   * @param maxRetryBackoff the longest pause between attempts of a failed flush
+   * @param registry registry of the pipeline meters
+   */
+  public SinkPipeline(
+      Supplier<Consumer<String, byte[]>> consumers,
+      Collection<String> topics,
+      EventWriter writer,
+      DeadLetterPublisher publisher,
+      int batchSize,
+      Duration flushInterval,
+      Duration retryBackoff,
+      Duration maxRetryBackoff,
+      MeterRegistry registry) {
+    this.consumers = consumers;
+    this.topics = List.copyOf(topics);
+    this.writer = writer;
+    this.publisher = publisher;
+    this.batchSize = batchSize;
+    this.flushInterval = flushInterval;
+    this.retryBackoff = retryBackoff;
+    this.maxRetryBackoff = maxRetryBackoff;
+    this.metrics = new SinkMetrics(registry, writer.name(), () -> buffered, () -> lag);
+  }
+
+  @Override
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    poller = Thread.ofPlatform().name("sink-" + writer.name() + "-poll").start(this::pollLoop);
+  }
+
+  /** Stops polling, makes a last attempt to flush the buffer and closes the consumer. */
+  @Override
+  public void stop() {
+    Thread thread;
+    synchronized (this) {
+      if (!running) {
+        return;
+      }
+      running = false;
+      thread = poller;
+    }
+    try {
+      // A poll waits at most one flush interval; the last flush gets the rest
+      thread.join(flushInterval.plusSeconds(30));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Stops the pipeline in the background, so that the pipelines of all the destinations make
+   * their last flush in parallel on shutdown.
+   */
+  @Override
+  public void stop(Runnable callback) {
+    Thread.ofPlatform()
+        .name("sink-" + writer.name() + "-stop")
+        .start(
+            () -> {
+              stop();
+              callback.run();
+            });
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Returns the number of events polled and not yet flushed.
+   *
+   * @return the buffered events
+   */
+  public int buffered() {
+    return buffered;
+  }
+
+  /**
+   * Returns the number of records between the position of the consumer and the end of its
+   * partitions as of the last poll; the buffered events are not included.
+   *
+   * @return the consumer lag
+   */
+  public long lag() {
+    return lag;
+  }
+
+  private void pollLoop() {
+    Consumer<String, byte[]> consumer = consumers.get();
+    try {
+      consumer.subscribe(topics, new Rebalance(consumer));
+      while (running) {
+        if (failing) {
+          // Paused again on every poll, so partitions assigned meanwhile are paused as well
+          Set<TopicPartition> assigned = consumer.assignment();
+          if (!assigned.isEmpty()) {
+            consumer.pause(assigned);
+          }
+        }
+        add(consumer.poll(pollTimeout(System.nanoTime())));
+        lag = lag(consumer);
+        if (flushDue(System.nanoTime())) {
+          flush(consumer);
+        }
+      }
+    } catch (RuntimeException e) {
+      Logging.error(
+          log, "Sink pipeline " + writer.name() + " stopped polling after an unexpected error", e);
+      running = false;
+    } finally {
+      if (!commits.isEmpty() && !flush(consumer)) {
+        Logging.info(
+            log, "Sink pipeline {} stopped with {} events unwritten", writer.name(), buffered);
+      }
+      consumer.close();
+      Logging.info(log, "Sink pipeline {} stopped", writer.name());
+    }
+  }
+
+  private void add(ConsumerRecords<String, byte[]> records) {
+    if (records.isEmpty()) {
+      return;
+    }
+    if (commits.isEmpty()) {
+      oldestNanos = System.nanoTime();
+    }
+    for (TopicPartition partition : records.partitions()) {
+      for (ConsumerRecord<String, byte[]> record : records.records(partition)) {
+        firstOffsets.putIfAbsent(partition, record.offset());
+        commits.put(partition, new OffsetAndMetadata(record.offset() + 1));
+        ProcessedEvent event = decode(record);
+        if (event != null) {
+          buffer.add(event);
+          this.records.add(record);
+        }
+      }
+    }
+    buffered = buffer.size();
+  }
+
+  private static long lag(Consumer<String, byte[]> consumer) {
+    long total = 0;
+    for (TopicPartition partition : consumer.assignment()) {
+      OptionalLong partitionLag = consumer.currentLag(partition);
+      if (partitionLag.isPresent()) {
+        total += partitionLag.getAsLong();
+      }
+    }
+    return total;
+  }
+
+  private Duration pollTimeout(long now) {
+    long due;
+    if (failing) {
+      due = retryNanos;
+    } else if (!commits.isEmpty()) {
+      due = oldestNanos + flushInterval.toNanos();
+    } else {
+      return flushInterval;
+    }
+    // Capped so that a long retry backoff does not delay stopping
+    return Duration.ofNanos(Math.clamp(due - now, 0, flushInterval.toNanos()));
+  }
+
+  private boolean flushDue(long now) {
+    if (failing) {
+      return now - retryNanos >= 0;
+    }
+    return buffer.size() >= batchSize
+        || (!commits.isEmpty() && now - oldestNanos >= flushInterval.toNanos());
+  }
+
+  /**
+   * Writes the buffer, publishes its dead letters and commits its offsets, or schedules a retry if
+   * either fails.
+   */
+  private boolean flush(Consumer<String, byte[]> consumer) {
+    long begin = System.nanoTime();
+    try {
+      List<ProducerRecord<String, byte[]>> deadLetters = new ArrayList<>(undecodable);
+      int written = 0;
+      for (int from = 0; from < buffer.size(); from += batchSize) {
+        written += write(from, Math.min(buffer.size(), from + batchSize), deadLetters);
+      }
+      publisher.publish(deadLetters);
+      if (!buffer.isEmpty()) {
+        metrics.flushed(
+            buffer.size(),
+            written,
+            deadLetters.size() - undecodable.size(),
+            System.nanoTime() - begin);
+      }
+    } catch (Exception e) {
+      metrics.failed();
+      failures++;
+      Duration backoff = retryBackoff.multipliedBy(1L << Math.min(failures - 1, 20));
+      if (backoff.compareTo(maxRetryBackoff) > 0) {
+        backoff = maxRetryBackoff;
+      }
+      Logging.error(
+          log,
+          "Failed to flush "
+              + buffer.size()
+              + " events to "
+              + writer.name()
+              + ", retrying in "
+              + backoff,
+          e);
+      failing = true;
+      retryNanos = System.nanoTime() + backoff.toNanos();
+      return false;
+    }
+    try {
+      consumer.commitSync(commits);
+    } catch (KafkaException e) {
+      // The events are stored; once redelivered they are skipped as duplicates
+      Logging.error(log, "Failed to commit the offsets of a flushed batch", e);
+    }
+    clear();
+    failures = 0;
+    if (failing) {
+      failing = false;
+      consumer.resume(consumer.paused());
+    }
+    return true;
+  }
+
+  /**
+   * Writes the events of the buffer in {@code [from, to)}, adding those that cannot be stored to
+   * the dead letters.
+   */
+  private int write(int from, int to, List<ProducerRecord<String, byte[]>> deadLetters)
+      throws Exception {
+    WriteResult result;
+    try {
+      result = writer.write(buffer.subList(from, to));
+    } catch (Exception e) {
+      if (!writer.isPermanent(e)) {
+        throw e;
+      }
+      if (to - from == 1) {
+        Logging.error(
+            log,
+            "Dead lettering event " + buffer.get(from).id() + " that " + writer.name() + " refused",
+            e);
+        deadLetters.add(
+            publisher.deadLetter(
+                records.get(from),
+                writer.name(),
+                DeadLetterPublisher.WRITE_FAILED,
+                String.valueOf(e.getMessage())));
+        return 0;
+      }
+      // Halved until the events at fault are isolated, the others being written meanwhile
+      int middle = (from + to) >>> 1;
+      return write(from, middle, deadLetters) + write(middle, to, deadLetters);
+    }
+    for (WriteResult.Rejection rejection : result.rejected()) {
+      deadLetters.add(
+          publisher.deadLetter(
+              records.get(from + rejection.index()),
+              writer.name(),
+              DeadLetterPublisher.WRITE_REJECTED,
+              rejection.reason()));
+    }
+    return result.written();
+  }
+
+  private void clear() {
+    buffer.clear();
+    records.clear();
+    undecodable.clear();
+    firstOffsets.clear();
+    commits.clear();
+    buffered = 0;
+  }
+
+  private ProcessedEvent decode(ConsumerRecord<String, byte[]> record) {
+    ProcessedEvent event;
+    try {
+      event = deserializer.deserialize(record.topic(), record.headers(), record.value());
+    } catch (SerializationException e) {
+      Logging.error(
+          log,
+          "Dead lettering undecodable record at " + record.topic() + "-" + record.partition(),
+          e);
+      Throwable cause = e.getCause() != null ? e.getCause() : e;
+      undecodable(record, String.valueOf(cause.getMessage()));
+      return null;
+    }
+    if (event == null || event.id() == null || event.ts() == null) {
+      Logging.info(
+          log,
+          "Dead lettering record without an event at {}-{}",
+          record.topic(),
+          record.partition());
+      undecodable(record, "Record has no event with an ID and a timestamp");
+      return null;
+    }
+    return event;
+  }
+
+  private void undecodable(ConsumerRecord<String, byte[]> record, String reason) {
+    metrics.undecodable();
+    undecodable.add(
+        publisher.deadLetter(record, writer.name(), DeadLetterPublisher.DECODE_FAILED, reason));
+  }
+
+  /** Flushes the buffer before partitions are given up, or rewinds them if that fails. */
+  private final class Rebalance implements ConsumerRebalanceListener {
+
+    private final Consumer<String, byte[]> consumer;
+
+    Rebalance(Consumer<String, byte[]> consumer) {
+      this.consumer = consumer;
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+      if (commits.isEmpty() || flush(consumer)) {
+        return;
+      }
+      Set<TopicPartition> kept = new HashSet<>(consumer.assignment());
+      kept.removeAll(partitions);
+      for (TopicPartition partition : kept) {
+        Long first = firstOffsets.get(partition);
+        if (first != null) {
+          consumer.seek(partition, first);
+        }
+      }
+      Logging.info(
+          log,
+          "Discarded {} unwritten events of {} on revocation; they are redelivered",
+          buffered,
+          writer.name());
+      clear();
+      failing = false;
+      failures = 0;
+      consumer.resume(consumer.paused());
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {}
+  }
+}
@@ -0,0 +1,30 @@
+package io.analytics.platform.sink.pipeline;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch handed to an {@link EventWriter}.
+ *
+ * @param written the number of events written, those already stored excluded
+ * @param rejected the events the destination refused for good, which retrying cannot store
+ */
+public record WriteResult(int written, List<Rejection> rejected) {
+
+  /**
+   * Describes a batch written without rejections.
+   *
+   * @param written the number of events written
+   * @return the result
+   */
+  public static WriteResult written(int written) {
+    return new WriteResult(written, List.of());
+  }
+
+  /**
+   * An event refused for good by the destination.
+   *
+   * @param index the position of the event in the batch
+   * @param reason why it was refused, as reported by the destination
+   */
+  public record Rejection(int index, String reason) {}
+}
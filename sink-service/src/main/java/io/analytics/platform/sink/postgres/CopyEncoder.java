@@ -0,0 +1,118 @@
+package io.analytics.platform.sink.postgres;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.util.JsonUtil;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Encodes events as rows of the PostgreSQL COPY text format into a reusable byte buffer.
+ *
+ * <p>Each row holds {@code id, ts, value_transformed, tags, meta, source}, separated by tabs and
+ * ended by a newline. Nulls are written as {@code \N}; backslashes, tabs, newlines and carriage
+ * returns within values are escaped with a backslash. Those are ASCII bytes, which never occur
+ * within a multi-byte UTF-8 sequence, so values are escaped after encoding. Timestamps are
+ * written in UTC, as the {@code timestamp} column holds them.
+ *
+ * <p>Not thread-safe.
+ */
+final class CopyEncoder {
+
+  private static final byte[] NULL = {'\\', 'N'};
+
+  private byte[] bytes;
+  private int size;
+
+  /**
+   * Creates an encoder.
+   *
+   * @param capacity the initial capacity of the buffer, in bytes
+   */
+  CopyEncoder(int capacity) {
+    this.bytes = new byte[capacity];
+  }
+
+  /**
+   * Appends the row of an event.
+   *
+   * @param event the event
+   */
+  void append(ProcessedEvent event) {
+    appendEscaped(event.id());
+    append((byte) '\t');
+    appendEscaped(LocalDateTime.ofInstant(event.ts(), ZoneOffset.UTC).toString());
+    append((byte) '\t');
+    appendEscaped(event.valueTransformed() != null ? event.valueTransformed().toString() : null);
+    append((byte) '\t');
+    appendEscaped(event.tags() != null ? JsonUtil.toJsonBytes(event.tags()) : null);
+    append((byte) '\t');
+    appendEscaped(event.meta() != null ? JsonUtil.toJsonBytes(event.meta()) : null);
+    append((byte) '\t');
+    appendEscaped(event.source());
+    append((byte) '\n');
+  }
+
+  /** Returns the buffer, whose first {@link #size()} bytes hold the rows appended. */
+  byte[] array() {
+    return bytes;
+  }
+
+  /** Returns the number of bytes appended. */
+  int size() {
+    return size;
+  }
+
+  /** Discards the rows appended, keeping the buffer. */
+  void reset() {
+    size = 0;
+  }
+
+  private void appendEscaped(String value) {
+    appendEscaped(value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+  }
+
+  private void appendEscaped(byte[] value) {
+    if (value == null) {
+      ensure(NULL.length);
+      System.arraycopy(NULL, 0, bytes, size, NULL.length);
+      size += NULL.length;
+      return;
+    }
+    // Twice the length bounds the escaped value
+    ensure(value.length * 2);
+    for (byte b : value) {
+      switch (b) {
+        case '\\' -> {
+          bytes[size++] = '\\';
+          bytes[size++] = '\\';
+        }
+        case '\t' -> {
+          bytes[size++] = '\\';
+          bytes[size++] = 't';
+        }
+        case '\n' -> {
+          bytes[size++] = '\\';
+          bytes[size++] = 'n';
+        }
+        case '\r' -> {
+          bytes[size++] = '\\';
+          bytes[size++] = 'r';
+        }
+        default -> bytes[size++] = b;
+      }
+    }
+  }
+
+  private void append(byte b) {
+    ensure(1);
+    bytes[size++] = b;
+  }
+
+  private void ensure(int extra) {
+    if (size + extra > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package io.analytics.platform.sink.postgres;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+
+/**
+ * Width of the range partitions of the events table, aligned on UTC hours or days.
+ *
+ * <p>A partition is named after its table and the UTC start of its range, e.g. {@code
+ * processed_events_p20250912} for a day or {@code processed_events_p2025091213} for an hour.
+ */
+public enum PartitionInterval {
+
+  /** One partition per UTC hour. */
+  HOURLY(3600, "uuuuMMddHH"),
+
+  /** One partition per UTC day. */
+  DAILY(86_400, "uuuuMMdd");
+
+  private final long seconds;
+  private final int length;
+  private final DateTimeFormatter format;
+
+  PartitionInterval(long seconds, String pattern) {
+    this.seconds = seconds;
+    this.length = pattern.length();
+    this.format =
+        new DateTimeFormatterBuilder()
+            .appendPattern(pattern)
+            .parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
+            .toFormatter()
+            .withZone(ZoneOffset.UTC);
+  }
+
+  /**
+   * Returns the start of the partition holding a timestamp.
+   *
+   * @param ts the timestamp
+   * @return the start of its range
+   */
+  public Instant floor(Instant ts) {
+    long epochSecond = ts.getEpochSecond();
+    return Instant.ofEpochSecond(epochSecond - Math.floorMod(epochSecond, seconds));
+  }
+
+  /**
+   * Returns the start of the partition following another.
+   *
+   * @param start the start of a partition
+   * @return the end of its range
+   */
+  public Instant next(Instant start) {
+    return start.plusSeconds(seconds);
+  }
+
+  /**
+   * Returns the name suffix of a partition.
+   *
+   * @param start the start of the partition
+   * @return the suffix, e.g. {@code 20250912}
+   */
+  public String suffix(Instant start) {
+    return format.format(start);
+  }
+
+  /**
+   * Parses a name suffix back into the start of its partition.
+   *
+   * @param suffix the suffix
+   * @return the start of the partition, or null if the suffix is not one of this interval
+   */
+  public Instant parse(String suffix) {
+    if (suffix.length() != length) {
+      return null;
+    }
+    try {
+      return LocalDateTime.parse(suffix, format).toInstant(ZoneOffset.UTC);
+    } catch (DateTimeException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package io.analytics.platform.sink.postgres;
+
+import io.analytics.platform.common.logging.Logging;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Runs {@link PartitionManager#maintain()} on start and then every {@code interval}, on a single
+ * thread of its own. A failed run is logged and the next one tries again; until then writes
+ * create the partitions they need themselves.
+ *
+ * <p>Starting first {@link PartitionManager#verify() verifies} the table, and fails if it is
+ * missing or not partitioned; if the database cannot be reached the check is left to the runs.
+ */
+public final class PartitionMaintenance implements SmartLifecycle {
+
+  private static final Logger log = Logging.getLogger(PartitionMaintenance.class);
+
+  private final PartitionManager partitions;
+  private final Duration interval;
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * Creates a maintenance task; it runs once {@link #start() started}.
+   *
+   * @param partitions the partitions to maintain
+   * @param interval the pause between runs
+   */
+  public PartitionMaintenance(PartitionManager partitions, Duration interval) {
+    this.partitions = partitions;
+    this.interval = interval;
+  }
+
+  /**
+   * Verifies the table and schedules the runs.
+   *
+   * @throws IllegalStateException if the table is missing or not partitioned
+   */
+  @Override
+  public synchronized void start() {
+    if (scheduler != null) {
+      return;
+    }
+    try {
+      partitions.verify();
+    } catch (SQLException e) {
+      Logging.error(log, "Could not verify table " + partitions.table(), e);
+    }
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("sink-partition-maintenance").factory());
+    scheduler.scheduleWithFixedDelay(
+        this::maintainSafely, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (scheduler == null) {
+      return;
+    }
+    scheduler.shutdown();
+    try {
+      // A run holds no state worth waiting long for; DDL in flight is rolled back on close
+      scheduler.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    scheduler = null;
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return scheduler != null;
+  }
+
+  private void maintainSafely() {
+    try {
+      partitions.maintain();
+    } catch (SQLException | RuntimeException e) {
+      // Thrown out of the scheduled task it would cancel every later run
+      Logging.error(log, "Partition maintenance of " + partitions.table() + " failed", e);
+    }
+  }
+}
@@ -0,0 +1,345 @@
+package io.analytics.platform.sink.postgres;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.logging.Logging;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+
+/**
+ * Manages the range partitions by {@code ts} of the events table.
+ *
+ * <p>The table is partitioned natively ({@code PARTITION BY RANGE (ts)}), so each partition holds
+ * an hour or a day and carries its own small indexes, time range queries scan only the partitions
+ * they overlap, and expiring old events drops a table instead of deleting rows.
+ *
+ * <p>{@link #maintain()} creates the partition of the current interval and {@code precreate}
+ * following ones, so writes rarely wait on DDL, and expires the partitions whose whole range is
+ * older than {@code retention}: they are detached from the table and, unless {@code dropExpired}
+ * is off, dropped. {@link #route} sorts a batch by partition and creates any partition missing
+ * for it, e.g. for late events, each in a transaction of its own. Events that would fall in an
+ * expired partition are set apart instead, so a late or redelivered event never brings an expired
+ * range back.
+ *
+ * <p>Before creating a partition the manager checks in {@code pg_inherits} whether a table of that
+ * name is already attached; a table of that name that is not, e.g. an expired partition only
+ * detached, fails the routing rather than being taken for the partition.
+ *
+ * <p>Partitions created or seen are remembered, so routing costs no query; {@link #forget()}
+ * clears that memory after a failed write, in case a partition was dropped behind its back.
+ *
+ * <p>Meters: {@code sink.partitions} (partitions known), {@code sink.partitions.created} and
+ * {@code sink.partitions.expired}.
+ *
+ * <p>Thread-safe.
+ */
+public final class PartitionManager {
+
+  private static final Logger log = Logging.getLogger(PartitionManager.class);
+
+  private final DataSource dataSource;
+  private final String table;
+  private final String schema;
+  private final String prefix;
+  private final PartitionInterval interval;
+  private final int precreate;
+  private final Duration retention;
+  private final boolean dropExpired;
+  private final Clock clock;
+  private final Set<String> known = ConcurrentHashMap.newKeySet();
+  private final Counter created;
+  private final Counter expired;
+
+  /**
+   * Creates a manager.
+   *
+   * @param dataSource source of the connections
+   * @param table the partitioned table, optionally schema-qualified
+   * @param interval the width of the partitions
+   * @param precreate the partitions created ahead of the current one
+   * @param retention how long events are kept, zero to keep them forever
+   * @param dropExpired whether expired partitions are dropped rather than only detached
+   * @param clock source of the current time
+   * @param registry registry of the partition meters
+   */
+  public PartitionManager(
+      DataSource dataSource,
+      String table,
+      PartitionInterval interval,
+      int precreate,
+      Duration retention,
+      boolean dropExpired,
+      Clock clock,
+      MeterRegistry registry) {
+    this.dataSource = dataSource;
+    this.table = table;
+    int dot = table.indexOf('.');
+    this.schema = table.substring(0, dot + 1);
+    this.prefix = table.substring(dot + 1) + "_p";
+    this.interval = interval;
+    this.precreate = precreate;
+    this.retention = retention;
+    this.dropExpired = dropExpired;
+    this.clock = clock;
+    Gauge.builder("sink.partitions", known::size)
+        .description("Partitions of the events table known to the sink")
+        .register(registry);
+    created =
+        Counter.builder("sink.partitions.created")
+            .description("Partitions created by the sink")
+            .register(registry);
+    expired =
+        Counter.builder("sink.partitions.expired")
+            .description("Partitions detached or dropped by the retention policy")
+            .register(registry);
+  }
+
+  /** Returns the partitioned table. */
+  public String table() {
+    return table;
+  }
+
+  /**
+   * Returns the name of the partition holding a timestamp.
+   *
+   * @param ts the timestamp
+   * @return the schema-qualified name of the partition
+   */
+  public String partitionOf(Instant ts) {
+    return name(interval.floor(ts));
+  }
+
+  /**
+   * Sorts events by partition, creating the partitions that do not exist yet. Events whose
+   * partition is beyond the retention, as {@link #maintain()} expires it, are not routed.
+   *
+   * @param events the events
+   * @return the events by partition, and the positions of the expired ones
+   * @throws SQLException if a partition could not be created, or a table of its name exists but
+   *     is not attached to the table
+   */
+  public Routing route(List<ProcessedEvent> events) throws SQLException {
+    Map<String, List<ProcessedEvent>> routed = new LinkedHashMap<>();
+    List<Integer> late = new ArrayList<>();
+    Instant cutoff = cutoff(clock.instant());
+    Instant start = null;
+    List<ProcessedEvent> partition = null;
+    for (int i = 0; i < events.size(); i++) {
+      ProcessedEvent event = events.get(i);
+      Instant floor = interval.floor(event.ts());
+      // Events of a batch mostly share a partition, which is then looked up once
+      if (!floor.equals(start)) {
+        start = floor;
+        partition =
+            isExpired(floor, cutoff)
+                ? null
+                : routed.computeIfAbsent(ensure(floor), name -> new ArrayList<>());
+      }
+      if (partition != null) {
+        partition.add(event);
+      } else {
+        late.add(i);
+      }
+    }
+    return new Routing(routed, late);
+  }
+
+  /**
+   * Checks that the table exists and is partitioned. A table created before partitioning, e.g. by
+   * an older {@code postgres-init.sql}, would otherwise fail every partition the manager creates.
+   *
+   * @throws IllegalStateException if the table is missing or not partitioned
+   * @throws SQLException if the check could not be run
+   */
+  public void verify() throws SQLException {
+    String kind;
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement =
+            connection.prepareStatement(
+                "SELECT relkind FROM pg_class WHERE oid = to_regclass(?)")) {
+      statement.setString(1, table);
+      try (ResultSet rows = statement.executeQuery()) {
+        kind = rows.next() ? rows.getString(1) : null;
+      }
+    }
+    if (kind == null) {
+      throw new IllegalStateException("Table " + table + " does not exist");
+    }
+    if (!kind.equals("p")) {
+      throw new IllegalStateException(
+          "Table "
+              + table
+              + " is not partitioned; migrate it with"
+              + " infra/migrate-partition-processed-events.sql, see docs/06-sinks.md");
+    }
+  }
+
+  /**
+   * Creates the current and upcoming partitions, and expires those beyond the retention.
+   *
+   * @throws SQLException if a partition could not be created or expired
+   */
+  public void maintain() throws SQLException {
+    Instant now = clock.instant();
+    Instant start = interval.floor(now);
+    for (int i = 0; i <= precreate; i++) {
+      ensure(start);
+      start = interval.next(start);
+    }
+    List<String> attached = attached();
+    known.retainAll(attached);
+    known.addAll(attached);
+    Instant cutoff = cutoff(now);
+    if (cutoff == null) {
+      return;
+    }
+    for (String name : attached) {
+      Instant from = interval.parse(name.substring(schema.length() + prefix.length()));
+      if (from != null && isExpired(from, cutoff)) {
+        expire(name);
+      }
+    }
+  }
+
+  /** Forgets the partitions known to exist, which are then created again if missing. */
+  public void forget() {
+    known.clear();
+  }
+
+  private String name(Instant start) {
+    return schema + prefix + interval.suffix(start);
+  }
+
+  /** Returns the time before which events are expired, or null if they are kept forever. */
+  private Instant cutoff(Instant now) {
+    return retention.isZero() ? null : now.minus(retention);
+  }
+
+  /** Returns whether the whole range of the partition starting at a time is beyond the cutoff. */
+  private boolean isExpired(Instant start, Instant cutoff) {
+    return cutoff != null && !interval.next(start).isAfter(cutoff);
+  }
+
+  private String ensure(Instant start) throws SQLException {
+    String name = name(start);
+    if (known.contains(name)) {
+      return name;
+    }
+    try (Connection connection = dataSource.getConnection()) {
+      Boolean attached = isAttached(connection, name);
+      if (attached != null) {
+        if (!attached) {
+          // CREATE TABLE IF NOT EXISTS would pass, leaving the range without a partition
+          throw new SQLException(
+              "Table " + name + " exists but is not a partition of " + table, "42P07");
+        }
+        known.add(name);
+        return name;
+      }
+      create(connection, name, start);
+    }
+    if (known.add(name)) {
+      created.increment();
+    }
+    return name;
+  }
+
+  /** Returns whether a table is attached to the table, or null if there is no such table. */
+  private Boolean isAttached(Connection connection, String name) throws SQLException {
+    try (PreparedStatement statement =
+        connection.prepareStatement(
+            "SELECT CASE WHEN EXISTS (SELECT 1 FROM pg_inherits i WHERE i.inhrelid = c.oid"
+                + " AND i.inhparent = ?::regclass) THEN 'attached' ELSE 'detached' END"
+                + " FROM pg_class c WHERE c.oid = to_regclass(?)")) {
+      statement.setString(1, table);
+      statement.setString(2, name);
+      try (ResultSet rows = statement.executeQuery()) {
+        return rows.next() ? "attached".equals(rows.getString(1)) : null;
+      }
+    }
+  }
+
+  private void create(Connection connection, String name, Instant start) throws SQLException {
+    // IF NOT EXISTS covers another sink instance creating the partition meanwhile
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(
+          "CREATE TABLE IF NOT EXISTS "
+              + name
+              + " PARTITION OF "
+              + table
+              + " FOR VALUES FROM ('"
+              + LocalDateTime.ofInstant(start, ZoneOffset.UTC)
+              + "') TO ('"
+              + LocalDateTime.ofInstant(interval.next(start), ZoneOffset.UTC)
+              + "')");
+    }
+  }
+
+  /** Lists the partitions of the table named by this manager, qualified like the table. */
+  private List<String> attached() throws SQLException {
+    List<String> names = new ArrayList<>();
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement =
+            connection.prepareStatement(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid"
+                    + " WHERE i.inhparent = ?::regclass")) {
+      statement.setString(1, table);
+      try (ResultSet rows = statement.executeQuery()) {
+        while (rows.next()) {
+          String relname = rows.getString(1);
+          if (relname.startsWith(prefix)
+              && interval.parse(relname.substring(prefix.length())) != null) {
+            names.add(schema + relname);
+          }
+        }
+      }
+    }
+    return names;
+  }
+
+  private void expire(String name) throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("ALTER TABLE " + table + " DETACH PARTITION " + name);
+        if (dropExpired) {
+          statement.execute("DROP TABLE " + name);
+        }
+        connection.commit();
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      }
+    }
+    known.remove(name);
+    expired.increment();
+    Logging.info(log, "{} expired partition {}", dropExpired ? "Dropped" : "Detached", name);
+  }
+
+  /**
+   * A batch sorted by partition.
+   *
+   * @param partitions the events by partition name, in order of first appearance
+   * @param expired the positions in the batch of the events beyond the retention, which no
+   *     partition holds
+   */
+  public record Routing(Map<String, List<ProcessedEvent>> partitions, List<Integer> expired) {}
+}
@@ -0,0 +1,263 @@
+package io.analytics.platform.sink.postgres;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.util.JsonUtil;
+import io.analytics.platform.sink.pipeline.EventWriter;
+import io.analytics.platform.sink.pipeline.WriteResult;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * Writes batches of processed events to a PostgreSQL table partitioned by time, each batch in one
+ * transaction.
+ *
+ * <p>A batch is split by partition with a {@link PartitionManager}, which creates the partitions
+ * missing for it, and each part is written straight to its partition, sparing the server the
+ * routing of every row through the partitioned table. Events older than the retention of the
+ * manager are rejected, for the pipeline to dead letter them, rather than bring an expired
+ * partition back.
+ *
+ * <p>In {@link Mode#COPY} mode a part is streamed with the COPY protocol into a temporary staging
+ * table, created once per connection with the columns of the target table and emptied on commit,
+ * then moved with one {@code INSERT ... SELECT ... ON CONFLICT (id, ts) DO NOTHING}. COPY parses
+ * rows in bulk without a statement per row, and the staging step keeps it idempotent: events
+ * already stored, such as those of a redelivered batch, are skipped instead of failing the batch
+ * on the primary key. Connections that are not PostgreSQL ones, e.g. behind a proxying pool, fall
+ * back to inserts.
+ *
+ * <p>In {@link Mode#INSERT} mode a part is written with multi-row {@code INSERT ... VALUES ... ON
+ * CONFLICT (id, ts) DO NOTHING} statements of up to {@value #INSERT_ROWS} rows.
+ *
+ * <p>Thread-safe.
+ */
+public final class PostgresWriter implements EventWriter {
+
+  /** How batches are sent to the server. */
+  public enum Mode {
+    /** COPY into a staging table, then a single insert of the new rows. */
+    COPY,
+    /** Multi-row inserts. */
+    INSERT
+  }
+
+  /** Rows per insert statement, six bind parameters each. */
+  static final int INSERT_ROWS = 1000;
+
+  private static final String COLUMNS = "id, ts, value_transformed, tags, meta, source";
+  private static final String ROW = "(?, ?, ?, ?::jsonb, ?::jsonb, ?)";
+
+  /** Bytes handed to the server at a time during COPY. */
+  private static final int CHUNK_BYTES = 64 << 10;
+
+  private final DataSource dataSource;
+  private final PartitionManager partitions;
+  private final String table;
+  private final String staging;
+  private final Mode mode;
+  private final String chunkValues;
+
+  /**
+   * Creates a writer.
+   *
+   * @param dataSource source of the connections
+   * @param partitions manager of the partitions of the target table, which has the columns of
+   *     {@code processed_events} and a primary key on {@code (id, ts)}
+   * @param mode how batches are sent
+   */
+  public PostgresWriter(DataSource dataSource, PartitionManager partitions, Mode mode) {
+    this.dataSource = dataSource;
+    this.partitions = partitions;
+    this.table = partitions.table();
+    this.staging = "sink_staging_" + table.replace('.', '_');
+    this.mode = mode;
+    this.chunkValues = values(INSERT_ROWS);
+  }
+
+  @Override
+  public String name() {
+    return "postgres";
+  }
+
+  /**
+   * Writes a batch in one transaction.
+   *
+   * @param events the events
+   * @return the number of events inserted, those already stored excluded, and the events older
+   *     than the retention, which are rejected
+   * @throws SQLException if the batch was not written; the transaction is rolled back
+   */
+  @Override
+  public WriteResult write(List<ProcessedEvent> events) throws SQLException {
+    try {
+      PartitionManager.Routing routing = partitions.route(events);
+      List<WriteResult.Rejection> rejected = new ArrayList<>(routing.expired().size());
+      for (int index : routing.expired()) {
+        rejected.add(new WriteResult.Rejection(index, "older than the retention"));
+      }
+      Map<String, List<ProcessedEvent>> routed = routing.partitions();
+      if (routed.isEmpty()) {
+        return new WriteResult(0, rejected);
+      }
+      try (Connection connection = dataSource.getConnection()) {
+        connection.setAutoCommit(false);
+        try {
+          int written =
+              mode == Mode.COPY && connection.isWrapperFor(PGConnection.class)
+                  ? copy(connection, routed)
+                  : insert(connection, routed);
+          connection.commit();
+          return new WriteResult(written, rejected);
+        } catch (SQLException | RuntimeException e) {
+          connection.rollback();
+          throw e;
+        }
+      }
+    } catch (SQLException e) {
+      // A partition may have been dropped meanwhile; the retry checks them all again
+      partitions.forget();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns whether a write failed on a data exception (SQLSTATE class 22, e.g. a value out of
+   * range) or an integrity constraint violation (class 23), which some event of the batch causes
+   * every time it is written.
+   */
+  @Override
+  public boolean isPermanent(Exception failure) {
+    if (failure instanceof SQLException e && e.getSQLState() != null) {
+      return e.getSQLState().startsWith("22") || e.getSQLState().startsWith("23");
+    }
+    return false;
+  }
+
+  private int copy(Connection connection, Map<String, List<ProcessedEvent>> routed)
+      throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(
+          "CREATE TEMP TABLE IF NOT EXISTS "
+              + staging
+              + " (LIKE "
+              + table
+              + ") ON COMMIT DELETE ROWS");
+    }
+    int written = 0;
+    boolean staged = false;
+    for (Map.Entry<String, List<ProcessedEvent>> partition : routed.entrySet()) {
+      if (staged) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("TRUNCATE " + staging);
+        }
+      }
+      written += copy(connection, partition.getKey(), partition.getValue());
+      staged = true;
+    }
+    return written;
+  }
+
+  private int copy(Connection connection, String partition, List<ProcessedEvent> events)
+      throws SQLException {
+    CopyIn copy =
+        connection
+            .unwrap(PGConnection.class)
+            .getCopyAPI()
+            .copyIn("COPY " + staging + " (" + COLUMNS + ") FROM STDIN");
+    try {
+      CopyEncoder encoder = new CopyEncoder(CHUNK_BYTES + (CHUNK_BYTES >> 2));
+      for (ProcessedEvent event : events) {
+        encoder.append(event);
+        if (encoder.size() >= CHUNK_BYTES) {
+          copy.writeToCopy(encoder.array(), 0, encoder.size());
+          encoder.reset();
+        }
+      }
+      if (encoder.size() > 0) {
+        copy.writeToCopy(encoder.array(), 0, encoder.size());
+      }
+      copy.endCopy();
+    } finally {
+      if (copy.isActive()) {
+        copy.cancelCopy();
+      }
+    }
+    try (Statement statement = connection.createStatement()) {
+      return statement.executeUpdate(
+          "INSERT INTO "
+              + partition
+              + " ("
+              + COLUMNS
+              + ") SELECT "
+              + COLUMNS
+              + " FROM "
+              + staging
+              + " ON CONFLICT (id, ts) DO NOTHING");
+    }
+  }
+
+  private int insert(Connection connection, Map<String, List<ProcessedEvent>> routed)
+      throws SQLException {
+    int written = 0;
+    for (Map.Entry<String, List<ProcessedEvent>> partition : routed.entrySet()) {
+      written += insert(connection, partition.getKey(), partition.getValue());
+    }
+    return written;
+  }
+
+  private int insert(Connection connection, String partition, List<ProcessedEvent> events)
+      throws SQLException {
+    int written = 0;
+    for (int from = 0; from < events.size(); from += INSERT_ROWS) {
+      List<ProcessedEvent> chunk =
+          events.subList(from, Math.min(events.size(), from + INSERT_ROWS));
+      String sql =
+          "INSERT INTO "
+              + partition
+              + " ("
+              + COLUMNS
+              + ") VALUES "
+              + (chunk.size() == INSERT_ROWS ? chunkValues : values(chunk.size()))
+              + " ON CONFLICT (id, ts) DO NOTHING";
+      try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        int i = 1;
+        for (ProcessedEvent event : chunk) {
+          statement.setString(i++, event.id());
+          statement.setObject(i++, LocalDateTime.ofInstant(event.ts(), ZoneOffset.UTC));
+          if (event.valueTransformed() != null) {
+            statement.setDouble(i++, event.valueTransformed());
+          } else {
+            statement.setNull(i++, Types.NUMERIC);
+          }
+          statement.setString(i++, json(event.tags()));
+          statement.setString(i++, json(event.meta()));
+          statement.setString(i++, event.source());
+        }
+        written += statement.executeUpdate();
+      }
+    }
+    return written;
+  }
+
+  private static String values(int rows) {
+    StringBuilder values = new StringBuilder(rows * (ROW.length() + 2));
+    for (int i = 0; i < rows; i++) {
+      values.append(i == 0 ? "" : ", ").append(ROW);
+    }
+    return values.toString();
+  }
+
+  private static String json(Map<String, Object> map) {
+    return map != null ? JsonUtil.toJson(map) : null;
+  }
+}
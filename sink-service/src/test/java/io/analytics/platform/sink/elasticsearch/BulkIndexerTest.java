@@ -0,0 +1,275 @@
+package io.analytics.platform.sink.elasticsearch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.sink.pipeline.WriteResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link BulkIndexer} class.
+ *
+ * <p>A local HTTP server stands in for the cluster, answering each bulk request as the test
+ * scripts it, by default with every item created.
+ */
+class BulkIndexerTest {
+
+  private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+  private final AtomicInteger indexCreations = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+  private volatile Responder responder = (request, items) -> response(200, items(items, 201));
+  private ExecutorService executor;
+  private HttpServer server;
+
+  @BeforeEach
+  void startServer() throws IOException {
+    executor = Executors.newFixedThreadPool(8);
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  /** Tests that a batch is sent as action and document lines, after creating the index once. */
+  @Test
+  void write_indexesInBulk() throws Exception {
+    BulkIndexer indexer = indexer(1 << 20, 2, 3);
+
+    assertEquals(3, indexer.write(events(3)).written());
+    assertEquals(2, indexer.write(events(2)).written());
+
+    assertEquals(1, indexCreations.get());
+    assertEquals(2, requests.size());
+    String[] lines = requests.get(0).split("\n");
+    assertEquals(6, lines.length);
+    assertEquals("{\"index\":{\"_index\":\"processed_events\",\"_id\":\"e0\"}}", lines[0]);
+    assertEquals(
+        "{\"id\":\"e0\",\"ts\":\"2025-09-12T12:00:00Z\",\"valueTransformed\":1.5,"
+            + "\"tags\":[\"region:eu\"],\"source\":\"s\"}",
+        lines[1]);
+  }
+
+  /** Tests that requests are cut by size in bytes, each holding at least one event. */
+  @Test
+  void write_splitsBySize() throws Exception {
+    BulkIndexer indexer = indexer(200, 2, 3);
+
+    assertEquals(10, indexer.write(events(10)).written());
+
+    assertTrue(requests.size() >= 5, "requests: " + requests.size());
+    assertEquals(20, requests.stream().mapToLong(body -> body.lines().count()).sum());
+  }
+
+  /** Tests that only the items rejected as overloading are sent again. */
+  @Test
+  void write_retriesOnlyFailedItems() throws Exception {
+    responder =
+        (request, items) ->
+            request == 0
+                ? response(200, items(items, 201, 429, 201))
+                : response(200, items(items, 201));
+    BulkIndexer indexer = indexer(1 << 20, 2, 3);
+
+    assertEquals(3, indexer.write(events(3)).written());
+
+    assertEquals(2, requests.size());
+    assertTrue(requests.get(1).contains("\"_id\":\"e1\""), requests.get(1));
+    assertEquals(2, requests.get(1).lines().count());
+    assertEquals(
+        1.0,
+        registry.counter("sink.bulk.items", "sink", "elasticsearch", "outcome", "retried").count());
+  }
+
+  /** Tests that items rejected for good are reported without a retry. */
+  @Test
+  void write_reportsRejectedItems() throws Exception {
+    responder = (request, items) -> response(200, items(items, 201, 400, 201));
+    BulkIndexer indexer = indexer(1 << 20, 2, 3);
+
+    WriteResult result = indexer.write(events(3));
+
+    assertEquals(2, result.written());
+    assertEquals(
+        List.of(new WriteResult.Rejection(1, "status 400: rejected: status 400")),
+        result.rejected());
+    assertEquals(1, requests.size());
+    assertEquals(
+        1.0,
+        registry
+            .counter("sink.bulk.items", "sink", "elasticsearch", "outcome", "rejected")
+            .count());
+  }
+
+  /** Tests that a request rejected as a whole is sent again. */
+  @Test
+  void write_retriesRejectedRequest() throws Exception {
+    responder =
+        (request, items) -> request == 0 ? response(429, "{}") : response(200, items(items, 201));
+    BulkIndexer indexer = indexer(1 << 20, 2, 3);
+
+    assertEquals(3, indexer.write(events(3)).written());
+
+    assertEquals(2, requests.size());
+    assertEquals(requests.get(0), requests.get(1));
+  }
+
+  /** Tests that a batch fails once its items have failed every attempt. */
+  @Test
+  void write_failsAfterMaxAttempts() {
+    responder = (request, items) -> response(503, "{}");
+    BulkIndexer indexer = indexer(1 << 20, 2, 3);
+
+    IOException e = assertThrows(IOException.class, () -> indexer.write(events(3)));
+
+    assertTrue(e.getMessage().contains("3 of 3 events"), e.getMessage());
+    assertEquals(3, requests.size());
+  }
+
+  /** Tests that a request failing with an unexpected status fails the batch at once. */
+  @Test
+  void write_failsOnUnexpectedStatus() {
+    responder = (request, items) -> response(400, "{\"error\":\"bad request\"}");
+    BulkIndexer indexer = indexer(1 << 20, 2, 3);
+
+    IOException e = assertThrows(IOException.class, () -> indexer.write(events(3)));
+
+    assertTrue(e.getMessage().contains("400"), e.getMessage());
+    assertEquals(1, requests.size());
+  }
+
+  /** Tests that no more requests than the concurrency are in flight at a time. */
+  @Test
+  void write_boundsConcurrency() throws Exception {
+    responder =
+        (request, items) -> {
+          Thread.sleep(50);
+          return response(200, items(items, 201));
+        };
+    BulkIndexer indexer = indexer(200, 2, 3);
+
+    assertEquals(12, indexer.write(events(12)).written());
+
+    assertTrue(requests.size() >= 6, "requests: " + requests.size());
+    assertEquals(2, maxInFlight.get());
+  }
+
+  private BulkIndexer indexer(int minBytes, int concurrency, int maxAttempts) {
+    return new BulkIndexer(
+        URI.create("http://127.0.0.1:" + server.getAddress().getPort()),
+        "processed_events",
+        concurrency,
+        minBytes,
+        minBytes,
+        Duration.ofSeconds(5),
+        maxAttempts,
+        Duration.ofMillis(1),
+        Duration.ofSeconds(5),
+        registry);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    String[] reply;
+    if (exchange.getRequestMethod().equals("PUT")) {
+      indexCreations.incrementAndGet();
+      reply = response(200, "{\"acknowledged\":true}");
+    } else {
+      int request;
+      synchronized (requests) {
+        request = requests.size();
+        requests.add(body);
+      }
+      int running = inFlight.incrementAndGet();
+      maxInFlight.accumulateAndGet(running, Math::max);
+      try {
+        reply = responder.respond(request, (int) body.lines().count() / 2);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        reply = response(500, "{}");
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    }
+    byte[] bytes = reply[1].getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(Integer.parseInt(reply[0]), bytes.length);
+    exchange.getResponseBody().write(bytes);
+    exchange.close();
+  }
+
+  private static String[] response(int status, String body) {
+    return new String[] {Integer.toString(status), body};
+  }
+
+  /** Builds a bulk response body; the last status given applies to the remaining items. */
+  private static String items(int items, int... statuses) {
+    StringBuilder json = new StringBuilder("{\"took\":3,\"errors\":");
+    boolean errors = false;
+    for (int status : statuses) {
+      errors |= status / 100 != 2;
+    }
+    json.append(errors).append(",\"items\":[");
+    for (int i = 0; i < items; i++) {
+      int status = statuses[Math.min(i, statuses.length - 1)];
+      json.append(i == 0 ? "" : ",")
+          .append("{\"index\":{\"_index\":\"processed_events\",\"_id\":\"e")
+          .append(i)
+          .append("\",\"status\":")
+          .append(status);
+      if (status / 100 != 2) {
+        json.append(",\"error\":{\"type\":\"rejected\",\"reason\":\"status ")
+            .append(status)
+            .append("\",\"caused_by\":{\"type\":\"x\"}}");
+      }
+      json.append("}}");
+    }
+    return json.append("]}").toString();
+  }
+
+  private static List<ProcessedEvent> events(int count) {
+    List<ProcessedEvent> events = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      events.add(
+          new ProcessedEvent(
+              "e" + i,
+              Instant.parse("2025-09-12T12:00:00Z"),
+              1.5,
+              Map.of("region", "eu"),
+              Map.of("stage", 1),
+              "s"));
+    }
+    return events;
+  }
+
+  /** Scripts the answer of the stub cluster to the n-th bulk request. */
+  private interface Responder {
+
+    String[] respond(int request, int items) throws InterruptedException;
+  }
+}
@@ -0,0 +1,40 @@
+package io.analytics.platform.sink.elasticsearch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link BulkSizer} class. */
+class BulkSizerTest {
+
+  private static final long FAST = Duration.ofMillis(100).toNanos();
+  private static final long SLOW = Duration.ofSeconds(2).toNanos();
+
+  private final BulkSizer sizer = new BulkSizer(1000, 10_000, 4000, Duration.ofSeconds(1));
+
+  /** Tests that fast requests grow the size by the minimum, up to the maximum. */
+  @Test
+  void completed_growsAdditively() {
+    sizer.completed(FAST, false);
+    assertEquals(5000, sizer.bytes());
+
+    for (int i = 0; i < 10; i++) {
+      sizer.completed(FAST, false);
+    }
+    assertEquals(10_000, sizer.bytes());
+  }
+
+  /** Tests that rejections halve the size and slow requests shrink it, down to the minimum. */
+  @Test
+  void completed_shrinksMultiplicatively() {
+    sizer.completed(FAST, true);
+    assertEquals(2000, sizer.bytes());
+
+    sizer.completed(SLOW, false);
+    assertEquals(1500, sizer.bytes());
+
+    sizer.completed(FAST, true);
+    assertEquals(1000, sizer.bytes());
+  }
+}
@@ -0,0 +1,404 @@
+package io.analytics.platform.sink.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.common.kafka.DlqHeaders;
+import io.analytics.platform.common.util.JsonUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+/**
+ * Unit tests for {@link SinkPipeline} class.
+ *
+ * <p>A {@link MockConsumer} stands in for the broker, a recording writer for the database and a
+ * recording template for the producer of dead letters.
+ */
+class SinkPipelineTest {
+
+  private static final String TOPIC = "events";
+  private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+  private final TestConsumer consumer = new TestConsumer();
+  private final RecordingWriter writer = new RecordingWriter();
+  private final RecordingTemplate template = new RecordingTemplate();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private SinkPipeline pipeline;
+
+  @AfterEach
+  void stopPipeline() {
+    if (pipeline != null) {
+      pipeline.stop();
+    }
+  }
+
+  /** Tests that a batch waits until it reaches the batch size, then is written in full batches. */
+  @Test
+  void start_flushesAtBatchSize() {
+    start(10, Duration.ofMinutes(1), records(0, 5));
+    await(() -> pipeline.buffered() == 5, "the first records to be buffered");
+    sleep(50);
+    assertTrue(writer.sizes().isEmpty());
+
+    consumer.schedulePollTask(() -> records(5, 20).forEach(consumer::addRecord));
+
+    await(() -> committed() == 25, "the batch to be committed");
+    assertEquals(List.of(10, 10, 5), writer.sizes());
+    assertEquals(0, pipeline.buffered());
+    assertEquals(25.0, count("written"));
+  }
+
+  /** Tests that stopping flushes the buffer and commits it. */
+  @Test
+  void stop_flushesBuffer() {
+    start(10, Duration.ofMinutes(1), records(0, 5));
+    await(() -> pipeline.buffered() == 5, "the records to be buffered");
+
+    pipeline.stop();
+
+    assertEquals(List.of(5), writer.sizes());
+    assertEquals(5, committed());
+    assertTrue(consumer.closedByPipeline);
+  }
+
+  /** Tests that a partial batch is written once its oldest event has waited the interval. */
+  @Test
+  void start_flushesAfterInterval() {
+    start(1000, Duration.ofMillis(50), records(0, 5));
+
+    await(() -> committed() == 5, "the batch to be committed");
+    assertEquals(List.of(5), writer.sizes());
+    assertEquals(0, pipeline.buffered());
+  }
+
+  /** Tests that a failed flush pauses fetching and is retried before offsets are committed. */
+  @Test
+  void flush_retriesWithoutCommitting() {
+    writer.failures.set(2);
+    start(10, Duration.ofMinutes(1), records(0, 10));
+
+    await(() -> count("written") == 10.0, "the batch to be written");
+    await(() -> committed() == 10, "the batch to be committed");
+    assertEquals(List.of(10), writer.sizes());
+    assertEquals(3, writer.attempts.get());
+    assertEquals(
+        2.0, registry.get("sink.flush.failures").tag("sink", "recording").counter().count());
+    assertTrue(consumer.paused().isEmpty());
+  }
+
+  /** Tests that offsets stay uncommitted and fetching paused while the writer fails. */
+  @Test
+  void flush_holdsOffsetsWhileFailing() {
+    writer.failures.set(Integer.MAX_VALUE);
+    start(10, Duration.ofMinutes(1), records(0, 10));
+
+    await(() -> writer.attempts.get() >= 3, "the flush to be retried");
+    assertEquals(-1, committed());
+    assertEquals(Set.of(PARTITION), consumer.paused());
+    assertEquals(10, pipeline.buffered());
+  }
+
+  /** Tests that the pause between attempts of a failed flush doubles after each failure. */
+  @Test
+  void flush_backsOffExponentially() {
+    writer.failures.set(Integer.MAX_VALUE);
+    start(10, Duration.ofMinutes(1), records(0, 10));
+
+    await(() -> writer.attempts.get() >= 4, "the flush to be retried");
+    sleep(100);
+
+    // 10, 20 then 40 ms between the first four attempts; the fifth comes 80 ms after the fourth
+    assertTrue(writer.attempts.get() <= 5, "attempts: " + writer.attempts.get());
+  }
+
+  /** Tests that undecodable records are dead lettered and their offsets committed. */
+  @Test
+  void start_deadLettersUndecodableRecords() {
+    List<ConsumerRecord<String, byte[]>> records = records(0, 4);
+    records.add(record(4, "not an event".getBytes(StandardCharsets.UTF_8)));
+    start(1000, Duration.ofMillis(20), records);
+
+    await(() -> committed() == 5, "every offset to be committed");
+    assertEquals(List.of(4), writer.sizes());
+    assertEquals(1.0, count("undecodable"));
+    ProducerRecord<String, byte[]> deadLetter = template.sent().get(0);
+    assertEquals("dlq", deadLetter.topic());
+    assertEquals("key-4", deadLetter.key());
+    assertEquals("not an event", new String(deadLetter.value(), StandardCharsets.UTF_8));
+    assertEquals(TOPIC, header(deadLetter, DlqHeaders.ORIGIN_TOPIC));
+    assertEquals("sink-service", header(deadLetter, DlqHeaders.SERVICE));
+    assertEquals("recording", header(deadLetter, DlqHeaders.SINK));
+    assertEquals(DeadLetterPublisher.DECODE_FAILED, header(deadLetter, DlqHeaders.ERROR_CODE));
+  }
+
+  /** Tests that a batch failing for good is halved until the event at fault is isolated. */
+  @Test
+  void flush_isolatesPermanentFailures() {
+    writer.faulty = "e3";
+    start(8, Duration.ofMinutes(1), records(0, 8));
+
+    await(() -> committed() == 8, "the batch to be committed");
+    assertEquals(List.of(2, 1, 4), writer.sizes());
+    assertEquals(7.0, count("written"));
+    assertEquals(1.0, count("dead_lettered"));
+    assertEquals(1, template.sent().size());
+    assertEquals("key-3", template.sent().get(0).key());
+    assertEquals(
+        DeadLetterPublisher.WRITE_FAILED, header(template.sent().get(0), DlqHeaders.ERROR_CODE));
+    assertEquals("value out of range", header(template.sent().get(0), DlqHeaders.REASON));
+  }
+
+  /** Tests that events the writer rejects are dead lettered with its reason. */
+  @Test
+  void flush_deadLettersRejectedEvents() {
+    writer.rejected = 2;
+    start(5, Duration.ofMinutes(1), records(0, 5));
+
+    await(() -> committed() == 5, "the batch to be committed");
+    assertEquals(4.0, count("written"));
+    assertEquals(1.0, count("dead_lettered"));
+    assertEquals("key-2", template.sent().get(0).key());
+    assertEquals(
+        DeadLetterPublisher.WRITE_REJECTED,
+        header(template.sent().get(0), DlqHeaders.ERROR_CODE));
+    assertEquals("mapping refused it", header(template.sent().get(0), DlqHeaders.REASON));
+  }
+
+  /** Tests that a flush whose dead letters cannot be published is retried before committing. */
+  @Test
+  void flush_retriesWhenDeadLettersFail() {
+    template.failure = new IllegalStateException("broker unavailable");
+    writer.rejected = 0;
+    start(5, Duration.ofMinutes(1), records(0, 5));
+
+    await(() -> writer.attempts.get() >= 2, "the flush to be retried");
+    assertEquals(-1, committed());
+    template.failure = null;
+
+    await(() -> committed() == 5, "the batch to be committed");
+  }
+
+  /** Tests that the lag of the consumer is exposed per destination. */
+  @Test
+  void start_exposesLag() {
+    consumer.updateEndOffsets(Map.of(PARTITION, 30L));
+    start(1000, Duration.ofMinutes(1), records(0, 10));
+
+    await(() -> pipeline.buffered() == 10, "the records to be buffered");
+    await(() -> pipeline.lag() == 20, "the lag to be measured");
+    assertEquals(20.0, registry.get("sink.lag").tag("sink", "recording").gauge().value());
+  }
+
+  private void start(
+      int batchSize, Duration flushInterval, List<ConsumerRecord<String, byte[]>> records) {
+    pipeline =
+        new SinkPipeline(
+            () -> consumer,
+            List.of(TOPIC),
+            writer,
+            new DeadLetterPublisher(template, "dlq", Duration.ofSeconds(5)),
+            batchSize,
+            flushInterval,
+            Duration.ofMillis(10),
+            Duration.ofSeconds(1),
+            registry);
+    consumer.schedulePollTask(
+        () -> {
+          consumer.rebalance(List.of(PARTITION));
+          consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+          records.forEach(consumer::addRecord);
+        });
+    pipeline.start();
+  }
+
+  private static List<ConsumerRecord<String, byte[]>> records(int from, int count) {
+    List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+    for (int i = from; i < from + count; i++) {
+      ProcessedEvent event =
+          new ProcessedEvent(
+              "e" + i, Instant.parse("2025-09-12T12:00:00Z"), 1.0, Map.of(), Map.of(), "s");
+      records.add(record(i, JsonUtil.toJsonBytes(event)));
+    }
+    return records;
+  }
+
+  private static ConsumerRecord<String, byte[]> record(long offset, byte[] value) {
+    return new ConsumerRecord<>(
+        TOPIC,
+        0,
+        offset,
+        System.currentTimeMillis(),
+        TimestampType.CREATE_TIME,
+        -1,
+        -1,
+        "key-" + offset,
+        value,
+        new RecordHeaders(),
+        Optional.empty());
+  }
+
+  private static String header(ProducerRecord<String, byte[]> record, String name) {
+    return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+  }
+
+  private long committed() {
+    OffsetAndMetadata offset = consumer.committed(Set.of(PARTITION)).get(PARTITION);
+    return offset != null ? offset.offset() : -1;
+  }
+
+  private double count(String outcome) {
+    return registry
+        .get("sink.events")
+        .tags("sink", "recording", "outcome", outcome)
+        .counter()
+        .count();
+  }
+
+  private static void await(BooleanSupplier condition, String description) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) {
+        fail("Timed out waiting for " + description);
+      }
+      sleep(5);
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Records the batches written, after failing a number of attempts; fails for good on the batches
+   * holding the faulty event, and rejects the event at a given position of each batch.
+   */
+  private static final class RecordingWriter implements EventWriter {
+
+    final List<Integer> sizes = new ArrayList<>();
+    final AtomicInteger failures = new AtomicInteger();
+    final AtomicInteger attempts = new AtomicInteger();
+    volatile String faulty;
+    volatile int rejected = -1;
+
+    @Override
+    public String name() {
+      return "recording";
+    }
+
+    @Override
+    public synchronized WriteResult write(List<ProcessedEvent> events) throws Exception {
+      attempts.incrementAndGet();
+      if (failures.getAndDecrement() > 0) {
+        throw new IllegalStateException("database unavailable");
+      }
+      if (events.stream().anyMatch(event -> event.id().equals(faulty))) {
+        throw new IllegalArgumentException("value out of range");
+      }
+      sizes.add(events.size());
+      if (rejected >= 0 && rejected < events.size()) {
+        return new WriteResult(
+            events.size() - 1, List.of(new WriteResult.Rejection(rejected, "mapping refused it")));
+      }
+      return WriteResult.written(events.size());
+    }
+
+    @Override
+    public boolean isPermanent(Exception failure) {
+      return failure instanceof IllegalArgumentException;
+    }
+
+    synchronized List<Integer> sizes() {
+      return List.copyOf(sizes);
+    }
+  }
+
+  /** Records the dead letters sent, failing them while a failure is set. */
+  private static final class RecordingTemplate extends KafkaTemplate<String, byte[]> {
+
+    final List<ProducerRecord<String, byte[]>> sent = new ArrayList<>();
+    volatile RuntimeException failure;
+
+    RecordingTemplate() {
+      super(new DefaultKafkaProducerFactory<>(Map.of()));
+    }
+
+    @Override
+    public synchronized CompletableFuture<SendResult<String, byte[]>> send(
+        ProducerRecord<String, byte[]> record) {
+      if (failure != null) {
+        return CompletableFuture.failedFuture(failure);
+      }
+      sent.add(record);
+      RecordMetadata metadata =
+          new RecordMetadata(new TopicPartition(record.topic(), 0), sent.size(), 0, 0L, 0, 0);
+      return CompletableFuture.completedFuture(new SendResult<>(record, metadata));
+    }
+
+    synchronized List<ProducerRecord<String, byte[]>> sent() {
+      return List.copyOf(sent);
+    }
+  }
+
+  /**
+   * Keeps committed offsets readable after the pipeline closed the consumer, and waits briefly on
+   * empty polls as a broker would instead of letting the polling thread spin.
+   */
+  private static final class TestConsumer extends MockConsumer<String, byte[]> {
+
+    volatile boolean closedByPipeline;
+
+    TestConsumer() {
+      super(OffsetResetStrategy.EARLIEST);
+    }
+
+    @Override
+    public ConsumerRecords<String, byte[]> poll(Duration timeout) {
+      ConsumerRecords<String, byte[]> records = super.poll(timeout);
+      if (records.isEmpty()) {
+        sleep(Math.min(timeout.toMillis(), 1));
+      }
+      return records;
+    }
+
+    @Override
+    public synchronized void close() {
+      closedByPipeline = true;
+    }
+
+    @Override
+    public synchronized void close(Duration timeout) {
+      closedByPipeline = true;
+    }
+  }
+}
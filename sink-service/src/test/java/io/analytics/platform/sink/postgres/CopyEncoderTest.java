@@ -0,0 +1,70 @@
+package io.analytics.platform.sink.postgres;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link CopyEncoder} class. */
+class CopyEncoderTest {
+
+  private final CopyEncoder encoder = new CopyEncoder(16);
+
+  /** Tests that a row holds the columns tab-separated, with the timestamp in UTC. */
+  @Test
+  void append_writesTabSeparatedRow() {
+    encoder.append(
+        new ProcessedEvent(
+            "e1",
+            Instant.parse("2025-09-12T12:00:00.250Z"),
+            42.5,
+            Map.of("region", "eu"),
+            Map.of("stage", 1),
+            "processor-service"));
+
+    assertEquals(
+        "e1\t2025-09-12T12:00:00.250\t42.5\t{\"region\":\"eu\"}\t{\"stage\":1}"
+            + "\tprocessor-service\n",
+        text());
+  }
+
+  /** Tests that backslashes and control characters are escaped and nulls written as such. */
+  @Test
+  void append_escapesSpecialCharactersAndNulls() {
+    encoder.append(
+        new ProcessedEvent(
+            "a\tb\\c",
+            Instant.parse("2025-09-12T12:00:00Z"),
+            null,
+            Map.of("note", "x\ny"),
+            null,
+            "s\r\u00e9"));
+
+    assertEquals(
+        "a\\tb\\\\c\t2025-09-12T12:00\t\\N\t{\"note\":\"x\\\\ny\"}\t\\N\ts\\r\u00e9\n", text());
+  }
+
+  /** Tests that the buffer grows as rows are appended and is reused after a reset. */
+  @Test
+  void append_growsAndResets() {
+    for (int i = 0; i < 100; i++) {
+      encoder.append(
+          new ProcessedEvent(
+              "e" + i, Instant.parse("2025-09-12T12:00:00Z"), 1.0, Map.of(), Map.of(), "s"));
+    }
+    assertEquals(100, text().lines().count());
+
+    byte[] buffer = encoder.array();
+    encoder.reset();
+
+    assertEquals(0, encoder.size());
+    assertSame(buffer, encoder.array());
+  }
+
+  private String text() {
+    return new String(encoder.array(), 0, encoder.size(), StandardCharsets.UTF_8);
+  }
+}
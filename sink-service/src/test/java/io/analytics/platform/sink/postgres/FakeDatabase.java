@@ -0,0 +1,144 @@
+package io.analytics.platform.sink.postgres;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * Records the statements, parameters and transaction calls made through its connections, which
+ * are not PostgreSQL ones. Queries are recorded apart from the other statements and return {@link
+ * #rows}, or the {@link #results} matching them, as single-column rows.
+ */
+final class FakeDatabase {
+
+  /** SQL of the prepared statements, in order. */
+  final List<String> statements = new ArrayList<>();
+
+  /** SQL run through plain statements, in order. */
+  final List<String> executed = new ArrayList<>();
+
+  /** Parameters bound to the prepared statements, {@code null} for SQL nulls. */
+  final List<Object> parameters = new ArrayList<>();
+
+  /** SQL of the prepared queries, in order. */
+  final List<String> queries = new ArrayList<>();
+
+  /** Parameters bound to the prepared queries. */
+  final List<Object> queryParameters = new ArrayList<>();
+
+  /** Values returned by queries. */
+  final List<String> rows = new ArrayList<>();
+
+  /** Values returned instead of {@link #rows} by the queries whose SQL contains the key. */
+  final Map<String, List<String>> results = new HashMap<>();
+
+  boolean autoCommit = true;
+  boolean committed;
+  boolean rolledBack;
+
+  /** Statements whose SQL contains this fail, if set. */
+  String failOn;
+
+  DataSource dataSource() {
+    Connection connection = proxy(Connection.class, this::connection);
+    return proxy(
+        DataSource.class,
+        (proxy, method, args) -> method.getName().equals("getConnection") ? connection : null);
+  }
+
+  /** Returns the rows inserted by each prepared statement, from its number of parameters. */
+  List<Integer> rowsPerStatement() {
+    return statements.stream()
+        .map(sql -> (int) sql.chars().filter(c -> c == '?').count() / 6)
+        .toList();
+  }
+
+  private Object connection(Object proxy, Method method, Object[] args) {
+    switch (method.getName()) {
+      case "setAutoCommit" -> autoCommit = (Boolean) args[0];
+      case "commit" -> committed = true;
+      case "rollback" -> rolledBack = true;
+      case "isWrapperFor" -> {
+        return false;
+      }
+      case "createStatement" -> {
+        return proxy(Statement.class, this::statement);
+      }
+      case "prepareStatement" -> {
+        String sql = (String) args[0];
+        boolean query = sql.startsWith("SELECT");
+        (query ? queries : statements).add(sql);
+        List<Object> bound = query ? queryParameters : parameters;
+        return proxy(PreparedStatement.class, (p, m, a) -> prepared(sql, bound, m, a));
+      }
+      default -> {}
+    }
+    return null;
+  }
+
+  private Object statement(Object proxy, Method method, Object[] args) throws SQLException {
+    if (method.getName().startsWith("execute")) {
+      String sql = (String) args[0];
+      fail(sql);
+      executed.add(sql);
+      return method.getReturnType() == boolean.class ? false : 0;
+    }
+    return null;
+  }
+
+  private Object prepared(String sql, List<Object> bound, Method method, Object[] args)
+      throws SQLException {
+    String name = method.getName();
+    if (name.startsWith("set")) {
+      bound.add(name.equals("setNull") ? null : args[1]);
+    } else if (name.equals("executeUpdate")) {
+      fail(sql);
+      return (int) sql.chars().filter(c -> c == '?').count() / 6;
+    } else if (name.equals("executeQuery")) {
+      fail(sql);
+      List<String> result =
+          results.entrySet().stream()
+              .filter(entry -> sql.contains(entry.getKey()))
+              .map(Map.Entry::getValue)
+              .findFirst()
+              .orElse(rows);
+      Iterator<String> values = List.copyOf(result).iterator();
+      String[] current = new String[1];
+      return proxy(
+          ResultSet.class,
+          (p, m, a) ->
+              switch (m.getName()) {
+                case "next" -> {
+                  current[0] = values.hasNext() ? values.next() : null;
+                  yield current[0] != null;
+                }
+                case "getString" -> current[0];
+                default -> null;
+              });
+    }
+    return null;
+  }
+
+  private void fail(String sql) throws SQLException {
+    if (failOn != null && sql.contains(failOn)) {
+      throw new SQLException("connection lost");
+    }
+  }
+
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return type.cast(
+        Proxy.newProxyInstance(
+            FakeDatabase.class.getClassLoader(), new Class<?>[] {type}, handler));
+  }
+}
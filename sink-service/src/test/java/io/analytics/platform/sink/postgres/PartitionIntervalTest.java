@@ -0,0 +1,44 @@
+package io.analytics.platform.sink.postgres;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link PartitionInterval} class. */
+class PartitionIntervalTest {
+
+  private static final Instant TS = Instant.parse("2025-09-12T13:45:30.500Z");
+
+  /** Tests that timestamps are floored to the UTC hour or day. */
+  @Test
+  void floor_alignsOnUtcBoundaries() {
+    assertEquals(Instant.parse("2025-09-12T13:00:00Z"), PartitionInterval.HOURLY.floor(TS));
+    assertEquals(Instant.parse("2025-09-12T00:00:00Z"), PartitionInterval.DAILY.floor(TS));
+    assertEquals(
+        Instant.parse("1969-12-31T00:00:00Z"),
+        PartitionInterval.DAILY.floor(Instant.parse("1969-12-31T23:59:59Z")));
+  }
+
+  /** Tests that suffixes name the start of the partition and parse back to it. */
+  @Test
+  void suffix_roundTrips() {
+    Instant hour = PartitionInterval.HOURLY.floor(TS);
+    Instant day = PartitionInterval.DAILY.floor(TS);
+
+    assertEquals("2025091213", PartitionInterval.HOURLY.suffix(hour));
+    assertEquals("20250912", PartitionInterval.DAILY.suffix(day));
+    assertEquals(hour, PartitionInterval.HOURLY.parse("2025091213"));
+    assertEquals(day, PartitionInterval.DAILY.parse("20250912"));
+    assertEquals(Instant.parse("2025-09-13T00:00:00Z"), PartitionInterval.DAILY.next(day));
+  }
+
+  /** Tests that suffixes of another interval or not dates at all are rejected. */
+  @Test
+  void parse_rejectsForeignSuffixes() {
+    assertNull(PartitionInterval.DAILY.parse("2025091213"));
+    assertNull(PartitionInterval.HOURLY.parse("20250912"));
+    assertNull(PartitionInterval.DAILY.parse("20251332"));
+    assertNull(PartitionInterval.DAILY.parse("archive1"));
+  }
+}
@@ -0,0 +1,195 @@
+package io.analytics.platform.sink.postgres;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link PartitionManager} class. */
+class PartitionManagerTest {
+
+  private static final Instant NOW = Instant.parse("2025-09-12T13:45:00Z");
+
+  private final FakeDatabase database = new FakeDatabase();
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+
+  /** Tests that maintenance creates the current partition and those ahead of it. */
+  @Test
+  void maintain_precreatesPartitions() throws SQLException {
+    manager("processed_events", PartitionInterval.HOURLY, true).maintain();
+
+    assertEquals(
+        List.of(
+            "CREATE TABLE IF NOT EXISTS processed_events_p2025091213 PARTITION OF processed_events"
+                + " FOR VALUES FROM ('2025-09-12T13:00') TO ('2025-09-12T14:00')",
+            "CREATE TABLE IF NOT EXISTS processed_events_p2025091214 PARTITION OF processed_events"
+                + " FOR VALUES FROM ('2025-09-12T14:00') TO ('2025-09-12T15:00')",
+            "CREATE TABLE IF NOT EXISTS processed_events_p2025091215 PARTITION OF processed_events"
+                + " FOR VALUES FROM ('2025-09-12T15:00') TO ('2025-09-12T16:00')"),
+        database.executed);
+    assertEquals(
+        List.of("processed_events", "processed_events_p2025091215", "processed_events"),
+        database.queryParameters.subList(4, 7));
+    assertEquals(3.0, registry.counter("sink.partitions.created").count());
+  }
+
+  /** Tests that partitions whose whole range is beyond the retention are detached and dropped. */
+  @Test
+  void maintain_dropsExpiredPartitions() throws SQLException {
+    database.rows.addAll(
+        List.of(
+            "processed_events_p20250910",
+            "processed_events_p20250911",
+            "processed_events_p20250912",
+            "processed_events_archive"));
+    database.results.put("to_regclass", List.of());
+
+    manager("analytics.processed_events", PartitionInterval.DAILY, true).maintain();
+
+    List<String> expiry = database.executed.subList(3, database.executed.size());
+    assertEquals(
+        List.of(
+            "ALTER TABLE analytics.processed_events"
+                + " DETACH PARTITION analytics.processed_events_p20250910",
+            "DROP TABLE analytics.processed_events_p20250910"),
+        expiry);
+    assertTrue(database.committed);
+    assertEquals(1.0, registry.counter("sink.partitions.expired").count());
+  }
+
+  /** Tests that expired partitions are only detached when dropping is off. */
+  @Test
+  void maintain_detachesExpiredPartitions() throws SQLException {
+    database.rows.add("processed_events_p20250910");
+    database.results.put("to_regclass", List.of());
+
+    manager("processed_events", PartitionInterval.DAILY, false).maintain();
+
+    assertEquals(
+        "ALTER TABLE processed_events DETACH PARTITION processed_events_p20250910",
+        database.executed.get(database.executed.size() - 1));
+  }
+
+  /** Tests that routing creates a partition once and groups events by partition. */
+  @Test
+  void route_createsMissingPartitionsOnce() throws SQLException {
+    PartitionManager manager = manager("processed_events", PartitionInterval.DAILY, true);
+    Instant yesterday = NOW.minus(Duration.ofDays(1));
+
+    Map<String, List<ProcessedEvent>> routed =
+        manager
+            .route(List.of(event("a", NOW), event("b", yesterday), event("c", NOW)))
+            .partitions();
+    manager.route(List.of(event("d", yesterday)));
+
+    assertEquals(
+        List.of("processed_events_p20250912", "processed_events_p20250911"),
+        List.copyOf(routed.keySet()));
+    assertEquals(List.of("a", "c"), ids(routed.get("processed_events_p20250912")));
+    assertEquals(2, database.executed.size());
+  }
+
+  /** Tests that events of an expired partition are set apart rather than recreate it. */
+  @Test
+  void route_skipsEventsBeyondRetentionAfterExpiry() throws SQLException {
+    database.rows.add("processed_events_p20250910");
+    database.results.put("to_regclass", List.of());
+    PartitionManager manager = manager("processed_events", PartitionInterval.DAILY, false);
+    manager.maintain();
+    int executed = database.executed.size();
+    manager.forget();
+
+    PartitionManager.Routing routing =
+        manager.route(
+            List.of(event("late", Instant.parse("2025-09-10T08:00:00Z")), event("a", NOW)));
+
+    assertEquals(List.of(0), routing.expired());
+    assertEquals(
+        List.of("processed_events_p20250912"), List.copyOf(routing.partitions().keySet()));
+    assertEquals(List.of("a"), ids(routing.partitions().get("processed_events_p20250912")));
+    assertEquals(
+        List.of(
+            "CREATE TABLE IF NOT EXISTS processed_events_p20250912 PARTITION OF processed_events"
+                + " FOR VALUES FROM ('2025-09-12T00:00') TO ('2025-09-13T00:00')"),
+        database.executed.subList(executed, database.executed.size()));
+  }
+
+  /** Tests that an existing table that is not attached is not taken for the partition. */
+  @Test
+  void route_failsOnDetachedTableOfPartitionName() throws SQLException {
+    database.results.put("to_regclass", List.of("detached"));
+    PartitionManager manager = manager("processed_events", PartitionInterval.DAILY, false);
+
+    SQLException e =
+        assertThrows(SQLException.class, () -> manager.route(List.of(event("a", NOW))));
+
+    assertTrue(e.getMessage().contains("not a partition of processed_events"));
+    assertTrue(database.executed.isEmpty());
+  }
+
+  /** Tests that an attached partition unknown to the manager is used without DDL. */
+  @Test
+  void route_usesAttachedPartition() throws SQLException {
+    database.results.put("to_regclass", List.of("attached"));
+    PartitionManager manager = manager("processed_events", PartitionInterval.DAILY, true);
+
+    manager.route(List.of(event("a", NOW)));
+
+    assertTrue(database.executed.isEmpty());
+    assertEquals(0.0, registry.counter("sink.partitions.created").count());
+  }
+
+  /** Tests that forgotten partitions are checked again, and that a failure propagates. */
+  @Test
+  void route_failsWhenPartitionCannotBeCreated() throws SQLException {
+    PartitionManager manager = manager("processed_events", PartitionInterval.DAILY, true);
+    manager.route(List.of(event("a", NOW)));
+    manager.forget();
+    database.failOn = "CREATE TABLE";
+
+    assertThrows(SQLException.class, () -> manager.route(List.of(event("b", NOW))));
+  }
+
+  /** Tests that a table that is not partitioned, as created before partitioning, fails fast. */
+  @Test
+  void verify_failsOnTableNotPartitioned() throws SQLException {
+    PartitionManager manager = manager("processed_events", PartitionInterval.DAILY, true);
+
+    database.results.put("relkind", List.of("p"));
+    manager.verify();
+    database.results.put("relkind", List.of("r"));
+    IllegalStateException e = assertThrows(IllegalStateException.class, manager::verify);
+    assertTrue(e.getMessage().contains("not partitioned"));
+    database.results.put("relkind", List.of());
+    assertThrows(IllegalStateException.class, manager::verify);
+  }
+
+  private PartitionManager manager(String table, PartitionInterval interval, boolean drop) {
+    return new PartitionManager(
+        database.dataSource(),
+        table,
+        interval,
+        2,
+        Duration.ofDays(1),
+        drop,
+        Clock.fixed(NOW, ZoneOffset.UTC),
+        registry);
+  }
+
+  private static ProcessedEvent event(String id, Instant ts) {
+    return new ProcessedEvent(id, ts, 1.0, Map.of(), Map.of(), "s");
+  }
+
+  private static List<String> ids(List<ProcessedEvent> events) {
+    return events.stream().map(ProcessedEvent::id).toList();
+  }
+}
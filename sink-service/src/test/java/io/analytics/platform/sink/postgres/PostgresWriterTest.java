@@ -0,0 +1,155 @@
+package io.analytics.platform.sink.postgres;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.analytics.platform.common.dto.ProcessedEvent;
+import io.analytics.platform.sink.pipeline.WriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link PostgresWriter} class.
+ *
+ * <p>A recording JDBC connection stands in for the database; the COPY path itself needs a
+ * PostgreSQL server and is measured by the sink benchmark.
+ */
+class PostgresWriterTest {
+
+  private static final Instant TS = Instant.parse("2025-09-12T12:00:00Z");
+
+  private final FakeDatabase database = new FakeDatabase();
+
+  /** Tests that a batch is inserted in chunks of multi-row statements in one transaction. */
+  @Test
+  void write_insertsInChunks() throws SQLException {
+    PostgresWriter writer = writer(PostgresWriter.Mode.INSERT);
+
+    int written = writer.write(events(TS, 2500)).written();
+
+    assertEquals(2500, written);
+    assertEquals(List.of(1000, 1000, 500), database.rowsPerStatement());
+    assertTrue(
+        database.statements.get(0).startsWith("INSERT INTO processed_events_p20250912 (id, ts,"));
+    assertTrue(database.statements.get(0).endsWith(" ON CONFLICT (id, ts) DO NOTHING"));
+    assertEquals("e0", database.parameters.get(0));
+    assertEquals(LocalDateTime.parse("2025-09-12T12:00"), database.parameters.get(1));
+    assertEquals("{\"region\":\"eu\"}", database.parameters.get(3));
+    assertTrue(database.committed);
+    assertFalse(database.autoCommit);
+  }
+
+  /** Tests that a batch spanning two days is written to both partitions, creating them first. */
+  @Test
+  void write_routesByPartition() throws SQLException {
+    PostgresWriter writer = writer(PostgresWriter.Mode.INSERT);
+    List<ProcessedEvent> events = new ArrayList<>(events(TS, 2));
+    events.addAll(events(TS.plus(Duration.ofDays(1)), 3));
+    events.addAll(events(TS, 1));
+
+    int written = writer.write(events).written();
+
+    assertEquals(6, written);
+    assertEquals(2, database.executed.size());
+    assertTrue(database.executed.get(1).contains(" processed_events_p20250913 PARTITION OF "));
+    assertEquals(List.of(3, 3), database.rowsPerStatement());
+    assertTrue(database.statements.get(0).startsWith("INSERT INTO processed_events_p20250912 "));
+    assertTrue(database.statements.get(1).startsWith("INSERT INTO processed_events_p20250913 "));
+  }
+
+  /** Tests that copy mode falls back to inserts on a connection that is not a PostgreSQL one. */
+  @Test
+  void write_copyFallsBackToInsert() throws SQLException {
+    PostgresWriter writer = writer(PostgresWriter.Mode.COPY);
+
+    writer.write(events(TS, 3));
+
+    assertEquals(List.of(3), database.rowsPerStatement());
+    assertTrue(database.committed);
+  }
+
+  /** Tests that a failed statement rolls the whole batch back and forgets the partitions. */
+  @Test
+  void write_rollsBackOnFailure() throws SQLException {
+    PostgresWriter writer = writer(PostgresWriter.Mode.INSERT);
+    writer.write(events(TS, 1));
+    database.failOn = "INSERT INTO";
+
+    assertThrows(SQLException.class, () -> writer.write(events(TS, 1500)));
+
+    assertTrue(database.rolledBack);
+    database.failOn = null;
+    database.executed.clear();
+    writer.write(events(TS, 1));
+    assertEquals(1, database.executed.size());
+  }
+
+  /** Tests that events older than the retention are rejected rather than written. */
+  @Test
+  void write_rejectsEventsBeyondRetention() throws SQLException {
+    PartitionManager partitions =
+        new PartitionManager(
+            database.dataSource(),
+            "processed_events",
+            PartitionInterval.DAILY,
+            0,
+            Duration.ofDays(1),
+            false,
+            Clock.fixed(TS, ZoneOffset.UTC),
+            new SimpleMeterRegistry());
+    PostgresWriter writer =
+        new PostgresWriter(database.dataSource(), partitions, PostgresWriter.Mode.INSERT);
+    List<ProcessedEvent> events = new ArrayList<>(events(TS, 1));
+    events.addAll(events(TS.minus(Duration.ofDays(3)), 2));
+
+    WriteResult result = writer.write(events);
+
+    assertEquals(1, result.written());
+    assertEquals(
+        List.of(1, 2), result.rejected().stream().map(WriteResult.Rejection::index).toList());
+    assertEquals(1, database.executed.size());
+    assertEquals(List.of(1), database.rowsPerStatement());
+  }
+
+  /** Tests that only data exceptions and constraint violations are taken as permanent. */
+  @Test
+  void isPermanent_checksSqlState() {
+    PostgresWriter writer = writer(PostgresWriter.Mode.INSERT);
+
+    assertTrue(writer.isPermanent(new SQLException("invalid json", "22P02")));
+    assertTrue(writer.isPermanent(new SQLException("null value", "23502")));
+    assertFalse(writer.isPermanent(new SQLException("connection lost", "08006")));
+    assertFalse(writer.isPermanent(new SQLException("connection lost")));
+    assertFalse(writer.isPermanent(new IllegalStateException("22")));
+  }
+
+  private PostgresWriter writer(PostgresWriter.Mode mode) {
+    PartitionManager partitions =
+        new PartitionManager(
+            database.dataSource(),
+            "processed_events",
+            PartitionInterval.DAILY,
+            0,
+            Duration.ZERO,
+            true,
+            Clock.fixed(TS, ZoneOffset.UTC),
+            new SimpleMeterRegistry());
+    return new PostgresWriter(database.dataSource(), partitions, mode);
+  }
+
+  private static List<ProcessedEvent> events(Instant ts, int count) {
+    List<ProcessedEvent> events = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      events.add(new ProcessedEvent("e" + i, ts, 1.0, Map.of("region", "eu"), Map.of(), "s"));
+    }
+    return events;
+  }
+}